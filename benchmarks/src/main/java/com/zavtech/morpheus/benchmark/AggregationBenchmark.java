@@ -0,0 +1,59 @@
+package com.zavtech.morpheus.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.groupby.Aggregate;
+import com.zavtech.morpheus.groupby.GroupBy;
+import com.zavtech.morpheus.stats.Moments;
+import com.zavtech.morpheus.stats.Stats;
+
+/**
+ * Benchmarks column statistics and group-by aggregation over the trades frame.
+ */
+@State(Scope.Benchmark)
+public class AggregationBenchmark extends FrameBenchmark {
+
+    @Benchmark
+    public double sum() {
+        return Stats.sum(trades.numeric("price"));
+    }
+
+    @Benchmark
+    public double sumWithNulls() {
+        return Stats.sum(trades.numeric("bid"));
+    }
+
+    @Benchmark
+    public double max() {
+        return Stats.max(trades.numeric("price"));
+    }
+
+    @Benchmark
+    public Moments moments() {
+        return Stats.moments(trades.numeric("price"));
+    }
+
+    @Benchmark
+    public int groupBySymbol() {
+        try (DataFrame result = GroupBy.of(trades, "sym").aggregate(Aggregate.sum("qty"), Aggregate.mean("price"), Aggregate.count())) {
+            return result.rowCount();
+        }
+    }
+
+    @Benchmark
+    public int groupBySymbolAndSide() {
+        try (DataFrame result = GroupBy.of(trades, "sym", "buy").aggregate(Aggregate.min("price"), Aggregate.max("price"), Aggregate.last("price"))) {
+            return result.rowCount();
+        }
+    }
+
+    @Benchmark
+    public int groupByHighCardinality() {
+        try (DataFrame result = GroupBy.of(trades, "time").aggregate(Aggregate.sum("qty"))) {
+            return result.rowCount();
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.zavtech.morpheus.benchmark;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares the results of a benchmark run with those of a baseline run, and flags regressions beyond a threshold.
+ *
+ * Both inputs are JMH result files in JSON format, as written with -rf json. Results are matched
+ * by benchmark name and parameters, and a change only counts as a regression or an improvement
+ * if it exceeds both the relative threshold and the combined error of the two scores, so noisy
+ * benchmarks are not flagged on variance alone. Lower scores are better for time based modes
+ * and higher scores for throughput. The process exits with status 1 if there is any regression,
+ * so that the report can gate an upgrade in a build pipeline.
+ *
+ * Usage: BaselineReport baseline.json current.json [threshold], where threshold defaults to 0.1
+ */
+public final class BaselineReport {
+
+    private final Map<String,Result> baseline;
+    private final Map<String,Result> current;
+    private final double threshold;
+
+    /**
+     * Constructor
+     * @param baseline  the baseline results keyed by benchmark and parameters
+     * @param current   the current results keyed by benchmark and parameters
+     * @param threshold the relative change beyond which a result is flagged
+     */
+    public BaselineReport(Map<String,Result> baseline, Map<String,Result> current, double threshold) {
+        if (threshold < 0d) {
+            throw new IllegalArgumentException("The threshold must be >= 0");
+        }
+        this.baseline = baseline;
+        this.current = current;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Runs the report on two JMH result files
+     * @param args  the baseline file, the current file and an optional threshold
+     * @throws IOException  if either file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: BaselineReport baseline.json current.json [threshold]");
+            System.exit(2);
+        }
+        final Map<String,Result> baseline = read(Paths.get(args[0]));
+        final Map<String,Result> current = read(Paths.get(args[1]));
+        final double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.1d;
+        final BaselineReport report = new BaselineReport(baseline, current, threshold);
+        final int regressions = report.print(System.out);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    /**
+     * Reads the results of a JMH result file in JSON format
+     * @param path  the file path
+     * @return      the results keyed by benchmark and parameters, in key order
+     * @throws IOException  if the file cannot be read
+     */
+    public static Map<String,Result> read(Path path) throws IOException {
+        final String text = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        final Object root = new Json(text).parse();
+        if (!(root instanceof List)) {
+            throw new IllegalArgumentException("Expected an array of JMH results in " + path);
+        }
+        final Map<String,Result> results = new TreeMap<>();
+        for (Object item : (List<?>)root) {
+            final Result result = Result.of((Map<?,?>)item);
+            results.put(result.key(), result);
+        }
+        return results;
+    }
+
+    /**
+     * Prints one line per benchmark in either run, followed by a summary
+     * @param out   the stream to print to
+     * @return      the number of regressions
+     */
+    public int print(PrintStream out) {
+        int regressions = 0;
+        int improvements = 0;
+        final Map<String,Result> keys = new TreeMap<>(baseline);
+        current.forEach(keys::putIfAbsent);
+        out.println(String.format(Locale.ROOT, "%-80s %14s %14s %9s  %s", "Benchmark", "Baseline", "Current", "Change", "Status"));
+        for (String key : keys.keySet()) {
+            final Result before = baseline.get(key);
+            final Result after = current.get(key);
+            if (before == null || after == null) {
+                final Result result = before != null ? before : after;
+                final String status = before == null ? "NEW" : "MISSING";
+                out.println(String.format(Locale.ROOT, "%-80s %14s %14s %9s  %s", key, format(before), format(after), "", status + " (" + result.unit + ")"));
+            } else {
+                final double change = (after.score - before.score) / before.score;
+                final boolean significant = Math.abs(after.score - before.score) > before.error + after.error && Math.abs(change) > threshold;
+                final boolean worse = after.isTime() ? change > 0d : change < 0d;
+                final String status = !significant ? "ok" : worse ? "REGRESSION" : "improved";
+                regressions += significant && worse ? 1 : 0;
+                improvements += significant && !worse ? 1 : 0;
+                out.println(String.format(Locale.ROOT, "%-80s %14s %14s %+8.1f%%  %s", key, format(before), format(after), change * 100d, status + " (" + after.unit + ")"));
+            }
+        }
+        out.println(String.format(Locale.ROOT, "%d benchmarks, %d regressions, %d improvements beyond %.0f%%", keys.size(), regressions, improvements, threshold * 100d));
+        return regressions;
+    }
+
+    /**
+     * Returns a score with its error for display
+     */
+    private static String format(Result result) {
+        return result == null ? "-" : String.format(Locale.ROOT, "%.3f +- %.3f", result.score, result.error);
+    }
+
+
+    /**
+     * The primary metric of one benchmark for one combination of parameters
+     */
+    public static final class Result {
+
+        private final String benchmark;
+        private final Map<String,String> params;
+        private final String mode;
+        private final double score;
+        private final double error;
+        private final String unit;
+
+        /**
+         * Constructor
+         * @param benchmark the fully qualified benchmark method
+         * @param params    the benchmark parameters
+         * @param mode      the JMH mode, such as avgt or thrpt
+         * @param score     the score
+         * @param error     the score error, NaN if unknown
+         * @param unit      the score unit
+         */
+        public Result(String benchmark, Map<String,String> params, String mode, double score, double error, String unit) {
+            this.benchmark = benchmark;
+            this.params = new TreeMap<>(params);
+            this.mode = mode;
+            this.score = score;
+            this.error = Double.isNaN(error) ? 0d : error;
+            this.unit = unit;
+        }
+
+        /**
+         * Returns the result held by one element of a JMH result file
+         */
+        static Result of(Map<?,?> item) {
+            final Map<String,String> params = new LinkedHashMap<>();
+            final Object values = item.get("params");
+            if (values instanceof Map) {
+                ((Map<?,?>)values).forEach((name, value) -> params.put(name.toString(), value.toString()));
+            }
+            final Map<?,?> metric = (Map<?,?>)item.get("primaryMetric");
+            final Object error = metric.get("scoreError");
+            return new Result(
+                item.get("benchmark").toString(),
+                params,
+                item.get("mode").toString(),
+                ((Number)metric.get("score")).doubleValue(),
+                error instanceof Number ? ((Number)error).doubleValue() : Double.NaN,
+                metric.get("scoreUnit").toString()
+            );
+        }
+
+        /**
+         * Returns the key that identifies this result across runs
+         * @return  the benchmark name, without its package, followed by its parameters
+         */
+        public String key() {
+            final String name = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1);
+            return params.isEmpty() ? name : name + params;
+        }
+
+        /**
+         * Returns true if the score is a time per operation, where lower is better
+         * @return  true for time based modes, false for throughput
+         */
+        public boolean isTime() {
+            return !mode.equals("thrpt");
+        }
+
+        @Override
+        public String toString() {
+            return key() + " " + mode + " " + score + " +- " + error + " " + unit;
+        }
+    }
+
+
+    /**
+     * A minimal JSON parser producing maps, lists, strings, doubles, booleans and nulls, sufficient for JMH results
+     */
+    static final class Json {
+
+        private final String text;
+        private int position;
+
+        Json(String text) {
+            this.text = text;
+        }
+
+        /**
+         * Parses the text as a single JSON value
+         */
+        Object parse() {
+            final Object value = value();
+            skipWhitespace();
+            if (position < text.length()) {
+                throw error("Unexpected trailing content");
+            }
+            return value;
+        }
+
+        private Object value() {
+            skipWhitespace();
+            if (position >= text.length()) {
+                throw error("Unexpected end of input");
+            }
+            final char c = text.charAt(position);
+            switch (c) {
+                case '{':   return object();
+                case '[':   return array();
+                case '"':   return string();
+                case 't':   return literal("true", Boolean.TRUE);
+                case 'f':   return literal("false", Boolean.FALSE);
+                case 'n':   return literal("null", null);
+                default:    return number();
+            }
+        }
+
+        private Map<String,Object> object() {
+            final Map<String,Object> result = new LinkedHashMap<>();
+            expect('{');
+            skipWhitespace();
+            if (peek() == '}') {
+                position++;
+                return result;
+            }
+            do {
+                skipWhitespace();
+                final String name = string();
+                skipWhitespace();
+                expect(':');
+                result.put(name, value());
+                skipWhitespace();
+            } while (accept(','));
+            expect('}');
+            return result;
+        }
+
+        private List<Object> array() {
+            final List<Object> result = new ArrayList<>();
+            expect('[');
+            skipWhitespace();
+            if (peek() == ']') {
+                position++;
+                return result;
+            }
+            do {
+                result.add(value());
+                skipWhitespace();
+            } while (accept(','));
+            expect(']');
+            return result;
+        }
+
+        private String string() {
+            expect('"');
+            final StringBuilder result = new StringBuilder();
+            while (position < text.length()) {
+                final char c = text.charAt(position++);
+                if (c == '"') {
+                    return result.toString();
+                } else if (c != '\\') {
+                    result.append(c);
+                } else {
+                    final char escaped = text.charAt(position++);
+                    switch (escaped) {
+                        case 'n':   result.append('\n');    break;
+                        case 't':   result.append('\t');    break;
+                        case 'r':   result.append('\r');    break;
+                        case 'b':   result.append('\b');    break;
+                        case 'f':   result.append('\f');    break;
+                        case 'u':
+                            result.append((char)Integer.parseInt(text.substring(position, position + 4), 16));
+                            position += 4;
+                            break;
+                        default:
+                            result.append(escaped);
+                    }
+                }
+            }
+            throw error("Unterminated string");
+        }
+
+        private Object number() {
+            for (String special : new String[] {"NaN", "Infinity", "-Infinity"}) {
+                if (text.startsWith(special, position)) {
+                    position += special.length();
+                    return Double.parseDouble(special);
+                }
+            }
+            final int start = position;
+            while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+                position++;
+            }
+            if (start == position) {
+                throw error("Unexpected character '" + text.charAt(position) + "'");
+            }
+            return Double.parseDouble(text.substring(start, position));
+        }
+
+        private Object literal(String token, Object value) {
+            if (!text.startsWith(token, position)) {
+                throw error("Expected " + token);
+            }
+            position += token.length();
+            return value;
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private char peek() {
+            return position < text.length() ? text.charAt(position) : '\0';
+        }
+
+        private boolean accept(char c) {
+            if (peek() == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!accept(c)) {
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at offset " + position + " of JSON input");
+        }
+    }
+}
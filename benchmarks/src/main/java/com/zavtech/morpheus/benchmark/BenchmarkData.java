@@ -0,0 +1,117 @@
+package com.zavtech.morpheus.benchmark;
+
+import java.util.Random;
+
+import com.zavtech.morpheus.column.BooleanColumn;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.column.StringColumn;
+import com.zavtech.morpheus.frame.DataFrame;
+
+/**
+ * Builds the synthetic frames that the benchmarks run against, which are deterministic for a given seed.
+ *
+ * Trades hold a time column in ascending millisecond order, a symbol drawn from a fixed universe,
+ * a price that follows a random walk per symbol, a quantity, a buy flag and a bid with roughly one
+ * null in a hundred rows, so that null aware code paths are measured too.
+ */
+final class BenchmarkData {
+
+    static final long START_TIME = 1_600_000_000_000L;
+    static final int SYMBOL_COUNT = 500;
+
+    private BenchmarkData() {
+        super();
+    }
+
+    /**
+     * Returns the name of the symbol with the index specified
+     * @param index the symbol index
+     * @return      the symbol name
+     */
+    static String symbol(int index) {
+        return "SYM" + index;
+    }
+
+    /**
+     * Returns a frame of trades with time, sym, price, qty, buy and bid columns
+     * @param rows      the number of rows
+     * @param storage   the storage for the columns
+     * @param seed      the seed for the random values
+     * @return          the trades frame
+     */
+    static DataFrame trades(int rows, Storage storage, long seed) {
+        final Random random = new Random(seed);
+        final LongColumn time = Columns.longs("time", rows, storage);
+        final StringColumn sym = Columns.strings("sym", rows, storage);
+        final DoubleColumn price = Columns.doubles("price", rows, storage);
+        final LongColumn qty = Columns.longs("qty", rows, storage);
+        final BooleanColumn buy = Columns.booleans("buy", rows, storage);
+        final DoubleColumn bid = Columns.doubles("bid", rows, storage);
+        final double[] walk = new double[SYMBOL_COUNT];
+        final int[] codes = new int[SYMBOL_COUNT];
+        for (int i = 0; i < SYMBOL_COUNT; ++i) {
+            walk[i] = 10d + random.nextInt(990);
+            codes[i] = sym.dictionary().intern(symbol(i));
+        }
+        long timestamp = START_TIME;
+        for (int row = 0; row < rows; ++row) {
+            final int index = random.nextInt(SYMBOL_COUNT);
+            walk[index] = Math.max(0.01d, walk[index] + random.nextGaussian() * 0.05d);
+            timestamp += random.nextInt(20);
+            time.setLong(row, timestamp);
+            sym.setCode(row, codes[index]);
+            price.setDouble(row, walk[index]);
+            qty.setLong(row, 100L * (1 + random.nextInt(50)));
+            buy.setBoolean(row, random.nextBoolean());
+            if (random.nextInt(100) == 0) {
+                bid.setNull(row);
+            } else {
+                bid.setDouble(row, walk[index] - 0.01d * (1 + random.nextInt(5)));
+            }
+        }
+        return DataFrame.of(time, sym, price, qty, buy, bid);
+    }
+
+    /**
+     * Returns a frame of quotes with time, sym and mid columns, at roughly one quote for every two trades
+     * @param rows      the number of rows
+     * @param storage   the storage for the columns
+     * @param seed      the seed for the random values
+     * @return          the quotes frame
+     */
+    static DataFrame quotes(int rows, Storage storage, long seed) {
+        final Random random = new Random(seed);
+        final LongColumn time = Columns.longs("time", rows, storage);
+        final StringColumn sym = Columns.strings("sym", rows, storage);
+        final DoubleColumn mid = Columns.doubles("mid", rows, storage);
+        long timestamp = START_TIME;
+        for (int row = 0; row < rows; ++row) {
+            final int index = random.nextInt(SYMBOL_COUNT);
+            timestamp += random.nextInt(40);
+            time.setLong(row, timestamp);
+            sym.setString(row, symbol(index));
+            mid.setDouble(row, 10d + random.nextDouble() * 990d);
+        }
+        return DataFrame.of(time, sym, mid);
+    }
+
+    /**
+     * Returns a reference frame with one row per symbol, holding sym, sector and lot columns
+     * @param storage   the storage for the columns
+     * @return          the reference frame
+     */
+    static DataFrame symbols(Storage storage) {
+        final StringColumn sym = Columns.strings("sym", SYMBOL_COUNT, storage);
+        final StringColumn sector = Columns.strings("sector", SYMBOL_COUNT, storage);
+        final LongColumn lot = Columns.longs("lot", SYMBOL_COUNT, storage);
+        for (int i = 0; i < SYMBOL_COUNT; ++i) {
+            sym.setString(i, symbol(i));
+            sector.setString(i, "SECTOR" + (i % 11));
+            lot.setLong(i, 100L * (1 + i % 4));
+        }
+        return DataFrame.of(sym, sector, lot);
+    }
+}
@@ -0,0 +1,55 @@
+package com.zavtech.morpheus.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.zavtech.morpheus.filter.Predicate;
+
+/**
+ * Benchmarks evaluating predicates over the trades frame into row selections.
+ */
+@State(Scope.Benchmark)
+public class FilterBenchmark extends FrameBenchmark {
+
+    private final Predicate comparison = Predicate.gt("price", 500d);
+    private final Predicate conjunction = Predicate.gt("price", 100d).and(Predicate.lt("qty", 2000d)).and(Predicate.isTrue("buy"));
+    private final Predicate disjunction = Predicate.lt("price", 50d).or(Predicate.gt("price", 950d));
+    private final Predicate membership = Predicate.in("sym", "SYM1", "SYM7", "SYM42", "SYM99");
+    private final Predicate notNull = Predicate.notNull("bid");
+
+    @Benchmark
+    public long[] comparison() {
+        return comparison.evaluate(trades);
+    }
+
+    @Benchmark
+    public long[] conjunction() {
+        return conjunction.evaluate(trades);
+    }
+
+    @Benchmark
+    public long[] disjunction() {
+        return disjunction.evaluate(trades);
+    }
+
+    @Benchmark
+    public long[] membership() {
+        return membership.evaluate(trades);
+    }
+
+    @Benchmark
+    public long[] notNull() {
+        return notNull.evaluate(trades);
+    }
+
+    @Benchmark
+    public int select() {
+        return conjunction.select(trades).length;
+    }
+
+    @Benchmark
+    public int filter() {
+        return trades.filter(conjunction).rowCount();
+    }
+}
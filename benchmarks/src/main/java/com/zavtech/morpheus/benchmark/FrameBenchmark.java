@@ -0,0 +1,71 @@
+package com.zavtech.morpheus.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.frame.DataFrame;
+
+/**
+ * The base of benchmarks that run against a frame of trades, at several sizes and in each storage.
+ *
+ * Every benchmark is measured as average time per operation in a fresh JVM with the Vector API
+ * enabled, so results from different suites and runs can be compared by BaselineReport. Frames
+ * are built once per trial and closed afterwards to release any native memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Xms8g", "-Xmx8g"})
+public abstract class FrameBenchmark {
+
+    static final long SEED = 42L;
+
+    @Param({"100000", "1000000", "10000000"})
+    public int rows;
+
+    @Param({"HEAP", "OFF_HEAP"})
+    public Storage storage;
+
+    DataFrame trades;
+
+    @Setup(Level.Trial)
+    public void setupTrades() {
+        this.trades = BenchmarkData.trades(rows, storage, SEED);
+        setup();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrades() {
+        tearDown();
+        this.trades.close();
+    }
+
+    /**
+     * Prepares any further state of a benchmark once the trades frame is built
+     */
+    void setup() {
+        // nothing by default
+    }
+
+    /**
+     * Releases any further state of a benchmark before the trades frame is closed
+     */
+    void tearDown() {
+        // nothing by default
+    }
+}
@@ -0,0 +1,92 @@
+package com.zavtech.morpheus.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.io.CsvOptions;
+import com.zavtech.morpheus.io.CsvReader;
+
+/**
+ * Benchmarks reading the trades frame from a CSV file, in parallel, on one thread and as a stream of batches.
+ */
+@State(Scope.Benchmark)
+public class IngestionBenchmark extends FrameBenchmark {
+
+    private Path file;
+
+    @Override
+    void setup() {
+        try {
+            this.file = Files.createTempFile("morpheus-bench", ".csv");
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                final List<Column> columns = trades.columns();
+                writer.write(String.join(",", trades.columnNames()));
+                writer.newLine();
+                for (int row = 0; row < trades.rowCount(); ++row) {
+                    for (int i = 0; i < columns.size(); ++i) {
+                        final Object value = columns.get(i).getValue(row);
+                        if (i > 0) {
+                            writer.write(',');
+                        }
+                        if (value != null) {
+                            writer.write(value.toString());
+                        }
+                    }
+                    writer.newLine();
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    void tearDown() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Benchmark
+    public int readParallel() {
+        try (DataFrame frame = new CsvReader(new CsvOptions().setStorage(storage)).read(file)) {
+            return frame.rowCount();
+        }
+    }
+
+    @Benchmark
+    public int readSerial() {
+        try (DataFrame frame = new CsvReader(new CsvOptions().setStorage(storage).setParallelism(1)).read(file)) {
+            return frame.rowCount();
+        }
+    }
+
+    @Benchmark
+    public int readProjected() {
+        try (DataFrame frame = new CsvReader(new CsvOptions().setStorage(storage).setColumns("time", "price")).read(file)) {
+            return frame.rowCount();
+        }
+    }
+
+    @Benchmark
+    public void stream(Blackhole blackhole) {
+        new CsvReader(new CsvOptions().setStorage(storage)).stream(file, batch -> {
+            blackhole.consume(batch.rowCount());
+            batch.close();
+        });
+    }
+}
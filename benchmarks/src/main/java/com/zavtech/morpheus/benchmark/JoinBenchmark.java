@@ -0,0 +1,60 @@
+package com.zavtech.morpheus.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.join.AsOfJoin;
+import com.zavtech.morpheus.join.Join;
+import com.zavtech.morpheus.join.JoinType;
+
+/**
+ * Benchmarks equi-joins of the trades frame with reference data and with quotes, and as-of joins with quotes.
+ */
+@State(Scope.Benchmark)
+public class JoinBenchmark extends FrameBenchmark {
+
+    private DataFrame symbols;
+    private DataFrame quotes;
+
+    @Override
+    void setup() {
+        this.symbols = BenchmarkData.symbols(storage);
+        this.quotes = BenchmarkData.quotes(rows / 2, storage, SEED + 1);
+    }
+
+    @Override
+    void tearDown() {
+        this.symbols.close();
+        this.quotes.close();
+    }
+
+    @Benchmark
+    public int hashJoinSmallRight() {
+        try (DataFrame result = Join.of(trades, symbols).on("sym").setType(JoinType.LEFT).execute()) {
+            return result.rowCount();
+        }
+    }
+
+    @Benchmark
+    public int hashJoinLarge() {
+        try (DataFrame result = Join.of(trades, quotes).on("time").setStrategy(Join.Strategy.HASH).execute()) {
+            return result.rowCount();
+        }
+    }
+
+    @Benchmark
+    public int mergeJoinSorted() {
+        try (DataFrame result = Join.of(trades, quotes).on("time").setStrategy(Join.Strategy.SORT_MERGE).execute()) {
+            return result.rowCount();
+        }
+    }
+
+    @Benchmark
+    public int asOfJoin() {
+        try (DataFrame result = AsOfJoin.of(trades, quotes).on("time").by("sym").execute()) {
+            return result.rowCount();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.zavtech.morpheus.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.groupby.Aggregate;
+import com.zavtech.morpheus.window.Resample;
+import com.zavtech.morpheus.window.Rolling;
+import com.zavtech.morpheus.window.WindowFunction;
+
+/**
+ * Benchmarks rolling window functions over row and time windows, and resampling the trades frame into time bars.
+ */
+@State(Scope.Benchmark)
+public class RollingBenchmark extends FrameBenchmark {
+
+    @Param({"20", "1000"})
+    public int window;
+
+    @Benchmark
+    public int rowsMean() {
+        try (DataFrame result = Rolling.rows(window).apply(trades.numeric("price"), WindowFunction.MEAN)) {
+            return result.rowCount();
+        }
+    }
+
+    @Benchmark
+    public int rowsMinMaxStd() {
+        try (DataFrame result = Rolling.rows(window).apply(trades.numeric("price"), WindowFunction.MIN, WindowFunction.MAX, WindowFunction.STD)) {
+            return result.rowCount();
+        }
+    }
+
+    @Benchmark
+    public int timeMean() {
+        try (DataFrame result = Rolling.time(trades.longs("time"), window * 10L).apply(trades.numeric("price"), WindowFunction.MEAN)) {
+            return result.rowCount();
+        }
+    }
+
+    @Benchmark
+    public int resampleOhlc() {
+        try (DataFrame result = Resample.of(trades, "time", window * 60L).ohlc("price")) {
+            return result.rowCount();
+        }
+    }
+
+    @Benchmark
+    public int resampleAggregate() {
+        try (DataFrame result = Resample.of(trades, "time", window * 60L).aggregate(Aggregate.sum("qty"), Aggregate.count())) {
+            return result.rowCount();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.zavtech.morpheus.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.io.ColumnFile;
+import com.zavtech.morpheus.stats.Stats;
+
+/**
+ * Benchmarks writing the trades frame to a column file, and mapping it back for a scan or a full copy.
+ */
+@State(Scope.Benchmark)
+public class SerializationBenchmark extends FrameBenchmark {
+
+    private Path written;
+    private Path file;
+
+    @Override
+    void setup() {
+        try {
+            this.written = Files.createTempFile("morpheus-bench", ".col");
+            this.file = Files.createTempFile("morpheus-bench", ".col");
+            ColumnFile.write(trades, file);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    void tearDown() {
+        try {
+            Files.deleteIfExists(written);
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Benchmark
+    public void write() {
+        ColumnFile.write(trades, written);
+    }
+
+    @Benchmark
+    public double mapAndScan() {
+        try (DataFrame frame = ColumnFile.open(file, "price")) {
+            return Stats.sum(frame.numeric("price"));
+        }
+    }
+
+    @Benchmark
+    public int mapAndCopy() {
+        try (DataFrame frame = ColumnFile.open(file); DataFrame copy = frame.copy(storage)) {
+            return copy.rowCount();
+        }
+    }
+}
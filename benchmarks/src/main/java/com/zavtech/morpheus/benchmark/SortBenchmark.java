@@ -0,0 +1,53 @@
+package com.zavtech.morpheus.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.sort.Sort;
+import com.zavtech.morpheus.sort.SortKey;
+
+/**
+ * Benchmarks sorting the trades frame by single and composite keys, into permutations and into sorted frames.
+ */
+@State(Scope.Benchmark)
+public class SortBenchmark extends FrameBenchmark {
+
+    @Benchmark
+    public int[] alreadySorted() {
+        return Sort.of(trades, SortKey.asc("time")).permutation();
+    }
+
+    @Benchmark
+    public int[] descending() {
+        return Sort.of(trades, SortKey.desc("time")).permutation();
+    }
+
+    @Benchmark
+    public int[] doubleKey() {
+        return Sort.of(trades, SortKey.asc("price")).permutation();
+    }
+
+    @Benchmark
+    public int[] doubleKeyWithNulls() {
+        return Sort.of(trades, SortKey.desc("bid").nullsFirst()).permutation();
+    }
+
+    @Benchmark
+    public int[] symbolThenTime() {
+        return Sort.of(trades, SortKey.asc("sym"), SortKey.asc("time")).permutation();
+    }
+
+    @Benchmark
+    public int[] threeKeys() {
+        return Sort.of(trades, SortKey.asc("sym"), SortKey.desc("price"), SortKey.asc("qty")).permutation();
+    }
+
+    @Benchmark
+    public int sortFrame() {
+        try (DataFrame result = trades.sort(SortKey.asc("sym"), SortKey.asc("time"))) {
+            return result.rowCount();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.zavtech.morpheus.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the baseline report on small JMH result files
+ */
+public class BaselineReportTest {
+
+    @TempDir
+    Path folder;
+
+    /**
+     * Returns one element of a JMH result file
+     */
+    private static String result(String benchmark, String params, String mode, double score, String error, String unit) {
+        return "{\n"
+            + "  \"jmhVersion\" : \"1.37\",\n"
+            + "  \"benchmark\" : \"com.zavtech.morpheus.benchmark." + benchmark + "\",\n"
+            + "  \"mode\" : \"" + mode + "\",\n"
+            + "  \"threads\" : 1,\n"
+            + (params == null ? "" : "  \"params\" : {" + params + "},\n")
+            + "  \"primaryMetric\" : {\n"
+            + "    \"score\" : " + score + ",\n"
+            + "    \"scoreError\" : " + error + ",\n"
+            + "    \"scoreConfidence\" : [1.0, 2.0],\n"
+            + "    \"scoreUnit\" : \"" + unit + "\",\n"
+            + "    \"rawData\" : [[1.5e0, -2E-1]]\n"
+            + "  },\n"
+            + "  \"secondaryMetrics\" : {}\n"
+            + "}";
+    }
+
+    /**
+     * Writes a JMH result file holding the elements specified
+     */
+    private Path write(String name, String... results) throws IOException {
+        final Path path = folder.resolve(name);
+        Files.write(path, ("[" + String.join(",\n", results) + "]").getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+
+    /**
+     * Returns the text printed by the report, and asserts the regression count it returns
+     */
+    private static String print(BaselineReport report, int regressions) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        assertEquals(regressions, report.print(new PrintStream(bytes, true, StandardCharsets.UTF_8)));
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the line of the report for the key specified
+     */
+    private static String line(String text, String key) {
+        return text.lines().filter(line -> line.startsWith(key + " ")).findFirst().orElseThrow();
+    }
+
+    @Test
+    public void readParsesResultsAndKeys() throws IOException {
+        final Path path = write("baseline.json",
+            result("SortBenchmark.sort", "\"rows\" : \"1000\", \"storage\" : \"HEAP\"", "avgt", 12.5, "0.25", "us/op"),
+            result("JoinBenchmark.hashJoin", null, "thrpt", 3400d, "\"NaN\"", "ops/s")
+        );
+        final Map<String,BaselineReport.Result> results = BaselineReport.read(path);
+        assertEquals(List.of("JoinBenchmark.hashJoin", "SortBenchmark.sort{rows=1000, storage=HEAP}"), List.copyOf(results.keySet()));
+        final BaselineReport.Result sort = results.get("SortBenchmark.sort{rows=1000, storage=HEAP}");
+        final BaselineReport.Result join = results.get("JoinBenchmark.hashJoin");
+        assertTrue(sort.isTime());
+        assertFalse(join.isTime());
+        assertEquals("SortBenchmark.sort{rows=1000, storage=HEAP} avgt 12.5 +- 0.25 us/op", sort.toString());
+        assertEquals("JoinBenchmark.hashJoin thrpt 3400.0 +- 0.0 ops/s", join.toString());
+    }
+
+    @Test
+    public void regressionsAndImprovementsBeyondThresholdAndError() throws IOException {
+        final Map<String,BaselineReport.Result> baseline = BaselineReport.read(write("baseline.json",
+            result("A.slower", null, "avgt", 100d, "1.0", "us/op"),
+            result("A.faster", null, "avgt", 100d, "1.0", "us/op"),
+            result("A.noisy", null, "avgt", 100d, "30.0", "us/op"),
+            result("A.small", null, "avgt", 100d, "0.1", "us/op"),
+            result("B.fewerOps", null, "thrpt", 1000d, "5.0", "ops/s"),
+            result("B.moreOps", null, "thrpt", 1000d, "5.0", "ops/s"),
+            result("C.removed", null, "avgt", 1d, "0.0", "us/op")
+        ));
+        final Map<String,BaselineReport.Result> current = BaselineReport.read(write("current.json",
+            result("A.slower", null, "avgt", 150d, "1.0", "us/op"),
+            result("A.faster", null, "avgt", 50d, "1.0", "us/op"),
+            result("A.noisy", null, "avgt", 150d, "30.0", "us/op"),
+            result("A.small", null, "avgt", 105d, "0.1", "us/op"),
+            result("B.fewerOps", null, "thrpt", 500d, "5.0", "ops/s"),
+            result("B.moreOps", null, "thrpt", 2000d, "5.0", "ops/s"),
+            result("C.added", null, "avgt", 1d, "0.0", "us/op")
+        ));
+        final String text = print(new BaselineReport(baseline, current, 0.1d), 2);
+        assertTrue(line(text, "A.slower").endsWith("REGRESSION (us/op)"), text);
+        assertTrue(line(text, "A.slower").contains("+50.0%"), text);
+        assertTrue(line(text, "A.faster").endsWith("improved (us/op)"), text);
+        assertTrue(line(text, "A.noisy").endsWith("ok (us/op)"), text);
+        assertTrue(line(text, "A.small").endsWith("ok (us/op)"), text);
+        assertTrue(line(text, "B.fewerOps").endsWith("REGRESSION (ops/s)"), text);
+        assertTrue(line(text, "B.moreOps").endsWith("improved (ops/s)"), text);
+        assertTrue(line(text, "C.added").endsWith("NEW (us/op)"), text);
+        assertTrue(line(text, "C.removed").endsWith("MISSING (us/op)"), text);
+        assertTrue(text.contains("8 benchmarks, 2 regressions, 2 improvements beyond 10%"), text);
+        print(new BaselineReport(baseline, current, 0.6d), 0);
+        print(new BaselineReport(baseline, current, 0.02d), 3);
+    }
+
+    @Test
+    public void invalidInput() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> new BaselineReport(Map.of(), Map.of(), -0.1d));
+        final Path object = folder.resolve("object.json");
+        Files.write(object, result("A.b", null, "avgt", 1d, "0", "us/op").getBytes(StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class, () -> BaselineReport.read(object));
+        assertThrows(IllegalArgumentException.class, () -> new BaselineReport.Json("[1, 2] 3").parse());
+        assertThrows(IllegalArgumentException.class, () -> new BaselineReport.Json("[\"open").parse());
+        assertEquals(List.of("a\"b\u00e9", 1.5d, Boolean.TRUE), new BaselineReport.Json("[\"a\\\"b\\u00e9\", 1.5, true]").parse());
+    }
+}
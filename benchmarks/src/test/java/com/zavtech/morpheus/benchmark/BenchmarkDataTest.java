@@ -0,0 +1,54 @@
+package com.zavtech.morpheus.benchmark;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.frame.DataFrame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that the benchmark data is reproducible and has the shape the benchmarks rely on
+ */
+public class BenchmarkDataTest {
+
+    @Test
+    public void tradesAreOrderedReproducibleAndSparselyNull() {
+        final int rows = 20000;
+        final DataFrame trades = BenchmarkData.trades(rows, Storage.HEAP, 7L);
+        final DataFrame offHeap = BenchmarkData.trades(rows, Storage.OFF_HEAP, 7L);
+        assertEquals(rows, trades.rowCount());
+        assertEquals(Storage.OFF_HEAP, offHeap.column("price").storage());
+        int nulls = 0;
+        final Set<String> symbols = new HashSet<>();
+        for (int i = 0; i < rows; ++i) {
+            assertTrue(i == 0 || trades.longs("time").getLong(i) >= trades.longs("time").getLong(i - 1));
+            assertEquals(trades.doubles("price").getDouble(i), offHeap.doubles("price").getDouble(i));
+            assertEquals(trades.strings("sym").getString(i), offHeap.strings("sym").getString(i));
+            assertTrue(trades.doubles("price").getDouble(i) > 0d);
+            nulls += trades.column("bid").isNull(i) ? 1 : 0;
+            symbols.add(trades.strings("sym").getString(i));
+        }
+        assertTrue(nulls > rows / 200 && nulls < rows / 50, "nulls " + nulls);
+        assertEquals(BenchmarkData.SYMBOL_COUNT, symbols.size());
+    }
+
+    @Test
+    public void quotesAndSymbolsShareTheUniverse() {
+        final DataFrame quotes = BenchmarkData.quotes(5000, Storage.HEAP, 3L);
+        final DataFrame symbols = BenchmarkData.symbols(Storage.HEAP);
+        final Set<String> universe = new HashSet<>();
+        for (int i = 0; i < symbols.rowCount(); ++i) {
+            universe.add(symbols.strings("sym").getString(i));
+        }
+        assertEquals(BenchmarkData.SYMBOL_COUNT, universe.size());
+        for (int i = 0; i < quotes.rowCount(); ++i) {
+            assertTrue(universe.contains(quotes.strings("sym").getString(i)));
+            assertTrue(i == 0 || quotes.longs("time").getLong(i) >= quotes.longs("time").getLong(i - 1));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.zavtech.morpheus.chunk;
+
+import java.nio.file.Path;
+
+import com.zavtech.morpheus.frame.DataFrame;
+
+/**
+ * One partition of a ChunkedFrame, whose rows are either resident in memory, spilled to a column file, or both.
+ *
+ * All mutable state is guarded by the cache that owns the chunk.
+ */
+final class Chunk {
+
+    final int rowCount;
+    final long bytes;
+    DataFrame frame;
+    Path file;
+    int pins;
+
+    /**
+     * Constructor
+     * @param frame the resident rows of this chunk
+     * @param bytes the approximate number of bytes the rows occupy in memory
+     */
+    Chunk(DataFrame frame, long bytes) {
+        this.frame = frame;
+        this.rowCount = frame.rowCount();
+        this.bytes = bytes;
+    }
+
+    /**
+     * Returns true if the rows of this chunk are held in memory
+     * @return  true if resident
+     */
+    boolean isResident() {
+        return frame != null;
+    }
+}
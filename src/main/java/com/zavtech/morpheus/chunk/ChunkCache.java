@@ -0,0 +1,305 @@
+package com.zavtech.morpheus.chunk;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.StringColumn;
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.io.ColumnFile;
+import com.zavtech.morpheus.profile.Profiler;
+
+/**
+ * A cache of the chunks of one or more ChunkedFrames that keeps them within a memory budget.
+ *
+ * Chunks are kept in least recently used order, and whenever the resident chunks exceed the
+ * budget the least recently used ones that are not in use are evicted. A chunk is spilled to a
+ * column file the first time it is evicted, and as chunks are immutable that file is reused by
+ * every later eviction, so it is only ever written once. A chunk that is accessed after eviction
+ * is read back from its file into the storage of the cache. Chunks in use are pinned, so the
+ * budget may be exceeded by the chunks a single operation holds at once.
+ *
+ * Closing the cache releases the memory and deletes the files of all chunks it holds.
+ */
+public final class ChunkCache implements AutoCloseable {
+
+    private long memoryBudget = Runtime.getRuntime().maxMemory() / 4;
+    private Path directory = Paths.get(System.getProperty("java.io.tmpdir"));
+    private Storage storage = Storage.HEAP;
+    private final LinkedHashMap<Chunk,Chunk> resident = new LinkedHashMap<>(16, 0.75f, true);
+    private final List<Chunk> chunks = new ArrayList<>();
+    private long residentBytes;
+    private long hitCount;
+    private long loadCount;
+    private long spillCount;
+    private long evictionCount;
+
+    /**
+     * Constructor
+     */
+    private ChunkCache() {
+        super();
+    }
+
+    /**
+     * Returns a new cache with a memory budget of a quarter of the max heap size
+     * @return  the new cache
+     */
+    public static ChunkCache create() {
+        return new ChunkCache();
+    }
+
+    /**
+     * Sets the approximate number of bytes resident chunks may occupy before they are evicted
+     * @param memoryBudget  the memory budget in bytes
+     * @return              this cache
+     */
+    public synchronized ChunkCache setMemoryBudget(long memoryBudget) {
+        if (memoryBudget < 1) {
+            throw new IllegalArgumentException("The memory budget must be > 0");
+        }
+        this.memoryBudget = memoryBudget;
+        this.evict();
+        return this;
+    }
+
+    /**
+     * Sets the directory in which chunks are spilled
+     * @param directory the spill directory
+     * @return          this cache
+     */
+    public synchronized ChunkCache setDirectory(Path directory) {
+        this.directory = Objects.requireNonNull(directory, "The spill directory cannot be null");
+        return this;
+    }
+
+    /**
+     * Sets the storage that chunks are held in while resident, which is HEAP by default
+     * @param storage   the storage, either HEAP or OFF_HEAP
+     * @return          this cache
+     */
+    public synchronized ChunkCache setStorage(Storage storage) {
+        if (Objects.requireNonNull(storage, "The storage cannot be null") == Storage.MAPPED) {
+            throw new IllegalArgumentException("Chunks cannot be held in mapped storage");
+        }
+        this.storage = storage;
+        return this;
+    }
+
+    /**
+     * Returns the approximate number of bytes resident chunks may occupy
+     * @return  the memory budget in bytes
+     */
+    public synchronized long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Returns the storage that chunks are held in while resident
+     * @return  the chunk storage
+     */
+    public synchronized Storage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Returns the directory in which chunks are spilled
+     * @return  the spill directory
+     */
+    synchronized Path directory() {
+        return directory;
+    }
+
+    /**
+     * Returns the approximate number of bytes occupied by resident chunks
+     * @return  the resident bytes
+     */
+    public synchronized long residentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * Returns the number of times a chunk was accessed while resident
+     * @return  the hit count
+     */
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of times a chunk was read back from its spill file
+     * @return  the load count
+     */
+    public synchronized long loadCount() {
+        return loadCount;
+    }
+
+    /**
+     * Returns the number of chunks written to spill files
+     * @return  the spill count
+     */
+    public synchronized long spillCount() {
+        return spillCount;
+    }
+
+    /**
+     * Returns the number of times a chunk was evicted from memory
+     * @return  the eviction count
+     */
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Adds a frame to this cache as a new resident chunk, which may evict other chunks
+     * @param frame the rows of the chunk, whose columns must not be shared with any other chunk
+     * @return      the new chunk
+     */
+    synchronized Chunk add(DataFrame frame) {
+        final Chunk chunk = new Chunk(frame, bytes(frame));
+        this.chunks.add(chunk);
+        this.resident.put(chunk, chunk);
+        this.residentBytes += chunk.bytes;
+        this.evict();
+        return chunk;
+    }
+
+    /**
+     * Returns the rows of a chunk, reading them back from its spill file if evicted, and pins it in memory.
+     * The frame must not be closed by the caller, and must not be used after the chunk is released.
+     * @param chunk the chunk to acquire
+     * @return      the rows of the chunk
+     * @throws DataFrameException   if the chunk has been removed or cannot be read
+     */
+    synchronized DataFrame acquire(Chunk chunk) {
+        if (chunk.isResident()) {
+            this.resident.get(chunk);
+            this.hitCount++;
+        } else if (chunk.file == null) {
+            throw new DataFrameException("The chunk has been removed from its cache");
+        } else {
+            try (DataFrame mapped = ColumnFile.open(chunk.file)) {
+                chunk.frame = mapped.copy(storage);
+            }
+            this.resident.put(chunk, chunk);
+            this.residentBytes += chunk.bytes;
+            this.loadCount++;
+        }
+        chunk.pins++;
+        this.evict();
+        return chunk.frame;
+    }
+
+    /**
+     * Unpins a chunk acquired earlier, allowing it to be evicted
+     * @param chunk the chunk to release
+     */
+    synchronized void release(Chunk chunk) {
+        if (chunk.pins > 0) {
+            chunk.pins--;
+            this.evict();
+        }
+    }
+
+    /**
+     * Removes a chunk from this cache, releasing its memory and deleting its spill file
+     * @param chunk the chunk to remove
+     */
+    synchronized void remove(Chunk chunk) {
+        if (resident.remove(chunk) != null) {
+            this.residentBytes -= chunk.bytes;
+        }
+        if (chunk.frame != null) {
+            chunk.frame.close();
+            chunk.frame = null;
+        }
+        if (chunk.file != null) {
+            try {
+                Files.deleteIfExists(chunk.file);
+            } catch (IOException ex) {
+                chunk.file.toFile().deleteOnExit();
+            }
+            chunk.file = null;
+        }
+        this.chunks.remove(chunk);
+    }
+
+    /**
+     * Evicts the least recently used unpinned chunks until the resident chunks are within the budget
+     */
+    private void evict() {
+        final Iterator<Chunk> iterator = resident.keySet().iterator();
+        while (residentBytes > memoryBudget && iterator.hasNext()) {
+            final Chunk chunk = iterator.next();
+            if (chunk.pins == 0) {
+                if (chunk.file == null) {
+                    this.spill(chunk);
+                }
+                chunk.frame.close();
+                chunk.frame = null;
+                iterator.remove();
+                this.residentBytes -= chunk.bytes;
+                this.evictionCount++;
+            }
+        }
+    }
+
+    /**
+     * Writes the rows of a resident chunk to a new spill file
+     */
+    private void spill(Chunk chunk) {
+        try {
+            final Path file = Files.createTempFile(directory, "morpheus-chunk-", ".col");
+            ColumnFile.write(chunk.frame, file);
+            chunk.file = file;
+            this.spillCount++;
+            Profiler.spilled(Files.size(file));
+        } catch (IOException ex) {
+            throw new DataFrameException("Failed to create chunk spill file in " + directory, ex);
+        }
+    }
+
+    /**
+     * Returns the approximate number of bytes the columns of a frame occupy in memory
+     */
+    static long bytes(DataFrame frame) {
+        final long rowCount = frame.rowCount();
+        final long validity = ((rowCount + 63) >>> 6) << 3;
+        long bytes = 0L;
+        for (Column column : frame.columns()) {
+            switch (column.type()) {
+                case BOOLEAN:   bytes += validity * 2;                  break;
+                case INT:       bytes += validity + (rowCount << 2);    break;
+                case LONG:      bytes += validity + (rowCount << 3);    break;
+                case DOUBLE:    bytes += validity + (rowCount << 3);    break;
+                case STRING:    bytes += (rowCount << 2) + ((StringColumn)column).dictionary().bytes();  break;
+                default:        throw new DataFrameException("Unsupported column type: " + column.type());
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Removes all chunks from this cache, releasing their memory and deleting their spill files
+     */
+    @Override
+    public synchronized void close() {
+        for (Chunk chunk : new ArrayList<>(chunks)) {
+            this.remove(chunk);
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ChunkCache(chunks=" + chunks.size() + ", resident=" + resident.size() + ", bytes=" + residentBytes + "/" + memoryBudget + ")";
+    }
+}
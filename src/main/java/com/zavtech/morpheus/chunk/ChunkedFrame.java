@@ -0,0 +1,511 @@
+package com.zavtech.morpheus.chunk;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.filter.Predicate;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.groupby.Aggregate;
+import com.zavtech.morpheus.groupby.Aggregation;
+import com.zavtech.morpheus.groupby.GroupBy;
+import com.zavtech.morpheus.groupby.IncrementalGroupBy;
+import com.zavtech.morpheus.io.CsvOptions;
+import com.zavtech.morpheus.io.CsvReader;
+import com.zavtech.morpheus.sort.SortKey;
+
+/**
+ * A frame partitioned by rows into chunks held in a ChunkCache, for data sets larger than memory.
+ *
+ * Operations process one chunk at a time, so only the chunks in use and those the cache has room
+ * for are resident, and the rest are spilled to column files and read back when next needed. Map,
+ * filter and select produce new chunked frames chunk by chunk, aggregation combines the partial
+ * aggregates of each chunk, and sorting runs an external merge sort over sorted runs on disk.
+ * Chunks are immutable once created, so each is written to disk at most once however often it is
+ * evicted. Results of aggregation and collect() are ordinary frames, and must fit in memory.
+ *
+ * Chunked frames should be closed to release their chunks, or else are released with their cache.
+ */
+public final class ChunkedFrame implements AutoCloseable {
+
+    private static final String PARTIAL = "__partial";
+    private static final String COUNT = "_count";
+
+    private final ChunkCache cache;
+    private final DataFrame schema;
+    private final List<Chunk> chunks;
+    private final int chunkRows;
+
+    /**
+     * Constructor
+     * @param cache     the cache holding the chunks
+     * @param schema    an empty frame with the column names and types of this frame
+     * @param chunks    the chunks of this frame in row order
+     * @param chunkRows the max number of rows per chunk
+     */
+    private ChunkedFrame(ChunkCache cache, DataFrame schema, List<Chunk> chunks, int chunkRows) {
+        this.cache = cache;
+        this.schema = schema;
+        this.chunks = chunks;
+        this.chunkRows = chunkRows;
+    }
+
+    /**
+     * Returns a chunked frame holding a copy of the rows of the frame specified
+     * @param frame     the frame to partition
+     * @param chunkRows the max number of rows per chunk
+     * @param cache     the cache to hold the chunks
+     * @return          the chunked frame
+     */
+    public static ChunkedFrame of(DataFrame frame, int chunkRows, ChunkCache cache) {
+        Objects.requireNonNull(frame, "The frame cannot be null");
+        Objects.requireNonNull(cache, "The chunk cache cannot be null");
+        if (chunkRows < 1) {
+            throw new IllegalArgumentException("The chunk rows must be > 0");
+        }
+        final List<Chunk> chunks = new ArrayList<>();
+        for (int from = 0; from < frame.rowCount(); from += chunkRows) {
+            final int to = Math.min(frame.rowCount(), from + chunkRows);
+            chunks.add(cache.add(adopt(frame.take(range(from, to)), cache.getStorage())));
+        }
+        return new ChunkedFrame(cache, empty(frame), chunks, chunkRows);
+    }
+
+    /**
+     * Returns a chunked frame holding the rows of a delimited text file, which is parsed in batches of the batch rows of the options
+     * @param path      the file path
+     * @param options   the options used to parse the file, whose storage is replaced by that of the cache
+     * @param cache     the cache to hold the chunks
+     * @return          the chunked frame
+     * @throws DataFrameException   if the file cannot be read or parsed
+     */
+    public static ChunkedFrame readCsv(Path path, CsvOptions options, ChunkCache cache) {
+        Objects.requireNonNull(cache, "The chunk cache cannot be null");
+        final CsvReader reader = new CsvReader(options.copy().setStorage(cache.getStorage()));
+        final List<Chunk> chunks = new ArrayList<>();
+        final DataFrame[] schema = new DataFrame[1];
+        reader.stream(path, frame -> {
+            if (schema[0] == null) {
+                schema[0] = empty(frame);
+            }
+            chunks.add(cache.add(frame));
+        });
+        if (schema[0] == null) {
+            try (DataFrame frame = reader.read(path)) {
+                schema[0] = empty(frame);
+            }
+        }
+        return new ChunkedFrame(cache, schema[0], chunks, options.getBatchRows());
+    }
+
+    /**
+     * Returns the number of chunks in this frame
+     * @return  the chunk count
+     */
+    public int chunkCount() {
+        return chunks.size();
+    }
+
+    /**
+     * Returns the total number of rows across all chunks
+     * @return  the row count
+     */
+    public long rowCount() {
+        long rowCount = 0L;
+        for (Chunk chunk : chunks) {
+            rowCount += chunk.rowCount;
+        }
+        return rowCount;
+    }
+
+    /**
+     * Returns the column names of this frame
+     * @return  the column names in order
+     */
+    public List<String> columnNames() {
+        return schema.columnNames();
+    }
+
+    /**
+     * Returns the cache holding the chunks of this frame
+     * @return  the chunk cache
+     */
+    public ChunkCache cache() {
+        return cache;
+    }
+
+    /**
+     * Passes each chunk to the consumer in row order, which must not retain or close it
+     * @param consumer  the consumer of chunks
+     */
+    public void forEach(Consumer<DataFrame> consumer) {
+        for (Chunk chunk : chunks) {
+            try {
+                consumer.accept(cache.acquire(chunk));
+            } finally {
+                cache.release(chunk);
+            }
+        }
+    }
+
+    /**
+     * Returns a new chunked frame holding the result of applying a function to each chunk.
+     * Results are copied into the storage of the cache unless both are heap, as they may share memory with their input.
+     * @param mapper    the function applied to each chunk, and to an empty frame to derive the schema of the result
+     * @return          the mapped frame
+     * @throws DataFrameException   if the results for different chunks differ in their column names
+     */
+    public ChunkedFrame map(UnaryOperator<DataFrame> mapper) {
+        final DataFrame resultSchema = empty(mapper.apply(schema));
+        final List<Chunk> result = new ArrayList<>(chunks.size());
+        try {
+            for (Chunk chunk : chunks) {
+                final DataFrame mapped;
+                try {
+                    mapped = detach(mapper.apply(cache.acquire(chunk)));
+                } finally {
+                    cache.release(chunk);
+                }
+                if (!mapped.columnNames().equals(resultSchema.columnNames())) {
+                    mapped.close();
+                    throw new DataFrameException("Mapped chunk has columns " + mapped.columnNames() + ", expected " + resultSchema.columnNames());
+                } else if (mapped.rowCount() > 0) {
+                    result.add(cache.add(mapped));
+                } else {
+                    mapped.close();
+                }
+            }
+            return new ChunkedFrame(cache, resultSchema, result, chunkRows);
+        } catch (RuntimeException ex) {
+            result.forEach(cache::remove);
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns a new chunked frame holding the rows that satisfy the predicate, in their original order
+     * @param predicate the predicate to evaluate against each chunk
+     * @return          the filtered frame, whose chunks may hold fewer rows than those of this frame
+     */
+    public ChunkedFrame filter(Predicate predicate) {
+        Objects.requireNonNull(predicate, "The predicate cannot be null");
+        return map(frame -> frame.filter(predicate));
+    }
+
+    /**
+     * Returns a new chunked frame containing only the columns specified, in the order specified
+     * @param names the column names to select
+     * @return      the new frame
+     */
+    public ChunkedFrame select(String... names) {
+        return map(frame -> frame.select(names));
+    }
+
+    /**
+     * Returns a grouping of this frame on the key columns specified, for aggregation
+     * @param keys  the names of the key columns
+     * @return      the grouping
+     */
+    public Grouping groupBy(String... keys) {
+        for (String key : keys) {
+            schema.column(key);
+        }
+        return new Grouping(Arrays.asList(keys));
+    }
+
+    /**
+     * Returns a new chunked frame holding the rows of this frame sorted by the keys specified, keeping the order of rows with equal keys.
+     * The sort writes every chunk once more as a sorted run, and holds about one input and one output chunk in memory at a time.
+     * @param keys  the sort keys, from the most to the least significant
+     * @return      the sorted frame, whose chunks hold the max number of rows of this frame
+     */
+    public ChunkedFrame sort(SortKey... keys) {
+        if (keys.length == 0) {
+            throw new DataFrameException("At least one sort key is required");
+        }
+        for (SortKey key : keys) {
+            schema.column(key.column());
+        }
+        final List<Chunk> sorted = new ExternalSort(cache, Arrays.asList(keys), chunkRows).execute(chunks);
+        return new ChunkedFrame(cache, schema, sorted, chunkRows);
+    }
+
+    /**
+     * Returns all rows of this frame in a single heap frame, which must fit in memory
+     * @return  the collected frame
+     */
+    public DataFrame collect() {
+        final int rowCount = Math.toIntExact(rowCount());
+        final List<Column> columns = new ArrayList<>(schema.columnCount());
+        for (Column column : schema.columns()) {
+            columns.add(Columns.create(column.name(), column.type(), rowCount, Storage.HEAP));
+        }
+        int row = 0;
+        for (Chunk chunk : chunks) {
+            try {
+                final DataFrame frame = cache.acquire(chunk);
+                for (int j = 0; j < columns.size(); ++j) {
+                    Columns.copy(frame.column(j), columns.get(j), row);
+                }
+            } finally {
+                cache.release(chunk);
+            }
+            row += chunk.rowCount;
+        }
+        return DataFrame.of(columns);
+    }
+
+    /**
+     * Returns a copy of a mapped chunk in the storage of the cache, other than heap columns bound for a heap cache
+     */
+    private DataFrame detach(DataFrame frame) {
+        final Storage storage = cache.getStorage();
+        final List<Column> columns = new ArrayList<>(frame.columnCount());
+        for (Column column : frame.columns()) {
+            if (column.storage() == Storage.HEAP && storage == Storage.HEAP) {
+                columns.add(column);
+            } else {
+                columns.add(Columns.copy(column, storage));
+            }
+        }
+        return DataFrame.of(columns);
+    }
+
+    /**
+     * Returns a frame newly created from the one specified in the storage specified, closing the original if it was copied
+     * @param frame     the newly created frame
+     * @param storage   the storage required
+     * @return          the frame, or a copy of it in the storage required
+     */
+    static DataFrame adopt(DataFrame frame, Storage storage) {
+        for (Column column : frame.columns()) {
+            if (column.storage() != storage) {
+                try {
+                    return frame.copy(storage);
+                } finally {
+                    frame.close();
+                }
+            }
+        }
+        return frame;
+    }
+
+    /**
+     * Returns the row indexes from inclusive to exclusive
+     * @param from  the first row index
+     * @param to    the row index after the last
+     * @return      the row indexes in order
+     */
+    static int[] range(int from, int to) {
+        final int[] rows = new int[to - from];
+        for (int i = 0; i < rows.length; ++i) {
+            rows[i] = from + i;
+        }
+        return rows;
+    }
+
+    /**
+     * Returns an empty heap frame with the column names and types of the frame specified
+     */
+    private static DataFrame empty(DataFrame frame) {
+        final List<Column> columns = new ArrayList<>(frame.columnCount());
+        for (Column column : frame.columns()) {
+            columns.add(Columns.create(column.name(), column.type(), 0, Storage.HEAP));
+        }
+        return DataFrame.of(columns);
+    }
+
+    /**
+     * Removes the chunks of this frame from its cache, releasing their memory and deleting their spill files
+     */
+    @Override
+    public void close() {
+        this.chunks.forEach(cache::remove);
+    }
+
+    @Override
+    public String toString() {
+        return "ChunkedFrame(columns=" + columnNames() + ", rows=" + rowCount() + ", chunks=" + chunkCount() + ")";
+    }
+
+
+    /**
+     * The grouping of a chunked frame on one or more key columns, which aggregates each chunk and then merges the partial results.
+     *
+     * Each aggregate is computed per chunk as one or more partial aggregates that can themselves be
+     * aggregated, so that a MEAN is carried as a SUM and a COUNT, and a COUNT is merged by summing
+     * the counts of each chunk. Partial results are merged whenever together they hold more rows
+     * than a chunk, so the memory held is bounded by the number of distinct keys. Groups appear in
+     * the order of their first row, as with GroupBy.
+     *
+     * The partial results of approximate aggregates are sketches, which a frame cannot hold, so a
+     * grouping with any of them instead folds the chunks one at a time into an IncrementalGroupBy,
+     * which merges the sketches of each chunk into those of its groups.
+     */
+    public final class Grouping {
+
+        private final List<String> keys;
+
+        /**
+         * Constructor
+         * @param keys  the names of the key columns
+         */
+        private Grouping(List<String> keys) {
+            this.keys = keys;
+            if (keys.isEmpty()) {
+                throw new DataFrameException("At least one key column is required for a group by");
+            }
+        }
+
+        /**
+         * Returns a frame with the key columns followed by one column per aggregate, with one row per distinct key
+         * @param aggregates    the aggregates to compute
+         * @return              the aggregated frame
+         */
+        public DataFrame aggregate(Aggregate... aggregates) {
+            return aggregate(Arrays.asList(aggregates));
+        }
+
+        /**
+         * Returns a frame with the key columns followed by one column per aggregate, with one row per distinct key
+         * @param aggregates    the aggregates to compute
+         * @return              the aggregated frame
+         */
+        public DataFrame aggregate(List<Aggregate> aggregates) {
+            if (chunks.isEmpty()) {
+                return GroupBy.of(schema, keys.toArray(new String[0])).aggregate(aggregates);
+            }
+            for (Aggregate aggregate : aggregates) {
+                if (aggregate.aggregation().isApproximate()) {
+                    return incremental(aggregates);
+                }
+            }
+            final List<Aggregate> partials = new ArrayList<>();
+            final List<Aggregate> merges = new ArrayList<>();
+            for (Aggregate aggregate : aggregates) {
+                final String name = PARTIAL + partials.size();
+                if (aggregate.aggregation() == Aggregation.MEAN) {
+                    partials.add(Aggregate.sum(aggregate.column()).as(name));
+                    partials.add(Aggregate.count(aggregate.column()).as(name + COUNT));
+                    merges.add(Aggregate.sum(name).as(name));
+                    merges.add(Aggregate.sum(name + COUNT).as(name + COUNT));
+                } else if (aggregate.aggregation() == Aggregation.COUNT) {
+                    partials.add(aggregate.as(name + COUNT));
+                    merges.add(Aggregate.sum(name + COUNT).as(name + COUNT));
+                } else {
+                    partials.add(aggregate.as(name));
+                    merges.add(Aggregate.of(aggregate.aggregation(), name).as(name));
+                }
+            }
+            final String[] keyNames = keys.toArray(new String[0]);
+            final List<DataFrame> pending = new ArrayList<>();
+            int pendingRows = 0;
+            for (Chunk chunk : chunks) {
+                final DataFrame partial;
+                try {
+                    partial = GroupBy.of(cache.acquire(chunk), keyNames).aggregate(partials);
+                } finally {
+                    cache.release(chunk);
+                }
+                pending.add(partial);
+                pendingRows += partial.rowCount();
+                if (pendingRows > chunkRows && pending.size() > 1) {
+                    final DataFrame merged = merge(pending, keyNames, merges);
+                    pending.clear();
+                    pending.add(merged);
+                    pendingRows = merged.rowCount();
+                }
+            }
+            return complete(merge(pending, keyNames, merges), aggregates);
+        }
+
+        /**
+         * Returns the aggregates computed by folding each chunk into an incremental group-by
+         */
+        private DataFrame incremental(List<Aggregate> aggregates) {
+            final IncrementalGroupBy groupBy = IncrementalGroupBy.of(schema, keys, aggregates.toArray(new Aggregate[0]));
+            for (Chunk chunk : chunks) {
+                try {
+                    groupBy.update(cache.acquire(chunk));
+                } finally {
+                    cache.release(chunk);
+                }
+            }
+            return groupBy.result();
+        }
+
+        /**
+         * Returns the partial results specified merged into one, with the summed counts cast back to longs
+         */
+        private DataFrame merge(List<DataFrame> partials, String[] keyNames, List<Aggregate> merges) {
+            if (partials.size() == 1) {
+                return partials.get(0);
+            }
+            final DataFrame merged = GroupBy.of(DataFrame.concat(partials), keyNames).aggregate(merges);
+            final List<Column> columns = new ArrayList<>(merged.columns());
+            for (int j = 0; j < columns.size(); ++j) {
+                final Column column = columns.get(j);
+                if (column.name().endsWith(COUNT)) {
+                    final DoubleColumn sums = (DoubleColumn)column;
+                    final LongColumn counts = Columns.longs(column.name(), column.length());
+                    for (int i = 0; i < counts.length(); ++i) {
+                        counts.setLong(i, (long)sums.getDouble(i));
+                    }
+                    columns.set(j, counts);
+                }
+            }
+            return DataFrame.of(columns);
+        }
+
+        /**
+         * Returns the final result from the merged partial results, with the names and types of the aggregates
+         */
+        private DataFrame complete(DataFrame merged, List<Aggregate> aggregates) {
+            final int rowCount = merged.rowCount();
+            final List<Column> columns = new ArrayList<>(keys.size() + aggregates.size());
+            for (String key : keys) {
+                columns.add(merged.column(key));
+            }
+            int index = 0;
+            for (Aggregate aggregate : aggregates) {
+                final String name = PARTIAL + index;
+                if (aggregate.aggregation() == Aggregation.MEAN) {
+                    final DoubleColumn sums = merged.doubles(name);
+                    final LongColumn counts = merged.longs(name + COUNT);
+                    final DoubleColumn means = Columns.doubles(aggregate.name(), rowCount);
+                    for (int i = 0; i < rowCount; ++i) {
+                        if (counts.getLong(i) > 0L) {
+                            means.setDouble(i, sums.getDouble(i) / counts.getLong(i));
+                        } else {
+                            means.setNull(i);
+                        }
+                    }
+                    columns.add(means);
+                    index += 2;
+                } else if (aggregate.aggregation() == Aggregation.COUNT) {
+                    columns.add(merged.column(name + COUNT).rename(aggregate.name()));
+                    index += 1;
+                } else {
+                    columns.add(merged.column(name).rename(aggregate.name()));
+                    index += 1;
+                }
+            }
+            return DataFrame.of(columns);
+        }
+
+        @Override
+        public String toString() {
+            return "Grouping(keys=" + keys + ")";
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.zavtech.morpheus.chunk;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.zavtech.morpheus.column.BooleanColumn;
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.ColumnType;
+import com.zavtech.morpheus.column.Dictionary;
+import com.zavtech.morpheus.column.IntColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.NumericColumn;
+import com.zavtech.morpheus.column.StringColumn;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.hash.KeyColumn;
+import com.zavtech.morpheus.io.ColumnFile;
+import com.zavtech.morpheus.profile.Profiler;
+import com.zavtech.morpheus.sort.Sort;
+import com.zavtech.morpheus.sort.SortKey;
+
+/**
+ * A stable external merge sort of the chunks of a ChunkedFrame, which holds at most one input chunk and one output chunk in memory.
+ *
+ * Each chunk is sorted in memory and written to a column file as a sorted run, and the runs are
+ * then memory mapped and merged through a priority queue of run cursors, so the operating system
+ * pages run data in and out as the merge advances. Each output chunk takes a contiguous range of
+ * rows from every run it draws on, and those ranges are then permuted into merge order. Ties are
+ * broken by run index, which together with the stability of the in-memory sort keeps rows with
+ * equal keys in their original order. Rows are compared with the same ordering as Sort, with
+ * strings ranked by value across the dictionaries of all runs.
+ */
+final class ExternalSort {
+
+    private final ChunkCache cache;
+    private final List<SortKey> keys;
+    private final int chunkRows;
+
+    /**
+     * Constructor
+     * @param cache     the cache that output chunks are added to
+     * @param keys      the sort keys, from the most to the least significant
+     * @param chunkRows the number of rows in each output chunk
+     */
+    ExternalSort(ChunkCache cache, List<SortKey> keys, int chunkRows) {
+        this.cache = cache;
+        this.keys = keys;
+        this.chunkRows = chunkRows;
+    }
+
+    /**
+     * Returns new chunks holding the rows of the chunks specified in sorted order
+     * @param chunks    the chunks to sort, in row order
+     * @return          the sorted chunks
+     * @throws DataFrameException   if the sorted runs cannot be written or read
+     */
+    List<Chunk> execute(List<Chunk> chunks) {
+        final List<Path> files = new ArrayList<>(chunks.size());
+        final List<DataFrame> runs = new ArrayList<>(chunks.size());
+        try {
+            for (Chunk chunk : chunks) {
+                final Path file = Files.createTempFile(cache.directory(), "morpheus-sort-", ".col");
+                files.add(file);
+                try (DataFrame sorted = Sort.of(cache.acquire(chunk), keys).execute()) {
+                    ColumnFile.write(sorted, file);
+                    Profiler.spilled(Files.size(file));
+                } finally {
+                    cache.release(chunk);
+                }
+            }
+            for (Path file : files) {
+                runs.add(ColumnFile.open(file));
+            }
+            return merge(runs);
+        } catch (IOException ex) {
+            throw new DataFrameException("Failed to create sorted run in " + cache.directory(), ex);
+        } finally {
+            runs.forEach(DataFrame::close);
+            for (Path file : files) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ex) {
+                    file.toFile().deleteOnExit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the sorted runs specified into new chunks
+     */
+    private List<Chunk> merge(List<DataFrame> runs) {
+        final int count = runs.size();
+        final int[] positions = new int[count];
+        final int[] ends = new int[count];
+        final RowComparator comparator = new RowComparator(runs, keys);
+        final PriorityQueue<Integer> queue = new PriorityQueue<>(Math.max(1, count), (a, b) -> {
+            final int result = comparator.compare(a, positions[a], b, positions[b]);
+            return result != 0 ? result : Integer.compare(a, b);
+        });
+        for (int r = 0; r < count; ++r) {
+            ends[r] = runs.get(r).rowCount();
+            if (ends[r] > 0) {
+                queue.add(r);
+            }
+        }
+        final List<Chunk> result = new ArrayList<>();
+        final int[] order = new int[chunkRows];
+        int[] starts = positions.clone();
+        int rows = 0;
+        try {
+            while (!queue.isEmpty()) {
+                final int run = queue.poll();
+                order[rows++] = run;
+                if (++positions[run] < ends[run]) {
+                    queue.add(run);
+                }
+                if (rows == chunkRows || queue.isEmpty()) {
+                    result.add(cache.add(gather(runs, starts, positions, order, rows)));
+                    starts = positions.clone();
+                    rows = 0;
+                }
+            }
+            return result;
+        } catch (RuntimeException ex) {
+            result.forEach(cache::remove);
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the next output chunk, given the range of rows of each run it takes and the run of each of its rows in order
+     */
+    private DataFrame gather(List<DataFrame> runs, int[] starts, int[] ends, int[] order, int rowCount) {
+        final List<DataFrame> parts = new ArrayList<>();
+        final int[] offsets = new int[runs.size()];
+        int offset = 0;
+        for (int r = 0; r < runs.size(); ++r) {
+            if (ends[r] > starts[r]) {
+                parts.add(runs.get(r).take(ChunkedFrame.range(starts[r], ends[r])));
+                offsets[r] = offset;
+                offset += ends[r] - starts[r];
+            }
+        }
+        if (parts.size() == 1) {
+            return ChunkedFrame.adopt(parts.get(0), cache.getStorage());
+        }
+        final int[] permutation = new int[rowCount];
+        for (int i = 0; i < rowCount; ++i) {
+            permutation[i] = offsets[order[i]]++;
+        }
+        try (DataFrame combined = DataFrame.concat(parts)) {
+            return ChunkedFrame.adopt(combined.take(permutation), cache.getStorage());
+        } finally {
+            parts.forEach(DataFrame::close);
+        }
+    }
+
+
+    /**
+     * Compares rows of different sorted runs by the sort keys, in the same order as Sort
+     */
+    private static final class RowComparator {
+
+        private final Column[][] columns;
+        private final ColumnType[] types;
+        private final boolean[] ascending;
+        private final boolean[] nullsFirst;
+        private final int[][][] ranks;
+
+        /**
+         * Constructor
+         * @param runs  the sorted runs
+         * @param keys  the sort keys
+         */
+        RowComparator(List<DataFrame> runs, List<SortKey> keys) {
+            this.columns = new Column[keys.size()][runs.size()];
+            this.types = new ColumnType[keys.size()];
+            this.ascending = new boolean[keys.size()];
+            this.nullsFirst = new boolean[keys.size()];
+            this.ranks = new int[keys.size()][][];
+            for (int k = 0; k < keys.size(); ++k) {
+                final SortKey key = keys.get(k);
+                for (int r = 0; r < runs.size(); ++r) {
+                    this.columns[k][r] = runs.get(r).column(key.column());
+                }
+                this.types[k] = runs.isEmpty() ? null : columns[k][0].type();
+                this.ascending[k] = key.isAscending();
+                this.nullsFirst[k] = key.isNullsFirst();
+                if (types[k] == ColumnType.STRING) {
+                    this.ranks[k] = ranks(columns[k]);
+                }
+            }
+        }
+
+        /**
+         * Returns the rank of each code of the dictionary of each string column among the values of all of them
+         */
+        private static int[][] ranks(Column[] columns) {
+            final List<String> values = new ArrayList<>();
+            for (Column column : columns) {
+                final Dictionary dictionary = ((StringColumn)column).dictionary();
+                for (int code = 1; code <= dictionary.size(); ++code) {
+                    values.add(dictionary.value(code));
+                }
+            }
+            final String[] sorted = values.stream().distinct().sorted().toArray(String[]::new);
+            final int[][] ranks = new int[columns.length][];
+            for (int r = 0; r < columns.length; ++r) {
+                final Dictionary dictionary = ((StringColumn)columns[r]).dictionary();
+                ranks[r] = new int[dictionary.size() + 1];
+                for (int code = 1; code <= dictionary.size(); ++code) {
+                    ranks[r][code] = Arrays.binarySearch(sorted, dictionary.value(code)) + 1;
+                }
+            }
+            return ranks;
+        }
+
+        /**
+         * Compares a row of one run with a row of another
+         * @param left      the left run
+         * @param leftRow   the row of the left run
+         * @param right     the right run
+         * @param rightRow  the row of the right run
+         * @return          negative, zero or positive as the left row sorts before, with or after the right row
+         */
+        int compare(int left, int leftRow, int right, int rightRow) {
+            for (int k = 0; k < types.length; ++k) {
+                final Column x = columns[k][left];
+                final Column y = columns[k][right];
+                final boolean xNull = x.isNull(leftRow);
+                final boolean yNull = y.isNull(rightRow);
+                if (xNull || yNull) {
+                    if (xNull != yNull) {
+                        return xNull == nullsFirst[k] ? -1 : 1;
+                    }
+                    continue;
+                }
+                final int result;
+                switch (types[k]) {
+                    case BOOLEAN:
+                        result = Boolean.compare(((BooleanColumn)x).getBoolean(leftRow), ((BooleanColumn)y).getBoolean(rightRow));
+                        break;
+                    case INT:
+                        result = Integer.compare(((IntColumn)x).getInt(leftRow), ((IntColumn)y).getInt(rightRow));
+                        break;
+                    case LONG:
+                        result = Long.compare(((LongColumn)x).getLong(leftRow), ((LongColumn)y).getLong(rightRow));
+                        break;
+                    case DOUBLE:
+                        result = Long.compare(KeyColumn.encode(((NumericColumn)x).getDouble(leftRow)), KeyColumn.encode(((NumericColumn)y).getDouble(rightRow)));
+                        break;
+                    case STRING:
+                        result = Integer.compare(ranks[k][left][((StringColumn)x).getCode(leftRow)], ranks[k][right][((StringColumn)y).getCode(rightRow)]);
+                        break;
+                    default:
+                        throw new DataFrameException("Unsupported sort key type: " + types[k]);
+                }
+                if (result != 0) {
+                    return ascending[k] ? result : -result;
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.zavtech.morpheus.column;
+
+import java.util.Objects;
+
+/**
+ * A BooleanColumn backed by a packed bitset of 64-bit words on the Java heap.
+ */
+public final class BooleanBitColumn implements BooleanColumn {
+
+    private final String name;
+    private final long[] words;
+    private final int length;
+    private final Validity validity;
+
+    /**
+     * Constructor
+     * @param name      the column name
+     * @param length    the number of rows, all initially false
+     */
+    public BooleanBitColumn(String name, int length) {
+        this(name, new long[wordCount(length)], length);
+    }
+
+    /**
+     * Constructor
+     * @param name      the column name
+     * @param words     the backing bitset words, which are not copied
+     * @param length    the number of rows represented by the bitset
+     */
+    public BooleanBitColumn(String name, long[] words, int length) {
+        this(name, words, length, new Validity(length));
+    }
+
+    /**
+     * Constructor
+     * @param name      the column name
+     * @param words     the backing bitset words, which are not copied
+     * @param length    the number of rows represented by the bitset
+     * @param validity  the validity bitmap, which is shared rather than copied
+     */
+    public BooleanBitColumn(String name, long[] words, int length, Validity validity) {
+        this.name = Objects.requireNonNull(name, "The column name cannot be null");
+        this.words = Objects.requireNonNull(words, "The column words cannot be null");
+        this.validity = Objects.requireNonNull(validity, "The column validity cannot be null");
+        this.length = length;
+        if (words.length < wordCount(length)) {
+            throw new IllegalArgumentException("Bitset of " + words.length + " words too small for " + length + " rows");
+        } else if (validity.length() != length) {
+            throw new IllegalArgumentException("Validity length " + validity.length() + " does not match column length " + length);
+        }
+    }
+
+    /**
+     * Returns the number of 64-bit words needed to hold the bit count specified
+     * @param bits  the number of bits
+     * @return      the number of words
+     */
+    public static int wordCount(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    /**
+     * Returns the backing bitset words for this column, for use by word-at-a-time kernels
+     * @return  the backing words
+     */
+    public long[] words() {
+        return words;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public Storage storage() {
+        return Storage.HEAP;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public Validity validity() {
+        return validity;
+    }
+
+    @Override
+    public boolean getBoolean(int row) {
+        return (words[row >>> 6] & (1L << row)) != 0L;
+    }
+
+    @Override
+    public void setBoolean(int row, boolean value) {
+        if (value) {
+            this.words[row >>> 6] |= (1L << row);
+        } else {
+            this.words[row >>> 6] &= ~(1L << row);
+        }
+        this.validity.setValid(row);
+    }
+
+    @Override
+    public int cardinality() {
+        final int fullWords = length >>> 6;
+        int count = 0;
+        for (int i = 0; i < fullWords; ++i) {
+            count += Long.bitCount(words[i]);
+        }
+        final int tail = length & 63;
+        if (tail > 0) {
+            count += Long.bitCount(words[fullWords] & ((1L << tail) - 1L));
+        }
+        return count;
+    }
+
+    @Override
+    public BooleanColumn rename(String name) {
+        return new BooleanBitColumn(name, words, length, validity);
+    }
+
+    @Override
+    public BooleanColumn take(int[] rows) {
+        final long[] result = new long[wordCount(rows.length)];
+        for (int i = 0; i < rows.length; ++i) {
+            if (rows[i] >= 0 && getBoolean(rows[i])) {
+                result[i >>> 6] |= (1L << i);
+            }
+        }
+        return new BooleanBitColumn(name, result, rows.length, validity.take(rows));
+    }
+
+    @Override
+    public String toString() {
+        return "BooleanColumn(" + name + ", length=" + length + ")";
+    }
+}
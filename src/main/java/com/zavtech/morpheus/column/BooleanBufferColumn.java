@@ -0,0 +1,99 @@
+package com.zavtech.morpheus.column;
+
+import com.zavtech.morpheus.memory.BufferMemory;
+
+/**
+ * A BooleanColumn whose bits are packed into 64-bit words held in a BufferMemory region outside the Java heap.
+ */
+public final class BooleanBufferColumn extends BufferColumn implements BooleanColumn {
+
+    /**
+     * Constructor
+     * @param name      the column name
+     * @param memory    the memory region holding the bitset words
+     * @param offset    the byte offset of the first word in the region
+     * @param length    the number of values in the column
+     * @param storage   the storage type reported by this column
+     */
+    public BooleanBufferColumn(String name, BufferMemory memory, long offset, int length, Storage storage) {
+        this(name, memory, offset, length, storage, new Validity(length));
+    }
+
+    /**
+     * Constructor
+     * @param name      the column name
+     * @param memory    the memory region holding the bitset words
+     * @param offset    the byte offset of the first word in the region
+     * @param length    the number of values in the column
+     * @param storage   the storage type reported by this column
+     * @param validity  the validity bitmap, which is shared rather than copied
+     */
+    public BooleanBufferColumn(String name, BufferMemory memory, long offset, int length, Storage storage, Validity validity) {
+        super(name, memory, offset, length, storage, validity);
+    }
+
+    /**
+     * Returns a newly allocated off-heap column of the length specified, initialized to false
+     * @param name      the column name
+     * @param length    the column length
+     * @return          the newly created column
+     */
+    public static BooleanBufferColumn allocate(String name, int length) {
+        final long bytes = (long)BooleanBitColumn.wordCount(length) << 3;
+        return new BooleanBufferColumn(name, BufferMemory.allocate(bytes), 0L, length, Storage.OFF_HEAP);
+    }
+
+    /**
+     * Returns the bitset word at the index specified
+     * @param index the word index
+     * @return      the 64-bit word
+     */
+    public long getWord(int index) {
+        return memory().getLong(offset() + ((long)index << 3));
+    }
+
+    @Override
+    public boolean getBoolean(int row) {
+        return (getWord(row >>> 6) & (1L << row)) != 0L;
+    }
+
+    @Override
+    public void setBoolean(int row, boolean value) {
+        final long address = offset() + ((long)(row >>> 6) << 3);
+        final long word = memory().getLong(address);
+        memory().putLong(address, value ? word | (1L << row) : word & ~(1L << row));
+        validity().setValid(row);
+    }
+
+    @Override
+    public int cardinality() {
+        final int fullWords = length() >>> 6;
+        int count = 0;
+        for (int i = 0; i < fullWords; ++i) {
+            count += Long.bitCount(getWord(i));
+        }
+        final int tail = length() & 63;
+        if (tail > 0) {
+            count += Long.bitCount(getWord(fullWords) & ((1L << tail) - 1L));
+        }
+        return count;
+    }
+
+    @Override
+    public BooleanColumn rename(String name) {
+        return new BooleanBufferColumn(name, memory(), offset(), length(), storage(), validity());
+    }
+
+    @Override
+    public BooleanColumn take(int[] rows) {
+        final BooleanBufferColumn result = allocate(name(), rows.length);
+        for (int i = 0; i < rows.length; ++i) {
+            if (rows[i] < 0 || isNull(rows[i])) {
+                result.setNull(i);
+            } else {
+                result.setBoolean(i, getBoolean(rows[i]));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,49 @@
+package com.zavtech.morpheus.column;
+
+/**
+ * A Column of boolean values, stored one bit per row.
+ */
+public interface BooleanColumn extends Column {
+
+    /**
+     * Returns the value at the row specified
+     * @param row   the row index
+     * @return      the boolean value
+     */
+    boolean getBoolean(int row);
+
+    /**
+     * Sets the value at the row specified
+     * @param row       the row index
+     * @param value     the value to assign
+     */
+    void setBoolean(int row, boolean value);
+
+    /**
+     * Returns the number of rows whose value is true, which excludes null rows
+     * @return  the count of true values
+     */
+    int cardinality();
+
+    @Override
+    default ColumnType type() {
+        return ColumnType.BOOLEAN;
+    }
+
+    @Override
+    default Object getValue(int row) {
+        return isNull(row) ? null : getBoolean(row);
+    }
+
+    @Override
+    default void setNull(int row) {
+        setBoolean(row, false);
+        validity().setNull(row);
+    }
+
+    @Override
+    BooleanColumn rename(String name);
+
+    @Override
+    BooleanColumn take(int[] rows);
+}
@@ -0,0 +1,89 @@
+package com.zavtech.morpheus.column;
+
+import java.util.Objects;
+
+import com.zavtech.morpheus.memory.BufferMemory;
+
+/**
+ * The base class for columns whose values live in a BufferMemory region outside the Java heap.
+ *
+ * A column occupies a contiguous range of its region starting at a fixed byte offset,
+ * which allows several columns to share one region, such as a memory mapped file.
+ * The validity bitmap of a column is small relative to its values and stays on the heap.
+ */
+public abstract class BufferColumn implements Column {
+
+    private final String name;
+    private final int length;
+    private final long offset;
+    private final Storage storage;
+    private final BufferMemory memory;
+    private final Validity validity;
+
+    /**
+     * Constructor
+     * @param name      the column name
+     * @param memory    the memory region holding values
+     * @param offset    the byte offset of the first value in the region
+     * @param length    the number of values in the column
+     * @param storage   the storage type reported by this column
+     * @param validity  the validity bitmap, which is kept on the heap and shared rather than copied
+     */
+    protected BufferColumn(String name, BufferMemory memory, long offset, int length, Storage storage, Validity validity) {
+        this.name = Objects.requireNonNull(name, "The column name cannot be null");
+        this.memory = Objects.requireNonNull(memory, "The column memory cannot be null");
+        this.storage = Objects.requireNonNull(storage, "The column storage cannot be null");
+        this.validity = Objects.requireNonNull(validity, "The column validity cannot be null");
+        this.offset = offset;
+        this.length = length;
+        if (validity.length() != length) {
+            throw new IllegalArgumentException("Validity length " + validity.length() + " does not match column length " + length);
+        }
+    }
+
+    /**
+     * Returns the memory region that holds the values of this column
+     * @return  the memory region
+     */
+    public final BufferMemory memory() {
+        return memory;
+    }
+
+    /**
+     * Returns the byte offset of the first value of this column in its memory region
+     * @return  the byte offset
+     */
+    public final long offset() {
+        return offset;
+    }
+
+    @Override
+    public final String name() {
+        return name;
+    }
+
+    @Override
+    public final Storage storage() {
+        return storage;
+    }
+
+    @Override
+    public final int length() {
+        return length;
+    }
+
+    @Override
+    public final Validity validity() {
+        return validity;
+    }
+
+    @Override
+    public void close() {
+        this.memory.close();
+    }
+
+    @Override
+    public String toString() {
+        return type() + "Column(" + name + ", length=" + length + ", storage=" + storage + ")";
+    }
+}
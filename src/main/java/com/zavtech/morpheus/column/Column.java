@@ -0,0 +1,90 @@
+package com.zavtech.morpheus.column;
+
+/**
+ * A named, fixed length sequence of values of a single ColumnType.
+ *
+ * Columns are the unit of storage in a DataFrame. Implementations keep their
+ * values in primitive form, so the boxed accessors on this interface are only
+ * intended for display and for generic code paths that are not performance
+ * sensitive. Hot loops should use the typed sub-interfaces instead.
+ *
+ * Any row may be null, as recorded by the validity bitmap of the column. Writing a value
+ * to a row through a typed setter makes it valid again.
+ */
+public interface Column extends AutoCloseable {
+
+    /**
+     * Returns the name of this column
+     * @return  the column name
+     */
+    String name();
+
+    /**
+     * Returns the value type of this column
+     * @return  the column type
+     */
+    ColumnType type();
+
+    /**
+     * Returns where the values of this column are physically kept
+     * @return  the column storage
+     */
+    Storage storage();
+
+    /**
+     * Returns the number of values in this column
+     * @return  the column length
+     */
+    int length();
+
+    /**
+     * Returns a boxed representation of the value at the row specified
+     * @param row   the row index
+     * @return      the boxed value, or null if the row is null
+     */
+    Object getValue(int row);
+
+    /**
+     * Returns the validity bitmap that records which rows of this column are null
+     * @return  the validity bitmap
+     */
+    Validity validity();
+
+    /**
+     * Returns true if the row specified is null
+     * @param row   the row index
+     * @return      true if the row is null
+     */
+    default boolean isNull(int row) {
+        return validity().isNull(row);
+    }
+
+    /**
+     * Sets the row specified to null, resetting its value slot to the default of the column type
+     * @param row   the row index
+     */
+    void setNull(int row);
+
+    /**
+     * Returns a view of this column under a different name, sharing storage
+     * @param name  the new column name
+     * @return      the renamed column
+     */
+    Column rename(String name);
+
+    /**
+     * Returns a new column in the same storage holding the values at the row indexes specified, in order.
+     * A negative index yields a null.
+     * @param rows  the row indexes to gather, where negative indexes denote null rows
+     * @return      the newly created column
+     */
+    Column take(int[] rows);
+
+    /**
+     * Releases any native resources held by this column, which is a no-op for heap columns
+     */
+    @Override
+    default void close() {
+        // Heap columns are reclaimed by the garbage collector
+    }
+}
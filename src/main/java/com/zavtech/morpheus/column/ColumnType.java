@@ -0,0 +1,39 @@
+package com.zavtech.morpheus.column;
+
+/**
+ * Enumerates the physical value types a Column can hold.
+ *
+ * Every type maps onto a primitive representation so that column data never
+ * requires a per-cell object header on the heap. STRING columns hold int codes
+ * into a dictionary of distinct values, see StringColumn.
+ */
+public enum ColumnType {
+
+    BOOLEAN(boolean.class),
+    INT(int.class),
+    LONG(long.class),
+    DOUBLE(double.class),
+    STRING(int.class);
+
+    private final Class<?> primitiveType;
+
+    ColumnType(Class<?> primitiveType) {
+        this.primitiveType = primitiveType;
+    }
+
+    /**
+     * Returns the primitive Java type used to represent values of this type
+     * @return  the primitive class for this column type
+     */
+    public Class<?> primitiveType() {
+        return primitiveType;
+    }
+
+    /**
+     * Returns true if columns of this type implement NumericColumn
+     * @return  true for numeric types
+     */
+    public boolean isNumeric() {
+        return this == INT || this == LONG || this == DOUBLE;
+    }
+}
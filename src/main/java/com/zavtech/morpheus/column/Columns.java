@@ -0,0 +1,456 @@
+package com.zavtech.morpheus.column;
+
+import java.util.List;
+
+/**
+ * Static factory methods for creating columns.
+ */
+public final class Columns {
+
+    /** The number of values moved per bulk copy between columns */
+    public static final int BATCH_SIZE = 8192;
+
+    private Columns() {
+        super();
+    }
+
+    /**
+     * Returns a newly created column of the type specified with default values
+     * @param name      the column name
+     * @param type      the column type
+     * @param length    the column length
+     * @return          the newly created column
+     */
+    public static Column create(String name, ColumnType type, int length) {
+        return create(name, type, length, Storage.HEAP);
+    }
+
+    /**
+     * Returns a newly created column of the type specified with default values in the storage specified
+     * @param name      the column name
+     * @param type      the column type
+     * @param length    the column length
+     * @param storage   the storage for column values
+     * @return          the newly created column
+     */
+    public static Column create(String name, ColumnType type, int length, Storage storage) {
+        if (storage == Storage.MAPPED) {
+            throw new IllegalArgumentException("Mapped columns can only be created by opening a column file");
+        } else if (type == ColumnType.STRING) {
+            return new DictionaryColumn(ints(name, length, storage), new Dictionary());
+        } else if (storage == Storage.OFF_HEAP) {
+            switch (type) {
+                case BOOLEAN:   return BooleanBufferColumn.allocate(name, length);
+                case INT:       return IntBufferColumn.allocate(name, length);
+                case LONG:      return LongBufferColumn.allocate(name, length);
+                case DOUBLE:    return DoubleBufferColumn.allocate(name, length);
+                default:        throw new IllegalArgumentException("Unsupported column type: " + type);
+            }
+        }
+        switch (type) {
+            case BOOLEAN:   return booleans(name, length);
+            case INT:       return ints(name, length);
+            case LONG:      return longs(name, length);
+            case DOUBLE:    return doubles(name, length);
+            default:        throw new IllegalArgumentException("Unsupported column type: " + type);
+        }
+    }
+
+    /**
+     * Returns a new double column initialized to zero
+     * @param name      the column name
+     * @param length    the column length
+     * @return          the newly created column
+     */
+    public static DoubleColumn doubles(String name, int length) {
+        return new DoubleArrayColumn(name, new double[length]);
+    }
+
+    /**
+     * Returns a new double column with default values in the storage specified
+     * @param name      the column name
+     * @param length    the column length
+     * @param storage   the storage for column values
+     * @return          the newly created column
+     */
+    public static DoubleColumn doubles(String name, int length, Storage storage) {
+        return (DoubleColumn)create(name, ColumnType.DOUBLE, length, storage);
+    }
+
+    /**
+     * Returns a new long column initialized to zero
+     * @param name      the column name
+     * @param length    the column length
+     * @return          the newly created column
+     */
+    public static LongColumn longs(String name, int length) {
+        return new LongArrayColumn(name, new long[length]);
+    }
+
+    /**
+     * Returns a new long column with default values in the storage specified
+     * @param name      the column name
+     * @param length    the column length
+     * @param storage   the storage for column values
+     * @return          the newly created column
+     */
+    public static LongColumn longs(String name, int length, Storage storage) {
+        return (LongColumn)create(name, ColumnType.LONG, length, storage);
+    }
+
+    /**
+     * Returns a new int column initialized to zero
+     * @param name      the column name
+     * @param length    the column length
+     * @return          the newly created column
+     */
+    public static IntColumn ints(String name, int length) {
+        return new IntArrayColumn(name, new int[length]);
+    }
+
+    /**
+     * Returns a new int column with default values in the storage specified
+     * @param name      the column name
+     * @param length    the column length
+     * @param storage   the storage for column values
+     * @return          the newly created column
+     */
+    public static IntColumn ints(String name, int length, Storage storage) {
+        return (IntColumn)create(name, ColumnType.INT, length, storage);
+    }
+
+    /**
+     * Returns a new boolean column initialized to false
+     * @param name      the column name
+     * @param length    the column length
+     * @return          the newly created column
+     */
+    public static BooleanColumn booleans(String name, int length) {
+        return new BooleanBitColumn(name, length);
+    }
+
+    /**
+     * Returns a new boolean column with default values in the storage specified
+     * @param name      the column name
+     * @param length    the column length
+     * @param storage   the storage for column values
+     * @return          the newly created column
+     */
+    public static BooleanColumn booleans(String name, int length, Storage storage) {
+        return (BooleanColumn)create(name, ColumnType.BOOLEAN, length, storage);
+    }
+
+    /**
+     * Returns a new string column initialized to null, with an empty dictionary
+     * @param name      the column name
+     * @param length    the column length
+     * @return          the newly created column
+     */
+    public static StringColumn strings(String name, int length) {
+        return strings(name, length, Storage.HEAP);
+    }
+
+    /**
+     * Returns a new string column initialized to null in the storage specified, with an empty dictionary
+     * @param name      the column name
+     * @param length    the column length
+     * @param storage   the storage for column codes
+     * @return          the newly created column
+     */
+    public static StringColumn strings(String name, int length, Storage storage) {
+        return (StringColumn)create(name, ColumnType.STRING, length, storage);
+    }
+
+    /**
+     * Returns a string column that encodes the values specified with a new dictionary
+     * @param name      the column name
+     * @param values    the column values, which may include nulls
+     * @return          the newly created column
+     */
+    public static StringColumn ofStrings(String name, String... values) {
+        final Dictionary dictionary = new Dictionary();
+        final int[] codes = new int[values.length];
+        for (int i = 0; i < values.length; ++i) {
+            codes[i] = dictionary.intern(values[i]);
+        }
+        return new DictionaryColumn(new IntArrayColumn(name, codes), dictionary);
+    }
+
+    /**
+     * Returns a double column that wraps the values specified without copying
+     * @param name      the column name
+     * @param values    the column values
+     * @return          the newly created column
+     */
+    public static DoubleColumn ofDoubles(String name, double... values) {
+        return new DoubleArrayColumn(name, values);
+    }
+
+    /**
+     * Returns a long column that wraps the values specified without copying
+     * @param name      the column name
+     * @param values    the column values
+     * @return          the newly created column
+     */
+    public static LongColumn ofLongs(String name, long... values) {
+        return new LongArrayColumn(name, values);
+    }
+
+    /**
+     * Returns an int column that wraps the values specified without copying
+     * @param name      the column name
+     * @param values    the column values
+     * @return          the newly created column
+     */
+    public static IntColumn ofInts(String name, int... values) {
+        return new IntArrayColumn(name, values);
+    }
+
+    /**
+     * Returns a boolean column initialized from the values specified
+     * @param name      the column name
+     * @param values    the column values
+     * @return          the newly created column
+     */
+    public static BooleanColumn ofBooleans(String name, boolean... values) {
+        final BooleanBitColumn column = new BooleanBitColumn(name, values.length);
+        for (int i = 0; i < values.length; ++i) {
+            if (values[i]) {
+                column.setBoolean(i, true);
+            }
+        }
+        return column;
+    }
+
+    /**
+     * Returns a copy of the column specified in the storage specified
+     * @param column    the column to copy
+     * @param storage   the storage for the copy
+     * @return          the newly created copy
+     */
+    public static Column copy(Column column, Storage storage) {
+        final Column result = column instanceof StringColumn
+            ? new DictionaryColumn(ints(column.name(), column.length(), storage), ((StringColumn)column).dictionary())
+            : create(column.name(), column.type(), column.length(), storage);
+        copy(column, result, 0);
+        return result;
+    }
+
+    /**
+     * Returns a copy of an integer column in whichever Encoding holds it in the fewest bytes, or the column itself
+     * if no encoding is smaller than plain values or the column is of another type.
+     * String columns are encoded through their codes. Encoded columns are read only, and copy() decodes them again.
+     * @param column    the column to encode
+     * @return          the encoded column, or the column itself
+     */
+    public static Column encode(Column column) {
+        if (column instanceof EncodedColumn) {
+            return column;
+        } else if (column instanceof LongColumn) {
+            final EncodedLongColumn encoded = EncodedLongColumn.of((LongColumn)column);
+            return encoded.encodedBytes() < column.length() * 8L ? encoded : column;
+        } else if (column instanceof IntColumn) {
+            final EncodedIntColumn encoded = EncodedIntColumn.of((IntColumn)column);
+            return encoded.encodedBytes() < column.length() * 4L ? encoded : column;
+        } else if (column instanceof DictionaryColumn) {
+            final DictionaryColumn strings = (DictionaryColumn)column;
+            final Column codes = encode(strings.codes());
+            return codes != strings.codes() ? new DictionaryColumn((IntColumn)codes, strings.dictionary()) : column;
+        } else {
+            return column;
+        }
+    }
+
+    /**
+     * Returns a new column holding the values of the columns specified one after another.
+     * The result is named after, and uses the storage of, the first column, except that mapped inputs yield off-heap results.
+     * String columns that share a dictionary keep it, otherwise the result has a new dictionary holding the values of all inputs.
+     * @param columns   the columns to concatenate, which must all have the same type
+     * @return          the newly created column
+     */
+    public static Column concat(List<? extends Column> columns) {
+        if (columns.isEmpty()) {
+            throw new IllegalArgumentException("At least one column is required for concatenation");
+        }
+        final Column first = columns.get(0);
+        final Storage storage = first.storage() == Storage.HEAP ? Storage.HEAP : Storage.OFF_HEAP;
+        long total = 0L;
+        for (Column column : columns) {
+            if (column.type() != first.type()) {
+                throw new IllegalArgumentException("Cannot concatenate " + column.type() + " column with " + first.type() + " column");
+            }
+            total += column.length();
+        }
+        final int length = Math.toIntExact(total);
+        final Column result = first instanceof StringColumn
+            ? new DictionaryColumn(ints(first.name(), length, storage), commonDictionary(columns))
+            : create(first.name(), first.type(), length, storage);
+        int row = 0;
+        for (Column column : columns) {
+            copy(column, result, row);
+            row += column.length();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the dictionary shared by all the string columns specified, or a copy of the first if they differ
+     */
+    private static Dictionary commonDictionary(List<? extends Column> columns) {
+        final Dictionary first = ((StringColumn)columns.get(0)).dictionary();
+        for (Column column : columns) {
+            if (((StringColumn)column).dictionary() != first) {
+                return first.copy();
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Copies all values and nulls of a column into a column of the same type starting at the row specified.
+     * String codes are copied directly when both columns share a dictionary and translated otherwise.
+     * @param source    the column to copy from
+     * @param target    the column to copy into
+     * @param row       the first row to write in the target
+     */
+    public static void copy(Column source, Column target, int row) {
+        final int length = source.length();
+        switch (source.type()) {
+            case BOOLEAN:
+                final BooleanColumn bits = (BooleanColumn)source;
+                final BooleanColumn bitsCopy = (BooleanColumn)target;
+                for (int i = 0; i < length; ++i) {
+                    bitsCopy.setBoolean(row + i, bits.getBoolean(i));
+                }
+                break;
+            case INT:
+                final int[] ints = new int[Math.min(length, BATCH_SIZE)];
+                for (int i = 0; i < length; i += ints.length) {
+                    final int count = Math.min(ints.length, length - i);
+                    ((IntColumn)source).getInts(i, ints, 0, count);
+                    ((IntColumn)target).setInts(row + i, ints, 0, count);
+                }
+                break;
+            case LONG:
+                final long[] longs = new long[Math.min(length, BATCH_SIZE)];
+                for (int i = 0; i < length; i += longs.length) {
+                    final int count = Math.min(longs.length, length - i);
+                    ((LongColumn)source).getLongs(i, longs, 0, count);
+                    ((LongColumn)target).setLongs(row + i, longs, 0, count);
+                }
+                break;
+            case DOUBLE:
+                final double[] doubles = new double[Math.min(length, BATCH_SIZE)];
+                for (int i = 0; i < length; i += doubles.length) {
+                    final int count = Math.min(doubles.length, length - i);
+                    ((DoubleColumn)source).getDoubles(i, doubles, 0, count);
+                    ((DoubleColumn)target).setDoubles(row + i, doubles, 0, count);
+                }
+                break;
+            case STRING:
+                final StringColumn strings = (StringColumn)source;
+                final StringColumn stringsCopy = (StringColumn)target;
+                final int[] mapping = translation(strings.dictionary(), stringsCopy.dictionary());
+                final int[] codes = new int[Math.min(length, BATCH_SIZE)];
+                for (int i = 0; i < length; i += codes.length) {
+                    final int count = Math.min(codes.length, length - i);
+                    strings.getCodes(i, codes, 0, count);
+                    if (mapping != null) {
+                        for (int j = 0; j < count; ++j) {
+                            codes[j] = mapping[codes[j]];
+                        }
+                    }
+                    stringsCopy.setCodes(row + i, codes, 0, count);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported column type: " + source.type());
+        }
+        if (source.type() != ColumnType.STRING) {
+            target.validity().setNulls(source.validity(), row);
+        }
+    }
+
+    /**
+     * Returns a copy of a numeric column, in the storage of its result, with null rows replaced by the value specified.
+     * Columns without nulls are returned as they are. The value must be integral for int and long columns.
+     * @param column    the column to fill
+     * @param value     the value to assign to null rows
+     * @return          the filled column
+     */
+    public static NumericColumn fillNulls(NumericColumn column, double value) {
+        final Validity validity = column.validity();
+        if (!validity.hasNulls()) {
+            return column;
+        } else if (column.type() != ColumnType.DOUBLE && value != Math.rint(value)) {
+            throw new IllegalArgumentException("Cannot fill " + column.type() + " column " + column.name() + " with " + value);
+        }
+        final NumericColumn result = (NumericColumn)copy(column, column.storage() == Storage.HEAP ? Storage.HEAP : Storage.OFF_HEAP);
+        final long[] words = validity.words();
+        for (int w = 0; w < words.length; ++w) {
+            long nullBits = ~words[w];
+            while (nullBits != 0L) {
+                final int row = (w << 6) + Long.numberOfTrailingZeros(nullBits);
+                switch (column.type()) {
+                    case DOUBLE:    ((DoubleColumn)result).setDouble(row, value);       break;
+                    case LONG:      ((LongColumn)result).setLong(row, (long)value);     break;
+                    case INT:       ((IntColumn)result).setInt(row, (int)value);        break;
+                    default:        throw new IllegalArgumentException("Unsupported column type: " + column.type());
+                }
+                nullBits &= nullBits - 1L;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of a string column with null rows replaced by the value specified, sharing the dictionary.
+     * Columns without nulls are returned as they are.
+     * @param column    the column to fill
+     * @param value     the value to assign to null rows
+     * @return          the filled column
+     */
+    public static StringColumn fillNulls(StringColumn column, String value) {
+        final Dictionary dictionary = column.dictionary();
+        final int code = dictionary.intern(value);
+        final int length = column.length();
+        final int[] codes = new int[Math.min(length, BATCH_SIZE)];
+        StringColumn result = null;
+        for (int from = 0; from < length; from += codes.length) {
+            final int count = Math.min(codes.length, length - from);
+            column.getCodes(from, codes, 0, count);
+            boolean nulls = false;
+            for (int i = 0; i < count; ++i) {
+                if (codes[i] == 0) {
+                    codes[i] = code;
+                    nulls = true;
+                }
+            }
+            if (nulls && result == null) {
+                result = (StringColumn)copy(column, column.storage() == Storage.HEAP ? Storage.HEAP : Storage.OFF_HEAP);
+            }
+            if (nulls) {
+                result.setCodes(from, codes, 0, count);
+            }
+        }
+        return result != null ? result : column;
+    }
+
+    /**
+     * Returns the target code for every code of the source dictionary, adding missing values to the target
+     * @param source    the source dictionary
+     * @param target    the target dictionary
+     * @return          the code translation, or null if the dictionaries are the same
+     */
+    public static int[] translation(Dictionary source, Dictionary target) {
+        if (source == target) {
+            return null;
+        } else {
+            final int[] mapping = new int[source.size() + 1];
+            for (int code = 1; code < mapping.length; ++code) {
+                mapping[code] = target.intern(source.value(code));
+            }
+            return mapping;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.zavtech.morpheus.column;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * An append-only mapping between distinct strings and dense int codes, shared by the columns that encode values with it.
+ *
+ * Code 0 is reserved for null, so that zeroed memory and missing rows decode as null, and
+ * values are assigned codes 1, 2, 3 and so on in order of first appearance. Codes never
+ * change once assigned, so columns that share a dictionary may compare codes directly.
+ * Values are hashed by their UTF-8 bytes, which lets parsers intern fields straight from
+ * an input buffer without first creating a String. A dictionary is not safe for concurrent
+ * interning, but may be read by many threads once fully built.
+ */
+public final class Dictionary {
+
+    private int size;
+    private int mask;
+    private int[] slots;
+    private int[] hashes;
+    private String[] values;
+    private byte[][] bytes;
+
+    /**
+     * Constructor
+     */
+    public Dictionary() {
+        this.slots = new int[16];
+        this.mask = 15;
+        this.hashes = new int[16];
+        this.values = new String[16];
+        this.bytes = new byte[16][];
+    }
+
+    /**
+     * Returns the number of distinct non-null values, which are assigned codes 1 to size inclusive
+     * @return  the number of values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the value for a code
+     * @param code  the code, in the range 0 to size inclusive
+     * @return      the value, null for code 0
+     */
+    public String value(int code) {
+        if (code < 0 || code > size) {
+            throw new IndexOutOfBoundsException("No value for code " + code + ", dictionary size is " + size);
+        }
+        return values[code];
+    }
+
+    /**
+     * Returns the code for a value if present
+     * @param value the value, which may be null
+     * @return      the code, 0 for null, or -1 if the value is absent
+     */
+    public int codeOf(String value) {
+        if (value == null) {
+            return 0;
+        } else {
+            final byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            return find(utf8, 0, utf8.length, hash(utf8, 0, utf8.length));
+        }
+    }
+
+    /**
+     * Returns the code for a value, adding it to this dictionary if absent
+     * @param value the value, which may be null
+     * @return      the code, 0 for null
+     */
+    public int intern(String value) {
+        if (value == null) {
+            return 0;
+        } else {
+            final byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            final int hash = hash(utf8, 0, utf8.length);
+            final int code = find(utf8, 0, utf8.length, hash);
+            return code >= 0 ? code : add(value, utf8, hash);
+        }
+    }
+
+    /**
+     * Returns the code for a value held as UTF-8 bytes, adding it to this dictionary if absent
+     * @param utf8  the buffer holding the value
+     * @param from  the offset of the first byte of the value
+     * @param to    the offset after the last byte of the value
+     * @return      the code
+     */
+    public int intern(byte[] utf8, int from, int to) {
+        final int hash = hash(utf8, from, to);
+        final int code = find(utf8, from, to, hash);
+        if (code >= 0) {
+            return code;
+        } else {
+            final byte[] copy = Arrays.copyOfRange(utf8, from, to);
+            return add(new String(copy, StandardCharsets.UTF_8), copy, hash);
+        }
+    }
+
+    /**
+     * Returns an independent copy of this dictionary, in which existing values keep their codes
+     * @return  the copy
+     */
+    public Dictionary copy() {
+        final Dictionary copy = new Dictionary();
+        copy.size = size;
+        copy.mask = mask;
+        copy.slots = slots.clone();
+        copy.hashes = hashes.clone();
+        copy.values = values.clone();
+        copy.bytes = bytes.clone();
+        return copy;
+    }
+
+    /**
+     * Returns the approximate number of bytes held by this dictionary
+     * @return  the size in bytes
+     */
+    public long bytes() {
+        long total = slots.length * 4L + hashes.length * 4L + values.length * 16L;
+        for (int code = 1; code <= size; ++code) {
+            total += bytes[code].length * 2L + 56L;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the code of the value whose bytes equal the range specified, or -1 if absent
+     */
+    private int find(byte[] utf8, int from, int to, int hash) {
+        int slot = hash & mask;
+        while (true) {
+            final int code = slots[slot];
+            if (code == 0) {
+                return -1;
+            } else if (hashes[code] == hash && Arrays.equals(bytes[code], 0, bytes[code].length, utf8, from, to)) {
+                return code;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Adds a value known to be absent and returns its new code
+     */
+    private int add(String value, byte[] utf8, int hash) {
+        final int code = ++size;
+        if (code == values.length) {
+            this.values = Arrays.copyOf(values, code * 2);
+            this.bytes = Arrays.copyOf(bytes, code * 2);
+            this.hashes = Arrays.copyOf(hashes, code * 2);
+        }
+        this.values[code] = value;
+        this.bytes[code] = utf8;
+        this.hashes[code] = hash;
+        if (size * 2 > mask) {
+            this.slots = new int[slots.length * 2];
+            this.mask = slots.length - 1;
+            for (int c = 1; c <= size; ++c) {
+                insert(c);
+            }
+        } else {
+            insert(code);
+        }
+        return code;
+    }
+
+    /**
+     * Inserts a code into the hash slots
+     */
+    private void insert(int code) {
+        int slot = hashes[code] & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        this.slots[slot] = code;
+    }
+
+    /**
+     * Returns the hash of a range of bytes, using FNV-1a followed by a final avalanche
+     */
+    private static int hash(byte[] utf8, int from, int to) {
+        int hash = 0x811C9DC5;
+        for (int i = from; i < to; ++i) {
+            hash = (hash ^ utf8[i]) * 0x01000193;
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "Dictionary[size=" + size + "]";
+    }
+}
@@ -0,0 +1,155 @@
+package com.zavtech.morpheus.column;
+
+import java.util.Objects;
+
+/**
+ * A StringColumn that keeps its codes in an IntColumn of any storage alongside a heap resident dictionary.
+ *
+ * The validity bitmap is derived from the codes by a single scan the first time it is requested,
+ * which leaves mapped columns untouched until then, and is maintained by every write thereafter.
+ */
+public final class DictionaryColumn implements StringColumn {
+
+    private final IntColumn codes;
+    private final Dictionary dictionary;
+    private volatile Validity validity;
+
+    /**
+     * Constructor
+     * @param codes         the codes of each row, whose name and storage this column adopts
+     * @param dictionary    the dictionary the codes refer to
+     */
+    public DictionaryColumn(IntColumn codes, Dictionary dictionary) {
+        this(codes, dictionary, null);
+    }
+
+    /**
+     * Constructor
+     * @param codes         the codes of each row, whose name and storage this column adopts
+     * @param dictionary    the dictionary the codes refer to
+     * @param validity      the validity bitmap of the codes, which is shared rather than copied, or null to derive it
+     */
+    private DictionaryColumn(IntColumn codes, Dictionary dictionary, Validity validity) {
+        this.codes = Objects.requireNonNull(codes, "The codes cannot be null");
+        this.dictionary = Objects.requireNonNull(dictionary, "The dictionary cannot be null");
+        this.validity = validity;
+    }
+
+    /**
+     * Returns the column of codes, for use by code based kernels
+     * @return  the codes column
+     */
+    public IntColumn codes() {
+        return codes;
+    }
+
+    @Override
+    public Dictionary dictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public String name() {
+        return codes.name();
+    }
+
+    @Override
+    public Storage storage() {
+        return codes.storage();
+    }
+
+    @Override
+    public int length() {
+        return codes.length();
+    }
+
+    @Override
+    public Validity validity() {
+        Validity result = validity;
+        if (result == null) {
+            synchronized (this) {
+                result = validity;
+                if (result == null) {
+                    this.validity = result = derive();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new validity bitmap in which the rows with code 0 are null
+     */
+    private Validity derive() {
+        final int length = codes.length();
+        final Validity result = new Validity(length);
+        final int[] batch = new int[Math.min(length, Columns.BATCH_SIZE)];
+        for (int from = 0; from < length; from += batch.length) {
+            final int count = Math.min(batch.length, length - from);
+            codes.getInts(from, batch, 0, count);
+            for (int i = 0; i < count; ++i) {
+                if (batch[i] == 0) {
+                    result.setNull(from + i);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int getCode(int row) {
+        return codes.getInt(row);
+    }
+
+    @Override
+    public void setCode(int row, int code) {
+        this.codes.setInt(row, code);
+        final Validity validity = this.validity;
+        if (validity != null) {
+            if (code == 0) {
+                validity.setNull(row);
+            } else {
+                validity.setValid(row);
+            }
+        }
+    }
+
+    @Override
+    public void getCodes(int from, int[] dst, int offset, int length) {
+        codes.getInts(from, dst, offset, length);
+    }
+
+    @Override
+    public void setCodes(int from, int[] src, int offset, int length) {
+        this.codes.setInts(from, src, offset, length);
+        final Validity validity = this.validity;
+        if (validity != null) {
+            validity.setValid(from, length);
+            for (int i = 0; i < length; ++i) {
+                if (src[offset + i] == 0) {
+                    validity.setNull(from + i);
+                }
+            }
+        }
+    }
+
+    @Override
+    public StringColumn rename(String name) {
+        return new DictionaryColumn(codes.rename(name), dictionary, validity());
+    }
+
+    @Override
+    public StringColumn take(int[] rows) {
+        return new DictionaryColumn(codes.take(rows), dictionary, validity().take(rows));
+    }
+
+    @Override
+    public void close() {
+        codes.close();
+    }
+
+    @Override
+    public String toString() {
+        return "DictionaryColumn[" + name() + ", length=" + length() + ", " + dictionary + "]";
+    }
+}
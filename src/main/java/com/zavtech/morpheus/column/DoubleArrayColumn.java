@@ -0,0 +1,107 @@
+package com.zavtech.morpheus.column;
+
+import java.util.Objects;
+
+/**
+ * A DoubleColumn backed by a primitive double array on the Java heap.
+ */
+public final class DoubleArrayColumn implements DoubleColumn {
+
+    private final String name;
+    private final double[] values;
+    private final Validity validity;
+
+    /**
+     * Constructor
+     * @param name      the column name
+     * @param values    the backing array, which is not copied
+     */
+    public DoubleArrayColumn(String name, double[] values) {
+        this(name, values, new Validity(values.length));
+    }
+
+    /**
+     * Constructor
+     * @param name      the column name
+     * @param values    the backing array, which is not copied
+     * @param validity  the validity bitmap, which is shared rather than copied
+     */
+    public DoubleArrayColumn(String name, double[] values, Validity validity) {
+        this.name = Objects.requireNonNull(name, "The column name cannot be null");
+        this.values = Objects.requireNonNull(values, "The column values cannot be null");
+        this.validity = Objects.requireNonNull(validity, "The column validity cannot be null");
+        if (validity.length() != values.length) {
+            throw new IllegalArgumentException("Validity length " + validity.length() + " does not match column length " + values.length);
+        }
+    }
+
+    /**
+     * Returns the backing array for this column, for use by array based kernels
+     * @return  the backing array
+     */
+    public double[] values() {
+        return values;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public Storage storage() {
+        return Storage.HEAP;
+    }
+
+    @Override
+    public int length() {
+        return values.length;
+    }
+
+    @Override
+    public Validity validity() {
+        return validity;
+    }
+
+    @Override
+    public double getDouble(int row) {
+        return values[row];
+    }
+
+    @Override
+    public void setDouble(int row, double value) {
+        this.values[row] = value;
+        this.validity.setValid(row);
+    }
+
+    @Override
+    public void getDoubles(int from, double[] dst, int offset, int length) {
+        System.arraycopy(values, from, dst, offset, length);
+    }
+
+    @Override
+    public void setDoubles(int from, double[] src, int offset, int length) {
+        System.arraycopy(src, offset, values, from, length);
+        this.validity.setValid(from, length);
+    }
+
+    @Override
+    public DoubleColumn rename(String name) {
+        return new DoubleArrayColumn(name, values, validity);
+    }
+
+    @Override
+    public DoubleColumn take(int[] rows) {
+        final double[] result = new double[rows.length];
+        for (int i = 0; i < rows.length; ++i) {
+            final int row = rows[i];
+            result[i] = row < 0 ? Double.NaN : values[row];
+        }
+        return new DoubleArrayColumn(name, result, validity.take(rows));
+    }
+
+    @Override
+    public String toString() {
+        return "DoubleColumn(" + name + ", length=" + values.length + ")";
+    }
+}
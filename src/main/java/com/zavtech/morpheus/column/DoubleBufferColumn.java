@@ -0,0 +1,84 @@
+package com.zavtech.morpheus.column;
+
+import com.zavtech.morpheus.memory.BufferMemory;
+
+/**
+ * A DoubleColumn whose values are held in a BufferMemory region outside the Java heap.
+ */
+public final class DoubleBufferColumn extends BufferColumn implements DoubleColumn {
+
+    /**
+     * Constructor
+     * @param name      the column name
+     * @param memory    the memory region holding values
+     * @param offset    the byte offset of the first value in the region
+     * @param length    the number of values in the column
+     * @param storage   the storage type reported by this column
+     */
+    public DoubleBufferColumn(String name, BufferMemory memory, long offset, int length, Storage storage) {
+        this(name, memory, offset, length, storage, new Validity(length));
+    }
+
+    /**
+     * Constructor
+     * @param name      the column name
+     * @param memory    the memory region holding values
+     * @param offset    the byte offset of the first value in the region
+     * @param length    the number of values in the column
+     * @param storage   the storage type reported by this column
+     * @param validity  the validity bitmap, which is shared rather than copied
+     */
+    public DoubleBufferColumn(String name, BufferMemory memory, long offset, int length, Storage storage, Validity validity) {
+        super(name, memory, offset, length, storage, validity);
+    }
+
+    /**
+     * Returns a newly allocated off-heap column of the length specified, initialized to zero
+     * @param name      the column name
+     * @param length    the column length
+     * @return          the newly created column
+     */
+    public static DoubleBufferColumn allocate(String name, int length) {
+        return new DoubleBufferColumn(name, BufferMemory.allocate((long)length << 3), 0L, length, Storage.OFF_HEAP);
+    }
+
+    @Override
+    public double getDouble(int row) {
+        return memory().getDouble(offset() + ((long)row << 3));
+    }
+
+    @Override
+    public void setDouble(int row, double value) {
+        memory().putDouble(offset() + ((long)row << 3), value);
+        validity().setValid(row);
+    }
+
+    @Override
+    public void getDoubles(int from, double[] dst, int offset, int length) {
+        memory().getDoubles(offset() + ((long)from << 3), dst, offset, length);
+    }
+
+    @Override
+    public void setDoubles(int from, double[] src, int offset, int length) {
+        memory().putDoubles(offset() + ((long)from << 3), src, offset, length);
+        validity().setValid(from, length);
+    }
+
+    @Override
+    public DoubleColumn rename(String name) {
+        return new DoubleBufferColumn(name, memory(), offset(), length(), storage(), validity());
+    }
+
+    @Override
+    public DoubleColumn take(int[] rows) {
+        final DoubleBufferColumn result = allocate(name(), rows.length);
+        for (int i = 0; i < rows.length; ++i) {
+            if (rows[i] < 0 || isNull(rows[i])) {
+                result.setNull(i);
+            } else {
+                result.setDouble(i, getDouble(rows[i]));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,45 @@
+package com.zavtech.morpheus.column;
+
+/**
+ * A Column of primitive double precision values.
+ */
+public interface DoubleColumn extends NumericColumn {
+
+    /**
+     * Sets the value at the row specified
+     * @param row       the row index
+     * @param value     the value to assign
+     */
+    void setDouble(int row, double value);
+
+    /**
+     * Copies a contiguous range of values from the array provided into this column
+     * @param from      the first row to write
+     * @param src       the source array
+     * @param offset    the offset into the source array
+     * @param length    the number of values to copy
+     */
+    void setDoubles(int from, double[] src, int offset, int length);
+
+    @Override
+    default ColumnType type() {
+        return ColumnType.DOUBLE;
+    }
+
+    @Override
+    default Object getValue(int row) {
+        return isNull(row) ? null : getDouble(row);
+    }
+
+    @Override
+    default void setNull(int row) {
+        setDouble(row, Double.NaN);
+        validity().setNull(row);
+    }
+
+    @Override
+    DoubleColumn rename(String name);
+
+    @Override
+    DoubleColumn take(int[] rows);
+}
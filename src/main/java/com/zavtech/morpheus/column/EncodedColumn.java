@@ -0,0 +1,52 @@
+package com.zavtech.morpheus.column;
+
+/**
+ * A read only NumericColumn of integers held in a compressed Encoding, which decodes batches of values in tight loops.
+ *
+ * Bounds of the values of any range of rows are known without decoding, from the min and max of
+ * each block or run, which lets scans skip ranges that cannot match and lets aggregations answer
+ * from the encoded form directly. Null rows hold zero, as in array columns, so the bounds and sum
+ * count a null as a zero.
+ */
+public interface EncodedColumn extends NumericColumn {
+
+    /**
+     * Returns the encoding of this column
+     * @return  the encoding
+     */
+    Encoding encoding();
+
+    /**
+     * Returns the number of bytes held by the encoded values of this column, excluding the validity
+     * @return  the footprint in bytes
+     */
+    long encodedBytes();
+
+    /**
+     * Returns a lower bound of the values in a range of rows, which is exact when the range covers whole blocks or runs
+     * @param from  the first row of the range
+     * @param to    the end row of the range, exclusive
+     * @return      the lower bound, or Long.MAX_VALUE for an empty range
+     */
+    long lowerBound(int from, int to);
+
+    /**
+     * Returns an upper bound of the values in a range of rows, which is exact when the range covers whole blocks or runs
+     * @param from  the first row of the range
+     * @param to    the end row of the range, exclusive
+     * @return      the upper bound, or Long.MIN_VALUE for an empty range
+     */
+    long upperBound(int from, int to);
+
+    /**
+     * Returns the sum of all values, with nulls as zero, computed run by run or block by block
+     * @return  the sum, which wraps on overflow
+     */
+    long sumLong();
+
+    /**
+     * Returns the encoded values of this column serialized as words, as read by the fromWords() factories
+     * @return  the serialized values
+     */
+    long[] toWords();
+}
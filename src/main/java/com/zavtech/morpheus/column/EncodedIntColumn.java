@@ -0,0 +1,188 @@
+package com.zavtech.morpheus.column;
+
+import java.util.Objects;
+
+/**
+ * A read only IntColumn held in a compressed Encoding on the Java heap.
+ *
+ * Values are encoded as longs, so the encodings and their bounds are shared with EncodedLongColumn,
+ * and are narrowed back to ints as they are decoded. Low cardinality codes, such as those of a
+ * DictionaryColumn, typically take a few bits per row against 32 bits as plain values.
+ */
+public final class EncodedIntColumn implements IntColumn, EncodedColumn {
+
+    private final String name;
+    private final PackedLongs values;
+    private final Validity validity;
+
+    /**
+     * Constructor
+     * @param name      the column name
+     * @param values    the encoded values, which must all fit in an int
+     * @param validity  the validity bitmap, which is shared rather than copied
+     */
+    EncodedIntColumn(String name, PackedLongs values, Validity validity) {
+        this.name = Objects.requireNonNull(name, "The column name cannot be null");
+        this.values = Objects.requireNonNull(values, "The column values cannot be null");
+        this.validity = Objects.requireNonNull(validity, "The column validity cannot be null");
+        if (validity.length() != values.length) {
+            throw new IllegalArgumentException("Validity length " + validity.length() + " does not match column length " + values.length);
+        }
+    }
+
+    /**
+     * Returns a copy of a column in whichever encoding holds it in the fewest bytes
+     * @param column    the column to encode
+     * @return          the encoded column
+     */
+    public static EncodedIntColumn of(IntColumn column) {
+        return of(column, PackedLongs.choose(source(column), column.length()));
+    }
+
+    /**
+     * Returns a copy of a column in the encoding specified
+     * @param column    the column to encode
+     * @param encoding  the encoding
+     * @return          the encoded column
+     */
+    public static EncodedIntColumn of(IntColumn column, Encoding encoding) {
+        final PackedLongs values = PackedLongs.encode(source(column), column.length(), encoding);
+        return new EncodedIntColumn(column.name(), values, column.validity().copy());
+    }
+
+    /**
+     * Returns a column from values serialized by toWords()
+     * @param name      the column name
+     * @param words     the serialized values
+     * @param validity  the validity bitmap, which is shared rather than copied
+     * @return          the encoded column
+     * @throws IllegalArgumentException if the words are not serialized int values of the same length as the validity
+     */
+    public static EncodedIntColumn fromWords(String name, long[] words, Validity validity) {
+        final PackedLongs values = PackedLongs.fromWords(words);
+        if (values.lowerBound(0, values.length) < Integer.MIN_VALUE || values.upperBound(0, values.length) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Encoded column " + name + " holds values outside the range of an int");
+        }
+        return new EncodedIntColumn(name, values, validity);
+    }
+
+    /**
+     * Returns a source that widens the values of a column to longs, a block at a time
+     */
+    private static PackedLongs.Source source(IntColumn column) {
+        final int[] buffer = new int[PackedLongs.BLOCK_SIZE];
+        return (from, dst, count) -> {
+            column.getInts(from, buffer, 0, count);
+            for (int i = 0; i < count; ++i) {
+                dst[i] = buffer[i];
+            }
+        };
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public Storage storage() {
+        return Storage.HEAP;
+    }
+
+    @Override
+    public int length() {
+        return values.length;
+    }
+
+    @Override
+    public Validity validity() {
+        return validity;
+    }
+
+    @Override
+    public Encoding encoding() {
+        return values.encoding();
+    }
+
+    @Override
+    public long encodedBytes() {
+        return values.bytes();
+    }
+
+    @Override
+    public int getInt(int row) {
+        if (row < 0 || row >= values.length) {
+            throw new IndexOutOfBoundsException("Row " + row + " is out of bounds for length " + values.length);
+        }
+        return (int)values.get(row);
+    }
+
+    @Override
+    public void setInt(int row, int value) {
+        throw EncodedLongColumn.readOnly();
+    }
+
+    @Override
+    public void setNull(int row) {
+        throw EncodedLongColumn.readOnly();
+    }
+
+    @Override
+    public void getInts(int from, int[] dst, int offset, int length) {
+        Objects.checkFromIndexSize(from, length, values.length);
+        values.decode(from, dst, offset, length);
+    }
+
+    @Override
+    public void getDoubles(int from, double[] dst, int offset, int length) {
+        Objects.checkFromIndexSize(from, length, values.length);
+        values.decode(from, dst, offset, length);
+        validity.fill(from, dst, offset, length, Double.NaN);
+    }
+
+    @Override
+    public void setInts(int from, int[] src, int offset, int length) {
+        throw EncodedLongColumn.readOnly();
+    }
+
+    @Override
+    public long lowerBound(int from, int to) {
+        return values.lowerBound(from, to);
+    }
+
+    @Override
+    public long upperBound(int from, int to) {
+        return values.upperBound(from, to);
+    }
+
+    @Override
+    public long sumLong() {
+        return values.sum();
+    }
+
+    @Override
+    public long[] toWords() {
+        return values.toWords();
+    }
+
+    @Override
+    public IntColumn rename(String name) {
+        return new EncodedIntColumn(name, values, validity);
+    }
+
+    @Override
+    public IntColumn take(int[] rows) {
+        final long[] gathered = new long[rows.length];
+        values.gather(rows, gathered);
+        final int[] result = new int[rows.length];
+        for (int i = 0; i < rows.length; ++i) {
+            result[i] = (int)gathered[i];
+        }
+        return new IntArrayColumn(name, result, validity.take(rows));
+    }
+
+    @Override
+    public String toString() {
+        return "IntColumn(" + name + ", length=" + values.length + ", encoding=" + values.encoding() + ")";
+    }
+}
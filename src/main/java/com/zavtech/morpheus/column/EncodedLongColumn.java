@@ -0,0 +1,182 @@
+package com.zavtech.morpheus.column;
+
+import java.util.Objects;
+
+/**
+ * A read only LongColumn held in a compressed Encoding on the Java heap.
+ *
+ * Sorted timestamps typically take one or two bits per row in the delta encoding, and low
+ * cardinality codes a few bits per row in the frame of reference encoding, against 64 bits as
+ * plain values. Batch reads decode straight into the destination array, and operations that take
+ * rows produce plain array columns, which are writable as usual.
+ */
+public final class EncodedLongColumn implements LongColumn, EncodedColumn {
+
+    private final String name;
+    private final PackedLongs values;
+    private final Validity validity;
+
+    /**
+     * Constructor
+     * @param name      the column name
+     * @param values    the encoded values
+     * @param validity  the validity bitmap, which is shared rather than copied
+     */
+    EncodedLongColumn(String name, PackedLongs values, Validity validity) {
+        this.name = Objects.requireNonNull(name, "The column name cannot be null");
+        this.values = Objects.requireNonNull(values, "The column values cannot be null");
+        this.validity = Objects.requireNonNull(validity, "The column validity cannot be null");
+        if (validity.length() != values.length) {
+            throw new IllegalArgumentException("Validity length " + validity.length() + " does not match column length " + values.length);
+        }
+    }
+
+    /**
+     * Returns a copy of a column in whichever encoding holds it in the fewest bytes
+     * @param column    the column to encode
+     * @return          the encoded column
+     */
+    public static EncodedLongColumn of(LongColumn column) {
+        return of(column, PackedLongs.choose(source(column), column.length()));
+    }
+
+    /**
+     * Returns a copy of a column in the encoding specified
+     * @param column    the column to encode
+     * @param encoding  the encoding
+     * @return          the encoded column
+     */
+    public static EncodedLongColumn of(LongColumn column, Encoding encoding) {
+        final PackedLongs values = PackedLongs.encode(source(column), column.length(), encoding);
+        return new EncodedLongColumn(column.name(), values, column.validity().copy());
+    }
+
+    /**
+     * Returns a column from values serialized by toWords()
+     * @param name      the column name
+     * @param words     the serialized values
+     * @param validity  the validity bitmap, which is shared rather than copied
+     * @return          the encoded column
+     * @throws IllegalArgumentException if the words are not serialized values of the same length as the validity
+     */
+    public static EncodedLongColumn fromWords(String name, long[] words, Validity validity) {
+        return new EncodedLongColumn(name, PackedLongs.fromWords(words), validity);
+    }
+
+    /**
+     * Returns a source that reads the values of a column a block at a time
+     */
+    private static PackedLongs.Source source(LongColumn column) {
+        return (from, dst, count) -> column.getLongs(from, dst, 0, count);
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public Storage storage() {
+        return Storage.HEAP;
+    }
+
+    @Override
+    public int length() {
+        return values.length;
+    }
+
+    @Override
+    public Validity validity() {
+        return validity;
+    }
+
+    @Override
+    public Encoding encoding() {
+        return values.encoding();
+    }
+
+    @Override
+    public long encodedBytes() {
+        return values.bytes();
+    }
+
+    @Override
+    public long getLong(int row) {
+        if (row < 0 || row >= values.length) {
+            throw new IndexOutOfBoundsException("Row " + row + " is out of bounds for length " + values.length);
+        }
+        return values.get(row);
+    }
+
+    @Override
+    public void setLong(int row, long value) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setNull(int row) {
+        throw readOnly();
+    }
+
+    @Override
+    public void getLongs(int from, long[] dst, int offset, int length) {
+        Objects.checkFromIndexSize(from, length, values.length);
+        values.decode(from, dst, offset, length);
+    }
+
+    @Override
+    public void getDoubles(int from, double[] dst, int offset, int length) {
+        Objects.checkFromIndexSize(from, length, values.length);
+        values.decode(from, dst, offset, length);
+        validity.fill(from, dst, offset, length, Double.NaN);
+    }
+
+    @Override
+    public void setLongs(int from, long[] src, int offset, int length) {
+        throw readOnly();
+    }
+
+    @Override
+    public long lowerBound(int from, int to) {
+        return values.lowerBound(from, to);
+    }
+
+    @Override
+    public long upperBound(int from, int to) {
+        return values.upperBound(from, to);
+    }
+
+    @Override
+    public long sumLong() {
+        return values.sum();
+    }
+
+    @Override
+    public long[] toWords() {
+        return values.toWords();
+    }
+
+    @Override
+    public LongColumn rename(String name) {
+        return new EncodedLongColumn(name, values, validity);
+    }
+
+    @Override
+    public LongColumn take(int[] rows) {
+        final long[] result = new long[rows.length];
+        values.gather(rows, result);
+        return new LongArrayColumn(name, result, validity.take(rows));
+    }
+
+    /**
+     * Returns the exception thrown by attempts to modify an encoded column
+     */
+    static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Encoded columns are read only");
+    }
+
+    @Override
+    public String toString() {
+        return "LongColumn(" + name + ", length=" + values.length + ", encoding=" + values.encoding() + ")";
+    }
+}
@@ -0,0 +1,21 @@
+package com.zavtech.morpheus.column;
+
+/**
+ * Enumerates the compressed encodings of integer columns, see EncodedColumn.
+ *
+ * The delta and frame of reference encodings split a column into blocks of 1024 rows and bit-pack
+ * the offsets of each block with the width of its widest offset, so a block takes 16 words per bit
+ * of width plus a small header, and a block of equal offsets takes no words at all. Each block also
+ * records the min and max of its values, which lets scans skip blocks that cannot match.
+ */
+public enum Encoding {
+
+    /** Runs of equal values, each kept as a value and an end row, for sorted keys and mostly constant values */
+    RUN_LENGTH,
+
+    /** Differences between consecutive values as offsets from the least difference of each block, for sorted timestamps and sequences */
+    DELTA,
+
+    /** Values as offsets from the least value of each block, for low cardinality and narrow range values */
+    FRAME_OF_REFERENCE
+}
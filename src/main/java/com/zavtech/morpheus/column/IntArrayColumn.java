@@ -0,0 +1,115 @@
+package com.zavtech.morpheus.column;
+
+import java.util.Objects;
+
+/**
+ * An IntColumn backed by a primitive int array on the Java heap.
+ */
+public final class IntArrayColumn implements IntColumn {
+
+    private final String name;
+    private final int[] values;
+    private final Validity validity;
+
+    /**
+     * Constructor
+     * @param name      the column name
+     * @param values    the backing array, which is not copied
+     */
+    public IntArrayColumn(String name, int[] values) {
+        this(name, values, new Validity(values.length));
+    }
+
+    /**
+     * Constructor
+     * @param name      the column name
+     * @param values    the backing array, which is not copied
+     * @param validity  the validity bitmap, which is shared rather than copied
+     */
+    public IntArrayColumn(String name, int[] values, Validity validity) {
+        this.name = Objects.requireNonNull(name, "The column name cannot be null");
+        this.values = Objects.requireNonNull(values, "The column values cannot be null");
+        this.validity = Objects.requireNonNull(validity, "The column validity cannot be null");
+        if (validity.length() != values.length) {
+            throw new IllegalArgumentException("Validity length " + validity.length() + " does not match column length " + values.length);
+        }
+    }
+
+    /**
+     * Returns the backing array for this column, for use by array based kernels
+     * @return  the backing array
+     */
+    public int[] values() {
+        return values;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public Storage storage() {
+        return Storage.HEAP;
+    }
+
+    @Override
+    public int length() {
+        return values.length;
+    }
+
+    @Override
+    public Validity validity() {
+        return validity;
+    }
+
+    @Override
+    public int getInt(int row) {
+        return values[row];
+    }
+
+    @Override
+    public void setInt(int row, int value) {
+        this.values[row] = value;
+        this.validity.setValid(row);
+    }
+
+    @Override
+    public void getInts(int from, int[] dst, int offset, int length) {
+        System.arraycopy(values, from, dst, offset, length);
+    }
+
+    @Override
+    public void getDoubles(int from, double[] dst, int offset, int length) {
+        for (int i = 0; i < length; ++i) {
+            dst[offset + i] = values[from + i];
+        }
+        validity.fill(from, dst, offset, length, Double.NaN);
+    }
+
+    @Override
+    public void setInts(int from, int[] src, int offset, int length) {
+        System.arraycopy(src, offset, values, from, length);
+        this.validity.setValid(from, length);
+    }
+
+    @Override
+    public IntColumn rename(String name) {
+        return new IntArrayColumn(name, values, validity);
+    }
+
+    @Override
+    public IntColumn take(int[] rows) {
+        final int[] result = new int[rows.length];
+        for (int i = 0; i < rows.length; ++i) {
+            final int row = rows[i];
+            result[i] = row < 0 ? 0 : values[row];
+        }
+        return new IntArrayColumn(name, result, validity.take(rows));
+    }
+
+    @Override
+    public String toString() {
+        return "IntColumn(" + name + ", length=" + values.length + ")";
+    }
+}
@@ -0,0 +1,92 @@
+package com.zavtech.morpheus.column;
+
+import com.zavtech.morpheus.memory.BufferMemory;
+
+/**
+ * A IntColumn whose values are held in a BufferMemory region outside the Java heap.
+ */
+public final class IntBufferColumn extends BufferColumn implements IntColumn {
+
+    /**
+     * Constructor
+     * @param name      the column name
+     * @param memory    the memory region holding values
+     * @param offset    the byte offset of the first value in the region
+     * @param length    the number of values in the column
+     * @param storage   the storage type reported by this column
+     */
+    public IntBufferColumn(String name, BufferMemory memory, long offset, int length, Storage storage) {
+        this(name, memory, offset, length, storage, new Validity(length));
+    }
+
+    /**
+     * Constructor
+     * @param name      the column name
+     * @param memory    the memory region holding values
+     * @param offset    the byte offset of the first value in the region
+     * @param length    the number of values in the column
+     * @param storage   the storage type reported by this column
+     * @param validity  the validity bitmap, which is shared rather than copied
+     */
+    public IntBufferColumn(String name, BufferMemory memory, long offset, int length, Storage storage, Validity validity) {
+        super(name, memory, offset, length, storage, validity);
+    }
+
+    /**
+     * Returns a newly allocated off-heap column of the length specified, initialized to zero
+     * @param name      the column name
+     * @param length    the column length
+     * @return          the newly created column
+     */
+    public static IntBufferColumn allocate(String name, int length) {
+        return new IntBufferColumn(name, BufferMemory.allocate((long)length << 2), 0L, length, Storage.OFF_HEAP);
+    }
+
+    @Override
+    public int getInt(int row) {
+        return memory().getInt(offset() + ((long)row << 2));
+    }
+
+    @Override
+    public void setInt(int row, int value) {
+        memory().putInt(offset() + ((long)row << 2), value);
+        validity().setValid(row);
+    }
+
+    @Override
+    public void getInts(int from, int[] dst, int offset, int length) {
+        memory().getInts(offset() + ((long)from << 2), dst, offset, length);
+    }
+
+    @Override
+    public void setInts(int from, int[] src, int offset, int length) {
+        memory().putInts(offset() + ((long)from << 2), src, offset, length);
+        validity().setValid(from, length);
+    }
+
+    @Override
+    public void getDoubles(int from, double[] dst, int offset, int length) {
+        for (int i = 0; i < length; ++i) {
+            dst[offset + i] = getInt(from + i);
+        }
+        validity().fill(from, dst, offset, length, Double.NaN);
+    }
+
+    @Override
+    public IntColumn rename(String name) {
+        return new IntBufferColumn(name, memory(), offset(), length(), storage(), validity());
+    }
+
+    @Override
+    public IntColumn take(int[] rows) {
+        final IntBufferColumn result = allocate(name(), rows.length);
+        for (int i = 0; i < rows.length; ++i) {
+            if (rows[i] < 0 || isNull(rows[i])) {
+                result.setNull(i);
+            } else {
+                result.setInt(i, getInt(rows[i]));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,66 @@
+package com.zavtech.morpheus.column;
+
+/**
+ * A Column of primitive 32-bit integer values.
+ */
+public interface IntColumn extends NumericColumn {
+
+    /**
+     * Returns the value at the row specified
+     * @param row   the row index
+     * @return      the int value
+     */
+    int getInt(int row);
+
+    /**
+     * Sets the value at the row specified
+     * @param row       the row index
+     * @param value     the value to assign
+     */
+    void setInt(int row, int value);
+
+    /**
+     * Copies a contiguous range of values into the array provided
+     * @param from      the first row to copy
+     * @param dst       the destination array
+     * @param offset    the offset into the destination array
+     * @param length    the number of values to copy
+     */
+    void getInts(int from, int[] dst, int offset, int length);
+
+    /**
+     * Copies a contiguous range of values from the array provided into this column
+     * @param from      the first row to write
+     * @param src       the source array
+     * @param offset    the offset into the source array
+     * @param length    the number of values to copy
+     */
+    void setInts(int from, int[] src, int offset, int length);
+
+    @Override
+    default ColumnType type() {
+        return ColumnType.INT;
+    }
+
+    @Override
+    default double getDouble(int row) {
+        return isNull(row) ? Double.NaN : getInt(row);
+    }
+
+    @Override
+    default Object getValue(int row) {
+        return isNull(row) ? null : getInt(row);
+    }
+
+    @Override
+    default void setNull(int row) {
+        setInt(row, 0);
+        validity().setNull(row);
+    }
+
+    @Override
+    IntColumn rename(String name);
+
+    @Override
+    IntColumn take(int[] rows);
+}
@@ -0,0 +1,115 @@
+package com.zavtech.morpheus.column;
+
+import java.util.Objects;
+
+/**
+ * A LongColumn backed by a primitive long array on the Java heap.
+ */
+public final class LongArrayColumn implements LongColumn {
+
+    private final String name;
+    private final long[] values;
+    private final Validity validity;
+
+    /**
+     * Constructor
+     * @param name      the column name
+     * @param values    the backing array, which is not copied
+     */
+    public LongArrayColumn(String name, long[] values) {
+        this(name, values, new Validity(values.length));
+    }
+
+    /**
+     * Constructor
+     * @param name      the column name
+     * @param values    the backing array, which is not copied
+     * @param validity  the validity bitmap, which is shared rather than copied
+     */
+    public LongArrayColumn(String name, long[] values, Validity validity) {
+        this.name = Objects.requireNonNull(name, "The column name cannot be null");
+        this.values = Objects.requireNonNull(values, "The column values cannot be null");
+        this.validity = Objects.requireNonNull(validity, "The column validity cannot be null");
+        if (validity.length() != values.length) {
+            throw new IllegalArgumentException("Validity length " + validity.length() + " does not match column length " + values.length);
+        }
+    }
+
+    /**
+     * Returns the backing array for this column, for use by array based kernels
+     * @return  the backing array
+     */
+    public long[] values() {
+        return values;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public Storage storage() {
+        return Storage.HEAP;
+    }
+
+    @Override
+    public int length() {
+        return values.length;
+    }
+
+    @Override
+    public Validity validity() {
+        return validity;
+    }
+
+    @Override
+    public long getLong(int row) {
+        return values[row];
+    }
+
+    @Override
+    public void setLong(int row, long value) {
+        this.values[row] = value;
+        this.validity.setValid(row);
+    }
+
+    @Override
+    public void getLongs(int from, long[] dst, int offset, int length) {
+        System.arraycopy(values, from, dst, offset, length);
+    }
+
+    @Override
+    public void getDoubles(int from, double[] dst, int offset, int length) {
+        for (int i = 0; i < length; ++i) {
+            dst[offset + i] = values[from + i];
+        }
+        validity.fill(from, dst, offset, length, Double.NaN);
+    }
+
+    @Override
+    public void setLongs(int from, long[] src, int offset, int length) {
+        System.arraycopy(src, offset, values, from, length);
+        this.validity.setValid(from, length);
+    }
+
+    @Override
+    public LongColumn rename(String name) {
+        return new LongArrayColumn(name, values, validity);
+    }
+
+    @Override
+    public LongColumn take(int[] rows) {
+        final long[] result = new long[rows.length];
+        for (int i = 0; i < rows.length; ++i) {
+            final int row = rows[i];
+            result[i] = row < 0 ? 0L : values[row];
+        }
+        return new LongArrayColumn(name, result, validity.take(rows));
+    }
+
+    @Override
+    public String toString() {
+        return "LongColumn(" + name + ", length=" + values.length + ")";
+    }
+}
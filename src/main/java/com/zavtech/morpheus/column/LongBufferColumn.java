@@ -0,0 +1,92 @@
+package com.zavtech.morpheus.column;
+
+import com.zavtech.morpheus.memory.BufferMemory;
+
+/**
+ * A LongColumn whose values are held in a BufferMemory region outside the Java heap.
+ */
+public final class LongBufferColumn extends BufferColumn implements LongColumn {
+
+    /**
+     * Constructor
+     * @param name      the column name
+     * @param memory    the memory region holding values
+     * @param offset    the byte offset of the first value in the region
+     * @param length    the number of values in the column
+     * @param storage   the storage type reported by this column
+     */
+    public LongBufferColumn(String name, BufferMemory memory, long offset, int length, Storage storage) {
+        this(name, memory, offset, length, storage, new Validity(length));
+    }
+
+    /**
+     * Constructor
+     * @param name      the column name
+     * @param memory    the memory region holding values
+     * @param offset    the byte offset of the first value in the region
+     * @param length    the number of values in the column
+     * @param storage   the storage type reported by this column
+     * @param validity  the validity bitmap, which is shared rather than copied
+     */
+    public LongBufferColumn(String name, BufferMemory memory, long offset, int length, Storage storage, Validity validity) {
+        super(name, memory, offset, length, storage, validity);
+    }
+
+    /**
+     * Returns a newly allocated off-heap column of the length specified, initialized to zero
+     * @param name      the column name
+     * @param length    the column length
+     * @return          the newly created column
+     */
+    public static LongBufferColumn allocate(String name, int length) {
+        return new LongBufferColumn(name, BufferMemory.allocate((long)length << 3), 0L, length, Storage.OFF_HEAP);
+    }
+
+    @Override
+    public long getLong(int row) {
+        return memory().getLong(offset() + ((long)row << 3));
+    }
+
+    @Override
+    public void setLong(int row, long value) {
+        memory().putLong(offset() + ((long)row << 3), value);
+        validity().setValid(row);
+    }
+
+    @Override
+    public void getLongs(int from, long[] dst, int offset, int length) {
+        memory().getLongs(offset() + ((long)from << 3), dst, offset, length);
+    }
+
+    @Override
+    public void setLongs(int from, long[] src, int offset, int length) {
+        memory().putLongs(offset() + ((long)from << 3), src, offset, length);
+        validity().setValid(from, length);
+    }
+
+    @Override
+    public void getDoubles(int from, double[] dst, int offset, int length) {
+        for (int i = 0; i < length; ++i) {
+            dst[offset + i] = getLong(from + i);
+        }
+        validity().fill(from, dst, offset, length, Double.NaN);
+    }
+
+    @Override
+    public LongColumn rename(String name) {
+        return new LongBufferColumn(name, memory(), offset(), length(), storage(), validity());
+    }
+
+    @Override
+    public LongColumn take(int[] rows) {
+        final LongBufferColumn result = allocate(name(), rows.length);
+        for (int i = 0; i < rows.length; ++i) {
+            if (rows[i] < 0 || isNull(rows[i])) {
+                result.setNull(i);
+            } else {
+                result.setLong(i, getLong(rows[i]));
+            }
+        }
+        return result;
+    }
+}
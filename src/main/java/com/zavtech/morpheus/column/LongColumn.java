@@ -0,0 +1,66 @@
+package com.zavtech.morpheus.column;
+
+/**
+ * A Column of primitive 64-bit integer values.
+ */
+public interface LongColumn extends NumericColumn {
+
+    /**
+     * Returns the value at the row specified
+     * @param row   the row index
+     * @return      the long value
+     */
+    long getLong(int row);
+
+    /**
+     * Sets the value at the row specified
+     * @param row       the row index
+     * @param value     the value to assign
+     */
+    void setLong(int row, long value);
+
+    /**
+     * Copies a contiguous range of values into the array provided
+     * @param from      the first row to copy
+     * @param dst       the destination array
+     * @param offset    the offset into the destination array
+     * @param length    the number of values to copy
+     */
+    void getLongs(int from, long[] dst, int offset, int length);
+
+    /**
+     * Copies a contiguous range of values from the array provided into this column
+     * @param from      the first row to write
+     * @param src       the source array
+     * @param offset    the offset into the source array
+     * @param length    the number of values to copy
+     */
+    void setLongs(int from, long[] src, int offset, int length);
+
+    @Override
+    default ColumnType type() {
+        return ColumnType.LONG;
+    }
+
+    @Override
+    default double getDouble(int row) {
+        return isNull(row) ? Double.NaN : getLong(row);
+    }
+
+    @Override
+    default Object getValue(int row) {
+        return isNull(row) ? null : getLong(row);
+    }
+
+    @Override
+    default void setNull(int row) {
+        setLong(row, 0L);
+        validity().setNull(row);
+    }
+
+    @Override
+    LongColumn rename(String name);
+
+    @Override
+    LongColumn take(int[] rows);
+}
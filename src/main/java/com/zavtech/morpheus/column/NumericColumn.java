@@ -0,0 +1,24 @@
+package com.zavtech.morpheus.column;
+
+/**
+ * A Column whose values can be widened to double precision, which is the common
+ * currency for statistical kernels.
+ */
+public interface NumericColumn extends Column {
+
+    /**
+     * Returns the value at the row specified widened to a double
+     * @param row   the row index
+     * @return      the value as a double, or NaN if the row is null
+     */
+    double getDouble(int row);
+
+    /**
+     * Copies a contiguous range of values, widened to double, into the array provided, with NaN for null rows
+     * @param from      the first row to copy
+     * @param dst       the destination array
+     * @param offset    the offset into the destination array
+     * @param length    the number of values to copy
+     */
+    void getDoubles(int from, double[] dst, int offset, int length);
+}
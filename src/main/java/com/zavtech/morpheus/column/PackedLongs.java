@@ -0,0 +1,749 @@
+package com.zavtech.morpheus.column;
+
+import java.util.Arrays;
+
+/**
+ * An immutable sequence of longs held in one of the encodings of Encoding, which decodes ranges of values in tight loops.
+ *
+ * Runs are found by a binary search on their end rows and decoded by filling. Blocks are unpacked a
+ * value at a time from the packed words with a shift and a mask, to which frame of reference blocks
+ * add their base, while delta blocks are summed in place. Decoding from the start of a block, as
+ * batch scans aligned to the block size do, needs no scratch space, while decoding from within a
+ * delta block first decodes the values that precede the range into a thread local buffer.
+ */
+abstract class PackedLongs {
+
+    static final int BLOCK_SHIFT = 10;
+    static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+    private static final ThreadLocal<long[]> SCRATCH = ThreadLocal.withInitial(() -> new long[BLOCK_SIZE]);
+    private static final ThreadLocal<long[]> BUFFER = ThreadLocal.withInitial(() -> new long[BLOCK_SIZE]);
+
+    final int length;
+
+    /**
+     * Constructor
+     * @param length    the number of values
+     */
+    PackedLongs(int length) {
+        this.length = length;
+    }
+
+    /**
+     * Reads consecutive values of the sequence to be encoded
+     */
+    interface Source {
+
+        /**
+         * Reads a range of values into the array specified
+         * @param from  the first row to read
+         * @param dst   the destination array, from index zero
+         * @param count the number of values to read
+         */
+        void read(int from, long[] dst, int count);
+    }
+
+    /**
+     * Returns the values of a source in the encoding specified
+     * @param source    the source of values
+     * @param length    the number of values
+     * @param encoding  the encoding
+     * @return          the encoded values
+     */
+    static PackedLongs encode(Source source, int length, Encoding encoding) {
+        switch (encoding) {
+            case RUN_LENGTH:            return Runs.encode(source, length);
+            case DELTA:                 return Blocks.encode(source, length, true);
+            case FRAME_OF_REFERENCE:    return Blocks.encode(source, length, false);
+            default:                    throw new IllegalArgumentException("Unsupported encoding: " + encoding);
+        }
+    }
+
+    /**
+     * Returns the encoding that holds the values of a source in the fewest bytes, sizing all of them in one pass.
+     * Ties favour frame of reference, which has the cheapest random access, and then runs.
+     * @param source    the source of values
+     * @param length    the number of values
+     * @return          the smallest encoding
+     */
+    static Encoding choose(Source source, int length) {
+        final long[] block = new long[BLOCK_SIZE];
+        long runs = 0L;
+        long last = 0L;
+        long referenceBytes = 0L;
+        long deltaBytes = 0L;
+        for (int from = 0; from < length; from += BLOCK_SIZE) {
+            final int count = Math.min(BLOCK_SIZE, length - from);
+            source.read(from, block, count);
+            long min = block[0];
+            long max = block[0];
+            long minDelta = count > 1 ? block[1] - block[0] : 0L;
+            long maxDelta = minDelta;
+            for (int i = 0; i < count; ++i) {
+                final long value = block[i];
+                if (from + i == 0 || value != last) {
+                    runs++;
+                }
+                last = value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+                if (i > 0) {
+                    final long delta = value - block[i - 1];
+                    minDelta = Math.min(minDelta, delta);
+                    maxDelta = Math.max(maxDelta, delta);
+                }
+            }
+            referenceBytes += Blocks.bytes(count, width(max - min));
+            deltaBytes += Blocks.bytes(count, width(maxDelta - minDelta));
+        }
+        final long runBytes = runs * Runs.BYTES_PER_RUN;
+        if (referenceBytes <= runBytes && referenceBytes <= deltaBytes) {
+            return Encoding.FRAME_OF_REFERENCE;
+        } else {
+            return runBytes <= deltaBytes ? Encoding.RUN_LENGTH : Encoding.DELTA;
+        }
+    }
+
+    /**
+     * Returns the number of bits needed to hold the unsigned value specified
+     */
+    static int width(long value) {
+        return 64 - Long.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * Returns the encoding of this sequence
+     * @return  the encoding
+     */
+    abstract Encoding encoding();
+
+    /**
+     * Returns the value at the row specified
+     * @param row   the row index
+     * @return      the value
+     */
+    abstract long get(int row);
+
+    /**
+     * Decodes a range of values into the array specified
+     * @param from      the first row to decode
+     * @param dst       the destination array
+     * @param offset    the offset into the destination array
+     * @param count     the number of values to decode
+     */
+    abstract void decode(int from, long[] dst, int offset, int count);
+
+    /**
+     * Returns a lower bound of the values in a range of rows, which is exact for a range of whole blocks or runs
+     * @param from  the first row of the range
+     * @param to    the end row of the range, exclusive
+     * @return      the lower bound, or Long.MAX_VALUE for an empty range
+     */
+    abstract long lowerBound(int from, int to);
+
+    /**
+     * Returns an upper bound of the values in a range of rows, which is exact for a range of whole blocks or runs
+     * @param from  the first row of the range
+     * @param to    the end row of the range, exclusive
+     * @return      the upper bound, or Long.MIN_VALUE for an empty range
+     */
+    abstract long upperBound(int from, int to);
+
+    /**
+     * Returns the sum of all values, which wraps on overflow
+     * @return  the sum
+     */
+    abstract long sum();
+
+    /**
+     * Returns the number of bytes held by this sequence
+     * @return  the footprint in bytes
+     */
+    abstract long bytes();
+
+    /**
+     * Returns this sequence serialized as words, in the form read by fromWords()
+     * @return  the serialized sequence
+     */
+    abstract long[] toWords();
+
+    /**
+     * Returns a sequence serialized by toWords()
+     * @param words the serialized sequence
+     * @return      the sequence
+     * @throws IllegalArgumentException if the words are not a serialized sequence
+     */
+    static PackedLongs fromWords(long[] words) {
+        if (words.length < 3 || words[0] < 0 || words[0] >= Encoding.values().length) {
+            throw new IllegalArgumentException("Corrupt encoded column");
+        }
+        final Encoding encoding = Encoding.values()[(int)words[0]];
+        return encoding == Encoding.RUN_LENGTH ? Runs.fromWords(words) : Blocks.fromWords(words, encoding == Encoding.DELTA);
+    }
+
+    /**
+     * Decodes a range of values widened to doubles into the array specified
+     * @param from      the first row to decode
+     * @param dst       the destination array
+     * @param offset    the offset into the destination array
+     * @param count     the number of values to decode
+     */
+    void decode(int from, double[] dst, int offset, int count) {
+        final long[] buffer = BUFFER.get();
+        for (int done = 0; done < count; done += BLOCK_SIZE) {
+            final int n = Math.min(BLOCK_SIZE, count - done);
+            decode(from + done, buffer, 0, n);
+            for (int i = 0; i < n; ++i) {
+                dst[offset + done + i] = buffer[i];
+            }
+        }
+    }
+
+    /**
+     * Decodes a range of values narrowed to ints into the array specified
+     * @param from      the first row to decode
+     * @param dst       the destination array
+     * @param offset    the offset into the destination array
+     * @param count     the number of values to decode
+     */
+    void decode(int from, int[] dst, int offset, int count) {
+        final long[] buffer = BUFFER.get();
+        for (int done = 0; done < count; done += BLOCK_SIZE) {
+            final int n = Math.min(BLOCK_SIZE, count - done);
+            decode(from + done, buffer, 0, n);
+            for (int i = 0; i < n; ++i) {
+                dst[offset + done + i] = (int)buffer[i];
+            }
+        }
+    }
+
+    /**
+     * Gathers the values at the rows specified, where a negative row yields zero
+     * @param rows  the row indexes
+     * @param dst   the destination array, of the same length as the rows
+     */
+    void gather(int[] rows, long[] dst) {
+        for (int i = 0; i < rows.length; ++i) {
+            dst[i] = rows[i] < 0 ? 0L : get(rows[i]);
+        }
+    }
+
+
+    /**
+     * A run length encoded sequence, as the value and exclusive end row of each run
+     */
+    static final class Runs extends PackedLongs {
+
+        static final int BYTES_PER_RUN = 12;
+
+        private final long[] values;
+        private final int[] ends;
+
+        /**
+         * Constructor
+         * @param length    the number of values
+         * @param values    the value of each run
+         * @param ends      the exclusive end row of each run, ascending
+         */
+        Runs(int length, long[] values, int[] ends) {
+            super(length);
+            this.values = values;
+            this.ends = ends;
+        }
+
+        /**
+         * Returns the run length encoding of a source
+         */
+        static Runs encode(Source source, int length) {
+            final long[] block = new long[BLOCK_SIZE];
+            long[] values = new long[16];
+            int[] ends = new int[16];
+            int runs = 0;
+            for (int from = 0; from < length; from += BLOCK_SIZE) {
+                final int count = Math.min(BLOCK_SIZE, length - from);
+                source.read(from, block, count);
+                for (int i = 0; i < count; ++i) {
+                    if (runs > 0 && block[i] == values[runs - 1]) {
+                        ends[runs - 1] = from + i + 1;
+                    } else {
+                        if (runs == values.length) {
+                            values = Arrays.copyOf(values, runs * 2);
+                            ends = Arrays.copyOf(ends, runs * 2);
+                        }
+                        values[runs] = block[i];
+                        ends[runs++] = from + i + 1;
+                    }
+                }
+            }
+            return new Runs(length, Arrays.copyOf(values, runs), Arrays.copyOf(ends, runs));
+        }
+
+        /**
+         * Returns a sequence serialized by toWords()
+         */
+        static Runs fromWords(long[] words) {
+            final int length = Math.toIntExact(words[1]);
+            final int runs = Math.toIntExact(words[2]);
+            if (words.length != 3 + 2L * runs) {
+                throw new IllegalArgumentException("Corrupt run length encoded column");
+            }
+            final long[] values = Arrays.copyOfRange(words, 3, 3 + runs);
+            final int[] ends = new int[runs];
+            for (int r = 0; r < runs; ++r) {
+                ends[r] = Math.toIntExact(words[3 + runs + r]);
+                if (ends[r] > length || (r > 0 && ends[r] <= ends[r - 1]) || (r == runs - 1 && ends[r] != length)) {
+                    throw new IllegalArgumentException("Corrupt run length encoded column");
+                }
+            }
+            return new Runs(length, values, ends);
+        }
+
+        /**
+         * Returns the index of the run that holds the row specified
+         */
+        private int run(int row) {
+            int low = 0;
+            int high = ends.length - 1;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (ends[mid] > row) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+
+        @Override
+        Encoding encoding() {
+            return Encoding.RUN_LENGTH;
+        }
+
+        @Override
+        long get(int row) {
+            return values[run(row)];
+        }
+
+        @Override
+        void decode(int from, long[] dst, int offset, int count) {
+            final int end = from + count;
+            int out = offset;
+            for (int r = count > 0 ? run(from) : 0, row = from; row < end; ++r) {
+                final int stop = Math.min(ends[r], end);
+                Arrays.fill(dst, out, out + stop - row, values[r]);
+                out += stop - row;
+                row = stop;
+            }
+        }
+
+        @Override
+        void decode(int from, double[] dst, int offset, int count) {
+            final int end = from + count;
+            int out = offset;
+            for (int r = count > 0 ? run(from) : 0, row = from; row < end; ++r) {
+                final int stop = Math.min(ends[r], end);
+                Arrays.fill(dst, out, out + stop - row, (double)values[r]);
+                out += stop - row;
+                row = stop;
+            }
+        }
+
+        @Override
+        long lowerBound(int from, int to) {
+            long min = Long.MAX_VALUE;
+            for (int r = from < to ? run(from) : ends.length; r < ends.length && (r == 0 || ends[r - 1] < to); ++r) {
+                min = Math.min(min, values[r]);
+            }
+            return min;
+        }
+
+        @Override
+        long upperBound(int from, int to) {
+            long max = Long.MIN_VALUE;
+            for (int r = from < to ? run(from) : ends.length; r < ends.length && (r == 0 || ends[r - 1] < to); ++r) {
+                max = Math.max(max, values[r]);
+            }
+            return max;
+        }
+
+        @Override
+        long sum() {
+            long sum = 0L;
+            for (int r = 0; r < ends.length; ++r) {
+                sum += values[r] * (ends[r] - (r > 0 ? ends[r - 1] : 0));
+            }
+            return sum;
+        }
+
+        @Override
+        long bytes() {
+            return 48L + (long)values.length * BYTES_PER_RUN;
+        }
+
+        @Override
+        long[] toWords() {
+            final int runs = values.length;
+            final long[] words = new long[3 + 2 * runs];
+            words[0] = Encoding.RUN_LENGTH.ordinal();
+            words[1] = length;
+            words[2] = runs;
+            System.arraycopy(values, 0, words, 3, runs);
+            for (int r = 0; r < runs; ++r) {
+                words[3 + runs + r] = ends[r];
+            }
+            return words;
+        }
+    }
+
+
+    /**
+     * A sequence of bit-packed blocks of offsets, either from the least value of the block or from the least difference between consecutive values
+     */
+    static final class Blocks extends PackedLongs {
+
+        private static final int HEADER_BYTES = 37;
+
+        private final boolean delta;
+        private final long[] bases;
+        private final long[] steps;
+        private final long[] mins;
+        private final long[] maxs;
+        private final byte[] widths;
+        private final int[] offsets;
+        private final long[] words;
+
+        /**
+         * Constructor
+         * @param length    the number of values
+         * @param delta     true for delta blocks, false for frame of reference blocks
+         * @param bases     the first value of each delta block, or the least value of each frame of reference block
+         * @param steps     the least difference between consecutive values of each delta block
+         * @param mins      the least value of each block
+         * @param maxs      the greatest value of each block
+         * @param widths    the width in bits of the offsets of each block
+         * @param offsets   the index of the first word of each block, followed by the number of words
+         * @param words     the packed offsets of all blocks
+         */
+        Blocks(int length, boolean delta, long[] bases, long[] steps, long[] mins, long[] maxs, byte[] widths, int[] offsets, long[] words) {
+            super(length);
+            this.delta = delta;
+            this.bases = bases;
+            this.steps = steps;
+            this.mins = mins;
+            this.maxs = maxs;
+            this.widths = widths;
+            this.offsets = offsets;
+            this.words = words;
+        }
+
+        /**
+         * Returns the number of bytes taken by a block of the length and width specified
+         */
+        static long bytes(int count, int width) {
+            return HEADER_BYTES + (((long)count * width + 63) >>> 6 << 3);
+        }
+
+        /**
+         * Returns the delta or frame of reference encoding of a source
+         */
+        static Blocks encode(Source source, int length, boolean delta) {
+            final int blockCount = (length + BLOCK_MASK) >>> BLOCK_SHIFT;
+            final long[] bases = new long[blockCount];
+            final long[] steps = new long[blockCount];
+            final long[] mins = new long[blockCount];
+            final long[] maxs = new long[blockCount];
+            final byte[] widths = new byte[blockCount];
+            final int[] offsets = new int[blockCount + 1];
+            final long[] block = new long[BLOCK_SIZE];
+            long[] words = new long[64];
+            int size = 0;
+            for (int b = 0; b < blockCount; ++b) {
+                final int count = Math.min(BLOCK_SIZE, length - (b << BLOCK_SHIFT));
+                source.read(b << BLOCK_SHIFT, block, count);
+                long min = block[0];
+                long max = block[0];
+                long step = count > 1 ? block[1] - block[0] : 0L;
+                for (int i = 0; i < count; ++i) {
+                    min = Math.min(min, block[i]);
+                    max = Math.max(max, block[i]);
+                    if (i > 0) {
+                        step = Math.min(step, block[i] - block[i - 1]);
+                    }
+                }
+                long bits = 0L;
+                if (delta) {
+                    bases[b] = block[0];
+                    steps[b] = step;
+                    for (int i = count - 1; i > 0; --i) {
+                        block[i] = block[i] - block[i - 1] - step;
+                        bits |= block[i];
+                    }
+                    block[0] = 0L;
+                } else {
+                    bases[b] = min;
+                    for (int i = 0; i < count; ++i) {
+                        block[i] -= min;
+                        bits |= block[i];
+                    }
+                }
+                final int width = width(bits);
+                final int needed = (int)(((long)count * width + 63) >>> 6);
+                if (size + needed > words.length) {
+                    words = Arrays.copyOf(words, Math.max(size + needed, words.length * 2));
+                }
+                pack(block, count, width, words, size);
+                mins[b] = min;
+                maxs[b] = max;
+                widths[b] = (byte)width;
+                offsets[b] = size;
+                size += needed;
+            }
+            offsets[blockCount] = size;
+            return new Blocks(length, delta, bases, steps, mins, maxs, widths, offsets, Arrays.copyOf(words, size));
+        }
+
+        /**
+         * Returns a sequence serialized by toWords()
+         */
+        static Blocks fromWords(long[] words, boolean delta) {
+            final int length = Math.toIntExact(words[1]);
+            final int blockCount = Math.toIntExact(words[2]);
+            if (blockCount != (length + BLOCK_MASK) >>> BLOCK_SHIFT || words.length < 3 + 5L * blockCount) {
+                throw new IllegalArgumentException("Corrupt block encoded column");
+            }
+            final long[] bases = Arrays.copyOfRange(words, 3, 3 + blockCount);
+            final long[] steps = Arrays.copyOfRange(words, 3 + blockCount, 3 + 2 * blockCount);
+            final long[] mins = Arrays.copyOfRange(words, 3 + 2 * blockCount, 3 + 3 * blockCount);
+            final long[] maxs = Arrays.copyOfRange(words, 3 + 3 * blockCount, 3 + 4 * blockCount);
+            final byte[] widths = new byte[blockCount];
+            final int[] offsets = new int[blockCount + 1];
+            final int start = 3 + 5 * blockCount;
+            long packed = 0L;
+            for (int b = 0; b < blockCount; ++b) {
+                final long header = words[3 + 4 * blockCount + b];
+                widths[b] = (byte)(header & 0xFF);
+                offsets[b] = Math.toIntExact(header >>> 8);
+                final int count = Math.min(BLOCK_SIZE, length - (b << BLOCK_SHIFT));
+                final long needed = ((long)count * widths[b] + 63) >>> 6;
+                if (widths[b] < 0 || widths[b] > 64 || offsets[b] + needed > words.length - start) {
+                    throw new IllegalArgumentException("Corrupt block encoded column");
+                }
+                packed += needed;
+            }
+            if (words.length - start < packed) {
+                throw new IllegalArgumentException("Corrupt block encoded column");
+            }
+            offsets[blockCount] = words.length - start;
+            return new Blocks(length, delta, bases, steps, mins, maxs, widths, offsets, Arrays.copyOfRange(words, start, words.length));
+        }
+
+        /**
+         * Packs values of the width specified into consecutive bits of the words from the offset specified, which must be zero
+         */
+        private static void pack(long[] values, int count, int width, long[] words, int offset) {
+            if (width > 0) {
+                long bit = 0L;
+                for (int i = 0; i < count; ++i, bit += width) {
+                    final int word = offset + (int)(bit >>> 6);
+                    final int shift = (int)(bit & 63);
+                    words[word] |= values[i] << shift;
+                    if (shift + width > 64) {
+                        words[word + 1] |= values[i] >>> (64 - shift);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Unpacks values of the width specified from consecutive bits of the words from the offset specified
+         */
+        private static void unpack(long[] words, int offset, int width, int from, int count, long[] dst, int out) {
+            if (width == 0) {
+                Arrays.fill(dst, out, out + count, 0L);
+            } else {
+                final long mask = width == 64 ? -1L : (1L << width) - 1L;
+                final long bit = (long)from * width;
+                int word = offset + (int)(bit >>> 6);
+                int shift = (int)(bit & 63);
+                for (int i = 0; i < count; ++i) {
+                    long value = words[word] >>> shift;
+                    shift += width;
+                    if (shift >= 64) {
+                        shift -= 64;
+                        word++;
+                        if (shift > 0) {
+                            value |= words[word] << (width - shift);
+                        }
+                    }
+                    dst[out + i] = value & mask;
+                }
+            }
+        }
+
+        /**
+         * Returns the packed offset at an index of a block
+         */
+        private long offset(int block, int index) {
+            final int width = widths[block];
+            if (width == 0) {
+                return 0L;
+            }
+            final long bit = (long)index * width;
+            final int word = offsets[block] + (int)(bit >>> 6);
+            final int shift = (int)(bit & 63);
+            long value = words[word] >>> shift;
+            if (shift + width > 64) {
+                value |= words[word + 1] << (64 - shift);
+            }
+            return width == 64 ? value : value & ((1L << width) - 1L);
+        }
+
+        @Override
+        Encoding encoding() {
+            return delta ? Encoding.DELTA : Encoding.FRAME_OF_REFERENCE;
+        }
+
+        @Override
+        long get(int row) {
+            final int block = row >>> BLOCK_SHIFT;
+            final int index = row & BLOCK_MASK;
+            if (!delta) {
+                return bases[block] + offset(block, index);
+            } else {
+                long value = bases[block];
+                for (int i = 1; i <= index; ++i) {
+                    value += steps[block] + offset(block, i);
+                }
+                return value;
+            }
+        }
+
+        @Override
+        void decode(int from, long[] dst, int offset, int count) {
+            final int end = from + count;
+            int out = offset;
+            for (int row = from; row < end; ) {
+                final int start = row & BLOCK_MASK;
+                final int n = Math.min(BLOCK_SIZE - start, end - row);
+                decode(row >>> BLOCK_SHIFT, start, n, dst, out);
+                row += n;
+                out += n;
+            }
+        }
+
+        /**
+         * Decodes a range of values of one block into the array specified
+         */
+        private void decode(int block, int start, int count, long[] dst, int out) {
+            final long base = bases[block];
+            if (!delta) {
+                unpack(words, offsets[block], widths[block], start, count, dst, out);
+                for (int i = 0; i < count; ++i) {
+                    dst[out + i] += base;
+                }
+            } else {
+                final long step = steps[block];
+                final long[] target = start == 0 ? dst : SCRATCH.get();
+                final int first = start == 0 ? out : 0;
+                unpack(words, offsets[block], widths[block], 0, start + count, target, first);
+                long value = base;
+                target[first] = value;
+                for (int i = 1; i < start + count; ++i) {
+                    value += step + target[first + i];
+                    target[first + i] = value;
+                }
+                if (start > 0) {
+                    System.arraycopy(target, start, dst, out, count);
+                }
+            }
+        }
+
+        @Override
+        void gather(int[] rows, long[] dst) {
+            if (!delta) {
+                super.gather(rows, dst);
+            } else {
+                final long[] values = new long[BLOCK_SIZE];
+                int cached = -1;
+                for (int i = 0; i < rows.length; ++i) {
+                    final int row = rows[i];
+                    if (row < 0) {
+                        dst[i] = 0L;
+                    } else {
+                        final int block = row >>> BLOCK_SHIFT;
+                        if (block != cached) {
+                            decode(block, 0, Math.min(BLOCK_SIZE, length - (block << BLOCK_SHIFT)), values, 0);
+                            cached = block;
+                        }
+                        dst[i] = values[row & BLOCK_MASK];
+                    }
+                }
+            }
+        }
+
+        @Override
+        long lowerBound(int from, int to) {
+            long min = Long.MAX_VALUE;
+            if (from < to) {
+                for (int block = from >>> BLOCK_SHIFT; block <= (to - 1) >>> BLOCK_SHIFT; ++block) {
+                    min = Math.min(min, mins[block]);
+                }
+            }
+            return min;
+        }
+
+        @Override
+        long upperBound(int from, int to) {
+            long max = Long.MIN_VALUE;
+            if (from < to) {
+                for (int block = from >>> BLOCK_SHIFT; block <= (to - 1) >>> BLOCK_SHIFT; ++block) {
+                    max = Math.max(max, maxs[block]);
+                }
+            }
+            return max;
+        }
+
+        @Override
+        long sum() {
+            final long[] buffer = new long[BLOCK_SIZE];
+            long sum = 0L;
+            for (int block = 0; block < bases.length; ++block) {
+                final int count = Math.min(BLOCK_SIZE, length - (block << BLOCK_SHIFT));
+                if (widths[block] == 0 && !delta) {
+                    sum += bases[block] * count;
+                } else {
+                    decode(block, 0, count, buffer, 0);
+                    for (int i = 0; i < count; ++i) {
+                        sum += buffer[i];
+                    }
+                }
+            }
+            return sum;
+        }
+
+        @Override
+        long bytes() {
+            return 64L + (long)bases.length * HEADER_BYTES + (long)words.length * 8;
+        }
+
+        @Override
+        long[] toWords() {
+            final int blockCount = bases.length;
+            final long[] result = new long[3 + 5 * blockCount + words.length];
+            result[0] = encoding().ordinal();
+            result[1] = length;
+            result[2] = blockCount;
+            System.arraycopy(bases, 0, result, 3, blockCount);
+            System.arraycopy(steps, 0, result, 3 + blockCount, blockCount);
+            System.arraycopy(mins, 0, result, 3 + 2 * blockCount, blockCount);
+            System.arraycopy(maxs, 0, result, 3 + 3 * blockCount, blockCount);
+            for (int b = 0; b < blockCount; ++b) {
+                result[3 + 4 * blockCount + b] = ((long)offsets[b] << 8) | widths[b];
+            }
+            System.arraycopy(words, 0, result, 3 + 5 * blockCount, words.length);
+            return result;
+        }
+    }
+}
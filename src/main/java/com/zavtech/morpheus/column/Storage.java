@@ -0,0 +1,16 @@
+package com.zavtech.morpheus.column;
+
+/**
+ * Enumerates where the values of a column are physically kept.
+ */
+public enum Storage {
+
+    /** Values are held in primitive arrays on the Java heap */
+    HEAP,
+
+    /** Values are held in native memory outside the Java heap, and must be released with close() */
+    OFF_HEAP,
+
+    /** Values are read lazily from a memory mapped file, and the mapping is released with close() */
+    MAPPED
+}
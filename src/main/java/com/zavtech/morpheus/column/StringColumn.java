@@ -0,0 +1,95 @@
+package com.zavtech.morpheus.column;
+
+/**
+ * A Column of strings, dictionary encoded as one int code per row.
+ *
+ * Columns of repetitive values such as symbols, regions or status flags are stored in a
+ * fraction of the memory of the strings themselves, and operations that only compare values
+ * for equality, such as filters, grouping and joins, work on the codes directly. Code 0 is
+ * null, so take() with negative indexes yields nulls, and implementations keep a validity
+ * bitmap that agrees with the codes through every write, as primitive columns do.
+ */
+public interface StringColumn extends Column {
+
+    /**
+     * Returns the dictionary that maps this column's codes to values
+     * @return  the dictionary
+     */
+    Dictionary dictionary();
+
+    /**
+     * Returns the code at the row specified
+     * @param row   the row index
+     * @return      the dictionary code, 0 for null
+     */
+    int getCode(int row);
+
+    /**
+     * Sets the code at the row specified
+     * @param row   the row index
+     * @param code  the dictionary code, 0 for null
+     */
+    void setCode(int row, int code);
+
+    /**
+     * Copies a contiguous range of codes into the array provided
+     * @param from      the first row to copy
+     * @param dst       the destination array
+     * @param offset    the offset into the destination array
+     * @param length    the number of codes to copy
+     */
+    void getCodes(int from, int[] dst, int offset, int length);
+
+    /**
+     * Copies a contiguous range of codes from the array provided into this column
+     * @param from      the first row to write
+     * @param src       the source array
+     * @param offset    the offset into the source array
+     * @param length    the number of codes to copy
+     */
+    void setCodes(int from, int[] src, int offset, int length);
+
+    /**
+     * Returns the value at the row specified
+     * @param row   the row index
+     * @return      the string value, which may be null
+     */
+    default String getString(int row) {
+        return dictionary().value(getCode(row));
+    }
+
+    /**
+     * Sets the value at the row specified, adding it to the dictionary if absent
+     * @param row       the row index
+     * @param value     the value to assign, which may be null
+     */
+    default void setString(int row, String value) {
+        setCode(row, dictionary().intern(value));
+    }
+
+    @Override
+    default ColumnType type() {
+        return ColumnType.STRING;
+    }
+
+    @Override
+    default Object getValue(int row) {
+        return getString(row);
+    }
+
+    @Override
+    default boolean isNull(int row) {
+        return getCode(row) == 0;
+    }
+
+    @Override
+    default void setNull(int row) {
+        setCode(row, 0);
+    }
+
+    @Override
+    StringColumn rename(String name);
+
+    @Override
+    StringColumn take(int[] rows);
+}
@@ -0,0 +1,337 @@
+package com.zavtech.morpheus.column;
+
+import java.util.Arrays;
+
+/**
+ * A bitmap that records which rows of a column hold a value, where a set bit marks a valid row and a clear bit a null.
+ *
+ * The bitmap words are only allocated once the first null is recorded, and are released
+ * again when the last null is overwritten, so columns without nulls pay nothing beyond a
+ * null check. Kernels consume the bitmap 64 rows at a time, taking a dense path through
+ * words that are all valid and skipping words that are all null, which keeps null aware
+ * reductions close to the speed of their dense counterparts.
+ *
+ * The value slot of a null row holds the default of its column type, which is NaN for
+ * doubles, zero for ints and longs and false for booleans, so that bulk copies need
+ * not consult the bitmap. A validity is not safe for concurrent writes.
+ */
+public final class Validity {
+
+    private final int length;
+    private long[] words;
+    private int nulls;
+
+    /**
+     * Constructor
+     * @param length    the number of rows, all initially valid
+     */
+    public Validity(int length) {
+        this.length = length;
+    }
+
+    /**
+     * Constructor
+     * @param words     the bitmap words with a set bit for each valid row, which are not copied, or null if all rows are valid
+     * @param length    the number of rows represented by the bitmap
+     */
+    public Validity(long[] words, int length) {
+        this.length = length;
+        if (words != null) {
+            if (words.length < wordCount(length)) {
+                throw new IllegalArgumentException("Bitmap of " + words.length + " words too small for " + length + " rows");
+            }
+            final int tail = length & 63;
+            if (tail != 0) {
+                words[length >>> 6] |= -1L << tail;
+            }
+            int valid = 0;
+            for (int i = 0; i < wordCount(length); ++i) {
+                valid += Long.bitCount(words[i]);
+            }
+            this.nulls = wordCount(length) * 64 - valid;
+            this.words = nulls > 0 ? words : null;
+        }
+    }
+
+    /**
+     * Returns the number of 64-bit words needed to hold the bit count specified
+     */
+    private static int wordCount(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    /**
+     * Returns the number of rows covered by this bitmap
+     * @return  the row count
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns true if any row is null
+     * @return  true if there are nulls
+     */
+    public boolean hasNulls() {
+        return nulls > 0;
+    }
+
+    /**
+     * Returns the number of null rows
+     * @return  the null count
+     */
+    public int nullCount() {
+        return nulls;
+    }
+
+    /**
+     * Returns the bitmap words, for use by word-at-a-time kernels. Bits beyond the row count are set.
+     * @return  the bitmap words with a set bit for each valid row, or null if no row is null
+     */
+    public long[] words() {
+        return words;
+    }
+
+    /**
+     * Returns true if the row specified holds a value
+     * @param row   the row index
+     * @return      true if the row is valid
+     */
+    public boolean isValid(int row) {
+        return words == null || (words[row >>> 6] & (1L << row)) != 0L;
+    }
+
+    /**
+     * Returns true if the row specified is null
+     * @param row   the row index
+     * @return      true if the row is null
+     */
+    public boolean isNull(int row) {
+        return words != null && (words[row >>> 6] & (1L << row)) == 0L;
+    }
+
+    /**
+     * Returns true if every row in the range specified holds a value
+     * @param from  the first row
+     * @param count the number of rows
+     * @return      true if no row in the range is null
+     */
+    public boolean isValid(int from, int count) {
+        if (words != null) {
+            for (int i = 0; i < count; ) {
+                final int row = from + i;
+                final int span = Math.min(64 - (row & 63), count - i);
+                final long mask = span == 64 ? -1L : (1L << span) - 1L;
+                if (((words[row >>> 6] >>> row) & mask) != mask) {
+                    return false;
+                }
+                i += span;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the first valid row at or after the row specified
+     * @param from  the row to start from
+     * @return      the first valid row, or the length if there is none
+     */
+    public int nextValid(int from) {
+        if (words == null || from >= length) {
+            return Math.min(from, length);
+        }
+        int index = from >>> 6;
+        long word = words[index] & (-1L << from);
+        while (word == 0L) {
+            if (++index == words.length) {
+                return length;
+            }
+            word = words[index];
+        }
+        return Math.min(length, (index << 6) + Long.numberOfTrailingZeros(word));
+    }
+
+    /**
+     * Returns the first null row at or after the row specified
+     * @param from  the row to start from
+     * @return      the first null row, or the length if there is none
+     */
+    public int nextNull(int from) {
+        if (words == null || from >= length) {
+            return length;
+        }
+        int index = from >>> 6;
+        long word = ~words[index] & (-1L << from);
+        while (word == 0L) {
+            if (++index == words.length) {
+                return length;
+            }
+            word = ~words[index];
+        }
+        return Math.min(length, (index << 6) + Long.numberOfTrailingZeros(word));
+    }
+
+    /**
+     * Marks the row specified as null, where Column.setNull() should be preferred as it also resets the value slot
+     * @param row   the row index
+     */
+    public void setNull(int row) {
+        if (words == null) {
+            this.words = new long[wordCount(length)];
+            Arrays.fill(words, -1L);
+        }
+        final long bit = 1L << row;
+        final int index = row >>> 6;
+        if ((words[index] & bit) != 0L) {
+            this.words[index] &= ~bit;
+            this.nulls++;
+        }
+    }
+
+    /**
+     * Marks the row specified as valid
+     * @param row   the row index
+     */
+    public void setValid(int row) {
+        if (words != null) {
+            final long bit = 1L << row;
+            final int index = row >>> 6;
+            if ((words[index] & bit) == 0L) {
+                this.words[index] |= bit;
+                if (--nulls == 0) {
+                    this.words = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks a range of rows as valid
+     * @param from  the first row
+     * @param count the number of rows
+     */
+    public void setValid(int from, int count) {
+        if (words != null) {
+            for (int i = 0; i < count; ) {
+                final int row = from + i;
+                final int span = Math.min(64 - (row & 63), count - i);
+                final long mask = (span == 64 ? -1L : (1L << span) - 1L) << row;
+                final int index = row >>> 6;
+                this.nulls -= Long.bitCount(~words[index] & mask);
+                this.words[index] |= mask;
+                i += span;
+            }
+            if (nulls == 0) {
+                this.words = null;
+            }
+        }
+    }
+
+    /**
+     * Marks as null every row of this bitmap whose counterpart in the source is null
+     * @param source    the source bitmap
+     * @param row       the row of this bitmap that corresponds to the first row of the source
+     */
+    public void setNulls(Validity source, int row) {
+        final long[] bits = source.words;
+        if (bits != null) {
+            for (int w = 0; w < bits.length; ++w) {
+                long nullBits = ~bits[w];
+                while (nullBits != 0L) {
+                    setNull(row + (w << 6) + Long.numberOfTrailingZeros(nullBits));
+                    nullBits &= nullBits - 1L;
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the values of valid rows in a range into the output array, packed together in order
+     * @param from      the row of the first value
+     * @param values    the values of the range
+     * @param offset    the offset of the first value in the values array
+     * @param count     the number of values in the range
+     * @param out       the output array, which may be the values array if offset is zero
+     * @return          the number of values copied
+     */
+    public int compact(int from, double[] values, int offset, int count, double[] out) {
+        if (words == null) {
+            System.arraycopy(values, offset, out, 0, count);
+            return count;
+        }
+        int size = 0;
+        for (int i = 0; i < count; ) {
+            final int row = from + i;
+            final int span = Math.min(64 - (row & 63), count - i);
+            final long mask = span == 64 ? -1L : (1L << span) - 1L;
+            final long bits = (words[row >>> 6] >>> row) & mask;
+            if (bits == mask) {
+                System.arraycopy(values, offset + i, out, size, span);
+                size += span;
+            } else if (bits != 0L) {
+                for (int j = 0; j < span; ++j) {
+                    out[size] = values[offset + i + j];
+                    size += (int)(bits >>> j) & 1;
+                }
+            }
+            i += span;
+        }
+        return size;
+    }
+
+    /**
+     * Overwrites the values of null rows in a range with the value specified
+     * @param from      the row of the first value
+     * @param values    the values of the range
+     * @param offset    the offset of the first value in the values array
+     * @param count     the number of values in the range
+     * @param value     the value to assign to null rows
+     */
+    public void fill(int from, double[] values, int offset, int count, double value) {
+        if (words != null) {
+            for (int i = 0; i < count; ) {
+                final int row = from + i;
+                final int span = Math.min(64 - (row & 63), count - i);
+                final long mask = span == 64 ? -1L : (1L << span) - 1L;
+                long nullBits = ~(words[row >>> 6] >>> row) & mask;
+                while (nullBits != 0L) {
+                    values[offset + i + Long.numberOfTrailingZeros(nullBits)] = value;
+                    nullBits &= nullBits - 1L;
+                }
+                i += span;
+            }
+        }
+    }
+
+    /**
+     * Returns a new bitmap for the rows at the indexes specified, where negative indexes yield nulls
+     * @param rows  the row indexes to gather
+     * @return      the new bitmap
+     */
+    public Validity take(int[] rows) {
+        final Validity result = new Validity(rows.length);
+        for (int i = 0; i < rows.length; ++i) {
+            final int row = rows[i];
+            if (row < 0 || isNull(row)) {
+                result.setNull(i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of this bitmap, which may be modified without affecting this one
+     * @return  the copy
+     */
+    public Validity copy() {
+        final Validity copy = new Validity(length);
+        copy.words = words == null ? null : words.clone();
+        copy.nulls = nulls;
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return "Validity[length=" + length + ", nulls=" + nulls + "]";
+    }
+}
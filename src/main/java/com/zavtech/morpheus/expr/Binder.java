@@ -0,0 +1,141 @@
+package com.zavtech.morpheus.expr;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.zavtech.morpheus.column.NumericColumn;
+import com.zavtech.morpheus.filter.Predicate;
+import com.zavtech.morpheus.frame.DataFrame;
+
+/**
+ * Compiles expressions and conditions against a frame into trees of kernels for one worker.
+ *
+ * Equal subtrees are bound to a single kernel, so that a column or formula referenced several
+ * times is computed once per block, and arithmetic subtrees are bound to generated loops where
+ * code generation is available. Predicates that are neither conditions nor combinations of
+ * them are evaluated into a bitset of the whole frame on first use, and those bitsets are shared
+ * by the copies of a binder, which must therefore only be made once the first binding is complete.
+ */
+final class Binder {
+
+    private final DataFrame frame;
+    private final Map<Predicate,long[]> bitsets;
+    private final Map<Expression,ValueKernel> values = new HashMap<>();
+    private final Map<Predicate,TestKernel> tests = new HashMap<>();
+
+    /**
+     * Constructor
+     * @param frame the frame to bind against
+     */
+    Binder(DataFrame frame) {
+        this(frame, new HashMap<>());
+    }
+
+    /**
+     * Constructor
+     * @param frame     the frame to bind against
+     * @param bitsets   the bitsets of predicates evaluated eagerly, by predicate
+     */
+    private Binder(DataFrame frame, Map<Predicate,long[]> bitsets) {
+        this.frame = frame;
+        this.bitsets = bitsets;
+    }
+
+    /**
+     * Returns a binder for another worker, which shares the eagerly evaluated predicates of this one
+     * @return  the new binder
+     */
+    Binder copy() {
+        return new Binder(frame, bitsets);
+    }
+
+    /**
+     * Returns the numeric column with the name specified
+     * @param name  the column name
+     * @return      the column
+     * @throws com.zavtech.morpheus.frame.DataFrameException   if no such column exists, or it is not numeric
+     */
+    NumericColumn column(String name) {
+        return frame.numeric(name);
+    }
+
+    /**
+     * Returns the kernel for an expression, binding it unless an equal expression is already bound
+     * @param expression    the expression
+     * @return              the kernel
+     */
+    ValueKernel value(Expression expression) {
+        ValueKernel kernel = values.get(expression);
+        if (kernel == null) {
+            kernel = expression.isArithmetic() && LoopCompiler.isEnabled() ? fuse(expression) : null;
+            if (kernel == null) {
+                kernel = expression.bind(this);
+            }
+            this.values.put(expression, kernel);
+        }
+        return kernel;
+    }
+
+    /**
+     * Returns a kernel that computes an arithmetic expression with a generated loop, or null if no loop can be generated
+     */
+    private ValueKernel fuse(Expression expression) {
+        final LoopCompiler.Program program = new LoopCompiler.Program();
+        expression.emit(program);
+        final Double constant = program.constant();
+        if (constant != null) {
+            return new ValueKernel.ConstantKernel(constant);
+        }
+        final FusedLoop loop = LoopCompiler.compile(program);
+        if (loop == null) {
+            return null;
+        }
+        final List<Expression> inputs = program.inputs();
+        final ValueKernel[] kernels = new ValueKernel[inputs.size()];
+        for (int k = 0; k < kernels.length; ++k) {
+            kernels[k] = value(inputs.get(k));
+        }
+        return new ValueKernel.FusedKernel(loop, kernels);
+    }
+
+    /**
+     * Returns the kernel for a predicate, binding it unless an equal predicate is already bound
+     * @param predicate the predicate
+     * @return          the kernel
+     */
+    TestKernel test(Predicate predicate) {
+        TestKernel kernel = tests.get(predicate);
+        if (kernel == null) {
+            if (predicate instanceof Condition) {
+                kernel = ((Condition)predicate).bind(this);
+            } else if (predicate instanceof Predicate.And) {
+                kernel = new TestKernel.AndKernel(tests(((Predicate.And)predicate).operands()));
+            } else if (predicate instanceof Predicate.Or) {
+                kernel = new TestKernel.OrKernel(tests(((Predicate.Or)predicate).operands()));
+            } else if (predicate instanceof Predicate.Not) {
+                kernel = new TestKernel.NotKernel(test(((Predicate.Not)predicate).operand()));
+            } else {
+                long[] words = bitsets.get(predicate);
+                if (words == null) {
+                    words = predicate.evaluate(frame);
+                    this.bitsets.put(predicate, words);
+                }
+                kernel = new TestKernel.BitsetKernel(words);
+            }
+            this.tests.put(predicate, kernel);
+        }
+        return kernel;
+    }
+
+    /**
+     * Returns the kernels for a list of predicates
+     */
+    private TestKernel[] tests(List<Predicate> predicates) {
+        final TestKernel[] kernels = new TestKernel[predicates.size()];
+        for (int i = 0; i < kernels.length; ++i) {
+            kernels[i] = test(predicates.get(i));
+        }
+        return kernels;
+    }
+}
@@ -0,0 +1,119 @@
+package com.zavtech.morpheus.expr;
+
+import java.util.Objects;
+
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleArrayColumn;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.filter.Bitsets;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.parallel.Morsels;
+
+/**
+ * An expression compiled against a frame, which evaluates it for all rows of the frame into a new column.
+ *
+ * Compiling checks that every referenced column exists and is numeric, and evaluates any plain
+ * predicates used as conditions, so evaluation itself cannot fail on the schema. Morsels of rows
+ * are evaluated in parallel, each worker with its own kernel tree, and the result is written
+ * in place by the root kernel where the result column is on the heap. Null rows of the result
+ * are recorded in a bitset per morsel and applied to the column once all morsels are complete.
+ */
+public final class CompiledExpression {
+
+    private final Expression expression;
+    private final DataFrame frame;
+    private final Binder binder;
+    private final Morsels morsels = Morsels.create();
+
+    /**
+     * Constructor
+     * @param expression    the expression to compile
+     * @param frame         the frame to compile against
+     */
+    CompiledExpression(Expression expression, DataFrame frame) {
+        this.expression = Objects.requireNonNull(expression, "The expression cannot be null");
+        this.frame = Objects.requireNonNull(frame, "The frame cannot be null");
+        this.binder = new Binder(frame);
+        this.binder.value(expression);
+    }
+
+    /**
+     * Sets the max number of threads used to evaluate the expression
+     * @param parallelism   the parallelism, where 1 evaluates on the calling thread
+     * @return              this compiled expression
+     */
+    public CompiledExpression setParallelism(int parallelism) {
+        this.morsels.setParallelism(parallelism);
+        return this;
+    }
+
+    /**
+     * Returns the expression that was compiled
+     * @return  the expression
+     */
+    public Expression expression() {
+        return expression;
+    }
+
+    /**
+     * Evaluates the expression for every row of the frame into a new heap column
+     * @param name  the name of the result column
+     * @return      the result column
+     */
+    public DoubleColumn evaluate(String name) {
+        return evaluate(name, Storage.HEAP);
+    }
+
+    /**
+     * Evaluates the expression for every row of the frame into a new column
+     * @param name      the name of the result column
+     * @param storage   the storage for the result column
+     * @return          the result column
+     */
+    public DoubleColumn evaluate(String name, Storage storage) {
+        final int rowCount = frame.rowCount();
+        final DoubleColumn result = Columns.doubles(name, rowCount, storage);
+        final double[] array = result instanceof DoubleArrayColumn ? ((DoubleArrayColumn)result).values() : null;
+        final long[] nulls = Bitsets.create(rowCount);
+        morsels.collect(rowCount, () -> root(array), (root, morsel, from, to) -> {
+            for (int row = from; row < to; row += ValueKernel.BLOCK_SIZE) {
+                final int count = Math.min(ValueKernel.BLOCK_SIZE, to - row);
+                root.eval(row, count);
+                if (root.values != array || root.offset != row) {
+                    if (array != null) {
+                        System.arraycopy(root.values, root.offset, array, row, count);
+                    } else {
+                        result.setDoubles(row, root.values, root.offset, count);
+                    }
+                }
+                final boolean[] flags = root.nulls;
+                if (flags != null) {
+                    for (int i = 0; i < count; ++i) {
+                        if (flags[i]) {
+                            nulls[(row + i) >>> 6] |= 1L << (row + i);
+                        }
+                    }
+                }
+            }
+        });
+        for (int row : Bitsets.toRows(nulls)) {
+            result.setNull(row);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the root kernel of a new kernel tree for a worker, writing into the array specified if not null
+     */
+    private ValueKernel root(double[] array) {
+        final ValueKernel root = binder.copy().value(expression);
+        root.setSink(array);
+        return root;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledExpression(" + expression + ")";
+    }
+}
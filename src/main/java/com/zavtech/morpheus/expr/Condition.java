@@ -0,0 +1,203 @@
+package com.zavtech.morpheus.expr;
+
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+import com.zavtech.morpheus.filter.Bitsets;
+import com.zavtech.morpheus.filter.Comparison;
+import com.zavtech.morpheus.filter.Predicate;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.parallel.Morsels;
+
+/**
+ * A predicate over expressions, such as price * qty > 1000, which is compiled into the same block kernels as expressions.
+ *
+ * Conditions combine with other predicates through and(), or() and negate() like any predicate,
+ * and when used inside a conditional expression the whole combination is compiled, with and and
+ * or skipping their remaining operands for blocks in which the outcome is already decided. As
+ * with Comparison, rows for which either side of a comparison is null never satisfy it.
+ */
+public abstract class Condition extends Predicate {
+
+    /**
+     * Returns the kernel that tests this condition against the frame of the binder
+     * @param binder    the binder for the frame being compiled against
+     * @return          the kernel for this condition
+     */
+    abstract TestKernel bind(Binder binder);
+
+    /**
+     * Returns a condition that compares two expressions
+     * @param left      the left expression
+     * @param operator  the comparison operator
+     * @param right     the right expression
+     * @return          the comparison
+     */
+    static Condition compare(Expression left, Comparison.Operator operator, Expression right) {
+        return new Compare(left, operator, right);
+    }
+
+    /**
+     * Returns a condition that tests whether an expression is null
+     * @param operand   the expression to test
+     * @param nulls     true to select null rows, false to select non-null rows
+     * @return          the null test
+     */
+    static Condition nullTest(Expression operand, boolean nulls) {
+        return new NullCheck(operand, nulls);
+    }
+
+    @Override
+    public long[] evaluate(DataFrame frame) {
+        return scan(frame, null);
+    }
+
+    @Override
+    public long[] evaluate(DataFrame frame, long[] candidates) {
+        final long[] words = scan(frame, candidates);
+        Bitsets.and(words, candidates);
+        return words;
+    }
+
+    /**
+     * Evaluates this condition in parallel for every block of rows that holds a candidate
+     * @param frame         the frame to evaluate against
+     * @param candidates    the bitset of rows to evaluate, or null for all rows
+     * @return              the result bitset, whose bits outside the candidates may be set
+     */
+    private long[] scan(DataFrame frame, long[] candidates) {
+        final int rowCount = frame.rowCount();
+        final long[] words = Bitsets.create(rowCount);
+        final Binder binder = new Binder(frame);
+        binder.test(this);
+        Morsels.create().collect(rowCount, () -> binder.copy().test(this), (kernel, morsel, from, to) -> {
+            for (int row = from; row < to; row += ValueKernel.BLOCK_SIZE) {
+                final int count = Math.min(ValueKernel.BLOCK_SIZE, to - row);
+                if (candidates == null || Bitsets.cardinality(candidates, row >>> 6, (row + count + 63) >>> 6) > 0) {
+                    kernel.eval(row, count);
+                    final boolean[] mask = kernel.mask;
+                    for (int i = 0; i < count; ++i) {
+                        if (mask[i]) {
+                            words[(row + i) >>> 6] |= 1L << (row + i);
+                        }
+                    }
+                }
+            }
+        });
+        return words;
+    }
+
+
+    /**
+     * A condition that compares the values of two expressions
+     */
+    private static final class Compare extends Condition {
+
+        private final Expression left;
+        private final Comparison.Operator operator;
+        private final Expression right;
+
+        Compare(Expression left, Comparison.Operator operator, Expression right) {
+            this.left = Objects.requireNonNull(left, "The left operand cannot be null");
+            this.operator = Objects.requireNonNull(operator, "The operator cannot be null");
+            this.right = Objects.requireNonNull(right, "The right operand cannot be null");
+        }
+
+        @Override
+        public Set<String> columns() {
+            final Set<String> columns = new LinkedHashSet<>(left.columns());
+            columns.addAll(right.columns());
+            return columns;
+        }
+
+        @Override
+        TestKernel bind(Binder binder) {
+            final ValueKernel x = binder.value(left);
+            final ValueKernel y = binder.value(right);
+            if (y instanceof ValueKernel.ConstantKernel) {
+                return new TestKernel.CompareScalarKernel(x, operator, ((ValueKernel.ConstantKernel)y).value());
+            } else if (x instanceof ValueKernel.ConstantKernel) {
+                return new TestKernel.CompareScalarKernel(y, reverse(operator), ((ValueKernel.ConstantKernel)x).value());
+            } else {
+                return new TestKernel.CompareKernel(x, operator, y);
+            }
+        }
+
+        /**
+         * Returns the operator that gives the same result with its operands swapped
+         */
+        private static Comparison.Operator reverse(Comparison.Operator operator) {
+            switch (operator) {
+                case LT:    return Comparison.Operator.GT;
+                case LE:    return Comparison.Operator.GE;
+                case GT:    return Comparison.Operator.LT;
+                case GE:    return Comparison.Operator.LE;
+                default:    return operator;
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other instanceof Compare) {
+                final Compare that = (Compare)other;
+                return that.operator == operator && that.left.equals(left) && that.right.equals(right);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(left, operator, right);
+        }
+
+        @Override
+        public String toString() {
+            return left + " " + operator + " " + right;
+        }
+    }
+
+
+    /**
+     * A condition that tests whether the values of an expression are null
+     */
+    private static final class NullCheck extends Condition {
+
+        private final Expression operand;
+        private final boolean nulls;
+
+        NullCheck(Expression operand, boolean nulls) {
+            this.operand = operand;
+            this.nulls = nulls;
+        }
+
+        @Override
+        public Set<String> columns() {
+            return operand.columns();
+        }
+
+        @Override
+        TestKernel bind(Binder binder) {
+            return new TestKernel.NullKernel(binder.value(operand), nulls);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other instanceof NullCheck) {
+                final NullCheck that = (NullCheck)other;
+                return that.nulls == nulls && that.operand.equals(operand);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(operand, nulls);
+        }
+
+        @Override
+        public String toString() {
+            return operand + (nulls ? " IS NULL" : " IS NOT NULL");
+        }
+    }
+}
@@ -0,0 +1,867 @@
+package com.zavtech.morpheus.expr;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.filter.Comparison;
+import com.zavtech.morpheus.filter.Predicate;
+import com.zavtech.morpheus.frame.DataFrame;
+
+/**
+ * A numeric formula over the columns of a DataFrame, such as (price * qty) - fee, evaluated for all rows at once.
+ *
+ * Expressions are immutable trees of column references, constants, arithmetic, functions and
+ * conditionals. Rather than being interpreted row by row, an expression is compiled against a frame
+ * into a tree of kernels that each process a block of rows per call. Arithmetic subtrees become a
+ * single loop generated as bytecode, which computes the whole formula per row in one pass just as a
+ * hand written loop would, while conditionals and null handling run as kernels specialized for
+ * their operands. Constant subtrees are folded, identical subtrees are computed once per block, and
+ * blocks are spread over morsels of rows in parallel.
+ *
+ * A row is null in the result when any operand it depends on is null, except that coalesce()
+ * replaces nulls and a conditional only takes on the nulls of the branch it selects. Integer
+ * columns are read as doubles. Comparisons yield a Condition, which is itself a Predicate and
+ * so may be used both inside conditionals and to filter frames.
+ */
+public abstract class Expression {
+
+    /**
+     * Returns the names of the columns this expression references
+     * @return  the referenced column names
+     */
+    public abstract Set<String> columns();
+
+    /**
+     * Returns the kernel that computes this expression against the frame of the binder
+     * @param binder    the binder for the frame being compiled against
+     * @return          the kernel for this expression
+     */
+    abstract ValueKernel bind(Binder binder);
+
+    /**
+     * Returns true if this expression is an arithmetic operation or function, which can be compiled into a fused loop
+     * @return  true if arithmetic
+     */
+    boolean isArithmetic() {
+        return false;
+    }
+
+    /**
+     * Appends the steps that compute this expression to a fused loop program, as a single input unless it is arithmetic
+     * @param program   the program to append to
+     */
+    void emit(LoopCompiler.Program program) {
+        program.input(this);
+    }
+
+    /**
+     * Returns an expression that reads the values of a numeric column
+     * @param name  the column name
+     * @return      the column expression
+     */
+    public static Expression col(String name) {
+        return new ColumnRef(name);
+    }
+
+    /**
+     * Returns an expression with the same value for every row
+     * @param value the constant value
+     * @return      the constant expression
+     */
+    public static Expression lit(double value) {
+        return new Literal(value);
+    }
+
+    /**
+     * Returns an expression that takes the value of one expression where a condition holds and another where it does not
+     * @param condition the condition, where rows for which it is null select the otherwise expression
+     * @param then      the expression for rows that satisfy the condition
+     * @param otherwise the expression for all other rows
+     * @return          the conditional expression
+     */
+    public static Expression when(Predicate condition, Expression then, Expression otherwise) {
+        return new Conditional(condition, then, otherwise);
+    }
+
+    /**
+     * Compiles this expression against a frame, so that it can be evaluated for all its rows
+     * @param frame the frame to compile against
+     * @return      the compiled expression
+     * @throws com.zavtech.morpheus.frame.DataFrameException   if a referenced column does not exist or is not numeric
+     */
+    public CompiledExpression compile(DataFrame frame) {
+        return new CompiledExpression(this, frame);
+    }
+
+    /**
+     * Evaluates this expression for every row of a frame into a new heap column
+     * @param frame the frame to evaluate against
+     * @param name  the name of the result column
+     * @return      the result column
+     */
+    public DoubleColumn evaluate(DataFrame frame, String name) {
+        return compile(frame).evaluate(name);
+    }
+
+    /**
+     * Returns this expression plus another
+     * @param other the other expression
+     * @return      the sum
+     */
+    public Expression add(Expression other) {
+        return new Binary(BinaryFunction.ADD, this, other);
+    }
+
+    /**
+     * Returns this expression plus a constant
+     * @param value the constant
+     * @return      the sum
+     */
+    public Expression add(double value) {
+        return add(lit(value));
+    }
+
+    /**
+     * Returns this expression minus another
+     * @param other the other expression
+     * @return      the difference
+     */
+    public Expression subtract(Expression other) {
+        return new Binary(BinaryFunction.SUBTRACT, this, other);
+    }
+
+    /**
+     * Returns this expression minus a constant
+     * @param value the constant
+     * @return      the difference
+     */
+    public Expression subtract(double value) {
+        return subtract(lit(value));
+    }
+
+    /**
+     * Returns this expression multiplied by another
+     * @param other the other expression
+     * @return      the product
+     */
+    public Expression multiply(Expression other) {
+        return new Binary(BinaryFunction.MULTIPLY, this, other);
+    }
+
+    /**
+     * Returns this expression multiplied by a constant
+     * @param value the constant
+     * @return      the product
+     */
+    public Expression multiply(double value) {
+        return multiply(lit(value));
+    }
+
+    /**
+     * Returns this expression divided by another
+     * @param other the other expression
+     * @return      the quotient
+     */
+    public Expression divide(Expression other) {
+        return new Binary(BinaryFunction.DIVIDE, this, other);
+    }
+
+    /**
+     * Returns this expression divided by a constant
+     * @param value the constant
+     * @return      the quotient
+     */
+    public Expression divide(double value) {
+        return divide(lit(value));
+    }
+
+    /**
+     * Returns this expression raised to the power of another
+     * @param other the exponent
+     * @return      the power
+     */
+    public Expression pow(Expression other) {
+        return new Binary(BinaryFunction.POW, this, other);
+    }
+
+    /**
+     * Returns this expression raised to a constant power
+     * @param value the exponent
+     * @return      the power
+     */
+    public Expression pow(double value) {
+        return pow(lit(value));
+    }
+
+    /**
+     * Returns the smaller of this expression and another
+     * @param other the other expression
+     * @return      the minimum
+     */
+    public Expression min(Expression other) {
+        return new Binary(BinaryFunction.MIN, this, other);
+    }
+
+    /**
+     * Returns the smaller of this expression and a constant
+     * @param value the constant
+     * @return      the minimum
+     */
+    public Expression min(double value) {
+        return min(lit(value));
+    }
+
+    /**
+     * Returns the larger of this expression and another
+     * @param other the other expression
+     * @return      the maximum
+     */
+    public Expression max(Expression other) {
+        return new Binary(BinaryFunction.MAX, this, other);
+    }
+
+    /**
+     * Returns the larger of this expression and a constant
+     * @param value the constant
+     * @return      the maximum
+     */
+    public Expression max(double value) {
+        return max(lit(value));
+    }
+
+    /**
+     * Returns the negation of this expression
+     * @return  the negation
+     */
+    public Expression negate() {
+        return new Unary(UnaryFunction.NEGATE, this);
+    }
+
+    /**
+     * Returns the absolute value of this expression
+     * @return  the absolute value
+     */
+    public Expression abs() {
+        return new Unary(UnaryFunction.ABS, this);
+    }
+
+    /**
+     * Returns the square root of this expression
+     * @return  the square root
+     */
+    public Expression sqrt() {
+        return new Unary(UnaryFunction.SQRT, this);
+    }
+
+    /**
+     * Returns the natural logarithm of this expression
+     * @return  the logarithm
+     */
+    public Expression log() {
+        return new Unary(UnaryFunction.LOG, this);
+    }
+
+    /**
+     * Returns e raised to the power of this expression
+     * @return  the exponential
+     */
+    public Expression exp() {
+        return new Unary(UnaryFunction.EXP, this);
+    }
+
+    /**
+     * Returns the largest whole number not greater than this expression
+     * @return  the floor
+     */
+    public Expression floor() {
+        return new Unary(UnaryFunction.FLOOR, this);
+    }
+
+    /**
+     * Returns the smallest whole number not less than this expression
+     * @return  the ceiling
+     */
+    public Expression ceil() {
+        return new Unary(UnaryFunction.CEIL, this);
+    }
+
+    /**
+     * Returns an expression that takes the value of this expression, or of another where this one is null
+     * @param other the replacement for nulls
+     * @return      the coalesced expression
+     */
+    public Expression coalesce(Expression other) {
+        return new Coalesce(this, other);
+    }
+
+    /**
+     * Returns an expression that takes the value of this expression, or a constant where this one is null
+     * @param value the replacement for nulls
+     * @return      the coalesced expression
+     */
+    public Expression coalesce(double value) {
+        return coalesce(lit(value));
+    }
+
+    /**
+     * Returns a condition satisfied where this expression equals another
+     * @param other the other expression
+     * @return      the condition
+     */
+    public Condition eq(Expression other) {
+        return Condition.compare(this, Comparison.Operator.EQ, other);
+    }
+
+    /**
+     * Returns a condition satisfied where this expression equals a constant
+     * @param value the constant
+     * @return      the condition
+     */
+    public Condition eq(double value) {
+        return eq(lit(value));
+    }
+
+    /**
+     * Returns a condition satisfied where this expression does not equal another
+     * @param other the other expression
+     * @return      the condition
+     */
+    public Condition ne(Expression other) {
+        return Condition.compare(this, Comparison.Operator.NE, other);
+    }
+
+    /**
+     * Returns a condition satisfied where this expression does not equal a constant
+     * @param value the constant
+     * @return      the condition
+     */
+    public Condition ne(double value) {
+        return ne(lit(value));
+    }
+
+    /**
+     * Returns a condition satisfied where this expression is less than another
+     * @param other the other expression
+     * @return      the condition
+     */
+    public Condition lt(Expression other) {
+        return Condition.compare(this, Comparison.Operator.LT, other);
+    }
+
+    /**
+     * Returns a condition satisfied where this expression is less than a constant
+     * @param value the constant
+     * @return      the condition
+     */
+    public Condition lt(double value) {
+        return lt(lit(value));
+    }
+
+    /**
+     * Returns a condition satisfied where this expression is less than or equal to another
+     * @param other the other expression
+     * @return      the condition
+     */
+    public Condition le(Expression other) {
+        return Condition.compare(this, Comparison.Operator.LE, other);
+    }
+
+    /**
+     * Returns a condition satisfied where this expression is less than or equal to a constant
+     * @param value the constant
+     * @return      the condition
+     */
+    public Condition le(double value) {
+        return le(lit(value));
+    }
+
+    /**
+     * Returns a condition satisfied where this expression is greater than another
+     * @param other the other expression
+     * @return      the condition
+     */
+    public Condition gt(Expression other) {
+        return Condition.compare(this, Comparison.Operator.GT, other);
+    }
+
+    /**
+     * Returns a condition satisfied where this expression is greater than a constant
+     * @param value the constant
+     * @return      the condition
+     */
+    public Condition gt(double value) {
+        return gt(lit(value));
+    }
+
+    /**
+     * Returns a condition satisfied where this expression is greater than or equal to another
+     * @param other the other expression
+     * @return      the condition
+     */
+    public Condition ge(Expression other) {
+        return Condition.compare(this, Comparison.Operator.GE, other);
+    }
+
+    /**
+     * Returns a condition satisfied where this expression is greater than or equal to a constant
+     * @param value the constant
+     * @return      the condition
+     */
+    public Condition ge(double value) {
+        return ge(lit(value));
+    }
+
+    /**
+     * Returns a condition satisfied where this expression is null
+     * @return  the condition
+     */
+    public Condition isNull() {
+        return Condition.nullTest(this, true);
+    }
+
+    /**
+     * Returns a condition satisfied where this expression is not null
+     * @return  the condition
+     */
+    public Condition notNull() {
+        return Condition.nullTest(this, false);
+    }
+
+    /**
+     * Returns the text of a constant, without a fraction if it is a whole number
+     */
+    static String format(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 0x1p53 ? String.valueOf((long)value) : String.valueOf(value);
+    }
+
+
+    /**
+     * The functions of two operands
+     */
+    enum BinaryFunction {
+
+        ADD("+"), SUBTRACT("-"), MULTIPLY("*"), DIVIDE("/"), POW("pow"), MIN("min"), MAX("max");
+
+        private final String symbol;
+
+        BinaryFunction(String symbol) {
+            this.symbol = symbol;
+        }
+
+        /**
+         * Returns the result of this function for two values
+         * @param left  the left operand
+         * @param right the right operand
+         * @return      the result
+         */
+        double apply(double left, double right) {
+            switch (this) {
+                case ADD:       return left + right;
+                case SUBTRACT:  return left - right;
+                case MULTIPLY:  return left * right;
+                case DIVIDE:    return left / right;
+                case POW:       return Math.pow(left, right);
+                case MIN:       return Math.min(left, right);
+                case MAX:       return Math.max(left, right);
+                default:        throw new IllegalStateException("Unsupported function: " + this);
+            }
+        }
+
+        /**
+         * Returns true if swapping the operands of this function does not change its result
+         * @return  true if commutative
+         */
+        boolean isCommutative() {
+            return this == ADD || this == MULTIPLY || this == MIN || this == MAX;
+        }
+
+        /**
+         * Returns true if this function is written between its operands
+         * @return  true if infix
+         */
+        boolean isInfix() {
+            return ordinal() <= DIVIDE.ordinal();
+        }
+
+        @Override
+        public String toString() {
+            return symbol;
+        }
+    }
+
+
+    /**
+     * The functions of one operand
+     */
+    enum UnaryFunction {
+
+        NEGATE("-"), ABS("abs"), SQRT("sqrt"), LOG("log"), EXP("exp"), FLOOR("floor"), CEIL("ceil");
+
+        private final String symbol;
+
+        UnaryFunction(String symbol) {
+            this.symbol = symbol;
+        }
+
+        /**
+         * Returns the result of this function for a value
+         * @param value the operand
+         * @return      the result
+         */
+        double apply(double value) {
+            switch (this) {
+                case NEGATE:    return -value;
+                case ABS:       return Math.abs(value);
+                case SQRT:      return Math.sqrt(value);
+                case LOG:       return Math.log(value);
+                case EXP:       return Math.exp(value);
+                case FLOOR:     return Math.floor(value);
+                case CEIL:      return Math.ceil(value);
+                default:        throw new IllegalStateException("Unsupported function: " + this);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return symbol;
+        }
+    }
+
+
+    /**
+     * An expression that reads the values of a numeric column
+     */
+    private static final class ColumnRef extends Expression {
+
+        private final String name;
+
+        ColumnRef(String name) {
+            this.name = Objects.requireNonNull(name, "The column name cannot be null");
+        }
+
+        @Override
+        public Set<String> columns() {
+            return Collections.singleton(name);
+        }
+
+        @Override
+        ValueKernel bind(Binder binder) {
+            return new ValueKernel.ColumnKernel(binder.column(name));
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ColumnRef && ((ColumnRef)other).name.equals(name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+
+    /**
+     * An expression with the same value for every row
+     */
+    private static final class Literal extends Expression {
+
+        private final double value;
+
+        Literal(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public Set<String> columns() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        ValueKernel bind(Binder binder) {
+            return new ValueKernel.ConstantKernel(value);
+        }
+
+        @Override
+        void emit(LoopCompiler.Program program) {
+            program.constant(value);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Literal && Double.compare(((Literal)other).value, value) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Double.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return format(value);
+        }
+    }
+
+
+    /**
+     * An expression that applies a function to the values of two operands
+     */
+    private static final class Binary extends Expression {
+
+        private final BinaryFunction function;
+        private final Expression left;
+        private final Expression right;
+
+        Binary(BinaryFunction function, Expression left, Expression right) {
+            this.function = function;
+            this.left = Objects.requireNonNull(left, "The left operand cannot be null");
+            this.right = Objects.requireNonNull(right, "The right operand cannot be null");
+        }
+
+        @Override
+        public Set<String> columns() {
+            final Set<String> columns = new LinkedHashSet<>(left.columns());
+            columns.addAll(right.columns());
+            return columns;
+        }
+
+        @Override
+        ValueKernel bind(Binder binder) {
+            if (function == BinaryFunction.ADD) {
+                final ValueKernel fused = fuse(binder, left, right);
+                if (fused != null) {
+                    return fused;
+                }
+                final ValueKernel swapped = fuse(binder, right, left);
+                if (swapped != null) {
+                    return swapped;
+                }
+            }
+            final ValueKernel x = binder.value(left);
+            final ValueKernel y = binder.value(right);
+            if (x instanceof ValueKernel.ConstantKernel && y instanceof ValueKernel.ConstantKernel) {
+                return new ValueKernel.ConstantKernel(function.apply(constant(x), constant(y)));
+            } else if (y instanceof ValueKernel.ConstantKernel) {
+                return new ValueKernel.ScalarKernel(function, x, constant(y), false);
+            } else if (x instanceof ValueKernel.ConstantKernel) {
+                return new ValueKernel.ScalarKernel(function, y, constant(x), !function.isCommutative());
+            } else {
+                return new ValueKernel.BinaryKernel(function, x, y);
+            }
+        }
+
+        @Override
+        boolean isArithmetic() {
+            return true;
+        }
+
+        @Override
+        void emit(LoopCompiler.Program program) {
+            left.emit(program);
+            right.emit(program);
+            program.binary(function);
+        }
+
+        /**
+         * Returns a fused kernel for product + addend when neither the product operands nor the addend are constant, otherwise null
+         */
+        private static ValueKernel fuse(Binder binder, Expression product, Expression addend) {
+            if (product instanceof Binary && ((Binary)product).function == BinaryFunction.MULTIPLY) {
+                final ValueKernel a = binder.value(((Binary)product).left);
+                final ValueKernel b = binder.value(((Binary)product).right);
+                final ValueKernel c = binder.value(addend);
+                if (!(a instanceof ValueKernel.ConstantKernel) && !(b instanceof ValueKernel.ConstantKernel) && !(c instanceof ValueKernel.ConstantKernel)) {
+                    return new ValueKernel.MultiplyAddKernel(a, b, c);
+                }
+            }
+            return null;
+        }
+
+        private static double constant(ValueKernel kernel) {
+            return ((ValueKernel.ConstantKernel)kernel).value();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other instanceof Binary) {
+                final Binary that = (Binary)other;
+                return that.function == function && that.left.equals(left) && that.right.equals(right);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(function, left, right);
+        }
+
+        @Override
+        public String toString() {
+            return function.isInfix() ? "(" + left + " " + function + " " + right + ")" : function + "(" + left + ", " + right + ")";
+        }
+    }
+
+
+    /**
+     * An expression that applies a function to the values of one operand
+     */
+    private static final class Unary extends Expression {
+
+        private final UnaryFunction function;
+        private final Expression operand;
+
+        Unary(UnaryFunction function, Expression operand) {
+            this.function = function;
+            this.operand = operand;
+        }
+
+        @Override
+        public Set<String> columns() {
+            return operand.columns();
+        }
+
+        @Override
+        ValueKernel bind(Binder binder) {
+            final ValueKernel kernel = binder.value(operand);
+            if (kernel instanceof ValueKernel.ConstantKernel) {
+                return new ValueKernel.ConstantKernel(function.apply(((ValueKernel.ConstantKernel)kernel).value()));
+            } else {
+                return new ValueKernel.UnaryKernel(function, kernel);
+            }
+        }
+
+        @Override
+        boolean isArithmetic() {
+            return true;
+        }
+
+        @Override
+        void emit(LoopCompiler.Program program) {
+            operand.emit(program);
+            program.unary(function);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other instanceof Unary) {
+                final Unary that = (Unary)other;
+                return that.function == function && that.operand.equals(operand);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(function, operand);
+        }
+
+        @Override
+        public String toString() {
+            return function == UnaryFunction.NEGATE ? "(-" + operand + ")" : function + "(" + operand + ")";
+        }
+    }
+
+
+    /**
+     * An expression that selects between two expressions per row by a condition
+     */
+    private static final class Conditional extends Expression {
+
+        private final Predicate condition;
+        private final Expression then;
+        private final Expression otherwise;
+
+        Conditional(Predicate condition, Expression then, Expression otherwise) {
+            this.condition = Objects.requireNonNull(condition, "The condition cannot be null");
+            this.then = Objects.requireNonNull(then, "The then expression cannot be null");
+            this.otherwise = Objects.requireNonNull(otherwise, "The otherwise expression cannot be null");
+        }
+
+        @Override
+        public Set<String> columns() {
+            final Set<String> columns = new LinkedHashSet<>(condition.columns());
+            columns.addAll(then.columns());
+            columns.addAll(otherwise.columns());
+            return columns;
+        }
+
+        @Override
+        ValueKernel bind(Binder binder) {
+            return new ValueKernel.ConditionalKernel(binder.test(condition), binder.value(then), binder.value(otherwise));
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other instanceof Conditional) {
+                final Conditional that = (Conditional)other;
+                return that.condition.equals(condition) && that.then.equals(then) && that.otherwise.equals(otherwise);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(condition, then, otherwise);
+        }
+
+        @Override
+        public String toString() {
+            return "when(" + condition + ", " + then + ", " + otherwise + ")";
+        }
+    }
+
+
+    /**
+     * An expression that replaces the nulls of one expression with the values of another
+     */
+    private static final class Coalesce extends Expression {
+
+        private final Expression first;
+        private final Expression second;
+
+        Coalesce(Expression first, Expression second) {
+            this.first = first;
+            this.second = Objects.requireNonNull(second, "The replacement expression cannot be null");
+        }
+
+        @Override
+        public Set<String> columns() {
+            final Set<String> columns = new LinkedHashSet<>(first.columns());
+            columns.addAll(second.columns());
+            return columns;
+        }
+
+        @Override
+        ValueKernel bind(Binder binder) {
+            return new ValueKernel.CoalesceKernel(binder.value(first), binder.value(second));
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other instanceof Coalesce) {
+                final Coalesce that = (Coalesce)other;
+                return that.first.equals(first) && that.second.equals(second);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(first, second);
+        }
+
+        @Override
+        public String toString() {
+            return "coalesce(" + first + ", " + second + ")";
+        }
+    }
+}
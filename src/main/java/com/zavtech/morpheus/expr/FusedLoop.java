@@ -0,0 +1,19 @@
+package com.zavtech.morpheus.expr;
+
+/**
+ * A loop generated at runtime that computes an arithmetic formula over one block of rows in a single pass.
+ *
+ * Implementations are hidden classes emitted by LoopCompiler, one per distinct formula, and hold no state.
+ */
+interface FusedLoop {
+
+    /**
+     * Computes the formula for a block of rows
+     * @param inputs    the values of each input of the formula
+     * @param offsets   the index of the first row of the block in the values of each input
+     * @param out       the output array
+     * @param outOffset the index in the output of the first row of the block
+     * @param count     the number of rows in the block
+     */
+    void run(double[][] inputs, int[] offsets, double[] out, int outOffset, int count);
+}
@@ -0,0 +1,420 @@
+package com.zavtech.morpheus.expr;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiles the arithmetic part of an expression into the bytecode of a single loop, defined as a hidden class.
+ *
+ * A maximal subtree of arithmetic and functions is flattened into a postfix program whose inputs
+ * are the columns and non-arithmetic subexpressions it reads, with constant subtrees folded. As the
+ * JVM is itself a stack machine, each step of the program maps directly onto one or a few
+ * instructions, so the generated loop is the same bytecode javac would emit for the formula written
+ * out by hand, and the JIT compiles it just as well. The class file is written without stack map
+ * frames at a version that does not require them, so no bytecode library is needed.
+ *
+ * Loops are cached by program, so binding the same formula again, for another worker or another
+ * frame, reuses the class. Code generation is disabled by setting the system property
+ * morpheus.codegen to "false", or automatically if the runtime refuses to define a class, in
+ * which case expressions fall back to block kernels.
+ */
+final class LoopCompiler {
+
+    private static final int MAX_INPUTS = 100;
+    private static final int MAX_STEPS = 1000;
+    private static final int MAX_CACHED = 512;
+    private static final String NAME = "com/zavtech/morpheus/expr/FusedLoop$Generated";
+    private static final String DESCRIPTOR = "([[D[I[DII)V";
+
+    private static final Map<String,FusedLoop> cache = new ConcurrentHashMap<>();
+    private static volatile boolean enabled = !"false".equalsIgnoreCase(System.getProperty("morpheus.codegen"));
+
+    private LoopCompiler() {
+        super();
+    }
+
+    /**
+     * Returns true if arithmetic is compiled into generated loops
+     * @return  true if code generation is enabled
+     */
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables the compilation of arithmetic into generated loops, so tests can compare it with block kernels
+     * @param enabled   true to generate loops, false to use block kernels
+     */
+    static void setEnabled(boolean enabled) {
+        LoopCompiler.enabled = enabled;
+    }
+
+    /**
+     * Returns the loop for a program, generating it unless an identical program was compiled before
+     * @param program   the program
+     * @return          the loop, or null if the program is too large or code generation is unavailable
+     */
+    static FusedLoop compile(Program program) {
+        if (!enabled || program.inputs.size() > MAX_INPUTS || program.steps.size() > MAX_STEPS) {
+            return null;
+        }
+        final String key = program.toString();
+        FusedLoop loop = cache.get(key);
+        if (loop == null) {
+            try {
+                final byte[] bytes = new ClassWriter(program).toByteArray();
+                final MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+                loop = (FusedLoop)lookup.lookupClass().getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError | SecurityException ex) {
+                enabled = false;
+                return null;
+            }
+            if (cache.size() >= MAX_CACHED) {
+                cache.clear();
+            }
+            cache.put(key, loop);
+        }
+        return loop;
+    }
+
+
+    /**
+     * A postfix program over the inputs of an arithmetic formula, where each step is an input index, a constant or a function
+     */
+    static final class Program {
+
+        private final List<Object> steps = new ArrayList<>();
+        private final List<Expression> inputs = new ArrayList<>();
+
+        /**
+         * Appends a step that pushes the value of an input, which is shared with any equal input already added
+         * @param expression    the expression computing the input
+         */
+        void input(Expression expression) {
+            int index = inputs.indexOf(expression);
+            if (index < 0) {
+                index = inputs.size();
+                this.inputs.add(expression);
+            }
+            this.steps.add(index);
+        }
+
+        /**
+         * Appends a step that pushes a constant
+         * @param value the constant
+         */
+        void constant(double value) {
+            this.steps.add(value);
+        }
+
+        /**
+         * Appends a step that applies a function to the top two values, folding it if both are constants
+         * @param function  the function
+         */
+        void binary(Expression.BinaryFunction function) {
+            final int size = steps.size();
+            if (size >= 2 && steps.get(size - 1) instanceof Double && steps.get(size - 2) instanceof Double) {
+                final double right = (Double)steps.remove(size - 1);
+                final double left = (Double)steps.remove(size - 2);
+                this.steps.add(function.apply(left, right));
+            } else {
+                this.steps.add(function);
+            }
+        }
+
+        /**
+         * Appends a step that applies a function to the top value, folding it if it is a constant
+         * @param function  the function
+         */
+        void unary(Expression.UnaryFunction function) {
+            final int last = steps.size() - 1;
+            if (last >= 0 && steps.get(last) instanceof Double) {
+                this.steps.set(last, function.apply((Double)steps.get(last)));
+            } else {
+                this.steps.add(function);
+            }
+        }
+
+        /**
+         * Returns the expressions computing the inputs of this program, in input index order
+         * @return  the input expressions
+         */
+        List<Expression> inputs() {
+            return inputs;
+        }
+
+        /**
+         * Returns the value of this program if it folded to a constant, otherwise null
+         * @return  the constant value, or null
+         */
+        Double constant() {
+            return steps.size() == 1 && steps.get(0) instanceof Double ? (Double)steps.get(0) : null;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder text = new StringBuilder();
+            for (Object step : steps) {
+                text.append(text.length() > 0 ? " " : "");
+                text.append(step instanceof Integer ? "$" + step : step instanceof Expression.UnaryFunction ? step + "()" : step);
+            }
+            return text.toString();
+        }
+    }
+
+
+    /**
+     * Writes the class file of a FusedLoop for a program
+     */
+    private static final class ClassWriter {
+
+        private static final int ROW = 6;
+        private static final int FIRST_INPUT = 7;
+
+        private final Program program;
+        private final Buffer pool = new Buffer();
+        private final Map<String,Integer> entries = new HashMap<>();
+        private int poolCount = 1;
+
+        ClassWriter(Program program) {
+            this.program = program;
+        }
+
+        /**
+         * Returns the class file bytes
+         */
+        byte[] toByteArray() {
+            final Buffer run = runCode();
+            final Buffer init = new Buffer();
+            init.u1(0x2a).u1(0xb7).u2(method("java/lang/Object", "<init>", "()V")).u1(0xb1);
+            final int thisClass = type(NAME);
+            final int superClass = type("java/lang/Object");
+            final int loopInterface = type("com/zavtech/morpheus/expr/FusedLoop");
+            final int initName = utf8("<init>");
+            final int initDescriptor = utf8("()V");
+            final int runName = utf8("run");
+            final int runDescriptor = utf8(DESCRIPTOR);
+            final int code = utf8("Code");
+            final Buffer file = new Buffer();
+            file.u4(0xCAFEBABE).u2(0).u2(49);
+            file.u2(poolCount).bytes(pool);
+            file.u2(0x0030).u2(thisClass).u2(superClass);
+            file.u2(1).u2(loopInterface);
+            file.u2(0);
+            file.u2(2);
+            method(file, initName, initDescriptor, code, 1, 1, init);
+            method(file, runName, runDescriptor, code, maxStack(), FIRST_INPUT + 2 * program.inputs.size(), run);
+            file.u2(0);
+            return file.toArray();
+        }
+
+        /**
+         * Writes a public method with a code attribute
+         */
+        private static void method(Buffer file, int name, int descriptor, int codeName, int maxStack, int maxLocals, Buffer code) {
+            file.u2(0x0001).u2(name).u2(descriptor).u2(1);
+            file.u2(codeName).u4(12 + code.size());
+            file.u2(maxStack).u2(maxLocals).u4(code.size()).bytes(code);
+            file.u2(0).u2(0);
+        }
+
+        /**
+         * Returns the code of run(), which loads each input array and offset into locals and loops over the rows of the block
+         */
+        private Buffer runCode() {
+            final Buffer code = new Buffer();
+            for (int k = 0; k < program.inputs.size(); ++k) {
+                code.u1(0x2b);
+                pushInt(code, k);
+                code.u1(0x32).u1(0x3a).u1(FIRST_INPUT + 2 * k);
+                code.u1(0x2c);
+                pushInt(code, k);
+                code.u1(0x2e).u1(0x36).u1(FIRST_INPUT + 2 * k + 1);
+            }
+            code.u1(0x03).u1(0x36).u1(ROW);
+            final int loop = code.size();
+            code.u1(0x15).u1(ROW).u1(0x15).u1(5);
+            final int branch = code.size();
+            code.u1(0xa2).u2(0);
+            code.u1(0x2d).u1(0x15).u1(4).u1(0x15).u1(ROW).u1(0x60);
+            for (Object step : program.steps) {
+                if (step instanceof Integer) {
+                    final int k = (Integer)step;
+                    code.u1(0x19).u1(FIRST_INPUT + 2 * k).u1(0x15).u1(FIRST_INPUT + 2 * k + 1).u1(0x15).u1(ROW).u1(0x60).u1(0x31);
+                } else if (step instanceof Double) {
+                    code.u1(0x14).u2(constant((Double)step));
+                } else if (step instanceof Expression.BinaryFunction) {
+                    binary(code, (Expression.BinaryFunction)step);
+                } else {
+                    unary(code, (Expression.UnaryFunction)step);
+                }
+            }
+            code.u1(0x52);
+            code.u1(0x84).u1(ROW).u1(1);
+            code.u1(0xa7).u2(loop - code.size() + 1);
+            code.patch(branch + 1, code.size() - branch);
+            code.u1(0xb1);
+            return code;
+        }
+
+        /**
+         * Writes the instructions for a function of the top two doubles
+         */
+        private void binary(Buffer code, Expression.BinaryFunction function) {
+            switch (function) {
+                case ADD:       code.u1(0x63);  break;
+                case SUBTRACT:  code.u1(0x67);  break;
+                case MULTIPLY:  code.u1(0x6b);  break;
+                case DIVIDE:    code.u1(0x6f);  break;
+                case POW:       code.u1(0xb8).u2(method("java/lang/Math", "pow", "(DD)D"));  break;
+                case MIN:       code.u1(0xb8).u2(method("java/lang/Math", "min", "(DD)D"));  break;
+                case MAX:       code.u1(0xb8).u2(method("java/lang/Math", "max", "(DD)D"));  break;
+                default:        throw new IllegalStateException("Unsupported function: " + function);
+            }
+        }
+
+        /**
+         * Writes the instructions for a function of the top double
+         */
+        private void unary(Buffer code, Expression.UnaryFunction function) {
+            if (function == Expression.UnaryFunction.NEGATE) {
+                code.u1(0x77);
+            } else {
+                code.u1(0xb8).u2(method("java/lang/Math", function.toString(), "(D)D"));
+            }
+        }
+
+        /**
+         * Writes the shortest instruction that pushes a small non-negative int
+         */
+        private static void pushInt(Buffer code, int value) {
+            if (value <= 5) {
+                code.u1(0x03 + value);
+            } else {
+                code.u1(0x10).u1(value);
+            }
+        }
+
+        /**
+         * Returns the max operand stack depth of run() in slots, where each double takes two
+         */
+        private int maxStack() {
+            int depth = 0;
+            int max = 0;
+            for (Object step : program.steps) {
+                if (step instanceof Integer) {
+                    max = Math.max(max, depth + 3);
+                    depth += 2;
+                } else if (step instanceof Double) {
+                    depth += 2;
+                } else if (step instanceof Expression.BinaryFunction) {
+                    depth -= 2;
+                }
+                max = Math.max(max, depth);
+            }
+            return 2 + max;
+        }
+
+        private int utf8(String value) {
+            return entry("U" + value, () -> pool.u1(1).u2(value.length()).ascii(value), 1);
+        }
+
+        private int type(String name) {
+            final int index = utf8(name);
+            return entry("C" + name, () -> pool.u1(7).u2(index), 1);
+        }
+
+        private int method(String owner, String name, String descriptor) {
+            final int type = type(owner);
+            final int nameIndex = utf8(name);
+            final int descriptorIndex = utf8(descriptor);
+            final int nameAndType = entry("N" + name + descriptor, () -> pool.u1(12).u2(nameIndex).u2(descriptorIndex), 1);
+            return entry("M" + owner + "." + name + descriptor, () -> pool.u1(10).u2(type).u2(nameAndType), 1);
+        }
+
+        private int constant(double value) {
+            final long bits = Double.doubleToRawLongBits(value);
+            return entry("D" + bits, () -> pool.u4((int)(bits >>> 32)).u4((int)bits), 2, 6);
+        }
+
+        private int entry(String key, Runnable writer, int slots) {
+            return entry(key, writer, slots, -1);
+        }
+
+        /**
+         * Returns the pool index of an entry, writing it first if it is not already in the pool
+         */
+        private int entry(String key, Runnable writer, int slots, int tag) {
+            final Integer existing = entries.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            final int index = poolCount;
+            if (tag >= 0) {
+                this.pool.u1(tag);
+            }
+            writer.run();
+            this.entries.put(key, index);
+            this.poolCount += slots;
+            return index;
+        }
+    }
+
+
+    /**
+     * A growable big endian byte buffer
+     */
+    private static final class Buffer {
+
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        Buffer u1(int value) {
+            if (size == bytes.length) {
+                this.bytes = Arrays.copyOf(bytes, size * 2);
+            }
+            this.bytes[size++] = (byte)value;
+            return this;
+        }
+
+        Buffer u2(int value) {
+            return u1(value >>> 8).u1(value);
+        }
+
+        Buffer u4(int value) {
+            return u2(value >>> 16).u2(value);
+        }
+
+        Buffer ascii(String value) {
+            for (int i = 0; i < value.length(); ++i) {
+                u1(value.charAt(i));
+            }
+            return this;
+        }
+
+        Buffer bytes(Buffer other) {
+            for (int i = 0; i < other.size; ++i) {
+                u1(other.bytes[i]);
+            }
+            return this;
+        }
+
+        void patch(int position, int value) {
+            this.bytes[position] = (byte)(value >>> 8);
+            this.bytes[position + 1] = (byte)value;
+        }
+
+        byte[] toArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.zavtech.morpheus.expr;
+
+import java.util.Arrays;
+
+import com.zavtech.morpheus.filter.Comparison;
+
+/**
+ * A compiled condition node that tests one block of rows at a time into a mask of flags.
+ *
+ * Like value kernels, test kernels are specialized for their operator and operand shapes, run one
+ * loop per block, remember the block they last tested and own their scratch buffers.
+ */
+abstract class TestKernel {
+
+    /** The flags of the last block tested from index zero, set for rows that satisfy the test */
+    boolean[] mask;
+
+    private int row = -1;
+    private int count;
+    private boolean[] buffer;
+
+    /**
+     * Tests a block of rows, unless it was tested by the last call
+     * @param row   the first row of the block
+     * @param count the number of rows in the block, at most BLOCK_SIZE
+     */
+    final void eval(int row, int count) {
+        if (row != this.row || count != this.count) {
+            this.compute(row, count);
+            this.row = row;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Tests a block of rows into mask
+     * @param row   the first row of the block
+     * @param count the number of rows in the block
+     */
+    abstract void compute(int row, int count);
+
+    /**
+     * Returns the scratch buffer of this kernel, which also becomes its mask
+     * @return  the mask buffer
+     */
+    final boolean[] buffer() {
+        if (buffer == null) {
+            this.buffer = new boolean[ValueKernel.BLOCK_SIZE];
+        }
+        this.mask = buffer;
+        return buffer;
+    }
+
+    /**
+     * Returns the number of set flags in a mask
+     * @param mask  the mask
+     * @param count the number of rows in the block
+     * @return      the number of set flags
+     */
+    static int cardinality(boolean[] mask, int count) {
+        int result = 0;
+        for (int i = 0; i < count; ++i) {
+            result += mask[i] ? 1 : 0;
+        }
+        return result;
+    }
+
+    /**
+     * Clears the flags of rows that are null in either of two sets of null flags, which may be null if they have no nulls
+     */
+    static void clearNulls(boolean[] mask, boolean[] x, boolean[] y, int count) {
+        if (x != null) {
+            for (int i = 0; i < count; ++i) {
+                mask[i] &= !x[i];
+            }
+        }
+        if (y != null) {
+            for (int i = 0; i < count; ++i) {
+                mask[i] &= !y[i];
+            }
+        }
+    }
+
+
+    /**
+     * Compares the values of two kernels
+     */
+    static final class CompareKernel extends TestKernel {
+
+        private final ValueKernel left;
+        private final Comparison.Operator operator;
+        private final ValueKernel right;
+
+        CompareKernel(ValueKernel left, Comparison.Operator operator, ValueKernel right) {
+            this.left = left;
+            this.operator = operator;
+            this.right = right;
+        }
+
+        @Override
+        void compute(int row, int count) {
+            left.eval(row, count);
+            right.eval(row, count);
+            final double[] a = left.values;
+            final double[] b = right.values;
+            final int ao = left.offset;
+            final int bo = right.offset;
+            final boolean[] out = buffer();
+            switch (operator) {
+                case EQ:
+                    for (int i = 0; i < count; ++i) {
+                        out[i] = a[ao + i] == b[bo + i];
+                    }
+                    break;
+                case NE:
+                    for (int i = 0; i < count; ++i) {
+                        out[i] = a[ao + i] != b[bo + i];
+                    }
+                    break;
+                case LT:
+                    for (int i = 0; i < count; ++i) {
+                        out[i] = a[ao + i] < b[bo + i];
+                    }
+                    break;
+                case LE:
+                    for (int i = 0; i < count; ++i) {
+                        out[i] = a[ao + i] <= b[bo + i];
+                    }
+                    break;
+                case GT:
+                    for (int i = 0; i < count; ++i) {
+                        out[i] = a[ao + i] > b[bo + i];
+                    }
+                    break;
+                case GE:
+                    for (int i = 0; i < count; ++i) {
+                        out[i] = a[ao + i] >= b[bo + i];
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unsupported operator: " + operator);
+            }
+            clearNulls(out, left.nulls, right.nulls, count);
+        }
+    }
+
+
+    /**
+     * Compares the values of a kernel with a constant
+     */
+    static final class CompareScalarKernel extends TestKernel {
+
+        private final ValueKernel operand;
+        private final Comparison.Operator operator;
+        private final double constant;
+
+        CompareScalarKernel(ValueKernel operand, Comparison.Operator operator, double constant) {
+            this.operand = operand;
+            this.operator = operator;
+            this.constant = constant;
+        }
+
+        @Override
+        void compute(int row, int count) {
+            operand.eval(row, count);
+            final double[] a = operand.values;
+            final int ao = operand.offset;
+            final double c = constant;
+            final boolean[] out = buffer();
+            switch (operator) {
+                case EQ:
+                    for (int i = 0; i < count; ++i) {
+                        out[i] = a[ao + i] == c;
+                    }
+                    break;
+                case NE:
+                    for (int i = 0; i < count; ++i) {
+                        out[i] = a[ao + i] != c;
+                    }
+                    break;
+                case LT:
+                    for (int i = 0; i < count; ++i) {
+                        out[i] = a[ao + i] < c;
+                    }
+                    break;
+                case LE:
+                    for (int i = 0; i < count; ++i) {
+                        out[i] = a[ao + i] <= c;
+                    }
+                    break;
+                case GT:
+                    for (int i = 0; i < count; ++i) {
+                        out[i] = a[ao + i] > c;
+                    }
+                    break;
+                case GE:
+                    for (int i = 0; i < count; ++i) {
+                        out[i] = a[ao + i] >= c;
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unsupported operator: " + operator);
+            }
+            clearNulls(out, operand.nulls, null, count);
+        }
+    }
+
+
+    /**
+     * Tests whether the values of a kernel are null
+     */
+    static final class NullKernel extends TestKernel {
+
+        private final ValueKernel operand;
+        private final boolean nulls;
+
+        NullKernel(ValueKernel operand, boolean nulls) {
+            this.operand = operand;
+            this.nulls = nulls;
+        }
+
+        @Override
+        void compute(int row, int count) {
+            operand.eval(row, count);
+            final boolean[] flags = operand.nulls;
+            final boolean[] out = buffer();
+            if (flags == null) {
+                Arrays.fill(out, 0, count, !nulls);
+            } else {
+                for (int i = 0; i < count; ++i) {
+                    out[i] = flags[i] == nulls;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Satisfied where all operands are, skipping the remaining operands once no row of a block can be
+     */
+    static final class AndKernel extends TestKernel {
+
+        private final TestKernel[] operands;
+
+        AndKernel(TestKernel[] operands) {
+            this.operands = operands;
+        }
+
+        @Override
+        void compute(int row, int count) {
+            final boolean[] out = buffer();
+            operands[0].eval(row, count);
+            System.arraycopy(operands[0].mask, 0, out, 0, count);
+            for (int k = 1; k < operands.length && cardinality(out, count) > 0; ++k) {
+                operands[k].eval(row, count);
+                final boolean[] flags = operands[k].mask;
+                for (int i = 0; i < count; ++i) {
+                    out[i] &= flags[i];
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Satisfied where any operand is, skipping the remaining operands once every row of a block is
+     */
+    static final class OrKernel extends TestKernel {
+
+        private final TestKernel[] operands;
+
+        OrKernel(TestKernel[] operands) {
+            this.operands = operands;
+        }
+
+        @Override
+        void compute(int row, int count) {
+            final boolean[] out = buffer();
+            operands[0].eval(row, count);
+            System.arraycopy(operands[0].mask, 0, out, 0, count);
+            for (int k = 1; k < operands.length && cardinality(out, count) < count; ++k) {
+                operands[k].eval(row, count);
+                final boolean[] flags = operands[k].mask;
+                for (int i = 0; i < count; ++i) {
+                    out[i] |= flags[i];
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Satisfied where its operand is not, including rows that are null in the operand, as with Predicate.negate()
+     */
+    static final class NotKernel extends TestKernel {
+
+        private final TestKernel operand;
+
+        NotKernel(TestKernel operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        void compute(int row, int count) {
+            operand.eval(row, count);
+            final boolean[] flags = operand.mask;
+            final boolean[] out = buffer();
+            for (int i = 0; i < count; ++i) {
+                out[i] = !flags[i];
+            }
+        }
+    }
+
+
+    /**
+     * Reads the bits of a predicate evaluated over the whole frame in advance
+     */
+    static final class BitsetKernel extends TestKernel {
+
+        private final long[] words;
+
+        BitsetKernel(long[] words) {
+            this.words = words;
+        }
+
+        @Override
+        void compute(int row, int count) {
+            final boolean[] out = buffer();
+            for (int i = 0; i < count; ++i) {
+                final int r = row + i;
+                out[i] = (words[r >>> 6] & (1L << r)) != 0L;
+            }
+        }
+    }
+}
@@ -0,0 +1,580 @@
+package com.zavtech.morpheus.expr;
+
+import java.util.Arrays;
+
+import com.zavtech.morpheus.column.DoubleArrayColumn;
+import com.zavtech.morpheus.column.NumericColumn;
+
+/**
+ * A compiled expression node that computes its values one block of rows at a time.
+ *
+ * Each kernel is specialized at bind time for its operator and the shape of its operands, and
+ * runs one loop per block over primitive arrays, so dispatch costs one virtual call per block
+ * rather than one per row, and the loops are simple enough for the JIT to unroll and vectorize.
+ * Arithmetic is normally computed by a FusedKernel running a generated loop, while the binary,
+ * scalar, multiply-add and unary kernels stand in for it where code generation is unavailable.
+ * Heap double columns are read in place without copying, and the root kernel may write straight
+ * into the result column. A kernel remembers the block it last computed, so a kernel shared by
+ * several parents is computed once per block. Kernels own scratch buffers, so each worker binds
+ * a tree of its own.
+ */
+abstract class ValueKernel {
+
+    /** The max number of rows in a block, small enough for the buffers of a kernel tree to stay in cache */
+    static final int BLOCK_SIZE = 1024;
+
+    /** The values of the last block computed, starting at offset */
+    double[] values;
+    /** The index in values of the first row of the last block */
+    int offset;
+    /** The null flags of the last block from index zero, or null if no row of the block is null */
+    boolean[] nulls;
+
+    private int row = -1;
+    private int count;
+    private double[] buffer;
+    private boolean[] nullBuffer;
+    private double[] sink;
+
+    /**
+     * Computes the values of a block of rows, unless they were computed by the last call
+     * @param row   the first row of the block
+     * @param count the number of rows in the block, at most BLOCK_SIZE
+     */
+    final void eval(int row, int count) {
+        if (row != this.row || count != this.count) {
+            this.compute(row, count);
+            this.row = row;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Computes the values of a block of rows into values, offset and nulls
+     * @param row   the first row of the block
+     * @param count the number of rows in the block
+     */
+    abstract void compute(int row, int count);
+
+    /**
+     * Directs kernels that write their own results to write them at their row index in the array specified
+     * @param sink  the array of all rows, or null to write into a scratch buffer
+     */
+    void setSink(double[] sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Returns the scratch buffer of this kernel
+     * @return  the scratch buffer
+     */
+    final double[] buffer() {
+        if (buffer == null) {
+            this.buffer = new double[BLOCK_SIZE];
+        }
+        return buffer;
+    }
+
+    /**
+     * Points values and offset at the array this kernel writes the block starting at the row specified into
+     * @param row   the first row of the block
+     * @return      the array to write into, from index offset
+     */
+    final double[] target(int row) {
+        if (sink != null) {
+            this.values = sink;
+            this.offset = row;
+        } else {
+            this.values = buffer();
+            this.offset = 0;
+        }
+        return values;
+    }
+
+    /**
+     * Returns the scratch buffer of this kernel for null flags
+     * @return  the null buffer
+     */
+    final boolean[] nullBuffer() {
+        if (nullBuffer == null) {
+            this.nullBuffer = new boolean[BLOCK_SIZE];
+        }
+        return nullBuffer;
+    }
+
+    /**
+     * Returns the union of two sets of null flags, either of which may be null if it has no nulls
+     * @param x     the first null flags
+     * @param y     the second null flags
+     * @param count the number of rows in the block
+     * @return      the union, or null if neither has nulls
+     */
+    final boolean[] union(boolean[] x, boolean[] y, int count) {
+        if (x == null) {
+            return y;
+        } else if (y == null) {
+            return x;
+        } else {
+            final boolean[] out = nullBuffer();
+            for (int i = 0; i < count; ++i) {
+                out[i] = x[i] | y[i];
+            }
+            return out;
+        }
+    }
+
+    /**
+     * Takes on the results of another kernel for the current block without copying them
+     * @param kernel    the kernel whose results to share
+     */
+    final void share(ValueKernel kernel) {
+        this.values = kernel.values;
+        this.offset = kernel.offset;
+        this.nulls = kernel.nulls;
+    }
+
+
+    /**
+     * Reads the values of a numeric column, in place for heap double columns
+     */
+    static final class ColumnKernel extends ValueKernel {
+
+        private final NumericColumn column;
+        private final double[] array;
+        private final long[] valid;
+
+        ColumnKernel(NumericColumn column) {
+            this.column = column;
+            this.array = column instanceof DoubleArrayColumn ? ((DoubleArrayColumn)column).values() : null;
+            this.valid = column.validity().words();
+        }
+
+        @Override
+        void compute(int row, int count) {
+            if (array != null) {
+                this.values = array;
+                this.offset = row;
+            } else {
+                this.values = buffer();
+                this.offset = 0;
+                this.column.getDoubles(row, values, 0, count);
+            }
+            this.nulls = valid != null ? nulls(row, count) : null;
+        }
+
+        /**
+         * Returns the null flags of a block, or null if the words covering it are all valid
+         */
+        private boolean[] nulls(int row, int count) {
+            final int last = (row + count - 1) >>> 6;
+            int word = row >>> 6;
+            while (word <= last && valid[word] == -1L) {
+                word++;
+            }
+            if (word > last) {
+                return null;
+            }
+            final boolean[] out = nullBuffer();
+            for (int i = 0; i < count; ++i) {
+                final int r = row + i;
+                out[i] = (valid[r >>> 6] & (1L << r)) == 0L;
+            }
+            return out;
+        }
+    }
+
+
+    /**
+     * Holds the same value for every row
+     */
+    static final class ConstantKernel extends ValueKernel {
+
+        private final double value;
+
+        ConstantKernel(double value) {
+            this.value = value;
+            this.values = new double[BLOCK_SIZE];
+            Arrays.fill(values, value);
+        }
+
+        /**
+         * Returns the constant value
+         * @return  the value
+         */
+        double value() {
+            return value;
+        }
+
+        @Override
+        void compute(int row, int count) {
+            this.offset = 0;
+        }
+    }
+
+
+    /**
+     * Computes an arithmetic formula over the values of its input kernels with a generated loop
+     */
+    static final class FusedKernel extends ValueKernel {
+
+        private final FusedLoop loop;
+        private final ValueKernel[] inputs;
+        private final double[][] arrays;
+        private final int[] offsets;
+
+        FusedKernel(FusedLoop loop, ValueKernel[] inputs) {
+            this.loop = loop;
+            this.inputs = inputs;
+            this.arrays = new double[inputs.length][];
+            this.offsets = new int[inputs.length];
+        }
+
+        @Override
+        void compute(int row, int count) {
+            boolean[] flags = null;
+            for (int k = 0; k < inputs.length; ++k) {
+                final ValueKernel input = inputs[k];
+                input.eval(row, count);
+                this.arrays[k] = input.values;
+                this.offsets[k] = input.offset;
+                flags = union(flags, input.nulls, count);
+            }
+            final double[] out = target(row);
+            this.loop.run(arrays, offsets, out, offset, count);
+            this.nulls = flags;
+        }
+    }
+
+
+    /**
+     * Applies a function to the values of two kernels
+     */
+    static final class BinaryKernel extends ValueKernel {
+
+        private final Expression.BinaryFunction function;
+        private final ValueKernel left;
+        private final ValueKernel right;
+
+        BinaryKernel(Expression.BinaryFunction function, ValueKernel left, ValueKernel right) {
+            this.function = function;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        void compute(int row, int count) {
+            left.eval(row, count);
+            right.eval(row, count);
+            final double[] a = left.values;
+            final double[] b = right.values;
+            final int ao = left.offset;
+            final int bo = right.offset;
+            final double[] out = target(row);
+            final int o = offset;
+            switch (function) {
+                case ADD:
+                    for (int i = 0; i < count; ++i) {
+                        out[o + i] = a[ao + i] + b[bo + i];
+                    }
+                    break;
+                case SUBTRACT:
+                    for (int i = 0; i < count; ++i) {
+                        out[o + i] = a[ao + i] - b[bo + i];
+                    }
+                    break;
+                case MULTIPLY:
+                    for (int i = 0; i < count; ++i) {
+                        out[o + i] = a[ao + i] * b[bo + i];
+                    }
+                    break;
+                case DIVIDE:
+                    for (int i = 0; i < count; ++i) {
+                        out[o + i] = a[ao + i] / b[bo + i];
+                    }
+                    break;
+                case MIN:
+                    for (int i = 0; i < count; ++i) {
+                        out[o + i] = Math.min(a[ao + i], b[bo + i]);
+                    }
+                    break;
+                case MAX:
+                    for (int i = 0; i < count; ++i) {
+                        out[o + i] = Math.max(a[ao + i], b[bo + i]);
+                    }
+                    break;
+                default:
+                    for (int i = 0; i < count; ++i) {
+                        out[o + i] = function.apply(a[ao + i], b[bo + i]);
+                    }
+            }
+            this.nulls = union(left.nulls, right.nulls, count);
+        }
+    }
+
+
+    /**
+     * Applies a function to the values of a kernel and a constant, which is the left operand if reversed
+     */
+    static final class ScalarKernel extends ValueKernel {
+
+        private final Expression.BinaryFunction function;
+        private final ValueKernel operand;
+        private final double constant;
+        private final boolean reversed;
+
+        ScalarKernel(Expression.BinaryFunction function, ValueKernel operand, double constant, boolean reversed) {
+            this.function = function;
+            this.operand = operand;
+            this.constant = constant;
+            this.reversed = reversed;
+        }
+
+        @Override
+        void compute(int row, int count) {
+            operand.eval(row, count);
+            final double[] a = operand.values;
+            final int ao = operand.offset;
+            final double c = constant;
+            final double[] out = target(row);
+            final int o = offset;
+            if (reversed) {
+                switch (function) {
+                    case SUBTRACT:
+                        for (int i = 0; i < count; ++i) {
+                            out[o + i] = c - a[ao + i];
+                        }
+                        break;
+                    case DIVIDE:
+                        for (int i = 0; i < count; ++i) {
+                            out[o + i] = c / a[ao + i];
+                        }
+                        break;
+                    default:
+                        for (int i = 0; i < count; ++i) {
+                            out[o + i] = function.apply(c, a[ao + i]);
+                        }
+                }
+            } else {
+                switch (function) {
+                    case ADD:
+                        for (int i = 0; i < count; ++i) {
+                            out[o + i] = a[ao + i] + c;
+                        }
+                        break;
+                    case SUBTRACT:
+                        for (int i = 0; i < count; ++i) {
+                            out[o + i] = a[ao + i] - c;
+                        }
+                        break;
+                    case MULTIPLY:
+                        for (int i = 0; i < count; ++i) {
+                            out[o + i] = a[ao + i] * c;
+                        }
+                        break;
+                    case DIVIDE:
+                        for (int i = 0; i < count; ++i) {
+                            out[o + i] = a[ao + i] / c;
+                        }
+                        break;
+                    case MIN:
+                        for (int i = 0; i < count; ++i) {
+                            out[o + i] = Math.min(a[ao + i], c);
+                        }
+                        break;
+                    case MAX:
+                        for (int i = 0; i < count; ++i) {
+                            out[o + i] = Math.max(a[ao + i], c);
+                        }
+                        break;
+                    default:
+                        for (int i = 0; i < count; ++i) {
+                            out[o + i] = function.apply(a[ao + i], c);
+                        }
+                }
+            }
+            this.nulls = operand.nulls;
+        }
+    }
+
+
+    /**
+     * Computes a * b + c in a single pass, rounding the product before the addition exactly as separate kernels would
+     */
+    static final class MultiplyAddKernel extends ValueKernel {
+
+        private final ValueKernel x;
+        private final ValueKernel y;
+        private final ValueKernel z;
+
+        MultiplyAddKernel(ValueKernel x, ValueKernel y, ValueKernel z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        @Override
+        void compute(int row, int count) {
+            x.eval(row, count);
+            y.eval(row, count);
+            z.eval(row, count);
+            final double[] a = x.values;
+            final double[] b = y.values;
+            final double[] c = z.values;
+            final int ao = x.offset;
+            final int bo = y.offset;
+            final int co = z.offset;
+            final double[] out = target(row);
+            final int o = offset;
+            for (int i = 0; i < count; ++i) {
+                out[o + i] = a[ao + i] * b[bo + i] + c[co + i];
+            }
+            this.nulls = union(union(x.nulls, y.nulls, count), z.nulls, count);
+        }
+    }
+
+
+    /**
+     * Applies a function to the values of a kernel
+     */
+    static final class UnaryKernel extends ValueKernel {
+
+        private final Expression.UnaryFunction function;
+        private final ValueKernel operand;
+
+        UnaryKernel(Expression.UnaryFunction function, ValueKernel operand) {
+            this.function = function;
+            this.operand = operand;
+        }
+
+        @Override
+        void compute(int row, int count) {
+            operand.eval(row, count);
+            final double[] a = operand.values;
+            final int ao = operand.offset;
+            final double[] out = target(row);
+            final int o = offset;
+            switch (function) {
+                case NEGATE:
+                    for (int i = 0; i < count; ++i) {
+                        out[o + i] = -a[ao + i];
+                    }
+                    break;
+                case ABS:
+                    for (int i = 0; i < count; ++i) {
+                        out[o + i] = Math.abs(a[ao + i]);
+                    }
+                    break;
+                case SQRT:
+                    for (int i = 0; i < count; ++i) {
+                        out[o + i] = Math.sqrt(a[ao + i]);
+                    }
+                    break;
+                default:
+                    for (int i = 0; i < count; ++i) {
+                        out[o + i] = function.apply(a[ao + i]);
+                    }
+            }
+            this.nulls = operand.nulls;
+        }
+    }
+
+
+    /**
+     * Selects the values of one kernel where a test holds and of another where it does not.
+     * When a test selects the same branch for every row of a block, only that branch is computed.
+     */
+    static final class ConditionalKernel extends ValueKernel {
+
+        private final TestKernel test;
+        private final ValueKernel then;
+        private final ValueKernel otherwise;
+
+        ConditionalKernel(TestKernel test, ValueKernel then, ValueKernel otherwise) {
+            this.test = test;
+            this.then = then;
+            this.otherwise = otherwise;
+        }
+
+        @Override
+        void compute(int row, int count) {
+            test.eval(row, count);
+            final boolean[] mask = test.mask;
+            final int selected = TestKernel.cardinality(mask, count);
+            if (selected == count) {
+                then.eval(row, count);
+                this.share(then);
+            } else if (selected == 0) {
+                otherwise.eval(row, count);
+                this.share(otherwise);
+            } else {
+                then.eval(row, count);
+                otherwise.eval(row, count);
+                final double[] a = then.values;
+                final double[] b = otherwise.values;
+                final int ao = then.offset;
+                final int bo = otherwise.offset;
+                final double[] out = target(row);
+                final int o = offset;
+                for (int i = 0; i < count; ++i) {
+                    out[o + i] = mask[i] ? a[ao + i] : b[bo + i];
+                }
+                final boolean[] x = then.nulls;
+                final boolean[] y = otherwise.nulls;
+                if (x == null && y == null) {
+                    this.nulls = null;
+                } else {
+                    final boolean[] flags = nullBuffer();
+                    for (int i = 0; i < count; ++i) {
+                        flags[i] = mask[i] ? x != null && x[i] : y != null && y[i];
+                    }
+                    this.nulls = flags;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Takes the values of one kernel, or of another for rows where the first is null
+     */
+    static final class CoalesceKernel extends ValueKernel {
+
+        private final ValueKernel first;
+        private final ValueKernel second;
+
+        CoalesceKernel(ValueKernel first, ValueKernel second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        void compute(int row, int count) {
+            first.eval(row, count);
+            final boolean[] x = first.nulls;
+            if (x == null) {
+                this.share(first);
+            } else {
+                second.eval(row, count);
+                final double[] a = first.values;
+                final double[] b = second.values;
+                final int ao = first.offset;
+                final int bo = second.offset;
+                final double[] out = target(row);
+                final int o = offset;
+                for (int i = 0; i < count; ++i) {
+                    out[o + i] = x[i] ? b[bo + i] : a[ao + i];
+                }
+                final boolean[] y = second.nulls;
+                if (y == null) {
+                    this.nulls = null;
+                } else {
+                    final boolean[] flags = nullBuffer();
+                    for (int i = 0; i < count; ++i) {
+                        flags[i] = x[i] & y[i];
+                    }
+                    this.nulls = flags;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.zavtech.morpheus.filter;
+
+import java.util.Arrays;
+
+/**
+ * Static helpers for row bitsets stored as arrays of 64-bit words, where bit i of word i / 64 represents row i.
+ */
+public final class Bitsets {
+
+    private Bitsets() {
+        super();
+    }
+
+    /**
+     * Returns a new bitset with capacity for the number of rows specified, all clear
+     * @param rows  the number of rows
+     * @return      the bitset words
+     */
+    public static long[] create(int rows) {
+        return new long[(rows + 63) >>> 6];
+    }
+
+    /**
+     * Returns a new bitset with a bit set for each of the number of rows specified
+     * @param rows  the number of rows
+     * @return      the bitset words
+     */
+    public static long[] full(int rows) {
+        final long[] words = create(rows);
+        Arrays.fill(words, -1L);
+        clearTail(words, rows);
+        return words;
+    }
+
+    /**
+     * Clears any bits beyond the row count in the last word of a bitset
+     * @param words the bitset words
+     * @param rows  the number of rows
+     */
+    public static void clearTail(long[] words, int rows) {
+        final int tail = rows & 63;
+        if (tail != 0) {
+            words[words.length - 1] &= (1L << tail) - 1L;
+        }
+    }
+
+    /**
+     * Returns the number of set bits
+     * @param words the bitset words
+     * @return      the number of set bits
+     */
+    public static int cardinality(long[] words) {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of set bits in a range of words
+     * @param words the bitset words
+     * @param from  the index of the first word, inclusive
+     * @param to    the index of the last word, exclusive
+     * @return      the number of set bits
+     */
+    public static int cardinality(long[] words, int from, int to) {
+        int count = 0;
+        for (int w = from; w < to; ++w) {
+            count += Long.bitCount(words[w]);
+        }
+        return count;
+    }
+
+    /**
+     * Returns true if no bits are set
+     * @param words the bitset words
+     * @return      true if the bitset is empty
+     */
+    public static boolean isEmpty(long[] words) {
+        for (long word : words) {
+            if (word != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Clears the bits of the target that are clear in the other bitset
+     * @param target    the bitset to modify
+     * @param other     the bitset to intersect with
+     */
+    public static void and(long[] target, long[] other) {
+        for (int w = 0; w < target.length; ++w) {
+            target[w] &= other[w];
+        }
+    }
+
+    /**
+     * Sets the bits of the target that are set in the other bitset
+     * @param target    the bitset to modify
+     * @param other     the bitset to merge
+     */
+    public static void or(long[] target, long[] other) {
+        for (int w = 0; w < target.length; ++w) {
+            target[w] |= other[w];
+        }
+    }
+
+    /**
+     * Clears the bits of the target that are set in the other bitset
+     * @param target    the bitset to modify
+     * @param other     the bitset to subtract
+     */
+    public static void andNot(long[] target, long[] other) {
+        for (int w = 0; w < target.length; ++w) {
+            target[w] &= ~other[w];
+        }
+    }
+
+    /**
+     * Returns a bitset with a bit set for each of the row indexes specified
+     * @param rows      the row indexes, each less than the row count
+     * @param rowCount  the number of rows
+     * @return          the bitset words
+     */
+    public static long[] fromRows(int[] rows, int rowCount) {
+        final long[] words = create(rowCount);
+        for (int row : rows) {
+            if (row < 0 || row >= rowCount) {
+                throw new IndexOutOfBoundsException("Row " + row + " is out of bounds for " + rowCount + " rows");
+            }
+            words[row >>> 6] |= 1L << row;
+        }
+        return words;
+    }
+
+    /**
+     * Copies the values of the rows in a range whose bits are set into the output array, packed together in order
+     * @param words     the bitset words
+     * @param from      the row of the first value, which must be a multiple of 64
+     * @param values    the values of the range
+     * @param offset    the offset of the first value in the values array
+     * @param count     the number of values in the range
+     * @param out       the output array, which may be the values array if offset is zero
+     * @return          the number of values copied
+     */
+    public static int compact(long[] words, int from, double[] values, int offset, int count, double[] out) {
+        int size = 0;
+        for (int i = 0; i < count; i += 64) {
+            final int span = Math.min(64, count - i);
+            final long mask = span == 64 ? -1L : (1L << span) - 1L;
+            final long bits = words[(from + i) >>> 6] & mask;
+            if (bits == mask) {
+                System.arraycopy(values, offset + i, out, size, span);
+                size += span;
+            } else if (bits != 0L) {
+                for (int j = 0; j < span; ++j) {
+                    out[size] = values[offset + i + j];
+                    size += (int)(bits >>> j) & 1;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the indexes of set bits in ascending order
+     * @param words the bitset words
+     * @return      the row indexes
+     */
+    public static int[] toRows(long[] words) {
+        final int[] rows = new int[cardinality(words)];
+        int index = 0;
+        for (int w = 0; w < words.length; ++w) {
+            long word = words[w];
+            while (word != 0L) {
+                rows[index++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1L;
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,508 @@
+package com.zavtech.morpheus.filter;
+
+import java.util.Collections;
+import java.util.Set;
+
+import com.zavtech.morpheus.column.BooleanColumn;
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleArrayColumn;
+import com.zavtech.morpheus.column.EncodedColumn;
+import com.zavtech.morpheus.column.IntArrayColumn;
+import com.zavtech.morpheus.column.IntColumn;
+import com.zavtech.morpheus.column.LongArrayColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.NumericColumn;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+
+/**
+ * A predicate that compares the values of a single column with a constant.
+ *
+ * Integer columns are compared exactly as longs when the constant is integral, other
+ * numeric columns are compared as doubles, so that NaN never satisfies any operator
+ * other than NE. Boolean columns support EQ and NE against 1 (true) or 0 (false).
+ * Null rows never satisfy a comparison, whatever the operator. Batches of an EncodedColumn whose
+ * bounds decide the comparison for every row are resolved without decoding any values.
+ */
+public final class Comparison extends Predicate {
+
+    private static final int NONE = 0;
+    private static final int SOME = 1;
+    private static final int ALL = 2;
+
+    private final String column;
+    private final Operator operator;
+    private final double value;
+
+    /**
+     * The comparison operators
+     */
+    public enum Operator {
+
+        EQ("=="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">=");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        /**
+         * Returns the result of comparing two doubles with this operator
+         * @param left  the left operand
+         * @param right the right operand
+         * @return      the comparison result
+         */
+        public boolean test(double left, double right) {
+            switch (this) {
+                case EQ:    return left == right;
+                case NE:    return left != right;
+                case LT:    return left < right;
+                case LE:    return left <= right;
+                case GT:    return left > right;
+                case GE:    return left >= right;
+                default:    throw new IllegalStateException("Unsupported operator: " + this);
+            }
+        }
+
+        /**
+         * Returns the result of comparing two longs with this operator
+         * @param left  the left operand
+         * @param right the right operand
+         * @return      the comparison result
+         */
+        public boolean test(long left, long right) {
+            switch (this) {
+                case EQ:    return left == right;
+                case NE:    return left != right;
+                case LT:    return left < right;
+                case LE:    return left <= right;
+                case GT:    return left > right;
+                case GE:    return left >= right;
+                default:    throw new IllegalStateException("Unsupported operator: " + this);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return symbol;
+        }
+    }
+
+    /**
+     * Constructor
+     * @param column    the column name
+     * @param operator  the comparison operator
+     * @param value     the constant to compare with
+     */
+    public Comparison(String column, Operator operator, double value) {
+        if (column == null || operator == null) {
+            throw new IllegalArgumentException("Column and operator must be non-null");
+        }
+        this.column = column;
+        this.operator = operator;
+        this.value = value;
+    }
+
+    /**
+     * Returns the name of the column being compared
+     * @return  the column name
+     */
+    public String column() {
+        return column;
+    }
+
+    /**
+     * Returns the comparison operator
+     * @return  the operator
+     */
+    public Operator operator() {
+        return operator;
+    }
+
+    /**
+     * Returns the constant the column is compared with
+     * @return  the constant
+     */
+    public double value() {
+        return value;
+    }
+
+    @Override
+    public Set<String> columns() {
+        return Collections.singleton(column);
+    }
+
+    @Override
+    public long[] evaluate(DataFrame frame) {
+        return evaluate(frame.column(column), null);
+    }
+
+    @Override
+    public long[] evaluate(DataFrame frame, long[] candidates) {
+        return evaluate(frame.column(column), candidates);
+    }
+
+    /**
+     * Evaluates this comparison against a column
+     * @param source        the column
+     * @param candidates    the bitset of rows to evaluate, or null for all rows
+     * @return              the result bitset
+     */
+    private long[] evaluate(Column source, long[] candidates) {
+        final int rows = source.length();
+        final long[] words = Bitsets.create(rows);
+        if (source instanceof BooleanColumn) {
+            evaluate((BooleanColumn)source, candidates, words);
+        } else if (isIntegral(value) && source instanceof LongColumn) {
+            evaluate((LongColumn)source, candidates, words);
+        } else if (isIntegral(value) && source instanceof IntColumn) {
+            evaluate((IntColumn)source, candidates, words);
+        } else if (source instanceof NumericColumn) {
+            evaluate((NumericColumn)source, candidates, words);
+        } else {
+            throw new DataFrameException("Cannot compare column " + column + " of type " + source.type() + " with a number");
+        }
+        final long[] valid = source.validity().words();
+        if (valid != null) {
+            Bitsets.and(words, valid);
+        }
+        if (candidates != null) {
+            Bitsets.and(words, candidates);
+        }
+        return words;
+    }
+
+    /**
+     * Evaluates this comparison against a boolean column
+     * @param source        the column
+     * @param candidates    the bitset of rows to evaluate, or null for all rows
+     * @param words         the result bitset
+     */
+    private void evaluate(BooleanColumn source, long[] candidates, long[] words) {
+        if (operator != Operator.EQ && operator != Operator.NE) {
+            throw new DataFrameException("Boolean column " + column + " only supports == and !=");
+        } else if (value != 0d && value != 1d) {
+            throw new DataFrameException("Boolean column " + column + " can only be compared with 0 or 1, not " + value);
+        }
+        final boolean target = (value == 1d) == (operator == Operator.EQ);
+        for (int row = 0; row < source.length(); ++row) {
+            if ((candidates == null || (candidates[row >>> 6] & (1L << row)) != 0L) && source.getBoolean(row) == target) {
+                words[row >>> 6] |= 1L << row;
+            }
+        }
+    }
+
+    /**
+     * Evaluates this comparison against a long column in batches, testing the candidates of sparse batches one at a time
+     * and skipping batches of encoded columns whose bounds decide the outcome
+     * @param source        the column
+     * @param candidates    the bitset of rows to evaluate, or null for all rows
+     * @param words         the result bitset, whose bits outside the candidates may be set
+     */
+    private void evaluate(LongColumn source, long[] candidates, long[] words) {
+        final long constant = (long)value;
+        final int length = source.length();
+        final long[] array = source instanceof LongArrayColumn ? ((LongArrayColumn)source).values() : null;
+        final long[] batch = new long[array != null ? 0 : Math.min(length, Columns.BATCH_SIZE)];
+        final EncodedColumn encoded = source instanceof EncodedColumn ? (EncodedColumn)source : null;
+        for (int from = 0; from < length; from += Columns.BATCH_SIZE) {
+            final int count = Math.min(Columns.BATCH_SIZE, length - from);
+            final int outcome = encoded != null ? outcome(encoded, from, count, constant) : SOME;
+            if (outcome == NONE) {
+                continue;
+            } else if (outcome == ALL) {
+                fill(words, from, count);
+            } else if (isSparse(candidates, from, count)) {
+                final int last = (from + count + 63) >>> 6;
+                for (int w = from >>> 6; w < last; ++w) {
+                    for (long bits = candidates[w]; bits != 0L; bits &= bits - 1L) {
+                        final int row = (w << 6) + Long.numberOfTrailingZeros(bits);
+                        if (operator.test(source.getLong(row), constant)) {
+                            words[w] |= 1L << row;
+                        }
+                    }
+                }
+            } else {
+                if (array == null) {
+                    source.getLongs(from, batch, 0, count);
+                }
+                for (int i = 0; i < count; i += 64) {
+                    final int w = (from + i) >>> 6;
+                    if (candidates == null || candidates[w] != 0L) {
+                        words[w] = array != null ? match(array, from + i, Math.min(64, count - i), constant) : match(batch, i, Math.min(64, count - i), constant);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Evaluates this comparison against an int column in batches, testing the candidates of sparse batches one at a time
+     * @param source        the column
+     * @param candidates    the bitset of rows to evaluate, or null for all rows
+     * @param words         the result bitset, whose bits outside the candidates may be set
+     */
+    private void evaluate(IntColumn source, long[] candidates, long[] words) {
+        final long constant = (long)value;
+        final int length = source.length();
+        final int[] array = source instanceof IntArrayColumn ? ((IntArrayColumn)source).values() : null;
+        final int[] batch = new int[array != null ? 0 : Math.min(length, Columns.BATCH_SIZE)];
+        final EncodedColumn encoded = source instanceof EncodedColumn ? (EncodedColumn)source : null;
+        for (int from = 0; from < length; from += Columns.BATCH_SIZE) {
+            final int count = Math.min(Columns.BATCH_SIZE, length - from);
+            final int outcome = encoded != null ? outcome(encoded, from, count, constant) : SOME;
+            if (outcome == NONE) {
+                continue;
+            } else if (outcome == ALL) {
+                fill(words, from, count);
+            } else if (isSparse(candidates, from, count)) {
+                final int last = (from + count + 63) >>> 6;
+                for (int w = from >>> 6; w < last; ++w) {
+                    for (long bits = candidates[w]; bits != 0L; bits &= bits - 1L) {
+                        final int row = (w << 6) + Long.numberOfTrailingZeros(bits);
+                        if (operator.test(source.getInt(row), constant)) {
+                            words[w] |= 1L << row;
+                        }
+                    }
+                }
+            } else {
+                if (array == null) {
+                    source.getInts(from, batch, 0, count);
+                }
+                for (int i = 0; i < count; i += 64) {
+                    final int w = (from + i) >>> 6;
+                    if (candidates == null || candidates[w] != 0L) {
+                        words[w] = array != null ? match(array, from + i, Math.min(64, count - i), constant) : match(batch, i, Math.min(64, count - i), constant);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Evaluates this comparison against a numeric column in batches of doubles, testing the candidates of sparse batches one at a time
+     * @param source        the column
+     * @param candidates    the bitset of rows to evaluate, or null for all rows
+     * @param words         the result bitset, whose bits outside the candidates may be set
+     */
+    private void evaluate(NumericColumn source, long[] candidates, long[] words) {
+        final int length = source.length();
+        final double[] array = source instanceof DoubleArrayColumn ? ((DoubleArrayColumn)source).values() : null;
+        final double[] batch = new double[array != null ? 0 : Math.min(length, Columns.BATCH_SIZE)];
+        for (int from = 0; from < length; from += Columns.BATCH_SIZE) {
+            final int count = Math.min(Columns.BATCH_SIZE, length - from);
+            if (isSparse(candidates, from, count)) {
+                final int last = (from + count + 63) >>> 6;
+                for (int w = from >>> 6; w < last; ++w) {
+                    for (long bits = candidates[w]; bits != 0L; bits &= bits - 1L) {
+                        final int row = (w << 6) + Long.numberOfTrailingZeros(bits);
+                        if (operator.test(source.getDouble(row), value)) {
+                            words[w] |= 1L << row;
+                        }
+                    }
+                }
+            } else {
+                if (array == null) {
+                    source.getDoubles(from, batch, 0, count);
+                }
+                for (int i = 0; i < count; i += 64) {
+                    final int w = (from + i) >>> 6;
+                    if (candidates == null || candidates[w] != 0L) {
+                        words[w] = array != null ? match(array, from + i, Math.min(64, count - i)) : match(batch, i, Math.min(64, count - i));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a word with a bit set for each of up to 64 values that satisfies this comparison
+     * @param values    the values
+     * @param offset    the offset of the first value
+     * @param count     the number of values, at most 64
+     * @return          the bits of the satisfying values
+     */
+    private long match(double[] values, int offset, int count) {
+        long word = 0L;
+        switch (operator) {
+            case EQ:
+                for (int j = 0; j < count; ++j) {
+                    word |= (values[offset + j] == value ? 1L : 0L) << j;
+                }
+                break;
+            case NE:
+                for (int j = 0; j < count; ++j) {
+                    word |= (values[offset + j] != value ? 1L : 0L) << j;
+                }
+                break;
+            case LT:
+                for (int j = 0; j < count; ++j) {
+                    word |= (values[offset + j] < value ? 1L : 0L) << j;
+                }
+                break;
+            case LE:
+                for (int j = 0; j < count; ++j) {
+                    word |= (values[offset + j] <= value ? 1L : 0L) << j;
+                }
+                break;
+            case GT:
+                for (int j = 0; j < count; ++j) {
+                    word |= (values[offset + j] > value ? 1L : 0L) << j;
+                }
+                break;
+            case GE:
+                for (int j = 0; j < count; ++j) {
+                    word |= (values[offset + j] >= value ? 1L : 0L) << j;
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unsupported operator: " + operator);
+        }
+        return word;
+    }
+
+    /**
+     * Returns a word with a bit set for each of up to 64 values that satisfies this comparison with an integral constant
+     * @param values    the values
+     * @param offset    the offset of the first value
+     * @param count     the number of values, at most 64
+     * @param constant  the constant to compare with
+     * @return          the bits of the satisfying values
+     */
+    private long match(long[] values, int offset, int count, long constant) {
+        long word = 0L;
+        switch (operator) {
+            case EQ:
+                for (int j = 0; j < count; ++j) {
+                    word |= (values[offset + j] == constant ? 1L : 0L) << j;
+                }
+                break;
+            case NE:
+                for (int j = 0; j < count; ++j) {
+                    word |= (values[offset + j] != constant ? 1L : 0L) << j;
+                }
+                break;
+            case LT:
+                for (int j = 0; j < count; ++j) {
+                    word |= (values[offset + j] < constant ? 1L : 0L) << j;
+                }
+                break;
+            case LE:
+                for (int j = 0; j < count; ++j) {
+                    word |= (values[offset + j] <= constant ? 1L : 0L) << j;
+                }
+                break;
+            case GT:
+                for (int j = 0; j < count; ++j) {
+                    word |= (values[offset + j] > constant ? 1L : 0L) << j;
+                }
+                break;
+            case GE:
+                for (int j = 0; j < count; ++j) {
+                    word |= (values[offset + j] >= constant ? 1L : 0L) << j;
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unsupported operator: " + operator);
+        }
+        return word;
+    }
+
+    /**
+     * Returns a word with a bit set for each of up to 64 values that satisfies this comparison with an integral constant
+     * @param values    the values
+     * @param offset    the offset of the first value
+     * @param count     the number of values, at most 64
+     * @param constant  the constant to compare with
+     * @return          the bits of the satisfying values
+     */
+    private long match(int[] values, int offset, int count, long constant) {
+        long word = 0L;
+        switch (operator) {
+            case EQ:
+                for (int j = 0; j < count; ++j) {
+                    word |= (values[offset + j] == constant ? 1L : 0L) << j;
+                }
+                break;
+            case NE:
+                for (int j = 0; j < count; ++j) {
+                    word |= (values[offset + j] != constant ? 1L : 0L) << j;
+                }
+                break;
+            case LT:
+                for (int j = 0; j < count; ++j) {
+                    word |= (values[offset + j] < constant ? 1L : 0L) << j;
+                }
+                break;
+            case LE:
+                for (int j = 0; j < count; ++j) {
+                    word |= (values[offset + j] <= constant ? 1L : 0L) << j;
+                }
+                break;
+            case GT:
+                for (int j = 0; j < count; ++j) {
+                    word |= (values[offset + j] > constant ? 1L : 0L) << j;
+                }
+                break;
+            case GE:
+                for (int j = 0; j < count; ++j) {
+                    word |= (values[offset + j] >= constant ? 1L : 0L) << j;
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unsupported operator: " + operator);
+        }
+        return word;
+    }
+
+    /**
+     * Returns whether no, some or all rows of a batch of an encoded column can satisfy this comparison, judging by the bounds of the batch
+     * @param source    the encoded column
+     * @param from      the first row of the batch
+     * @param count     the number of rows in the batch
+     * @param constant  the constant to compare with
+     * @return          NONE, SOME or ALL
+     */
+    private int outcome(EncodedColumn source, int from, int count, long constant) {
+        final long low = source.lowerBound(from, from + count);
+        final long high = source.upperBound(from, from + count);
+        switch (operator) {
+            case EQ:    return constant < low || constant > high ? NONE : low == high ? ALL : SOME;
+            case NE:    return constant < low || constant > high ? ALL : low == high ? NONE : SOME;
+            case LT:    return high < constant ? ALL : low >= constant ? NONE : SOME;
+            case LE:    return high <= constant ? ALL : low > constant ? NONE : SOME;
+            case GT:    return low > constant ? ALL : high <= constant ? NONE : SOME;
+            case GE:    return low >= constant ? ALL : high < constant ? NONE : SOME;
+            default:    throw new IllegalStateException("Unsupported operator: " + operator);
+        }
+    }
+
+    /**
+     * Sets the bits of all rows of a batch that starts on a word boundary
+     * @param words the result bitset
+     * @param from  the first row of the batch
+     * @param count the number of rows in the batch
+     */
+    private static void fill(long[] words, int from, int count) {
+        for (int i = 0; i < count; i += 64) {
+            final int n = Math.min(64, count - i);
+            words[(from + i) >>> 6] = n == 64 ? -1L : -1L >>> (64 - n);
+        }
+    }
+
+    /**
+     * Returns true if the value is a whole number within the range of a long
+     * @param value the value to check
+     * @return      true if the value converts to a long without loss
+     */
+    private static boolean isIntegral(double value) {
+        return value == Math.rint(value) && value >= -0x1p63 && value < 0x1p63;
+    }
+
+    @Override
+    public String toString() {
+        return column + " " + operator + " " + (isIntegral(value) ? String.valueOf((long)value) : String.valueOf(value));
+    }
+}
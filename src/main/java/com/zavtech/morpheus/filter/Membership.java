@@ -0,0 +1,137 @@
+package com.zavtech.morpheus.filter;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.Dictionary;
+import com.zavtech.morpheus.column.StringColumn;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+
+/**
+ * A predicate satisfied where a string column holds one of a set of values.
+ *
+ * The values are resolved to codes once per evaluation through the column dictionary,
+ * after which rows are tested by a table lookup on their codes without decoding a string.
+ */
+public final class Membership extends Predicate {
+
+    private final String column;
+    private final Set<String> values;
+
+    /**
+     * Constructor
+     * @param column    the string column name
+     * @param values    the values to match, which may include null
+     */
+    public Membership(String column, Set<String> values) {
+        if (column == null || values == null) {
+            throw new IllegalArgumentException("Column and values must be non-null");
+        }
+        this.column = column;
+        this.values = Collections.unmodifiableSet(new LinkedHashSet<>(values));
+    }
+
+    /**
+     * Returns the name of the column being tested
+     * @return  the column name
+     */
+    public String column() {
+        return column;
+    }
+
+    /**
+     * Returns the values to match
+     * @return  the values
+     */
+    public Set<String> values() {
+        return values;
+    }
+
+    @Override
+    public Set<String> columns() {
+        return Collections.singleton(column);
+    }
+
+    @Override
+    public long[] evaluate(DataFrame frame) {
+        return evaluate(frame.column(column), null);
+    }
+
+    @Override
+    public long[] evaluate(DataFrame frame, long[] candidates) {
+        return evaluate(frame.column(column), candidates);
+    }
+
+    /**
+     * Evaluates this predicate against a column in batches, testing the candidates of sparse batches one at a time
+     * @param source        the column
+     * @param candidates    the bitset of rows to evaluate, or null for all rows
+     * @return              the result bitset
+     */
+    private long[] evaluate(Column source, long[] candidates) {
+        if (!(source instanceof StringColumn)) {
+            throw new DataFrameException("Cannot match column " + column + " of type " + source.type() + " with strings");
+        }
+        final StringColumn strings = (StringColumn)source;
+        final Dictionary dictionary = strings.dictionary();
+        final boolean[] table = new boolean[dictionary.size() + 1];
+        for (String value : values) {
+            final int code = dictionary.codeOf(value);
+            if (code >= 0) {
+                table[code] = true;
+            }
+        }
+        final int length = strings.length();
+        final long[] words = Bitsets.create(length);
+        final int[] batch = new int[Math.min(length, Columns.BATCH_SIZE)];
+        for (int from = 0; from < length; from += batch.length) {
+            final int count = Math.min(batch.length, length - from);
+            if (isSparse(candidates, from, count)) {
+                final int last = (from + count + 63) >>> 6;
+                for (int w = from >>> 6; w < last; ++w) {
+                    for (long bits = candidates[w]; bits != 0L; bits &= bits - 1L) {
+                        final int row = (w << 6) + Long.numberOfTrailingZeros(bits);
+                        if (table[strings.getCode(row)]) {
+                            words[w] |= 1L << row;
+                        }
+                    }
+                }
+            } else {
+                strings.getCodes(from, batch, 0, count);
+                for (int i = 0; i < count; ++i) {
+                    if (table[batch[i]]) {
+                        final int row = from + i;
+                        words[row >>> 6] |= 1L << row;
+                    }
+                }
+            }
+        }
+        if (candidates != null) {
+            Bitsets.and(words, candidates);
+        }
+        return words;
+    }
+
+    @Override
+    public String toString() {
+        if (values.size() == 1) {
+            final String value = values.iterator().next();
+            return column + " == " + quote(value);
+        } else {
+            final StringBuilder text = new StringBuilder(column).append(" IN (");
+            int index = 0;
+            for (String value : values) {
+                text.append(index++ > 0 ? ", " : "").append(quote(value));
+            }
+            return text.append(")").toString();
+        }
+    }
+
+    private static String quote(String value) {
+        return value == null ? "null" : "'" + value + "'";
+    }
+}
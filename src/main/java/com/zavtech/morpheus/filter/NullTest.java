@@ -0,0 +1,77 @@
+package com.zavtech.morpheus.filter;
+
+import java.util.Collections;
+import java.util.Set;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.frame.DataFrame;
+
+/**
+ * A predicate satisfied where a column is null, or where it is not null when negated.
+ *
+ * The result is read straight from the validity bitmap of the column a word at a time,
+ * so testing for nulls costs one pass over a sixty-fourth of the rows.
+ */
+public final class NullTest extends Predicate {
+
+    private final String column;
+    private final boolean nulls;
+
+    /**
+     * Constructor
+     * @param column    the column name
+     * @param nulls     true to match null rows, false to match rows with a value
+     */
+    public NullTest(String column, boolean nulls) {
+        if (column == null) {
+            throw new IllegalArgumentException("Column must be non-null");
+        }
+        this.column = column;
+        this.nulls = nulls;
+    }
+
+    /**
+     * Returns the name of the column being tested
+     * @return  the column name
+     */
+    public String column() {
+        return column;
+    }
+
+    /**
+     * Returns true if this predicate matches null rows, false if it matches rows with a value
+     * @return  true if null rows are matched
+     */
+    public boolean nulls() {
+        return nulls;
+    }
+
+    @Override
+    public Set<String> columns() {
+        return Collections.singleton(column);
+    }
+
+    @Override
+    public long[] evaluate(DataFrame frame) {
+        final Column source = frame.column(column);
+        final int rows = source.length();
+        final long[] valid = source.validity().words();
+        final long[] words = Bitsets.create(rows);
+        for (int i = 0; i < words.length; ++i) {
+            final long word = valid != null ? valid[i] : -1L;
+            words[i] = nulls ? ~word : word;
+        }
+        Bitsets.clearTail(words, rows);
+        return words;
+    }
+
+    @Override
+    public Predicate negate() {
+        return new NullTest(column, !nulls);
+    }
+
+    @Override
+    public String toString() {
+        return column + (nulls ? " IS NULL" : " IS NOT NULL");
+    }
+}
@@ -0,0 +1,405 @@
+package com.zavtech.morpheus.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.zavtech.morpheus.frame.DataFrame;
+
+/**
+ * A boolean condition over the columns of a DataFrame, evaluated for all rows at once into a bitset.
+ *
+ * Predicates are immutable trees of column comparisons combined with and, or and not.
+ * Because they are data rather than opaque lambdas, planners can inspect the columns a
+ * predicate references, split it into conjuncts and push those down towards the data.
+ *
+ * A predicate can also be evaluated for a bitset of candidate rows, which is how and passes the
+ * rows surviving each operand to the next and how a Selection is narrowed. Column predicates skip
+ * batches without candidates and test the candidates of sparse batches one at a time, so each
+ * operand of a long conjunction costs in proportion to the rows still selected rather than the frame.
+ */
+public abstract class Predicate {
+
+    /** The min ratio of rows to candidates in a batch for which candidates are tested one at a time rather than scanned */
+    static final int SPARSE_RATIO = 16;
+
+    /**
+     * Returns the names of the columns this predicate references
+     * @return  the referenced column names
+     */
+    public abstract Set<String> columns();
+
+    /**
+     * Evaluates this predicate for every row of the frame
+     * @param frame the frame to evaluate against
+     * @return      a bitset with a bit set for each row that satisfies the predicate
+     */
+    public abstract long[] evaluate(DataFrame frame);
+
+    /**
+     * Evaluates this predicate for the candidate rows of the frame, leaving the bits of all other rows clear
+     * @param frame         the frame to evaluate against
+     * @param candidates    the bitset of rows to evaluate, which is not modified
+     * @return              a new bitset with a bit set for each candidate row that satisfies the predicate
+     */
+    public long[] evaluate(DataFrame frame, long[] candidates) {
+        final long[] words = evaluate(frame);
+        Bitsets.and(words, candidates);
+        return words;
+    }
+
+    /**
+     * Returns the indexes of the rows of the frame that satisfy this predicate, in ascending order
+     * @param frame the frame to evaluate against
+     * @return      the selected row indexes
+     */
+    public int[] select(DataFrame frame) {
+        return Bitsets.toRows(evaluate(frame));
+    }
+
+    /**
+     * Returns the operands of this predicate when it is a chain of ands, otherwise this predicate alone
+     * @return  the conjuncts of this predicate
+     */
+    public List<Predicate> conjuncts() {
+        return Collections.singletonList(this);
+    }
+
+    /**
+     * Returns a predicate satisfied when both this and the other predicate are satisfied
+     * @param other the other predicate
+     * @return      the conjunction
+     */
+    public Predicate and(Predicate other) {
+        return allOf(Arrays.asList(this, other));
+    }
+
+    /**
+     * Returns a predicate satisfied when either this or the other predicate is satisfied
+     * @param other the other predicate
+     * @return      the disjunction
+     */
+    public Predicate or(Predicate other) {
+        return new Or(Arrays.asList(this, other));
+    }
+
+    /**
+     * Returns a predicate satisfied when this predicate is not
+     * @return  the negation
+     */
+    public Predicate negate() {
+        return new Not(this);
+    }
+
+    /**
+     * Returns a predicate satisfied when all of the predicates specified are satisfied
+     * @param predicates    the predicates, of which there must be at least one
+     * @return              the conjunction, flattened so that nested ands become operands
+     */
+    public static Predicate allOf(List<Predicate> predicates) {
+        final List<Predicate> operands = new ArrayList<>();
+        for (Predicate predicate : predicates) {
+            operands.addAll(predicate.conjuncts());
+        }
+        if (operands.isEmpty()) {
+            throw new IllegalArgumentException("At least one predicate is required");
+        }
+        return operands.size() == 1 ? operands.get(0) : new And(operands);
+    }
+
+    /**
+     * Returns a predicate satisfied where a column is equal to the value specified
+     * @param column    the column name
+     * @param value     the value to compare with
+     * @return          the predicate
+     */
+    public static Predicate eq(String column, double value) {
+        return new Comparison(column, Comparison.Operator.EQ, value);
+    }
+
+    /**
+     * Returns a predicate satisfied where a column is not equal to the value specified
+     * @param column    the column name
+     * @param value     the value to compare with
+     * @return          the predicate
+     */
+    public static Predicate ne(String column, double value) {
+        return new Comparison(column, Comparison.Operator.NE, value);
+    }
+
+    /**
+     * Returns a predicate satisfied where a column is less than the value specified
+     * @param column    the column name
+     * @param value     the value to compare with
+     * @return          the predicate
+     */
+    public static Predicate lt(String column, double value) {
+        return new Comparison(column, Comparison.Operator.LT, value);
+    }
+
+    /**
+     * Returns a predicate satisfied where a column is less than or equal to the value specified
+     * @param column    the column name
+     * @param value     the value to compare with
+     * @return          the predicate
+     */
+    public static Predicate le(String column, double value) {
+        return new Comparison(column, Comparison.Operator.LE, value);
+    }
+
+    /**
+     * Returns a predicate satisfied where a column is greater than the value specified
+     * @param column    the column name
+     * @param value     the value to compare with
+     * @return          the predicate
+     */
+    public static Predicate gt(String column, double value) {
+        return new Comparison(column, Comparison.Operator.GT, value);
+    }
+
+    /**
+     * Returns a predicate satisfied where a column is greater than or equal to the value specified
+     * @param column    the column name
+     * @param value     the value to compare with
+     * @return          the predicate
+     */
+    public static Predicate ge(String column, double value) {
+        return new Comparison(column, Comparison.Operator.GE, value);
+    }
+
+    /**
+     * Returns a predicate satisfied where a string column equals the value specified
+     * @param column    the string column name
+     * @param value     the value to match, which may be null
+     * @return          the predicate
+     */
+    public static Predicate eq(String column, String value) {
+        return new Membership(column, Collections.singleton(value));
+    }
+
+    /**
+     * Returns a predicate satisfied where a string column does not equal the value specified
+     * @param column    the string column name
+     * @param value     the value to exclude, which may be null
+     * @return          the predicate
+     */
+    public static Predicate ne(String column, String value) {
+        return eq(column, value).negate();
+    }
+
+    /**
+     * Returns a predicate satisfied where a string column equals any of the values specified
+     * @param column    the string column name
+     * @param values    the values to match, which may include null
+     * @return          the predicate
+     */
+    public static Predicate in(String column, String... values) {
+        return new Membership(column, new LinkedHashSet<>(Arrays.asList(values)));
+    }
+
+    /**
+     * Returns a predicate satisfied where a column is null
+     * @param column    the column name
+     * @return          the predicate
+     */
+    public static Predicate isNull(String column) {
+        return new NullTest(column, true);
+    }
+
+    /**
+     * Returns a predicate satisfied where a column is not null
+     * @param column    the column name
+     * @return          the predicate
+     */
+    public static Predicate notNull(String column) {
+        return new NullTest(column, false);
+    }
+
+    /**
+     * Returns a predicate satisfied where a boolean column is true
+     * @param column    the boolean column name
+     * @return          the predicate
+     */
+    public static Predicate isTrue(String column) {
+        return new Comparison(column, Comparison.Operator.EQ, 1d);
+    }
+
+
+    /**
+     * A predicate satisfied when all of its operands are satisfied, each evaluated only for the rows satisfying those before it
+     */
+    public static final class And extends Predicate {
+
+        private final List<Predicate> operands;
+
+        And(List<Predicate> operands) {
+            this.operands = Collections.unmodifiableList(new ArrayList<>(operands));
+        }
+
+        /**
+         * Returns the operands of this conjunction
+         * @return  the operands
+         */
+        public List<Predicate> operands() {
+            return operands;
+        }
+
+        @Override
+        public List<Predicate> conjuncts() {
+            return operands;
+        }
+
+        @Override
+        public Set<String> columns() {
+            final Set<String> columns = new LinkedHashSet<>();
+            operands.forEach(p -> columns.addAll(p.columns()));
+            return columns;
+        }
+
+        @Override
+        public long[] evaluate(DataFrame frame) {
+            return evaluate(frame, operands.get(0).evaluate(frame), 1);
+        }
+
+        @Override
+        public long[] evaluate(DataFrame frame, long[] candidates) {
+            return evaluate(frame, candidates, 0);
+        }
+
+        /**
+         * Narrows the candidates by each operand from the index specified, stopping once none remain
+         */
+        private long[] evaluate(DataFrame frame, long[] candidates, int first) {
+            long[] result = candidates;
+            for (int i = first; i < operands.size() && !Bitsets.isEmpty(result); ++i) {
+                result = operands.get(i).evaluate(frame, result);
+            }
+            return result == candidates && first == 0 ? result.clone() : result;
+        }
+
+        @Override
+        public String toString() {
+            return join(operands, " AND ");
+        }
+    }
+
+
+    /**
+     * A predicate satisfied when any of its operands is satisfied, each evaluated only for the rows not satisfying those before it
+     */
+    public static final class Or extends Predicate {
+
+        private final List<Predicate> operands;
+
+        Or(List<Predicate> operands) {
+            this.operands = Collections.unmodifiableList(new ArrayList<>(operands));
+        }
+
+        /**
+         * Returns the operands of this disjunction
+         * @return  the operands
+         */
+        public List<Predicate> operands() {
+            return operands;
+        }
+
+        @Override
+        public Set<String> columns() {
+            final Set<String> columns = new LinkedHashSet<>();
+            operands.forEach(p -> columns.addAll(p.columns()));
+            return columns;
+        }
+
+        @Override
+        public long[] evaluate(DataFrame frame) {
+            return evaluate(frame, Bitsets.full(frame.rowCount()));
+        }
+
+        @Override
+        public long[] evaluate(DataFrame frame, long[] candidates) {
+            final long[] result = new long[candidates.length];
+            final long[] remaining = candidates.clone();
+            for (int i = 0; i < operands.size() && !Bitsets.isEmpty(remaining); ++i) {
+                final long[] words = operands.get(i).evaluate(frame, remaining);
+                Bitsets.or(result, words);
+                Bitsets.andNot(remaining, words);
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return join(operands, " OR ");
+        }
+    }
+
+
+    /**
+     * A predicate satisfied when its operand is not
+     */
+    public static final class Not extends Predicate {
+
+        private final Predicate operand;
+
+        Not(Predicate operand) {
+            this.operand = operand;
+        }
+
+        /**
+         * Returns the negated predicate
+         * @return  the operand
+         */
+        public Predicate operand() {
+            return operand;
+        }
+
+        @Override
+        public Set<String> columns() {
+            return operand.columns();
+        }
+
+        @Override
+        public long[] evaluate(DataFrame frame) {
+            final long[] result = operand.evaluate(frame);
+            for (int w = 0; w < result.length; ++w) {
+                result[w] = ~result[w];
+            }
+            Bitsets.clearTail(result, frame.rowCount());
+            return result;
+        }
+
+        @Override
+        public long[] evaluate(DataFrame frame, long[] candidates) {
+            final long[] result = candidates.clone();
+            Bitsets.andNot(result, operand.evaluate(frame, candidates));
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "NOT (" + operand + ")";
+        }
+    }
+
+    /**
+     * Returns true if a batch of rows has few enough candidates that they are best tested one at a time
+     * @param candidates    the bitset of candidate rows, or null if every row is a candidate
+     * @param from          the first row of the batch, which must be a multiple of 64
+     * @param count         the number of rows in the batch
+     * @return              true if the candidates should be tested one at a time
+     */
+    static boolean isSparse(long[] candidates, int from, int count) {
+        return candidates != null && (long)Bitsets.cardinality(candidates, from >>> 6, (from + count + 63) >>> 6) * SPARSE_RATIO < count;
+    }
+
+    private static String join(List<Predicate> operands, String separator) {
+        final StringBuilder result = new StringBuilder("(");
+        for (int i = 0; i < operands.size(); ++i) {
+            result.append(i > 0 ? separator : "").append(operands.get(i));
+        }
+        return result.append(")").toString();
+    }
+}
@@ -0,0 +1,201 @@
+package com.zavtech.morpheus.filter;
+
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+import com.zavtech.morpheus.frame.DataFrame;
+
+/**
+ * A subset of the rows of a DataFrame held as a bitset, which filters narrow without copying any column.
+ *
+ * Each filter evaluates its predicate only for the rows still selected, and selections of the same
+ * frame combine with and, or and not as bitwise operations over their words, so a chain of filters
+ * costs little more than the first of them. Operators that accept a selection read the selected rows
+ * in place, and the rows are gathered into a new frame only when toFrame() is called. The selected
+ * rows are also available as an ascending selection vector for operators that work on row indexes.
+ */
+public final class Selection {
+
+    private final DataFrame frame;
+    private final long[] words;
+
+    /**
+     * Constructor
+     * @param frame the frame the rows belong to
+     * @param words the bitset of selected rows, which is owned by this selection
+     */
+    private Selection(DataFrame frame, long[] words) {
+        this.frame = frame;
+        this.words = words;
+    }
+
+    /**
+     * Returns a selection of every row of a frame
+     * @param frame the frame
+     * @return      the selection
+     */
+    public static Selection all(DataFrame frame) {
+        Objects.requireNonNull(frame, "The frame cannot be null");
+        return new Selection(frame, Bitsets.full(frame.rowCount()));
+    }
+
+    /**
+     * Returns a selection of the rows of a frame that satisfy a predicate
+     * @param frame     the frame
+     * @param predicate the predicate to evaluate against the frame
+     * @return          the selection
+     */
+    public static Selection of(DataFrame frame, Predicate predicate) {
+        Objects.requireNonNull(frame, "The frame cannot be null");
+        return new Selection(frame, predicate.evaluate(frame));
+    }
+
+    /**
+     * Returns a selection of the rows of a frame at the indexes specified
+     * @param frame the frame
+     * @param rows  the selection vector of row indexes, in any order
+     * @return      the selection
+     */
+    public static Selection of(DataFrame frame, int[] rows) {
+        Objects.requireNonNull(frame, "The frame cannot be null");
+        return new Selection(frame, Bitsets.fromRows(rows, frame.rowCount()));
+    }
+
+    /**
+     * Returns the frame the selected rows belong to
+     * @return  the frame
+     */
+    public DataFrame frame() {
+        return frame;
+    }
+
+    /**
+     * Returns a copy of the bitset of selected rows
+     * @return  the bitset words
+     */
+    public long[] words() {
+        return words.clone();
+    }
+
+    /**
+     * Returns the number of selected rows
+     * @return  the row count
+     */
+    public int count() {
+        return Bitsets.cardinality(words);
+    }
+
+    /**
+     * Returns true if no rows are selected
+     * @return  true if this selection is empty
+     */
+    public boolean isEmpty() {
+        return Bitsets.isEmpty(words);
+    }
+
+    /**
+     * Returns true if the row specified is selected
+     * @param row   the row index
+     * @return      true if the row is selected
+     */
+    public boolean contains(int row) {
+        return row >= 0 && row < frame.rowCount() && (words[row >>> 6] & (1L << row)) != 0L;
+    }
+
+    /**
+     * Returns the indexes of the selected rows in ascending order
+     * @return  the selection vector
+     */
+    public int[] rows() {
+        return Bitsets.toRows(words);
+    }
+
+    /**
+     * Calls the action with the index of each selected row in ascending order
+     * @param action    the action to call
+     */
+    public void forEach(IntConsumer action) {
+        for (int w = 0; w < words.length; ++w) {
+            for (long bits = words[w]; bits != 0L; bits &= bits - 1L) {
+                action.accept((w << 6) + Long.numberOfTrailingZeros(bits));
+            }
+        }
+    }
+
+    /**
+     * Returns the selected rows that also satisfy a predicate, evaluated for the selected rows only
+     * @param predicate the predicate to evaluate against the frame
+     * @return          the narrowed selection
+     */
+    public Selection filter(Predicate predicate) {
+        return new Selection(frame, predicate.evaluate(frame, words));
+    }
+
+    /**
+     * Returns the rows selected by both this and another selection of the same frame
+     * @param other the other selection
+     * @return      the intersection
+     */
+    public Selection and(Selection other) {
+        final long[] result = words.clone();
+        Bitsets.and(result, check(other).words);
+        return new Selection(frame, result);
+    }
+
+    /**
+     * Returns the rows selected by either this or another selection of the same frame
+     * @param other the other selection
+     * @return      the union
+     */
+    public Selection or(Selection other) {
+        final long[] result = words.clone();
+        Bitsets.or(result, check(other).words);
+        return new Selection(frame, result);
+    }
+
+    /**
+     * Returns the rows selected by this but not another selection of the same frame
+     * @param other the other selection
+     * @return      the difference
+     */
+    public Selection andNot(Selection other) {
+        final long[] result = words.clone();
+        Bitsets.andNot(result, check(other).words);
+        return new Selection(frame, result);
+    }
+
+    /**
+     * Returns the rows of the frame that this selection does not select
+     * @return  the complement
+     */
+    public Selection negate() {
+        final long[] result = Bitsets.full(frame.rowCount());
+        Bitsets.andNot(result, words);
+        return new Selection(frame, result);
+    }
+
+    /**
+     * Returns a new frame holding the selected rows in their original order
+     * @return  the new frame
+     */
+    public DataFrame toFrame() {
+        return frame.take(rows());
+    }
+
+    /**
+     * Checks that another selection is of the same frame as this one
+     * @param other the other selection
+     * @return      the other selection
+     */
+    private Selection check(Selection other) {
+        if (other.frame != frame) {
+            throw new IllegalArgumentException("Selections can only be combined if they are of the same frame");
+        }
+        return other;
+    }
+
+    @Override
+    public String toString() {
+        return "Selection(" + count() + " of " + frame.rowCount() + " rows)";
+    }
+}
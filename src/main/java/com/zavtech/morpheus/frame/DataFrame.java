@@ -0,0 +1,531 @@
+package com.zavtech.morpheus.frame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.zavtech.morpheus.column.BooleanColumn;
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.ColumnType;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.IntColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.NumericColumn;
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.column.StringColumn;
+import com.zavtech.morpheus.expr.Expression;
+import com.zavtech.morpheus.filter.Bitsets;
+import com.zavtech.morpheus.filter.Predicate;
+import com.zavtech.morpheus.filter.Selection;
+import com.zavtech.morpheus.sort.Sort;
+import com.zavtech.morpheus.sort.SortKey;
+
+/**
+ * A column oriented table of equal length, uniquely named columns.
+ *
+ * The structure of a DataFrame is immutable: operations that add, remove or
+ * reorder columns return a new frame that shares the untouched column storage
+ * with this one. Values within a column remain mutable through the typed column
+ * interfaces, which keep their data in primitive form.
+ *
+ * Column values may be kept on the Java heap or in native memory, selected per frame
+ * through copy(Storage) or by the storage of the columns a frame is created from.
+ * The API is identical for both, but frames holding off-heap columns should be
+ * closed once they are no longer needed so that native memory is released eagerly.
+ *
+ * Missing values are nulls recorded in the validity bitmap of each column, which
+ * dropna() and fillna() consume a word at a time.
+ */
+public final class DataFrame implements AutoCloseable {
+
+    private final int rowCount;
+    private final List<Column> columns;
+    private final Map<String,Integer> ordinals;
+
+    /**
+     * Constructor
+     * @param columns   the columns for this frame
+     */
+    private DataFrame(List<? extends Column> columns) {
+        this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+        this.ordinals = new LinkedHashMap<>(columns.size() * 2);
+        this.rowCount = columns.isEmpty() ? 0 : columns.get(0).length();
+        for (int i = 0; i < columns.size(); ++i) {
+            final Column column = columns.get(i);
+            if (column.length() != rowCount) {
+                throw new DataFrameException("Column " + column.name() + " has length " + column.length() + ", expected " + rowCount);
+            } else if (ordinals.put(column.name(), i) != null) {
+                throw new DataFrameException("Duplicate column name in DataFrame: " + column.name());
+            }
+        }
+    }
+
+    /**
+     * Returns a DataFrame comprised of the columns specified
+     * @param columns   the columns, which must all have the same length
+     * @return          the newly created frame
+     */
+    public static DataFrame of(Column... columns) {
+        return new DataFrame(Arrays.asList(columns));
+    }
+
+    /**
+     * Returns a DataFrame comprised of the columns specified
+     * @param columns   the columns, which must all have the same length
+     * @return          the newly created frame
+     */
+    public static DataFrame of(List<? extends Column> columns) {
+        return new DataFrame(columns);
+    }
+
+    /**
+     * Returns a new frame holding the rows of the frames specified one after another
+     * @param frames    the frames to concatenate, which must have the same column names and types in the same order
+     * @return          the newly created frame
+     */
+    public static DataFrame concat(List<DataFrame> frames) {
+        if (frames.isEmpty()) {
+            throw new DataFrameException("At least one frame is required for concatenation");
+        }
+        final DataFrame first = frames.get(0);
+        final List<Column> result = new ArrayList<>(first.columnCount());
+        for (int j = 0; j < first.columnCount(); ++j) {
+            final List<Column> parts = new ArrayList<>(frames.size());
+            for (DataFrame frame : frames) {
+                if (!frame.columnNames().equals(first.columnNames())) {
+                    throw new DataFrameException("Cannot concatenate frames with columns " + frame.columnNames() + " and " + first.columnNames());
+                }
+                parts.add(frame.column(j));
+            }
+            result.add(Columns.concat(parts));
+        }
+        return new DataFrame(result);
+    }
+
+    /**
+     * Returns the number of rows in this frame
+     * @return  the row count
+     */
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the number of columns in this frame
+     * @return  the column count
+     */
+    public int columnCount() {
+        return columns.size();
+    }
+
+    /**
+     * Returns the columns of this frame in order
+     * @return  the unmodifiable column list
+     */
+    public List<Column> columns() {
+        return columns;
+    }
+
+    /**
+     * Returns the names of the columns of this frame in order
+     * @return  the column names
+     */
+    public List<String> columnNames() {
+        return new ArrayList<>(ordinals.keySet());
+    }
+
+    /**
+     * Returns true if this frame contains a column with the name specified
+     * @param name  the column name
+     * @return      true if the column exists
+     */
+    public boolean hasColumn(String name) {
+        return ordinals.containsKey(name);
+    }
+
+    /**
+     * Returns the ordinal of the column with the name specified
+     * @param name  the column name
+     * @return      the column ordinal
+     * @throws DataFrameException   if no such column exists
+     */
+    public int ordinal(String name) {
+        final Integer ordinal = ordinals.get(name);
+        if (ordinal == null) {
+            throw new DataFrameException("No column named " + name + " in DataFrame with columns " + ordinals.keySet());
+        } else {
+            return ordinal;
+        }
+    }
+
+    /**
+     * Returns the column at the ordinal specified
+     * @param ordinal   the column ordinal
+     * @return          the column
+     */
+    public Column column(int ordinal) {
+        return columns.get(ordinal);
+    }
+
+    /**
+     * Returns the column with the name specified
+     * @param name  the column name
+     * @return      the column
+     * @throws DataFrameException   if no such column exists
+     */
+    public Column column(String name) {
+        return columns.get(ordinal(name));
+    }
+
+    /**
+     * Returns the numeric column with the name specified
+     * @param name  the column name
+     * @return      the numeric column
+     * @throws DataFrameException   if no such column exists, or it is not numeric
+     */
+    public NumericColumn numeric(String name) {
+        final Column column = column(name);
+        if (column instanceof NumericColumn) {
+            return (NumericColumn)column;
+        } else {
+            throw new DataFrameException("Column " + name + " is not numeric, type is " + column.type());
+        }
+    }
+
+    /**
+     * Returns the double column with the name specified
+     * @param name  the column name
+     * @return      the double column
+     * @throws DataFrameException   if no such column exists, or has a different type
+     */
+    public DoubleColumn doubles(String name) {
+        return typed(name, ColumnType.DOUBLE, DoubleColumn.class);
+    }
+
+    /**
+     * Returns the long column with the name specified
+     * @param name  the column name
+     * @return      the long column
+     * @throws DataFrameException   if no such column exists, or has a different type
+     */
+    public LongColumn longs(String name) {
+        return typed(name, ColumnType.LONG, LongColumn.class);
+    }
+
+    /**
+     * Returns the int column with the name specified
+     * @param name  the column name
+     * @return      the int column
+     * @throws DataFrameException   if no such column exists, or has a different type
+     */
+    public IntColumn ints(String name) {
+        return typed(name, ColumnType.INT, IntColumn.class);
+    }
+
+    /**
+     * Returns the boolean column with the name specified
+     * @param name  the column name
+     * @return      the boolean column
+     * @throws DataFrameException   if no such column exists, or has a different type
+     */
+    public BooleanColumn booleans(String name) {
+        return typed(name, ColumnType.BOOLEAN, BooleanColumn.class);
+    }
+
+    /**
+     * Returns the string column with the name specified
+     * @param name  the column name
+     * @return      the string column
+     * @throws DataFrameException   if no such column exists, or has a different type
+     */
+    public StringColumn strings(String name) {
+        return typed(name, ColumnType.STRING, StringColumn.class);
+    }
+
+    /**
+     * Returns a frame containing only the columns specified, in the order specified
+     * @param names the column names to select
+     * @return      the new frame
+     */
+    public DataFrame select(String... names) {
+        return select(Arrays.asList(names));
+    }
+
+    /**
+     * Returns a frame containing only the columns specified, in the order specified
+     * @param names the column names to select
+     * @return      the new frame
+     */
+    public DataFrame select(List<String> names) {
+        final List<Column> selected = new ArrayList<>(names.size());
+        for (String name : names) {
+            selected.add(column(name));
+        }
+        return new DataFrame(selected);
+    }
+
+    /**
+     * Returns a frame without the columns specified
+     * @param names the column names to drop
+     * @return      the new frame
+     */
+    public DataFrame drop(String... names) {
+        final List<String> dropped = Arrays.asList(names);
+        final List<Column> remaining = new ArrayList<>(columns.size());
+        for (Column column : columns) {
+            if (!dropped.contains(column.name())) {
+                remaining.add(column);
+            }
+        }
+        return new DataFrame(remaining);
+    }
+
+    /**
+     * Returns a frame with the column specified added, or replacing an existing column of the same name
+     * @param column    the column to add or replace
+     * @return          the new frame
+     */
+    public DataFrame withColumn(Column column) {
+        final List<Column> result = new ArrayList<>(columns);
+        final Integer ordinal = ordinals.get(column.name());
+        if (ordinal != null) {
+            result.set(ordinal, column);
+        } else {
+            result.add(column);
+        }
+        return new DataFrame(result);
+    }
+
+    /**
+     * Returns a frame with a column computed from an expression added, or replacing an existing column of the same name
+     * @param name          the name of the computed column
+     * @param expression    the expression to evaluate for every row of this frame
+     * @return              the new frame
+     */
+    public DataFrame withColumn(String name, Expression expression) {
+        return withColumn(expression.evaluate(this, name));
+    }
+
+    /**
+     * Returns a new frame holding the rows at the indexes specified, in order
+     * @param rows  the row indexes to gather
+     * @return      the new frame
+     */
+    public DataFrame take(int[] rows) {
+        final List<Column> result = new ArrayList<>(columns.size());
+        for (Column column : columns) {
+            result.add(column.take(rows));
+        }
+        return new DataFrame(result);
+    }
+
+    /**
+     * Returns a new frame holding the rows that satisfy the predicate, in their original order
+     * @param predicate the predicate to evaluate against this frame
+     * @return          the new frame
+     */
+    public DataFrame filter(Predicate predicate) {
+        return take(predicate.select(this));
+    }
+
+    /**
+     * Returns a selection of the rows that satisfy the predicate, which can be narrowed further without copying this frame
+     * @param predicate the predicate to evaluate against this frame
+     * @return          the selection of rows
+     */
+    public Selection where(Predicate predicate) {
+        return Selection.of(this, predicate);
+    }
+
+    /**
+     * Returns a new frame holding the rows of this frame sorted by the keys specified, keeping the order of rows with equal keys
+     * @param keys  the sort keys, from the most to the least significant
+     * @return      the sorted frame
+     */
+    public DataFrame sort(SortKey... keys) {
+        return Sort.of(this, keys).execute();
+    }
+
+    /**
+     * Returns a frame without the rows that are null in any of the columns specified
+     * @param names the column names to check, or none to check every column
+     * @return      the new frame, or this frame if no row is null
+     */
+    public DataFrame dropna(String... names) {
+        final List<Column> checked = names.length == 0 ? columns : select(names).columns;
+        final long[] keep = Bitsets.create(rowCount);
+        Arrays.fill(keep, -1L);
+        boolean nulls = false;
+        for (Column column : checked) {
+            final long[] valid = column.validity().words();
+            if (valid != null) {
+                for (int w = 0; w < keep.length; ++w) {
+                    keep[w] &= valid[w];
+                }
+                nulls = true;
+            }
+        }
+        if (!nulls) {
+            return this;
+        }
+        Bitsets.clearTail(keep, rowCount);
+        return take(Bitsets.toRows(keep));
+    }
+
+    /**
+     * Returns a frame with null rows of every int, long and double column replaced by the value specified.
+     * Columns without nulls are shared with this frame.
+     * @param value the value to assign to null rows, which must be integral if any int or long column has nulls
+     * @return      the new frame
+     */
+    public DataFrame fillna(double value) {
+        final List<Column> result = new ArrayList<>(columns.size());
+        for (Column column : columns) {
+            result.add(column instanceof NumericColumn ? Columns.fillNulls((NumericColumn)column, value) : column);
+        }
+        return new DataFrame(result);
+    }
+
+    /**
+     * Returns a frame with null rows of the numeric column specified replaced by the value specified
+     * @param name  the column name
+     * @param value the value to assign to null rows, which must be integral for int and long columns
+     * @return      the new frame
+     */
+    public DataFrame fillna(String name, double value) {
+        return withColumn(Columns.fillNulls(numeric(name), value));
+    }
+
+    /**
+     * Returns a frame with null rows of the string column specified replaced by the value specified
+     * @param name  the column name
+     * @param value the value to assign to null rows
+     * @return      the new frame
+     */
+    public DataFrame fillna(String name, String value) {
+        return withColumn(Columns.fillNulls(strings(name), value));
+    }
+
+    /**
+     * Returns a new frame holding at most the first n rows of this frame
+     * @param n the max number of rows
+     * @return  the new frame
+     */
+    public DataFrame head(int n) {
+        final int[] rows = new int[Math.min(n, rowCount)];
+        for (int i = 0; i < rows.length; ++i) {
+            rows[i] = i;
+        }
+        return take(rows);
+    }
+
+    /**
+     * Returns a copy of this frame with all column values moved into the storage specified
+     * @param storage   the storage for the copied columns
+     * @return          the new frame
+     */
+    public DataFrame copy(Storage storage) {
+        final List<Column> result = new ArrayList<>(columns.size());
+        for (Column column : columns) {
+            result.add(Columns.copy(column, storage));
+        }
+        return new DataFrame(result);
+    }
+
+    /**
+     * Returns a copy of this frame with its int, long and string columns compressed where that saves space, see Columns.encode().
+     * Encoded columns are read only, and copy() decodes them again.
+     * @return  the new frame
+     */
+    public DataFrame encode() {
+        final List<Column> result = new ArrayList<>(columns.size());
+        for (Column column : columns) {
+            result.add(Columns.encode(column));
+        }
+        return new DataFrame(result);
+    }
+
+    /**
+     * Returns true if any column of this frame holds its values in the storage specified
+     * @param storage   the storage to check
+     * @return          true if any column uses the storage
+     */
+    public boolean uses(Storage storage) {
+        for (Column column : columns) {
+            if (column.storage() == storage) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Releases the native resources held by the columns of this frame.
+     * Frames derived through select() or withColumn() share columns with this one, and are closed along with it.
+     */
+    @Override
+    public void close() {
+        for (Column column : columns) {
+            column.close();
+        }
+    }
+
+    /**
+     * Returns the typed column with the name specified, checking its type
+     */
+    private <T extends Column> T typed(String name, ColumnType type, Class<T> columnClass) {
+        final Column column = column(name);
+        if (column.type() != type || !columnClass.isInstance(column)) {
+            throw new DataFrameException("Column " + name + " has type " + column.type() + ", expected " + type);
+        } else {
+            return columnClass.cast(column);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toString(10);
+    }
+
+    /**
+     * Returns a tabular string representation of this frame showing at most the rows specified
+     * @param maxRows   the max number of rows to include
+     * @return          the formatted string
+     */
+    public String toString(int maxRows) {
+        final int rows = Math.min(maxRows, rowCount);
+        final String[][] cells = new String[rows + 1][columns.size()];
+        final int[] widths = new int[columns.size()];
+        for (int j = 0; j < columns.size(); ++j) {
+            final Column column = columns.get(j);
+            cells[0][j] = column.name();
+            widths[j] = column.name().length();
+            for (int i = 0; i < rows; ++i) {
+                final String text = String.valueOf(column.getValue(i));
+                cells[i + 1][j] = text;
+                widths[j] = Math.max(widths[j], text.length());
+            }
+        }
+        final StringBuilder result = new StringBuilder();
+        result.append("DataFrame[").append(rowCount).append(" x ").append(columns.size()).append("]\n");
+        for (String[] line : cells) {
+            for (int j = 0; j < line.length; ++j) {
+                final String text = line[j];
+                result.append(j == 0 ? "" : "  ");
+                for (int k = text.length(); k < widths[j]; ++k) {
+                    result.append(' ');
+                }
+                result.append(text);
+            }
+            result.append('\n');
+        }
+        if (rows < rowCount) {
+            result.append("... ").append(rowCount - rows).append(" more rows\n");
+        }
+        return result.toString();
+    }
+}
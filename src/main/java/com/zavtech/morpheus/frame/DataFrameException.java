@@ -0,0 +1,26 @@
+package com.zavtech.morpheus.frame;
+
+/**
+ * The exception raised for invalid operations on a DataFrame or its columns.
+ */
+public class DataFrameException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor
+     * @param message   the exception message
+     */
+    public DataFrameException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructor
+     * @param message   the exception message
+     * @param cause     the root cause, if any
+     */
+    public DataFrameException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,194 @@
+package com.zavtech.morpheus.groupby;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Describes one output column of a GroupBy: an aggregation applied to a source column under an output name.
+ */
+public final class Aggregate {
+
+    private final Aggregation aggregation;
+    private final String column;
+    private final String name;
+    private final double quantile;
+
+    /**
+     * Constructor
+     * @param aggregation   the aggregation function
+     * @param column        the source column name, which may be null for COUNT
+     * @param name          the output column name
+     * @param quantile      the quantile of APPROX_QUANTILE, between 0 and 1
+     */
+    private Aggregate(Aggregation aggregation, String column, String name, double quantile) {
+        this.aggregation = Objects.requireNonNull(aggregation, "The aggregation cannot be null");
+        this.column = column;
+        this.name = Objects.requireNonNull(name, "The output name cannot be null");
+        this.quantile = quantile;
+        if (column == null && aggregation != Aggregation.COUNT) {
+            throw new IllegalArgumentException("A source column is required for " + aggregation);
+        }
+    }
+
+    /**
+     * Returns an aggregate of the column specified, named column_aggregation
+     * @param aggregation   the aggregation function
+     * @param column        the source column name
+     * @return              the aggregate
+     */
+    public static Aggregate of(Aggregation aggregation, String column) {
+        return new Aggregate(aggregation, column, column + "_" + aggregation.name().toLowerCase(Locale.ROOT), 0.5d);
+    }
+
+    /**
+     * Returns an aggregate that sums the column specified in each group
+     * @param column    the source column name
+     * @return          the aggregate
+     */
+    public static Aggregate sum(String column) {
+        return of(Aggregation.SUM, column);
+    }
+
+    /**
+     * Returns an aggregate that averages the column specified in each group
+     * @param column    the source column name
+     * @return          the aggregate
+     */
+    public static Aggregate mean(String column) {
+        return of(Aggregation.MEAN, column);
+    }
+
+    /**
+     * Returns an aggregate that takes the min of the column specified in each group
+     * @param column    the source column name
+     * @return          the aggregate
+     */
+    public static Aggregate min(String column) {
+        return of(Aggregation.MIN, column);
+    }
+
+    /**
+     * Returns an aggregate that takes the max of the column specified in each group
+     * @param column    the source column name
+     * @return          the aggregate
+     */
+    public static Aggregate max(String column) {
+        return of(Aggregation.MAX, column);
+    }
+
+    /**
+     * Returns an aggregate that takes the first value of the column specified in each group
+     * @param column    the source column name
+     * @return          the aggregate
+     */
+    public static Aggregate first(String column) {
+        return of(Aggregation.FIRST, column);
+    }
+
+    /**
+     * Returns an aggregate that takes the last value of the column specified in each group
+     * @param column    the source column name
+     * @return          the aggregate
+     */
+    public static Aggregate last(String column) {
+        return of(Aggregation.LAST, column);
+    }
+
+    /**
+     * Returns an aggregate that estimates the number of distinct values of the column specified in each group
+     * @param column    the source column name
+     * @return          the aggregate
+     */
+    public static Aggregate approxDistinct(String column) {
+        return of(Aggregation.APPROX_DISTINCT, column);
+    }
+
+    /**
+     * Returns an aggregate that estimates a quantile of the column specified in each group, named
+     * for the percentile, so column_p95 for the 0.95 quantile
+     * @param column    the source column name
+     * @param quantile  the quantile between 0 and 1
+     * @return          the aggregate
+     */
+    public static Aggregate approxQuantile(String column, double quantile) {
+        if (!(quantile >= 0d && quantile <= 1d)) {
+            throw new IllegalArgumentException("The quantile must be between 0 and 1, not " + quantile);
+        }
+        final String percentile = BigDecimal.valueOf(quantile).movePointRight(2).stripTrailingZeros().toPlainString();
+        return new Aggregate(Aggregation.APPROX_QUANTILE, column, column + "_p" + percentile, quantile);
+    }
+
+    /**
+     * Returns an aggregate that finds the most frequent value of the column specified in each group
+     * @param column    the source column name
+     * @return          the aggregate
+     */
+    public static Aggregate approxTop(String column) {
+        return of(Aggregation.APPROX_TOP, column);
+    }
+
+    /**
+     * Returns an aggregate that counts the rows in each group, named count
+     * @return  the aggregate
+     */
+    public static Aggregate count() {
+        return new Aggregate(Aggregation.COUNT, null, "count", 0.5d);
+    }
+
+    /**
+     * Returns an aggregate that counts the non-null values of the column specified in each group
+     * @param column    the source column name
+     * @return          the aggregate
+     */
+    public static Aggregate count(String column) {
+        return of(Aggregation.COUNT, column);
+    }
+
+    /**
+     * Returns a copy of this aggregate with a different output name
+     * @param name  the output column name
+     * @return      the renamed aggregate
+     */
+    public Aggregate as(String name) {
+        return new Aggregate(aggregation, column, name, quantile);
+    }
+
+    /**
+     * Returns the aggregation function
+     * @return  the aggregation
+     */
+    public Aggregation aggregation() {
+        return aggregation;
+    }
+
+    /**
+     * Returns the source column name, which is null for a row count
+     * @return  the source column name
+     */
+    public String column() {
+        return column;
+    }
+
+    /**
+     * Returns the output column name
+     * @return  the output column name
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns the quantile estimated by APPROX_QUANTILE, which is 0.5 unless specified
+     * @return  the quantile
+     */
+    public double quantile() {
+        return quantile;
+    }
+
+    @Override
+    public String toString() {
+        final String argument = aggregation == Aggregation.APPROX_QUANTILE ? ", " + quantile : "";
+        return aggregation + "(" + (column != null ? column : "*") + argument + ") as " + name;
+    }
+}
@@ -0,0 +1,804 @@
+package com.zavtech.morpheus.groupby;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleArrayColumn;
+import com.zavtech.morpheus.column.NumericColumn;
+import com.zavtech.morpheus.column.Validity;
+import com.zavtech.morpheus.sketch.FrequentItems;
+import com.zavtech.morpheus.sketch.HyperLogLog;
+import com.zavtech.morpheus.sketch.KllSketch;
+import com.zavtech.morpheus.sketch.Sketch;
+
+/**
+ * The per-group state of one aggregate, held in primitive arrays indexed by group id.
+ *
+ * A state accumulates batches of rows from its source column, merges with the state of
+ * the same aggregate built over other rows, and can write and read group records so
+ * that partial results can be spilled to disk and merged later.
+ *
+ * Null rows of the source column are skipped. Source columns widen null rows to NaN, so
+ * states that ignore NaN need no masking, while the others consult the validity bitmap
+ * only for columns that have nulls. Groups without any values yield null.
+ *
+ * The approximate aggregations keep a sketch per group, created on the first value of the group,
+ * whose size varies with the values seen, so they report their footprint through bytes() rather
+ * than a fixed number of bytes per group.
+ */
+abstract class AggregateState {
+
+    final NumericColumn column;
+    final Validity validity;
+    long rowOffset;
+
+    /**
+     * Constructor
+     * @param column    the source column, or null for a row count
+     */
+    AggregateState(NumericColumn column) {
+        this.column = column;
+        this.validity = column != null ? column.validity() : new Validity(0);
+    }
+
+    /**
+     * Returns a new empty state for the aggregate and source column specified
+     * @param aggregate     the aggregate
+     * @param column        the source column, or null for a row count
+     * @return              the new state
+     */
+    static AggregateState create(Aggregate aggregate, NumericColumn column) {
+        switch (aggregate.aggregation()) {
+            case SUM:               return new Sum(column);
+            case COUNT:             return new Count(column);
+            case MEAN:              return new Mean(column);
+            case MIN:               return new Extreme(column, false);
+            case MAX:               return new Extreme(column, true);
+            case FIRST:             return new Edge(column, false);
+            case LAST:              return new Edge(column, true);
+            case APPROX_DISTINCT:   return new Distinct(column);
+            case APPROX_QUANTILE:   return new Quantile(column, aggregate.quantile());
+            case APPROX_TOP:        return new Top(column);
+            default:                throw new IllegalArgumentException("Unsupported aggregation: " + aggregate.aggregation());
+        }
+    }
+
+    /**
+     * Sets the row that row zero of the source column represents, for states that record the rows of values
+     * @param rowOffset the row offset
+     * @return          this state
+     */
+    AggregateState setRowOffset(long rowOffset) {
+        this.rowOffset = rowOffset;
+        return this;
+    }
+
+    /**
+     * Returns a new empty state of the same kind over the same source column
+     * @return  the new state
+     */
+    abstract AggregateState newState();
+
+    /**
+     * Grows the state arrays to hold at least the number of groups specified
+     * @param groups    the number of groups
+     */
+    abstract void ensureCapacity(int groups);
+
+    /**
+     * Accumulates a batch of consecutive rows
+     * @param groups    the group id of each row in the batch
+     * @param from      the index of the first row of the batch
+     * @param count     the number of rows in the batch
+     * @param values    a scratch buffer of at least count values
+     */
+    abstract void accumulate(int[] groups, int from, int count, double[] values);
+
+    /**
+     * Merges a group of another state into a group of this state
+     * @param group         the target group id
+     * @param other         the other state
+     * @param otherGroup    the source group id
+     */
+    abstract void merge(int group, AggregateState other, int otherGroup);
+
+    /**
+     * Writes the state of a group as a record
+     * @param out   the output to write to
+     * @param group the group id
+     */
+    abstract void write(DataOutput out, int group) throws IOException;
+
+    /**
+     * Reads a record written by write() and merges it into a group of this state
+     * @param in    the input to read from
+     * @param group the target group id
+     */
+    abstract void read(DataInput in, int group) throws IOException;
+
+    /**
+     * Resets all groups to the empty state while retaining capacity
+     */
+    abstract void clear();
+
+    /**
+     * Returns the number of bytes used per group
+     * @return  the bytes per group
+     */
+    abstract int bytesPerGroup();
+
+    /**
+     * Returns the number of bytes used by the groups specified, which unless overridden is bytesPerGroup() for each group
+     * @param groups    the number of groups
+     * @return          the bytes used
+     */
+    long bytes(int groups) {
+        return (long)groups * bytesPerGroup();
+    }
+
+    /**
+     * Returns a column holding the result of each group, in the order specified
+     * @param name  the column name
+     * @param order the group ids in output order
+     * @return      the result column
+     */
+    abstract Column result(String name, int[] order);
+
+    /**
+     * Returns a capacity large enough to hold the number of groups specified
+     */
+    static int grow(int capacity, int groups) {
+        return Math.max(groups, Math.max(1024, capacity + (capacity >> 1)));
+    }
+
+
+    /**
+     * The state for SUM
+     */
+    static final class Sum extends AggregateState {
+
+        private double[] sums = new double[0];
+
+        Sum(NumericColumn column) {
+            super(column);
+        }
+
+        @Override
+        AggregateState newState() {
+            return new Sum(column);
+        }
+
+        @Override
+        void ensureCapacity(int groups) {
+            if (groups > sums.length) {
+                this.sums = Arrays.copyOf(sums, grow(sums.length, groups));
+            }
+        }
+
+        @Override
+        void accumulate(int[] groups, int from, int count, double[] values) {
+            column.getDoubles(from, values, 0, count);
+            validity.fill(from, values, 0, count, 0d);
+            for (int i = 0; i < count; ++i) {
+                this.sums[groups[i]] += values[i];
+            }
+        }
+
+        @Override
+        void merge(int group, AggregateState other, int otherGroup) {
+            this.sums[group] += ((Sum)other).sums[otherGroup];
+        }
+
+        @Override
+        void write(DataOutput out, int group) throws IOException {
+            out.writeDouble(sums[group]);
+        }
+
+        @Override
+        void read(DataInput in, int group) throws IOException {
+            this.sums[group] += in.readDouble();
+        }
+
+        @Override
+        void clear() {
+            Arrays.fill(sums, 0d);
+        }
+
+        @Override
+        int bytesPerGroup() {
+            return 8;
+        }
+
+        @Override
+        Column result(String name, int[] order) {
+            final double[] values = new double[order.length];
+            for (int i = 0; i < order.length; ++i) {
+                values[i] = sums[order[i]];
+            }
+            return Columns.ofDoubles(name, values);
+        }
+    }
+
+
+    /**
+     * The state for COUNT, which counts rows without a source column and values with one
+     */
+    static final class Count extends AggregateState {
+
+        private long[] counts = new long[0];
+
+        Count(NumericColumn column) {
+            super(column);
+        }
+
+        @Override
+        AggregateState newState() {
+            return new Count(column);
+        }
+
+        @Override
+        void ensureCapacity(int groups) {
+            if (groups > counts.length) {
+                this.counts = Arrays.copyOf(counts, grow(counts.length, groups));
+            }
+        }
+
+        @Override
+        void accumulate(int[] groups, int from, int count, double[] values) {
+            if (!validity.hasNulls()) {
+                for (int i = 0; i < count; ++i) {
+                    this.counts[groups[i]]++;
+                }
+            } else {
+                for (int i = 0; i < count; ++i) {
+                    if (validity.isValid(from + i)) {
+                        this.counts[groups[i]]++;
+                    }
+                }
+            }
+        }
+
+        @Override
+        void merge(int group, AggregateState other, int otherGroup) {
+            this.counts[group] += ((Count)other).counts[otherGroup];
+        }
+
+        @Override
+        void write(DataOutput out, int group) throws IOException {
+            out.writeLong(counts[group]);
+        }
+
+        @Override
+        void read(DataInput in, int group) throws IOException {
+            this.counts[group] += in.readLong();
+        }
+
+        @Override
+        void clear() {
+            Arrays.fill(counts, 0L);
+        }
+
+        @Override
+        int bytesPerGroup() {
+            return 8;
+        }
+
+        @Override
+        Column result(String name, int[] order) {
+            final long[] values = new long[order.length];
+            for (int i = 0; i < order.length; ++i) {
+                values[i] = counts[order[i]];
+            }
+            return Columns.ofLongs(name, values);
+        }
+    }
+
+
+    /**
+     * The state for MEAN, which keeps a sum and a count per group
+     */
+    static final class Mean extends AggregateState {
+
+        private double[] sums = new double[0];
+        private long[] counts = new long[0];
+
+        Mean(NumericColumn column) {
+            super(column);
+        }
+
+        @Override
+        AggregateState newState() {
+            return new Mean(column);
+        }
+
+        @Override
+        void ensureCapacity(int groups) {
+            if (groups > sums.length) {
+                final int capacity = grow(sums.length, groups);
+                this.sums = Arrays.copyOf(sums, capacity);
+                this.counts = Arrays.copyOf(counts, capacity);
+            }
+        }
+
+        @Override
+        void accumulate(int[] groups, int from, int count, double[] values) {
+            column.getDoubles(from, values, 0, count);
+            if (!validity.hasNulls()) {
+                for (int i = 0; i < count; ++i) {
+                    final int group = groups[i];
+                    this.sums[group] += values[i];
+                    this.counts[group]++;
+                }
+            } else {
+                for (int i = 0; i < count; ++i) {
+                    if (validity.isValid(from + i)) {
+                        final int group = groups[i];
+                        this.sums[group] += values[i];
+                        this.counts[group]++;
+                    }
+                }
+            }
+        }
+
+        @Override
+        void merge(int group, AggregateState other, int otherGroup) {
+            this.sums[group] += ((Mean)other).sums[otherGroup];
+            this.counts[group] += ((Mean)other).counts[otherGroup];
+        }
+
+        @Override
+        void write(DataOutput out, int group) throws IOException {
+            out.writeDouble(sums[group]);
+            out.writeLong(counts[group]);
+        }
+
+        @Override
+        void read(DataInput in, int group) throws IOException {
+            this.sums[group] += in.readDouble();
+            this.counts[group] += in.readLong();
+        }
+
+        @Override
+        void clear() {
+            Arrays.fill(sums, 0d);
+            Arrays.fill(counts, 0L);
+        }
+
+        @Override
+        int bytesPerGroup() {
+            return 16;
+        }
+
+        @Override
+        Column result(String name, int[] order) {
+            final DoubleArrayColumn result = new DoubleArrayColumn(name, new double[order.length]);
+            for (int i = 0; i < order.length; ++i) {
+                final int group = order[i];
+                if (counts[group] > 0) {
+                    result.setDouble(i, sums[group] / counts[group]);
+                } else {
+                    result.setNull(i);
+                }
+            }
+            return result;
+        }
+    }
+
+
+    /**
+     * The state for MIN and MAX, where NaN marks a group without values so that nulls and NaN values are ignored
+     */
+    static final class Extreme extends AggregateState {
+
+        private final boolean max;
+        private double[] values = new double[0];
+
+        Extreme(NumericColumn column, boolean max) {
+            super(column);
+            this.max = max;
+        }
+
+        @Override
+        AggregateState newState() {
+            return new Extreme(column, max);
+        }
+
+        @Override
+        void ensureCapacity(int groups) {
+            if (groups > values.length) {
+                final int length = values.length;
+                this.values = Arrays.copyOf(values, grow(length, groups));
+                Arrays.fill(values, length, values.length, Double.NaN);
+            }
+        }
+
+        @Override
+        void accumulate(int[] groups, int from, int count, double[] batch) {
+            column.getDoubles(from, batch, 0, count);
+            for (int i = 0; i < count; ++i) {
+                combine(groups[i], batch[i]);
+            }
+        }
+
+        @Override
+        void merge(int group, AggregateState other, int otherGroup) {
+            combine(group, ((Extreme)other).values[otherGroup]);
+        }
+
+        @Override
+        void write(DataOutput out, int group) throws IOException {
+            out.writeDouble(values[group]);
+        }
+
+        @Override
+        void read(DataInput in, int group) throws IOException {
+            combine(group, in.readDouble());
+        }
+
+        private void combine(int group, double value) {
+            final double current = values[group];
+            if (current != current || (max ? value > current : value < current)) {
+                this.values[group] = value;
+            }
+        }
+
+        @Override
+        void clear() {
+            Arrays.fill(values, Double.NaN);
+        }
+
+        @Override
+        int bytesPerGroup() {
+            return 8;
+        }
+
+        @Override
+        Column result(String name, int[] order) {
+            final DoubleArrayColumn result = new DoubleArrayColumn(name, new double[order.length]);
+            for (int i = 0; i < order.length; ++i) {
+                final double value = values[order[i]];
+                if (value == value) {
+                    result.setDouble(i, value);
+                } else {
+                    result.setNull(i);
+                }
+            }
+            return result;
+        }
+    }
+
+
+    /**
+     * The state for FIRST and LAST of the non-null values, which records the row of the value so that merges are order independent
+     */
+    static final class Edge extends AggregateState {
+
+        private final boolean last;
+        private double[] values = new double[0];
+        private long[] rows = new long[0];
+
+        Edge(NumericColumn column, boolean last) {
+            super(column);
+            this.last = last;
+        }
+
+        @Override
+        AggregateState newState() {
+            return new Edge(column, last);
+        }
+
+        @Override
+        void ensureCapacity(int groups) {
+            if (groups > values.length) {
+                final int length = rows.length;
+                final int capacity = grow(length, groups);
+                this.values = Arrays.copyOf(values, capacity);
+                this.rows = Arrays.copyOf(rows, capacity);
+                Arrays.fill(rows, length, capacity, -1L);
+            }
+        }
+
+        @Override
+        void accumulate(int[] groups, int from, int count, double[] batch) {
+            column.getDoubles(from, batch, 0, count);
+            final boolean nulls = validity.hasNulls();
+            for (int i = 0; i < count; ++i) {
+                if (!nulls || validity.isValid(from + i)) {
+                    combine(groups[i], batch[i], rowOffset + from + i);
+                }
+            }
+        }
+
+        @Override
+        void merge(int group, AggregateState other, int otherGroup) {
+            final Edge edge = (Edge)other;
+            if (edge.rows[otherGroup] >= 0) {
+                combine(group, edge.values[otherGroup], edge.rows[otherGroup]);
+            }
+        }
+
+        @Override
+        void write(DataOutput out, int group) throws IOException {
+            out.writeDouble(values[group]);
+            out.writeLong(rows[group]);
+        }
+
+        @Override
+        void read(DataInput in, int group) throws IOException {
+            final double value = in.readDouble();
+            final long row = in.readLong();
+            if (row >= 0) {
+                combine(group, value, row);
+            }
+        }
+
+        private void combine(int group, double value, long row) {
+            final long current = rows[group];
+            if (current < 0 || (last ? row > current : row < current)) {
+                this.values[group] = value;
+                this.rows[group] = row;
+            }
+        }
+
+        @Override
+        void clear() {
+            Arrays.fill(rows, -1L);
+        }
+
+        @Override
+        int bytesPerGroup() {
+            return 16;
+        }
+
+        @Override
+        Column result(String name, int[] order) {
+            final DoubleArrayColumn result = new DoubleArrayColumn(name, new double[order.length]);
+            for (int i = 0; i < order.length; ++i) {
+                final int group = order[i];
+                if (rows[group] >= 0) {
+                    result.setDouble(i, values[group]);
+                } else {
+                    result.setNull(i);
+                }
+            }
+            return result;
+        }
+    }
+
+
+    /**
+     * The base of the states of approximate aggregations, which keep a sketch per group and track the bytes of all sketches
+     */
+    abstract static class Sketched<S extends Sketch<S>> extends AggregateState {
+
+        private Object[] sketches = new Object[0];
+        private long bytes;
+
+        Sketched(NumericColumn column) {
+            super(column);
+        }
+
+        /**
+         * Returns a new empty sketch
+         */
+        abstract S newSketch();
+
+        /**
+         * Reads a sketch written by its write() method
+         */
+        abstract S readSketch(DataInput in) throws IOException;
+
+        /**
+         * Returns the sketch of a group, or null if the group has no values
+         */
+        @SuppressWarnings("unchecked")
+        final S sketch(int group) {
+            return (S)sketches[group];
+        }
+
+        @Override
+        void ensureCapacity(int groups) {
+            if (groups > sketches.length) {
+                this.sketches = Arrays.copyOf(sketches, grow(sketches.length, groups));
+            }
+        }
+
+        @Override
+        void accumulate(int[] groups, int from, int count, double[] values) {
+            column.getDoubles(from, values, 0, count);
+            for (int i = 0; i < count; ++i) {
+                final double value = values[i];
+                if (value == value) {
+                    S sketch = sketch(groups[i]);
+                    if (sketch == null) {
+                        sketch = newSketch();
+                        this.sketches[groups[i]] = sketch;
+                        this.bytes += sketch.bytes();
+                    }
+                    final int before = sketch.bytes();
+                    sketch.add(value);
+                    this.bytes += sketch.bytes() - before;
+                }
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void merge(int group, AggregateState other, int otherGroup) {
+            final S sketch = ((Sketched<S>)other).sketch(otherGroup);
+            if (sketch != null) {
+                combine(group, sketch.copy());
+            }
+        }
+
+        @Override
+        void write(DataOutput out, int group) throws IOException {
+            final S sketch = sketch(group);
+            out.writeBoolean(sketch != null);
+            if (sketch != null) {
+                sketch.write(out);
+            }
+        }
+
+        @Override
+        void read(DataInput in, int group) throws IOException {
+            if (in.readBoolean()) {
+                combine(group, readSketch(in));
+            }
+        }
+
+        /**
+         * Merges a sketch this state may keep into a group
+         */
+        private void combine(int group, S sketch) {
+            final S current = sketch(group);
+            if (current == null) {
+                this.sketches[group] = sketch;
+                this.bytes += sketch.bytes();
+            } else {
+                final int before = current.bytes();
+                current.merge(sketch);
+                this.bytes += current.bytes() - before;
+            }
+        }
+
+        @Override
+        void clear() {
+            Arrays.fill(sketches, null);
+            this.bytes = 0L;
+        }
+
+        @Override
+        int bytesPerGroup() {
+            return 8;
+        }
+
+        @Override
+        long bytes(int groups) {
+            return (long)groups * bytesPerGroup() + bytes;
+        }
+    }
+
+
+    /**
+     * The state for APPROX_DISTINCT, which keeps a HyperLogLog sketch per group
+     */
+    static final class Distinct extends Sketched<HyperLogLog> {
+
+        Distinct(NumericColumn column) {
+            super(column);
+        }
+
+        @Override
+        AggregateState newState() {
+            return new Distinct(column);
+        }
+
+        @Override
+        HyperLogLog newSketch() {
+            return HyperLogLog.create();
+        }
+
+        @Override
+        HyperLogLog readSketch(DataInput in) throws IOException {
+            return HyperLogLog.read(in);
+        }
+
+        @Override
+        Column result(String name, int[] order) {
+            final long[] values = new long[order.length];
+            for (int i = 0; i < order.length; ++i) {
+                final HyperLogLog sketch = sketch(order[i]);
+                values[i] = sketch != null ? sketch.estimate() : 0L;
+            }
+            return Columns.ofLongs(name, values);
+        }
+    }
+
+
+    /**
+     * The state for APPROX_QUANTILE, which keeps a KLL sketch per group
+     */
+    static final class Quantile extends Sketched<KllSketch> {
+
+        private final double quantile;
+
+        Quantile(NumericColumn column, double quantile) {
+            super(column);
+            this.quantile = quantile;
+        }
+
+        @Override
+        AggregateState newState() {
+            return new Quantile(column, quantile);
+        }
+
+        @Override
+        KllSketch newSketch() {
+            return KllSketch.create();
+        }
+
+        @Override
+        KllSketch readSketch(DataInput in) throws IOException {
+            return KllSketch.read(in);
+        }
+
+        @Override
+        Column result(String name, int[] order) {
+            final DoubleArrayColumn result = new DoubleArrayColumn(name, new double[order.length]);
+            for (int i = 0; i < order.length; ++i) {
+                final KllSketch sketch = sketch(order[i]);
+                if (sketch != null) {
+                    result.setDouble(i, sketch.quantile(quantile));
+                } else {
+                    result.setNull(i);
+                }
+            }
+            return result;
+        }
+    }
+
+
+    /**
+     * The state for APPROX_TOP, which keeps a frequent items sketch per group
+     */
+    static final class Top extends Sketched<FrequentItems> {
+
+        Top(NumericColumn column) {
+            super(column);
+        }
+
+        @Override
+        AggregateState newState() {
+            return new Top(column);
+        }
+
+        @Override
+        FrequentItems newSketch() {
+            return FrequentItems.create();
+        }
+
+        @Override
+        FrequentItems readSketch(DataInput in) throws IOException {
+            return FrequentItems.read(in);
+        }
+
+        @Override
+        Column result(String name, int[] order) {
+            final DoubleArrayColumn result = new DoubleArrayColumn(name, new double[order.length]);
+            for (int i = 0; i < order.length; ++i) {
+                final FrequentItems sketch = sketch(order[i]);
+                if (sketch != null) {
+                    result.setDouble(i, sketch.mostFrequent());
+                } else {
+                    result.setNull(i);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.zavtech.morpheus.groupby;
+
+/**
+ * Enumerates the aggregation functions supported by GroupBy.
+ *
+ * Null values are ignored, and a group without any values yields null, other than for SUM, COUNT and
+ * APPROX_DISTINCT which yield zero. The approximate aggregations are computed with sketches from the
+ * sketch package, which merge across morsels and spill files with the same error bounds as a single
+ * pass, and ignore NaN values as well as nulls.
+ */
+public enum Aggregation {
+
+    /** The sum of values in each group, as a double */
+    SUM,
+
+    /** The number of rows in each group, or of non-null values when applied to a column, as a long */
+    COUNT,
+
+    /** The arithmetic mean of values in each group, as a double */
+    MEAN,
+
+    /** The min value in each group, ignoring NaN, as a double */
+    MIN,
+
+    /** The max value in each group, ignoring NaN, as a double */
+    MAX,
+
+    /** The first non-null value of each group in frame order, as a double */
+    FIRST,
+
+    /** The last non-null value of each group in frame order, as a double */
+    LAST,
+
+    /** The estimated number of distinct values in each group, from a HyperLogLog sketch, as a long */
+    APPROX_DISTINCT,
+
+    /** The estimated value at a quantile of each group, the median unless specified, from a KLL sketch, as a double */
+    APPROX_QUANTILE,
+
+    /** The most frequent value in each group, from a Misra-Gries sketch, as a double */
+    APPROX_TOP;
+
+    /**
+     * Returns true if this aggregation is estimated with a sketch rather than computed exactly
+     * @return  true if approximate
+     */
+    public boolean isApproximate() {
+        return this == APPROX_DISTINCT || this == APPROX_QUANTILE || this == APPROX_TOP;
+    }
+}
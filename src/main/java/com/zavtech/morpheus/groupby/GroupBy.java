@@ -0,0 +1,401 @@
+package com.zavtech.morpheus.groupby;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Collections;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.LongArrayColumn;
+import com.zavtech.morpheus.column.NumericColumn;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.hash.GroupTable;
+import com.zavtech.morpheus.hash.KeyColumn;
+import com.zavtech.morpheus.parallel.Morsels;
+import com.zavtech.morpheus.profile.Profiler;
+
+/**
+ * A hash based group-by aggregation over one or more key columns of a DataFrame.
+ *
+ * Rows are split into morsels that are aggregated concurrently, each worker building a
+ * partial GroupTable over primitive keys together with primitive arrays of aggregate state
+ * from the morsels it claims. The partials are then merged into a single result with one
+ * row per distinct key, ordered by the first appearance of each key in the frame.
+ *
+ * If the partial tables grow beyond the memory budget, their groups are spilled to
+ * temporary files partitioned by key hash, and the result is then assembled one hash
+ * partition at a time, so that only one partition needs to fit in memory while merging.
+ *
+ * Each key column with nulls adds a null flag word to the keys of the tables, so null keys
+ * form a group of their own that is never confused with a key whose value encodes as NULL.
+ */
+public final class GroupBy {
+
+    private static final int BATCH_SIZE = 2048;
+    private static final int SPILL_PARTITION_BITS = 4;
+    private static final String FIRST_ROW = "__first_row";
+
+    private final DataFrame frame;
+    private final List<String> keys;
+    private final Morsels morsels = Morsels.create();
+    private long memoryBudget = Runtime.getRuntime().maxMemory() / 4;
+    private Path spillDirectory = Paths.get(System.getProperty("java.io.tmpdir"));
+
+    /**
+     * Constructor
+     * @param frame the frame to group
+     * @param keys  the names of the key columns
+     */
+    private GroupBy(DataFrame frame, List<String> keys) {
+        this.frame = Objects.requireNonNull(frame, "The frame cannot be null");
+        this.keys = new ArrayList<>(keys);
+        if (keys.isEmpty()) {
+            throw new DataFrameException("At least one key column is required for a group by");
+        }
+    }
+
+    /**
+     * Returns a group-by of the frame on the key columns specified
+     * @param frame the frame to group
+     * @param keys  the names of the key columns
+     * @return      the group-by
+     */
+    public static GroupBy of(DataFrame frame, String... keys) {
+        return new GroupBy(frame, Arrays.asList(keys));
+    }
+
+    /**
+     * Sets the max number of threads used to aggregate
+     * @param parallelism   the parallelism, where 1 aggregates on the calling thread
+     * @return              this group-by
+     */
+    public GroupBy setParallelism(int parallelism) {
+        this.morsels.setParallelism(parallelism);
+        return this;
+    }
+
+    /**
+     * Sets the approximate number of bytes the partial hash tables may hold before spilling to disk
+     * @param memoryBudget  the memory budget in bytes
+     * @return              this group-by
+     */
+    public GroupBy setMemoryBudget(long memoryBudget) {
+        if (memoryBudget < 1) {
+            throw new IllegalArgumentException("The memory budget must be > 0");
+        }
+        this.memoryBudget = memoryBudget;
+        return this;
+    }
+
+    /**
+     * Sets the directory in which temporary spill files are created
+     * @param spillDirectory    the spill directory
+     * @return                  this group-by
+     */
+    public GroupBy setSpillDirectory(Path spillDirectory) {
+        this.spillDirectory = Objects.requireNonNull(spillDirectory, "The spill directory cannot be null");
+        return this;
+    }
+
+    /**
+     * Returns a frame with the key columns followed by one column per aggregate, with one row per distinct key
+     * @param aggregates    the aggregates to compute
+     * @return              the aggregated frame
+     */
+    public DataFrame aggregate(Aggregate... aggregates) {
+        return aggregate(Arrays.asList(aggregates));
+    }
+
+    /**
+     * Returns a frame with the key columns followed by one column per aggregate, with one row per distinct key
+     * @param aggregates    the aggregates to compute
+     * @return              the aggregated frame
+     */
+    public DataFrame aggregate(List<Aggregate> aggregates) {
+        final AggregateState[] template = new AggregateState[aggregates.size()];
+        for (int i = 0; i < template.length; ++i) {
+            final Aggregate aggregate = aggregates.get(i);
+            final NumericColumn column = aggregate.column() != null ? frame.numeric(aggregate.column()) : null;
+            template[i] = AggregateState.create(aggregate, column);
+        }
+        final int rowCount = frame.rowCount();
+        final int workers = Math.min(morsels.getParallelism(), morsels.morselCount(rowCount));
+        final int[] nullable = nullable();
+        final List<Partial> partials = Collections.synchronizedList(new ArrayList<>(workers));
+        try {
+            morsels.collect(rowCount, () -> {
+                final Partial partial = new Partial(template, nullable, memoryBudget / workers);
+                partials.add(partial);
+                return partial;
+            }, (partial, morsel, from, to) -> partial.aggregate(from, to));
+            final boolean spilled = partials.stream().anyMatch(p -> p.spillFiles != null);
+            final int partitions = spilled ? 1 << SPILL_PARTITION_BITS : 1;
+            final List<DataFrame> results = new ArrayList<>(partitions);
+            for (int p = 0; p < partitions; ++p) {
+                results.add(merge(partials, template, aggregates, nullable, spilled, p));
+            }
+            return ordered(results.size() == 1 ? results.get(0) : DataFrame.concat(results));
+        } catch (UncheckedIOException ex) {
+            throw new DataFrameException("Group by failed to spill groups", ex.getCause());
+        } catch (IOException ex) {
+            throw new DataFrameException("Group by failed to read spilled groups", ex);
+        } finally {
+            for (Partial partial : partials) {
+                partial.deleteSpillFiles();
+            }
+        }
+    }
+
+    /**
+     * Returns the indexes of the key columns that have nulls, each of which adds a null flag word to the table keys
+     */
+    private int[] nullable() {
+        final int[] nullable = new int[keys.size()];
+        int count = 0;
+        for (int k = 0; k < keys.size(); ++k) {
+            if (frame.column(keys.get(k)).validity().hasNulls()) {
+                nullable[count++] = k;
+            }
+        }
+        return Arrays.copyOf(nullable, count);
+    }
+
+    /**
+     * Merges one hash partition of every partial, including spilled groups, into a result frame
+     */
+    private DataFrame merge(List<Partial> partials, AggregateState[] template, List<Aggregate> aggregates, int[] nullable, boolean partitioned, int partition) throws IOException {
+        final int width = keys.size();
+        final GroupTable table = new GroupTable(width + nullable.length);
+        final AggregateState[] states = new AggregateState[template.length];
+        for (int i = 0; i < states.length; ++i) {
+            states[i] = template[i].newState();
+        }
+        final long[] key = new long[table.width()];
+        for (Partial partial : partials) {
+            if (partial.spillFiles != null) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(partial.spillFiles[partition])))) {
+                    for (long r = 0; r < partial.spillCounts[partition]; ++r) {
+                        for (int k = 0; k < key.length; ++k) {
+                            key[k] = in.readLong();
+                        }
+                        final long hash = in.readLong();
+                        final long firstRow = in.readLong();
+                        final int group = table.findOrInsert(key, hash, firstRow);
+                        for (AggregateState state : states) {
+                            state.ensureCapacity(table.size());
+                            state.read(in, group);
+                        }
+                    }
+                }
+            }
+            final GroupTable source = partial.table;
+            for (int g = 0; g < source.size(); ++g) {
+                if (!partitioned || partition(source.hash(g)) == partition) {
+                    source.key(g, key);
+                    final int group = table.findOrInsert(key, source.hash(g), source.firstRow(g));
+                    for (int i = 0; i < states.length; ++i) {
+                        states[i].ensureCapacity(table.size());
+                        states[i].merge(group, partial.states[i], g);
+                    }
+                }
+            }
+        }
+        final int size = table.size();
+        final int[] order = new int[size];
+        final long[] firstRows = new long[size];
+        final List<Column> columns = new ArrayList<>(width + states.length + 1);
+        for (int k = 0; k < width; ++k) {
+            final long[] words = new long[size];
+            for (int g = 0; g < size; ++g) {
+                words[g] = table.key(g, k);
+            }
+            final int flag = Arrays.binarySearch(nullable, k);
+            final long[] nulls = flag >= 0 ? new long[size] : null;
+            for (int g = 0; nulls != null && g < size; ++g) {
+                nulls[g] = table.key(g, width + flag);
+            }
+            columns.add(new KeyColumn(frame.column(keys.get(k)), 0).decode(words, nulls));
+        }
+        for (int g = 0; g < size; ++g) {
+            order[g] = g;
+            firstRows[g] = table.firstRow(g);
+        }
+        for (int i = 0; i < states.length; ++i) {
+            columns.add(states[i].result(aggregates.get(i).name(), order));
+        }
+        columns.add(new LongArrayColumn(FIRST_ROW, firstRows));
+        return DataFrame.of(columns);
+    }
+
+    /**
+     * Returns the result ordered by the first appearance of each key, without the first row column
+     */
+    private static DataFrame ordered(DataFrame result) {
+        final long[] firstRows = ((LongArrayColumn)result.column(FIRST_ROW)).values();
+        boolean sorted = true;
+        for (int i = 1; i < firstRows.length && sorted; ++i) {
+            sorted = firstRows[i - 1] < firstRows[i];
+        }
+        if (sorted) {
+            return result.drop(FIRST_ROW);
+        } else {
+            final long[] packed = new long[firstRows.length];
+            for (int i = 0; i < packed.length; ++i) {
+                packed[i] = (firstRows[i] << 32) | i;
+            }
+            Arrays.sort(packed);
+            final int[] rows = new int[packed.length];
+            for (int i = 0; i < rows.length; ++i) {
+                rows[i] = (int)packed[i];
+            }
+            return result.drop(FIRST_ROW).take(rows);
+        }
+    }
+
+    /**
+     * Returns the spill partition for a key hash, using bits independent of those that select table slots
+     */
+    private static int partition(long hash) {
+        return (int)(hash >>> (64 - SPILL_PARTITION_BITS));
+    }
+
+
+    /**
+     * The partial aggregation of the morsels claimed by one worker, owned by a single thread
+     */
+    private final class Partial {
+
+        private final long budget;
+        private final int[] nullable;
+        private final GroupTable table;
+        private final AggregateState[] states;
+        private Path[] spillFiles;
+        private long[] spillCounts;
+
+        Partial(AggregateState[] template, int[] nullable, long budget) {
+            this.budget = budget;
+            this.nullable = nullable;
+            this.table = new GroupTable(keys.size() + nullable.length);
+            this.states = new AggregateState[template.length];
+            for (int i = 0; i < states.length; ++i) {
+                this.states[i] = template[i].newState();
+            }
+        }
+
+        /**
+         * Aggregates the rows in [from, to) in batches
+         */
+        void aggregate(int from, int to) throws IOException {
+            final int width = keys.size();
+            final KeyColumn[] keyColumns = new KeyColumn[width];
+            final long[][] keyBatch = new long[table.width()][BATCH_SIZE];
+            final long[] key = new long[table.width()];
+            final int[] groups = new int[BATCH_SIZE];
+            final double[] values = new double[BATCH_SIZE];
+            for (int k = 0; k < width; ++k) {
+                keyColumns[k] = new KeyColumn(frame.column(keys.get(k)), BATCH_SIZE);
+            }
+            for (int row = from; row < to; row += BATCH_SIZE) {
+                final int count = Math.min(BATCH_SIZE, to - row);
+                for (int k = 0; k < width; ++k) {
+                    keyColumns[k].read(row, keyBatch[k], count);
+                }
+                for (int f = 0; f < nullable.length; ++f) {
+                    keyColumns[nullable[f]].readNulls(row, keyBatch[width + f], count);
+                }
+                for (int i = 0; i < count; ++i) {
+                    for (int k = 0; k < key.length; ++k) {
+                        key[k] = keyBatch[k][i];
+                    }
+                    groups[i] = table.findOrInsert(key, GroupTable.hash(key), row + i);
+                }
+                long bytes = table.bytes();
+                for (AggregateState state : states) {
+                    state.ensureCapacity(table.size());
+                    state.accumulate(groups, row, count, values);
+                    bytes += state.bytes(table.size());
+                }
+                if (bytes > budget) {
+                    spill();
+                }
+            }
+        }
+
+        /**
+         * Appends all groups to partitioned spill files and clears the in-memory table
+         */
+        private void spill() throws IOException {
+            final int partitions = 1 << SPILL_PARTITION_BITS;
+            if (spillFiles == null) {
+                this.spillFiles = new Path[partitions];
+                this.spillCounts = new long[partitions];
+                for (int p = 0; p < partitions; ++p) {
+                    this.spillFiles[p] = Files.createTempFile(spillDirectory, "morpheus-groupby-", ".spill");
+                }
+            }
+            final DataOutputStream[] outputs = new DataOutputStream[partitions];
+            try {
+                for (int p = 0; p < partitions; ++p) {
+                    outputs[p] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spillFiles[p], StandardOpenOption.APPEND)));
+                }
+                for (int g = 0; g < table.size(); ++g) {
+                    final long hash = table.hash(g);
+                    final int p = partition(hash);
+                    final DataOutputStream out = outputs[p];
+                    for (int k = 0; k < table.width(); ++k) {
+                        out.writeLong(table.key(g, k));
+                    }
+                    out.writeLong(hash);
+                    out.writeLong(table.firstRow(g));
+                    for (AggregateState state : states) {
+                        state.write(out, g);
+                    }
+                    this.spillCounts[p]++;
+                }
+                long bytes = 0L;
+                for (DataOutputStream out : outputs) {
+                    bytes += out.size();
+                }
+                Profiler.spilled(bytes);
+            } finally {
+                for (DataOutputStream out : outputs) {
+                    if (out != null) {
+                        out.close();
+                    }
+                }
+            }
+            this.table.clear();
+            for (AggregateState state : states) {
+                state.clear();
+            }
+        }
+
+        /**
+         * Deletes any spill files created by this partial
+         */
+        void deleteSpillFiles() {
+            if (spillFiles != null) {
+                for (Path file : spillFiles) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException ex) {
+                        file.toFile().deleteOnExit();
+                    }
+                }
+            }
+        }
+    }
+}
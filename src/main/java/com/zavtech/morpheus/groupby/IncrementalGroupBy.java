@@ -0,0 +1,205 @@
+package com.zavtech.morpheus.groupby;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.ColumnType;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.Dictionary;
+import com.zavtech.morpheus.column.NumericColumn;
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.hash.GroupTable;
+import com.zavtech.morpheus.hash.KeyColumn;
+
+/**
+ * A group-by aggregation maintained over a stream of batches of rows, where each batch costs in proportion to its own size.
+ *
+ * Each batch is aggregated into a partial table of its own, as a morsel is by GroupBy, and the partial
+ * is then merged into the running table, so rows are never revisited and a result can be taken between
+ * any two batches. String keys are encoded against a dictionary owned by the aggregation, so batches
+ * may come from frames with different dictionaries. Groups are ordered by the first appearance of their
+ * key across all batches, which for FIRST and LAST is also the order that decides between values.
+ * As any batch may bring null keys, every key carries a null flag word in the tables, as in GroupBy.
+ *
+ * An incremental group-by is not safe for concurrent use, so readers must be serialized with updates.
+ */
+public final class IncrementalGroupBy {
+
+    private static final int BATCH_SIZE = 2048;
+
+    private final List<String> keys;
+    private final List<Aggregate> aggregates;
+    private final ColumnType[] keyTypes;
+    private final Dictionary[] dictionaries;
+    private final GroupTable table;
+    private final AggregateState[] states;
+    private long rowCount;
+
+    /**
+     * Constructor
+     * @param schema        a frame with the columns of the batches, of any length
+     * @param keys          the names of the key columns
+     * @param aggregates    the aggregates to maintain
+     */
+    private IncrementalGroupBy(DataFrame schema, List<String> keys, List<Aggregate> aggregates) {
+        if (keys.isEmpty()) {
+            throw new DataFrameException("At least one key column is required for a group by");
+        }
+        this.keys = new ArrayList<>(keys);
+        this.aggregates = new ArrayList<>(aggregates);
+        this.keyTypes = new ColumnType[keys.size()];
+        this.dictionaries = new Dictionary[keys.size()];
+        this.table = new GroupTable(keys.size() * 2);
+        this.states = new AggregateState[aggregates.size()];
+        for (int k = 0; k < keyTypes.length; ++k) {
+            final Column column = schema.column(keys.get(k));
+            switch (column.type()) {
+                case BOOLEAN:
+                case INT:
+                case LONG:
+                case DOUBLE:
+                case STRING:
+                    break;
+                default:
+                    throw new DataFrameException("Unsupported key column type for " + column.name() + ": " + column.type());
+            }
+            this.keyTypes[k] = column.type();
+            this.dictionaries[k] = column.type() == ColumnType.STRING ? new Dictionary() : null;
+        }
+        for (int i = 0; i < states.length; ++i) {
+            final Aggregate aggregate = aggregates.get(i);
+            if (aggregate.column() != null) {
+                schema.numeric(aggregate.column());
+            }
+            this.states[i] = AggregateState.create(aggregate, null);
+        }
+    }
+
+    /**
+     * Returns an incremental group-by on the key columns specified
+     * @param schema        a frame with the columns of the batches to come, such as the first batch or an empty frame
+     * @param keys          the names of the key columns
+     * @param aggregates    the aggregates to maintain
+     * @return              the incremental group-by, with no rows
+     */
+    public static IncrementalGroupBy of(DataFrame schema, List<String> keys, Aggregate... aggregates) {
+        return new IncrementalGroupBy(schema, keys, Arrays.asList(aggregates));
+    }
+
+    /**
+     * Returns the number of rows aggregated so far
+     * @return  the row count
+     */
+    public long rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the number of distinct keys seen so far
+     * @return  the group count
+     */
+    public int groupCount() {
+        return table.size();
+    }
+
+    /**
+     * Aggregates a batch of rows that follow those of earlier batches
+     * @param batch the batch, which must have the key and aggregate columns with the types of the schema
+     * @return      this group-by
+     */
+    public IncrementalGroupBy update(DataFrame batch) {
+        final int width = keys.size();
+        final KeyColumn[] keyColumns = new KeyColumn[width];
+        for (int k = 0; k < width; ++k) {
+            final Column column = batch.column(keys.get(k));
+            if (column.type() != keyTypes[k]) {
+                throw new DataFrameException("Key column " + column.name() + " has type " + column.type() + ", expected " + keyTypes[k]);
+            }
+            keyColumns[k] = new KeyColumn(column, BATCH_SIZE, dictionaries[k]);
+        }
+        final AggregateState[] partials = new AggregateState[states.length];
+        for (int i = 0; i < partials.length; ++i) {
+            final Aggregate aggregate = aggregates.get(i);
+            final NumericColumn column = aggregate.column() != null ? batch.numeric(aggregate.column()) : null;
+            partials[i] = AggregateState.create(aggregate, column).setRowOffset(rowCount);
+        }
+        final GroupTable partial = new GroupTable(table.width());
+        final long[][] keyBatch = new long[table.width()][BATCH_SIZE];
+        final long[] key = new long[table.width()];
+        final int[] groups = new int[BATCH_SIZE];
+        final double[] values = new double[BATCH_SIZE];
+        final int length = batch.rowCount();
+        for (int row = 0; row < length; row += BATCH_SIZE) {
+            final int count = Math.min(BATCH_SIZE, length - row);
+            for (int k = 0; k < width; ++k) {
+                keyColumns[k].read(row, keyBatch[k], count);
+                keyColumns[k].readNulls(row, keyBatch[width + k], count);
+            }
+            for (int i = 0; i < count; ++i) {
+                for (int k = 0; k < key.length; ++k) {
+                    key[k] = keyBatch[k][i];
+                }
+                groups[i] = partial.findOrInsert(key, GroupTable.hash(key), row + i);
+            }
+            for (AggregateState state : partials) {
+                state.ensureCapacity(partial.size());
+                state.accumulate(groups, row, count, values);
+            }
+        }
+        for (int g = 0; g < partial.size(); ++g) {
+            partial.key(g, key);
+            final int group = table.findOrInsert(key, partial.hash(g), rowCount + partial.firstRow(g));
+            for (int i = 0; i < states.length; ++i) {
+                states[i].ensureCapacity(table.size());
+                states[i].merge(group, partials[i], g);
+            }
+        }
+        this.rowCount += length;
+        return this;
+    }
+
+    /**
+     * Returns a frame with the key columns followed by one column per aggregate, with one row per distinct key so far
+     * @return  the aggregated frame, which later updates do not affect
+     */
+    public DataFrame result() {
+        final int size = table.size();
+        final int[] order = new int[size];
+        final List<Column> columns = new ArrayList<>(keys.size() + states.length);
+        final int width = keys.size();
+        for (int k = 0; k < width; ++k) {
+            final long[] words = new long[size];
+            final long[] nulls = new long[size];
+            for (int g = 0; g < size; ++g) {
+                words[g] = table.key(g, k);
+                nulls[g] = table.key(g, width + k);
+            }
+            columns.add(keyColumn(k).decode(words, nulls));
+        }
+        for (int g = 0; g < size; ++g) {
+            order[g] = g;
+        }
+        for (int i = 0; i < states.length; ++i) {
+            columns.add(states[i].result(aggregates.get(i).name(), order));
+        }
+        return DataFrame.of(columns);
+    }
+
+    /**
+     * Returns a key column that decodes the words of a key, with a copy of the dictionary
+     * of a string key, so that results do not change with later updates
+     */
+    private KeyColumn keyColumn(int index) {
+        final Column template = Columns.create(keys.get(index), keyTypes[index], 0, Storage.HEAP);
+        return new KeyColumn(template, 0, dictionaries[index] != null ? dictionaries[index].copy() : null);
+    }
+
+    @Override
+    public String toString() {
+        return "IncrementalGroupBy(keys=" + keys + ", aggregates=" + aggregates + ", rows=" + rowCount + ")";
+    }
+}
@@ -0,0 +1,218 @@
+package com.zavtech.morpheus.hash;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash table that maps fixed width tuples of 64-bit keys to dense group ids.
+ *
+ * Keys, hashes and the first row seen for each group are stored in flat primitive
+ * arrays indexed by group id, and the slot array holds group id + 1 with zero marking
+ * an empty slot. Collisions are resolved by linear probing, and the table doubles when
+ * two thirds full, rehashing from the stored hashes without touching the keys.
+ *
+ * The table is shared by the group-by and join engines, and is not thread safe.
+ */
+public final class GroupTable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int width;
+    private int size;
+    private int mask;
+    private int[] slots;
+    private long[] keys;
+    private long[] hashes;
+    private long[] firstRows;
+
+    /**
+     * Constructor
+     * @param width the number of 64-bit words per key
+     */
+    public GroupTable(int width) {
+        this.width = width;
+        this.slots = new int[INITIAL_CAPACITY];
+        this.mask = INITIAL_CAPACITY - 1;
+        this.keys = new long[INITIAL_CAPACITY * width];
+        this.hashes = new long[INITIAL_CAPACITY];
+        this.firstRows = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Returns a well mixed 64-bit hash of a key tuple
+     * @param key   the key tuple
+     * @return      the hash code
+     */
+    public static long hash(long[] key) {
+        long hash = 0x9E3779B97F4A7C15L;
+        for (long word : key) {
+            hash = mix(hash ^ word);
+        }
+        return hash;
+    }
+
+    /**
+     * Applies the 64-bit finalizer of MurmurHash3
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    /**
+     * Returns the number of groups in this table
+     * @return  the group count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of words per key
+     * @return  the key width
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Returns a key word of the group specified
+     * @param group the group id
+     * @param index the word index within the key
+     * @return      the key word
+     */
+    public long key(int group, int index) {
+        return keys[group * width + index];
+    }
+
+    /**
+     * Copies the key of the group specified into the array provided
+     * @param group the group id
+     * @param dst   the destination array of length width
+     */
+    public void key(int group, long[] dst) {
+        System.arraycopy(keys, group * width, dst, 0, width);
+    }
+
+    /**
+     * Returns the stored hash of the group specified
+     * @param group the group id
+     * @return      the hash code
+     */
+    public long hash(int group) {
+        return hashes[group];
+    }
+
+    /**
+     * Returns the first row index seen for the group specified
+     * @param group the group id
+     * @return      the first row index
+     */
+    public long firstRow(int group) {
+        return firstRows[group];
+    }
+
+    /**
+     * Returns the approximate number of bytes held by this table
+     * @return  the size in bytes
+     */
+    public long bytes() {
+        return (long)slots.length * 4 + (long)keys.length * 8 + (long)hashes.length * 16;
+    }
+
+    /**
+     * Returns the group id for the key, inserting a new group if the key is not yet present
+     * @param key   the key tuple
+     * @param hash  the hash of the key tuple
+     * @param row   the row index where the key was seen, which updates the first row of the group
+     * @return      the group id
+     */
+    public int findOrInsert(long[] key, long hash, long row) {
+        int index = (int)hash & mask;
+        while (true) {
+            final int slot = slots[index];
+            if (slot == 0) {
+                return insert(key, hash, row, index);
+            }
+            final int group = slot - 1;
+            if (hashes[group] == hash && matches(group, key)) {
+                if (row < firstRows[group]) {
+                    this.firstRows[group] = row;
+                }
+                return group;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Returns the group id for the key, or -1 if the key is not present
+     * @param key   the key tuple
+     * @param hash  the hash of the key tuple
+     * @return      the group id, or -1
+     */
+    public int find(long[] key, long hash) {
+        int index = (int)hash & mask;
+        while (true) {
+            final int slot = slots[index];
+            if (slot == 0) {
+                return -1;
+            }
+            final int group = slot - 1;
+            if (hashes[group] == hash && matches(group, key)) {
+                return group;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Removes all groups while retaining capacity
+     */
+    public void clear() {
+        Arrays.fill(slots, 0);
+        this.size = 0;
+    }
+
+    private boolean matches(int group, long[] key) {
+        final int offset = group * width;
+        for (int i = 0; i < width; ++i) {
+            if (keys[offset + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int insert(long[] key, long hash, long row, int index) {
+        final int group = size++;
+        if (group == hashes.length) {
+            final int capacity = hashes.length * 2;
+            this.keys = Arrays.copyOf(keys, capacity * width);
+            this.hashes = Arrays.copyOf(hashes, capacity);
+            this.firstRows = Arrays.copyOf(firstRows, capacity);
+        }
+        System.arraycopy(key, 0, keys, group * width, width);
+        this.hashes[group] = hash;
+        this.firstRows[group] = row;
+        this.slots[index] = group + 1;
+        if (size * 3L >= slots.length * 2L) {
+            rehash(slots.length * 2);
+        }
+        return group;
+    }
+
+    private void rehash(int capacity) {
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        for (int group = 0; group < size; ++group) {
+            int index = (int)hashes[group] & mask;
+            while (slots[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            this.slots[index] = group + 1;
+        }
+    }
+}
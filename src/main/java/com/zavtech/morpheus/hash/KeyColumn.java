@@ -0,0 +1,289 @@
+package com.zavtech.morpheus.hash;
+
+import com.zavtech.morpheus.column.BooleanColumn;
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.ColumnType;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.Dictionary;
+import com.zavtech.morpheus.column.DictionaryColumn;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.IntArrayColumn;
+import com.zavtech.morpheus.column.IntColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.StringColumn;
+import com.zavtech.morpheus.column.Validity;
+import com.zavtech.morpheus.frame.DataFrameException;
+
+/**
+ * Reads the values of a key column as 64-bit words, and rebuilds a column of the original type from such words.
+ *
+ * Encoding every key type as a long lets hash tables store single and composite keys
+ * in flat primitive arrays without boxing. The encoding preserves order under signed
+ * long comparison, with doubles mapped so that their words sort numerically and with
+ * negative zero folded into zero, so the same words serve sort based algorithms too.
+ * String keys are encoded as dictionary codes, which preserve equality but not order.
+ * Keys from columns with different dictionaries can be compared by encoding both
+ * against one shared dictionary.
+ *
+ * Null keys are encoded as the NULL word, which sorts before every other key, while null
+ * strings keep code 0. Since NULL is also the word of Long.MIN_VALUE, null keys are told
+ * apart by a separate flag, which group tables carry as an extra word per nullable key
+ * and joins consult to keep null keys from matching anything.
+ */
+public final class KeyColumn {
+
+    /** The word that null keys of every type other than STRING are encoded as */
+    public static final long NULL = Long.MIN_VALUE;
+
+    private final Column column;
+    private final Validity validity;
+    private final int[] ints;
+    private final Dictionary dictionary;
+    private final int[] translation;
+
+    /**
+     * Constructor
+     * @param column    the key column
+     * @param batchSize the max number of rows read per batch
+     */
+    public KeyColumn(Column column, int batchSize) {
+        this(column, batchSize, column instanceof StringColumn ? ((StringColumn)column).dictionary() : null);
+    }
+
+    /**
+     * Constructor
+     * @param column        the key column
+     * @param batchSize     the max number of rows read per batch
+     * @param dictionary    for a string column, the dictionary to encode codes against, to which missing values are added
+     */
+    public KeyColumn(Column column, int batchSize, Dictionary dictionary) {
+        this.column = column;
+        this.validity = column.validity();
+        this.ints = column instanceof IntColumn || column instanceof StringColumn ? new int[batchSize] : null;
+        this.dictionary = dictionary;
+        this.translation = column instanceof StringColumn ? Columns.translation(((StringColumn)column).dictionary(), dictionary) : null;
+        switch (column.type()) {
+            case BOOLEAN:
+            case INT:
+            case LONG:
+            case DOUBLE:
+            case STRING:
+                break;
+            default:
+                throw new DataFrameException("Unsupported key column type for " + column.name() + ": " + column.type());
+        }
+    }
+
+    /**
+     * Returns the key column
+     * @return  the key column
+     */
+    public Column column() {
+        return column;
+    }
+
+    /**
+     * Returns true if any key of the column is null
+     * @return  true if the column has null keys
+     */
+    public boolean hasNulls() {
+        return validity.hasNulls();
+    }
+
+    /**
+     * Returns true if the key at the row specified is null
+     * @param row   the row index
+     * @return      true if the key is null
+     */
+    public boolean isNull(int row) {
+        return validity.isNull(row);
+    }
+
+    /**
+     * Returns the dictionary that string keys are encoded against
+     * @return  the dictionary, or null if this is not a string column
+     */
+    public Dictionary dictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Returns the dictionary to encode two string key columns against so that equal values have equal words
+     * @param left  the left key column
+     * @param right the right key column
+     * @return      the dictionary of the left column if shared, otherwise a copy of it, or null if the columns are not strings
+     */
+    public static Dictionary sharedDictionary(Column left, Column right) {
+        if (left instanceof StringColumn && right instanceof StringColumn) {
+            final Dictionary dictionary = ((StringColumn)left).dictionary();
+            return dictionary == ((StringColumn)right).dictionary() ? dictionary : dictionary.copy();
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a batch of keys as 64-bit words
+     * @param from  the first row
+     * @param dst   the destination array
+     * @param count the number of rows
+     */
+    public void read(int from, long[] dst, int count) {
+        switch (column.type()) {
+            case LONG:
+                ((LongColumn)column).getLongs(from, dst, 0, count);
+                break;
+            case INT:
+                ((IntColumn)column).getInts(from, ints, 0, count);
+                for (int i = 0; i < count; ++i) {
+                    dst[i] = ints[i];
+                }
+                break;
+            case BOOLEAN:
+                final BooleanColumn bits = (BooleanColumn)column;
+                for (int i = 0; i < count; ++i) {
+                    dst[i] = bits.getBoolean(from + i) ? 1L : 0L;
+                }
+                break;
+            case DOUBLE:
+                final DoubleColumn doubles = (DoubleColumn)column;
+                for (int i = 0; i < count; ++i) {
+                    dst[i] = encode(doubles.getDouble(from + i));
+                }
+                break;
+            case STRING:
+                ((StringColumn)column).getCodes(from, ints, 0, count);
+                for (int i = 0; i < count; ++i) {
+                    dst[i] = translation != null ? translation[ints[i]] : ints[i];
+                }
+                break;
+            default:
+                throw new DataFrameException("Unsupported key column type: " + column.type());
+        }
+        encodeNulls(from, dst, 0, count);
+    }
+
+    /**
+     * Reads a batch of null flags, which are 1 for null keys and 0 otherwise
+     * @param from  the first row
+     * @param dst   the destination array
+     * @param count the number of rows
+     */
+    public void readNulls(int from, long[] dst, int count) {
+        for (int i = 0; i < count; ++i) {
+            dst[i] = validity.isNull(from + i) ? 1L : 0L;
+        }
+    }
+
+    /**
+     * Replaces the words of null rows with the NULL word
+     */
+    private void encodeNulls(int from, long[] dst, int offset, int count) {
+        if (column.type() != ColumnType.STRING && validity.hasNulls()) {
+            for (int i = 0; i < count; ++i) {
+                if (validity.isNull(from + i)) {
+                    dst[offset + i] = NULL;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns all keys of the column as 64-bit words
+     * @return  the encoded keys
+     */
+    public long[] readAll() {
+        final int length = column.length();
+        final long[] words = new long[length];
+        if (column.type() == ColumnType.INT) {
+            final IntColumn ints = (IntColumn)column;
+            for (int i = 0; i < length; ++i) {
+                words[i] = ints.getInt(i);
+            }
+            encodeNulls(0, words, 0, length);
+        } else if (column.type() == ColumnType.STRING) {
+            final StringColumn strings = (StringColumn)column;
+            for (int i = 0; i < length; ++i) {
+                final int code = strings.getCode(i);
+                words[i] = translation != null ? translation[code] : code;
+            }
+        } else {
+            read(0, words, length);
+        }
+        return words;
+    }
+
+    /**
+     * Returns the order preserving 64-bit encoding of a double
+     * @param value the double value
+     * @return      the encoded word
+     */
+    public static long encode(double value) {
+        final long bits = Double.doubleToLongBits(value == 0d ? 0d : value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the double for a word produced by encode()
+     * @param word  the encoded word
+     * @return      the double value
+     */
+    public static double decode(long word) {
+        return Double.longBitsToDouble(word ^ ((word >> 63) & Long.MAX_VALUE));
+    }
+
+    /**
+     * Returns a new heap column of the key type holding the decoded words specified
+     * @param words the encoded keys
+     * @param nulls the null flag of each key, as written by readNulls(), or null if no key is null
+     * @return      the key column
+     */
+    public Column decode(long[] words, long[] nulls) {
+        final Column result = decodeValues(words);
+        if (nulls != null) {
+            for (int i = 0; i < words.length; ++i) {
+                if (nulls[i] != 0L) {
+                    result.setNull(i);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new heap column of the key type holding the decoded words specified
+     */
+    private Column decodeValues(long[] words) {
+        final String name = column.name();
+        switch (column.type()) {
+            case LONG:
+                return Columns.ofLongs(name, words);
+            case INT:
+                final int[] ints = new int[words.length];
+                for (int i = 0; i < words.length; ++i) {
+                    ints[i] = (int)words[i];
+                }
+                return Columns.ofInts(name, ints);
+            case BOOLEAN:
+                final BooleanColumn bits = Columns.booleans(name, words.length);
+                for (int i = 0; i < words.length; ++i) {
+                    bits.setBoolean(i, words[i] != 0L);
+                }
+                return bits;
+            case DOUBLE:
+                final double[] doubles = new double[words.length];
+                for (int i = 0; i < words.length; ++i) {
+                    doubles[i] = decode(words[i]);
+                }
+                return Columns.ofDoubles(name, doubles);
+            case STRING:
+                final int[] codes = new int[words.length];
+                for (int i = 0; i < words.length; ++i) {
+                    codes[i] = (int)words[i];
+                }
+                return new DictionaryColumn(new IntArrayColumn(name, codes), dictionary);
+            default:
+                throw new DataFrameException("Unsupported key column type: " + column.type());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.zavtech.morpheus.index;
+
+import java.util.Arrays;
+
+import com.zavtech.morpheus.column.Column;
+
+/**
+ * A RowIndex backed by an open addressing hash table, for constant time lookup of individual keys.
+ *
+ * Each slot holds a distinct key and the first row that holds it, while rows sharing a key are
+ * chained through an array with one entry per row, so duplicate keys cost four bytes per row
+ * rather than a nested collection. Probing is linear over parallel primitive arrays sized to
+ * keep the load factor at or below one half.
+ */
+public final class HashRowIndex extends RowIndex {
+
+    private int mask;
+    private int distinct;
+    private long[] keys;
+    private int[] heads;
+    private final int[] next;
+
+    /**
+     * Constructor
+     * @param column    the key column
+     * @param words     the encoded keys of the column
+     */
+    HashRowIndex(Column column, long[] words) {
+        super(column);
+        this.next = new int[words.length];
+        this.keys = new long[16];
+        this.heads = new int[16];
+        this.mask = 15;
+        Arrays.fill(heads, -1);
+        for (int row = words.length - 1; row >= 0; --row) {
+            final long word = words[row];
+            int slot = (int)mix(word) & mask;
+            while (heads[slot] >= 0 && keys[slot] != word) {
+                slot = (slot + 1) & mask;
+            }
+            if (heads[slot] < 0) {
+                this.keys[slot] = word;
+                this.distinct++;
+            }
+            this.next[row] = heads[slot];
+            this.heads[slot] = row;
+            if (distinct * 2 > mask) {
+                resize();
+            }
+        }
+    }
+
+    @Override
+    public int distinct() {
+        return distinct;
+    }
+
+    /**
+     * Returns the number of bytes held by the arrays of this index
+     * @return  the size of this index in bytes
+     */
+    public long bytes() {
+        return keys.length * 12L + next.length * 4L;
+    }
+
+    @Override
+    int find(long word) {
+        int slot = (int)mix(word) & mask;
+        while (true) {
+            final int head = heads[slot];
+            if (head < 0 || keys[slot] == word) {
+                return head;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    @Override
+    int[] findAll(long word) {
+        final int head = find(word);
+        int count = 0;
+        for (int row = head; row >= 0; row = next[row]) {
+            count++;
+        }
+        final int[] rows = new int[count];
+        int index = 0;
+        for (int row = head; row >= 0; row = next[row]) {
+            rows[index++] = row;
+        }
+        return rows;
+    }
+
+    /**
+     * Doubles the capacity of the hash table and reinserts all keys
+     */
+    private void resize() {
+        final long[] oldKeys = keys;
+        final int[] oldHeads = heads;
+        this.keys = new long[oldKeys.length * 2];
+        this.heads = new int[oldHeads.length * 2];
+        this.mask = keys.length - 1;
+        Arrays.fill(heads, -1);
+        for (int i = 0; i < oldHeads.length; ++i) {
+            if (oldHeads[i] >= 0) {
+                int slot = (int)mix(oldKeys[i]) & mask;
+                while (heads[slot] >= 0) {
+                    slot = (slot + 1) & mask;
+                }
+                this.keys[slot] = oldKeys[i];
+                this.heads[slot] = oldHeads[i];
+            }
+        }
+    }
+
+    /**
+     * Applies the 64-bit finalizer of MurmurHash3
+     */
+    private static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return "HashRowIndex[" + name() + ", rows=" + length() + ", distinct=" + distinct + "]";
+    }
+}
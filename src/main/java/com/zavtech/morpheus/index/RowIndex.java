@@ -0,0 +1,236 @@
+package com.zavtech.morpheus.index;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.ColumnType;
+import com.zavtech.morpheus.column.Dictionary;
+import com.zavtech.morpheus.column.StringColumn;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.hash.KeyColumn;
+
+/**
+ * An index that maps the values of a key column to the positions of the rows that hold them.
+ *
+ * Keys are held as primitive 64-bit words in the encoding of KeyColumn, so lookups never box.
+ * Integer and boolean keys are looked up with the long methods, double keys with the double
+ * methods, string keys with the string methods, and either numeric form is accepted for
+ * any numeric key type where the value converts exactly.
+ * An index is a snapshot of the column when it was built and is not updated if the column
+ * is later modified.
+ */
+public abstract class RowIndex {
+
+    private final String name;
+    private final ColumnType type;
+    private final int length;
+    private final Dictionary dictionary;
+
+    /**
+     * Constructor
+     * @param column    the key column
+     */
+    RowIndex(Column column) {
+        this.name = column.name();
+        this.type = column.type();
+        this.length = column.length();
+        this.dictionary = column instanceof StringColumn ? ((StringColumn)column).dictionary() : null;
+    }
+
+    /**
+     * Returns a hash index over the column specified, for fast lookup of individual keys
+     * @param column    the key column
+     * @return          the newly created index
+     */
+    public static HashRowIndex hash(Column column) {
+        return new HashRowIndex(column, new KeyColumn(column, 0).readAll());
+    }
+
+    /**
+     * Returns a sorted index over the column specified, for lookup of individual keys and ranges of keys
+     * @param column    the key column
+     * @return          the newly created index
+     */
+    public static SortedRowIndex sorted(Column column) {
+        return new SortedRowIndex(column, new KeyColumn(column, 0).readAll());
+    }
+
+    /**
+     * Returns the name of the key column
+     * @return  the key column name
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns the type of the key column
+     * @return  the key type
+     */
+    public ColumnType type() {
+        return type;
+    }
+
+    /**
+     * Returns the number of rows indexed
+     * @return  the row count
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the number of distinct keys
+     * @return  the distinct key count
+     */
+    public abstract int distinct();
+
+    /**
+     * Returns true if no key appears in more than one row
+     * @return  true if keys are unique
+     */
+    public boolean isUnique() {
+        return distinct() == length;
+    }
+
+    /**
+     * Returns the first row holding the encoded key specified
+     * @param word  the encoded key
+     * @return      the row index, or -1 if absent
+     */
+    abstract int find(long word);
+
+    /**
+     * Returns all rows holding the encoded key specified
+     * @param word  the encoded key
+     * @return      the row indexes in ascending order, empty if absent
+     */
+    abstract int[] findAll(long word);
+
+    /**
+     * Returns true if the key is present
+     * @param key   the key
+     * @return      true if at least one row holds the key
+     */
+    public boolean contains(long key) {
+        return find(word(key)) >= 0;
+    }
+
+    /**
+     * Returns true if the key is present
+     * @param key   the key
+     * @return      true if at least one row holds the key
+     */
+    public boolean contains(double key) {
+        return rowOf(key) >= 0;
+    }
+
+    /**
+     * Returns the first row that holds the key specified
+     * @param key   the key
+     * @return      the row index, or -1 if absent
+     */
+    public int rowOf(long key) {
+        return find(word(key));
+    }
+
+    /**
+     * Returns the first row that holds the key specified
+     * @param key   the key
+     * @return      the row index, or -1 if absent
+     */
+    public int rowOf(double key) {
+        if (type == ColumnType.DOUBLE) {
+            return find(KeyColumn.encode(key));
+        } else if (key == Math.rint(key) && key >= -0x1p63 && key < 0x1p63) {
+            return find((long)key);
+        } else {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the first row that holds the string key specified
+     * @param key   the key, which may be null
+     * @return      the row index, or -1 if absent
+     */
+    public int rowOf(String key) {
+        final int code = code(key);
+        return code < 0 ? -1 : find(code);
+    }
+
+    /**
+     * Returns all rows that hold the string key specified
+     * @param key   the key, which may be null
+     * @return      the row indexes in ascending order, empty if absent
+     */
+    public int[] allRowsOf(String key) {
+        final int code = code(key);
+        return code < 0 ? new int[0] : findAll(code);
+    }
+
+    /**
+     * Returns the first row that holds each string key, suitable for DataFrame.take()
+     * @param keys  the keys
+     * @return      the row index for each key, or -1 where a key is absent
+     */
+    public int[] rowsOf(String[] keys) {
+        final int[] rows = new int[keys.length];
+        for (int i = 0; i < keys.length; ++i) {
+            rows[i] = rowOf(keys[i]);
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the dictionary code of a string key
+     */
+    private int code(String key) {
+        if (dictionary == null) {
+            throw new DataFrameException("Cannot look up string keys in index over " + type + " column " + name);
+        }
+        return dictionary.codeOf(key);
+    }
+
+    /**
+     * Returns all rows that hold the key specified
+     * @param key   the key
+     * @return      the row indexes in ascending order, empty if absent
+     */
+    public int[] allRowsOf(long key) {
+        return findAll(word(key));
+    }
+
+    /**
+     * Returns the first row that holds each key, suitable for DataFrame.take()
+     * @param keys  the keys
+     * @return      the row index for each key, or -1 where a key is absent
+     */
+    public int[] rowsOf(long[] keys) {
+        final int[] rows = new int[keys.length];
+        for (int i = 0; i < keys.length; ++i) {
+            rows[i] = find(word(keys[i]));
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the first row that holds each key, suitable for DataFrame.take()
+     * @param keys  the keys
+     * @return      the row index for each key, or -1 where a key is absent
+     */
+    public int[] rowsOf(double[] keys) {
+        final int[] rows = new int[keys.length];
+        for (int i = 0; i < keys.length; ++i) {
+            rows[i] = rowOf(keys[i]);
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the encoded word for a long key
+     * @param key   the key
+     * @return      the encoded key
+     */
+    long word(long key) {
+        return type == ColumnType.DOUBLE ? KeyColumn.encode((double)key) : key;
+    }
+}
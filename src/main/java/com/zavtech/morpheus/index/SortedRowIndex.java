@@ -0,0 +1,305 @@
+package com.zavtech.morpheus.index;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.ColumnType;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.hash.KeyColumn;
+
+/**
+ * A RowIndex that keeps keys in ascending order, for lookup of individual keys and of key ranges.
+ *
+ * When the column is already sorted, as is typical of timestamps, the index holds only the keys
+ * and positions in key order are row indexes, so a range maps to a contiguous block of rows.
+ * Otherwise the keys are stably sorted together with their row indexes, so rows with equal keys
+ * stay in row order. Searches first bisect a fence array holding every 64th key, which is small
+ * enough to stay in cache, and then bisect a single block of 64 keys. String keys are ordered
+ * by dictionary code rather than value, so only exact lookups are meaningful for them.
+ */
+public final class SortedRowIndex extends RowIndex {
+
+    private static final int BLOCK_SHIFT = 6;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+    private final long[] words;
+    private final int[] rows;
+    private final long[] fences;
+    private final int distinct;
+
+    /**
+     * Constructor
+     * @param column    the key column
+     * @param words     the encoded keys of the column, which this index takes ownership of
+     */
+    SortedRowIndex(Column column, long[] words) {
+        super(column);
+        this.words = words;
+        this.rows = isSorted(words) ? null : sort(words);
+        this.fences = new long[(words.length + BLOCK_SIZE - 1) >>> BLOCK_SHIFT];
+        for (int i = 0; i < fences.length; ++i) {
+            this.fences[i] = words[i << BLOCK_SHIFT];
+        }
+        int count = words.length > 0 ? 1 : 0;
+        for (int i = 1; i < words.length; ++i) {
+            if (words[i] != words[i - 1]) {
+                count++;
+            }
+        }
+        this.distinct = count;
+    }
+
+    @Override
+    public int distinct() {
+        return distinct;
+    }
+
+    /**
+     * Returns true if the key column was already in ascending order, so that positions are row indexes
+     * @return  true if the indexed column was sorted
+     */
+    public boolean isPositional() {
+        return rows == null;
+    }
+
+    /**
+     * Returns the number of bytes held by the arrays of this index
+     * @return  the size of this index in bytes
+     */
+    public long bytes() {
+        return words.length * 8L + fences.length * 8L + (rows != null ? rows.length * 4L : 0L);
+    }
+
+    /**
+     * Returns the row at the position specified in key order
+     * @param position  the position in key order
+     * @return          the row index
+     */
+    public int rowAt(int position) {
+        return rows == null ? position : rows[position];
+    }
+
+    @Override
+    int find(long word) {
+        final int position = lowerBound(word);
+        return position < words.length && words[position] == word ? rowAt(position) : -1;
+    }
+
+    @Override
+    int[] findAll(long word) {
+        return rows(lowerBound(word), upperBound(word));
+    }
+
+    /**
+     * Returns the rows whose keys are in the range [from, to), in key order
+     * @param from  the lower bound, inclusive
+     * @param to    the upper bound, exclusive
+     * @return      the row indexes
+     */
+    public int[] range(long from, long to) {
+        return rows(lowerBound(word(from)), lowerBound(word(to)));
+    }
+
+    /**
+     * Returns the rows whose keys are in the range [from, to), in key order
+     * @param from  the lower bound, inclusive
+     * @param to    the upper bound, exclusive
+     * @return      the row indexes
+     */
+    public int[] range(double from, double to) {
+        return rows(lowerBound(ceilingWord(from)), lowerBound(ceilingWord(to)));
+    }
+
+    /**
+     * Returns the rows of the frame whose keys are in the range [from, to), in key order
+     * @param frame the frame this index was built from
+     * @param from  the lower bound, inclusive
+     * @param to    the upper bound, exclusive
+     * @return      the new frame
+     */
+    public DataFrame slice(DataFrame frame, long from, long to) {
+        return frame.take(range(from, to));
+    }
+
+    /**
+     * Returns the rows of the frame whose keys are in the range [from, to), in key order
+     * @param frame the frame this index was built from
+     * @param from  the lower bound, inclusive
+     * @param to    the upper bound, exclusive
+     * @return      the new frame
+     */
+    public DataFrame slice(DataFrame frame, double from, double to) {
+        return frame.take(range(from, to));
+    }
+
+    /**
+     * Returns the last row whose key is less than or equal to the key specified, as used for as-of lookups
+     * @param key   the key
+     * @return      the row index, or -1 if all keys are greater
+     */
+    public int floor(long key) {
+        final int position = upperBound(word(key)) - 1;
+        return position >= 0 ? rowAt(position) : -1;
+    }
+
+    /**
+     * Returns the last row whose key is less than or equal to the key specified, as used for as-of lookups
+     * @param key   the key
+     * @return      the row index, or -1 if all keys are greater
+     */
+    public int floor(double key) {
+        final int position = lowerBound(ceilingWord(Math.nextUp(key))) - 1;
+        return position >= 0 ? rowAt(position) : -1;
+    }
+
+    /**
+     * Returns the first row whose key is greater than or equal to the key specified
+     * @param key   the key
+     * @return      the row index, or -1 if all keys are less
+     */
+    public int ceiling(long key) {
+        final int position = lowerBound(word(key));
+        return position < words.length ? rowAt(position) : -1;
+    }
+
+    /**
+     * Returns the first row whose key is greater than or equal to the key specified
+     * @param key   the key
+     * @return      the row index, or -1 if all keys are less
+     */
+    public int ceiling(double key) {
+        final int position = lowerBound(ceilingWord(key));
+        return position < words.length ? rowAt(position) : -1;
+    }
+
+    /**
+     * Returns the first position whose key is greater than or equal to the word specified
+     * @param word  the encoded key
+     * @return      the position in key order, equal to the row count if all keys are less
+     */
+    public int lowerBound(long word) {
+        int lo = 0;
+        int hi = fences.length;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (fences[mid] < word) lo = mid + 1; else hi = mid;
+        }
+        int from = Math.max(0, (lo - 1) << BLOCK_SHIFT);
+        int to = Math.min(words.length, lo << BLOCK_SHIFT);
+        while (from < to) {
+            final int mid = (from + to) >>> 1;
+            if (words[mid] < word) from = mid + 1; else to = mid;
+        }
+        return from;
+    }
+
+    /**
+     * Returns the first position whose key is greater than the word specified
+     * @param word  the encoded key
+     * @return      the position in key order, equal to the row count if no key is greater
+     */
+    public int upperBound(long word) {
+        return word == Long.MAX_VALUE ? words.length : lowerBound(word + 1L);
+    }
+
+    /**
+     * Returns the encoded form of the smallest key greater than or equal to the double specified
+     */
+    private long ceilingWord(double key) {
+        if (type() == ColumnType.DOUBLE) {
+            return KeyColumn.encode(key);
+        } else if (Double.isNaN(key) || key >= 0x1p63) {
+            return Long.MAX_VALUE;
+        } else {
+            return key <= -0x1p63 ? Long.MIN_VALUE : (long)Math.ceil(key);
+        }
+    }
+
+    /**
+     * Returns the rows at the positions in [from, to) of key order
+     */
+    private int[] rows(int from, int to) {
+        final int[] result = new int[Math.max(0, to - from)];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = rows == null ? from + i : rows[from + i];
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if the words are in ascending order
+     */
+    private static boolean isSorted(long[] words) {
+        for (int i = 1; i < words.length; ++i) {
+            if (words[i] < words[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stably sorts the words in place with a bottom up merge sort, returning the original row of each word
+     */
+    private static int[] sort(long[] words) {
+        final int length = words.length;
+        long[] keys = words;
+        int[] rows = new int[length];
+        long[] keyBuffer = new long[length];
+        int[] rowBuffer = new int[length];
+        for (int i = 0; i < length; ++i) {
+            rows[i] = i;
+        }
+        for (int from = 0; from < length; from += 32) {
+            final int to = Math.min(length, from + 32);
+            for (int i = from + 1; i < to; ++i) {
+                final long key = keys[i];
+                final int row = rows[i];
+                int j = i - 1;
+                while (j >= from && keys[j] > key) {
+                    keys[j + 1] = keys[j];
+                    rows[j + 1] = rows[j];
+                    j--;
+                }
+                keys[j + 1] = key;
+                rows[j + 1] = row;
+            }
+        }
+        for (int width = 32; width < length; width *= 2) {
+            for (int from = 0; from < length; from += 2 * width) {
+                final int mid = Math.min(length, from + width);
+                final int to = Math.min(length, from + 2 * width);
+                int i = from;
+                int j = mid;
+                int k = from;
+                while (i < mid && j < to) {
+                    if (keys[j] < keys[i]) {
+                        keyBuffer[k] = keys[j];
+                        rowBuffer[k++] = rows[j++];
+                    } else {
+                        keyBuffer[k] = keys[i];
+                        rowBuffer[k++] = rows[i++];
+                    }
+                }
+                System.arraycopy(keys, i, keyBuffer, k, mid - i);
+                System.arraycopy(rows, i, rowBuffer, k, mid - i);
+                k += mid - i;
+                System.arraycopy(keys, j, keyBuffer, k, to - j);
+                System.arraycopy(rows, j, rowBuffer, k, to - j);
+            }
+            final long[] swapKeys = keys;
+            final int[] swapRows = rows;
+            keys = keyBuffer;
+            rows = rowBuffer;
+            keyBuffer = swapKeys;
+            rowBuffer = swapRows;
+        }
+        if (keys != words) {
+            System.arraycopy(keys, 0, words, 0, length);
+        }
+        return rows;
+    }
+
+    @Override
+    public String toString() {
+        return "SortedRowIndex[" + name() + ", rows=" + length() + ", distinct=" + distinct + ", positional=" + isPositional() + "]";
+    }
+}
@@ -0,0 +1,1384 @@
+package com.zavtech.morpheus.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.zavtech.morpheus.column.BooleanBitColumn;
+import com.zavtech.morpheus.column.BooleanBufferColumn;
+import com.zavtech.morpheus.column.BooleanColumn;
+import com.zavtech.morpheus.column.BufferColumn;
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.ColumnType;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.Dictionary;
+import com.zavtech.morpheus.column.DictionaryColumn;
+import com.zavtech.morpheus.column.DoubleBufferColumn;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.IntBufferColumn;
+import com.zavtech.morpheus.column.IntColumn;
+import com.zavtech.morpheus.column.LongBufferColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.column.StringColumn;
+import com.zavtech.morpheus.column.Validity;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.memory.BufferMemory;
+
+/**
+ * Reads and writes DataFrames in the Apache Arrow IPC file and stream formats, without depending on the Arrow libraries.
+ *
+ * Arrow lays out a fixed width column as a little endian value buffer plus a validity bitmap
+ * with a set bit for each valid row, which is exactly how off-heap morpheus columns and their
+ * validity are laid out. Arrow files are therefore opened by memory mapping them, and double,
+ * long, int and boolean buffers are wrapped as MAPPED columns without copying, while streams
+ * read each message body straight into native memory that OFF_HEAP columns then wrap. Only
+ * the validity bitmaps are copied onto the heap. Off-heap and mapped columns are written out
+ * straight from their memory.
+ *
+ * Arrow types are mapped to column types as follows, where types that need a conversion, or
+ * whose null slots hold values other than the column default, are copied into OFF_HEAP columns.
+ *
+ * <pre>
+ *     Float64                                      DOUBLE, wrapped
+ *     Float32                                      DOUBLE, copied
+ *     Int64, UInt64, Timestamp, Duration,
+ *     Date64, Time64                               LONG, wrapped
+ *     Int32, Date32, Time32                        INT, wrapped
+ *     UInt32                                       LONG, copied
+ *     Int8, Int16, UInt8, UInt16                   INT, copied
+ *     Bool                                         BOOLEAN, wrapped
+ *     Utf8, LargeUtf8 and dictionary encoded       STRING, copied into dictionary codes
+ *     Null                                         DOUBLE of nulls
+ * </pre>
+ *
+ * Columns are written as Float64, Int64, Int32 and Bool, and STRING columns as Utf8 dictionary
+ * encoded with Int32 indexes, so logical types such as timestamps are not preserved on a round
+ * trip. Nested types, compressed bodies and big endian data are not supported.
+ */
+public final class ArrowIpc {
+
+    private static final byte[] MAGIC = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+    private static final int CONTINUATION = 0xFFFFFFFF;
+    private static final int ALIGNMENT = 64;
+    private static final short METADATA_V5 = 4;
+
+    private static final int SCHEMA = 1;
+    private static final int DICTIONARY_BATCH = 2;
+    private static final int RECORD_BATCH = 3;
+
+    private static final int TYPE_NULL = 1;
+    private static final int TYPE_INT = 2;
+    private static final int TYPE_FLOATING_POINT = 3;
+    private static final int TYPE_BINARY = 4;
+    private static final int TYPE_UTF8 = 5;
+    private static final int TYPE_BOOL = 6;
+    private static final int TYPE_DATE = 8;
+    private static final int TYPE_TIME = 9;
+    private static final int TYPE_TIMESTAMP = 10;
+    private static final int TYPE_LIST = 12;
+    private static final int TYPE_STRUCT = 13;
+    private static final int TYPE_UNION = 14;
+    private static final int TYPE_FIXED_SIZE_LIST = 16;
+    private static final int TYPE_MAP = 17;
+    private static final int TYPE_DURATION = 18;
+    private static final int TYPE_LARGE_BINARY = 19;
+    private static final int TYPE_LARGE_UTF8 = 20;
+    private static final int TYPE_LARGE_LIST = 21;
+
+    private ArrowIpc() {
+        super();
+    }
+
+    /**
+     * Writes the frame specified to an Arrow IPC file as a single record batch, replacing any existing file
+     * @param frame the frame to write
+     * @param path  the file path
+     * @throws DataFrameException   if the file cannot be written
+     */
+    public static void write(DataFrame frame, Path path) {
+        final StandardOpenOption[] options = {StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            final Writer writer = new Writer(channel, frame);
+            writer.magic();
+            writer.batch(frame);
+            writer.end();
+            writer.footer();
+            writer.flush();
+        } catch (IOException ex) {
+            throw new DataFrameException("Failed to write Arrow file to " + path, ex);
+        }
+    }
+
+    /**
+     * Writes the frame specified to an output stream in the Arrow IPC stream format, as a single record batch
+     * @param frame the frame to write
+     * @param out   the output stream, which is flushed but not closed
+     * @throws DataFrameException   if the stream cannot be written
+     */
+    public static void write(DataFrame frame, OutputStream out) {
+        try (StreamWriter writer = writer(out, frame)) {
+            writer.write(frame);
+        }
+    }
+
+    /**
+     * Returns a writer of record batches to an output stream in the Arrow IPC stream format
+     * @param out       the output stream, which is flushed but not closed when the writer is closed
+     * @param schema    a frame with the column names and types of every batch to be written
+     * @return          the stream writer, which must be closed to end the stream
+     * @throws DataFrameException   if the schema cannot be written
+     */
+    public static StreamWriter writer(OutputStream out, DataFrame schema) {
+        return new StreamWriter(out, schema);
+    }
+
+    /**
+     * Opens the Arrow IPC file at the path specified by memory mapping it
+     * @param path  the file path
+     * @return      the frame, with columns that wrap the mapped file where possible, which must be closed
+     * @throws DataFrameException   if the file cannot be opened or holds unsupported types
+     */
+    public static DataFrame open(Path path) {
+        return open(path, (String[])null);
+    }
+
+    /**
+     * Opens the Arrow IPC file at the path specified by memory mapping it, exposing only the columns specified.
+     * A file in the stream format is read into native memory instead, and a file of several record batches
+     * is concatenated into a single frame, which copies its columns.
+     * @param path      the file path
+     * @param columns   the names of the columns to include, null for all columns
+     * @return          the frame, with columns that wrap the mapped file where possible, which must be closed
+     * @throws DataFrameException   if the file cannot be opened or holds unsupported types
+     */
+    public static DataFrame open(Path path, String... columns) {
+        final Set<String> include = columns == null ? null : new HashSet<>(Arrays.asList(columns));
+        BufferMemory memory = null;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final ByteBuffer header = ByteBuffer.allocate(8);
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+                continue;
+            }
+            if (size < 2 * MAGIC.length + 8 || !Arrays.equals(Arrays.copyOf(header.array(), MAGIC.length), MAGIC)) {
+                try (InputStream in = Files.newInputStream(path)) {
+                    return collect(in, size, include);
+                }
+            }
+            memory = ColumnFile.map(channel);
+            final ByteBuffer tail = ByteBuffer.allocate(4 + MAGIC.length).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(tail, size - tail.capacity());
+            final int footerLength = tail.getInt(0);
+            if (!Arrays.equals(Arrays.copyOfRange(tail.array(), 4, tail.capacity()), MAGIC)) {
+                throw new DataFrameException("Arrow file does not end with the Arrow magic: " + path);
+            } else if (footerLength < 0 || footerLength > size - tail.capacity() - 8) {
+                throw new DataFrameException("Invalid Arrow footer length " + footerLength + " in file of " + size + " bytes: " + path);
+            }
+            final ByteBuffer footerBytes = ByteBuffer.allocate(footerLength);
+            channel.read(footerBytes, size - tail.capacity() - footerLength);
+            footerBytes.flip();
+            final FlatBuffer.Table footer = FlatBuffer.root(footerBytes);
+            final Reader reader = new Reader(footer.getTable(1), include);
+            for (int i = 0; i < footer.getVectorLength(2); ++i) {
+                final Message message = Message.at(memory, footer.getStructLong(2, i, 24, 0));
+                reader.dictionary(message.header, memory, message.bodyOffset, false);
+            }
+            final List<DataFrame> batches = new ArrayList<>();
+            for (int i = 0; i < footer.getVectorLength(3); ++i) {
+                final Message message = Message.at(memory, footer.getStructLong(3, i, 24, 0));
+                batches.add(reader.batch(message.header, memory, message.bodyOffset, Storage.MAPPED));
+            }
+            final DataFrame result = combine(reader, batches);
+            if (!reader.shared) {
+                memory.close();
+            }
+            return result;
+        } catch (IOException ex) {
+            if (memory != null) {
+                memory.close();
+            }
+            throw new DataFrameException("Failed to open Arrow file at " + path, ex);
+        } catch (IndexOutOfBoundsException ex) {
+            if (memory != null) {
+                memory.close();
+            }
+            throw new DataFrameException("Corrupt Arrow file at " + path, ex);
+        } catch (RuntimeException ex) {
+            if (memory != null) {
+                memory.close();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Reads an input stream in the Arrow IPC stream format into a single frame
+     * @param in    the input stream, which is read to the end of the Arrow stream but not closed
+     * @return      the frame, with OFF_HEAP columns that should be closed, concatenated if there are several batches
+     * @throws DataFrameException   if the stream cannot be read or holds unsupported types
+     */
+    public static DataFrame read(InputStream in) {
+        return collect(in, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Reads an input stream in the Arrow IPC stream format, passing each record batch to the consumer as it is read
+     * @param in        the input stream, which is read to the end of the Arrow stream but not closed
+     * @param consumer  the consumer of batches, each with OFF_HEAP columns over its message body, which it should close
+     * @throws DataFrameException   if the stream cannot be read or holds unsupported types
+     */
+    public static void read(InputStream in, Consumer<DataFrame> consumer) {
+        stream(in, Long.MAX_VALUE, null, consumer);
+    }
+
+    /**
+     * Reads the record batches of a stream of at most limit bytes and concatenates them into a single frame
+     */
+    private static DataFrame collect(InputStream in, long limit, Set<String> include) {
+        final List<DataFrame> batches = new ArrayList<>();
+        final Reader reader = stream(in, limit, include, batches::add);
+        return combine(reader, batches);
+    }
+
+    /**
+     * Returns the only batch, or else the batches concatenated, closing the originals
+     */
+    private static DataFrame combine(Reader reader, List<DataFrame> batches) {
+        if (batches.size() == 1) {
+            return batches.get(0);
+        } else if (batches.isEmpty()) {
+            final List<Column> columns = new ArrayList<>();
+            for (Field field : reader.fields) {
+                if (reader.include == null || reader.include.contains(field.name)) {
+                    columns.add(field.empty());
+                }
+            }
+            return DataFrame.of(columns);
+        } else {
+            try {
+                return DataFrame.concat(batches);
+            } finally {
+                batches.forEach(DataFrame::close);
+            }
+        }
+    }
+
+    /**
+     * Reads the messages of a stream of at most limit bytes, passing each record batch to the consumer.
+     * Message lengths are checked against the limit, which is unbounded unless the stream is a file,
+     * and the first message must be a schema before any body is read.
+     */
+    private static Reader stream(InputStream in, long limit, Set<String> include, Consumer<DataFrame> consumer) {
+        final ReadableByteChannel channel = Channels.newChannel(in);
+        try {
+            Reader reader = null;
+            long remaining = limit;
+            for (Message message = Message.read(channel, remaining); message != null; message = Message.read(channel, remaining)) {
+                if (reader == null && message.type != SCHEMA) {
+                    throw new DataFrameException("Arrow stream does not start with a schema message");
+                }
+                remaining -= message.metadataLength + message.bodyLength;
+                final BufferMemory body = BufferMemory.allocate(message.bodyLength);
+                boolean shared = false;
+                try {
+                    body.read(channel, 0L, message.bodyLength);
+                    if (message.type == SCHEMA) {
+                        reader = new Reader(message.header, include);
+                    } else if (message.type == DICTIONARY_BATCH) {
+                        reader.dictionary(message.header, body, 0L, true);
+                    } else if (message.type == RECORD_BATCH) {
+                        reader.shared = false;
+                        final DataFrame batch = reader.batch(message.header, body, 0L, Storage.OFF_HEAP);
+                        shared = reader.shared;
+                        consumer.accept(batch);
+                    }
+                } finally {
+                    if (!shared) {
+                        body.close();
+                    }
+                }
+            }
+            if (reader == null) {
+                throw new DataFrameException("Arrow stream holds no schema message");
+            }
+            return reader;
+        } catch (IOException ex) {
+            throw new DataFrameException("Failed to read Arrow stream", ex);
+        } catch (IndexOutOfBoundsException ex) {
+            throw new DataFrameException("Corrupt Arrow stream", ex);
+        }
+    }
+
+    /**
+     * Returns the number of bytes needed to pad the length specified to the alignment specified
+     */
+    private static long padding(long length, int alignment) {
+        return (alignment - (length & (alignment - 1))) & (alignment - 1);
+    }
+
+
+    /**
+     * An encapsulated IPC message, made up of flatbuffer metadata followed by a body
+     */
+    private static final class Message {
+
+        private final int type;
+        private final FlatBuffer.Table header;
+        private final long metadataLength;
+        private final long bodyOffset;
+        private final long bodyLength;
+
+        /**
+         * Constructor
+         * @param metadata          the flatbuffer Message table
+         * @param metadataLength    the length of the metadata including its length prefix
+         * @param bodyOffset        the offset of the body in its memory region
+         * @param remaining         the number of bytes after the metadata, which the body must fit in
+         */
+        private Message(ByteBuffer metadata, long metadataLength, long bodyOffset, long remaining) {
+            try {
+                final FlatBuffer.Table table = FlatBuffer.root(metadata);
+                this.type = table.getByte(1, 0);
+                this.header = table.getTable(2);
+                this.metadataLength = metadataLength;
+                this.bodyOffset = bodyOffset;
+                this.bodyLength = table.getLong(3, 0L);
+                if (table.getShort(0, (short)0) < 3) {
+                    throw new DataFrameException("Unsupported Arrow metadata version: V" + (table.getShort(0, (short)0) + 1));
+                }
+            } catch (IndexOutOfBoundsException ex) {
+                throw new DataFrameException("Corrupt Arrow message metadata", ex);
+            }
+            if (bodyLength < 0L || bodyLength > remaining) {
+                throw new DataFrameException("Invalid Arrow message body length " + bodyLength + " with " + remaining + " bytes left");
+            }
+        }
+
+        /**
+         * Returns the message at an offset of a file mapped into memory
+         */
+        static Message at(BufferMemory memory, long offset) {
+            final long size = memory.byteSize();
+            if (offset < 0L || offset > size - 8L) {
+                throw new DataFrameException("Invalid Arrow message offset " + offset + " in file of " + size + " bytes");
+            }
+            final boolean continuation = memory.getInt(offset) == CONTINUATION;
+            final long start = continuation ? offset + 8 : offset + 4;
+            final int length = memory.getInt(continuation ? offset + 4 : offset);
+            if (length < 0 || length > size - start) {
+                throw new DataFrameException("Invalid Arrow message metadata length " + length + " at offset " + offset);
+            }
+            final byte[] metadata = new byte[length];
+            memory.getBytes(start, metadata, 0, length);
+            return new Message(ByteBuffer.wrap(metadata), start + length - offset, start + length, size - start - length);
+        }
+
+        /**
+         * Reads the metadata of the next message of a stream, leaving the channel at the start of its body
+         * @param remaining the max number of bytes left in the stream
+         * @return          the message, or null at the end of the stream
+         */
+        static Message read(ReadableByteChannel channel, long remaining) throws IOException {
+            final ByteBuffer prefix = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            if (!fill(channel, prefix, true)) {
+                return null;
+            }
+            int prefixLength = 4;
+            int length = prefix.getInt(0);
+            if (length == CONTINUATION) {
+                prefix.clear();
+                fill(channel, prefix, false);
+                prefixLength = 8;
+                length = prefix.getInt(0);
+            }
+            if (length == 0) {
+                return null;
+            } else if (length < 0 || length > remaining - prefixLength) {
+                throw new DataFrameException("Invalid Arrow message metadata length " + length + " with " + (remaining - prefixLength) + " bytes left");
+            }
+            final ByteBuffer metadata = metadata(channel, length);
+            return new Message(metadata, prefixLength + length, 0L, remaining - prefixLength - length);
+        }
+
+        /**
+         * Reads metadata of the length specified, growing the buffer as bytes arrive so that a corrupt
+         * length in a stream of unknown size fails at the end of the stream rather than allocating it up front
+         */
+        private static ByteBuffer metadata(ReadableByteChannel channel, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(Math.min(length, 1 << 16));
+            fill(channel, buffer, false);
+            while (buffer.limit() < length) {
+                final ByteBuffer grown = ByteBuffer.allocate((int)Math.min(length, 2L * buffer.capacity()));
+                grown.put(buffer);
+                fill(channel, grown, false);
+                buffer = grown;
+            }
+            return buffer;
+        }
+
+        /**
+         * Fills the buffer from the channel, returning false if the channel ends before the first byte when that is allowed
+         */
+        private static boolean fill(ReadableByteChannel channel, ByteBuffer buffer, boolean allowEnd) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    if (allowEnd && buffer.position() == 0) {
+                        return false;
+                    }
+                    throw new EOFException("Unexpected end of Arrow stream");
+                }
+            }
+            buffer.flip();
+            return true;
+        }
+    }
+
+
+    /**
+     * A field of an Arrow schema, reduced to what is needed to map it to a column
+     */
+    private static final class Field {
+
+        private final String name;
+        private final int type;
+        private final int bitWidth;
+        private final boolean signed;
+        private final long dictionaryId;
+        private final int indexWidth;
+        private final boolean dense;
+        private final List<Field> children = new ArrayList<>();
+
+        /**
+         * Constructor
+         * @param field the flatbuffer Field table
+         */
+        Field(FlatBuffer.Table field) {
+            final FlatBuffer.Table type = field.getTable(3);
+            final FlatBuffer.Table dictionary = field.getTable(4);
+            this.name = field.getString(0);
+            this.type = field.getByte(2, 0);
+            this.dense = this.type == TYPE_UNION && type.getShort(0, (short)0) == 1;
+            this.signed = this.type == TYPE_INT ? type.getBoolean(1, false) : true;
+            this.dictionaryId = dictionary != null ? dictionary.getLong(0, 0L) : -1L;
+            this.indexWidth = dictionary == null ? 0 : dictionary.getTable(1) == null ? 32 : dictionary.getTable(1).getInt(0, 32);
+            switch (this.type) {
+                case TYPE_INT:              this.bitWidth = type.getInt(0, 0);                                  break;
+                case TYPE_FLOATING_POINT:   this.bitWidth = 16 << type.getShort(0, (short)0);                   break;
+                case TYPE_DATE:             this.bitWidth = type.getShort(0, (short)1) == 0 ? 32 : 64;          break;
+                case TYPE_TIME:             this.bitWidth = type.getInt(1, 32);                                 break;
+                case TYPE_TIMESTAMP:        this.bitWidth = 64;                                                 break;
+                case TYPE_DURATION:         this.bitWidth = 64;                                                 break;
+                default:                    this.bitWidth = 0;
+            }
+            for (int i = 0; i < field.getVectorLength(5); ++i) {
+                this.children.add(new Field(field.getTable(5, i)));
+            }
+        }
+
+        /**
+         * Returns the number of buffers that the field and its descendants occupy in a record batch
+         */
+        int bufferCount() {
+            int count;
+            switch (type) {
+                case TYPE_NULL:             count = 0;                  break;
+                case TYPE_BINARY:
+                case TYPE_UTF8:
+                case TYPE_LARGE_BINARY:
+                case TYPE_LARGE_UTF8:       count = 3;                  break;
+                case TYPE_STRUCT:
+                case TYPE_FIXED_SIZE_LIST:  count = 1;                  break;
+                case TYPE_UNION:            count = dense ? 2 : 1;      break;
+                default:                    count = 2;
+            }
+            if (dictionaryId >= 0L) {
+                count = 2;
+            }
+            for (Field child : children) {
+                count += child.bufferCount();
+            }
+            return count;
+        }
+
+        /**
+         * Returns the number of field nodes that the field and its descendants occupy in a record batch
+         */
+        int nodeCount() {
+            int count = 1;
+            for (Field child : children) {
+                count += child.nodeCount();
+            }
+            return count;
+        }
+
+        /**
+         * Returns the column type this field maps to
+         */
+        ColumnType columnType() {
+            if (dictionaryId >= 0L) {
+                return ColumnType.STRING;
+            }
+            switch (type) {
+                case TYPE_NULL:             return ColumnType.DOUBLE;
+                case TYPE_BOOL:             return ColumnType.BOOLEAN;
+                case TYPE_UTF8:
+                case TYPE_LARGE_UTF8:       return ColumnType.STRING;
+                case TYPE_FLOATING_POINT:
+                    if (bitWidth == 16) {
+                        throw new DataFrameException("Unsupported Arrow type for column " + name + ": Float16");
+                    }
+                    return ColumnType.DOUBLE;
+                case TYPE_INT:
+                case TYPE_DATE:
+                case TYPE_TIME:
+                case TYPE_TIMESTAMP:
+                case TYPE_DURATION:
+                    return bitWidth == 64 || (bitWidth == 32 && !signed) ? ColumnType.LONG : ColumnType.INT;
+                default:
+                    throw new DataFrameException("Unsupported Arrow type for column " + name + ": type id " + type);
+            }
+        }
+
+        /**
+         * Returns an empty column for this field
+         */
+        Column empty() {
+            return columnType() == ColumnType.STRING ? Columns.strings(name, 0) : Columns.create(name, columnType(), 0);
+        }
+    }
+
+
+    /**
+     * Maps the record batches of one schema onto columns, tracking the dictionaries of dictionary encoded fields
+     */
+    private static final class Reader {
+
+        private final List<Field> fields = new ArrayList<>();
+        private final Set<String> include;
+        private final Map<Long,Field> dictionaryFields = new HashMap<>();
+        private final Map<Long,Dictionary> dictionaries = new HashMap<>();
+        private final Map<Long,int[]> mappings = new HashMap<>();
+        private BufferMemory memory;
+        private FlatBuffer.Table batch;
+        private long bodyOffset;
+        private int node;
+        private int buffer;
+        private boolean writable;
+        private boolean shared;
+
+        /**
+         * Constructor
+         * @param schema    the flatbuffer Schema table
+         * @param include   the names of the columns to read, null for all
+         */
+        Reader(FlatBuffer.Table schema, Set<String> include) {
+            this.include = include;
+            if (schema.getShort(0, (short)0) != 0) {
+                throw new DataFrameException("Big endian Arrow data is not supported");
+            }
+            for (int i = 0; i < schema.getVectorLength(1); ++i) {
+                final Field field = new Field(schema.getTable(1, i));
+                this.fields.add(field);
+                if (field.dictionaryId >= 0L) {
+                    this.dictionaryFields.put(field.dictionaryId, field);
+                }
+                if (include == null || include.contains(field.name)) {
+                    field.columnType();
+                }
+            }
+        }
+
+        /**
+         * Positions this reader at the start of a record batch
+         */
+        private void begin(FlatBuffer.Table batch, BufferMemory memory, long bodyOffset) {
+            if (batch.has(3)) {
+                throw new DataFrameException("Compressed Arrow record batches are not supported");
+            }
+            this.batch = batch;
+            this.memory = memory;
+            this.bodyOffset = bodyOffset;
+            this.node = 0;
+            this.buffer = 0;
+        }
+
+        private long bufferOffset(int index) {
+            return bodyOffset + batch.getStructLong(2, index, 16, 0);
+        }
+
+        private long bufferLength(int index) {
+            return batch.getStructLong(2, index, 16, 8);
+        }
+
+        /**
+         * Reads a dictionary batch into the dictionary for its id, replacing or extending it
+         * @param message   the flatbuffer DictionaryBatch table
+         * @param memory    the memory holding the message body
+         * @param offset    the offset of the message body
+         * @param writable  true if the memory may be modified
+         */
+        void dictionary(FlatBuffer.Table message, BufferMemory memory, long offset, boolean writable) {
+            final long id = message.getLong(0, 0L);
+            final Field field = dictionaryFields.get(id);
+            if (field == null) {
+                throw new DataFrameException("Arrow dictionary batch for unknown dictionary id " + id);
+            } else if (field.type != TYPE_UTF8 && field.type != TYPE_LARGE_UTF8) {
+                throw new DataFrameException("Unsupported Arrow dictionary value type for column " + field.name + ": type id " + field.type);
+            }
+            begin(message.getTable(1), memory, offset);
+            this.writable = writable;
+            final boolean delta = message.getBoolean(2, false);
+            final Dictionary dictionary = delta && dictionaries.containsKey(id) ? dictionaries.get(id) : new Dictionary();
+            final int[] previous = delta && mappings.containsKey(id) ? mappings.get(id) : new int[0];
+            final int length = Math.toIntExact(batch.getStructLong(1, 0, 16, 0));
+            final int[] codes = strings(field.type == TYPE_LARGE_UTF8, length, batch.getStructLong(1, 0, 16, 8), dictionary);
+            final int[] mapping = Arrays.copyOf(previous, previous.length + length);
+            System.arraycopy(codes, 0, mapping, previous.length, length);
+            this.dictionaries.put(id, dictionary);
+            this.mappings.put(id, mapping);
+        }
+
+        /**
+         * Returns the frame for a record batch, with columns that wrap the memory where the layout allows
+         * @param message   the flatbuffer RecordBatch table
+         * @param memory    the memory holding the message body
+         * @param offset    the offset of the message body
+         * @param storage   MAPPED if the memory is a read only file mapping, otherwise OFF_HEAP
+         * @return          the frame
+         */
+        DataFrame batch(FlatBuffer.Table message, BufferMemory memory, long offset, Storage storage) {
+            begin(message, memory, offset);
+            this.writable = storage != Storage.MAPPED;
+            final int rows = Math.toIntExact(message.getLong(0, 0L));
+            final List<Column> columns = new ArrayList<>();
+            for (Field field : fields) {
+                if (include == null || include.contains(field.name)) {
+                    columns.add(column(field, rows, storage));
+                } else {
+                    this.node += field.nodeCount();
+                    this.buffer += field.bufferCount();
+                }
+            }
+            return DataFrame.of(columns);
+        }
+
+        /**
+         * Reads the column for a field from the current node and buffers
+         */
+        private Column column(Field field, int rows, Storage storage) {
+            final long nullCount = batch.getStructLong(1, node, 16, 8);
+            final Validity validity = field.type == TYPE_NULL ? null : validity(rows, nullCount);
+            this.node++;
+            if (field.dictionaryId >= 0L) {
+                final int[] mapping = mappings.get(field.dictionaryId);
+                if (mapping == null) {
+                    throw new DataFrameException("Arrow record batch precedes the dictionary of column " + field.name);
+                }
+                final long data = bufferOffset(buffer++);
+                final Column codes = Columns.ints(field.name, rows, Storage.OFF_HEAP);
+                final int[] batchCodes = new int[Math.min(rows, Columns.BATCH_SIZE)];
+                for (int i = 0; i < rows; i += batchCodes.length) {
+                    final int count = Math.min(batchCodes.length, rows - i);
+                    for (int j = 0; j < count; ++j) {
+                        final int row = i + j;
+                        batchCodes[j] = validity.isNull(row) ? 0 : mapping[Math.toIntExact(integer(data, row, field.indexWidth, true))];
+                    }
+                    ((IntColumn)codes).setInts(i, batchCodes, 0, count);
+                }
+                return new DictionaryColumn((IntColumn)codes, dictionaries.get(field.dictionaryId));
+            }
+            switch (field.type) {
+                case TYPE_NULL:
+                    final DoubleColumn nulls = Columns.doubles(field.name, rows, Storage.OFF_HEAP);
+                    for (int row = 0; row < rows; ++row) {
+                        nulls.setNull(row);
+                    }
+                    return nulls;
+                case TYPE_UTF8:
+                case TYPE_LARGE_UTF8:
+                    final Dictionary dictionary = new Dictionary();
+                    final int[] codes = strings(field.type == TYPE_LARGE_UTF8, rows, nullCount, dictionary);
+                    final IntColumn column = Columns.ints(field.name, rows, Storage.OFF_HEAP);
+                    column.setInts(0, codes, 0, rows);
+                    return new DictionaryColumn(column, dictionary);
+                case TYPE_BOOL:
+                    return booleans(field.name, rows, validity, bufferOffset(buffer++), storage);
+                case TYPE_FLOATING_POINT:
+                    return doubles(field, rows, validity, bufferOffset(buffer++), storage);
+                default:
+                    return integers(field, rows, validity, bufferOffset(buffer++), storage);
+            }
+        }
+
+        /**
+         * Reads the validity bitmap in the next buffer onto the heap
+         */
+        private Validity validity(int rows, long nullCount) {
+            final int index = buffer++;
+            if (nullCount == 0L || bufferLength(index) == 0L) {
+                return new Validity(rows);
+            }
+            final long offset = bufferOffset(index);
+            final long[] words = new long[(rows + 63) >>> 6];
+            final int full = (offset & 7L) == 0L ? rows >>> 6 : 0;
+            memory.getLongs(offset, words, 0, full);
+            final int bytes = (rows + 7) >>> 3;
+            for (int i = full << 3; i < bytes; ++i) {
+                words[i >>> 3] |= (memory.getByte(offset + i) & 0xFFL) << ((i & 7) << 3);
+            }
+            return new Validity(words, rows);
+        }
+
+        /**
+         * Reads the integer of the width specified at a row of a value buffer
+         */
+        private long integer(long data, int row, int width, boolean signed) {
+            switch (width) {
+                case 8:     return signed ? memory.getByte(data + row) : memory.getByte(data + row) & 0xFFL;
+                case 16:
+                    final int value = (memory.getByte(data + 2L * row) & 0xFF) | (memory.getByte(data + 2L * row + 1) << 8);
+                    return signed ? (short)value : value & 0xFFFFL;
+                case 32:    return signed ? memory.getInt(data + 4L * row) : memory.getInt(data + 4L * row) & 0xFFFFFFFFL;
+                case 64:    return memory.getLong(data + 8L * row);
+                default:    throw new DataFrameException("Unsupported Arrow integer width: " + width);
+            }
+        }
+
+        /**
+         * Returns true if a buffer of the width specified can be wrapped as a column in place
+         */
+        private boolean wrappable(long data, int rows, int bytesPerValue) {
+            return (data & 7L) == 0L && data + ((long)rows * bytesPerValue + 7 & ~7L) <= memory.byteSize();
+        }
+
+        private Column integers(Field field, int rows, Validity validity, long data, Storage storage) {
+            final ColumnType type = field.columnType();
+            if (field.bitWidth == 64 && wrappable(data, rows, 8)) {
+                return normalize(new LongBufferColumn(field.name, memory, data, rows, storage, validity));
+            } else if (field.bitWidth == 32 && field.signed && wrappable(data, rows, 4)) {
+                return normalize(new IntBufferColumn(field.name, memory, data, rows, storage, validity));
+            }
+            final Column column = Columns.create(field.name, type, rows, Storage.OFF_HEAP);
+            for (int row = 0; row < rows; ++row) {
+                if (validity.isNull(row)) {
+                    column.setNull(row);
+                } else if (type == ColumnType.LONG) {
+                    ((LongColumn)column).setLong(row, integer(data, row, field.bitWidth, field.signed));
+                } else {
+                    ((IntColumn)column).setInt(row, (int)integer(data, row, field.bitWidth, field.signed));
+                }
+            }
+            return column;
+        }
+
+        private Column doubles(Field field, int rows, Validity validity, long data, Storage storage) {
+            if (field.bitWidth == 64 && wrappable(data, rows, 8)) {
+                return normalize(new DoubleBufferColumn(field.name, memory, data, rows, storage, validity));
+            }
+            final DoubleColumn column = Columns.doubles(field.name, rows, Storage.OFF_HEAP);
+            for (int row = 0; row < rows; ++row) {
+                if (validity.isNull(row)) {
+                    column.setNull(row);
+                } else if (field.bitWidth == 64) {
+                    column.setDouble(row, Double.longBitsToDouble(memory.getLong(data + 8L * row)));
+                } else {
+                    column.setDouble(row, Float.intBitsToFloat(memory.getInt(data + 4L * row)));
+                }
+            }
+            return column;
+        }
+
+        private Column booleans(String name, int rows, Validity validity, long data, Storage storage) {
+            if (wrappable(data, (rows + 63) >>> 6, 8)) {
+                return normalize(new BooleanBufferColumn(name, memory, data, rows, storage, validity));
+            }
+            final BooleanColumn column = Columns.booleans(name, rows, Storage.OFF_HEAP);
+            for (int row = 0; row < rows; ++row) {
+                if (validity.isNull(row)) {
+                    column.setNull(row);
+                } else {
+                    column.setBoolean(row, (memory.getByte(data + (row >>> 3)) & (1 << (row & 7))) != 0);
+                }
+            }
+            return column;
+        }
+
+        /**
+         * Returns a column that wraps the memory, after resetting any null slot that does not hold the
+         * default value, or a copy of the column if such a slot cannot be reset because the memory is read only
+         */
+        private Column normalize(BufferColumn column) {
+            final Validity validity = column.validity();
+            final int length = column.length();
+            for (int row = validity.nextNull(0); row < length; row = validity.nextNull(row + 1)) {
+                if (!isDefault(column, row)) {
+                    if (writable) {
+                        column.setNull(row);
+                    } else {
+                        final Column copy = Columns.create(column.name(), column.type(), length, Storage.OFF_HEAP);
+                        Columns.copy(column, copy, 0);
+                        for (int i = validity.nextNull(0); i < length; i = validity.nextNull(i + 1)) {
+                            copy.setNull(i);
+                        }
+                        return copy;
+                    }
+                }
+            }
+            this.shared = true;
+            return column;
+        }
+
+        private static boolean isDefault(Column column, int row) {
+            switch (column.type()) {
+                case DOUBLE:    return Double.isNaN(((DoubleColumn)column).getDouble(row));
+                case LONG:      return ((LongColumn)column).getLong(row) == 0L;
+                case INT:       return ((IntColumn)column).getInt(row) == 0;
+                case BOOLEAN:   return !((BooleanColumn)column).getBoolean(row);
+                default:        return true;
+            }
+        }
+
+        /**
+         * Interns the values of a Utf8 or LargeUtf8 array held in the next buffers, returning the code of each row
+         */
+        private int[] strings(boolean large, int rows, long nullCount, Dictionary dictionary) {
+            final Validity validity = validity(rows, nullCount);
+            final long offsets = bufferOffset(buffer++);
+            final long data = bufferOffset(buffer);
+            final byte[] bytes = new byte[Math.toIntExact(bufferLength(buffer++))];
+            memory.getBytes(data, bytes, 0, bytes.length);
+            final int[] codes = new int[rows];
+            for (int row = 0; row < rows; ++row) {
+                if (validity.isValid(row)) {
+                    final long from = large ? memory.getLong(offsets + 8L * row) : memory.getInt(offsets + 4L * row);
+                    final long to = large ? memory.getLong(offsets + 8L * row + 8) : memory.getInt(offsets + 4L * row + 4);
+                    codes[row] = dictionary.intern(bytes, (int)from, (int)to);
+                }
+            }
+            return codes;
+        }
+    }
+
+
+    /**
+     * Writes the messages of an Arrow IPC stream or file to a channel, tracking the blocks needed by a file footer
+     */
+    private static final class Writer {
+
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(Columns.BATCH_SIZE * 8).order(ByteOrder.LITTLE_ENDIAN);
+        private final List<String> names;
+        private final List<ColumnType> types;
+        private final Map<Integer,Dictionary> dictionaries = new HashMap<>();
+        private final Map<Integer,Integer> dictionarySizes = new HashMap<>();
+        private final List<long[]> dictionaryBlocks = new ArrayList<>();
+        private final List<long[]> batchBlocks = new ArrayList<>();
+        private long position;
+        private boolean file;
+
+        /**
+         * Constructor
+         * @param channel   the channel to write to
+         * @param schema    a frame with the column names and types of every batch to be written
+         */
+        Writer(WritableByteChannel channel, DataFrame schema) {
+            this.channel = channel;
+            this.names = schema.columnNames();
+            this.types = new ArrayList<>();
+            for (Column column : schema.columns()) {
+                switch (column.type()) {
+                    case BOOLEAN:
+                    case INT:
+                    case LONG:
+                    case DOUBLE:
+                    case STRING:
+                        this.types.add(column.type());
+                        break;
+                    default:
+                        throw new DataFrameException("Unsupported column type for Arrow: " + column.type());
+                }
+            }
+        }
+
+        /**
+         * Writes the leading magic of the file format, followed by the schema
+         */
+        void magic() throws IOException {
+            this.file = true;
+            buffer.put(MAGIC).putShort((short)0);
+            this.position += MAGIC.length + 2;
+            schema();
+        }
+
+        /**
+         * Writes the schema message
+         */
+        void schema() throws IOException {
+            message(SCHEMA, schemaTable(), Collections.emptyList(), 0);
+        }
+
+        /**
+         * Returns the flatbuffer Schema table for the columns
+         */
+        private FlatBuffer.Builder schemaTable() {
+            final List<FlatBuffer.Builder> fields = new ArrayList<>();
+            for (int i = 0; i < names.size(); ++i) {
+                final FlatBuffer.Builder field = new FlatBuffer.Builder().addString(0, names.get(i)).addBoolean(1, true);
+                switch (types.get(i)) {
+                    case BOOLEAN:   field.addByte(2, TYPE_BOOL).addTable(3, new FlatBuffer.Builder());                                  break;
+                    case INT:       field.addByte(2, TYPE_INT).addTable(3, intType(32));                                                break;
+                    case LONG:      field.addByte(2, TYPE_INT).addTable(3, intType(64));                                                break;
+                    case DOUBLE:    field.addByte(2, TYPE_FLOATING_POINT).addTable(3, new FlatBuffer.Builder().addShort(0, 2));         break;
+                    case STRING:
+                        field.addByte(2, TYPE_UTF8).addTable(3, new FlatBuffer.Builder());
+                        field.addTable(4, new FlatBuffer.Builder().addLong(0, i).addTable(1, intType(32)).addBoolean(2, false));
+                        break;
+                    default:
+                        throw new DataFrameException("Unsupported column type for Arrow: " + types.get(i));
+                }
+                fields.add(field.addTables(5, Collections.emptyList()));
+            }
+            return new FlatBuffer.Builder().addShort(0, 0).addTables(1, fields);
+        }
+
+        private static FlatBuffer.Builder intType(int bitWidth) {
+            return new FlatBuffer.Builder().addInt(0, bitWidth).addBoolean(1, true);
+        }
+
+        /**
+         * Writes a record batch for the frame, preceded by any dictionary batches its string columns need
+         */
+        void batch(DataFrame frame) throws IOException {
+            if (!frame.columnNames().equals(names)) {
+                throw new DataFrameException("Batch columns " + frame.columnNames() + " do not match the Arrow schema " + names);
+            }
+            final List<Buffer> buffers = new ArrayList<>();
+            final ByteBuffer nodes = ByteBuffer.allocate(16 * names.size()).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < names.size(); ++i) {
+                final Column column = frame.column(i);
+                if (column.type() != types.get(i)) {
+                    throw new DataFrameException("Batch column " + column.name() + " has type " + column.type() + ", expected " + types.get(i));
+                }
+                if (column instanceof StringColumn) {
+                    dictionary(i, ((StringColumn)column).dictionary());
+                }
+                final Validity validity = column.validity();
+                nodes.putLong(column.length()).putLong(validity.nullCount());
+                buffers.add(validity.hasNulls() ? Buffer.of(validity.words()) : Buffer.EMPTY);
+                buffers.add(values(column));
+            }
+            nodes.flip();
+            final long[] block = message(RECORD_BATCH, recordBatch(frame.rowCount(), nodes, names.size(), buffers), buffers, frame.rowCount());
+            this.batchBlocks.add(block);
+        }
+
+        /**
+         * Writes a dictionary batch for a string column if its dictionary has changed since the last batch
+         */
+        private void dictionary(int id, Dictionary dictionary) throws IOException {
+            final Dictionary previous = dictionaries.get(id);
+            final int written = previous == dictionary ? dictionarySizes.get(id) : 0;
+            if (previous == dictionary && written == dictionary.size()) {
+                return;
+            } else if (file && previous != null) {
+                throw new DataFrameException("Arrow files cannot replace the dictionary of column " + names.get(id));
+            }
+            final boolean delta = previous == dictionary;
+            final int count = dictionary.size() - written;
+            final byte[][] values = new byte[count][];
+            long total = 0L;
+            for (int i = 0; i < count; ++i) {
+                values[i] = dictionary.value(written + i + 1).getBytes(StandardCharsets.UTF_8);
+                total += values[i].length;
+            }
+            final long dataLength = total;
+            final List<Buffer> buffers = Arrays.asList(Buffer.EMPTY, new Buffer(4L * (count + 1)) {
+                @Override
+                void write(Writer writer) throws IOException {
+                    int offset = 0;
+                    writer.putInt(0);
+                    for (byte[] value : values) {
+                        offset += value.length;
+                        writer.putInt(offset);
+                    }
+                }
+            }, new Buffer(dataLength) {
+                @Override
+                void write(Writer writer) throws IOException {
+                    for (byte[] value : values) {
+                        writer.putBytes(value);
+                    }
+                }
+            });
+            final ByteBuffer nodes = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN).putLong(count).putLong(0L);
+            nodes.flip();
+            final FlatBuffer.Builder batch = recordBatch(count, nodes, 1, buffers);
+            final FlatBuffer.Builder header = new FlatBuffer.Builder().addLong(0, id).addTable(1, batch).addBoolean(2, delta);
+            this.dictionaryBlocks.add(message(DICTIONARY_BATCH, header, buffers, count));
+            this.dictionaries.put(id, dictionary);
+            this.dictionarySizes.put(id, dictionary.size());
+        }
+
+        /**
+         * Returns the flatbuffer RecordBatch table for the nodes and buffers specified
+         */
+        private FlatBuffer.Builder recordBatch(long length, ByteBuffer nodes, int nodeCount, List<Buffer> buffers) {
+            final ByteBuffer layout = ByteBuffer.allocate(16 * buffers.size()).order(ByteOrder.LITTLE_ENDIAN);
+            long offset = 0L;
+            for (Buffer buffer : buffers) {
+                layout.putLong(offset).putLong(buffer.length);
+                offset += buffer.length + padding(buffer.length, ALIGNMENT);
+            }
+            layout.flip();
+            return new FlatBuffer.Builder().addLong(0, length).addStructs(1, nodeCount, nodes).addStructs(2, buffers.size(), layout);
+        }
+
+        /**
+         * Returns the value buffer of a column
+         */
+        private static Buffer values(Column column) {
+            final int length = column.length();
+            switch (column.type()) {
+                case BOOLEAN:
+                    if (column instanceof BooleanBufferColumn) {
+                        return Buffer.of((BufferColumn)column, (long)BooleanBitColumn.wordCount(length) << 3);
+                    } else if (column instanceof BooleanBitColumn) {
+                        return Buffer.of(((BooleanBitColumn)column).words());
+                    }
+                    final long[] words = new long[BooleanBitColumn.wordCount(length)];
+                    for (int row = 0; row < length; ++row) {
+                        if (((BooleanColumn)column).getBoolean(row)) {
+                            words[row >>> 6] |= 1L << row;
+                        }
+                    }
+                    return Buffer.of(words);
+                case STRING:
+                    return new Buffer(4L * length) {
+                        @Override
+                        void write(Writer writer) throws IOException {
+                            final int[] codes = new int[Columns.BATCH_SIZE];
+                            for (int i = 0; i < length; i += codes.length) {
+                                final int count = Math.min(codes.length, length - i);
+                                ((StringColumn)column).getCodes(i, codes, 0, count);
+                                for (int j = 0; j < count; ++j) {
+                                    writer.putInt(Math.max(0, codes[j] - 1));
+                                }
+                            }
+                        }
+                    };
+                default:
+                    final int width = column.type() == ColumnType.INT ? 4 : 8;
+                    if (column instanceof BufferColumn) {
+                        return Buffer.of((BufferColumn)column, (long)width * length);
+                    }
+                    return new Buffer((long)width * length) {
+                        @Override
+                        void write(Writer writer) throws IOException {
+                            writer.putValues(column);
+                        }
+                    };
+            }
+        }
+
+        /**
+         * Writes an encapsulated message followed by its body, returning the file block of the message
+         */
+        private long[] message(int type, FlatBuffer.Builder header, List<Buffer> buffers, long length) throws IOException {
+            long bodyLength = 0L;
+            for (Buffer buffer : buffers) {
+                bodyLength += buffer.length + padding(buffer.length, ALIGNMENT);
+            }
+            final FlatBuffer.Builder message = new FlatBuffer.Builder()
+                .addShort(0, METADATA_V5)
+                .addByte(1, type)
+                .addTable(2, header)
+                .addLong(3, bodyLength);
+            final ByteBuffer metadata = message.build();
+            final int metadataLength = metadata.remaining() + (int)padding(8 + metadata.remaining(), 8);
+            final long offset = position;
+            putInt(CONTINUATION);
+            putInt(metadataLength);
+            putBytes(metadata);
+            pad(metadataLength - metadata.limit());
+            for (Buffer buffer : buffers) {
+                buffer.write(this);
+                pad(padding(buffer.length, ALIGNMENT));
+            }
+            return new long[] {offset, 8 + metadataLength, bodyLength};
+        }
+
+        /**
+         * Writes the end of stream marker
+         */
+        void end() throws IOException {
+            putInt(CONTINUATION);
+            putInt(0);
+        }
+
+        /**
+         * Writes the footer and trailing magic of the file format
+         */
+        void footer() throws IOException {
+            final FlatBuffer.Builder footer = new FlatBuffer.Builder()
+                .addShort(0, METADATA_V5)
+                .addTable(1, schemaTable())
+                .addStructs(2, dictionaryBlocks.size(), blocks(dictionaryBlocks))
+                .addStructs(3, batchBlocks.size(), blocks(batchBlocks));
+            final ByteBuffer bytes = footer.build();
+            final int length = bytes.remaining();
+            putBytes(bytes);
+            putInt(length);
+            putBytes(ByteBuffer.wrap(MAGIC));
+        }
+
+        private static ByteBuffer blocks(List<long[]> blocks) {
+            final ByteBuffer bytes = ByteBuffer.allocate(24 * blocks.size()).order(ByteOrder.LITTLE_ENDIAN);
+            for (long[] block : blocks) {
+                bytes.putLong(block[0]).putInt((int)block[1]).putInt(0).putLong(block[2]);
+            }
+            bytes.flip();
+            return bytes;
+        }
+
+        private void ensure(int count) throws IOException {
+            if (buffer.remaining() < count) {
+                flush();
+            }
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+            this.position += 4;
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+            this.position += 8;
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            putBytes(ByteBuffer.wrap(bytes));
+        }
+
+        void putBytes(ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                ensure(1);
+                final int count = Math.min(buffer.remaining(), bytes.remaining());
+                final ByteBuffer slice = bytes.duplicate();
+                slice.limit(slice.position() + count);
+                buffer.put(slice);
+                bytes.position(bytes.position() + count);
+                this.position += count;
+            }
+        }
+
+        void pad(long count) throws IOException {
+            for (long i = 0; i < count; ++i) {
+                ensure(1);
+                buffer.put((byte)0);
+                this.position++;
+            }
+        }
+
+        /**
+         * Writes the values of a heap column in batches
+         */
+        void putValues(Column column) throws IOException {
+            final int length = column.length();
+            final int batchSize = Columns.BATCH_SIZE;
+            switch (column.type()) {
+                case INT:
+                    final int[] ints = new int[batchSize];
+                    for (int i = 0; i < length; i += batchSize) {
+                        final int count = Math.min(batchSize, length - i);
+                        ((IntColumn)column).getInts(i, ints, 0, count);
+                        flush();
+                        buffer.asIntBuffer().put(ints, 0, count);
+                        buffer.position(count << 2);
+                        this.position += (long)count << 2;
+                    }
+                    break;
+                case LONG:
+                    final long[] longs = new long[batchSize];
+                    for (int i = 0; i < length; i += batchSize) {
+                        final int count = Math.min(batchSize, length - i);
+                        ((LongColumn)column).getLongs(i, longs, 0, count);
+                        flush();
+                        buffer.asLongBuffer().put(longs, 0, count);
+                        buffer.position(count << 3);
+                        this.position += (long)count << 3;
+                    }
+                    break;
+                case DOUBLE:
+                    final double[] doubles = new double[batchSize];
+                    for (int i = 0; i < length; i += batchSize) {
+                        final int count = Math.min(batchSize, length - i);
+                        ((DoubleColumn)column).getDoubles(i, doubles, 0, count);
+                        flush();
+                        buffer.asDoubleBuffer().put(doubles, 0, count);
+                        buffer.position(count << 3);
+                        this.position += (long)count << 3;
+                    }
+                    break;
+                default:
+                    throw new DataFrameException("Unsupported column type for Arrow: " + column.type());
+            }
+        }
+
+        /**
+         * Writes a range of memory straight to the channel
+         */
+        void putMemory(BufferMemory memory, long offset, long length) throws IOException {
+            flush();
+            memory.write(channel, offset, length);
+            this.position += length;
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+
+    /**
+     * A buffer of a message body, which knows its length up front and writes itself on demand
+     */
+    private abstract static class Buffer {
+
+        static final Buffer EMPTY = new Buffer(0L) {
+            @Override
+            void write(Writer writer) {
+                // an absent buffer has no bytes
+            }
+        };
+
+        private final long length;
+
+        Buffer(long length) {
+            this.length = length;
+        }
+
+        /**
+         * Returns a buffer of little endian words, such as a bitmap
+         */
+        static Buffer of(long[] words) {
+            return new Buffer(8L * words.length) {
+                @Override
+                void write(Writer writer) throws IOException {
+                    for (long word : words) {
+                        writer.putLong(word);
+                    }
+                }
+            };
+        }
+
+        /**
+         * Returns a buffer written straight from the memory of a column
+         */
+        static Buffer of(BufferColumn column, long length) {
+            return new Buffer(length) {
+                @Override
+                void write(Writer writer) throws IOException {
+                    writer.putMemory(column.memory(), column.offset(), length);
+                }
+            };
+        }
+
+        abstract void write(Writer writer) throws IOException;
+    }
+
+
+    /**
+     * Writes record batches to an output stream in the Arrow IPC stream format.
+     *
+     * Each batch must have the column names and types of the schema the writer was created with.
+     * String columns are written as dictionary batches ahead of the first record batch that uses
+     * them, followed by delta batches as their dictionaries grow, or replacement batches if a later
+     * batch uses a different dictionary.
+     */
+    public static final class StreamWriter implements AutoCloseable {
+
+        private final OutputStream out;
+        private final Writer writer;
+        private boolean closed;
+
+        /**
+         * Constructor
+         * @param out       the output stream
+         * @param schema    a frame with the column names and types of every batch to be written
+         */
+        private StreamWriter(OutputStream out, DataFrame schema) {
+            this.out = out;
+            this.writer = new Writer(Channels.newChannel(out), schema);
+            try {
+                writer.schema();
+            } catch (IOException ex) {
+                throw new DataFrameException("Failed to write Arrow schema", ex);
+            }
+        }
+
+        /**
+         * Writes a frame as a record batch
+         * @param batch the frame to write
+         * @return      this writer
+         * @throws DataFrameException   if the batch does not match the schema or cannot be written
+         */
+        public StreamWriter write(DataFrame batch) {
+            if (closed) {
+                throw new IllegalStateException("The Arrow stream writer is closed");
+            }
+            try {
+                writer.batch(batch);
+                return this;
+            } catch (IOException ex) {
+                throw new DataFrameException("Failed to write Arrow record batch", ex);
+            }
+        }
+
+        /**
+         * Writes the end of stream marker and flushes the output stream, which is not closed
+         * @throws DataFrameException   if the stream cannot be written
+         */
+        @Override
+        public void close() {
+            if (!closed) {
+                this.closed = true;
+                try {
+                    writer.end();
+                    writer.flush();
+                    out.flush();
+                } catch (IOException ex) {
+                    throw new DataFrameException("Failed to end Arrow stream", ex);
+                }
+            }
+        }
+    }
+}
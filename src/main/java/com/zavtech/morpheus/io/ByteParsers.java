@@ -0,0 +1,193 @@
+package com.zavtech.morpheus.io;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses primitive values directly from bytes of ASCII text, without creating intermediate Strings.
+ */
+final class ByteParsers {
+
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private ByteParsers() {
+        super();
+    }
+
+    /**
+     * Returns true if the byte range is empty or holds only spaces or tabs
+     */
+    static boolean isBlank(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; ++i) {
+            if (bytes[i] != ' ' && bytes[i] != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a long from the byte range, ignoring surrounding spaces
+     * @throws NumberFormatException    if the range does not hold a valid long
+     */
+    static long parseLong(byte[] bytes, int from, int to) {
+        while (from < to && bytes[from] == ' ') from++;
+        while (to > from && bytes[to - 1] == ' ') to--;
+        if (from == to) {
+            throw new NumberFormatException("Empty value");
+        }
+        int i = from;
+        final boolean negative = bytes[i] == '-';
+        if (negative || bytes[i] == '+') {
+            i++;
+        }
+        if (i == to) {
+            throw invalid(bytes, from, to);
+        }
+        long value = 0L;
+        while (i < to) {
+            final int digit = bytes[i++] - '0';
+            if (digit < 0 || digit > 9) {
+                throw invalid(bytes, from, to);
+            } else if (value < (Long.MIN_VALUE + digit) / 10) {
+                throw invalid(bytes, from, to);
+            }
+            value = value * 10 - digit;
+        }
+        if (negative) {
+            return value;
+        } else if (value == Long.MIN_VALUE) {
+            throw invalid(bytes, from, to);
+        } else {
+            return -value;
+        }
+    }
+
+    /**
+     * Parses an int from the byte range, ignoring surrounding spaces
+     * @throws NumberFormatException    if the range does not hold a valid int
+     */
+    static int parseInt(byte[] bytes, int from, int to) {
+        final long value = parseLong(bytes, from, to);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw invalid(bytes, from, to);
+        }
+        return (int)value;
+    }
+
+    /**
+     * Parses a boolean from the byte range, accepting true or false in any case
+     * @throws NumberFormatException    if the range does not hold a valid boolean
+     */
+    static boolean parseBoolean(byte[] bytes, int from, int to) {
+        while (from < to && bytes[from] == ' ') from++;
+        while (to > from && bytes[to - 1] == ' ') to--;
+        if (matches(bytes, from, to, "true")) {
+            return true;
+        } else if (matches(bytes, from, to, "false")) {
+            return false;
+        } else {
+            throw invalid(bytes, from, to);
+        }
+    }
+
+    /**
+     * Parses a double from the byte range, ignoring surrounding spaces.
+     * Values with at most 15 significant digits and a small exponent are converted exactly
+     * on a fast path, while everything else defers to Double.parseDouble().
+     * @throws NumberFormatException    if the range does not hold a valid double
+     */
+    static double parseDouble(byte[] bytes, int from, int to) {
+        while (from < to && bytes[from] == ' ') from++;
+        while (to > from && bytes[to - 1] == ' ') to--;
+        int i = from;
+        final boolean negative = i < to && bytes[i] == '-';
+        if (negative || (i < to && bytes[i] == '+')) {
+            i++;
+        }
+        long mantissa = 0L;
+        int digits = 0;
+        int exponent = 0;
+        boolean any = false;
+        while (i < to && bytes[i] >= '0' && bytes[i] <= '9') {
+            mantissa = mantissa * 10 + (bytes[i++] - '0');
+            digits += mantissa != 0 ? 1 : 0;
+            any = true;
+            if (digits > 15) {
+                return slowDouble(bytes, from, to);
+            }
+        }
+        if (i < to && bytes[i] == '.') {
+            i++;
+            while (i < to && bytes[i] >= '0' && bytes[i] <= '9') {
+                mantissa = mantissa * 10 + (bytes[i++] - '0');
+                digits += mantissa != 0 ? 1 : 0;
+                exponent--;
+                any = true;
+                if (digits > 15) {
+                    return slowDouble(bytes, from, to);
+                }
+            }
+        }
+        if (!any) {
+            return slowDouble(bytes, from, to);
+        }
+        if (i < to && (bytes[i] == 'e' || bytes[i] == 'E')) {
+            i++;
+            final boolean negativeExponent = i < to && bytes[i] == '-';
+            if (negativeExponent || (i < to && bytes[i] == '+')) {
+                i++;
+            }
+            int value = 0;
+            final int start = i;
+            while (i < to && bytes[i] >= '0' && bytes[i] <= '9' && value < 1000) {
+                value = value * 10 + (bytes[i++] - '0');
+            }
+            if (i == start) {
+                throw invalid(bytes, from, to);
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (i != to) {
+            return slowDouble(bytes, from, to);
+        } else if (mantissa == 0L) {
+            return negative ? -0d : 0d;
+        } else if (mantissa < MAX_EXACT_MANTISSA && exponent >= -22 && exponent <= 22) {
+            final double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        } else {
+            return slowDouble(bytes, from, to);
+        }
+    }
+
+    /**
+     * Returns a String decoded from the byte range, unescaping doubled quotes
+     */
+    static String text(byte[] bytes, int from, int to) {
+        final String text = new String(bytes, from, to - from, StandardCharsets.UTF_8);
+        return text.indexOf('"') < 0 ? text : text.replace("\"\"", "\"");
+    }
+
+    private static double slowDouble(byte[] bytes, int from, int to) {
+        return Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+    }
+
+    private static boolean matches(byte[] bytes, int from, int to, String expected) {
+        if (to - from != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); ++i) {
+            if (Character.toLowerCase(bytes[from + i]) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static NumberFormatException invalid(byte[] bytes, int from, int to) {
+        return new NumberFormatException("Invalid value: " + new String(bytes, from, to - from, StandardCharsets.UTF_8));
+    }
+}
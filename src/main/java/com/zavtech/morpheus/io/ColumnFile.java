@@ -0,0 +1,491 @@
+package com.zavtech.morpheus.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.zavtech.morpheus.column.BooleanBufferColumn;
+import com.zavtech.morpheus.column.BooleanColumn;
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.ColumnType;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.Dictionary;
+import com.zavtech.morpheus.column.DictionaryColumn;
+import com.zavtech.morpheus.column.DoubleBufferColumn;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.EncodedColumn;
+import com.zavtech.morpheus.column.EncodedIntColumn;
+import com.zavtech.morpheus.column.EncodedLongColumn;
+import com.zavtech.morpheus.column.IntBufferColumn;
+import com.zavtech.morpheus.column.IntColumn;
+import com.zavtech.morpheus.column.LongBufferColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.column.StringColumn;
+import com.zavtech.morpheus.column.Validity;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.memory.BufferMemory;
+
+/**
+ * Reads and writes DataFrames in the native morpheus binary column format.
+ *
+ * The format stores each column as a contiguous block of little endian primitive
+ * values, exactly as an off-heap column lays them out in memory, so a file can be
+ * opened by memory mapping it with no parse step. Pages are only faulted in by the
+ * operating system when a column is actually read, which makes opening a file of
+ * any size a constant time operation.
+ *
+ * <pre>
+ *     magic       8 bytes     "MORPHCOL"
+ *     version     int
+ *     columns     int
+ *     rows        long
+ *     directory   per column: name length (int), UTF-8 name, type ordinal (int), data offset (long), data length (long),
+ *                 validity offset (long), encoding (int)
+ *     data        per column: values aligned to a 64 byte boundary, then any validity bitmap aligned likewise
+ * </pre>
+ *
+ * STRING columns store their int codes as values, followed by their dictionary as a count
+ * (int) and then the length (int) and UTF-8 bytes of each value in code order. Codes are
+ * mapped like any other values, while the dictionary is read onto the heap when opened.
+ * Columns with nulls store their validity bitmap as little endian 64-bit words, with a set bit
+ * for each valid row, which is read onto the heap when opened. The validity offset is zero
+ * for columns without nulls and for STRING columns, whose nulls are code 0.
+ *
+ * The encoding is zero for plain values, and otherwise one more than the ordinal of the Encoding
+ * of an EncodedColumn, or of the codes of a STRING column, whose values are stored as a word count
+ * (long) followed by the words of EncodedColumn.toWords(). Encoded values are read onto the heap
+ * when opened, as they are compact, while validity bitmaps and dictionaries are stored as before.
+ * Version 2 added STRING columns, version 3 added validity bitmaps and version 4 added encodings,
+ * and files of earlier versions remain readable.
+ */
+public final class ColumnFile {
+
+    private static final int VERSION = 4;
+    private static final int ALIGNMENT = 64;
+    private static final int HEADER_SIZE = 24;
+    private static final byte[] MAGIC = "MORPHCOL".getBytes(StandardCharsets.US_ASCII);
+
+    private ColumnFile() {
+        super();
+    }
+
+    /**
+     * Writes the frame specified to a column file at the path specified, replacing any existing file
+     * @param frame the frame to write
+     * @param path  the file path
+     * @throws DataFrameException   if the file cannot be written
+     */
+    public static void write(DataFrame frame, Path path) {
+        final List<Column> columns = frame.columns();
+        final int rowCount = frame.rowCount();
+        final byte[][] names = new byte[columns.size()][];
+        long directorySize = 0L;
+        for (int i = 0; i < columns.size(); ++i) {
+            names[i] = columns.get(i).name().getBytes(StandardCharsets.UTF_8);
+            directorySize += 4 + names[i].length + 4 + 8 + 8 + 8 + 4;
+        }
+        final long[][] encoded = new long[columns.size()][];
+        for (int i = 0; i < columns.size(); ++i) {
+            final EncodedColumn values = encoded(columns.get(i));
+            encoded[i] = values != null ? values.toWords() : null;
+        }
+        final long[] offsets = new long[columns.size()];
+        final long[] lengths = new long[columns.size()];
+        final long[] validityOffsets = new long[columns.size()];
+        final long validityLength = (long)((rowCount + 63) >>> 6) << 3;
+        long position = align(HEADER_SIZE + directorySize);
+        for (int i = 0; i < columns.size(); ++i) {
+            final Column column = columns.get(i);
+            offsets[i] = position;
+            lengths[i] = encoded[i] != null ? byteLength(column, encoded[i]) : byteLength(column, rowCount);
+            position = align(position + lengths[i]);
+            if (column.type() != ColumnType.STRING && column.validity().hasNulls()) {
+                validityOffsets[i] = position;
+                position = align(position + validityLength);
+            }
+        }
+        final StandardOpenOption[] options = {StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            final ByteBuffer header = ByteBuffer.allocate((int)(HEADER_SIZE + directorySize)).order(ByteOrder.LITTLE_ENDIAN);
+            header.put(MAGIC).putInt(VERSION).putInt(columns.size()).putLong(rowCount);
+            for (int i = 0; i < columns.size(); ++i) {
+                header.putInt(names[i].length).put(names[i]);
+                header.putInt(columns.get(i).type().ordinal());
+                header.putLong(offsets[i]).putLong(lengths[i]).putLong(validityOffsets[i]);
+                header.putInt(encoded[i] != null ? encoded(columns.get(i)).encoding().ordinal() + 1 : 0);
+            }
+            header.flip();
+            writeFully(channel, header, 0L);
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(Columns.BATCH_SIZE * 8).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < columns.size(); ++i) {
+                if (encoded[i] != null) {
+                    writeEncoded(channel, buffer, columns.get(i), encoded[i], offsets[i]);
+                } else {
+                    writeColumn(channel, buffer, columns.get(i), offsets[i]);
+                }
+                if (validityOffsets[i] != 0L) {
+                    writeValidity(channel, buffer, columns.get(i).validity(), validityOffsets[i]);
+                }
+            }
+            if (position > channel.size()) {
+                writeFully(channel, ByteBuffer.allocate(1), position - 1);
+            }
+        } catch (IOException ex) {
+            throw new DataFrameException("Failed to write column file to " + path, ex);
+        }
+    }
+
+    /**
+     * Opens the column file at the path specified by memory mapping it, without reading any values
+     * @param path  the file path
+     * @return      the frame with MAPPED columns, apart from encoded columns read onto the heap, which must be closed to release the mapping
+     * @throws DataFrameException   if the file cannot be opened or is not a column file
+     */
+    public static DataFrame open(Path path) {
+        return open(path, (String[])null);
+    }
+
+    /**
+     * Opens the column file at the path specified by memory mapping it, exposing only the columns specified
+     * @param path      the file path
+     * @param columns   the names of the columns to include, null for all columns
+     * @return          the frame with MAPPED columns, apart from encoded columns read onto the heap, which must be closed to release the mapping
+     * @throws DataFrameException   if the file cannot be opened or is not a column file
+     */
+    public static DataFrame open(Path path, String... columns) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header, 0L);
+            final byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new DataFrameException("Not a morpheus column file: " + path);
+            }
+            final int version = header.getInt();
+            if (version < 1 || version > VERSION) {
+                throw new DataFrameException("Unsupported column file version " + version + " in " + path);
+            }
+            final int columnCount = header.getInt();
+            final int rowCount = Math.toIntExact(header.getLong());
+            final BufferMemory memory = map(channel);
+            final List<String> include = columns == null ? null : Arrays.asList(columns);
+            final List<Column> result = new ArrayList<>(columnCount);
+            long position = HEADER_SIZE;
+            for (int i = 0; i < columnCount; ++i) {
+                final int nameLength = memory.getInt(position);
+                final byte[] nameBytes = new byte[nameLength];
+                for (int j = 0; j < nameLength; ++j) {
+                    nameBytes[j] = memory.getByte(position + 4 + j);
+                }
+                position += 4 + nameLength;
+                final String name = new String(nameBytes, StandardCharsets.UTF_8);
+                final ColumnType type = ColumnType.values()[memory.getInt(position)];
+                final long offset = memory.getLong(position + 4);
+                final long validityOffset = version >= 3 ? memory.getLong(position + 4 + 8 + 8) : 0L;
+                final int encoding = version >= 4 ? memory.getInt(position + 4 + 8 + 8 + 8) : 0;
+                position += version >= 4 ? 4 + 8 + 8 + 8 + 4 : version >= 3 ? 4 + 8 + 8 + 8 : 4 + 8 + 8;
+                if (include == null || include.contains(name)) {
+                    final Validity validity = validityOffset != 0L ? readValidity(memory, validityOffset, rowCount) : new Validity(rowCount);
+                    if (encoding == 0) {
+                        result.add(mappedColumn(name, type, memory, offset, rowCount, validity));
+                    } else {
+                        result.add(encodedColumn(name, type, memory, offset, rowCount, validity));
+                    }
+                }
+            }
+            return DataFrame.of(result);
+        } catch (IOException ex) {
+            throw new DataFrameException("Failed to open column file at " + path, ex);
+        }
+    }
+
+    /**
+     * Maps the full file behind the channel as a read only memory region
+     */
+    static BufferMemory map(FileChannel channel) throws IOException {
+        final long size = channel.size();
+        final long chunkSize = 1L << BufferMemory.MAX_CHUNK_SHIFT;
+        final int count = (int)Math.max(1L, (size + chunkSize - 1L) / chunkSize);
+        final ByteBuffer[] chunks = new ByteBuffer[count];
+        for (int i = 0; i < count; ++i) {
+            final long start = (long)i * chunkSize;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(chunkSize, size - start));
+        }
+        return BufferMemory.wrap(BufferMemory.MAX_CHUNK_SHIFT, true, chunks);
+    }
+
+    /**
+     * Returns a column over the mapped region for the type specified
+     */
+    private static Column mappedColumn(String name, ColumnType type, BufferMemory memory, long offset, int rowCount, Validity validity) {
+        switch (type) {
+            case BOOLEAN:   return new BooleanBufferColumn(name, memory, offset, rowCount, Storage.MAPPED, validity);
+            case INT:       return new IntBufferColumn(name, memory, offset, rowCount, Storage.MAPPED, validity);
+            case LONG:      return new LongBufferColumn(name, memory, offset, rowCount, Storage.MAPPED, validity);
+            case DOUBLE:    return new DoubleBufferColumn(name, memory, offset, rowCount, Storage.MAPPED, validity);
+            case STRING:    return new DictionaryColumn(new IntBufferColumn(name, memory, offset, rowCount, Storage.MAPPED), readDictionary(memory, offset + ((long)rowCount << 2)));
+            default:        throw new DataFrameException("Unsupported column type in column file: " + type);
+        }
+    }
+
+    /**
+     * Returns a heap column from encoded values stored at the offset specified
+     */
+    private static Column encodedColumn(String name, ColumnType type, BufferMemory memory, long offset, int rowCount, Validity validity) {
+        final long[] words = new long[Math.toIntExact(memory.getLong(offset))];
+        memory.getLongs(offset + 8, words, 0, words.length);
+        try {
+            switch (type) {
+                case INT:       return EncodedIntColumn.fromWords(name, words, validity);
+                case LONG:      return EncodedLongColumn.fromWords(name, words, validity);
+                case STRING:    return new DictionaryColumn(EncodedIntColumn.fromWords(name, words, new Validity(rowCount)), readDictionary(memory, offset + 8 + ((long)words.length << 3)));
+                default:        throw new DataFrameException("Unsupported encoded column type in column file: " + type);
+            }
+        } catch (IllegalArgumentException ex) {
+            throw new DataFrameException("Corrupt encoded column " + name + " in column file", ex);
+        }
+    }
+
+    /**
+     * Reads a validity bitmap stored at the offset specified onto the heap
+     */
+    private static Validity readValidity(BufferMemory memory, long offset, int rowCount) {
+        final long[] words = new long[(rowCount + 63) >>> 6];
+        memory.getLongs(offset, words, 0, words.length);
+        return new Validity(words, rowCount);
+    }
+
+    /**
+     * Reads a dictionary stored at the offset specified onto the heap, preserving its codes
+     */
+    private static Dictionary readDictionary(BufferMemory memory, long offset) {
+        final Dictionary dictionary = new Dictionary();
+        final int count = memory.getInt(offset);
+        long position = offset + 4;
+        byte[] bytes = new byte[64];
+        for (int code = 1; code <= count; ++code) {
+            final int length = memory.getInt(position);
+            if (length > bytes.length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            for (int j = 0; j < length; ++j) {
+                bytes[j] = memory.getByte(position + 4 + j);
+            }
+            position += 4 + length;
+            if (dictionary.intern(bytes, 0, length) != code) {
+                throw new DataFrameException("Corrupt dictionary in column file, duplicate value for code " + code);
+            }
+        }
+        return dictionary;
+    }
+
+    /**
+     * Writes the values of a column in batches starting at the file position specified
+     */
+    private static void writeColumn(FileChannel channel, ByteBuffer buffer, Column column, long position) throws IOException {
+        final int length = column.length();
+        switch (column.type()) {
+            case BOOLEAN:
+                final BooleanColumn bits = (BooleanColumn)column;
+                final int words = (length + 63) >>> 6;
+                for (int w = 0; w < words; ++w) {
+                    long word = 0L;
+                    final int end = Math.min(length, (w + 1) << 6);
+                    for (int row = w << 6; row < end; ++row) {
+                        if (bits.getBoolean(row)) {
+                            word |= 1L << row;
+                        }
+                    }
+                    buffer.putLong(word);
+                    if (!buffer.hasRemaining()) {
+                        position = flush(channel, buffer, position);
+                    }
+                }
+                break;
+            case INT:
+                final int[] ints = new int[Columns.BATCH_SIZE];
+                for (int i = 0; i < length; i += ints.length) {
+                    final int count = Math.min(ints.length, length - i);
+                    ((IntColumn)column).getInts(i, ints, 0, count);
+                    buffer.asIntBuffer().put(ints, 0, count);
+                    buffer.position(count << 2);
+                    position = flush(channel, buffer, position);
+                }
+                break;
+            case LONG:
+                final long[] longs = new long[Columns.BATCH_SIZE];
+                for (int i = 0; i < length; i += longs.length) {
+                    final int count = Math.min(longs.length, length - i);
+                    ((LongColumn)column).getLongs(i, longs, 0, count);
+                    buffer.asLongBuffer().put(longs, 0, count);
+                    buffer.position(count << 3);
+                    position = flush(channel, buffer, position);
+                }
+                break;
+            case DOUBLE:
+                final double[] doubles = new double[Columns.BATCH_SIZE];
+                for (int i = 0; i < length; i += doubles.length) {
+                    final int count = Math.min(doubles.length, length - i);
+                    ((DoubleColumn)column).getDoubles(i, doubles, 0, count);
+                    buffer.asDoubleBuffer().put(doubles, 0, count);
+                    buffer.position(count << 3);
+                    position = flush(channel, buffer, position);
+                }
+                break;
+            case STRING:
+                final StringColumn strings = (StringColumn)column;
+                final int[] codes = new int[Columns.BATCH_SIZE];
+                for (int i = 0; i < length; i += codes.length) {
+                    final int count = Math.min(codes.length, length - i);
+                    strings.getCodes(i, codes, 0, count);
+                    buffer.asIntBuffer().put(codes, 0, count);
+                    buffer.position(count << 2);
+                    position = flush(channel, buffer, position);
+                }
+                position = writeDictionary(channel, buffer, strings.dictionary(), position);
+                break;
+            default:
+                throw new DataFrameException("Unsupported column type for column file: " + column.type());
+        }
+        flush(channel, buffer, position);
+    }
+
+    /**
+     * Buffers a dictionary to be written at the file position specified, flushing as needed, and returns the position of the buffer
+     */
+    private static long writeDictionary(FileChannel channel, ByteBuffer buffer, Dictionary dictionary, long position) throws IOException {
+        buffer.putInt(dictionary.size());
+        for (int code = 1; code <= dictionary.size(); ++code) {
+            final byte[] bytes = dictionary.value(code).getBytes(StandardCharsets.UTF_8);
+            if (buffer.remaining() < 4 + bytes.length) {
+                position = flush(channel, buffer, position);
+            }
+            if (buffer.remaining() < 4 + bytes.length) {
+                buffer.putInt(bytes.length);
+                position = flush(channel, buffer, position);
+                writeFully(channel, ByteBuffer.wrap(bytes), position);
+                position += bytes.length;
+            } else {
+                buffer.putInt(bytes.length).put(bytes);
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Writes the encoded values of a column, followed by the dictionary of a STRING column, starting at the file position specified
+     */
+    private static void writeEncoded(FileChannel channel, ByteBuffer buffer, Column column, long[] words, long position) throws IOException {
+        buffer.putLong(words.length);
+        for (int i = 0; i < words.length; i += Columns.BATCH_SIZE - 1) {
+            final int count = Math.min(Columns.BATCH_SIZE - 1, words.length - i);
+            buffer.asLongBuffer().put(words, i, count);
+            buffer.position(buffer.position() + (count << 3));
+            position = flush(channel, buffer, position);
+        }
+        if (column.type() == ColumnType.STRING) {
+            writeDictionary(channel, buffer, ((StringColumn)column).dictionary(), position);
+        }
+        flush(channel, buffer, position);
+    }
+
+    /**
+     * Writes the words of a validity bitmap starting at the file position specified
+     */
+    private static void writeValidity(FileChannel channel, ByteBuffer buffer, Validity validity, long position) throws IOException {
+        final long[] words = validity.words();
+        for (int i = 0; i < words.length; i += Columns.BATCH_SIZE) {
+            final int count = Math.min(Columns.BATCH_SIZE, words.length - i);
+            buffer.asLongBuffer().put(words, i, count);
+            buffer.position(count << 3);
+            position = flush(channel, buffer, position);
+        }
+    }
+
+    /**
+     * Writes the buffered bytes at the position specified and returns the position after them
+     */
+    private static long flush(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        final int count = buffer.remaining();
+        writeFully(channel, buffer, position);
+        buffer.clear();
+        return position + count;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            final int count = channel.read(buffer, position);
+            if (count < 0) {
+                throw new IOException("Unexpected end of file at position " + position);
+            }
+            position += count;
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Returns the number of bytes used to store a column of the length specified
+     */
+    private static long byteLength(Column column, int rowCount) {
+        switch (column.type()) {
+            case BOOLEAN:   return (long)((rowCount + 63) >>> 6) << 3;
+            case INT:       return (long)rowCount << 2;
+            case LONG:      return (long)rowCount << 3;
+            case DOUBLE:    return (long)rowCount << 3;
+            case STRING:    return ((long)rowCount << 2) + dictionaryLength(((StringColumn)column).dictionary());
+            default:        throw new DataFrameException("Unsupported column type for column file: " + column.type());
+        }
+    }
+
+    /**
+     * Returns the number of bytes used to store a column of the encoded values specified
+     */
+    private static long byteLength(Column column, long[] words) {
+        final long length = 8L + ((long)words.length << 3);
+        return column.type() == ColumnType.STRING ? length + dictionaryLength(((StringColumn)column).dictionary()) : length;
+    }
+
+    /**
+     * Returns the encoded values of a column, or of the codes of a string column, or null if they are not encoded
+     */
+    private static EncodedColumn encoded(Column column) {
+        if (column instanceof EncodedColumn) {
+            return (EncodedColumn)column;
+        } else if (column instanceof DictionaryColumn && ((DictionaryColumn)column).codes() instanceof EncodedColumn) {
+            return (EncodedColumn)((DictionaryColumn)column).codes();
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the number of bytes used to store a dictionary
+     */
+    private static long dictionaryLength(Dictionary dictionary) {
+        long length = 4L;
+        for (int code = 1; code <= dictionary.size(); ++code) {
+            length += 4L + dictionary.value(code).getBytes(StandardCharsets.UTF_8).length;
+        }
+        return length;
+    }
+
+    private static long align(long position) {
+        return (position + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+}
@@ -0,0 +1,338 @@
+package com.zavtech.morpheus.io;
+
+import java.util.Arrays;
+
+import com.zavtech.morpheus.column.BooleanColumn;
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.ColumnType;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.Dictionary;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.IntColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.StringColumn;
+
+/**
+ * Accumulates the parsed values of one CSV column into a growable primitive buffer.
+ *
+ * Each parsing thread owns its own set of field parsers, and the buffered values are
+ * copied into the final column in bulk once parsing of a byte range is complete. Blank
+ * fields are buffered as the default value of the type and recorded in a bitset, from
+ * which nulls are set on the target column after the copy.
+ */
+abstract class CsvFieldParser {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    final String name;
+    int size;
+    private long[] nulls = new long[0];
+    private int nullCount;
+
+    /**
+     * Constructor
+     * @param name  the column name
+     */
+    CsvFieldParser(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns a new parser for the column type specified
+     * @param name  the column name
+     * @param type  the column type
+     * @return      the new parser
+     */
+    static CsvFieldParser create(String name, ColumnType type) {
+        switch (type) {
+            case BOOLEAN:   return new BooleanParser(name);
+            case INT:       return new IntParser(name);
+            case LONG:      return new LongParser(name);
+            case DOUBLE:    return new DoubleParser(name);
+            case STRING:    return new StringParser(name);
+            default:        throw new IllegalArgumentException("Unsupported CSV column type: " + type);
+        }
+    }
+
+    /**
+     * Returns the type of column produced by this parser
+     * @return  the column type
+     */
+    abstract ColumnType type();
+
+    /**
+     * Parses the field in the byte range specified and appends its value
+     * @param bytes the buffer holding the field
+     * @param from  the offset of the first byte of the field
+     * @param to    the offset after the last byte of the field
+     * @throws NumberFormatException    if the field cannot be parsed
+     */
+    abstract void parse(byte[] bytes, int from, int to);
+
+    /**
+     * Copies the buffered values into the column specified starting at the row specified
+     * @param column    the target column
+     * @param row       the first row to write
+     */
+    abstract void copyTo(Column column, int row);
+
+    /**
+     * Records the value about to be appended at index size as null
+     */
+    void addNull() {
+        if ((size >>> 6) >= nulls.length) {
+            this.nulls = Arrays.copyOf(nulls, Math.max((size >>> 6) + 1, grow(nulls.length)));
+        }
+        this.nulls[size >>> 6] |= 1L << size;
+        this.nullCount++;
+    }
+
+    /**
+     * Marks the rows of the column that correspond to buffered nulls as null
+     * @param column    the target column
+     * @param row       the row of the column that corresponds to the first buffered value
+     */
+    void copyNulls(Column column, int row) {
+        if (nullCount > 0) {
+            for (int w = 0; w <= (size - 1) >>> 6; ++w) {
+                long bits = nulls[w];
+                while (bits != 0L) {
+                    column.validity().setNull(row + (w << 6) + Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1L;
+                }
+            }
+        }
+    }
+
+    /**
+     * Discards the buffered values while retaining capacity
+     */
+    void reset() {
+        if (nullCount > 0) {
+            Arrays.fill(nulls, 0L);
+            this.nullCount = 0;
+        }
+        this.size = 0;
+    }
+
+    /**
+     * Returns a capacity large enough to hold one more value
+     */
+    static int grow(int capacity) {
+        return Math.max(INITIAL_CAPACITY, capacity + (capacity >> 1));
+    }
+
+
+    /**
+     * A parser for double columns, where blank fields are read as null
+     */
+    static final class DoubleParser extends CsvFieldParser {
+
+        private double[] values = new double[0];
+
+        DoubleParser(String name) {
+            super(name);
+        }
+
+        @Override
+        ColumnType type() {
+            return ColumnType.DOUBLE;
+        }
+
+        @Override
+        void parse(byte[] bytes, int from, int to) {
+            if (size == values.length) {
+                this.values = Arrays.copyOf(values, grow(size));
+            }
+            if (ByteParsers.isBlank(bytes, from, to)) {
+                addNull();
+                this.values[size++] = Double.NaN;
+            } else {
+                this.values[size++] = ByteParsers.parseDouble(bytes, from, to);
+            }
+        }
+
+        @Override
+        void copyTo(Column column, int row) {
+            ((DoubleColumn)column).setDoubles(row, values, 0, size);
+            copyNulls(column, row);
+        }
+    }
+
+
+    /**
+     * A parser for long columns, where blank fields are read as null
+     */
+    static final class LongParser extends CsvFieldParser {
+
+        private long[] values = new long[0];
+
+        LongParser(String name) {
+            super(name);
+        }
+
+        @Override
+        ColumnType type() {
+            return ColumnType.LONG;
+        }
+
+        @Override
+        void parse(byte[] bytes, int from, int to) {
+            if (size == values.length) {
+                this.values = Arrays.copyOf(values, grow(size));
+            }
+            if (ByteParsers.isBlank(bytes, from, to)) {
+                addNull();
+                this.values[size++] = 0L;
+            } else {
+                this.values[size++] = ByteParsers.parseLong(bytes, from, to);
+            }
+        }
+
+        @Override
+        void copyTo(Column column, int row) {
+            ((LongColumn)column).setLongs(row, values, 0, size);
+            copyNulls(column, row);
+        }
+    }
+
+
+    /**
+     * A parser for int columns, where blank fields are read as null
+     */
+    static final class IntParser extends CsvFieldParser {
+
+        private int[] values = new int[0];
+
+        IntParser(String name) {
+            super(name);
+        }
+
+        @Override
+        ColumnType type() {
+            return ColumnType.INT;
+        }
+
+        @Override
+        void parse(byte[] bytes, int from, int to) {
+            if (size == values.length) {
+                this.values = Arrays.copyOf(values, grow(size));
+            }
+            if (ByteParsers.isBlank(bytes, from, to)) {
+                addNull();
+                this.values[size++] = 0;
+            } else {
+                this.values[size++] = ByteParsers.parseInt(bytes, from, to);
+            }
+        }
+
+        @Override
+        void copyTo(Column column, int row) {
+            ((IntColumn)column).setInts(row, values, 0, size);
+            copyNulls(column, row);
+        }
+    }
+
+
+    /**
+     * A parser for boolean columns, which buffers values as packed bits, where blank fields are read as null
+     */
+    static final class BooleanParser extends CsvFieldParser {
+
+        private long[] words = new long[0];
+
+        BooleanParser(String name) {
+            super(name);
+        }
+
+        @Override
+        ColumnType type() {
+            return ColumnType.BOOLEAN;
+        }
+
+        @Override
+        void parse(byte[] bytes, int from, int to) {
+            if ((size >>> 6) == words.length) {
+                this.words = Arrays.copyOf(words, grow(words.length));
+            }
+            if (ByteParsers.isBlank(bytes, from, to)) {
+                addNull();
+                this.words[size >>> 6] &= ~(1L << size);
+            } else if (ByteParsers.parseBoolean(bytes, from, to)) {
+                this.words[size >>> 6] |= 1L << size;
+            } else {
+                this.words[size >>> 6] &= ~(1L << size);
+            }
+            this.size++;
+        }
+
+        @Override
+        void copyTo(Column column, int row) {
+            final BooleanColumn target = (BooleanColumn)column;
+            for (int i = 0; i < size; ++i) {
+                if ((words[i >>> 6] & (1L << i)) != 0L) {
+                    target.setBoolean(row + i, true);
+                }
+            }
+            copyNulls(column, row);
+        }
+    }
+
+
+    /**
+     * A parser for string columns, which interns fields into a dictionary local to the parsing thread,
+     * so that threads never contend, and translates codes into the dictionary of the target column on copy.
+     * Fields are trimmed of surrounding spaces, and blank fields are read as null.
+     */
+    static final class StringParser extends CsvFieldParser {
+
+        private int[] codes = new int[0];
+        private final Dictionary dictionary = new Dictionary();
+
+        StringParser(String name) {
+            super(name);
+        }
+
+        @Override
+        ColumnType type() {
+            return ColumnType.STRING;
+        }
+
+        @Override
+        void parse(byte[] bytes, int from, int to) {
+            if (size == codes.length) {
+                this.codes = Arrays.copyOf(codes, grow(size));
+            }
+            while (from < to && bytes[from] == ' ') from++;
+            while (to > from && bytes[to - 1] == ' ') to--;
+            if (from == to) {
+                this.codes[size++] = 0;
+            } else if (contains(bytes, from, to, (byte)'"')) {
+                this.codes[size++] = dictionary.intern(ByteParsers.text(bytes, from, to));
+            } else {
+                this.codes[size++] = dictionary.intern(bytes, from, to);
+            }
+        }
+
+        @Override
+        void copyTo(Column column, int row) {
+            final StringColumn target = (StringColumn)column;
+            final int[] translation = Columns.translation(dictionary, target.dictionary());
+            if (translation != null) {
+                for (int i = 0; i < size; ++i) {
+                    this.codes[i] = translation[codes[i]];
+                }
+            }
+            target.setCodes(row, codes, 0, size);
+        }
+
+        private static boolean contains(byte[] bytes, int from, int to, byte value) {
+            for (int i = from; i < to; ++i) {
+                if (bytes[i] == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.zavtech.morpheus.io;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.zavtech.morpheus.column.ColumnType;
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.parallel.Morsels;
+
+/**
+ * The options that control how a CsvReader parses delimited text.
+ *
+ * Setters return this instance so that options can be configured fluently.
+ */
+public final class CsvOptions {
+
+    private char delimiter = ',';
+    private boolean header = true;
+    private int sampleRows = 1000;
+    private int batchRows = 65536;
+    private int parallelism = Morsels.getDefaultParallelism();
+    private long minRangeBytes = 1L << 20;
+    private Storage storage = Storage.HEAP;
+    private Set<String> columns = null;
+    private Map<String,ColumnType> types = new LinkedHashMap<>();
+
+    /**
+     * Returns a copy of these options, which may be modified without affecting this instance
+     * @return  the copy of these options
+     */
+    public CsvOptions copy() {
+        final CsvOptions copy = new CsvOptions();
+        copy.delimiter = delimiter;
+        copy.header = header;
+        copy.sampleRows = sampleRows;
+        copy.batchRows = batchRows;
+        copy.parallelism = parallelism;
+        copy.minRangeBytes = minRangeBytes;
+        copy.storage = storage;
+        copy.columns = columns == null ? null : new LinkedHashSet<>(columns);
+        copy.types = new LinkedHashMap<>(types);
+        return copy;
+    }
+
+    /**
+     * Returns the field delimiter, which defaults to a comma
+     * @return  the field delimiter
+     */
+    public char getDelimiter() {
+        return delimiter;
+    }
+
+    /**
+     * Sets the field delimiter
+     * @param delimiter the field delimiter
+     * @return          these options
+     */
+    public CsvOptions setDelimiter(char delimiter) {
+        if (delimiter == '"' || delimiter == '\n' || delimiter == '\r') {
+            throw new IllegalArgumentException("Illegal CSV delimiter: " + delimiter);
+        }
+        this.delimiter = delimiter;
+        return this;
+    }
+
+    /**
+     * Returns true if the first line holds column names, which is the default
+     * @return  true if the file has a header
+     */
+    public boolean isHeader() {
+        return header;
+    }
+
+    /**
+     * Sets whether the first line holds column names, otherwise columns are named column0, column1 and so on
+     * @param header    true if the file has a header
+     * @return          these options
+     */
+    public CsvOptions setHeader(boolean header) {
+        this.header = header;
+        return this;
+    }
+
+    /**
+     * Returns the number of leading rows sampled to infer column types
+     * @return  the sample size in rows
+     */
+    public int getSampleRows() {
+        return sampleRows;
+    }
+
+    /**
+     * Sets the number of leading rows sampled to infer column types
+     * @param sampleRows    the sample size in rows
+     * @return              these options
+     */
+    public CsvOptions setSampleRows(int sampleRows) {
+        if (sampleRows < 1) {
+            throw new IllegalArgumentException("The sample rows must be > 0");
+        }
+        this.sampleRows = sampleRows;
+        return this;
+    }
+
+    /**
+     * Returns the number of rows per frame emitted in streaming mode
+     * @return  the batch size in rows
+     */
+    public int getBatchRows() {
+        return batchRows;
+    }
+
+    /**
+     * Sets the number of rows per frame emitted in streaming mode, which bounds the memory used by the reader
+     * @param batchRows the batch size in rows
+     * @return          these options
+     */
+    public CsvOptions setBatchRows(int batchRows) {
+        if (batchRows < 1) {
+            throw new IllegalArgumentException("The batch rows must be > 0");
+        }
+        this.batchRows = batchRows;
+        return this;
+    }
+
+    /**
+     * Returns the max number of threads used to parse a file
+     * @return  the parallelism
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the max number of threads used to parse a file, where 1 parses sequentially.
+     * Parallel parsing requires that quoted fields do not contain line breaks.
+     * @param parallelism   the parallelism
+     * @return              these options
+     */
+    public CsvOptions setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be > 0");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Returns the min number of bytes in a byte range that is parsed by a single thread
+     * @return  the min range size in bytes
+     */
+    public long getMinRangeBytes() {
+        return minRangeBytes;
+    }
+
+    /**
+     * Sets the min number of bytes in a byte range that is parsed by a single thread
+     * @param minRangeBytes the min range size in bytes
+     * @return              these options
+     */
+    public CsvOptions setMinRangeBytes(long minRangeBytes) {
+        if (minRangeBytes < 1) {
+            throw new IllegalArgumentException("The min range bytes must be > 0");
+        }
+        this.minRangeBytes = minRangeBytes;
+        return this;
+    }
+
+    /**
+     * Returns the storage for the columns of frames created by the reader
+     * @return  the column storage
+     */
+    public Storage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Sets the storage for the columns of frames created by the reader
+     * @param storage   the column storage, either HEAP or OFF_HEAP
+     * @return          these options
+     */
+    public CsvOptions setStorage(Storage storage) {
+        if (storage == Storage.MAPPED) {
+            throw new IllegalArgumentException("A CSV file cannot be read into mapped storage");
+        }
+        this.storage = storage;
+        return this;
+    }
+
+    /**
+     * Returns the names of the columns to read, or null to read all columns
+     * @return  the column names to read, or null
+     */
+    public Set<String> getColumns() {
+        return columns == null ? null : Collections.unmodifiableSet(columns);
+    }
+
+    /**
+     * Restricts the reader to the columns specified, the values of other columns are skipped without parsing
+     * @param columns   the column names to read
+     * @return          these options
+     */
+    public CsvOptions setColumns(String... columns) {
+        this.columns = new LinkedHashSet<>(Arrays.asList(columns));
+        return this;
+    }
+
+    /**
+     * Returns the column types declared explicitly, which bypass inference
+     * @return  the declared column types
+     */
+    public Map<String,ColumnType> getTypes() {
+        return Collections.unmodifiableMap(types);
+    }
+
+    /**
+     * Declares the type of a column explicitly, bypassing inference for that column
+     * @param column    the column name
+     * @param type      the column type
+     * @return          these options
+     */
+    public CsvOptions setType(String column, ColumnType type) {
+        this.types.put(column, type);
+        return this;
+    }
+}
@@ -0,0 +1,615 @@
+package com.zavtech.morpheus.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.ColumnType;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.parallel.Morsels;
+
+/**
+ * A reader that parses delimited text files into DataFrames.
+ *
+ * Column types are inferred from a sample of leading rows, choosing the narrowest of
+ * INT, LONG, DOUBLE or BOOLEAN that fits every sampled value, unless declared explicitly
+ * in the options. Blank fields are read as nulls in columns of any type. Columns holding
+ * any other text are read as dictionary encoded STRING columns. A later value that does
+ * not fit an inferred type widens the column, from INT to LONG to DOUBLE and from any
+ * type to STRING, and the rows parsed so far are parsed again as the wider type, while
+ * a value that does not fit a declared type fails the read.
+ *
+ * read() splits the file into byte ranges aligned on line breaks, which up to parallelism
+ * workers claim in order and parse concurrently, writing values straight into primitive
+ * buffers that are copied into the final columns once all ranges are complete. Ranges that
+ * were parsed as narrower types than another range widened to are parsed again. stream() parses
+ * the file sequentially and emits frames of a bounded number of rows, so that files larger
+ * than memory can be processed, where a widened column has its wider type from the frame
+ * holding the value that widened it onwards.
+ *
+ * Fields may be quoted with double quotes to include the delimiter, but line breaks
+ * within quoted fields are not supported.
+ */
+public final class CsvReader {
+
+    private static final int BLOCK_SIZE = 1 << 20;
+
+    private final CsvOptions options;
+
+    /**
+     * Constructor
+     * @param options   the options for this reader
+     */
+    public CsvReader(CsvOptions options) {
+        this.options = Objects.requireNonNull(options, "The CSV options cannot be null");
+    }
+
+    /**
+     * Returns a reader with default options
+     * @return  the new reader
+     */
+    public static CsvReader create() {
+        return new CsvReader(new CsvOptions());
+    }
+
+    /**
+     * Reads the entire file specified into a DataFrame, parsing byte ranges in parallel
+     * @param path  the file path
+     * @return      the frame holding all rows in file order
+     * @throws DataFrameException   if the file cannot be read or parsed
+     */
+    public DataFrame read(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final Schema schema = schema(channel);
+            final long[] bounds = ranges(channel, schema.dataStart);
+            final Morsels morsels = Morsels.create().setParallelism(options.getParallelism());
+            final ColumnType[] inferred = schema.types.toArray(new ColumnType[0]);
+            final List<Callable<RangeParser>> tasks = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i < bounds.length - 1; ++i) {
+                tasks.add(task(channel, schema, inferred, bounds[i], bounds[i + 1]));
+            }
+            final List<RangeParser> parsers = new ArrayList<>(morsels.invokeAll(tasks));
+            final ColumnType[] types = inferred.clone();
+            while (true) {
+                for (RangeParser parser : parsers) {
+                    for (int j = 0; j < types.length; ++j) {
+                        types[j] = wider(types[j], parser.types[j]);
+                    }
+                }
+                final List<Integer> stale = new ArrayList<>();
+                final List<Callable<RangeParser>> retries = new ArrayList<>();
+                for (int i = 0; i < parsers.size(); ++i) {
+                    if (!Arrays.equals(parsers.get(i).types, types)) {
+                        stale.add(i);
+                        retries.add(task(channel, schema, types.clone(), bounds[i], bounds[i + 1]));
+                    }
+                }
+                if (retries.isEmpty()) {
+                    break;
+                }
+                final List<RangeParser> reparsed = morsels.invokeAll(retries);
+                for (int k = 0; k < stale.size(); ++k) {
+                    parsers.set(stale.get(k), reparsed.get(k));
+                }
+            }
+            int rowCount = 0;
+            for (RangeParser parser : parsers) {
+                rowCount += parser.rows;
+            }
+            final List<Column> columns = new ArrayList<>(schema.names.size());
+            for (int j = 0; j < schema.names.size(); ++j) {
+                columns.add(Columns.create(schema.names.get(j), types[j], rowCount, options.getStorage()));
+            }
+            int row = 0;
+            for (RangeParser parser : parsers) {
+                parser.copyTo(columns, row);
+                row += parser.rows;
+            }
+            return DataFrame.of(columns);
+        } catch (Exception ex) {
+            throw failure(path, ex);
+        }
+    }
+
+    /**
+     * Parses the file specified sequentially, passing frames of at most batchRows rows to the consumer.
+     * Each frame is newly allocated and may be retained by the consumer.
+     * @param path      the file path
+     * @param consumer  the consumer of frames in file order
+     * @throws DataFrameException   if the file cannot be read or parsed
+     */
+    public void stream(Path path, Consumer<DataFrame> consumer) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final Schema schema = schema(channel);
+            final RangeParser parser = new RangeParser(schema, schema.types.toArray(new ColumnType[0]));
+            final Consumer<RangeParser> emitter = p -> {
+                final List<Column> columns = new ArrayList<>(schema.names.size());
+                for (int j = 0; j < schema.names.size(); ++j) {
+                    columns.add(Columns.create(schema.names.get(j), p.types[j], p.rows, options.getStorage()));
+                }
+                p.copyTo(columns, 0);
+                p.reset();
+                consumer.accept(DataFrame.of(columns));
+            };
+            parser.parse(channel, schema.dataStart, channel.size(), emitter);
+            if (parser.rows > 0) {
+                emitter.accept(parser);
+            }
+        } catch (Exception ex) {
+            throw failure(path, ex);
+        }
+    }
+
+    /**
+     * Returns the names of all columns in the file specified, from the header line if present
+     * or as column0, column1 and so on otherwise, without sampling or inferring types
+     * @param path  the file path
+     * @return      the column names in file order
+     * @throws DataFrameException   if the file cannot be read
+     */
+    public List<String> columnNames(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final byte[] bytes = new byte[(int)Math.min(channel.size(), 1L << 20)];
+            final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+                // Fill the header buffer
+            }
+            final int limit = buffer.position();
+            int position = 0;
+            while (position < limit) {
+                int end = position;
+                while (end < limit && bytes[end] != '\n') end++;
+                final int lineEnd = end > position && bytes[end - 1] == '\r' ? end - 1 : end;
+                if (lineEnd > position) {
+                    final int[] fields = split(bytes, position, lineEnd, options.getDelimiter(), new int[64]);
+                    final List<String> names = new ArrayList<>(fields[0]);
+                    for (int i = 0; i < fields[0]; ++i) {
+                        final String text = ByteParsers.text(bytes, fields[2 * i + 1], fields[2 * i + 2]).trim();
+                        names.add(options.isHeader() ? text : "column" + i);
+                    }
+                    return names;
+                }
+                position = end + 1;
+            }
+            if (options.isHeader()) {
+                throw new DataFrameException("No header line found in CSV file");
+            }
+            return new ArrayList<>();
+        } catch (Exception ex) {
+            throw failure(path, ex);
+        }
+    }
+
+    /**
+     * Returns a task that parses the byte range specified with the column types specified
+     */
+    private Callable<RangeParser> task(FileChannel channel, Schema schema, ColumnType[] types, long start, long end) {
+        return () -> {
+            final RangeParser parser = new RangeParser(schema, types);
+            parser.parse(channel, start, end, null);
+            return parser;
+        };
+    }
+
+    /**
+     * Returns the exception to throw for a failure to read the file specified
+     */
+    private static DataFrameException failure(Path path, Throwable cause) {
+        if (cause instanceof DataFrameException) {
+            return (DataFrameException)cause;
+        } else {
+            return new DataFrameException("Failed to read CSV file " + path + ": " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Returns the file positions that bound the byte ranges to parse, each starting at the beginning of a line
+     */
+    private long[] ranges(FileChannel channel, long dataStart) throws IOException {
+        final long size = channel.size();
+        final long length = size - dataStart;
+        final int count = (int)Math.max(1L, Math.min(options.getParallelism() * 4L, length / options.getMinRangeBytes()));
+        final long[] bounds = new long[count + 1];
+        bounds[0] = dataStart;
+        bounds[count] = size;
+        for (int i = 1; i < count; ++i) {
+            final long target = dataStart + length * i / count;
+            bounds[i] = Math.max(bounds[i - 1], lineAfter(channel, target - 1));
+        }
+        return bounds;
+    }
+
+    /**
+     * Returns the position just after the first line break at or after the position specified
+     */
+    private static long lineAfter(FileChannel channel, long position) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (true) {
+            buffer.clear();
+            final int count = channel.read(buffer, position);
+            if (count < 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < count; ++i) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += count;
+        }
+    }
+
+    /**
+     * Resolves column names and types from the header and a sample of leading rows
+     */
+    private Schema schema(FileChannel channel) throws IOException {
+        final char delimiter = options.getDelimiter();
+        final List<String[]> sample = new ArrayList<>();
+        final byte[] bytes = new byte[(int)Math.min(channel.size(), 8L << 20)];
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+            // Fill the sample buffer
+        }
+        final int limit = buffer.position();
+        int[] fields = new int[64];
+        int position = 0;
+        long dataStart = 0L;
+        String[] header = null;
+        while (position < limit && sample.size() < options.getSampleRows()) {
+            int end = position;
+            while (end < limit && bytes[end] != '\n') end++;
+            final boolean complete = end < limit || limit == channel.size();
+            if (!complete) {
+                break;
+            }
+            int lineEnd = end > position && bytes[end - 1] == '\r' ? end - 1 : end;
+            if (lineEnd > position) {
+                fields = split(bytes, position, lineEnd, delimiter, fields);
+                final String[] values = new String[fields[0]];
+                for (int i = 0; i < values.length; ++i) {
+                    values[i] = ByteParsers.text(bytes, fields[2 * i + 1], fields[2 * i + 2]).trim();
+                }
+                if (header == null && options.isHeader()) {
+                    header = values;
+                    dataStart = end + 1;
+                } else {
+                    sample.add(values);
+                }
+            }
+            position = end + 1;
+        }
+        if (header == null) {
+            if (options.isHeader()) {
+                throw new DataFrameException("No header line found in CSV file");
+            }
+            header = new String[sample.isEmpty() ? 0 : sample.get(0).length];
+            for (int i = 0; i < header.length; ++i) {
+                header[i] = "column" + i;
+            }
+        }
+        return new Schema(header, sample, Math.min(dataStart, channel.size()));
+    }
+
+    /**
+     * Locates the fields of a line, storing the field count followed by the start and end of each field
+     * @param bytes     the buffer holding the line
+     * @param from      the offset of the first byte of the line
+     * @param to        the offset after the last byte of the line, excluding line break characters
+     * @param delimiter the field delimiter
+     * @param fields    the array to store field bounds, which is grown if necessary
+     * @return          the field bounds array
+     */
+    static int[] split(byte[] bytes, int from, int to, char delimiter, int[] fields) {
+        int count = 0;
+        int i = from;
+        while (true) {
+            final int start;
+            final int end;
+            if (i < to && bytes[i] == '"') {
+                int j = i + 1;
+                while (j < to) {
+                    if (bytes[j] != '"') {
+                        j++;
+                    } else if (j + 1 < to && bytes[j + 1] == '"') {
+                        j += 2;
+                    } else {
+                        break;
+                    }
+                }
+                start = i + 1;
+                end = j;
+                i = Math.min(j + 1, to);
+                while (i < to && bytes[i] != delimiter) i++;
+            } else {
+                start = i;
+                while (i < to && bytes[i] != delimiter) i++;
+                end = i;
+            }
+            if (2 * count + 3 > fields.length) {
+                fields = Arrays.copyOf(fields, fields.length * 2);
+            }
+            fields[2 * count + 1] = start;
+            fields[2 * count + 2] = end;
+            count++;
+            if (i >= to) {
+                break;
+            }
+            i++;
+        }
+        fields[0] = count;
+        return fields;
+    }
+
+    /**
+     * Returns the narrowest column type that can represent all of the sampled values
+     */
+    private static ColumnType infer(List<String[]> sample, int index) {
+        boolean ints = true, longs = true, doubles = true, booleans = true;
+        boolean any = false;
+        for (String[] row : sample) {
+            final String value = index < row.length ? row[index] : "";
+            if (value.isEmpty()) {
+                continue;
+            }
+            any = true;
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ints = ints && parses(() -> ByteParsers.parseInt(bytes, 0, bytes.length));
+            longs = longs && (ints || parses(() -> ByteParsers.parseLong(bytes, 0, bytes.length)));
+            doubles = doubles && (longs || parses(() -> ByteParsers.parseDouble(bytes, 0, bytes.length)));
+            booleans = booleans && parses(() -> ByteParsers.parseBoolean(bytes, 0, bytes.length));
+            if (!doubles && !booleans) {
+                return ColumnType.STRING;
+            }
+        }
+        if (!any) {
+            return ColumnType.DOUBLE;
+        } else if (booleans) {
+            return ColumnType.BOOLEAN;
+        } else if (ints) {
+            return ColumnType.INT;
+        } else if (longs) {
+            return ColumnType.LONG;
+        } else {
+            return ColumnType.DOUBLE;
+        }
+    }
+
+    /**
+     * Returns the narrowest type wider than the type specified that can represent the field, going from INT to LONG to DOUBLE and from any type to STRING
+     */
+    private static ColumnType widen(ColumnType type, byte[] bytes, int from, int to) {
+        if (type == ColumnType.INT && parses(() -> ByteParsers.parseLong(bytes, from, to))) {
+            return ColumnType.LONG;
+        } else if ((type == ColumnType.INT || type == ColumnType.LONG) && parses(() -> ByteParsers.parseDouble(bytes, from, to))) {
+            return ColumnType.DOUBLE;
+        } else {
+            return ColumnType.STRING;
+        }
+    }
+
+    /**
+     * Returns the narrowest type that can represent the values of both types specified
+     */
+    private static ColumnType wider(ColumnType left, ColumnType right) {
+        if (left == right) {
+            return left;
+        } else if (left == ColumnType.BOOLEAN || right == ColumnType.BOOLEAN || left == ColumnType.STRING || right == ColumnType.STRING) {
+            return ColumnType.STRING;
+        } else {
+            return left.ordinal() > right.ordinal() ? left : right;
+        }
+    }
+
+    private static boolean parses(Runnable parser) {
+        try {
+            parser.run();
+            return true;
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+
+
+    /**
+     * The resolved layout of a CSV file, naming and typing the columns that are read
+     */
+    private final class Schema {
+
+        private final long dataStart;
+        private final String[] header;
+        private final List<String> names = new ArrayList<>();
+        private final List<ColumnType> types = new ArrayList<>();
+        private final int[] outputIndex;
+
+        Schema(String[] header, List<String[]> sample, long dataStart) {
+            this.header = header;
+            this.dataStart = dataStart;
+            this.outputIndex = new int[header.length];
+            final Set<String> selected = options.getColumns();
+            final Map<String,ColumnType> declared = options.getTypes();
+            for (int i = 0; i < header.length; ++i) {
+                if (selected == null || selected.contains(header[i])) {
+                    final ColumnType type = declared.get(header[i]);
+                    this.outputIndex[i] = names.size();
+                    this.names.add(header[i]);
+                    this.types.add(type != null ? type : infer(sample, i));
+                } else {
+                    this.outputIndex[i] = -1;
+                }
+            }
+            if (selected != null && !names.containsAll(selected)) {
+                throw new DataFrameException("CSV file has no columns named " + selected + ", columns are " + Arrays.asList(header));
+            }
+        }
+    }
+
+
+    /**
+     * Parses the lines that start within a byte range into per-column primitive buffers
+     */
+    private final class RangeParser {
+
+        private final Schema schema;
+        private final ColumnType[] types;
+        private final boolean[] declared;
+        private final CsvFieldParser[] parsers;
+        private final CsvFieldParser[] byField;
+        private int[] fields = new int[64];
+        private int rows;
+
+        RangeParser(Schema schema, ColumnType[] types) {
+            this.schema = schema;
+            this.types = types.clone();
+            this.declared = new boolean[types.length];
+            this.parsers = new CsvFieldParser[types.length];
+            this.byField = new CsvFieldParser[schema.header.length];
+            for (int j = 0; j < types.length; ++j) {
+                this.declared[j] = options.getTypes().containsKey(schema.names.get(j));
+            }
+            this.configure();
+        }
+
+        /**
+         * Creates empty field parsers for the current column types, discarding any buffered rows
+         */
+        private void configure() {
+            for (int j = 0; j < parsers.length; ++j) {
+                this.parsers[j] = CsvFieldParser.create(schema.names.get(j), types[j]);
+            }
+            for (int i = 0; i < byField.length; ++i) {
+                this.byField[i] = schema.outputIndex[i] < 0 ? null : parsers[schema.outputIndex[i]];
+            }
+            this.rows = 0;
+        }
+
+        /**
+         * Parses all lines that start in [start, end), reading past end only to complete the last line.
+         * A field that does not fit the inferred type of its column widens the column, and the rows buffered
+         * since the last emitted batch are parsed again.
+         * @param channel   the file channel
+         * @param start     the position of the first line
+         * @param end       the position after which no new lines are started
+         * @param emitter   if not null, receives this parser each time it buffers batchRows rows
+         */
+        void parse(FileChannel channel, long start, long end, Consumer<RangeParser> emitter) throws IOException {
+            long from = start;
+            while ((from = scan(channel, from, end, emitter)) >= 0L) {
+                this.configure();
+            }
+        }
+
+        /**
+         * Parses lines starting at the position specified until the end of the range or until a column is widened
+         * @return  -1 once the range is complete, otherwise the position of the first line buffered when a column was widened
+         */
+        private long scan(FileChannel channel, long start, long end, Consumer<RangeParser> emitter) throws IOException {
+            final int batchRows = options.getBatchRows();
+            long batchStart = start;
+            byte[] buffer = new byte[(int)Math.min(BLOCK_SIZE, Math.max(1024L, end - start + 1024L))];
+            long base = start;
+            int length = 0;
+            while (true) {
+                final int count = channel.read(ByteBuffer.wrap(buffer, length, buffer.length - length), base + length);
+                final boolean eof = count < 0;
+                length += Math.max(count, 0);
+                int lineStart = 0;
+                while (lineStart < length) {
+                    if (base + lineStart >= end) {
+                        return -1L;
+                    }
+                    int lineEnd = lineStart;
+                    while (lineEnd < length && buffer[lineEnd] != '\n') lineEnd++;
+                    if (lineEnd == length && !eof) {
+                        break;
+                    }
+                    if (!parseLine(buffer, lineStart, lineEnd, base + lineStart)) {
+                        return batchStart;
+                    }
+                    lineStart = lineEnd + 1;
+                    if (emitter != null && rows == batchRows) {
+                        emitter.accept(this);
+                        batchStart = base + lineStart;
+                    }
+                }
+                if (eof || lineStart >= length && base + length >= end) {
+                    return -1L;
+                } else if (lineStart == 0 && length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                } else {
+                    System.arraycopy(buffer, lineStart, buffer, 0, length - lineStart);
+                    base += lineStart;
+                    length -= lineStart;
+                }
+            }
+        }
+
+        /**
+         * Parses a single line, skipping blank lines
+         * @return  true if the line was parsed, false if a field widened the type of its column
+         */
+        private boolean parseLine(byte[] bytes, int from, int to, long position) {
+            if (to > from && bytes[to - 1] == '\r') {
+                to--;
+            }
+            if (to == from) {
+                return true;
+            }
+            this.fields = split(bytes, from, to, options.getDelimiter(), fields);
+            final int count = fields[0];
+            for (int i = 0; i < byField.length; ++i) {
+                final CsvFieldParser parser = byField[i];
+                if (parser != null) {
+                    try {
+                        if (i < count) {
+                            parser.parse(bytes, fields[2 * i + 1], fields[2 * i + 2]);
+                        } else {
+                            parser.parse(bytes, to, to);
+                        }
+                    } catch (NumberFormatException ex) {
+                        final int j = schema.outputIndex[i];
+                        if (declared[j]) {
+                            throw new DataFrameException("Cannot parse " + parser.type() + " for column " + parser.name + " in line at byte " + position + ": " + ex.getMessage(), ex);
+                        }
+                        this.types[j] = widen(types[j], bytes, fields[2 * i + 1], fields[2 * i + 2]);
+                        return false;
+                    }
+                }
+            }
+            this.rows++;
+            return true;
+        }
+
+        /**
+         * Copies the buffered values of each column into the target columns starting at the row specified
+         */
+        void copyTo(List<Column> columns, int row) {
+            for (int j = 0; j < parsers.length; ++j) {
+                this.parsers[j].copyTo(columns.get(j), row);
+            }
+        }
+
+        /**
+         * Discards buffered rows while retaining capacity
+         */
+        void reset() {
+            for (CsvFieldParser parser : parsers) {
+                parser.reset();
+            }
+            this.rows = 0;
+        }
+    }
+}
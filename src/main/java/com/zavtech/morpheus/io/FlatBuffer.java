@@ -0,0 +1,418 @@
+package com.zavtech.morpheus.io;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A minimal reader and builder for the FlatBuffers binary format, sufficient for the metadata of Arrow IPC messages.
+ *
+ * A buffer starts with an offset to its root table. Each table starts with a signed offset
+ * to its vtable, which holds the size of the vtable and of the table followed by the offset of
+ * every field within the table, zero for an absent field that takes its default. References
+ * to tables, strings and vectors are unsigned offsets relative to where they are stored, and
+ * must point forward. All values are little endian and aligned to their size.
+ *
+ * The builder serializes a tree of table nodes front to back, writing each vtable just before
+ * its table and every child after its parent, which readers accept like the back to front
+ * layout of the reference implementation.
+ */
+final class FlatBuffer {
+
+    private FlatBuffer() {
+        super();
+    }
+
+    /**
+     * Returns the root table of a buffer
+     * @param buffer    the buffer, whose position marks the start of the flatbuffer
+     * @return          the root table
+     */
+    static Table root(ByteBuffer buffer) {
+        final ByteBuffer bytes = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        return new Table(bytes, bytes.getInt(0));
+    }
+
+
+    /**
+     * A read only view of a table within a buffer
+     */
+    static final class Table {
+
+        private final ByteBuffer bytes;
+        private final int position;
+        private final int vtable;
+        private final int vtableSize;
+
+        /**
+         * Constructor
+         * @param bytes     the buffer holding the table
+         * @param position  the position of the table in the buffer
+         */
+        Table(ByteBuffer bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+            this.vtable = position - bytes.getInt(position);
+            this.vtableSize = bytes.getShort(vtable) & 0xFFFF;
+        }
+
+        /**
+         * Returns the position of a field in the buffer, or zero if the field is absent
+         */
+        private int field(int index) {
+            final int entry = 4 + 2 * index;
+            if (entry >= vtableSize) {
+                return 0;
+            }
+            final int offset = bytes.getShort(vtable + entry) & 0xFFFF;
+            return offset == 0 ? 0 : position + offset;
+        }
+
+        /**
+         * Returns the position that the reference held by a field points to, or zero if the field is absent
+         */
+        private int target(int index) {
+            final int field = field(index);
+            return field == 0 ? 0 : field + bytes.getInt(field);
+        }
+
+        boolean has(int index) {
+            return field(index) != 0;
+        }
+
+        boolean getBoolean(int index, boolean defaultValue) {
+            final int field = field(index);
+            return field == 0 ? defaultValue : bytes.get(field) != 0;
+        }
+
+        int getByte(int index, int defaultValue) {
+            final int field = field(index);
+            return field == 0 ? defaultValue : bytes.get(field) & 0xFF;
+        }
+
+        short getShort(int index, short defaultValue) {
+            final int field = field(index);
+            return field == 0 ? defaultValue : bytes.getShort(field);
+        }
+
+        int getInt(int index, int defaultValue) {
+            final int field = field(index);
+            return field == 0 ? defaultValue : bytes.getInt(field);
+        }
+
+        long getLong(int index, long defaultValue) {
+            final int field = field(index);
+            return field == 0 ? defaultValue : bytes.getLong(field);
+        }
+
+        /**
+         * Returns the table referenced by a field
+         * @param index the field index
+         * @return      the table, or null if the field is absent
+         */
+        Table getTable(int index) {
+            final int target = target(index);
+            return target == 0 ? null : new Table(bytes, target);
+        }
+
+        /**
+         * Returns the string referenced by a field
+         * @param index the field index
+         * @return      the string, or null if the field is absent
+         */
+        String getString(int index) {
+            final int target = target(index);
+            if (target == 0) {
+                return null;
+            }
+            final byte[] utf8 = new byte[bytes.getInt(target)];
+            for (int i = 0; i < utf8.length; ++i) {
+                utf8[i] = bytes.get(target + 4 + i);
+            }
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Returns the number of elements of the vector referenced by a field
+         * @param index the field index
+         * @return      the vector length, zero if the field is absent
+         */
+        int getVectorLength(int index) {
+            final int target = target(index);
+            return target == 0 ? 0 : bytes.getInt(target);
+        }
+
+        /**
+         * Returns a table element of the vector referenced by a field
+         * @param index     the field index
+         * @param element   the element index
+         * @return          the table
+         */
+        Table getTable(int index, int element) {
+            final int slot = target(index) + 4 + 4 * element;
+            return new Table(bytes, slot + bytes.getInt(slot));
+        }
+
+        /**
+         * Returns a long within a struct element of the vector referenced by a field
+         * @param index         the field index
+         * @param element       the element index
+         * @param structSize    the size of each struct in bytes
+         * @param offset        the offset of the long within the struct
+         * @return              the value
+         */
+        long getStructLong(int index, int element, int structSize, int offset) {
+            return bytes.getLong(target(index) + 4 + element * structSize + offset);
+        }
+
+        /**
+         * Returns an int within a struct element of the vector referenced by a field
+         * @param index         the field index
+         * @param element       the element index
+         * @param structSize    the size of each struct in bytes
+         * @param offset        the offset of the int within the struct
+         * @return              the value
+         */
+        int getStructInt(int index, int element, int structSize, int offset) {
+            return bytes.getInt(target(index) + 4 + element * structSize + offset);
+        }
+    }
+
+
+    /**
+     * A table under construction, whose fields are scalars or references to other nodes
+     */
+    static final class Builder {
+
+        private final List<Slot> slots = new ArrayList<>();
+
+        Builder addBoolean(int index, boolean value) {
+            return scalar(index, 1, value ? 1L : 0L);
+        }
+
+        Builder addByte(int index, int value) {
+            return scalar(index, 1, value);
+        }
+
+        Builder addShort(int index, int value) {
+            return scalar(index, 2, value);
+        }
+
+        Builder addInt(int index, int value) {
+            return scalar(index, 4, value);
+        }
+
+        Builder addLong(int index, long value) {
+            return scalar(index, 8, value);
+        }
+
+        /**
+         * Adds a reference to a table
+         * @param index the field index
+         * @param table the table, or null to leave the field absent
+         * @return      this builder
+         */
+        Builder addTable(int index, Builder table) {
+            if (table != null) {
+                this.slots.add(new Slot(index, 4, 0L, table));
+            }
+            return this;
+        }
+
+        /**
+         * Adds a reference to a string
+         * @param index the field index
+         * @param value the string, or null to leave the field absent
+         * @return      this builder
+         */
+        Builder addString(int index, String value) {
+            if (value != null) {
+                this.slots.add(new Slot(index, 4, 0L, value.getBytes(StandardCharsets.UTF_8)));
+            }
+            return this;
+        }
+
+        /**
+         * Adds a reference to a vector of tables
+         * @param index     the field index
+         * @param tables    the tables
+         * @return          this builder
+         */
+        Builder addTables(int index, List<Builder> tables) {
+            this.slots.add(new Slot(index, 4, 0L, new ArrayList<>(tables)));
+            return this;
+        }
+
+        /**
+         * Adds a reference to a vector of structs, each made up of 8-byte aligned fields
+         * @param index     the field index
+         * @param count     the number of structs
+         * @param structs   the little endian bytes of the structs, whose length must be a multiple of 8
+         * @return          this builder
+         */
+        Builder addStructs(int index, int count, ByteBuffer structs) {
+            this.slots.add(new Slot(index, 4, count, structs));
+            return this;
+        }
+
+        private Builder scalar(int index, int size, long value) {
+            this.slots.add(new Slot(index, size, value, null));
+            return this;
+        }
+
+        /**
+         * Serializes this table as the root of a new flatbuffer
+         * @return  the buffer, positioned at zero with its limit at the end of the flatbuffer
+         */
+        ByteBuffer build() {
+            final Writer writer = new Writer();
+            writer.reserve(4);
+            writer.bytes.putInt(0, writer.table(this));
+            writer.bytes.limit(writer.size).position(0);
+            return writer.bytes;
+        }
+    }
+
+
+    /**
+     * A field of a table under construction
+     */
+    private static final class Slot {
+
+        private final int index;
+        private final int size;
+        private final long value;
+        private final Object child;
+
+        Slot(int index, int size, long value, Object child) {
+            this.index = index;
+            this.size = size;
+            this.value = value;
+            this.child = child;
+        }
+    }
+
+
+    /**
+     * Serializes builders front to back into a growable buffer
+     */
+    private static final class Writer {
+
+        private ByteBuffer bytes = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        private int size;
+
+        /**
+         * Reserves the number of bytes specified at the end of the buffer and returns their position
+         */
+        private int reserve(int count) {
+            if (size + count > bytes.capacity()) {
+                final ByteBuffer grown = ByteBuffer.allocate(Math.max(bytes.capacity() * 2, size + count)).order(ByteOrder.LITTLE_ENDIAN);
+                grown.put(bytes.array(), 0, size);
+                this.bytes = grown;
+            }
+            final int position = size;
+            this.size += count;
+            return position;
+        }
+
+        /**
+         * Pads the buffer with zeros until its size plus the bias is a multiple of the alignment
+         */
+        private void align(int alignment, int bias) {
+            while (((size + bias) & (alignment - 1)) != 0) {
+                reserve(1);
+            }
+        }
+
+        /**
+         * Writes a table, its vtable and then its children, returning the position of the table
+         */
+        private int table(Builder table) {
+            final List<Slot> slots = new ArrayList<>(table.slots);
+            slots.sort((a, b) -> Integer.compare(b.size, a.size));
+            int fieldCount = 0;
+            int alignment = 4;
+            for (Slot slot : slots) {
+                fieldCount = Math.max(fieldCount, slot.index + 1);
+                alignment = Math.max(alignment, slot.size);
+            }
+            final int[] offsets = new int[slots.size()];
+            int tableSize = 4;
+            for (int i = 0; i < slots.size(); ++i) {
+                final int fieldSize = slots.get(i).size;
+                tableSize = (tableSize + fieldSize - 1) & -fieldSize;
+                offsets[i] = tableSize;
+                tableSize += fieldSize;
+            }
+            align(2, 0);
+            final int vtable = reserve(4 + 2 * fieldCount);
+            bytes.putShort(vtable, (short)(4 + 2 * fieldCount));
+            bytes.putShort(vtable + 2, (short)tableSize);
+            for (int i = 0; i < slots.size(); ++i) {
+                bytes.putShort(vtable + 4 + 2 * slots.get(i).index, (short)offsets[i]);
+            }
+            align(alignment, 0);
+            final int position = reserve(tableSize);
+            bytes.putInt(position, position - vtable);
+            for (int i = 0; i < slots.size(); ++i) {
+                final Slot slot = slots.get(i);
+                final int field = position + offsets[i];
+                switch (slot.size) {
+                    case 1: bytes.put(field, (byte)slot.value);         break;
+                    case 2: bytes.putShort(field, (short)slot.value);   break;
+                    case 4: bytes.putInt(field, (int)slot.value);       break;
+                    case 8: bytes.putLong(field, slot.value);           break;
+                    default: throw new IllegalStateException("Unsupported field size: " + slot.size);
+                }
+            }
+            for (int i = 0; i < slots.size(); ++i) {
+                final Slot slot = slots.get(i);
+                if (slot.child != null) {
+                    final int field = position + offsets[i];
+                    bytes.putInt(field, child(slot) - field);
+                }
+            }
+            return position;
+        }
+
+        /**
+         * Writes the child of a reference field and returns its position
+         */
+        @SuppressWarnings("unchecked")
+        private int child(Slot slot) {
+            if (slot.child instanceof Builder) {
+                return table((Builder)slot.child);
+            } else if (slot.child instanceof byte[]) {
+                final byte[] utf8 = (byte[])slot.child;
+                align(4, 0);
+                final int position = reserve(4 + utf8.length + 1);
+                bytes.putInt(position, utf8.length);
+                for (int i = 0; i < utf8.length; ++i) {
+                    bytes.put(position + 4 + i, utf8[i]);
+                }
+                return position;
+            } else if (slot.child instanceof ByteBuffer) {
+                final ByteBuffer structs = ((ByteBuffer)slot.child).duplicate();
+                align(8, 4);
+                final int position = reserve(4 + structs.remaining());
+                bytes.putInt(position, (int)slot.value);
+                for (int i = 0; structs.hasRemaining(); ++i) {
+                    bytes.put(position + 4 + i, structs.get());
+                }
+                return position;
+            } else {
+                final List<Builder> tables = (List<Builder>)slot.child;
+                align(4, 0);
+                final int position = reserve(4 + 4 * tables.size());
+                bytes.putInt(position, tables.size());
+                for (int i = 0; i < tables.size(); ++i) {
+                    final int element = position + 4 + 4 * i;
+                    bytes.putInt(element, table(tables.get(i)) - element);
+                }
+                return position;
+            }
+        }
+    }
+}
@@ -0,0 +1,779 @@
+package com.zavtech.morpheus.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import com.zavtech.morpheus.column.ColumnType;
+import com.zavtech.morpheus.column.Dictionary;
+import com.zavtech.morpheus.frame.DataFrameException;
+
+/**
+ * Decodes the pages of a single Parquet column chunk into primitive arrays, one decoder per chunk and thread.
+ *
+ * Pages are decompressed with a built-in Snappy, LZ4 or gzip decoder and their values are
+ * decoded from the PLAIN, dictionary, RLE, DELTA and BYTE_STREAM_SPLIT encodings. Values are
+ * decoded densely into the output arrays and then spread out over the null rows recorded by
+ * the definition levels, so the common case of a page without nulls costs a single bulk copy.
+ *
+ * Only flat columns are supported, with a max definition level of at most one and no repetition.
+ */
+final class ParquetDecoder {
+
+    static final int BOOLEAN = 0;
+    static final int INT32 = 1;
+    static final int INT64 = 2;
+    static final int INT96 = 3;
+    static final int FLOAT = 4;
+    static final int DOUBLE = 5;
+    static final int BYTE_ARRAY = 6;
+    static final int FIXED_LEN_BYTE_ARRAY = 7;
+
+    private static final int UNCOMPRESSED = 0;
+    private static final int SNAPPY = 1;
+    private static final int GZIP = 2;
+    private static final int LZ4_RAW = 7;
+
+    private static final int DATA_PAGE = 0;
+    private static final int DICTIONARY_PAGE = 2;
+    private static final int DATA_PAGE_V2 = 3;
+
+    private static final int PLAIN = 0;
+    private static final int PLAIN_DICTIONARY = 2;
+    private static final int RLE = 3;
+    private static final int DELTA_BINARY_PACKED = 5;
+    private static final int DELTA_LENGTH_BYTE_ARRAY = 6;
+    private static final int DELTA_BYTE_ARRAY = 7;
+    private static final int RLE_DICTIONARY = 8;
+    private static final int BYTE_STREAM_SPLIT = 9;
+
+    private static final long JULIAN_EPOCH_DAY = 2440588L;
+    private static final long NANOS_PER_DAY = 86400L * 1000000000L;
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final Leaf leaf;
+    private final int codec;
+    private Values dictionary;
+    private int[] levels = new int[0];
+    private int[] indexes = new int[0];
+    private long[] deltas = new long[0];
+    private byte[] data;
+    private ByteBuffer view;
+    private int position;
+    private int limit;
+
+    /**
+     * Constructor
+     * @param leaf  the column the chunk belongs to
+     * @param codec the Parquet compression codec of the chunk
+     */
+    ParquetDecoder(Leaf leaf, int codec) {
+        this.leaf = leaf;
+        this.codec = codec;
+        if (codec != UNCOMPRESSED && codec != SNAPPY && codec != GZIP && codec != LZ4_RAW) {
+            throw new DataFrameException("Unsupported Parquet compression codec " + codec + " for column " + leaf.name);
+        }
+    }
+
+    /**
+     * Decodes all the pages of a column chunk
+     * @param chunk the bytes of the chunk, starting with its first page header
+     * @param rows  the number of rows in the row group
+     * @return      the decoded values and validity
+     */
+    Chunk decode(byte[] chunk, int rows) {
+        final Values values = new Values(leaf.type, rows, leaf.type == ColumnType.STRING ? new Dictionary() : null);
+        final ByteBuffer buffer = ByteBuffer.wrap(chunk).order(ByteOrder.LITTLE_ENDIAN);
+        long[] valid = null;
+        int row = 0;
+        while (row < rows && buffer.hasRemaining()) {
+            final Thrift.Struct header = Thrift.read(buffer);
+            final int type = header.getInt(1, -1);
+            final int uncompressed = header.getInt(2, 0);
+            final int compressed = header.getInt(3, 0);
+            final int start = buffer.position();
+            buffer.position(start + compressed);
+            if (type == DICTIONARY_PAGE) {
+                final int count = header.getStruct(7).getInt(1, 0);
+                page(chunk, start, compressed, uncompressed, true);
+                this.dictionary = new Values(leaf.type, count, values.dictionary);
+                plain(count, dictionary, 0);
+            } else if (type == DATA_PAGE || type == DATA_PAGE_V2) {
+                final boolean v2 = type == DATA_PAGE_V2;
+                final Thrift.Struct page = v2 ? header.getStruct(8) : header.getStruct(5);
+                final int count = page.getInt(1, 0);
+                final int encoding = page.getInt(v2 ? 4 : 2, PLAIN);
+                if (row + count > rows) {
+                    throw new DataFrameException("Parquet column " + leaf.name + " has more values than its row group has rows");
+                }
+                int present = count;
+                if (v2) {
+                    final int repetitionLength = page.getInt(6, 0);
+                    final int definitionLength = page.getInt(5, 0);
+                    if (leaf.optional && page.getInt(2, 0) > 0) {
+                        bind(chunk, start + repetitionLength, start + repetitionLength + definitionLength);
+                        present = levels(count);
+                    }
+                    final int offset = repetitionLength + definitionLength;
+                    page(chunk, start + offset, compressed - offset, uncompressed - offset, page.getBoolean(7, true));
+                } else {
+                    page(chunk, start, compressed, uncompressed, true);
+                    if (leaf.optional) {
+                        final int end = limit;
+                        final int from = position + 4 + view.getInt(position);
+                        bind(data, position + 4, from);
+                        present = levels(count);
+                        bind(data, from, end);
+                    }
+                }
+                values(encoding, present, values, row);
+                if (present < count) {
+                    valid = valid != null ? valid : filled(rows);
+                    int from = row + present - 1;
+                    for (int i = count - 1; i >= 0; --i) {
+                        if (levels[i] != 0) {
+                            values.move(row + i, from--);
+                        } else {
+                            values.clear(row + i);
+                            valid[(row + i) >>> 6] &= ~(1L << (row + i));
+                        }
+                    }
+                }
+                row += count;
+            }
+        }
+        if (row < rows) {
+            throw new DataFrameException("Parquet column " + leaf.name + " has " + row + " values for a row group of " + rows + " rows");
+        }
+        return new Chunk(values, valid);
+    }
+
+    private static long[] filled(int rows) {
+        final long[] words = new long[(rows + 63) >>> 6];
+        Arrays.fill(words, -1L);
+        return words;
+    }
+
+    /**
+     * Binds the decoder to a range of an array
+     */
+    private void bind(byte[] array, int from, int to) {
+        if (array != data) {
+            this.data = array;
+            this.view = ByteBuffer.wrap(array).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        this.position = from;
+        this.limit = to;
+    }
+
+    /**
+     * Binds the decoder to the content of a page, decompressing it if required
+     */
+    private void page(byte[] chunk, int from, int length, int uncompressed, boolean compressed) {
+        if (!compressed || codec == UNCOMPRESSED) {
+            bind(chunk, from, from + length);
+        } else {
+            final byte[] output = new byte[uncompressed];
+            switch (codec) {
+                case SNAPPY:    snappy(chunk, from, from + length, output);     break;
+                case LZ4_RAW:   lz4(chunk, from, from + length, output);        break;
+                default:        gzip(chunk, from, length, output);              break;
+            }
+            bind(output, 0, uncompressed);
+        }
+    }
+
+    /**
+     * Decodes the definition levels of a page into the level array, returning the number of present values
+     */
+    private int levels(int count) {
+        if (levels.length < count) {
+            this.levels = new int[count];
+        }
+        hybrid(1, count, levels);
+        int present = 0;
+        for (int i = 0; i < count; ++i) {
+            present += levels[i];
+        }
+        return present;
+    }
+
+    /**
+     * Decodes values of the encoding specified densely into the output from the offset specified
+     */
+    private void values(int encoding, int count, Values out, int offset) {
+        switch (encoding) {
+            case PLAIN:
+                plain(count, out, offset);
+                break;
+            case PLAIN_DICTIONARY:
+            case RLE_DICTIONARY:
+                if (dictionary == null) {
+                    throw new DataFrameException("Parquet column " + leaf.name + " has a dictionary encoded page but no dictionary");
+                }
+                final int width = count > 0 ? data[position++] : 0;
+                if (indexes.length < count) {
+                    this.indexes = new int[count];
+                }
+                hybrid(width, count, indexes);
+                for (int i = 0; i < count; ++i) {
+                    if (indexes[i] < 0 || indexes[i] >= dictionary.size) {
+                        throw new DataFrameException("Parquet column " + leaf.name + " has a dictionary index out of range: " + indexes[i]);
+                    }
+                    out.copy(offset + i, dictionary, indexes[i]);
+                }
+                break;
+            case RLE:
+                if (leaf.physical != BOOLEAN) {
+                    throw new DataFrameException("Parquet column " + leaf.name + " uses RLE encoding for a non boolean type");
+                }
+                this.position += 4;
+                if (indexes.length < count) {
+                    this.indexes = new int[count];
+                }
+                hybrid(1, count, indexes);
+                for (int i = 0; i < count; ++i) {
+                    out.booleans[offset + i] = indexes[i] != 0;
+                }
+                break;
+            case DELTA_BINARY_PACKED:
+                delta(count);
+                for (int i = 0; i < count; ++i) {
+                    if (leaf.physical == INT32) {
+                        putInt(out, offset + i, (int)deltas[i]);
+                    } else {
+                        putLong(out, offset + i, deltas[i]);
+                    }
+                }
+                break;
+            case DELTA_LENGTH_BYTE_ARRAY:
+                delta(count);
+                for (int i = 0; i < count; ++i) {
+                    final int length = (int)deltas[i];
+                    putBytes(out, offset + i, data, position, position + length);
+                    this.position += length;
+                }
+                break;
+            case DELTA_BYTE_ARRAY:
+                delta(count);
+                final long[] prefixes = deltas.clone();
+                delta(count);
+                byte[] previous = new byte[64];
+                for (int i = 0; i < count; ++i) {
+                    final int prefix = (int)prefixes[i];
+                    final int length = prefix + (int)deltas[i];
+                    if (previous.length < length) {
+                        previous = Arrays.copyOf(previous, Math.max(length, previous.length * 2));
+                    }
+                    System.arraycopy(data, position, previous, prefix, length - prefix);
+                    this.position += length - prefix;
+                    putBytes(out, offset + i, previous, 0, length);
+                }
+                break;
+            case BYTE_STREAM_SPLIT:
+                split(count, out, offset);
+                break;
+            default:
+                throw new DataFrameException("Unsupported Parquet encoding " + encoding + " for column " + leaf.name);
+        }
+    }
+
+    /**
+     * Decodes PLAIN encoded values, using bulk copies where no conversion is needed
+     */
+    private void plain(int count, Values out, int offset) {
+        switch (leaf.physical) {
+            case BOOLEAN:
+                for (int i = 0; i < count; ++i) {
+                    out.booleans[offset + i] = (data[position + (i >>> 3)] >>> (i & 7) & 1) != 0;
+                }
+                break;
+            case INT32:
+                if (out.type == ColumnType.INT) {
+                    slice(4 * count).asIntBuffer().get(out.ints, offset, count);
+                } else {
+                    for (int i = 0; i < count; ++i) {
+                        putInt(out, offset + i, view.getInt(position + 4 * i));
+                    }
+                }
+                break;
+            case INT64:
+                if (out.type == ColumnType.LONG) {
+                    slice(8 * count).asLongBuffer().get(out.longs, offset, count);
+                } else {
+                    for (int i = 0; i < count; ++i) {
+                        putLong(out, offset + i, view.getLong(position + 8 * i));
+                    }
+                }
+                break;
+            case INT96:
+                for (int i = 0; i < count; ++i) {
+                    final long nanos = view.getLong(position + 12 * i);
+                    final long day = view.getInt(position + 12 * i + 8);
+                    out.longs[offset + i] = (day - JULIAN_EPOCH_DAY) * NANOS_PER_DAY + nanos;
+                }
+                break;
+            case FLOAT:
+                for (int i = 0; i < count; ++i) {
+                    out.doubles[offset + i] = view.getFloat(position + 4 * i);
+                }
+                break;
+            case DOUBLE:
+                slice(8 * count).asDoubleBuffer().get(out.doubles, offset, count);
+                break;
+            case BYTE_ARRAY:
+                for (int i = 0; i < count; ++i) {
+                    final int length = view.getInt(position);
+                    putBytes(out, offset + i, data, position + 4, position + 4 + length);
+                    this.position += 4 + length;
+                }
+                break;
+            case FIXED_LEN_BYTE_ARRAY:
+                for (int i = 0; i < count; ++i) {
+                    putBytes(out, offset + i, data, position, position + leaf.typeLength);
+                    this.position += leaf.typeLength;
+                }
+                break;
+            default:
+                throw new DataFrameException("Unsupported Parquet physical type " + leaf.physical + " for column " + leaf.name);
+        }
+    }
+
+    /**
+     * Returns a little endian view of the bytes specified at the current position
+     */
+    private ByteBuffer slice(int length) {
+        if (position + length > limit) {
+            throw new DataFrameException("Parquet page of column " + leaf.name + " is truncated");
+        }
+        return ByteBuffer.wrap(data, position, length).slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Decodes BYTE_STREAM_SPLIT values, whose bytes are stored in a separate stream for each byte position
+     */
+    private void split(int count, Values out, int offset) {
+        final int width = leaf.physical == FIXED_LEN_BYTE_ARRAY ? leaf.typeLength : leaf.physical == INT32 || leaf.physical == FLOAT ? 4 : 8;
+        final byte[] value = new byte[width];
+        for (int i = 0; i < count; ++i) {
+            long bits = 0L;
+            for (int b = 0; b < width; ++b) {
+                value[b] = data[position + b * count + i];
+                bits |= (value[b] & 0xFFL) << (b << 3);
+            }
+            switch (leaf.physical) {
+                case FLOAT:     out.doubles[offset + i] = Float.intBitsToFloat((int)bits);      break;
+                case DOUBLE:    out.doubles[offset + i] = Double.longBitsToDouble(bits);        break;
+                case INT32:     putInt(out, offset + i, (int)bits);                             break;
+                case INT64:     putLong(out, offset + i, bits);                                 break;
+                default:        putBytes(out, offset + i, value, 0, width);
+            }
+        }
+    }
+
+    private void putInt(Values out, int index, int value) {
+        switch (out.type) {
+            case INT:       out.ints[index] = value;                                break;
+            case LONG:      out.longs[index] = value & 0xFFFFFFFFL;                 break;
+            default:        out.doubles[index] = decimal(value);
+        }
+    }
+
+    private void putLong(Values out, int index, long value) {
+        if (out.type == ColumnType.LONG) {
+            out.longs[index] = value;
+        } else {
+            out.doubles[index] = decimal(value);
+        }
+    }
+
+    private void putBytes(Values out, int index, byte[] bytes, int from, int to) {
+        if (out.type == ColumnType.STRING) {
+            out.codes[index] = out.dictionary.intern(bytes, from, to);
+        } else if (from == to) {
+            out.doubles[index] = 0d;
+        } else {
+            out.doubles[index] = new BigDecimal(new BigInteger(bytes, from, to - from), leaf.scale).doubleValue();
+        }
+    }
+
+    /**
+     * Returns the value of an unscaled decimal, which is exact when both operands of the division are
+     */
+    private double decimal(long unscaled) {
+        if (leaf.scale < POWERS_OF_TEN.length && Math.abs(unscaled) < (1L << 53)) {
+            return unscaled / POWERS_OF_TEN[leaf.scale];
+        } else {
+            return BigDecimal.valueOf(unscaled, leaf.scale).doubleValue();
+        }
+    }
+
+    /**
+     * Decodes values in the RLE / bit packed hybrid encoding from the current position
+     */
+    private void hybrid(int width, int count, int[] out) {
+        final int bytes = (width + 7) >>> 3;
+        int n = 0;
+        while (n < count) {
+            if (position >= limit) {
+                throw new DataFrameException("Parquet page of column " + leaf.name + " is truncated");
+            }
+            final long header = varint();
+            if ((header & 1L) == 0L) {
+                final int run = Math.min((int)(header >>> 1), count - n);
+                int value = 0;
+                for (int b = 0; b < bytes; ++b) {
+                    value |= (data[position + b] & 0xFF) << (b << 3);
+                }
+                this.position += bytes;
+                Arrays.fill(out, n, n + run, value);
+                n += run;
+            } else {
+                final int values = (int)(header >>> 1) << 3;
+                final long base = (long)position << 3;
+                final int take = Math.min(values, count - n);
+                for (int i = 0; i < take; ++i) {
+                    out[n++] = (int)bits(base + (long)i * width, width);
+                }
+                this.position += (values / 8) * width;
+            }
+        }
+    }
+
+    /**
+     * Decodes DELTA_BINARY_PACKED values from the current position into the delta array
+     */
+    private void delta(int count) {
+        final int blockSize = (int)varint();
+        final int miniblocks = (int)varint();
+        final long total = varint();
+        long value = zigzag(varint());
+        final int perMiniblock = miniblocks > 0 ? blockSize / miniblocks : 0;
+        if (deltas.length < count) {
+            this.deltas = new long[count];
+        }
+        if (count == 0 || total == 0L) {
+            return;
+        }
+        this.deltas[0] = value;
+        int n = 1;
+        final int[] widths = new int[miniblocks];
+        while (n < count) {
+            final long minDelta = zigzag(varint());
+            for (int m = 0; m < miniblocks; ++m) {
+                widths[m] = data[position + m] & 0xFF;
+            }
+            this.position += miniblocks;
+            for (int m = 0; m < miniblocks && n < count; ++m) {
+                final long base = (long)position << 3;
+                final int take = Math.min(perMiniblock, count - n);
+                for (int i = 0; i < take; ++i) {
+                    value += minDelta + bits(base + (long)i * widths[m], widths[m]);
+                    this.deltas[n++] = value;
+                }
+                this.position += perMiniblock / 8 * widths[m];
+            }
+        }
+    }
+
+    /**
+     * Returns the little endian bit field of the width specified at a bit offset of the page
+     */
+    private long bits(long bitOffset, int width) {
+        if (width == 0) {
+            return 0L;
+        }
+        int index = (int)(bitOffset >>> 3);
+        final int shift = (int)(bitOffset & 7);
+        final long mask = width == 64 ? -1L : (1L << width) - 1L;
+        if (index + 8 <= data.length && width + shift <= 64) {
+            return (view.getLong(index) >>> shift) & mask;
+        }
+        long value = (data[index++] & 0xFF) >>> shift;
+        for (int got = 8 - shift; got < width; got += 8) {
+            value |= (index < data.length ? data[index++] & 0xFFL : 0L) << got;
+        }
+        return value & mask;
+    }
+
+    private long varint() {
+        long result = 0L;
+        for (int shift = 0; ; shift += 7) {
+            final int next = data[position++];
+            result |= (long)(next & 0x7F) << shift;
+            if (next >= 0) {
+                return result;
+            }
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value >>> 1) ^ -(value & 1L);
+    }
+
+    /**
+     * Decompresses a Snappy block, as written by Parquet without stream framing
+     */
+    static void snappy(byte[] input, int from, int to, byte[] output) {
+        int in = from;
+        while (input[in++] < 0) {
+            continue;
+        }
+        int out = 0;
+        while (in < to) {
+            final int tag = input[in++] & 0xFF;
+            int length;
+            int offset;
+            switch (tag & 3) {
+                case 0:
+                    length = tag >>> 2;
+                    if (length >= 60) {
+                        final int bytes = length - 59;
+                        length = 0;
+                        for (int b = 0; b < bytes; ++b) {
+                            length |= (input[in++] & 0xFF) << (b << 3);
+                        }
+                    }
+                    System.arraycopy(input, in, output, out, length + 1);
+                    in += length + 1;
+                    out += length + 1;
+                    continue;
+                case 1:
+                    length = ((tag >>> 2) & 7) + 4;
+                    offset = ((tag >>> 5) << 8) | (input[in++] & 0xFF);
+                    break;
+                case 2:
+                    length = (tag >>> 2) + 1;
+                    offset = (input[in] & 0xFF) | (input[in + 1] & 0xFF) << 8;
+                    in += 2;
+                    break;
+                default:
+                    length = (tag >>> 2) + 1;
+                    offset = (input[in] & 0xFF) | (input[in + 1] & 0xFF) << 8 | (input[in + 2] & 0xFF) << 16 | (input[in + 3] & 0xFF) << 24;
+                    in += 4;
+            }
+            if (offset <= 0 || offset > out) {
+                throw new DataFrameException("Malformed Snappy data, copy offset " + offset + " at output position " + out);
+            }
+            for (int i = 0; i < length; ++i, ++out) {
+                output[out] = output[out - offset];
+            }
+        }
+        if (out != output.length) {
+            throw new DataFrameException("Snappy data decompressed to " + out + " bytes, expected " + output.length);
+        }
+    }
+
+    /**
+     * Decompresses an LZ4 block without frame headers
+     */
+    static void lz4(byte[] input, int from, int to, byte[] output) {
+        int in = from;
+        int out = 0;
+        while (in < to) {
+            final int token = input[in++] & 0xFF;
+            int literals = token >>> 4;
+            if (literals == 15) {
+                int next;
+                do {
+                    next = input[in++] & 0xFF;
+                    literals += next;
+                } while (next == 255);
+            }
+            System.arraycopy(input, in, output, out, literals);
+            in += literals;
+            out += literals;
+            if (in >= to) {
+                break;
+            }
+            final int offset = (input[in] & 0xFF) | (input[in + 1] & 0xFF) << 8;
+            in += 2;
+            int length = token & 15;
+            if (length == 15) {
+                int next;
+                do {
+                    next = input[in++] & 0xFF;
+                    length += next;
+                } while (next == 255);
+            }
+            length += 4;
+            if (offset <= 0 || offset > out) {
+                throw new DataFrameException("Malformed LZ4 data, match offset " + offset + " at output position " + out);
+            }
+            for (int i = 0; i < length; ++i, ++out) {
+                output[out] = output[out - offset];
+            }
+        }
+        if (out != output.length) {
+            throw new DataFrameException("LZ4 data decompressed to " + out + " bytes, expected " + output.length);
+        }
+    }
+
+    /**
+     * Decompresses one or more gzip members
+     */
+    private static void gzip(byte[] input, int from, int length, byte[] output) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(input, from, length))) {
+            final int count = in.readNBytes(output, 0, output.length);
+            if (count != output.length) {
+                throw new DataFrameException("Gzip data decompressed to " + count + " bytes, expected " + output.length);
+            }
+        } catch (IOException ex) {
+            throw new DataFrameException("Malformed gzip data", ex);
+        }
+    }
+
+
+    /**
+     * A flat column of a Parquet schema, reduced to what is needed to decode it
+     */
+    static final class Leaf {
+
+        private static final int CONVERTED_DECIMAL = 5;
+        private static final int CONVERTED_UINT_32 = 13;
+        private static final int LOGICAL_DECIMAL = 5;
+        private static final int LOGICAL_INTEGER = 10;
+
+        final String name;
+        final int physical;
+        final int typeLength;
+        final boolean optional;
+        final boolean unsigned;
+        final int scale;
+        final ColumnType type;
+        final String unsupported;
+
+        /**
+         * Constructor
+         * @param element   the Thrift SchemaElement of a primitive column
+         */
+        Leaf(Thrift.Struct element) {
+            final Thrift.Struct logical = element.getStruct(10);
+            final Thrift.Struct decimal = logical != null ? logical.getStruct(LOGICAL_DECIMAL) : null;
+            final Thrift.Struct integer = logical != null ? logical.getStruct(LOGICAL_INTEGER) : null;
+            final int converted = element.getInt(6, -1);
+            final int repetition = element.getInt(3, 0);
+            this.name = element.getString(4);
+            this.physical = element.getInt(1, -1);
+            this.typeLength = element.getInt(2, 0);
+            this.optional = repetition == 1;
+            this.unsigned = integer != null ? !integer.getBoolean(2, true) : converted >= 11 && converted <= 14;
+            this.scale = decimal != null ? decimal.getInt(1, 0) : converted == CONVERTED_DECIMAL ? element.getInt(7, 0) : -1;
+            if (repetition == 2) {
+                this.type = null;
+                this.unsupported = "Repeated Parquet column " + name + " is not supported";
+            } else if (scale >= 0 && physical != BOOLEAN && physical != FLOAT && physical != DOUBLE && physical != INT96) {
+                this.type = ColumnType.DOUBLE;
+                this.unsupported = null;
+            } else {
+                switch (physical) {
+                    case BOOLEAN:       this.type = ColumnType.BOOLEAN;                                                     break;
+                    case INT32:         this.type = unsigned && (integer != null ? integer.getInt(1, 32) == 32 : converted == CONVERTED_UINT_32) ? ColumnType.LONG : ColumnType.INT;  break;
+                    case INT64:         this.type = ColumnType.LONG;                                                        break;
+                    case INT96:         this.type = ColumnType.LONG;                                                        break;
+                    case FLOAT:         this.type = ColumnType.DOUBLE;                                                      break;
+                    case DOUBLE:        this.type = ColumnType.DOUBLE;                                                      break;
+                    case BYTE_ARRAY:    this.type = ColumnType.STRING;                                                      break;
+                    default:            this.type = null;
+                }
+                this.unsupported = type != null ? null : "Unsupported Parquet type " + physical + " for column " + name;
+            }
+        }
+
+        /**
+         * Constructor for a nested column, which occupies several leaves that are not supported
+         * @param name  the column name
+         */
+        Leaf(String name) {
+            this.name = name;
+            this.physical = -1;
+            this.typeLength = 0;
+            this.optional = true;
+            this.unsigned = false;
+            this.scale = -1;
+            this.type = null;
+            this.unsupported = "Nested Parquet column " + name + " is not supported";
+        }
+    }
+
+
+    /**
+     * Decoded values held in the primitive array that matches the column type
+     */
+    static final class Values {
+
+        final ColumnType type;
+        final int size;
+        final Dictionary dictionary;
+        double[] doubles;
+        long[] longs;
+        int[] ints;
+        int[] codes;
+        boolean[] booleans;
+
+        /**
+         * Constructor
+         * @param type          the column type
+         * @param size          the number of values
+         * @param dictionary    the dictionary to intern strings into, for STRING values
+         */
+        Values(ColumnType type, int size, Dictionary dictionary) {
+            this.type = type;
+            this.size = size;
+            this.dictionary = dictionary;
+            switch (type) {
+                case DOUBLE:    this.doubles = new double[size];    break;
+                case LONG:      this.longs = new long[size];        break;
+                case INT:       this.ints = new int[size];          break;
+                case STRING:    this.codes = new int[size];         break;
+                case BOOLEAN:   this.booleans = new boolean[size];  break;
+                default:        throw new IllegalArgumentException("Unsupported column type: " + type);
+            }
+        }
+
+        void copy(int to, Values source, int from) {
+            switch (type) {
+                case DOUBLE:    this.doubles[to] = source.doubles[from];    break;
+                case LONG:      this.longs[to] = source.longs[from];        break;
+                case INT:       this.ints[to] = source.ints[from];          break;
+                case STRING:    this.codes[to] = source.codes[from];        break;
+                default:        this.booleans[to] = source.booleans[from];  break;
+            }
+        }
+
+        void move(int to, int from) {
+            copy(to, this, from);
+        }
+
+        void clear(int index) {
+            switch (type) {
+                case DOUBLE:    this.doubles[index] = Double.NaN;   break;
+                case LONG:      this.longs[index] = 0L;             break;
+                case INT:       this.ints[index] = 0;               break;
+                case STRING:    this.codes[index] = 0;              break;
+                default:        this.booleans[index] = false;       break;
+            }
+        }
+    }
+
+
+    /**
+     * The decoded values of a column chunk, with a validity bitmap if any value is null
+     */
+    static final class Chunk {
+
+        final Values values;
+        final long[] valid;
+
+        Chunk(Values values, long[] valid) {
+            this.values = values;
+            this.valid = valid;
+        }
+    }
+}
@@ -0,0 +1,659 @@
+package com.zavtech.morpheus.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import com.zavtech.morpheus.column.BooleanColumn;
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.ColumnType;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.IntColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.column.StringColumn;
+import com.zavtech.morpheus.filter.Comparison;
+import com.zavtech.morpheus.filter.Membership;
+import com.zavtech.morpheus.filter.NullTest;
+import com.zavtech.morpheus.filter.Predicate;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.parallel.Morsels;
+
+/**
+ * A reader of Parquet files that decodes only the columns requested and skips row groups that cannot match a predicate.
+ *
+ * The footer of the file is decoded first, after which a predicate is tested against the
+ * min, max and null count statistics of every row group, and groups whose statistics prove
+ * that no row can satisfy it are never read. The column chunks of the remaining groups are
+ * then read and decoded concurrently, with each task writing its values straight into the
+ * primitive buffers of the output columns at the offset of its row group, and the predicate
+ * is finally applied to the rows of the groups that were read.
+ *
+ * Parquet types are mapped to column types as follows, where timestamps keep the unit of the
+ * file and INT96 timestamps are converted to nanoseconds since the epoch.
+ *
+ * <pre>
+ *     BOOLEAN                                      BOOLEAN
+ *     INT32, including dates and small integers    INT, or LONG for UINT_32
+ *     INT64 and INT96                              LONG, where UINT_64 values wrap
+ *     FLOAT, DOUBLE and DECIMAL                    DOUBLE
+ *     BYTE_ARRAY                                   STRING
+ * </pre>
+ *
+ * Pages may be uncompressed or compressed with Snappy, gzip or LZ4, and nested columns are
+ * only supported in the sense that they can be left out of the projection.
+ */
+public final class ParquetReader {
+
+    private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+
+    private final Path path;
+    private Set<String> columns;
+    private Predicate predicate;
+    private Storage storage = Storage.HEAP;
+    private int parallelism = Morsels.getDefaultParallelism();
+    private Footer footer;
+
+    /**
+     * Constructor
+     * @param path  the path of the Parquet file
+     */
+    private ParquetReader(Path path) {
+        this.path = Objects.requireNonNull(path, "The Parquet file path cannot be null");
+    }
+
+    /**
+     * Returns a reader of the Parquet file specified, which reads all columns and rows by default
+     * @param path  the path of the Parquet file
+     * @return      the new reader
+     */
+    public static ParquetReader of(Path path) {
+        return new ParquetReader(path);
+    }
+
+    /**
+     * Restricts the reader to the columns specified, whose chunks are the only ones read from the file
+     * @param columns   the column names to read
+     * @return          this reader
+     */
+    public ParquetReader setColumns(String... columns) {
+        this.columns = new LinkedHashSet<>(Arrays.asList(columns));
+        return this;
+    }
+
+    /**
+     * Sets a predicate that rows must satisfy, which also skips row groups whose statistics rule out any match
+     * @param predicate the predicate, null for all rows
+     * @return          this reader
+     */
+    public ParquetReader setPredicate(Predicate predicate) {
+        this.predicate = predicate;
+        return this;
+    }
+
+    /**
+     * Sets the storage for the columns of frames created by the reader
+     * @param storage   the column storage, either HEAP or OFF_HEAP
+     * @return          this reader
+     */
+    public ParquetReader setStorage(Storage storage) {
+        if (storage == Storage.MAPPED) {
+            throw new IllegalArgumentException("A Parquet file cannot be read into mapped storage");
+        }
+        this.storage = Objects.requireNonNull(storage, "The storage cannot be null");
+        return this;
+    }
+
+    /**
+     * Sets the max number of threads used to decode column chunks, where 1 decodes sequentially
+     * @param parallelism   the parallelism
+     * @return              this reader
+     */
+    public ParquetReader setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be > 0");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Returns the names of all top level columns of the file, including those that cannot be read
+     * @return  the column names in file order
+     * @throws DataFrameException   if the footer cannot be read
+     */
+    public List<String> columnNames() {
+        final List<String> names = new ArrayList<>();
+        for (ParquetDecoder.Leaf field : footer().fields) {
+            names.add(field.name);
+        }
+        return names;
+    }
+
+    /**
+     * Returns the number of rows in the file, before any predicate is applied
+     * @return  the row count
+     * @throws DataFrameException   if the footer cannot be read
+     */
+    public long rowCount() {
+        long rows = 0L;
+        for (RowGroup group : footer().groups) {
+            rows += group.rows;
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the number of row groups in the file
+     * @return  the row group count
+     * @throws DataFrameException   if the footer cannot be read
+     */
+    public int rowGroupCount() {
+        return footer().groups.size();
+    }
+
+    /**
+     * Returns the number of row groups that read() would decode, being those whose statistics do not rule out the predicate
+     * @return  the number of row groups that may hold matching rows
+     * @throws DataFrameException   if the footer cannot be read
+     */
+    public int selectedRowGroupCount() {
+        final Footer footer = footer();
+        int selected = 0;
+        for (RowGroup group : footer.groups) {
+            selected += predicate == null || mayMatch(predicate, footer, group) ? 1 : 0;
+        }
+        return selected;
+    }
+
+    /**
+     * Reads the projected columns of the row groups that may match the predicate, retaining only the rows that do
+     * @return  the frame holding the selected columns in file order, or in the order requested
+     * @throws DataFrameException   if the file cannot be read or a selected column cannot be decoded
+     */
+    public DataFrame read() {
+        final Footer footer = footer();
+        final List<String> names = columnNames();
+        final List<String> selected = columns == null ? names : new ArrayList<>(columns);
+        final List<Integer> needed = new ArrayList<>();
+        for (String name : selected) {
+            if (!names.contains(name)) {
+                throw new DataFrameException("Parquet file has no column named " + name + ", columns are " + names);
+            }
+        }
+        for (int i = 0; i < names.size(); ++i) {
+            final String name = names.get(i);
+            if (selected.contains(name) || (predicate != null && predicate.columns().contains(name))) {
+                final ParquetDecoder.Leaf field = footer.fields.get(i);
+                if (field.type == null) {
+                    throw new DataFrameException(field.unsupported);
+                }
+                needed.add(i);
+            }
+        }
+        final List<RowGroup> groups = new ArrayList<>();
+        long total = 0L;
+        for (RowGroup group : footer.groups) {
+            if (predicate == null || mayMatch(predicate, footer, group)) {
+                groups.add(group);
+                total += group.rows;
+            }
+        }
+        if (total > Integer.MAX_VALUE) {
+            throw new DataFrameException("Parquet file " + path + " has too many rows for a single frame: " + total);
+        }
+        final List<Column> result = new ArrayList<>(needed.size());
+        for (int field : needed) {
+            final ParquetDecoder.Leaf leaf = footer.fields.get(field);
+            result.add(leaf.type == ColumnType.STRING ? Columns.strings(leaf.name, (int)total, storage) : Columns.create(leaf.name, leaf.type, (int)total, storage));
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final List<Task> tasks = new ArrayList<>();
+            int row = 0;
+            for (RowGroup group : groups) {
+                for (int i = 0; i < needed.size(); ++i) {
+                    final int field = needed.get(i);
+                    tasks.add(new Task(footer.fields.get(field), group.chunks.get(footer.chunks[field]), result.get(i), row, (int)group.rows));
+                }
+                row += (int)group.rows;
+            }
+            decode(channel, tasks);
+            for (Task task : tasks) {
+                task.finish();
+            }
+        } catch (IOException ex) {
+            result.forEach(Column::close);
+            throw new DataFrameException("Failed to read Parquet file " + path, ex);
+        } catch (RuntimeException ex) {
+            result.forEach(Column::close);
+            throw ex;
+        }
+        final DataFrame frame = DataFrame.of(result);
+        if (predicate == null) {
+            return frame.select(selected);
+        } else {
+            try (DataFrame input = frame) {
+                return input.select(selected).take(predicate.select(input));
+            }
+        }
+    }
+
+    /**
+     * Decodes the chunks of the tasks specified on up to parallelism workers, which claim tasks in order
+     */
+    private void decode(FileChannel channel, List<Task> tasks) throws IOException {
+        final List<Callable<Void>> callables = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            callables.add(() -> {
+                task.decode(channel);
+                return null;
+            });
+        }
+        try {
+            Morsels.create().setParallelism(parallelism).invokeAll(callables);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Returns the decoded footer of the file, reading it on first use
+     */
+    private synchronized Footer footer() {
+        if (footer == null) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                final long size = channel.size();
+                if (size < 12) {
+                    throw new DataFrameException("Not a Parquet file: " + path);
+                }
+                final ByteBuffer tail = read(channel, size - 8, 8);
+                if (!Arrays.equals(Arrays.copyOfRange(tail.array(), 4, 8), MAGIC)) {
+                    throw new DataFrameException("Not a Parquet file: " + path);
+                }
+                final int length = tail.getInt(0);
+                if (length < 0 || length > size - 12) {
+                    throw new DataFrameException("Invalid Parquet footer length " + length + " in file of " + size + " bytes: " + path);
+                }
+                this.footer = new Footer(Thrift.read(read(channel, size - 8 - length, length)));
+            } catch (IOException ex) {
+                throw new DataFrameException("Failed to read Parquet footer of " + path, ex);
+            }
+        }
+        return footer;
+    }
+
+    /**
+     * Reads a range of the file into a new little endian buffer
+     */
+    private static ByteBuffer read(FileChannel channel, long offset, int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of Parquet file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Returns false if the statistics of a row group prove that no row satisfies the predicate
+     */
+    private static boolean mayMatch(Predicate predicate, Footer footer, RowGroup group) {
+        if (predicate instanceof Predicate.And) {
+            for (Predicate operand : ((Predicate.And)predicate).operands()) {
+                if (!mayMatch(operand, footer, group)) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (predicate instanceof Predicate.Or) {
+            for (Predicate operand : ((Predicate.Or)predicate).operands()) {
+                if (mayMatch(operand, footer, group)) {
+                    return true;
+                }
+            }
+            return false;
+        } else if (predicate instanceof Comparison) {
+            final Comparison comparison = (Comparison)predicate;
+            final Statistics stats = footer.statistics(group, comparison.column());
+            return stats == null || stats.mayMatch(comparison.operator(), comparison.value());
+        } else if (predicate instanceof Membership) {
+            final Membership membership = (Membership)predicate;
+            final Statistics stats = footer.statistics(group, membership.column());
+            return stats == null || stats.mayMatch(membership.values());
+        } else if (predicate instanceof NullTest) {
+            final NullTest test = (NullTest)predicate;
+            final Statistics stats = footer.statistics(group, test.column());
+            return stats == null || stats.nullCount < 0L || (test.nulls() ? stats.nullCount > 0L : stats.nullCount < group.rows);
+        } else {
+            return true;
+        }
+    }
+
+
+    /**
+     * The decoded metadata of a file
+     */
+    private static final class Footer {
+
+        private final List<ParquetDecoder.Leaf> fields = new ArrayList<>();
+        private final List<RowGroup> groups = new ArrayList<>();
+        private final int[] chunks;
+
+        /**
+         * Constructor
+         * @param metadata  the Thrift FileMetaData struct
+         */
+        Footer(Thrift.Struct metadata) {
+            final List<Thrift.Struct> schema = metadata.getList(2);
+            final List<Integer> leaves = new ArrayList<>();
+            int element = 1;
+            int leaf = 0;
+            final int count = schema.isEmpty() ? 0 : schema.get(0).getInt(5, 0);
+            for (int i = 0; i < count; ++i) {
+                final Thrift.Struct field = schema.get(element);
+                leaves.add(leaf);
+                if (field.getInt(5, 0) > 0) {
+                    this.fields.add(new ParquetDecoder.Leaf(field.getString(4)));
+                    final int[] cursor = {element, 0};
+                    skip(schema, cursor);
+                    element = cursor[0];
+                    leaf += cursor[1];
+                } else {
+                    this.fields.add(new ParquetDecoder.Leaf(field));
+                    element++;
+                    leaf++;
+                }
+            }
+            this.chunks = leaves.stream().mapToInt(Integer::intValue).toArray();
+            for (Thrift.Struct group : metadata.<Thrift.Struct>getList(4)) {
+                this.groups.add(new RowGroup(group));
+            }
+        }
+
+        /**
+         * Advances the cursor of schema element and leaf count past the element at the cursor and its descendants
+         */
+        private static void skip(List<Thrift.Struct> schema, int[] cursor) {
+            final int children = schema.get(cursor[0]++).getInt(5, 0);
+            if (children == 0) {
+                cursor[1]++;
+            }
+            for (int i = 0; i < children; ++i) {
+                skip(schema, cursor);
+            }
+        }
+
+        /**
+         * Returns the statistics of a column in a row group, or null if the column or its statistics are unavailable
+         */
+        Statistics statistics(RowGroup group, String column) {
+            for (int i = 0; i < fields.size(); ++i) {
+                if (fields.get(i).name.equals(column)) {
+                    final ParquetDecoder.Leaf field = fields.get(i);
+                    final Thrift.Struct metadata = field.type != null ? group.chunks.get(chunks[i]).getStruct(3) : null;
+                    final Thrift.Struct stats = metadata != null ? metadata.getStruct(12) : null;
+                    return stats != null ? new Statistics(field, stats, group.rows) : null;
+                }
+            }
+            return null;
+        }
+    }
+
+
+    /**
+     * The metadata of a row group
+     */
+    private static final class RowGroup {
+
+        private final long rows;
+        private final List<Thrift.Struct> chunks;
+
+        /**
+         * Constructor
+         * @param group the Thrift RowGroup struct
+         */
+        RowGroup(Thrift.Struct group) {
+            this.rows = group.getLong(3, 0L);
+            this.chunks = group.getList(1);
+        }
+    }
+
+
+    /**
+     * The min, max and null count of a column chunk, where any may be unknown
+     */
+    private static final class Statistics {
+
+        private final ParquetDecoder.Leaf field;
+        private final long rows;
+        private final long nullCount;
+        private final byte[] min;
+        private final byte[] max;
+
+        /**
+         * Constructor
+         * @param field the column
+         * @param stats the Thrift Statistics struct
+         * @param rows  the number of rows in the row group
+         */
+        Statistics(ParquetDecoder.Leaf field, Thrift.Struct stats, long rows) {
+            final boolean legacy = !stats.has(6) && field.physical != ParquetDecoder.BYTE_ARRAY && field.physical != ParquetDecoder.FIXED_LEN_BYTE_ARRAY && !field.unsigned;
+            this.field = field;
+            this.rows = rows;
+            this.nullCount = stats.getLong(3, -1L);
+            this.min = legacy ? stats.getBinary(2) : stats.getBinary(6);
+            this.max = legacy ? stats.getBinary(1) : stats.getBinary(5);
+        }
+
+        /**
+         * Returns true if every row of the chunk is null, so no comparison can be satisfied
+         */
+        private boolean allNull() {
+            return nullCount == rows;
+        }
+
+        /**
+         * Returns false if no value between the min and max satisfies the comparison
+         */
+        boolean mayMatch(Comparison.Operator operator, double value) {
+            if (allNull()) {
+                return false;
+            } else if (min == null || max == null || field.type == ColumnType.STRING) {
+                return true;
+            }
+            final boolean integral = field.scale < 0 && field.physical != ParquetDecoder.FLOAT && field.physical != ParquetDecoder.DOUBLE;
+            if (integral && value == Math.rint(value) && value >= -0x1p63 && value < 0x1p63) {
+                if (field.physical == ParquetDecoder.INT96 || (field.unsigned && field.physical == ParquetDecoder.INT64)) {
+                    return true;
+                }
+                final long lo = toLong(min);
+                final long hi = toLong(max);
+                final long constant = (long)value;
+                switch (operator) {
+                    case EQ:    return lo <= constant && constant <= hi;
+                    case NE:    return lo != hi || lo != constant;
+                    case LT:    return lo < constant;
+                    case LE:    return lo <= constant;
+                    case GT:    return hi > constant;
+                    case GE:    return hi >= constant;
+                    default:    return true;
+                }
+            }
+            final double lo = toDouble(min);
+            final double hi = toDouble(max);
+            if (Double.isNaN(lo) || Double.isNaN(hi)) {
+                return true;
+            }
+            switch (operator) {
+                case EQ:    return lo <= value && value <= hi;
+                case LT:    return lo < value;
+                case LE:    return lo <= value;
+                case GT:    return hi > value;
+                case GE:    return hi >= value;
+                default:    return true;
+            }
+        }
+
+        /**
+         * Returns false if none of the values lies between the min and max, and the chunk holds no nulls if null is a value
+         */
+        boolean mayMatch(Set<String> values) {
+            if (field.type != ColumnType.STRING) {
+                return true;
+            }
+            for (String value : values) {
+                if (value == null) {
+                    if (nullCount != 0L) {
+                        return true;
+                    }
+                } else if (allNull()) {
+                    continue;
+                } else if (min == null || max == null) {
+                    return true;
+                } else {
+                    final byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                    if (Arrays.compareUnsigned(min, utf8) <= 0 && Arrays.compareUnsigned(utf8, max) <= 0) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private long toLong(byte[] bytes) {
+            final ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            switch (field.physical) {
+                case ParquetDecoder.BOOLEAN:    return bytes[0] != 0 ? 1L : 0L;
+                case ParquetDecoder.INT32:      return field.unsigned ? buffer.getInt(0) & 0xFFFFFFFFL : buffer.getInt(0);
+                default:                        return buffer.getLong(0);
+            }
+        }
+
+        private double toDouble(byte[] bytes) {
+            final ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            if (field.physical == ParquetDecoder.FLOAT) {
+                return buffer.getFloat(0);
+            } else if (field.physical == ParquetDecoder.DOUBLE) {
+                return buffer.getDouble(0);
+            } else if (field.physical == ParquetDecoder.BYTE_ARRAY || field.physical == ParquetDecoder.FIXED_LEN_BYTE_ARRAY) {
+                return bytes.length == 0 ? 0d : new BigDecimal(new BigInteger(bytes), Math.max(0, field.scale)).doubleValue();
+            } else if (field.physical == ParquetDecoder.INT96 || (field.unsigned && field.physical == ParquetDecoder.INT64)) {
+                return Double.NaN;
+            } else {
+                return BigDecimal.valueOf(toLong(bytes), Math.max(0, field.scale)).doubleValue();
+            }
+        }
+    }
+
+
+    /**
+     * The decoding of one column chunk into its rows of an output column
+     */
+    private static final class Task {
+
+        private final ParquetDecoder.Leaf field;
+        private final Thrift.Struct chunk;
+        private final Column column;
+        private final int row;
+        private final int rows;
+        private ParquetDecoder.Chunk result;
+
+        /**
+         * Constructor
+         * @param field     the column of the chunk
+         * @param chunk     the Thrift ColumnChunk struct
+         * @param column    the output column
+         * @param row       the row of the output column that corresponds to the first row of the chunk
+         * @param rows      the number of rows in the chunk
+         */
+        Task(ParquetDecoder.Leaf field, Thrift.Struct chunk, Column column, int row, int rows) {
+            this.field = field;
+            this.chunk = chunk;
+            this.column = column;
+            this.row = row;
+            this.rows = rows;
+        }
+
+        /**
+         * Reads and decodes the chunk, writing numeric values straight into the output column.
+         * Different tasks write disjoint rows and no null has been recorded yet, so this is safe to run concurrently.
+         */
+        void decode(FileChannel channel) throws IOException {
+            final Thrift.Struct metadata = chunk.getStruct(3);
+            if (metadata == null || chunk.has(1)) {
+                throw new DataFrameException("Parquet column " + field.name + " has a chunk in an external file, which is not supported");
+            }
+            final long dataOffset = metadata.getLong(9, 0L);
+            final long dictionaryOffset = metadata.getLong(11, 0L);
+            final long start = dictionaryOffset > 0L && dictionaryOffset < dataOffset ? dictionaryOffset : dataOffset;
+            final int length = Math.toIntExact(metadata.getLong(7, 0L));
+            final byte[] bytes = ParquetReader.read(channel, start, length).array();
+            final ParquetDecoder.Chunk decoded = new ParquetDecoder(field, metadata.getInt(4, 0)).decode(bytes, rows);
+            switch (field.type) {
+                case DOUBLE:    ((DoubleColumn)column).setDoubles(row, decoded.values.doubles, 0, rows);    break;
+                case LONG:      ((LongColumn)column).setLongs(row, decoded.values.longs, 0, rows);          break;
+                case INT:       ((IntColumn)column).setInts(row, decoded.values.ints, 0, rows);             break;
+                default:        break;
+            }
+            this.result = decoded;
+        }
+
+        /**
+         * Completes the output rows that cannot be written concurrently, which are strings, booleans and nulls
+         */
+        void finish() {
+            final ParquetDecoder.Values values = result.values;
+            if (field.type == ColumnType.STRING) {
+                final StringColumn strings = (StringColumn)column;
+                final int[] mapping = Columns.translation(values.dictionary, strings.dictionary());
+                if (mapping != null) {
+                    for (int i = 0; i < rows; ++i) {
+                        values.codes[i] = mapping[values.codes[i]];
+                    }
+                }
+                strings.setCodes(row, values.codes, 0, rows);
+            } else if (field.type == ColumnType.BOOLEAN) {
+                final BooleanColumn booleans = (BooleanColumn)column;
+                for (int i = 0; i < rows; ++i) {
+                    if (values.booleans[i]) {
+                        booleans.setBoolean(row + i, true);
+                    }
+                }
+            }
+            final long[] valid = result.valid;
+            if (valid != null) {
+                for (int i = 0; i < valid.length; ++i) {
+                    long nulls = ~valid[i];
+                    while (nulls != 0L) {
+                        final int index = (i << 6) + Long.numberOfTrailingZeros(nulls);
+                        if (index >= rows) {
+                            break;
+                        }
+                        column.setNull(row + index);
+                        nulls &= nulls - 1L;
+                    }
+                }
+            }
+            this.result = null;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.zavtech.morpheus.io;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.zavtech.morpheus.frame.DataFrameException;
+
+/**
+ * A minimal decoder for the Thrift compact protocol, sufficient for the metadata of Parquet files.
+ *
+ * Structs are decoded generically into their field values keyed by field id, rather than into
+ * generated classes, so callers read fields by the ids of the Thrift definitions. Integers of
+ * every width are decoded as longs, binaries as byte arrays, lists and sets as lists, and maps
+ * are skipped as Parquet metadata does not rely on them.
+ */
+final class Thrift {
+
+    private static final int STOP = 0;
+    private static final int BOOLEAN_TRUE = 1;
+    private static final int BOOLEAN_FALSE = 2;
+    private static final int BYTE = 3;
+    private static final int I16 = 4;
+    private static final int I32 = 5;
+    private static final int I64 = 6;
+    private static final int DOUBLE = 7;
+    private static final int BINARY = 8;
+    private static final int LIST = 9;
+    private static final int SET = 10;
+    private static final int MAP = 11;
+    private static final int STRUCT = 12;
+
+    private Thrift() {
+        super();
+    }
+
+    /**
+     * Decodes the struct at the position of a buffer, leaving the position just after it
+     * @param buffer    the buffer holding the struct
+     * @return          the decoded struct
+     * @throws DataFrameException   if the struct is malformed or truncated
+     */
+    static Struct read(ByteBuffer buffer) {
+        try {
+            return struct(buffer.order(ByteOrder.LITTLE_ENDIAN));
+        } catch (RuntimeException ex) {
+            throw ex instanceof DataFrameException ? ex : new DataFrameException("Malformed Thrift metadata", ex);
+        }
+    }
+
+    private static Struct struct(ByteBuffer buffer) {
+        final Struct struct = new Struct();
+        int id = 0;
+        while (true) {
+            final int header = buffer.get() & 0xFF;
+            final int type = header & 0x0F;
+            if (type == STOP) {
+                return struct;
+            }
+            final int delta = header >>> 4;
+            id = delta != 0 ? id + delta : (int)zigzag(varint(buffer));
+            if (type == BOOLEAN_TRUE || type == BOOLEAN_FALSE) {
+                struct.put(id, type == BOOLEAN_TRUE);
+            } else {
+                struct.put(id, value(buffer, type));
+            }
+        }
+    }
+
+    private static Object value(ByteBuffer buffer, int type) {
+        switch (type) {
+            case BOOLEAN_TRUE:
+            case BOOLEAN_FALSE:
+                return buffer.get() == BOOLEAN_TRUE;
+            case BYTE:
+                return (long)buffer.get();
+            case I16:
+            case I32:
+            case I64:
+                return zigzag(varint(buffer));
+            case DOUBLE:
+                return buffer.getDouble();
+            case BINARY:
+                final byte[] bytes = new byte[Math.toIntExact(varint(buffer))];
+                buffer.get(bytes);
+                return bytes;
+            case LIST:
+            case SET:
+                final int header = buffer.get() & 0xFF;
+                final int size = (header >>> 4) == 15 ? Math.toIntExact(varint(buffer)) : header >>> 4;
+                final List<Object> values = new ArrayList<>(size);
+                for (int i = 0; i < size; ++i) {
+                    values.add(value(buffer, header & 0x0F));
+                }
+                return values;
+            case MAP:
+                final int entries = Math.toIntExact(varint(buffer));
+                if (entries > 0) {
+                    final int types = buffer.get() & 0xFF;
+                    for (int i = 0; i < entries; ++i) {
+                        value(buffer, types >>> 4);
+                        value(buffer, types & 0x0F);
+                    }
+                }
+                return Collections.emptyList();
+            case STRUCT:
+                return struct(buffer);
+            default:
+                throw new DataFrameException("Unsupported Thrift compact type: " + type);
+        }
+    }
+
+    private static long varint(ByteBuffer buffer) {
+        long result = 0L;
+        for (int shift = 0; ; shift += 7) {
+            final int next = buffer.get();
+            result |= (long)(next & 0x7F) << shift;
+            if (next >= 0) {
+                return result;
+            }
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value >>> 1) ^ -(value & 1L);
+    }
+
+
+    /**
+     * The field values of a decoded struct, keyed by field id
+     */
+    static final class Struct {
+
+        private Object[] fields = new Object[16];
+
+        private void put(int id, Object value) {
+            if (id >= fields.length) {
+                this.fields = Arrays.copyOf(fields, Math.max(id + 1, fields.length * 2));
+            }
+            this.fields[id] = value;
+        }
+
+        private Object get(int id) {
+            return id < fields.length ? fields[id] : null;
+        }
+
+        boolean has(int id) {
+            return get(id) != null;
+        }
+
+        boolean getBoolean(int id, boolean defaultValue) {
+            final Object value = get(id);
+            return value instanceof Boolean ? (Boolean)value : defaultValue;
+        }
+
+        int getInt(int id, int defaultValue) {
+            final Object value = get(id);
+            return value instanceof Long ? (int)(long)(Long)value : defaultValue;
+        }
+
+        long getLong(int id, long defaultValue) {
+            final Object value = get(id);
+            return value instanceof Long ? (Long)value : defaultValue;
+        }
+
+        /**
+         * Returns the binary value of a field
+         * @param id    the field id
+         * @return      the bytes, or null if the field is absent
+         */
+        byte[] getBinary(int id) {
+            final Object value = get(id);
+            return value instanceof byte[] ? (byte[])value : null;
+        }
+
+        /**
+         * Returns the string value of a field, decoded as UTF-8
+         * @param id    the field id
+         * @return      the string, or null if the field is absent
+         */
+        String getString(int id) {
+            final byte[] value = getBinary(id);
+            return value == null ? null : new String(value, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Returns the struct value of a field
+         * @param id    the field id
+         * @return      the struct, or null if the field is absent
+         */
+        Struct getStruct(int id) {
+            final Object value = get(id);
+            return value instanceof Struct ? (Struct)value : null;
+        }
+
+        /**
+         * Returns the list value of a field, whose elements are structs, longs, byte arrays or booleans
+         * @param id    the field id
+         * @return      the list, empty if the field is absent
+         */
+        @SuppressWarnings("unchecked")
+        <T> List<T> getList(int id) {
+            final Object value = get(id);
+            return value instanceof List ? (List<T>)value : Collections.emptyList();
+        }
+    }
+}
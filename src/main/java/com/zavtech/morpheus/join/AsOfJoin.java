@@ -0,0 +1,228 @@
+package com.zavtech.morpheus.join;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.ColumnType;
+import com.zavtech.morpheus.column.Dictionary;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.hash.GroupTable;
+import com.zavtech.morpheus.hash.KeyColumn;
+import com.zavtech.morpheus.parallel.Morsels;
+
+/**
+ * An as-of join, which matches each left row with the last right row whose on key is
+ * less than or equal to that of the left row, optionally within groups of exactly equal by keys.
+ *
+ * The right frame must be sorted by its on key. Its rows are bucketed by by key into a
+ * compact array per group, and each left row is resolved with a binary search over the
+ * on keys of its group, in parallel over morsels of left rows. Every left row
+ * appears in the result once, with missing right values where there is no match.
+ * Rows with a null on key or by key match nothing, and right rows with a null on key
+ * are ignored by the check that the right frame is sorted.
+ */
+public final class AsOfJoin {
+
+
+    private final DataFrame left;
+    private final DataFrame right;
+    private String leftOn;
+    private String rightOn;
+    private List<String> by = Collections.emptyList();
+    private final Morsels morsels = Morsels.create();
+    private String suffix = "_right";
+
+    /**
+     * Constructor
+     * @param left  the left frame
+     * @param right the right frame
+     */
+    private AsOfJoin(DataFrame left, DataFrame right) {
+        this.left = Objects.requireNonNull(left, "The left frame cannot be null");
+        this.right = Objects.requireNonNull(right, "The right frame cannot be null");
+    }
+
+    /**
+     * Returns an as-of join of the two frames, whose on key must be specified with on()
+     * @param left  the left frame
+     * @param right the right frame, sorted by its on key
+     * @return      the join
+     */
+    public static AsOfJoin of(DataFrame left, DataFrame right) {
+        return new AsOfJoin(left, right);
+    }
+
+    /**
+     * Sets the ordered key, such as a timestamp, which has the same name in both frames
+     * @param on    the on key column name
+     * @return      this join
+     */
+    public AsOfJoin on(String on) {
+        return on(on, on);
+    }
+
+    /**
+     * Sets the ordered key, such as a timestamp, with different names in each frame
+     * @param leftOn    the on key column name in the left frame
+     * @param rightOn   the on key column name in the right frame
+     * @return          this join
+     */
+    public AsOfJoin on(String leftOn, String rightOn) {
+        this.leftOn = Objects.requireNonNull(leftOn, "The left on key cannot be null");
+        this.rightOn = Objects.requireNonNull(rightOn, "The right on key cannot be null");
+        return this;
+    }
+
+    /**
+     * Sets the keys, such as a symbol, that must match exactly, which have the same names in both frames
+     * @param by    the by key column names
+     * @return      this join
+     */
+    public AsOfJoin by(String... by) {
+        this.by = Arrays.asList(by);
+        return this;
+    }
+
+    /**
+     * Sets the max number of threads used to resolve left rows
+     * @param parallelism   the parallelism, where 1 resolves on the calling thread
+     * @return              this join
+     */
+    public AsOfJoin setParallelism(int parallelism) {
+        this.morsels.setParallelism(parallelism);
+        return this;
+    }
+
+    /**
+     * Sets the suffix appended to right column names that clash with left column names
+     * @param suffix    the name suffix
+     * @return          this join
+     */
+    public AsOfJoin setSuffix(String suffix) {
+        this.suffix = Objects.requireNonNull(suffix, "The suffix cannot be null");
+        return this;
+    }
+
+    /**
+     * Executes this join and returns the joined frame
+     * @return  the joined frame
+     */
+    public DataFrame execute() {
+        if (leftOn == null) {
+            throw new DataFrameException("No on key specified, call on() before execute()");
+        }
+        Join.checkCompatible(left.column(leftOn), right.column(rightOn));
+        if (left.column(leftOn).type() == ColumnType.STRING) {
+            throw new DataFrameException("As-of join requires an ordered on key, " + leftOn + " is a STRING column");
+        }
+        final int width = by.size();
+        final KeyColumn[] leftColumns = new KeyColumn[width + 1];
+        final KeyColumn[] rightColumns = new KeyColumn[width + 1];
+        final long[][] leftWords = new long[width][];
+        final long[][] rightWords = new long[width][];
+        for (int k = 0; k < width; ++k) {
+            final Column leftKey = left.column(by.get(k));
+            final Column rightKey = right.column(by.get(k));
+            final Dictionary dictionary = KeyColumn.sharedDictionary(leftKey, rightKey);
+            Join.checkCompatible(leftKey, rightKey);
+            leftColumns[k] = new KeyColumn(leftKey, 0, dictionary);
+            rightColumns[k] = new KeyColumn(rightKey, 0, dictionary);
+            leftWords[k] = leftColumns[k].readAll();
+            rightWords[k] = rightColumns[k].readAll();
+        }
+        leftColumns[width] = new KeyColumn(left.column(leftOn), 0);
+        rightColumns[width] = new KeyColumn(right.column(rightOn), 0);
+        final long[] leftTimes = leftColumns[width].readAll();
+        final long[] rightTimes = rightColumns[width].readAll();
+        final long[] leftNulls = Join.nullRows(leftColumns, leftTimes.length);
+        final long[] rightNulls = Join.nullRows(rightColumns, rightTimes.length);
+        long previous = Long.MIN_VALUE;
+        for (int i = 0; i < rightTimes.length; ++i) {
+            if (!rightColumns[width].isNull(i)) {
+                if (previous > rightTimes[i]) {
+                    throw new DataFrameException("As-of join requires the right frame to be sorted by " + rightOn);
+                }
+                previous = rightTimes[i];
+            }
+        }
+        final int rightRows = rightTimes.length;
+        final GroupTable table = new GroupTable(Math.max(1, width));
+        final int[] groups = new int[rightRows];
+        final long[] key = new long[Math.max(1, width)];
+        for (int row = 0; row < rightRows; ++row) {
+            if (Join.isNull(rightNulls, row)) {
+                groups[row] = -1;
+                continue;
+            }
+            for (int k = 0; k < width; ++k) {
+                key[k] = rightWords[k][row];
+            }
+            groups[row] = table.findOrInsert(key, GroupTable.hash(key), row);
+        }
+        final int[] offsets = new int[table.size() + 1];
+        for (int group : groups) {
+            if (group >= 0) {
+                offsets[group + 1]++;
+            }
+        }
+        for (int g = 0; g < table.size(); ++g) {
+            offsets[g + 1] += offsets[g];
+        }
+        final int[] rows = new int[offsets[table.size()]];
+        final long[] times = new long[rows.length];
+        final int[] cursor = Arrays.copyOf(offsets, table.size());
+        for (int row = 0; row < rightRows; ++row) {
+            if (groups[row] < 0) {
+                continue;
+            }
+            final int position = cursor[groups[row]]++;
+            rows[position] = row;
+            times[position] = rightTimes[row];
+        }
+        final int leftRows = leftTimes.length;
+        final RowPairs pairs = RowPairs.concat(morsels.map(leftRows, (from, to) -> {
+            final long[] probe = new long[Math.max(1, width)];
+            final RowPairs range = new RowPairs(to - from);
+            for (int row = from; row < to; ++row) {
+                for (int k = 0; k < width; ++k) {
+                    probe[k] = leftWords[k][row];
+                }
+                final int group = Join.isNull(leftNulls, row) ? -1 : table.find(probe, GroupTable.hash(probe));
+                if (group < 0) {
+                    range.add(row, -1);
+                } else {
+                    final int position = floor(times, offsets[group], offsets[group + 1], leftTimes[row]);
+                    range.add(row, position < 0 ? -1 : rows[position]);
+                }
+            }
+            return range;
+        }));
+        final List<String> exclude = new ArrayList<>(by);
+        exclude.add(rightOn);
+        return Join.output(left, right, pairs, null, null, null, null, Collections.emptyList(), exclude, suffix);
+    }
+
+    /**
+     * Returns the index of the last value in the sorted range [from, to) that is less than or equal to the target, or -1
+     */
+    private static int floor(long[] values, int from, int to, long target) {
+        int low = from;
+        int high = to - 1;
+        int result = -1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (values[mid] <= target) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+}
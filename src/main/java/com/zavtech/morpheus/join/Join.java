@@ -0,0 +1,439 @@
+package com.zavtech.morpheus.join;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.ColumnType;
+import com.zavtech.morpheus.column.Dictionary;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.hash.GroupTable;
+import com.zavtech.morpheus.hash.KeyColumn;
+import com.zavtech.morpheus.parallel.Morsels;
+
+/**
+ * An equi-join of two DataFrames on one or more key columns.
+ *
+ * The hash strategy builds a GroupTable over the keys of one side, chaining the rows
+ * of each distinct key through a primitive next array, and probes it with the other
+ * side in parallel over morsels of rows. The sort-merge strategy walks both sides
+ * in a single pass and is chosen automatically when both are already sorted by key.
+ *
+ * The result holds the left columns followed by the non-key right columns, where right
+ * column names that clash with left names are suffixed. Key columns take the value of
+ * whichever side matched, so they are never missing, while other columns of an unmatched
+ * side are null. An INT key joined with a LONG key yields a LONG key column in RIGHT and
+ * OUTER joins, where it holds values from both sides.
+ *
+ * As in SQL, a row with a null in any key matches no row of the other side, so it appears
+ * only in the joins that keep unmatched rows of its side, where its key stays null.
+ */
+public final class Join {
+
+
+    /**
+     * Enumerates the algorithms used to match rows
+     */
+    public enum Strategy {
+
+        /** Sort-merge if both sides are sorted by key, otherwise hash */
+        AUTO,
+
+        /** Build and probe a hash table */
+        HASH,
+
+        /** Merge two sides that are sorted by key, failing if either is not */
+        SORT_MERGE
+    }
+
+    private final DataFrame left;
+    private final DataFrame right;
+    private List<String> leftKeys = new ArrayList<>();
+    private List<String> rightKeys = new ArrayList<>();
+    private JoinType type = JoinType.INNER;
+    private Strategy strategy = Strategy.AUTO;
+    private final Morsels morsels = Morsels.create();
+    private String suffix = "_right";
+
+    /**
+     * Constructor
+     * @param left  the left frame
+     * @param right the right frame
+     */
+    private Join(DataFrame left, DataFrame right) {
+        this.left = Objects.requireNonNull(left, "The left frame cannot be null");
+        this.right = Objects.requireNonNull(right, "The right frame cannot be null");
+    }
+
+    /**
+     * Returns an inner join of the two frames, whose keys must be specified with on()
+     * @param left  the left frame
+     * @param right the right frame
+     * @return      the join
+     */
+    public static Join of(DataFrame left, DataFrame right) {
+        return new Join(left, right);
+    }
+
+    /**
+     * Joins on key columns that have the same names in both frames
+     * @param keys  the key column names
+     * @return      this join
+     */
+    public Join on(String... keys) {
+        return on(Arrays.asList(keys), Arrays.asList(keys));
+    }
+
+    /**
+     * Joins on key columns with different names in each frame, matched by position
+     * @param leftKeys  the key column names in the left frame
+     * @param rightKeys the key column names in the right frame
+     * @return          this join
+     */
+    public Join on(List<String> leftKeys, List<String> rightKeys) {
+        if (leftKeys.isEmpty() || leftKeys.size() != rightKeys.size()) {
+            throw new DataFrameException("Join requires the same non-zero number of keys on each side: " + leftKeys + ", " + rightKeys);
+        }
+        this.leftKeys = new ArrayList<>(leftKeys);
+        this.rightKeys = new ArrayList<>(rightKeys);
+        return this;
+    }
+
+    /**
+     * Sets the type of join, which defaults to INNER
+     * @param type  the join type
+     * @return      this join
+     */
+    public Join setType(JoinType type) {
+        this.type = Objects.requireNonNull(type, "The join type cannot be null");
+        return this;
+    }
+
+    /**
+     * Sets the strategy used to match rows, which defaults to AUTO
+     * @param strategy  the join strategy
+     * @return          this join
+     */
+    public Join setStrategy(Strategy strategy) {
+        this.strategy = Objects.requireNonNull(strategy, "The join strategy cannot be null");
+        return this;
+    }
+
+    /**
+     * Sets the max number of threads used to probe the hash table
+     * @param parallelism   the parallelism, where 1 probes on the calling thread
+     * @return              this join
+     */
+    public Join setParallelism(int parallelism) {
+        this.morsels.setParallelism(parallelism);
+        return this;
+    }
+
+    /**
+     * Sets the suffix appended to right column names that clash with left column names
+     * @param suffix    the name suffix
+     * @return          this join
+     */
+    public Join setSuffix(String suffix) {
+        this.suffix = Objects.requireNonNull(suffix, "The suffix cannot be null");
+        return this;
+    }
+
+    /**
+     * Executes this join and returns the joined frame
+     * @return  the joined frame
+     */
+    public DataFrame execute() {
+        if (leftKeys.isEmpty()) {
+            throw new DataFrameException("No join keys specified, call on() before execute()");
+        }
+        final int width = leftKeys.size();
+        final KeyColumn[] leftColumns = new KeyColumn[width];
+        final KeyColumn[] rightColumns = new KeyColumn[width];
+        final long[][] leftWords = new long[width][];
+        final long[][] rightWords = new long[width][];
+        for (int k = 0; k < width; ++k) {
+            final Column leftKey = left.column(leftKeys.get(k));
+            final Column rightKey = right.column(rightKeys.get(k));
+            checkCompatible(leftKey, rightKey);
+            final Dictionary dictionary = KeyColumn.sharedDictionary(leftKey, rightKey);
+            leftColumns[k] = new KeyColumn(leftKey, 0, dictionary);
+            rightColumns[k] = new KeyColumn(rightKey, 0, dictionary);
+            leftWords[k] = leftColumns[k].readAll();
+            rightWords[k] = rightColumns[k].readAll();
+        }
+        final long[] leftNulls = nullRows(leftColumns, left.rowCount());
+        final long[] rightNulls = nullRows(rightColumns, right.rowCount());
+        final RowPairs pairs;
+        if (strategy == Strategy.HASH) {
+            pairs = hashJoin(leftWords, rightWords, leftNulls, rightNulls);
+        } else if (isSorted(leftWords, leftNulls) && isSorted(rightWords, rightNulls)) {
+            pairs = mergeJoin(leftWords, rightWords, leftNulls, rightNulls);
+        } else if (strategy == Strategy.SORT_MERGE) {
+            throw new DataFrameException("Sort-merge join requires both frames to be sorted by " + leftKeys + " and " + rightKeys);
+        } else {
+            pairs = hashJoin(leftWords, rightWords, leftNulls, rightNulls);
+        }
+        final boolean coalesce = type == JoinType.RIGHT || type == JoinType.OUTER;
+        return output(left, right, pairs, coalesce ? leftColumns : null, rightColumns, leftWords, rightWords, leftKeys, rightKeys, suffix);
+    }
+
+    /**
+     * Returns a bitset of the rows with a null in any of the key columns, or null if no key is null
+     */
+    static long[] nullRows(KeyColumn[] columns, int rows) {
+        long[] nulls = null;
+        for (KeyColumn column : columns) {
+            if (column.hasNulls()) {
+                nulls = nulls != null ? nulls : new long[(rows + 63) >>> 6];
+                for (int row = 0; row < rows; ++row) {
+                    if (column.isNull(row)) {
+                        nulls[row >>> 6] |= 1L << row;
+                    }
+                }
+            }
+        }
+        return nulls;
+    }
+
+    /**
+     * Returns true if the row is set in a bitset of null rows, which may be null
+     */
+    static boolean isNull(long[] nulls, int row) {
+        return nulls != null && (nulls[row >>> 6] & (1L << row)) != 0L;
+    }
+
+    /**
+     * Matches rows by building a hash table on one side and probing it with the other, where rows with null keys match nothing
+     */
+    private RowPairs hashJoin(long[][] leftWords, long[][] rightWords, long[] leftNulls, long[] rightNulls) {
+        final boolean swap = type == JoinType.RIGHT || (type == JoinType.INNER && right.rowCount() > left.rowCount());
+        final long[][] build = swap ? leftWords : rightWords;
+        final long[][] probe = swap ? rightWords : leftWords;
+        final long[] buildNulls = swap ? leftNulls : rightNulls;
+        final long[] probeNulls = swap ? rightNulls : leftNulls;
+        final int width = build.length;
+        final int buildRows = build[0].length;
+        final int probeRows = probe[0].length;
+        final GroupTable table = new GroupTable(width);
+        final int[] next = new int[buildRows];
+        int[] head = new int[1024];
+        final long[] key = new long[width];
+        for (int row = buildRows - 1; row >= 0; --row) {
+            if (isNull(buildNulls, row)) {
+                continue;
+            }
+            for (int k = 0; k < width; ++k) {
+                key[k] = build[k][row];
+            }
+            final int size = table.size();
+            final int group = table.findOrInsert(key, GroupTable.hash(key), row);
+            if (group == head.length) {
+                head = Arrays.copyOf(head, head.length * 2);
+            }
+            next[row] = group == size ? -1 : head[group];
+            head[group] = row;
+        }
+        final int[] heads = head;
+        final boolean keepProbe = type != JoinType.INNER;
+        final boolean keepBuild = type == JoinType.OUTER;
+        final RowPairs[] results = new RowPairs[morsels.morselCount(probeRows)];
+        final List<long[]> matched = morsels.collect(probeRows, () -> keepBuild ? new long[(buildRows + 63) >>> 6] : null, (seen, morsel, from, to) -> {
+            final long[] probeKey = new long[width];
+            final RowPairs pairs = new RowPairs(to - from);
+            for (int row = from; row < to; ++row) {
+                for (int k = 0; k < width; ++k) {
+                    probeKey[k] = probe[k][row];
+                }
+                final int group = isNull(probeNulls, row) ? -1 : table.find(probeKey, GroupTable.hash(probeKey));
+                if (group >= 0) {
+                    for (int match = heads[group]; match >= 0; match = next[match]) {
+                        pairs.add(row, match);
+                        if (seen != null) {
+                            seen[match >>> 6] |= 1L << match;
+                        }
+                    }
+                } else if (keepProbe) {
+                    pairs.add(row, -1);
+                }
+            }
+            results[morsel] = pairs;
+        });
+        final RowPairs pairs = RowPairs.concat(Arrays.asList(results));
+        if (keepBuild) {
+            for (int row = 0; row < buildRows; ++row) {
+                boolean seen = false;
+                for (int w = 0; w < matched.size() && !seen; ++w) {
+                    seen = (matched.get(w)[row >>> 6] & (1L << row)) != 0L;
+                }
+                if (!seen) {
+                    pairs.add(-1, row);
+                }
+            }
+        }
+        return swap ? pairs.swap() : pairs;
+    }
+
+    /**
+     * Matches rows by merging two sides whose rows with non-null keys are sorted by key, where rows with null keys match nothing
+     */
+    private RowPairs mergeJoin(long[][] leftWords, long[][] rightWords, long[] leftNulls, long[] rightNulls) {
+        final int leftRows = leftWords[0].length;
+        final int rightRows = rightWords[0].length;
+        final boolean keepLeft = type == JoinType.LEFT || type == JoinType.OUTER;
+        final boolean keepRight = type == JoinType.RIGHT || type == JoinType.OUTER;
+        final RowPairs pairs = new RowPairs(Math.max(leftRows, rightRows));
+        int i = 0, j = 0;
+        while (i < leftRows && j < rightRows) {
+            if (isNull(leftNulls, i)) {
+                if (keepLeft) {
+                    pairs.add(i, -1);
+                }
+                i++;
+                continue;
+            } else if (isNull(rightNulls, j)) {
+                if (keepRight) {
+                    pairs.add(-1, j);
+                }
+                j++;
+                continue;
+            }
+            final int result = compare(leftWords, i, rightWords, j);
+            if (result < 0) {
+                if (keepLeft) {
+                    pairs.add(i, -1);
+                }
+                i++;
+            } else if (result > 0) {
+                if (keepRight) {
+                    pairs.add(-1, j);
+                }
+                j++;
+            } else {
+                int leftEnd = i + 1;
+                while (leftEnd < leftRows && (isNull(leftNulls, leftEnd) || compare(leftWords, leftEnd, leftWords, i) == 0)) leftEnd++;
+                int rightEnd = j + 1;
+                while (rightEnd < rightRows && (isNull(rightNulls, rightEnd) || compare(rightWords, rightEnd, rightWords, j) == 0)) rightEnd++;
+                for (int l = i; l < leftEnd; ++l) {
+                    if (isNull(leftNulls, l)) {
+                        if (keepLeft) {
+                            pairs.add(l, -1);
+                        }
+                        continue;
+                    }
+                    for (int r = j; r < rightEnd; ++r) {
+                        if (!isNull(rightNulls, r)) {
+                            pairs.add(l, r);
+                        }
+                    }
+                }
+                for (int r = j; keepRight && r < rightEnd; ++r) {
+                    if (isNull(rightNulls, r)) {
+                        pairs.add(-1, r);
+                    }
+                }
+                i = leftEnd;
+                j = rightEnd;
+            }
+        }
+        while (keepLeft && i < leftRows) {
+            pairs.add(i++, -1);
+        }
+        while (keepRight && j < rightRows) {
+            pairs.add(-1, j++);
+        }
+        return pairs;
+    }
+
+    /**
+     * Returns the joined frame for the matched row pairs
+     * @param left          the left frame
+     * @param right         the right frame
+     * @param pairs         the matched row pairs
+     * @param leftColumns   the left key columns, to fill left keys from the right side where the left is missing, or null
+     * @param rightColumns  the right key columns
+     * @param leftWords     the encoded left keys
+     * @param rightWords    the encoded right keys
+     * @param leftKeys      the left key names
+     * @param rightExclude  the right column names to exclude from the result
+     * @param suffix        the suffix for clashing right column names
+     * @return              the joined frame
+     */
+    static DataFrame output(DataFrame left, DataFrame right, RowPairs pairs, KeyColumn[] leftColumns, KeyColumn[] rightColumns, long[][] leftWords, long[][] rightWords, List<String> leftKeys, List<String> rightExclude, String suffix) {
+        final int[] leftRows = pairs.left();
+        final int[] rightRows = pairs.right();
+        final List<Column> columns = new ArrayList<>(left.columnCount() + right.columnCount());
+        for (Column column : left.columns()) {
+            final int k = leftKeys.indexOf(column.name());
+            if (leftColumns != null && k >= 0) {
+                final KeyColumn leftColumn = leftColumns[k];
+                final KeyColumn rightColumn = rightColumns[k];
+                final boolean widen = leftColumn.column().type() == ColumnType.INT && rightColumn.column().type() == ColumnType.LONG;
+                final long[] words = new long[leftRows.length];
+                final long[] nulls = leftColumn.hasNulls() || rightColumn.hasNulls() ? new long[leftRows.length] : null;
+                for (int i = 0; i < words.length; ++i) {
+                    final boolean fromLeft = leftRows[i] >= 0;
+                    words[i] = fromLeft ? leftWords[k][leftRows[i]] : rightWords[k][rightRows[i]];
+                    if (nulls != null) {
+                        nulls[i] = (fromLeft ? leftColumn.isNull(leftRows[i]) : rightColumn.isNull(rightRows[i])) ? 1L : 0L;
+                    }
+                }
+                columns.add((widen ? rightColumn : leftColumn).decode(words, nulls).rename(column.name()));
+            } else {
+                columns.add(column.take(leftRows));
+            }
+        }
+        for (Column column : right.columns()) {
+            if (!rightExclude.contains(column.name())) {
+                final String name = left.hasColumn(column.name()) ? column.name() + suffix : column.name();
+                columns.add(column.take(rightRows).rename(name));
+            }
+        }
+        return DataFrame.of(columns);
+    }
+
+    /**
+     * Checks that two key columns have types whose encoded words can be compared
+     */
+    static void checkCompatible(Column leftKey, Column rightKey) {
+        final ColumnType leftType = leftKey.type();
+        final ColumnType rightType = rightKey.type();
+        final boolean integral = (leftType == ColumnType.INT || leftType == ColumnType.LONG) && (rightType == ColumnType.INT || rightType == ColumnType.LONG);
+        if (leftType != rightType && !integral) {
+            throw new DataFrameException("Cannot join " + leftType + " key " + leftKey.name() + " with " + rightType + " key " + rightKey.name());
+        }
+    }
+
+    /**
+     * Returns true if the encoded key tuples of the rows without null keys are in non-decreasing order
+     */
+    private static boolean isSorted(long[][] words, long[] nulls) {
+        final int rows = words[0].length;
+        int previous = -1;
+        for (int i = 0; i < rows; ++i) {
+            if (!isNull(nulls, i)) {
+                if (previous >= 0 && compare(words, previous, words, i) > 0) {
+                    return false;
+                }
+                previous = i;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares two encoded key tuples lexicographically
+     */
+    private static int compare(long[][] left, int leftRow, long[][] right, int rightRow) {
+        for (int k = 0; k < left.length; ++k) {
+            final int result = Long.compare(left[k][leftRow], right[k][rightRow]);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,19 @@
+package com.zavtech.morpheus.join;
+
+/**
+ * Enumerates the kinds of equi-join supported by Join.
+ */
+public enum JoinType {
+
+    /** Only rows with a matching key on both sides */
+    INNER,
+
+    /** All rows of the left frame, with missing values where the right frame has no match */
+    LEFT,
+
+    /** All rows of the right frame, with missing values where the left frame has no match */
+    RIGHT,
+
+    /** All rows of both frames, with missing values where either side has no match */
+    OUTER
+}
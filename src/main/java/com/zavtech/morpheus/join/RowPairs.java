@@ -0,0 +1,96 @@
+package com.zavtech.morpheus.join;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A growable list of matched row index pairs, where -1 denotes a missing row on one side.
+ */
+final class RowPairs {
+
+    private int size;
+    private int[] left;
+    private int[] right;
+
+    /**
+     * Constructor
+     * @param capacity  the initial capacity
+     */
+    RowPairs(int capacity) {
+        this.left = new int[Math.max(16, capacity)];
+        this.right = new int[left.length];
+    }
+
+    /**
+     * Appends a pair of row indexes
+     * @param leftRow   the left row, or -1
+     * @param rightRow  the right row, or -1
+     */
+    void add(int leftRow, int rightRow) {
+        if (size == left.length) {
+            final int capacity = size + (size >> 1);
+            this.left = Arrays.copyOf(left, capacity);
+            this.right = Arrays.copyOf(right, capacity);
+        }
+        this.left[size] = leftRow;
+        this.right[size] = rightRow;
+        this.size++;
+    }
+
+    /**
+     * Returns the number of pairs
+     * @return  the pair count
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the left row indexes, trimmed to size
+     * @return  the left rows
+     */
+    int[] left() {
+        return left.length == size ? left : Arrays.copyOf(left, size);
+    }
+
+    /**
+     * Returns the right row indexes, trimmed to size
+     * @return  the right rows
+     */
+    int[] right() {
+        return right.length == size ? right : Arrays.copyOf(right, size);
+    }
+
+    /**
+     * Returns the pairs of the lists specified one after another
+     * @param parts the lists to concatenate
+     * @return      the concatenated pairs
+     */
+    static RowPairs concat(List<RowPairs> parts) {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        int total = 0;
+        for (RowPairs part : parts) {
+            total += part.size;
+        }
+        final RowPairs result = new RowPairs(total);
+        for (RowPairs part : parts) {
+            System.arraycopy(part.left, 0, result.left, result.size, part.size);
+            System.arraycopy(part.right, 0, result.right, result.size, part.size);
+            result.size += part.size;
+        }
+        return result;
+    }
+
+    /**
+     * Returns these pairs with the left and right sides exchanged
+     * @return  the swapped pairs
+     */
+    RowPairs swap() {
+        final int[] temp = left;
+        this.left = right;
+        this.right = temp;
+        return this;
+    }
+}
@@ -0,0 +1,135 @@
+package com.zavtech.morpheus.linalg;
+
+import com.zavtech.morpheus.frame.DataFrameException;
+
+/**
+ * The Cholesky decomposition A = LL' of a symmetric positive definite matrix.
+ *
+ * The factor is computed row by row, so each element is a dot product of two rows of L that
+ * are contiguous in the row-major array. Only the lower triangle of the input is read.
+ */
+public final class Cholesky {
+
+    private final int size;
+    private final double[] lower;
+
+    /**
+     * Constructor
+     * @param size  the number of rows and columns
+     * @param lower the lower triangular factor in row-major order
+     */
+    private Cholesky(int size, double[] lower) {
+        this.size = size;
+        this.lower = lower;
+    }
+
+    /**
+     * Returns the Cholesky decomposition of a symmetric positive definite matrix
+     * @param matrix    the matrix to decompose
+     * @return          the decomposition
+     * @throws DataFrameException   if the matrix is not square or not positive definite
+     */
+    public static Cholesky of(Matrix matrix) {
+        if (!matrix.isSquare()) {
+            throw new DataFrameException("Cholesky decomposition requires a square matrix, not " + matrix.rows() + "x" + matrix.cols());
+        }
+        final int n = matrix.rows();
+        final double[] a = matrix.values();
+        final double[] l = new double[n * n];
+        for (int i = 0; i < n; ++i) {
+            final int row = i * n;
+            for (int j = 0; j <= i; ++j) {
+                final int other = j * n;
+                double sum = a[row + j];
+                for (int k = 0; k < j; ++k) {
+                    sum -= l[row + k] * l[other + k];
+                }
+                if (i == j) {
+                    if (!(sum > 0d)) {
+                        throw new DataFrameException("Matrix is not positive definite at row " + i);
+                    }
+                    l[row + i] = Math.sqrt(sum);
+                } else {
+                    l[row + j] = sum / l[other + j];
+                }
+            }
+        }
+        return new Cholesky(n, l);
+    }
+
+    /**
+     * Returns the lower triangular factor L
+     * @return  a copy of the factor
+     */
+    public Matrix lower() {
+        return new Matrix(size, size, lower.clone());
+    }
+
+    /**
+     * Solves Ax = b for x
+     * @param b the right hand side
+     * @return  the solution
+     */
+    public double[] solve(double[] b) {
+        if (b.length != size) {
+            throw new DataFrameException("Expected a vector of length " + size + ", not " + b.length);
+        }
+        final double[] x = b.clone();
+        for (int i = 0; i < size; ++i) {
+            double sum = x[i];
+            for (int k = 0; k < i; ++k) {
+                sum -= lower[i * size + k] * x[k];
+            }
+            x[i] = sum / lower[i * size + i];
+        }
+        for (int i = size - 1; i >= 0; --i) {
+            double sum = x[i];
+            for (int k = i + 1; k < size; ++k) {
+                sum -= lower[k * size + i] * x[k];
+            }
+            x[i] = sum / lower[i * size + i];
+        }
+        return x;
+    }
+
+    /**
+     * Solves AX = B for X
+     * @param b the right hand sides, one per column
+     * @return  the solutions, one per column
+     */
+    public Matrix solve(Matrix b) {
+        final Matrix result = new Matrix(size, b.cols());
+        for (int j = 0; j < b.cols(); ++j) {
+            final double[] x = solve(b.column(j));
+            for (int i = 0; i < size; ++i) {
+                result.set(i, j, x[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the inverse of the decomposed matrix
+     * @return  the inverse
+     */
+    public Matrix inverse() {
+        return solve(Matrix.identity(size));
+    }
+
+    /**
+     * Returns the natural log of the determinant of the decomposed matrix
+     * @return  the log determinant
+     */
+    public double logDeterminant() {
+        double sum = 0d;
+        for (int i = 0; i < size; ++i) {
+            sum += Math.log(lower[i * size + i]);
+        }
+        return 2d * sum;
+    }
+
+    @Override
+    public String toString() {
+        return "Cholesky(" + size + "x" + size + ")";
+    }
+}
@@ -0,0 +1,83 @@
+package com.zavtech.morpheus.linalg;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.NumericColumn;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.parallel.Morsels;
+import com.zavtech.morpheus.stats.CrossProducts;
+
+/**
+ * Covariance and correlation matrices of the numeric columns of a frame.
+ *
+ * The matrices are computed from CrossProducts, which reads the columns in place a block of rows
+ * at a time, so only the matrix itself is allocated however many rows the frame has. Rows with a
+ * null in any of the columns are excluded, so every element is over the same complete rows and the
+ * matrices are positive semi-definite.
+ */
+public final class Covariance {
+
+    private Covariance() {
+        super();
+    }
+
+    /**
+     * Returns the sample covariance matrix of the columns specified
+     * @param frame     the frame
+     * @param columns   the names of the numeric columns, or none for all numeric columns
+     * @return          the covariance matrix, with rows and columns in the order of the columns
+     */
+    public static Matrix covariance(DataFrame frame, String... columns) {
+        final CrossProducts products = CrossProducts.of(numeric(frame, columns), Morsels.getDefaultParallelism());
+        final int size = products.size();
+        final Matrix result = new Matrix(size, size);
+        for (int i = 0; i < size; ++i) {
+            for (int j = 0; j < size; ++j) {
+                result.set(i, j, products.covariance(i, j));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the correlation matrix of the columns specified
+     * @param frame     the frame
+     * @param columns   the names of the numeric columns, or none for all numeric columns
+     * @return          the correlation matrix, with rows and columns in the order of the columns
+     */
+    public static Matrix correlation(DataFrame frame, String... columns) {
+        final CrossProducts products = CrossProducts.of(numeric(frame, columns), Morsels.getDefaultParallelism());
+        final int size = products.size();
+        final Matrix result = new Matrix(size, size);
+        for (int i = 0; i < size; ++i) {
+            for (int j = 0; j < size; ++j) {
+                result.set(i, j, products.correlation(i, j));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the numeric columns of a frame with the names specified, or all of them if none are
+     * @param frame     the frame
+     * @param columns   the column names
+     * @return          the numeric columns
+     */
+    static List<NumericColumn> numeric(DataFrame frame, String... columns) {
+        final List<NumericColumn> result = new ArrayList<>();
+        if (columns.length == 0) {
+            for (Column column : frame.columns()) {
+                if (column instanceof NumericColumn) {
+                    result.add((NumericColumn)column);
+                }
+            }
+        } else {
+            for (String name : columns) {
+                result.add(frame.numeric(name));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,295 @@
+package com.zavtech.morpheus.linalg;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.DoubleArrayColumn;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+
+/**
+ * A dense matrix of doubles stored in row-major order, for the small results of linear algebra on frames.
+ *
+ * Matrices hold results whose size depends on the number of columns analysed rather than the
+ * number of rows, such as covariance matrices, regression coefficients and principal components,
+ * so they are held on the heap as a single array. Products are computed in i-k-j order so that
+ * the inner loop runs along rows of both operands.
+ */
+public final class Matrix {
+
+    private final int rows;
+    private final int cols;
+    private final double[] values;
+
+    /**
+     * Constructor
+     * @param rows  the number of rows
+     * @param cols  the number of columns
+     */
+    public Matrix(int rows, int cols) {
+        this(rows, cols, new double[checkSize(rows, cols)]);
+    }
+
+    /**
+     * Constructor
+     * @param rows      the number of rows
+     * @param cols      the number of columns
+     * @param values    the values in row-major order, which are not copied
+     */
+    Matrix(int rows, int cols, double[] values) {
+        this.rows = rows;
+        this.cols = cols;
+        this.values = values;
+        if (values.length != checkSize(rows, cols)) {
+            throw new IllegalArgumentException("Array of " + values.length + " values does not match " + rows + "x" + cols);
+        }
+    }
+
+    /**
+     * Returns a matrix holding a copy of the values of a two dimensional array
+     * @param values    the values, one array per row, all of the same length
+     * @return          the matrix
+     */
+    public static Matrix of(double[][] values) {
+        final int cols = values.length > 0 ? values[0].length : 0;
+        final Matrix result = new Matrix(values.length, cols);
+        for (int i = 0; i < values.length; ++i) {
+            if (values[i].length != cols) {
+                throw new IllegalArgumentException("Row " + i + " has " + values[i].length + " values, expected " + cols);
+            }
+            System.arraycopy(values[i], 0, result.values, i * cols, cols);
+        }
+        return result;
+    }
+
+    /**
+     * Returns an identity matrix
+     * @param size  the number of rows and columns
+     * @return      the identity matrix
+     */
+    public static Matrix identity(int size) {
+        final Matrix result = new Matrix(size, size);
+        for (int i = 0; i < size; ++i) {
+            result.values[i * size + i] = 1d;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of rows
+     * @return  the row count
+     */
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * Returns the number of columns
+     * @return  the column count
+     */
+    public int cols() {
+        return cols;
+    }
+
+    /**
+     * Returns true if this matrix has as many rows as columns
+     * @return  true if square
+     */
+    public boolean isSquare() {
+        return rows == cols;
+    }
+
+    /**
+     * Returns a value of this matrix
+     * @param row   the row index
+     * @param col   the column index
+     * @return      the value
+     */
+    public double get(int row, int col) {
+        return values[index(row, col)];
+    }
+
+    /**
+     * Sets a value of this matrix
+     * @param row   the row index
+     * @param col   the column index
+     * @param value the value
+     * @return      this matrix
+     */
+    public Matrix set(int row, int col, double value) {
+        this.values[index(row, col)] = value;
+        return this;
+    }
+
+    /**
+     * Returns a copy of a row of this matrix
+     * @param row   the row index
+     * @return      the row values
+     */
+    public double[] row(int row) {
+        final double[] result = new double[cols];
+        System.arraycopy(values, index(row, 0), result, 0, cols);
+        return result;
+    }
+
+    /**
+     * Returns a copy of a column of this matrix
+     * @param col   the column index
+     * @return      the column values
+     */
+    public double[] column(int col) {
+        final double[] result = new double[rows];
+        for (int i = 0; i < rows; ++i) {
+            result[i] = values[index(i, col)];
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of this matrix
+     * @return  the copy
+     */
+    public Matrix copy() {
+        return new Matrix(rows, cols, values.clone());
+    }
+
+    /**
+     * Returns the transpose of this matrix
+     * @return  the transpose
+     */
+    public Matrix transpose() {
+        final Matrix result = new Matrix(cols, rows);
+        for (int i = 0; i < rows; ++i) {
+            for (int j = 0; j < cols; ++j) {
+                result.values[j * rows + i] = values[i * cols + j];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the product of this matrix and another
+     * @param other the right operand, with as many rows as this matrix has columns
+     * @return      the product
+     */
+    public Matrix multiply(Matrix other) {
+        if (cols != other.rows) {
+            throw new DataFrameException("Cannot multiply " + rows + "x" + cols + " by " + other.rows + "x" + other.cols);
+        }
+        final Matrix result = new Matrix(rows, other.cols);
+        for (int i = 0; i < rows; ++i) {
+            final int out = i * other.cols;
+            for (int k = 0; k < cols; ++k) {
+                final double a = values[i * cols + k];
+                if (a != 0d) {
+                    final int in = k * other.cols;
+                    for (int j = 0; j < other.cols; ++j) {
+                        result.values[out + j] += a * other.values[in + j];
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the product of this matrix and a vector
+     * @param vector    the vector, with as many values as this matrix has columns
+     * @return          the product
+     */
+    public double[] multiply(double[] vector) {
+        if (cols != vector.length) {
+            throw new DataFrameException("Cannot multiply " + rows + "x" + cols + " by a vector of length " + vector.length);
+        }
+        final double[] result = new double[rows];
+        for (int i = 0; i < rows; ++i) {
+            double sum = 0d;
+            for (int j = 0; j < cols; ++j) {
+                sum += values[i * cols + j] * vector[j];
+            }
+            result[i] = sum;
+        }
+        return result;
+    }
+
+    /**
+     * Returns this matrix scaled by a constant
+     * @param factor    the scale factor
+     * @return          the scaled matrix
+     */
+    public Matrix scale(double factor) {
+        final Matrix result = copy();
+        for (int i = 0; i < values.length; ++i) {
+            result.values[i] *= factor;
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of the values of this matrix, one array per row
+     * @return  the values
+     */
+    public double[][] toArray() {
+        final double[][] result = new double[rows][];
+        for (int i = 0; i < rows; ++i) {
+            result[i] = row(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a frame with one DOUBLE column per column of this matrix
+     * @param names the column names
+     * @return      the frame
+     */
+    public DataFrame toFrame(List<String> names) {
+        if (names.size() != cols) {
+            throw new IllegalArgumentException("Expected " + cols + " column names, not " + names.size());
+        }
+        final List<Column> columns = new ArrayList<>(cols);
+        for (int j = 0; j < cols; ++j) {
+            columns.add(new DoubleArrayColumn(names.get(j), column(j)));
+        }
+        return DataFrame.of(columns);
+    }
+
+    /**
+     * Returns the values in row-major order, which are not copied
+     */
+    double[] values() {
+        return values;
+    }
+
+    /**
+     * Returns the index of a value in the row-major array
+     */
+    private int index(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            throw new IndexOutOfBoundsException("Index (" + row + ", " + col + ") out of bounds for " + rows + "x" + cols);
+        }
+        return row * cols + col;
+    }
+
+    /**
+     * Returns the number of values in a matrix of the size specified
+     */
+    private static int checkSize(int rows, int cols) {
+        if (rows < 0 || cols < 0 || (long)rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid matrix size: " + rows + "x" + cols);
+        }
+        return rows * cols;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder text = new StringBuilder("Matrix[" + rows + "x" + cols + "]");
+        for (int i = 0; i < Math.min(rows, 10); ++i) {
+            text.append("\n");
+            for (int j = 0; j < Math.min(cols, 10); ++j) {
+                text.append(String.format("%14.6g", values[i * cols + j]));
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,196 @@
+package com.zavtech.morpheus.linalg;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.DoubleArrayColumn;
+import com.zavtech.morpheus.column.NumericColumn;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.parallel.Morsels;
+import com.zavtech.morpheus.stats.CrossProducts;
+
+/**
+ * A principal component analysis of the numeric columns of a frame.
+ *
+ * The components are the eigenvectors of the covariance or correlation matrix, which is computed
+ * from CrossProducts without copying the columns, and is decomposed by SVD since for a symmetric
+ * positive semi-definite matrix the singular vectors are the eigenvectors. Each component is signed
+ * so that its largest loading is positive, which makes results repeatable. Scores are computed a
+ * block of rows at a time in parallel, and rows with a null in any column score NaN.
+ */
+public final class Pca {
+
+    private static final int BLOCK_SIZE = 2048;
+
+    private final List<String> names;
+    private final double[] means;
+    private final double[] scales;
+    private final double[] eigenvalues;
+    private final Matrix components;
+    private final long count;
+
+    /**
+     * Constructor
+     * @param columns       the analysed columns
+     * @param standardize   true to analyse correlations rather than covariances
+     */
+    private Pca(List<NumericColumn> columns, boolean standardize) {
+        final CrossProducts products = CrossProducts.of(columns, Morsels.getDefaultParallelism());
+        final int size = products.size();
+        if (products.count() < 2) {
+            throw new DataFrameException("At least two complete rows are required for a principal component analysis");
+        }
+        this.names = new ArrayList<>(size);
+        this.means = new double[size];
+        this.scales = new double[size];
+        this.count = products.count();
+        final Matrix matrix = new Matrix(size, size);
+        for (int i = 0; i < size; ++i) {
+            this.names.add(columns.get(i).name());
+            this.means[i] = products.mean(i);
+            this.scales[i] = standardize ? Math.sqrt(products.covariance(i, i)) : 1d;
+            if (!(scales[i] > 0d)) {
+                throw new DataFrameException("Cannot standardize constant column " + columns.get(i).name());
+            }
+            for (int j = 0; j < size; ++j) {
+                matrix.set(i, j, standardize ? products.correlation(i, j) : products.covariance(i, j));
+            }
+        }
+        final SVD svd = SVD.of(matrix);
+        this.eigenvalues = svd.singularValues();
+        this.components = svd.v();
+        for (int c = 0; c < size; ++c) {
+            int largest = 0;
+            for (int i = 1; i < size; ++i) {
+                largest = Math.abs(components.get(i, c)) > Math.abs(components.get(largest, c)) ? i : largest;
+            }
+            if (components.get(largest, c) < 0d) {
+                for (int i = 0; i < size; ++i) {
+                    components.set(i, c, -components.get(i, c));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a principal component analysis of the covariance matrix of the columns specified
+     * @param frame     the frame
+     * @param columns   the names of the numeric columns, or none for all numeric columns
+     * @return          the analysis
+     */
+    public static Pca covariance(DataFrame frame, String... columns) {
+        return new Pca(Covariance.numeric(frame, columns), false);
+    }
+
+    /**
+     * Returns a principal component analysis of the correlation matrix of the columns specified, so of standardized values
+     * @param frame     the frame
+     * @param columns   the names of the numeric columns, or none for all numeric columns
+     * @return          the analysis
+     */
+    public static Pca correlation(DataFrame frame, String... columns) {
+        return new Pca(Covariance.numeric(frame, columns), true);
+    }
+
+    /**
+     * Returns the names of the analysed columns
+     * @return  the column names, in the order of the rows of the components
+     */
+    public List<String> columnNames() {
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * Returns the number of complete rows the analysis is based on
+     * @return  the row count
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the variance explained by each component, in descending order
+     * @return  the eigenvalues
+     */
+    public double[] eigenvalues() {
+        return eigenvalues.clone();
+    }
+
+    /**
+     * Returns the fraction of the total variance explained by each component
+     * @return  the explained variance ratios, which sum to one
+     */
+    public double[] explainedVarianceRatio() {
+        double total = 0d;
+        for (double value : eigenvalues) {
+            total += value;
+        }
+        final double[] result = new double[eigenvalues.length];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = eigenvalues[i] / total;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the loadings of the components, with one row per column and one column per component
+     * @return  a copy of the component matrix
+     */
+    public Matrix components() {
+        return components.copy();
+    }
+
+    /**
+     * Returns the scores of the rows of a frame on the leading components, named pc1, pc2 and so on
+     * @param frame         the frame, which must have the analysed columns
+     * @param components    the number of leading components
+     * @return              a frame of DOUBLE columns with one row per row of the frame
+     */
+    public DataFrame transform(DataFrame frame, int components) {
+        if (components < 1 || components > eigenvalues.length) {
+            throw new IllegalArgumentException("The number of components must be between 1 and " + eigenvalues.length);
+        }
+        final int size = names.size();
+        final int rowCount = frame.rowCount();
+        final NumericColumn[] columns = new NumericColumn[size];
+        for (int i = 0; i < size; ++i) {
+            columns[i] = frame.numeric(names.get(i));
+        }
+        final double[][] loadings = new double[size][components];
+        for (int i = 0; i < size; ++i) {
+            for (int c = 0; c < components; ++c) {
+                loadings[i][c] = this.components.get(i, c) / scales[i];
+            }
+        }
+        final double[][] scores = new double[components][rowCount];
+        Morsels.create().forEach(rowCount, (morsel, from, to) -> {
+            final double[] values = new double[BLOCK_SIZE];
+            for (int start = from; start < to; start += BLOCK_SIZE) {
+                final int count = Math.min(BLOCK_SIZE, to - start);
+                for (int i = 0; i < size; ++i) {
+                    columns[i].getDoubles(start, values, 0, count);
+                    final double mean = means[i];
+                    for (int c = 0; c < components; ++c) {
+                        final double loading = loadings[i][c];
+                        final double[] out = scores[c];
+                        for (int r = 0; r < count; ++r) {
+                            out[start + r] += (values[r] - mean) * loading;
+                        }
+                    }
+                }
+            }
+        });
+        final List<Column> result = new ArrayList<>(components);
+        for (int c = 0; c < components; ++c) {
+            result.add(new DoubleArrayColumn("pc" + (c + 1), scores[c]));
+        }
+        return DataFrame.of(result);
+    }
+
+    @Override
+    public String toString() {
+        return "Pca(columns=" + names + ", rows=" + count + ")";
+    }
+}
@@ -0,0 +1,215 @@
+package com.zavtech.morpheus.linalg;
+
+import com.zavtech.morpheus.frame.DataFrameException;
+
+/**
+ * The QR decomposition A = QR of a matrix with at least as many rows as columns, computed with Householder reflections.
+ *
+ * The matrix is held by column, so that each reflection reads and updates contiguous arrays, and
+ * the reflections are kept in place below the diagonal of R so that Q is applied without being formed.
+ *
+ * The same reflections also update a triangular factor with a block of rows at a time, which is how
+ * regressions factor a tall design a block at a time in the manner of TSQR, without holding the design.
+ */
+public final class QR {
+
+    private final int rows;
+    private final int cols;
+    private final double[][] columns;
+    private final double[] diagonal;
+
+    /**
+     * Constructor
+     * @param rows      the number of rows
+     * @param cols      the number of columns
+     * @param columns   the reflections below the diagonal and R above it, by column
+     * @param diagonal  the diagonal of R
+     */
+    private QR(int rows, int cols, double[][] columns, double[] diagonal) {
+        this.rows = rows;
+        this.cols = cols;
+        this.columns = columns;
+        this.diagonal = diagonal;
+    }
+
+    /**
+     * Returns the QR decomposition of a matrix
+     * @param matrix    the matrix, with at least as many rows as columns
+     * @return          the decomposition
+     */
+    public static QR of(Matrix matrix) {
+        final int m = matrix.rows();
+        final int n = matrix.cols();
+        if (m < n) {
+            throw new DataFrameException("QR decomposition requires at least as many rows as columns, not " + m + "x" + n);
+        }
+        final double[][] a = new double[n][];
+        for (int j = 0; j < n; ++j) {
+            a[j] = matrix.column(j);
+        }
+        final double[] diagonal = new double[n];
+        for (int k = 0; k < n; ++k) {
+            final double[] v = a[k];
+            double norm = 0d;
+            for (int i = k; i < m; ++i) {
+                norm = Math.hypot(norm, v[i]);
+            }
+            if (norm != 0d) {
+                norm = v[k] < 0d ? -norm : norm;
+                for (int i = k; i < m; ++i) {
+                    v[i] /= norm;
+                }
+                v[k] += 1d;
+                for (int j = k + 1; j < n; ++j) {
+                    final double[] c = a[j];
+                    double s = 0d;
+                    for (int i = k; i < m; ++i) {
+                        s += v[i] * c[i];
+                    }
+                    s = -s / v[k];
+                    for (int i = k; i < m; ++i) {
+                        c[i] += s * v[i];
+                    }
+                }
+            }
+            diagonal[k] = -norm;
+        }
+        return new QR(m, n, a, diagonal);
+    }
+
+    /**
+     * Returns true if no diagonal element of R is zero
+     * @return  true if the decomposed matrix has full column rank
+     */
+    public boolean isFullRank() {
+        for (double value : diagonal) {
+            if (value == 0d) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the upper triangular factor R
+     * @return  the factor, with as many rows and columns as the decomposed matrix has columns
+     */
+    public Matrix r() {
+        final Matrix result = new Matrix(cols, cols);
+        for (int j = 0; j < cols; ++j) {
+            for (int i = 0; i < j; ++i) {
+                result.set(i, j, columns[j][i]);
+            }
+            result.set(j, j, diagonal[j]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the orthonormal factor Q
+     * @return  the thin factor, of the size of the decomposed matrix
+     */
+    public Matrix q() {
+        final Matrix result = new Matrix(rows, cols);
+        for (int j = 0; j < cols; ++j) {
+            final double[] e = new double[rows];
+            e[j] = 1d;
+            for (int k = cols - 1; k >= 0; --k) {
+                reflect(k, e);
+            }
+            for (int i = 0; i < rows; ++i) {
+                result.set(i, j, e[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the least squares solution x that minimizes ||Ax - b||
+     * @param b the right hand side, with as many values as the decomposed matrix has rows
+     * @return  the solution
+     * @throws DataFrameException   if the decomposed matrix is rank deficient
+     */
+    public double[] solve(double[] b) {
+        if (b.length != rows) {
+            throw new DataFrameException("Expected a vector of length " + rows + ", not " + b.length);
+        } else if (!isFullRank()) {
+            throw new DataFrameException("Matrix is rank deficient");
+        }
+        final double[] y = b.clone();
+        for (int k = 0; k < cols; ++k) {
+            reflect(k, y);
+        }
+        final double[] x = new double[cols];
+        for (int k = cols - 1; k >= 0; --k) {
+            double sum = y[k];
+            for (int j = k + 1; j < cols; ++j) {
+                sum -= columns[j][k] * x[j];
+            }
+            x[k] = sum / diagonal[k];
+        }
+        return x;
+    }
+
+    /**
+     * Applies the k-th reflection to a vector in place
+     */
+    private void reflect(int k, double[] vector) {
+        final double[] v = columns[k];
+        if (v[k] != 0d) {
+            double s = 0d;
+            for (int i = k; i < rows; ++i) {
+                s += v[i] * vector[i];
+            }
+            s = -s / v[k];
+            for (int i = k; i < rows; ++i) {
+                vector[i] += s * v[i];
+            }
+        }
+    }
+
+    /**
+     * Updates an upper triangular factor with a block of rows, so that R'R afterwards equals R'R + B'B before.
+     * Each reflection combines the diagonal element of a column of R with that column of the block, so the
+     * zeros below the diagonal of R are never touched.
+     * @param r         the factor by column, where r[j][i] holds R(i, j) for i up to j, updated in place
+     * @param block     the block of rows by column, which is overwritten
+     * @param count     the number of rows in the block
+     */
+    static void update(double[][] r, double[][] block, int count) {
+        final int n = r.length;
+        for (int k = 0; k < n; ++k) {
+            final double[] v = block[k];
+            final double x = r[k][k];
+            double sum = x * x;
+            for (int i = 0; i < count; ++i) {
+                sum += v[i] * v[i];
+            }
+            final double norm = Math.sqrt(sum);
+            if (norm == 0d || norm == Math.abs(x)) {
+                continue;
+            }
+            final double alpha = x >= 0d ? -norm : norm;
+            final double head = x - alpha;
+            final double tau = 1d / (norm * (norm + Math.abs(x)));
+            for (int j = k + 1; j < n; ++j) {
+                final double[] c = block[j];
+                double w = head * r[j][k];
+                for (int i = 0; i < count; ++i) {
+                    w += v[i] * c[i];
+                }
+                final double f = tau * w;
+                r[j][k] -= f * head;
+                for (int i = 0; i < count; ++i) {
+                    c[i] -= f * v[i];
+                }
+            }
+            r[k][k] = alpha;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "QR(" + rows + "x" + cols + ")";
+    }
+}
@@ -0,0 +1,269 @@
+package com.zavtech.morpheus.linalg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import com.zavtech.morpheus.column.NumericColumn;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.parallel.Morsels;
+
+/**
+ * A linear regression of a response column on regressor columns of a frame, by ordinary, weighted or generalized least squares.
+ *
+ * The design is never assembled as a matrix. Each worker stages a block of rows of the regressors
+ * and the response into a small buffer and folds it into a triangular factor R of its own with
+ * Householder reflections, then the factors of the workers are folded together in the same way, as
+ * in TSQR. Since the response is the last column of the design, the final R holds everything needed
+ * for the coefficients, their standard errors and the fit, and since it comes from QR rather than
+ * from normal equations, the precision does not suffer from squaring the condition number.
+ *
+ * Weighted least squares scales each row by the square root of its weight. Generalized least squares
+ * is supported for errors that follow an AR(1) process with a known autocorrelation, by applying
+ * the Prais-Winsten transform to the rows as they are staged. Rows with a null or NaN value in any
+ * of the columns used are excluded, as are rows that follow such a row under an AR(1) transform.
+ */
+public final class Regression {
+
+    private static final int BLOCK_SIZE = 1024;
+
+    private final DataFrame frame;
+    private final String response;
+    private final List<String> regressors;
+    private final Morsels morsels = Morsels.create();
+    private boolean intercept = true;
+    private String weights;
+    private double autocorrelation;
+
+    /**
+     * Constructor
+     * @param frame         the frame
+     * @param response      the name of the response column
+     * @param regressors    the names of the regressor columns
+     */
+    private Regression(DataFrame frame, String response, List<String> regressors) {
+        this.frame = Objects.requireNonNull(frame, "The frame cannot be null");
+        this.response = Objects.requireNonNull(response, "The response cannot be null");
+        this.regressors = new ArrayList<>(regressors);
+    }
+
+    /**
+     * Returns an ordinary least squares regression with an intercept, which the setters can turn into WLS or GLS
+     * @param frame         the frame
+     * @param response      the name of the numeric response column
+     * @param regressors    the names of the numeric regressor columns
+     * @return              the regression
+     */
+    public static Regression of(DataFrame frame, String response, String... regressors) {
+        return new Regression(frame, response, Arrays.asList(regressors));
+    }
+
+    /**
+     * Sets whether the model includes an intercept term
+     * @param intercept true to include an intercept, which is the default
+     * @return          this regression
+     */
+    public Regression setIntercept(boolean intercept) {
+        this.intercept = intercept;
+        return this;
+    }
+
+    /**
+     * Sets a column of weights, for weighted least squares, where each weight is inversely proportional to the variance of the error of its row
+     * @param weights   the name of the numeric weight column, or null for equal weights
+     * @return          this regression
+     */
+    public Regression setWeights(String weights) {
+        this.weights = weights;
+        return this;
+    }
+
+    /**
+     * Sets the autocorrelation of errors that follow an AR(1) process, for generalized least squares
+     * @param autocorrelation   the lag one autocorrelation, strictly between -1 and 1, where zero means uncorrelated errors
+     * @return                  this regression
+     */
+    public Regression setAutocorrelation(double autocorrelation) {
+        if (!(Math.abs(autocorrelation) < 1d)) {
+            throw new IllegalArgumentException("The autocorrelation must be between -1 and 1, not " + autocorrelation);
+        }
+        this.autocorrelation = autocorrelation;
+        return this;
+    }
+
+    /**
+     * Sets the max number of threads used to fit the regression
+     * @param parallelism   the parallelism, where 1 fits on the calling thread
+     * @return              this regression
+     */
+    public Regression setParallelism(int parallelism) {
+        this.morsels.setParallelism(parallelism);
+        return this;
+    }
+
+    /**
+     * Fits the regression
+     * @return  the fitted model
+     * @throws DataFrameException   if there are too few complete rows or the regressors are collinear
+     */
+    public RegressionResult fit() {
+        final List<String> terms = new ArrayList<>();
+        final List<NumericColumn> columns = new ArrayList<>();
+        if (intercept) {
+            terms.add(RegressionResult.INTERCEPT);
+            columns.add(null);
+        }
+        for (String name : regressors) {
+            terms.add(name);
+            columns.add(frame.numeric(name));
+        }
+        columns.add(frame.numeric(response));
+        final NumericColumn weightColumn = weights != null ? frame.numeric(weights) : null;
+        final NumericColumn[] array = columns.toArray(new NumericColumn[0]);
+        final List<Factor> factors = morsels.collect(frame.rowCount(), () -> new Factor(array, weightColumn, autocorrelation), (factor, morsel, from, to) -> factor.add(from, to));
+        final Factor total = new Factor(array, null, 0d);
+        for (Factor factor : factors) {
+            total.merge(factor);
+        }
+        if (total.count <= terms.size()) {
+            throw new DataFrameException("A regression on " + terms.size() + " terms requires more than " + total.count + " complete rows");
+        }
+        return new RegressionResult(response, terms, total.r, total.count, intercept);
+    }
+
+    @Override
+    public String toString() {
+        return "Regression(response=" + response + ", regressors=" + regressors + ", weights=" + weights + ", autocorrelation=" + autocorrelation + ")";
+    }
+
+
+    /**
+     * The triangular factor of the rows claimed by one worker, with a buffer for one block of transformed rows
+     */
+    private static final class Factor {
+
+        private final NumericColumn[] columns;
+        private final NumericColumn weights;
+        private final double rho;
+        private final double[][] r;
+        private final double[][] block;
+        private final double[][] values;
+        private final double[] scales;
+        private long count;
+
+        /**
+         * Constructor
+         * @param columns   the regressor columns followed by the response, where null stands for the intercept
+         * @param weights   the weight column, or null for equal weights
+         * @param rho       the AR(1) autocorrelation of the errors
+         */
+        Factor(NumericColumn[] columns, NumericColumn weights, double rho) {
+            this.columns = columns;
+            this.weights = weights;
+            this.rho = rho;
+            this.r = new double[columns.length][];
+            this.block = new double[columns.length][Math.max(BLOCK_SIZE, columns.length)];
+            this.values = new double[columns.length][BLOCK_SIZE + 1];
+            this.scales = new double[BLOCK_SIZE + 1];
+            for (int j = 0; j < columns.length; ++j) {
+                this.r[j] = new double[j + 1];
+            }
+        }
+
+        /**
+         * Folds the complete rows of a morsel into the factor
+         */
+        void add(int from, int to) {
+            for (int start = from; start < to; start += BLOCK_SIZE) {
+                final int count = stage(start, Math.min(BLOCK_SIZE, to - start));
+                QR.update(r, block, count);
+                this.count += count;
+            }
+        }
+
+        /**
+         * Folds the factor of another worker into this one, as a block of rows whose cross products are those of its rows
+         */
+        void merge(Factor other) {
+            final int n = columns.length;
+            for (int j = 0; j < n; ++j) {
+                Arrays.fill(block[j], 0, n, 0d);
+                System.arraycopy(other.r[j], 0, block[j], 0, j + 1);
+            }
+            QR.update(r, block, n);
+            this.count += other.count;
+        }
+
+        /**
+         * Stages the transformed complete rows of a block into the block buffer
+         * @param start     the first row of the block
+         * @param length    the number of rows in the block
+         * @return          the number of rows staged
+         */
+        private int stage(int start, int length) {
+            final boolean lag = rho != 0d && start > 0;
+            final int first = lag ? start - 1 : start;
+            final int span = lag ? length + 1 : length;
+            for (int i = 0; i < span; ++i) {
+                this.scales[i] = 1d;
+            }
+            if (weights != null) {
+                weights.getDoubles(first, scales, 0, span);
+                for (int i = 0; i < span; ++i) {
+                    if (scales[i] < 0d) {
+                        throw new DataFrameException("Negative weight at row " + (first + i) + " of " + weights.name());
+                    }
+                    this.scales[i] = Math.sqrt(scales[i]);
+                }
+            }
+            for (int j = 0; j < columns.length; ++j) {
+                if (columns[j] == null) {
+                    Arrays.fill(values[j], 0, span, 1d);
+                } else {
+                    columns[j].getDoubles(first, values[j], 0, span);
+                }
+            }
+            final double head = Math.sqrt(1d - rho * rho);
+            int count = 0;
+            for (int i = lag ? 1 : 0; i < span; ++i) {
+                if (complete(i) && scales[i] > 0d) {
+                    final int row = first + i;
+                    if (rho == 0d) {
+                        for (int j = 0; j < columns.length; ++j) {
+                            this.block[j][count] = scales[i] * values[j][i];
+                        }
+                        count++;
+                    } else if (row == 0) {
+                        for (int j = 0; j < columns.length; ++j) {
+                            this.block[j][count] = head * scales[i] * values[j][i];
+                        }
+                        count++;
+                    } else if (complete(i - 1)) {
+                        for (int j = 0; j < columns.length; ++j) {
+                            this.block[j][count] = scales[i] * values[j][i] - rho * scales[i - 1] * values[j][i - 1];
+                        }
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Returns true if no value of a staged row is NaN
+         */
+        private boolean complete(int i) {
+            if (Double.isNaN(scales[i])) {
+                return false;
+            }
+            for (double[] column : values) {
+                if (Double.isNaN(column[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
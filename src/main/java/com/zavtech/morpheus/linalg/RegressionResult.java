@@ -0,0 +1,259 @@
+package com.zavtech.morpheus.linalg;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleArrayColumn;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.NumericColumn;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+
+/**
+ * A fitted linear regression, derived from the triangular factor R of the design with the response as its last column.
+ *
+ * With p terms, the first p rows and columns of R give the coefficients by back substitution against
+ * the first p values of the last column, the last diagonal element squared is the residual sum of
+ * squares, and the inverse of the leading block of R gives the covariance of the coefficients. For
+ * weighted and generalized regressions all statistics are those of the transformed model.
+ */
+public final class RegressionResult {
+
+    /** The name of the intercept term */
+    public static final String INTERCEPT = "intercept";
+
+    /** The ratio to the largest diagonal element of R below which a regressor is taken to be collinear with the others */
+    private static final double COLLINEARITY = 1e-12;
+
+    private final String response;
+    private final List<String> terms;
+    private final double[] coefficients;
+    private final Matrix covariance;
+    private final long count;
+    private final double residualSumOfSquares;
+    private final double totalSumOfSquares;
+    private final boolean intercept;
+
+    /**
+     * Constructor
+     * @param response  the name of the response column
+     * @param terms     the names of the terms, starting with the intercept if any
+     * @param r         the factor by column, where r[j][i] holds R(i, j), with the response last
+     * @param count     the number of rows the model was fitted to
+     * @param intercept true if the first term is the intercept
+     */
+    RegressionResult(String response, List<String> terms, double[][] r, long count, boolean intercept) {
+        final int p = terms.size();
+        double largest = 0d;
+        for (int j = 0; j < p; ++j) {
+            largest = Math.max(largest, Math.abs(r[j][j]));
+        }
+        for (int j = 0; j < p; ++j) {
+            if (!(Math.abs(r[j][j]) > COLLINEARITY * largest)) {
+                throw new DataFrameException("Regressor " + terms.get(j) + " is collinear with the preceding terms");
+            }
+        }
+        final double[] z = r[p];
+        final double[] beta = new double[p];
+        for (int i = p - 1; i >= 0; --i) {
+            double sum = z[i];
+            for (int j = i + 1; j < p; ++j) {
+                sum -= r[j][i] * beta[j];
+            }
+            beta[i] = sum / r[i][i];
+        }
+        final double[][] inverse = new double[p][p];
+        for (int j = 0; j < p; ++j) {
+            inverse[j][j] = 1d / r[j][j];
+            for (int i = j - 1; i >= 0; --i) {
+                double sum = 0d;
+                for (int k = i + 1; k <= j; ++k) {
+                    sum += r[k][i] * inverse[k][j];
+                }
+                inverse[i][j] = -sum / r[i][i];
+            }
+        }
+        double total = 0d;
+        for (int i = intercept ? 1 : 0; i <= p; ++i) {
+            total += z[i] * z[i];
+        }
+        this.response = response;
+        this.terms = new ArrayList<>(terms);
+        this.coefficients = beta;
+        this.count = count;
+        this.intercept = intercept;
+        this.residualSumOfSquares = z[p] * z[p];
+        this.totalSumOfSquares = total;
+        final double variance = residualVariance();
+        this.covariance = new Matrix(p, p);
+        for (int i = 0; i < p; ++i) {
+            for (int j = i; j < p; ++j) {
+                double sum = 0d;
+                for (int k = j; k < p; ++k) {
+                    sum += inverse[i][k] * inverse[j][k];
+                }
+                this.covariance.set(i, j, variance * sum);
+                this.covariance.set(j, i, variance * sum);
+            }
+        }
+    }
+
+    /**
+     * Returns the names of the terms, starting with the intercept if the model has one
+     * @return  the term names
+     */
+    public List<String> terms() {
+        return new ArrayList<>(terms);
+    }
+
+    /**
+     * Returns the estimated coefficients, in the order of the terms
+     * @return  the coefficients
+     */
+    public double[] coefficients() {
+        return coefficients.clone();
+    }
+
+    /**
+     * Returns the estimated coefficient of a term
+     * @param term  the term name
+     * @return      the coefficient
+     */
+    public double coefficient(String term) {
+        final int index = terms.indexOf(term);
+        if (index < 0) {
+            throw new DataFrameException("No such term in regression: " + term);
+        }
+        return coefficients[index];
+    }
+
+    /**
+     * Returns the standard errors of the coefficients, in the order of the terms
+     * @return  the standard errors
+     */
+    public double[] standardErrors() {
+        final double[] result = new double[coefficients.length];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = Math.sqrt(covariance.get(i, i));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the t statistics of the coefficients, in the order of the terms
+     * @return  the t statistics
+     */
+    public double[] tStatistics() {
+        final double[] result = standardErrors();
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = coefficients[i] / result[i];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the estimated covariance matrix of the coefficients
+     * @return  a copy of the covariance matrix
+     */
+    public Matrix covariance() {
+        return covariance.copy();
+    }
+
+    /**
+     * Returns the number of rows the model was fitted to
+     * @return  the observation count
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the residual degrees of freedom
+     * @return  the observation count less the number of terms
+     */
+    public long degreesOfFreedom() {
+        return count - coefficients.length;
+    }
+
+    /**
+     * Returns the residual sum of squares
+     * @return  the sum of squared residuals
+     */
+    public double residualSumOfSquares() {
+        return residualSumOfSquares;
+    }
+
+    /**
+     * Returns the unbiased estimate of the variance of the errors
+     * @return  the residual sum of squares over the degrees of freedom
+     */
+    public double residualVariance() {
+        return residualSumOfSquares / degreesOfFreedom();
+    }
+
+    /**
+     * Returns the coefficient of determination, which is uncentered for a model without an intercept
+     * @return  the R squared
+     */
+    public double rSquared() {
+        return 1d - residualSumOfSquares / totalSumOfSquares;
+    }
+
+    /**
+     * Returns the coefficient of determination adjusted for the number of terms
+     * @return  the adjusted R squared
+     */
+    public double adjustedRSquared() {
+        final long offset = intercept ? 1 : 0;
+        return 1d - (1d - rSquared()) * (count - offset) / degreesOfFreedom();
+    }
+
+    /**
+     * Returns the fitted values of the response for the rows of a frame
+     * @param frame the frame, which must have the regressor columns
+     * @return      a DOUBLE column named after the response, NaN where a regressor is null
+     */
+    public DoubleColumn predict(DataFrame frame) {
+        final int rowCount = frame.rowCount();
+        final double[] result = new double[rowCount];
+        final double[] values = new double[Math.min(rowCount, Columns.BATCH_SIZE)];
+        for (int t = 0; t < terms.size(); ++t) {
+            final double beta = coefficients[t];
+            if (intercept && t == 0) {
+                for (int i = 0; i < rowCount; ++i) {
+                    result[i] += beta;
+                }
+            } else {
+                final NumericColumn column = frame.numeric(terms.get(t));
+                for (int from = 0; from < rowCount; from += values.length) {
+                    final int count = Math.min(values.length, rowCount - from);
+                    column.getDoubles(from, values, 0, count);
+                    for (int i = 0; i < count; ++i) {
+                        result[from + i] += beta * values[i];
+                    }
+                }
+            }
+        }
+        return new DoubleArrayColumn(response, result);
+    }
+
+    /**
+     * Returns a frame with one row per term, with columns term, coefficient, std_error and t_stat
+     * @return  the coefficient table
+     */
+    public DataFrame toFrame() {
+        final List<Column> columns = new ArrayList<>(4);
+        columns.add(Columns.ofStrings("term", terms.toArray(new String[0])));
+        columns.add(new DoubleArrayColumn("coefficient", coefficients()));
+        columns.add(new DoubleArrayColumn("std_error", standardErrors()));
+        columns.add(new DoubleArrayColumn("t_stat", tStatistics()));
+        return DataFrame.of(columns);
+    }
+
+    @Override
+    public String toString() {
+        return "RegressionResult(response=" + response + ", terms=" + terms + ", rows=" + count + ", r2=" + rSquared() + ")";
+    }
+}
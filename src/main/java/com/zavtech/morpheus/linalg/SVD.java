@@ -0,0 +1,175 @@
+package com.zavtech.morpheus.linalg;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import com.zavtech.morpheus.frame.DataFrameException;
+
+/**
+ * The singular value decomposition A = USV' of a matrix, computed with one-sided Jacobi rotations.
+ *
+ * Pairs of columns are rotated until all are orthogonal, when the column norms are the singular
+ * values. The matrix is held by column, so each rotation streams two contiguous arrays, and the
+ * method is accurate to high relative precision even for small singular values. A matrix with more
+ * columns than rows is decomposed through its transpose. For a symmetric positive semi-definite
+ * matrix, such as a covariance matrix, U equals V and the singular values are the eigenvalues.
+ */
+public final class SVD {
+
+    private static final int MAX_SWEEPS = 60;
+    private static final double EPSILON = Math.ulp(1d);
+
+    private final Matrix u;
+    private final double[] values;
+    private final Matrix v;
+
+    /**
+     * Constructor
+     * @param u         the left singular vectors, by column
+     * @param values    the singular values in descending order
+     * @param v         the right singular vectors, by column
+     */
+    private SVD(Matrix u, double[] values, Matrix v) {
+        this.u = u;
+        this.values = values;
+        this.v = v;
+    }
+
+    /**
+     * Returns the singular value decomposition of a matrix
+     * @param matrix    the matrix to decompose
+     * @return          the decomposition
+     * @throws DataFrameException   if the rotations fail to converge
+     */
+    public static SVD of(Matrix matrix) {
+        if (matrix.rows() < matrix.cols()) {
+            final SVD transposed = of(matrix.transpose());
+            return new SVD(transposed.v, transposed.values, transposed.u);
+        }
+        final int m = matrix.rows();
+        final int n = matrix.cols();
+        final double[][] a = new double[n][];
+        final double[][] w = new double[n][n];
+        for (int j = 0; j < n; ++j) {
+            a[j] = matrix.column(j);
+            w[j][j] = 1d;
+        }
+        boolean rotated = true;
+        for (int sweep = 0; rotated; ++sweep) {
+            if (sweep == MAX_SWEEPS) {
+                throw new DataFrameException("Singular value decomposition did not converge after " + MAX_SWEEPS + " sweeps");
+            }
+            rotated = false;
+            for (int p = 0; p < n - 1; ++p) {
+                for (int q = p + 1; q < n; ++q) {
+                    final double[] x = a[p];
+                    final double[] y = a[q];
+                    double alpha = 0d, beta = 0d, gamma = 0d;
+                    for (int i = 0; i < m; ++i) {
+                        alpha += x[i] * x[i];
+                        beta += y[i] * y[i];
+                        gamma += x[i] * y[i];
+                    }
+                    if (gamma != 0d && Math.abs(gamma) > EPSILON * Math.sqrt(alpha * beta)) {
+                        final double zeta = (beta - alpha) / (2d * gamma);
+                        final double t = Math.signum(zeta == 0d ? 1d : zeta) / (Math.abs(zeta) + Math.sqrt(1d + zeta * zeta));
+                        final double c = 1d / Math.sqrt(1d + t * t);
+                        final double s = c * t;
+                        rotate(x, y, m, c, s);
+                        rotate(w[p], w[q], n, c, s);
+                        rotated = true;
+                    }
+                }
+            }
+        }
+        final double[] norms = new double[n];
+        for (int j = 0; j < n; ++j) {
+            double sum = 0d;
+            for (int i = 0; i < m; ++i) {
+                sum += a[j][i] * a[j][i];
+            }
+            norms[j] = Math.sqrt(sum);
+        }
+        final Integer[] order = new Integer[n];
+        for (int j = 0; j < n; ++j) {
+            order[j] = j;
+        }
+        Arrays.sort(order, Comparator.comparingDouble((Integer j) -> norms[j]).reversed());
+        final Matrix u = new Matrix(m, n);
+        final Matrix v = new Matrix(n, n);
+        final double[] values = new double[n];
+        for (int k = 0; k < n; ++k) {
+            final int j = order[k];
+            values[k] = norms[j];
+            for (int i = 0; i < m; ++i) {
+                u.set(i, k, norms[j] > 0d ? a[j][i] / norms[j] : 0d);
+            }
+            for (int i = 0; i < n; ++i) {
+                v.set(i, k, w[j][i]);
+            }
+        }
+        return new SVD(u, values, v);
+    }
+
+    /**
+     * Applies a plane rotation to a pair of columns in place
+     */
+    private static void rotate(double[] x, double[] y, int length, double c, double s) {
+        for (int i = 0; i < length; ++i) {
+            final double xi = x[i];
+            final double yi = y[i];
+            x[i] = c * xi - s * yi;
+            y[i] = s * xi + c * yi;
+        }
+    }
+
+    /**
+     * Returns the singular values in descending order
+     * @return  a copy of the singular values
+     */
+    public double[] singularValues() {
+        return values.clone();
+    }
+
+    /**
+     * Returns the left singular vectors, one per column in the order of the singular values
+     * @return  a copy of U
+     */
+    public Matrix u() {
+        return u.copy();
+    }
+
+    /**
+     * Returns the right singular vectors, one per column in the order of the singular values
+     * @return  a copy of V
+     */
+    public Matrix v() {
+        return v.copy();
+    }
+
+    /**
+     * Returns the number of singular values above the tolerance implied by the precision of the largest
+     * @return  the numerical rank
+     */
+    public int rank() {
+        final double tolerance = values.length > 0 ? Math.max(u.rows(), v.rows()) * values[0] * EPSILON : 0d;
+        int rank = 0;
+        for (double value : values) {
+            rank += value > tolerance ? 1 : 0;
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the ratio of the largest to the smallest singular value
+     * @return  the condition number, infinite for a singular matrix
+     */
+    public double conditionNumber() {
+        return values.length > 0 ? values[0] / values[values.length - 1] : Double.NaN;
+    }
+
+    @Override
+    public String toString() {
+        return "SVD(" + u.rows() + "x" + v.rows() + ")";
+    }
+}
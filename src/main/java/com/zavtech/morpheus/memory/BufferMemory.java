@@ -0,0 +1,442 @@
+package com.zavtech.morpheus.memory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A contiguous, long addressable region of memory that lives outside the Java heap.
+ *
+ * The region is made up of direct or mapped ByteBuffer chunks whose size is a power
+ * of two, which lets it exceed the 2GB limit of a single buffer while still resolving
+ * an offset with a shift and a mask. All values are stored little endian so that the
+ * same layout can be persisted to, and mapped back from, a file.
+ *
+ * Memory allocated by this class is released eagerly on close() rather than waiting
+ * on the garbage collector. Accessing a region after it has been closed fails with an
+ * exception, but callers must ensure no other thread is reading it at that time.
+ */
+public final class BufferMemory implements AutoCloseable {
+
+    /** The log2 of the max chunk size in bytes, which keeps every chunk int addressable */
+    public static final int MAX_CHUNK_SHIFT = 30;
+
+    private static final ByteBuffer[] CLOSED = new ByteBuffer[0];
+    private static final AtomicLong allocatedBytes = new AtomicLong();
+    private static final MethodHandle invokeCleaner = cleaner();
+
+    private final int shift;
+    private final long mask;
+    private final long byteSize;
+    private final boolean owner;
+    private ByteBuffer[] chunks;
+    private DoubleBuffer[] doubleViews;
+    private LongBuffer[] longViews;
+    private IntBuffer[] intViews;
+
+    /**
+     * Constructor
+     * @param chunks    the chunks that make up this region
+     * @param shift     the log2 of the chunk size
+     * @param byteSize  the size of this region in bytes
+     * @param owner     true if this region owns its chunks and should release them on close
+     */
+    private BufferMemory(ByteBuffer[] chunks, int shift, long byteSize, boolean owner) {
+        this.shift = shift;
+        this.mask = (1L << shift) - 1L;
+        this.byteSize = byteSize;
+        this.owner = owner;
+        this.chunks = chunks;
+        this.doubleViews = new DoubleBuffer[chunks.length];
+        this.longViews = new LongBuffer[chunks.length];
+        this.intViews = new IntBuffer[chunks.length];
+        for (int i = 0; i < chunks.length; ++i) {
+            chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+            this.doubleViews[i] = chunks[i].duplicate().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+            this.longViews[i] = chunks[i].duplicate().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            this.intViews[i] = chunks[i].duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        }
+    }
+
+    /**
+     * Returns a newly allocated, zero filled off-heap region of the size specified
+     * @param byteSize  the size in bytes
+     * @return          the newly allocated region
+     */
+    public static BufferMemory allocate(long byteSize) {
+        if (byteSize < 0) {
+            throw new IllegalArgumentException("Memory size cannot be negative: " + byteSize);
+        }
+        final long chunkSize = 1L << MAX_CHUNK_SHIFT;
+        final int count = (int)Math.max(1L, (byteSize + chunkSize - 1L) >>> MAX_CHUNK_SHIFT);
+        final ByteBuffer[] chunks = new ByteBuffer[count];
+        long remaining = byteSize;
+        for (int i = 0; i < count; ++i) {
+            final int size = (int)Math.min(remaining, chunkSize);
+            chunks[i] = ByteBuffer.allocateDirect(size);
+            remaining -= size;
+        }
+        allocatedBytes.addAndGet(byteSize);
+        return new BufferMemory(chunks, MAX_CHUNK_SHIFT, byteSize, true);
+    }
+
+    /**
+     * Returns a region that wraps the buffers specified, which may be direct or mapped
+     * @param chunkShift    the log2 of the size of every chunk except the last
+     * @param owner         true if the region should release the buffers on close
+     * @param chunks        the chunks that make up the region
+     * @return              the region over the buffers
+     */
+    public static BufferMemory wrap(int chunkShift, boolean owner, ByteBuffer... chunks) {
+        long byteSize = 0L;
+        for (int i = 0; i < chunks.length; ++i) {
+            final int capacity = Objects.requireNonNull(chunks[i], "Chunk cannot be null").capacity();
+            if (i < chunks.length - 1 && capacity != (1 << chunkShift)) {
+                throw new IllegalArgumentException("Chunk " + i + " has capacity " + capacity + ", expected " + (1 << chunkShift));
+            } else if (capacity > (1 << chunkShift)) {
+                throw new IllegalArgumentException("Chunk " + i + " has capacity " + capacity + " exceeding " + (1 << chunkShift));
+            }
+            byteSize += capacity;
+        }
+        return new BufferMemory(chunks, chunkShift, byteSize, owner);
+    }
+
+    /**
+     * Returns the total number of bytes currently allocated off-heap by this class
+     * @return  the number of allocated bytes
+     */
+    public static long allocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    /**
+     * Returns the size of this region in bytes
+     * @return  the size in bytes
+     */
+    public long byteSize() {
+        return byteSize;
+    }
+
+    /**
+     * Returns true if this region has been closed
+     * @return  true if closed
+     */
+    public boolean isClosed() {
+        return chunks == CLOSED;
+    }
+
+    /**
+     * Returns the byte at the offset specified
+     * @param offset    the byte offset in this region
+     * @return          the value at offset
+     */
+    public byte getByte(long offset) {
+        return chunks[(int)(offset >>> shift)].get((int)(offset & mask));
+    }
+
+    /**
+     * Writes a byte at the offset specified
+     * @param offset    the byte offset in this region
+     * @param value     the value to write
+     */
+    public void putByte(long offset, byte value) {
+        this.chunks[(int)(offset >>> shift)].put((int)(offset & mask), value);
+    }
+
+    /**
+     * Copies bytes from this region into the array provided
+     * @param offset    the byte offset in this region
+     * @param dst       the destination array
+     * @param index     the index in the destination array
+     * @param length    the number of bytes to copy
+     */
+    public void getBytes(long offset, byte[] dst, int index, int length) {
+        while (length > 0) {
+            final int chunk = (int)(offset >>> shift);
+            final int position = (int)(offset & mask);
+            final int count = Math.min(length, chunks[chunk].capacity() - position);
+            this.chunks[chunk].get(position, dst, index, count);
+            offset += count;
+            index += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Returns the int at the offset specified
+     * @param offset    the byte offset in this region
+     * @return          the value at offset
+     */
+    public int getInt(long offset) {
+        return chunks[(int)(offset >>> shift)].getInt((int)(offset & mask));
+    }
+
+    /**
+     * Writes an int at the offset specified
+     * @param offset    the byte offset in this region
+     * @param value     the value to write
+     */
+    public void putInt(long offset, int value) {
+        this.chunks[(int)(offset >>> shift)].putInt((int)(offset & mask), value);
+    }
+
+    /**
+     * Returns the long at the offset specified
+     * @param offset    the byte offset in this region
+     * @return          the value at offset
+     */
+    public long getLong(long offset) {
+        return chunks[(int)(offset >>> shift)].getLong((int)(offset & mask));
+    }
+
+    /**
+     * Writes a long at the offset specified
+     * @param offset    the byte offset in this region
+     * @param value     the value to write
+     */
+    public void putLong(long offset, long value) {
+        this.chunks[(int)(offset >>> shift)].putLong((int)(offset & mask), value);
+    }
+
+    /**
+     * Returns the double at the offset specified
+     * @param offset    the byte offset in this region
+     * @return          the value at offset
+     */
+    public double getDouble(long offset) {
+        return chunks[(int)(offset >>> shift)].getDouble((int)(offset & mask));
+    }
+
+    /**
+     * Writes a double at the offset specified
+     * @param offset    the byte offset in this region
+     * @param value     the value to write
+     */
+    public void putDouble(long offset, double value) {
+        this.chunks[(int)(offset >>> shift)].putDouble((int)(offset & mask), value);
+    }
+
+    /**
+     * Copies doubles starting at the 8-byte aligned offset specified into the array provided
+     * @param offset    the byte offset in this region
+     * @param dst       the destination array
+     * @param index     the index in the destination array
+     * @param length    the number of values to copy
+     */
+    public void getDoubles(long offset, double[] dst, int index, int length) {
+        while (length > 0) {
+            final int chunk = (int)(offset >>> shift);
+            final int position = (int)(offset & mask) >>> 3;
+            final int count = Math.min(length, doubleViews[chunk].capacity() - position);
+            this.doubleViews[chunk].get(position, dst, index, count);
+            offset += (long)count << 3;
+            index += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Copies doubles from the array provided into this region at the 8-byte aligned offset specified
+     * @param offset    the byte offset in this region
+     * @param src       the source array
+     * @param index     the index in the source array
+     * @param length    the number of values to copy
+     */
+    public void putDoubles(long offset, double[] src, int index, int length) {
+        while (length > 0) {
+            final int chunk = (int)(offset >>> shift);
+            final int position = (int)(offset & mask) >>> 3;
+            final int count = Math.min(length, doubleViews[chunk].capacity() - position);
+            this.doubleViews[chunk].put(position, src, index, count);
+            offset += (long)count << 3;
+            index += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Copies longs starting at the 8-byte aligned offset specified into the array provided
+     * @param offset    the byte offset in this region
+     * @param dst       the destination array
+     * @param index     the index in the destination array
+     * @param length    the number of values to copy
+     */
+    public void getLongs(long offset, long[] dst, int index, int length) {
+        while (length > 0) {
+            final int chunk = (int)(offset >>> shift);
+            final int position = (int)(offset & mask) >>> 3;
+            final int count = Math.min(length, longViews[chunk].capacity() - position);
+            this.longViews[chunk].get(position, dst, index, count);
+            offset += (long)count << 3;
+            index += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Copies longs from the array provided into this region at the 8-byte aligned offset specified
+     * @param offset    the byte offset in this region
+     * @param src       the source array
+     * @param index     the index in the source array
+     * @param length    the number of values to copy
+     */
+    public void putLongs(long offset, long[] src, int index, int length) {
+        while (length > 0) {
+            final int chunk = (int)(offset >>> shift);
+            final int position = (int)(offset & mask) >>> 3;
+            final int count = Math.min(length, longViews[chunk].capacity() - position);
+            this.longViews[chunk].put(position, src, index, count);
+            offset += (long)count << 3;
+            index += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Copies ints starting at the 4-byte aligned offset specified into the array provided
+     * @param offset    the byte offset in this region
+     * @param dst       the destination array
+     * @param index     the index in the destination array
+     * @param length    the number of values to copy
+     */
+    public void getInts(long offset, int[] dst, int index, int length) {
+        while (length > 0) {
+            final int chunk = (int)(offset >>> shift);
+            final int position = (int)(offset & mask) >>> 2;
+            final int count = Math.min(length, intViews[chunk].capacity() - position);
+            this.intViews[chunk].get(position, dst, index, count);
+            offset += (long)count << 2;
+            index += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Copies ints from the array provided into this region at the 4-byte aligned offset specified
+     * @param offset    the byte offset in this region
+     * @param src       the source array
+     * @param index     the index in the source array
+     * @param length    the number of values to copy
+     */
+    public void putInts(long offset, int[] src, int index, int length) {
+        while (length > 0) {
+            final int chunk = (int)(offset >>> shift);
+            final int position = (int)(offset & mask) >>> 2;
+            final int count = Math.min(length, intViews[chunk].capacity() - position);
+            this.intViews[chunk].put(position, src, index, count);
+            offset += (long)count << 2;
+            index += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Fills a range of this region with bytes read from a channel, straight into the chunks without an intermediate copy
+     * @param channel   the channel to read from
+     * @param offset    the byte offset in this region
+     * @param length    the number of bytes to read
+     * @throws IOException  if the channel fails or ends before the range is filled
+     */
+    public void read(ReadableByteChannel channel, long offset, long length) throws IOException {
+        while (length > 0L) {
+            final ByteBuffer chunk = chunks[(int)(offset >>> shift)].duplicate();
+            final int position = (int)(offset & mask);
+            final int count = (int)Math.min(length, chunk.capacity() - position);
+            chunk.limit(position + count).position(position);
+            while (chunk.hasRemaining()) {
+                if (channel.read(chunk) < 0) {
+                    throw new EOFException("Unexpected end of channel with " + (length - (chunk.position() - position)) + " bytes remaining");
+                }
+            }
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Writes a range of this region to a channel, straight from the chunks without an intermediate copy
+     * @param channel   the channel to write to
+     * @param offset    the byte offset in this region
+     * @param length    the number of bytes to write
+     * @throws IOException  if the channel fails
+     */
+    public void write(WritableByteChannel channel, long offset, long length) throws IOException {
+        while (length > 0L) {
+            final ByteBuffer chunk = chunks[(int)(offset >>> shift)].duplicate();
+            final int position = (int)(offset & mask);
+            final int count = (int)Math.min(length, chunk.capacity() - position);
+            chunk.limit(position + count).position(position);
+            while (chunk.hasRemaining()) {
+                channel.write(chunk);
+            }
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Releases the memory behind this region if it is the owner, otherwise simply detaches from it
+     */
+    @Override
+    public synchronized void close() {
+        if (chunks != CLOSED) {
+            final ByteBuffer[] released = chunks;
+            this.chunks = CLOSED;
+            this.doubleViews = new DoubleBuffer[0];
+            this.longViews = new LongBuffer[0];
+            this.intViews = new IntBuffer[0];
+            if (owner) {
+                for (ByteBuffer buffer : released) {
+                    release(buffer);
+                }
+                allocatedBytes.addAndGet(-byteSize);
+            }
+        }
+    }
+
+    /**
+     * Eagerly frees the native memory behind a direct or mapped buffer where the runtime allows it
+     * @param buffer    the buffer to release
+     */
+    private static void release(ByteBuffer buffer) {
+        if (invokeCleaner != null && buffer.isDirect()) {
+            try {
+                invokeCleaner.invokeExact(buffer);
+            } catch (Throwable t) {
+                // The buffer will be reclaimed by the garbage collector instead
+            }
+        }
+    }
+
+    /**
+     * Returns a handle to Unsafe.invokeCleaner(), or null if it is not accessible in this runtime
+     */
+    private static MethodHandle cleaner() {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            final MethodType type = MethodType.methodType(void.class, ByteBuffer.class);
+            return MethodHandles.lookup().findVirtual(unsafeClass, "invokeCleaner", type).bindTo(field.get(null));
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BufferMemory(bytes=" + byteSize + ", chunks=" + chunks.length + ", owner=" + owner + ")";
+    }
+}
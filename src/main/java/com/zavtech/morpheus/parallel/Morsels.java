@@ -0,0 +1,338 @@
+package com.zavtech.morpheus.parallel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.profile.OperatorProfile;
+import com.zavtech.morpheus.profile.Profiler;
+
+/**
+ * Runs work over a range of rows split into fixed size morsels on a shared ForkJoinPool.
+ *
+ * Up to parallelism workers are started for each call, one on the calling thread and the rest
+ * forked into the pool, where idle pool threads steal them. Rather than being assigned a fixed
+ * share of the rows, each worker claims the next unprocessed morsel until none remain, so fast
+ * workers take on more morsels than slow ones and a worker that starts late, or never starts
+ * because the pool is busy, simply finds less work left. Workers may carry state of their own
+ * across the morsels they claim, such as a partial hash table, and results computed per morsel
+ * are returned in row order whichever worker produced them.
+ *
+ * Operators take their parallelism from setParallelism() on the operator, which defaults to the
+ * process wide default parallelism here, so that every operator can be tuned in one place. The
+ * first failure of any worker stops all workers from claiming further morsels and is rethrown
+ * on the calling thread, with checked exceptions wrapped as unchecked ones. Workers forked into
+ * the pool attach to the operator being profiled on the calling thread, if any, see Profiler.
+ */
+public final class Morsels {
+
+    /** The default number of rows in each morsel */
+    public static final int DEFAULT_MORSEL_ROWS = 1 << 16;
+
+    private static volatile int defaultParallelism = Runtime.getRuntime().availableProcessors();
+    private static volatile ForkJoinPool defaultPool = ForkJoinPool.commonPool();
+
+    private int parallelism = defaultParallelism;
+    private int morselRows = DEFAULT_MORSEL_ROWS;
+    private ForkJoinPool pool = defaultPool;
+
+    /**
+     * Constructor
+     */
+    private Morsels() {
+        super();
+    }
+
+    /**
+     * Returns a new executor with the default parallelism, morsel size and pool
+     * @return  the new executor
+     */
+    public static Morsels create() {
+        return new Morsels();
+    }
+
+    /**
+     * Returns the parallelism that new executors and operators start with, the number of processors unless changed
+     * @return  the default parallelism
+     */
+    public static int getDefaultParallelism() {
+        return defaultParallelism;
+    }
+
+    /**
+     * Sets the parallelism that new executors and operators start with
+     * @param parallelism   the default parallelism
+     */
+    public static void setDefaultParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be > 0");
+        }
+        Morsels.defaultParallelism = parallelism;
+    }
+
+    /**
+     * Returns the pool that new executors fork workers into, the common pool unless changed
+     * @return  the default pool
+     */
+    public static ForkJoinPool getDefaultPool() {
+        return defaultPool;
+    }
+
+    /**
+     * Sets the pool that new executors fork workers into
+     * @param pool  the default pool
+     */
+    public static void setDefaultPool(ForkJoinPool pool) {
+        Morsels.defaultPool = Objects.requireNonNull(pool, "The pool cannot be null");
+    }
+
+    /**
+     * Sets the max number of workers per call
+     * @param parallelism   the parallelism, where 1 runs all morsels on the calling thread
+     * @return              this executor
+     */
+    public Morsels setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be > 0");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets the number of rows in each morsel, which should be large enough to amortize claiming it
+     * @param morselRows    the morsel size in rows
+     * @return              this executor
+     */
+    public Morsels setMorselRows(int morselRows) {
+        if (morselRows < 1) {
+            throw new IllegalArgumentException("The morsel rows must be > 0");
+        }
+        this.morselRows = morselRows;
+        return this;
+    }
+
+    /**
+     * Sets the pool that workers are forked into
+     * @param pool  the pool
+     * @return      this executor
+     */
+    public Morsels setPool(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool, "The pool cannot be null");
+        return this;
+    }
+
+    /**
+     * Returns the max number of workers per call
+     * @return  the parallelism
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Returns the number of rows in each morsel
+     * @return  the morsel size in rows
+     */
+    public int getMorselRows() {
+        return morselRows;
+    }
+
+    /**
+     * Returns the number of morsels a range of rows is split into, which is at least one even for no rows
+     * @param rowCount  the number of rows
+     * @return          the morsel count
+     */
+    public int morselCount(int rowCount) {
+        return Math.max(1, (int)(((long)rowCount + morselRows - 1) / morselRows));
+    }
+
+    /**
+     * Applies a function to each morsel of a range of rows
+     * @param rowCount  the number of rows, from zero
+     * @param function  the function applied to the rows of each morsel
+     * @param <T>       the result type
+     * @return          the result for each morsel, in row order
+     */
+    public <T> List<T> map(int rowCount, MorselFunction<T> function) {
+        final Object[] results = new Object[morselCount(rowCount)];
+        this.forEach(rowCount, (morsel, from, to) -> results[morsel] = function.apply(from, to));
+        return cast(results);
+    }
+
+    /**
+     * Runs an action for each morsel of a range of rows
+     * @param rowCount  the number of rows, from zero
+     * @param action    the action run for the rows of each morsel
+     */
+    public void forEach(int rowCount, MorselAction action) {
+        this.collect(rowCount, () -> null, (state, morsel, from, to) -> action.run(morsel, from, to));
+    }
+
+    /**
+     * Runs the morsels of a range of rows on workers that each accumulate the morsels they claim into a state of their own
+     * @param rowCount  the number of rows, from zero
+     * @param supplier  the supplier of the state of each worker, called on the thread of the worker
+     * @param consumer  the consumer of each morsel into the state of the worker that claimed it
+     * @param <S>       the state type
+     * @return          the state of each worker that ran, in no particular order
+     */
+    public <S> List<S> collect(int rowCount, Supplier<S> supplier, MorselConsumer<S> consumer) {
+        final int morsels = morselCount(rowCount);
+        return run(morsels, supplier, (state, morsel) -> {
+            final int from = (int)Math.min(rowCount, (long)morsel * morselRows);
+            final int to = (int)Math.min(rowCount, (long)from + morselRows);
+            consumer.accept(state, morsel, from, to);
+        });
+    }
+
+    /**
+     * Runs independent tasks, such as byte ranges of a file, which are claimed in order by up to parallelism workers
+     * @param tasks the tasks to run
+     * @param <T>   the result type
+     * @return      the result of each task, in task order
+     */
+    public <T> List<T> invokeAll(List<? extends Callable<T>> tasks) {
+        final Object[] results = new Object[tasks.size()];
+        this.run(tasks.size(), () -> null, (state, index) -> results[index] = tasks.get(index).call());
+        return cast(results);
+    }
+
+    /**
+     * Runs items indexed from zero on up to parallelism workers, one on the calling thread and the rest forked into the pool
+     */
+    private <S> List<S> run(int count, Supplier<S> supplier, ItemConsumer<S> consumer) {
+        final int workers = Math.max(1, Math.min(parallelism, count));
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final OperatorProfile owner = Profiler.current();
+        final Callable<S> worker = () -> {
+            S state = null;
+            final Profiler.Worker attached = Profiler.attach(owner);
+            try {
+                state = supplier.get();
+                for (int index = next.getAndIncrement(); index < count && failure.get() == null; index = next.getAndIncrement()) {
+                    consumer.accept(state, index);
+                }
+            } catch (Throwable ex) {
+                failure.compareAndSet(null, ex);
+            } finally {
+                if (attached != null) {
+                    attached.close();
+                }
+            }
+            return state;
+        };
+        final boolean forkable = ForkJoinTask.getPool() == pool;
+        final List<ForkJoinTask<S>> forked = new ArrayList<>(workers - 1);
+        for (int w = 1; w < workers; ++w) {
+            final ForkJoinTask<S> task = ForkJoinTask.adapt(worker);
+            forked.add(forkable ? task.fork() : pool.submit(task));
+        }
+        final List<S> states = new ArrayList<>(workers);
+        try {
+            states.add(worker.call());
+        } catch (Exception ex) {
+            failure.compareAndSet(null, ex);
+        }
+        for (ForkJoinTask<S> task : forked) {
+            states.add(task.join());
+        }
+        final Throwable cause = failure.get();
+        if (cause == null) {
+            return states;
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException)cause;
+        } else if (cause instanceof Error) {
+            throw (Error)cause;
+        } else if (cause instanceof IOException) {
+            throw new UncheckedIOException((IOException)cause);
+        } else {
+            throw new DataFrameException("Parallel task failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> cast(Object[] results) {
+        return (List<T>)Arrays.asList(results);
+    }
+
+    @Override
+    public String toString() {
+        return "Morsels(parallelism=" + parallelism + ", morselRows=" + morselRows + ")";
+    }
+
+
+    /**
+     * A function of the rows of a morsel
+     * @param <T>   the result type
+     */
+    @FunctionalInterface
+    public interface MorselFunction<T> {
+
+        /**
+         * Returns the result for the rows of a morsel
+         * @param from  the first row, inclusive
+         * @param to    the last row, exclusive
+         * @return      the result
+         * @throws Exception    if the morsel cannot be processed
+         */
+        T apply(int from, int to) throws Exception;
+    }
+
+
+    /**
+     * An action on the rows of a morsel
+     */
+    @FunctionalInterface
+    public interface MorselAction {
+
+        /**
+         * Processes the rows of a morsel
+         * @param morsel    the morsel index, in row order
+         * @param from      the first row, inclusive
+         * @param to        the last row, exclusive
+         * @throws Exception    if the morsel cannot be processed
+         */
+        void run(int morsel, int from, int to) throws Exception;
+    }
+
+
+    /**
+     * A consumer of the rows of a morsel into the state of a worker
+     * @param <S>   the state type
+     */
+    @FunctionalInterface
+    public interface MorselConsumer<S> {
+
+        /**
+         * Accumulates the rows of a morsel into the state of the worker that claimed it
+         * @param state     the state of the worker
+         * @param morsel    the morsel index, in row order
+         * @param from      the first row, inclusive
+         * @param to        the last row, exclusive
+         * @throws Exception    if the morsel cannot be processed
+         */
+        void accept(S state, int morsel, int from, int to) throws Exception;
+    }
+
+
+    /**
+     * A consumer of an indexed item into the state of a worker
+     */
+    @FunctionalInterface
+    private interface ItemConsumer<S> {
+
+        void accept(S state, int index) throws Exception;
+    }
+}
@@ -0,0 +1,49 @@
+package com.zavtech.morpheus.profile;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Reads the CPU time and allocated bytes of the current thread, where the JVM supports them, and zero otherwise.
+ *
+ * This class is only loaded once profiling is first active, so the platform thread bean is never
+ * looked up by processes that do not profile.
+ */
+final class Clock {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU = THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+    private static final com.sun.management.ThreadMXBean ALLOCATION = allocation();
+
+    private Clock() {
+        super();
+    }
+
+    /**
+     * Returns the extended thread bean if it measures allocation, otherwise null
+     */
+    private static com.sun.management.ThreadMXBean allocation() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)THREADS;
+            return threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled() ? threads : null;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the CPU time of the current thread
+     * @return  the CPU time in nanoseconds, or zero if not supported
+     */
+    static long cpuNanos() {
+        return CPU ? THREADS.getCurrentThreadCpuTime() : 0L;
+    }
+
+    /**
+     * Returns the number of bytes allocated on the heap by the current thread
+     * @return  the allocated bytes, or zero if not supported
+     */
+    static long allocatedBytes() {
+        return ALLOCATION != null ? ALLOCATION.getCurrentThreadAllocatedBytes() : 0L;
+    }
+}
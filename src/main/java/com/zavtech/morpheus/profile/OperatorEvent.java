@@ -0,0 +1,56 @@
+package com.zavtech.morpheus.profile;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A Flight Recorder event for the execution of one operator, whose duration includes that of the operators below it.
+ *
+ * The event is disabled unless a recording enables it, in which case operators are profiled
+ * whether or not the Profiler is enabled, and the counters of the event exclude those below it.
+ */
+@Name("com.zavtech.morpheus.Operator")
+@Label("Morpheus Operator")
+@Category("Morpheus")
+@Description("The execution of one query operator, with counters that exclude the operators below it")
+@StackTrace(false)
+final class OperatorEvent extends Event {
+
+    @Label("Operator")
+    String operator;
+
+    @Label("Rows In")
+    long rowsIn;
+
+    @Label("Rows Out")
+    long rowsOut;
+
+    @Label("CPU Time")
+    @Timespan
+    long cpuTime;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+
+    @Label("Spilled")
+    @DataAmount
+    long spilled;
+
+    @Label("Threads")
+    int threads;
+
+    /**
+     * Returns true if a recording has enabled this event
+     * @return  true if enabled
+     */
+    static boolean isRecording() {
+        return new OperatorEvent().isEnabled();
+    }
+}
@@ -0,0 +1,282 @@
+package com.zavtech.morpheus.profile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The counters of one execution of an operator, in a tree that mirrors the operators that ran below it.
+ *
+ * Times and allocations are exclusive, so an operator is not charged for the operators below it,
+ * while rows in are the rows its inputs produced. Wall time is measured on the thread that ran the
+ * operator, while CPU time and allocations also include the worker threads that ran its morsels,
+ * so CPU time exceeds wall time for operators that ran in parallel. Counters are updated as the
+ * operator runs, and are final once the profile is complete.
+ */
+public final class OperatorProfile {
+
+    private final String operator;
+    private final OperatorProfile parent;
+    private final Thread thread;
+    private final List<OperatorProfile> children = new ArrayList<>();
+    private final Set<Long> threads = new HashSet<>();
+    private long rowsIn = -1L;
+    private long rowsOut = -1L;
+    private long wallNanos;
+    private long cpuNanos;
+    private long allocatedBytes;
+    private long spillBytes;
+    private long segmentWall;
+    private long segmentCpu;
+    private long segmentAllocated;
+    private boolean complete;
+    OperatorEvent event;
+
+    /**
+     * Constructor
+     * @param operator  the description of the operator
+     * @param parent    the operator this one runs below, null for a root
+     */
+    OperatorProfile(String operator, OperatorProfile parent) {
+        this.operator = operator;
+        this.parent = parent;
+        this.thread = Thread.currentThread();
+        this.threads.add(thread.getId());
+    }
+
+    /**
+     * Returns the operator this one runs below
+     * @return  the parent, or null for a root
+     */
+    OperatorProfile parent() {
+        return parent;
+    }
+
+    /**
+     * Returns true if the current thread is the one that runs this operator
+     */
+    boolean isOwner() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Starts a segment of exclusive time on the thread that runs this operator
+     */
+    void resume() {
+        this.segmentWall = System.nanoTime();
+        this.segmentCpu = Clock.cpuNanos();
+        this.segmentAllocated = Clock.allocatedBytes();
+    }
+
+    /**
+     * Ends a segment of exclusive time on the thread that runs this operator, such as when an operator below it starts
+     */
+    void pause() {
+        final long wall = System.nanoTime() - segmentWall;
+        add(wall, Clock.cpuNanos() - segmentCpu, Clock.allocatedBytes() - segmentAllocated);
+    }
+
+    /**
+     * Adds time and allocations measured on any thread
+     */
+    synchronized void add(long wallNanos, long cpuNanos, long allocatedBytes) {
+        this.wallNanos += wallNanos;
+        this.cpuNanos += cpuNanos;
+        this.allocatedBytes += allocatedBytes;
+    }
+
+    /**
+     * Adds an operator that runs below this one
+     */
+    synchronized void add(OperatorProfile child) {
+        this.children.add(child);
+    }
+
+    /**
+     * Records a thread that ran work for this operator
+     */
+    synchronized void addThread(Thread worker) {
+        this.threads.add(worker.getId());
+    }
+
+    /**
+     * Adds rows read by this operator from outside the tree, such as by a scan
+     */
+    synchronized void addRowsIn(long rows) {
+        this.rowsIn = Math.max(rowsIn, 0L) + rows;
+    }
+
+    /**
+     * Adds bytes written to disk for this operator
+     */
+    synchronized void addSpillBytes(long bytes) {
+        this.spillBytes += bytes;
+    }
+
+    /**
+     * Completes this profile, taking the rows in from the operators below it unless some were added
+     */
+    synchronized void complete(long rowsOut) {
+        this.rowsOut = rowsOut;
+        if (rowsIn < 0L && !children.isEmpty()) {
+            long rows = 0L;
+            for (OperatorProfile child : children) {
+                rows += Math.max(child.rowsOut(), 0L);
+            }
+            this.rowsIn = rows;
+        } else if (rowsIn < 0L) {
+            this.rowsIn = rowsOut;
+        }
+        this.complete = true;
+    }
+
+    /**
+     * Returns the description of the operator
+     * @return  the operator description
+     */
+    public String operator() {
+        return operator;
+    }
+
+    /**
+     * Returns the profiles of the operators that ran below this one, in the order they started
+     * @return  the child profiles
+     */
+    public synchronized List<OperatorProfile> children() {
+        return Collections.unmodifiableList(new ArrayList<>(children));
+    }
+
+    /**
+     * Returns true once the operator has finished
+     * @return  true if complete
+     */
+    public synchronized boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Returns the number of rows that entered the operator
+     * @return  the rows in, or -1 until complete
+     */
+    public synchronized long rowsIn() {
+        return rowsIn;
+    }
+
+    /**
+     * Returns the number of rows the operator produced
+     * @return  the rows out, or -1 until complete or if the operator failed
+     */
+    public synchronized long rowsOut() {
+        return rowsOut;
+    }
+
+    /**
+     * Returns the wall time spent in the operator itself, excluding the operators below it
+     * @return  the exclusive wall time in nanoseconds
+     */
+    public synchronized long wallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * Returns the wall time spent in the operator and the operators below it
+     * @return  the inclusive wall time in nanoseconds
+     */
+    public long totalWallNanos() {
+        long total = wallNanos();
+        for (OperatorProfile child : children()) {
+            total += child.totalWallNanos();
+        }
+        return total;
+    }
+
+    /**
+     * Returns the CPU time spent in the operator itself, over all threads that ran it
+     * @return  the exclusive CPU time in nanoseconds, or zero if the JVM does not measure it
+     */
+    public synchronized long cpuNanos() {
+        return cpuNanos;
+    }
+
+    /**
+     * Returns the bytes allocated on the heap by the operator itself, over all threads that ran it
+     * @return  the exclusive allocated bytes, or zero if the JVM does not measure them
+     */
+    public synchronized long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Returns the bytes the operator wrote to spill files
+     * @return  the spilled bytes
+     */
+    public synchronized long spillBytes() {
+        return spillBytes;
+    }
+
+    /**
+     * Returns the number of distinct threads that ran the operator, including the one that started it
+     * @return  the thread count
+     */
+    public synchronized int threads() {
+        return threads.size();
+    }
+
+    /**
+     * Appends this profile and those below it, one operator per line
+     * @param text  the text to append to
+     * @param depth the depth of this profile in the tree
+     */
+    void explain(StringBuilder text, int depth) {
+        for (int i = 0; i < depth; ++i) {
+            text.append("  ");
+        }
+        text.append(operator).append("  (rows=").append(rowsIn()).append(" -> ").append(rowsOut());
+        text.append(", wall=").append(formatNanos(wallNanos()));
+        text.append(", cpu=").append(formatNanos(cpuNanos()));
+        text.append(", alloc=").append(formatBytes(allocatedBytes()));
+        text.append(", spill=").append(formatBytes(spillBytes()));
+        text.append(", threads=").append(threads()).append(")\n");
+        for (OperatorProfile child : children()) {
+            child.explain(text, depth + 1);
+        }
+    }
+
+    /**
+     * Returns a duration in the largest unit that keeps it at or above one
+     */
+    static String formatNanos(long nanos) {
+        if (nanos >= 1_000_000_000L) {
+            return String.format(Locale.ROOT, "%.2fs", nanos / 1e9);
+        } else if (nanos >= 1_000_000L) {
+            return String.format(Locale.ROOT, "%.2fms", nanos / 1e6);
+        } else {
+            return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+        }
+    }
+
+    /**
+     * Returns a byte count in binary units
+     */
+    static String formatBytes(long bytes) {
+        if (bytes >= 1L << 30) {
+            return String.format(Locale.ROOT, "%.2fGB", bytes / (double)(1L << 30));
+        } else if (bytes >= 1L << 20) {
+            return String.format(Locale.ROOT, "%.2fMB", bytes / (double)(1L << 20));
+        } else if (bytes >= 1L << 10) {
+            return String.format(Locale.ROOT, "%.1fKB", bytes / (double)(1L << 10));
+        } else {
+            return bytes + "B";
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder text = new StringBuilder();
+        explain(text, 0);
+        return text.toString();
+    }
+}
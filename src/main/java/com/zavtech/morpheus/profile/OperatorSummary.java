@@ -0,0 +1,135 @@
+package com.zavtech.morpheus.profile;
+
+/**
+ * The totals of all profiled executions of one kind of operator, as exposed through ProfilerMXBean.
+ */
+public final class OperatorSummary {
+
+    private final String name;
+    private final long invocations;
+    private final long rowsIn;
+    private final long rowsOut;
+    private final long wallNanos;
+    private final long cpuNanos;
+    private final long allocatedBytes;
+    private final long spillBytes;
+    private final int maxThreads;
+
+    /**
+     * Constructor
+     * @param name              the kind of operator
+     * @param invocations       the number of executions
+     * @param rowsIn            the total rows in
+     * @param rowsOut           the total rows out
+     * @param wallNanos         the total exclusive wall time
+     * @param cpuNanos          the total exclusive CPU time
+     * @param allocatedBytes    the total exclusive allocated bytes
+     * @param spillBytes        the total spilled bytes
+     * @param maxThreads        the most threads used by any execution
+     */
+    OperatorSummary(String name, long invocations, long rowsIn, long rowsOut, long wallNanos, long cpuNanos, long allocatedBytes, long spillBytes, int maxThreads) {
+        this.name = name;
+        this.invocations = invocations;
+        this.rowsIn = rowsIn;
+        this.rowsOut = rowsOut;
+        this.wallNanos = wallNanos;
+        this.cpuNanos = cpuNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.spillBytes = spillBytes;
+        this.maxThreads = maxThreads;
+    }
+
+    /**
+     * Returns these totals with one more execution added
+     */
+    OperatorSummary plus(OperatorProfile profile) {
+        return new OperatorSummary(
+            name,
+            invocations + 1,
+            rowsIn + Math.max(profile.rowsIn(), 0L),
+            rowsOut + Math.max(profile.rowsOut(), 0L),
+            wallNanos + profile.wallNanos(),
+            cpuNanos + profile.cpuNanos(),
+            allocatedBytes + profile.allocatedBytes(),
+            spillBytes + profile.spillBytes(),
+            Math.max(maxThreads, profile.threads())
+        );
+    }
+
+    /**
+     * Returns the kind of operator, which is the first word of its description
+     * @return  the operator kind
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of executions profiled
+     * @return  the execution count
+     */
+    public long getInvocations() {
+        return invocations;
+    }
+
+    /**
+     * Returns the total rows that entered the operator
+     * @return  the rows in
+     */
+    public long getRowsIn() {
+        return rowsIn;
+    }
+
+    /**
+     * Returns the total rows the operator produced
+     * @return  the rows out
+     */
+    public long getRowsOut() {
+        return rowsOut;
+    }
+
+    /**
+     * Returns the total wall time spent in the operator itself
+     * @return  the exclusive wall time in nanoseconds
+     */
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * Returns the total CPU time spent in the operator itself, over all threads
+     * @return  the exclusive CPU time in nanoseconds
+     */
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    /**
+     * Returns the total bytes allocated by the operator itself, over all threads
+     * @return  the exclusive allocated bytes
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Returns the total bytes the operator wrote to spill files
+     * @return  the spilled bytes
+     */
+    public long getSpillBytes() {
+        return spillBytes;
+    }
+
+    /**
+     * Returns the most threads used by any one execution
+     * @return  the max thread count
+     */
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    @Override
+    public String toString() {
+        return "OperatorSummary(" + name + ", invocations=" + invocations + ", rowsOut=" + rowsOut + ", wall=" + OperatorProfile.formatNanos(wallNanos) + ")";
+    }
+}
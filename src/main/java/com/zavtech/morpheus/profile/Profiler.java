@@ -0,0 +1,290 @@
+package com.zavtech.morpheus.profile;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Records an OperatorProfile for each operator of a query as it runs, and publishes them to JMX and Flight Recorder.
+ *
+ * Profiling is active on a thread while an operator is being profiled there, and otherwise only if
+ * enabled, through setEnabled(), the system property morpheus.profile=true or the ProfilerMXBean,
+ * or if a Flight Recorder recording has enabled the com.zavtech.morpheus.Operator event. Operators
+ * check isActive() before entering a profile, so when profiling is not active each operator costs
+ * one thread local lookup and no clocks are read.
+ *
+ * The profile of the innermost operator on a thread is its current profile. Entering an operator
+ * pauses the exclusive time of the current one until it exits. Parallel work attaches its worker
+ * threads to the current profile of the thread that started it, so that their CPU time, allocations
+ * and spills are charged to that operator. Each operator that exits is added to the totals of the
+ * ProfilerMXBean, and commits an event if the Flight Recorder event is enabled.
+ */
+public final class Profiler {
+
+    /** The name under which the ProfilerMXBean is registered */
+    public static final String OBJECT_NAME = "com.zavtech.morpheus:type=Profiler";
+
+    private static final ThreadLocal<OperatorProfile> CURRENT = new ThreadLocal<>();
+    private static final Totals TOTALS = new Totals();
+    private static volatile boolean enabled;
+    private static volatile boolean registered;
+
+    static {
+        if (Boolean.getBoolean("morpheus.profile")) {
+            setEnabled(true);
+        }
+    }
+
+    private Profiler() {
+        super();
+    }
+
+    /**
+     * Returns true if every query is profiled
+     * @return  true if enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables profiling of every query, registering the ProfilerMXBean when first enabled
+     * @param enabled   true to enable
+     */
+    public static void setEnabled(boolean enabled) {
+        if (enabled) {
+            register();
+        }
+        Profiler.enabled = enabled;
+    }
+
+    /**
+     * Returns the totals of each kind of operator profiled since the last reset, which are also exposed through JMX
+     * @return  the operator totals, ordered by kind
+     */
+    public static List<OperatorSummary> totals() {
+        return TOTALS.getOperators();
+    }
+
+    /**
+     * Returns true if operators that start on the current thread should be profiled
+     * @return  true if profiling is active
+     */
+    public static boolean isActive() {
+        return enabled || CURRENT.get() != null || OperatorEvent.isRecording();
+    }
+
+    /**
+     * Returns the profile of the innermost operator running on the current thread
+     * @return  the current profile, or null if none
+     */
+    public static OperatorProfile current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Starts profiling an operator below the current one, which must be matched by exit() on the same thread
+     * @param operator  the description of the operator
+     * @return          the profile of the operator
+     */
+    public static OperatorProfile enter(String operator) {
+        final OperatorProfile parent = CURRENT.get();
+        final OperatorProfile profile = new OperatorProfile(operator, parent);
+        if (parent != null) {
+            if (parent.isOwner()) {
+                parent.pause();
+            }
+            parent.add(profile);
+        }
+        final OperatorEvent event = new OperatorEvent();
+        if (event.isEnabled()) {
+            profile.event = event;
+            event.begin();
+        }
+        CURRENT.set(profile);
+        profile.resume();
+        return profile;
+    }
+
+    /**
+     * Completes the profile of an operator, resumes the operator above it and publishes the profile
+     * @param profile   the profile returned by enter()
+     * @param rowsOut   the number of rows the operator produced, or -1 if it failed
+     */
+    public static void exit(OperatorProfile profile, long rowsOut) {
+        profile.pause();
+        profile.complete(rowsOut);
+        final OperatorProfile parent = profile.parent();
+        if (parent == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(parent);
+            if (parent.isOwner()) {
+                parent.resume();
+            }
+        }
+        final OperatorEvent event = profile.event;
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operator = profile.operator();
+                event.rowsIn = profile.rowsIn();
+                event.rowsOut = profile.rowsOut();
+                event.cpuTime = profile.cpuNanos();
+                event.allocated = profile.allocatedBytes();
+                event.spilled = profile.spillBytes();
+                event.threads = profile.threads();
+                event.commit();
+            }
+        }
+        TOTALS.add(profile);
+    }
+
+    /**
+     * Adds rows read from outside the operator tree, such as by a scan, to the current operator if any
+     * @param rows  the number of rows read
+     */
+    public static void rowsIn(long rows) {
+        final OperatorProfile profile = CURRENT.get();
+        if (profile != null) {
+            profile.addRowsIn(rows);
+        }
+    }
+
+    /**
+     * Adds bytes written to a spill file to the current operator if any
+     * @param bytes the number of bytes spilled
+     */
+    public static void spilled(long bytes) {
+        final OperatorProfile profile = CURRENT.get();
+        if (profile != null) {
+            profile.addSpillBytes(bytes);
+        }
+    }
+
+    /**
+     * Attaches the current thread to an operator started by another thread, for the work it does on behalf of that operator
+     * @param owner the profile of the operator, usually the current() profile of the thread that started the work
+     * @return      the attachment to close when the work is done, or null if there is no owner or it runs on this thread
+     */
+    public static Worker attach(OperatorProfile owner) {
+        return owner == null || owner.isOwner() ? null : new Worker(owner);
+    }
+
+    /**
+     * Registers the ProfilerMXBean with the platform MBean server, once
+     */
+    private static synchronized void register() {
+        if (!registered) {
+            try {
+                final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                final ObjectName name = new ObjectName(OBJECT_NAME);
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(TOTALS, name);
+                }
+                registered = true;
+            } catch (JMException ex) {
+                throw new IllegalStateException("Failed to register " + OBJECT_NAME, ex);
+            }
+        }
+    }
+
+
+    /**
+     * The attachment of a worker thread to an operator started by another thread, which charges the CPU time
+     * and allocations of the worker to the operator when closed
+     */
+    public static final class Worker implements AutoCloseable {
+
+        private final OperatorProfile owner;
+        private final OperatorProfile previous;
+        private final long cpuNanos;
+        private final long allocatedBytes;
+
+        /**
+         * Constructor
+         * @param owner the profile of the operator
+         */
+        private Worker(OperatorProfile owner) {
+            this.owner = owner;
+            this.previous = CURRENT.get();
+            this.cpuNanos = Clock.cpuNanos();
+            this.allocatedBytes = Clock.allocatedBytes();
+            owner.addThread(Thread.currentThread());
+            CURRENT.set(owner);
+        }
+
+        @Override
+        public void close() {
+            owner.add(0L, Clock.cpuNanos() - cpuNanos, Clock.allocatedBytes() - allocatedBytes);
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+
+    /**
+     * The totals behind the ProfilerMXBean, by kind of operator
+     */
+    private static final class Totals implements ProfilerMXBean {
+
+        private final Map<String,OperatorSummary> operators = new TreeMap<>();
+        private long profileCount;
+        private String lastProfile = "";
+
+        /**
+         * Adds a completed profile to the totals, and records it as the last profile if it is a root
+         */
+        synchronized void add(OperatorProfile profile) {
+            final String operator = profile.operator();
+            final int space = operator.indexOf(' ');
+            final String kind = space > 0 ? operator.substring(0, space) : operator;
+            final OperatorSummary summary = operators.get(kind);
+            this.operators.put(kind, (summary != null ? summary : new OperatorSummary(kind, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0)).plus(profile));
+            if (profile.parent() == null) {
+                this.profileCount++;
+                this.lastProfile = profile.toString();
+            }
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return Profiler.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            Profiler.setEnabled(enabled);
+        }
+
+        @Override
+        public synchronized long getProfileCount() {
+            return profileCount;
+        }
+
+        @Override
+        public synchronized List<OperatorSummary> getOperators() {
+            return new ArrayList<>(operators.values());
+        }
+
+        @Override
+        public synchronized String getLastProfile() {
+            return lastProfile;
+        }
+
+        @Override
+        public synchronized void reset() {
+            this.operators.clear();
+            this.profileCount = 0L;
+            this.lastProfile = "";
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.zavtech.morpheus.profile;
+
+import java.util.List;
+
+/**
+ * The management interface of the Profiler, registered as com.zavtech.morpheus:type=Profiler once profiling is enabled.
+ *
+ * Totals accumulate over every operator profiled since the last reset, grouped by the kind of
+ * operator, which is the first word of its description.
+ */
+public interface ProfilerMXBean {
+
+    /**
+     * Returns true if every query is profiled
+     * @return  true if enabled
+     */
+    boolean isEnabled();
+
+    /**
+     * Enables or disables profiling of every query
+     * @param enabled   true to enable
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Returns the number of queries profiled since the last reset
+     * @return  the query count
+     */
+    long getProfileCount();
+
+    /**
+     * Returns the totals of each kind of operator profiled since the last reset
+     * @return  the operator totals, ordered by kind
+     */
+    List<OperatorSummary> getOperators();
+
+    /**
+     * Returns the text of the last complete profile
+     * @return  the profile text, or an empty string if none
+     */
+    String getLastProfile();
+
+    /**
+     * Clears all totals and the last profile
+     */
+    void reset();
+}
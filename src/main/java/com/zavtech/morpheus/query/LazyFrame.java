@@ -0,0 +1,288 @@
+package com.zavtech.morpheus.query;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import com.zavtech.morpheus.expr.Expression;
+import com.zavtech.morpheus.filter.Predicate;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.groupby.Aggregate;
+import com.zavtech.morpheus.io.CsvOptions;
+import com.zavtech.morpheus.join.JoinType;
+import com.zavtech.morpheus.profile.OperatorProfile;
+import com.zavtech.morpheus.profile.Profiler;
+import com.zavtech.morpheus.query.PlanNode.DeriveNode;
+import com.zavtech.morpheus.query.PlanNode.FilterNode;
+import com.zavtech.morpheus.query.PlanNode.GroupNode;
+import com.zavtech.morpheus.query.PlanNode.JoinNode;
+import com.zavtech.morpheus.query.PlanNode.LimitNode;
+import com.zavtech.morpheus.query.PlanNode.ProjectNode;
+import com.zavtech.morpheus.query.PlanNode.ScanNode;
+import com.zavtech.morpheus.query.PlanNode.SortNode;
+import com.zavtech.morpheus.sort.SortKey;
+
+/**
+ * A query over a DataFrame or file that records operations as a logical plan instead of executing them.
+ *
+ * Each operation returns a new LazyFrame and validates column references against the schema of
+ * the plan so far, but no data is read until collect() is called. At that point the plan is
+ * optimized, fusing filters and pushing predicates and column projections into the scans so
+ * that file sources skip unused columns and discard rows as they are read, then executed with
+ * the same operators as the eager API.
+ *
+ * Frames collected from off-heap or mapped sources may hold native memory and should be closed.
+ * Queries run with profile() return the counters of each operator alongside their result, in the
+ * manner of an explain analyze, see Profiler.
+ */
+public final class LazyFrame {
+
+    private final PlanNode plan;
+
+    /**
+     * Constructor
+     * @param plan  the logical plan for this frame
+     */
+    private LazyFrame(PlanNode plan) {
+        this.plan = plan;
+    }
+
+    /**
+     * Returns a lazy query over a frame already in memory
+     * @param frame the frame to query
+     * @return      the lazy frame
+     */
+    public static LazyFrame of(DataFrame frame) {
+        return scan(new Source.FrameSource(frame));
+    }
+
+    /**
+     * Returns a lazy query over a delimited text file
+     * @param path      the file path
+     * @param options   the options used to parse the file, which are copied
+     * @return          the lazy frame
+     */
+    public static LazyFrame scanCsv(Path path, CsvOptions options) {
+        return scan(new Source.CsvSource(path, options));
+    }
+
+    /**
+     * Returns a lazy query over a column file
+     * @param path  the file path
+     * @return      the lazy frame
+     */
+    public static LazyFrame scanColumnFile(Path path) {
+        return scan(new Source.ColumnFileSource(path));
+    }
+
+    /**
+     * Returns a lazy query over a Parquet file
+     * @param path  the file path
+     * @return      the lazy frame
+     */
+    public static LazyFrame scanParquet(Path path) {
+        return scan(new Source.ParquetSource(path));
+    }
+
+    /**
+     * Returns a lazy frame that scans all columns of the source specified
+     */
+    private static LazyFrame scan(Source source) {
+        return new LazyFrame(new ScanNode(source, source.columnNames(), null));
+    }
+
+    /**
+     * Returns the names of the columns this query produces
+     * @return  the output column names
+     */
+    public List<String> columnNames() {
+        return Collections.unmodifiableList(plan.schema());
+    }
+
+    /**
+     * Returns a query that retains the rows that satisfy the predicate
+     * @param predicate the predicate
+     * @return          the new lazy frame
+     */
+    public LazyFrame filter(Predicate predicate) {
+        check(predicate.columns());
+        return new LazyFrame(new FilterNode(plan, predicate));
+    }
+
+    /**
+     * Returns a query that produces only the columns specified, in the order specified
+     * @param columns   the column names
+     * @return          the new lazy frame
+     */
+    public LazyFrame select(String... columns) {
+        final List<String> names = Arrays.asList(columns);
+        check(names);
+        if (new LinkedHashSet<>(names).size() != names.size()) {
+            throw new DataFrameException("Duplicate column names in selection: " + names);
+        }
+        return new LazyFrame(new ProjectNode(plan, names));
+    }
+
+    /**
+     * Returns a query that adds a column computed from an expression, or replaces the column of the same name
+     * @param name          the name of the computed column
+     * @param expression    the expression to evaluate for every row
+     * @return              the new lazy frame
+     */
+    public LazyFrame withColumn(String name, Expression expression) {
+        check(expression.columns());
+        return new LazyFrame(new DeriveNode(plan, name, expression));
+    }
+
+    /**
+     * Returns a grouping of this query by the key columns specified
+     * @param keys  the key column names
+     * @return      the grouping, on which to specify aggregates
+     */
+    public Grouping groupBy(String... keys) {
+        final List<String> names = Arrays.asList(keys);
+        if (names.isEmpty()) {
+            throw new DataFrameException("At least one group key is required");
+        }
+        check(names);
+        return new Grouping(names);
+    }
+
+    /**
+     * Returns a query that joins this query with another on equally named key columns
+     * @param right the right side of the join
+     * @param type  the join type
+     * @param keys  the key column names, present on both sides
+     * @return      the new lazy frame
+     */
+    public LazyFrame join(LazyFrame right, JoinType type, String... keys) {
+        final List<String> names = Arrays.asList(keys);
+        if (names.isEmpty()) {
+            throw new DataFrameException("At least one join key is required");
+        }
+        check(names);
+        right.check(names);
+        final PlanNode node = new JoinNode(plan, right.plan, type, names, "_right", new LinkedHashSet<>(plan.schema()));
+        return new LazyFrame(node);
+    }
+
+    /**
+     * Returns a query that orders the rows of this query by the keys specified
+     * @param keys  the sort keys, from the most to the least significant
+     * @return      the new lazy frame
+     */
+    public LazyFrame sort(SortKey... keys) {
+        final List<String> columns = new ArrayList<>(keys.length);
+        for (SortKey key : keys) {
+            columns.add(key.column());
+        }
+        check(columns);
+        return new LazyFrame(new SortNode(plan, Arrays.asList(keys)));
+    }
+
+    /**
+     * Returns a query that produces at most the first n rows of this query
+     * @param n the max number of rows
+     * @return  the new lazy frame
+     */
+    public LazyFrame limit(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("The limit must be >= 0");
+        }
+        return new LazyFrame(new LimitNode(plan, n));
+    }
+
+    /**
+     * Returns a description of the logical plan and the optimized plan that collect() executes
+     * @return  the plan description
+     */
+    public String explain() {
+        final StringBuilder text = new StringBuilder("== Logical Plan ==\n");
+        plan.explain(text, 0);
+        text.append("== Optimized Plan ==\n");
+        Optimizer.optimize(plan).explain(text, 0);
+        return text.toString();
+    }
+
+    /**
+     * Optimizes and executes this query
+     * @return  the resulting frame
+     * @throws DataFrameException   if the query fails
+     */
+    public DataFrame collect() {
+        return Optimizer.optimize(plan).run();
+    }
+
+    /**
+     * Optimizes and executes this query while profiling each operator, whether or not the Profiler is enabled
+     * @return  the profile, which holds the resulting frame
+     * @throws DataFrameException   if the query fails
+     */
+    public QueryProfile profile() {
+        final PlanNode optimized = Optimizer.optimize(plan);
+        final OperatorProfile profile = Profiler.enter("Query");
+        DataFrame result = null;
+        try {
+            result = optimized.run();
+            return new QueryProfile(result, profile);
+        } finally {
+            Profiler.exit(profile, result != null ? result.rowCount() : -1L);
+        }
+    }
+
+    /**
+     * Checks that the columns specified are produced by the plan of this frame
+     */
+    private void check(Iterable<String> columns) {
+        final List<String> schema = plan.schema();
+        for (String column : columns) {
+            if (!schema.contains(column)) {
+                throw new DataFrameException("No column named " + column + " in " + schema);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder text = new StringBuilder();
+        plan.explain(text, 0);
+        return text.toString();
+    }
+
+
+    /**
+     * The keys of a lazy group by, on which aggregates are specified
+     */
+    public final class Grouping {
+
+        private final List<String> keys;
+
+        /**
+         * Constructor
+         * @param keys  the key column names
+         */
+        private Grouping(List<String> keys) {
+            this.keys = keys;
+        }
+
+        /**
+         * Returns a query that computes the aggregates specified for each group
+         * @param aggregates    the aggregates to compute
+         * @return              the new lazy frame
+         */
+        public LazyFrame aggregate(Aggregate... aggregates) {
+            final List<String> columns = new ArrayList<>();
+            for (Aggregate aggregate : aggregates) {
+                if (aggregate.column() != null) {
+                    columns.add(aggregate.column());
+                }
+            }
+            check(columns);
+            return new LazyFrame(new GroupNode(plan, keys, Arrays.asList(aggregates)));
+        }
+    }
+}
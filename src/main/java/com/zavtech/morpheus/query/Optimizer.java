@@ -0,0 +1,239 @@
+package com.zavtech.morpheus.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.zavtech.morpheus.filter.Predicate;
+import com.zavtech.morpheus.groupby.Aggregate;
+import com.zavtech.morpheus.join.JoinType;
+import com.zavtech.morpheus.query.PlanNode.DeriveNode;
+import com.zavtech.morpheus.query.PlanNode.FilterNode;
+import com.zavtech.morpheus.query.PlanNode.GroupNode;
+import com.zavtech.morpheus.query.PlanNode.JoinNode;
+import com.zavtech.morpheus.query.PlanNode.LimitNode;
+import com.zavtech.morpheus.query.PlanNode.ProjectNode;
+import com.zavtech.morpheus.query.PlanNode.ScanNode;
+import com.zavtech.morpheus.query.PlanNode.SortNode;
+import com.zavtech.morpheus.sort.SortKey;
+
+/**
+ * A rule based optimizer that rewrites a logical plan into an equivalent plan that reads and moves less data.
+ *
+ * Predicates are split into conjuncts which are fused with adjacent filters and pushed through projections,
+ * derived columns they do not reference, sorts, group keys and the preserved side of joins until they reach
+ * a scan, where the source applies them while reading. Columns are then pruned top down, so that each scan
+ * reads only the columns that some operator above it references, and aggregates and derived columns whose
+ * outputs are never used are dropped.
+ */
+final class Optimizer {
+
+    private Optimizer() {
+        super();
+    }
+
+    /**
+     * Returns an optimized plan that produces the same rows and columns as the plan specified
+     * @param plan  the logical plan
+     * @return      the optimized plan
+     */
+    static PlanNode optimize(PlanNode plan) {
+        final PlanNode pushed = pushPredicates(plan, Collections.emptyList());
+        return prune(pushed, new HashSet<>(plan.schema()));
+    }
+
+    /**
+     * Pushes the pending conjuncts, along with those of any filters in the plan, as far down as possible
+     * @param node      the plan node
+     * @param pending   the conjuncts to apply to the rows produced by the node
+     * @return          the rewritten plan
+     */
+    private static PlanNode pushPredicates(PlanNode node, List<Predicate> pending) {
+        if (node instanceof FilterNode) {
+            final FilterNode filter = (FilterNode)node;
+            final List<Predicate> conjuncts = new ArrayList<>(filter.predicate().conjuncts());
+            conjuncts.addAll(pending);
+            return pushPredicates(filter.child(), conjuncts);
+        } else if (node instanceof ScanNode) {
+            final ScanNode scan = (ScanNode)node;
+            if (pending.isEmpty()) {
+                return scan;
+            } else {
+                final List<Predicate> conjuncts = new ArrayList<>(pending);
+                if (scan.predicate() != null) {
+                    conjuncts.addAll(0, scan.predicate().conjuncts());
+                }
+                return new ScanNode(scan.source(), scan.schema(), Predicate.allOf(conjuncts));
+            }
+        } else if (node instanceof ProjectNode) {
+            final ProjectNode project = (ProjectNode)node;
+            return new ProjectNode(pushPredicates(project.child(), pending), project.schema());
+        } else if (node instanceof DeriveNode) {
+            final DeriveNode derive = (DeriveNode)node;
+            final List<Predicate> below = new ArrayList<>();
+            final List<Predicate> above = new ArrayList<>();
+            for (Predicate conjunct : pending) {
+                (conjunct.columns().contains(derive.name()) ? above : below).add(conjunct);
+            }
+            final PlanNode child = pushPredicates(derive.child(), below);
+            return filter(new DeriveNode(child, derive.name(), derive.expression()), above);
+        } else if (node instanceof GroupNode) {
+            final GroupNode group = (GroupNode)node;
+            final List<Predicate> below = new ArrayList<>();
+            final List<Predicate> above = new ArrayList<>();
+            for (Predicate conjunct : pending) {
+                (group.keys().containsAll(conjunct.columns()) ? below : above).add(conjunct);
+            }
+            final PlanNode child = pushPredicates(group.child(), below);
+            return filter(new GroupNode(child, group.keys(), group.aggregates()), above);
+        } else if (node instanceof JoinNode) {
+            final JoinNode join = (JoinNode)node;
+            final JoinType type = join.type();
+            final List<String> leftSchema = join.left().schema();
+            final List<String> rightSchema = join.right().schema();
+            final List<Predicate> left = new ArrayList<>();
+            final List<Predicate> right = new ArrayList<>();
+            final List<Predicate> above = new ArrayList<>();
+            for (Predicate conjunct : pending) {
+                final Set<String> columns = conjunct.columns();
+                if ((type == JoinType.INNER || type == JoinType.LEFT) && leftSchema.containsAll(columns)) {
+                    left.add(conjunct);
+                } else if ((type == JoinType.INNER || type == JoinType.RIGHT) && isRightOnly(join, rightSchema, columns)) {
+                    right.add(conjunct);
+                } else {
+                    above.add(conjunct);
+                }
+            }
+            final PlanNode leftChild = pushPredicates(join.left(), left);
+            final PlanNode rightChild = pushPredicates(join.right(), right);
+            return filter(new JoinNode(leftChild, rightChild, type, join.keys(), join.suffix(), join.leftNames()), above);
+        } else if (node instanceof LimitNode) {
+            final LimitNode limit = (LimitNode)node;
+            return filter(new LimitNode(pushPredicates(limit.child(), Collections.emptyList()), limit.count()), pending);
+        } else if (node instanceof SortNode) {
+            final SortNode sort = (SortNode)node;
+            return new SortNode(pushPredicates(sort.child(), pending), sort.keys());
+        } else {
+            throw new IllegalStateException("Unsupported plan node: " + node);
+        }
+    }
+
+    /**
+     * Returns true if the columns are all non-key right columns that keep their names in the join output
+     */
+    private static boolean isRightOnly(JoinNode join, List<String> rightSchema, Set<String> columns) {
+        for (String column : columns) {
+            if (!rightSchema.contains(column) || join.keys().contains(column) || join.leftNames().contains(column)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the node wrapped in a filter for the conjuncts specified, or the node itself if there are none
+     */
+    private static PlanNode filter(PlanNode node, List<Predicate> conjuncts) {
+        return conjuncts.isEmpty() ? node : new FilterNode(node, Predicate.allOf(conjuncts));
+    }
+
+    /**
+     * Rewrites a plan so that it produces only the required columns, in the order of the original node
+     * @param node      the plan node
+     * @param required  the names of the columns required by the parent of the node
+     * @return          the rewritten plan, whose schema is the node schema restricted to the required columns
+     */
+    private static PlanNode prune(PlanNode node, Set<String> required) {
+        if (node instanceof ScanNode) {
+            final ScanNode scan = (ScanNode)node;
+            return new ScanNode(scan.source(), retain(scan.schema(), required), scan.predicate());
+        } else if (node instanceof ProjectNode) {
+            final ProjectNode project = (ProjectNode)node;
+            final List<String> columns = retain(project.schema(), required);
+            final PlanNode child = prune(project.child(), new HashSet<>(columns));
+            return child.schema().equals(columns) ? child : new ProjectNode(child, columns);
+        } else if (node instanceof FilterNode) {
+            final FilterNode filter = (FilterNode)node;
+            final Set<String> needed = new HashSet<>(required);
+            needed.addAll(filter.predicate().columns());
+            return restrict(new FilterNode(prune(filter.child(), needed), filter.predicate()), required);
+        } else if (node instanceof DeriveNode) {
+            final DeriveNode derive = (DeriveNode)node;
+            if (!required.contains(derive.name())) {
+                return prune(derive.child(), required);
+            }
+            final Set<String> needed = new HashSet<>(required);
+            needed.addAll(derive.expression().columns());
+            final PlanNode child = prune(derive.child(), needed);
+            return restrict(new DeriveNode(child, derive.name(), derive.expression()), required);
+        } else if (node instanceof GroupNode) {
+            final GroupNode group = (GroupNode)node;
+            final List<Aggregate> aggregates = new ArrayList<>();
+            for (Aggregate aggregate : group.aggregates()) {
+                if (required.contains(aggregate.name())) {
+                    aggregates.add(aggregate);
+                }
+            }
+            if (aggregates.isEmpty() && !group.aggregates().isEmpty()) {
+                aggregates.add(group.aggregates().get(0));
+            }
+            final Set<String> needed = new LinkedHashSet<>(group.keys());
+            for (Aggregate aggregate : aggregates) {
+                if (aggregate.column() != null) {
+                    needed.add(aggregate.column());
+                }
+            }
+            final PlanNode child = prune(group.child(), needed);
+            return restrict(new GroupNode(child, group.keys(), aggregates), required);
+        } else if (node instanceof JoinNode) {
+            final JoinNode join = (JoinNode)node;
+            final Set<String> leftNeeded = new HashSet<>(join.keys());
+            final Set<String> rightNeeded = new HashSet<>(join.keys());
+            leftNeeded.addAll(required);
+            for (String name : join.right().schema()) {
+                if (required.contains(join.outputName(name))) {
+                    rightNeeded.add(name);
+                }
+            }
+            final PlanNode left = prune(join.left(), leftNeeded);
+            final PlanNode right = prune(join.right(), rightNeeded);
+            return restrict(new JoinNode(left, right, join.type(), join.keys(), join.suffix(), join.leftNames()), required);
+        } else if (node instanceof LimitNode) {
+            final LimitNode limit = (LimitNode)node;
+            return new LimitNode(prune(limit.child(), required), limit.count());
+        } else if (node instanceof SortNode) {
+            final SortNode sort = (SortNode)node;
+            final Set<String> needed = new HashSet<>(required);
+            for (SortKey key : sort.keys()) {
+                needed.add(key.column());
+            }
+            return restrict(new SortNode(prune(sort.child(), needed), sort.keys()), required);
+        } else {
+            throw new IllegalStateException("Unsupported plan node: " + node);
+        }
+    }
+
+    /**
+     * Returns the node, projected onto the required columns if it produces any others
+     */
+    private static PlanNode restrict(PlanNode node, Set<String> required) {
+        final List<String> columns = retain(node.schema(), required);
+        return columns.size() == node.schema().size() ? node : new ProjectNode(node, columns);
+    }
+
+    /**
+     * Returns the names in order that are also in the required set
+     */
+    private static List<String> retain(List<String> names, Set<String> required) {
+        final List<String> result = new ArrayList<>(names.size());
+        for (String name : names) {
+            if (required.contains(name)) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+}
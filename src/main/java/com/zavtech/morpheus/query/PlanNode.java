@@ -0,0 +1,495 @@
+package com.zavtech.morpheus.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.expr.Expression;
+import com.zavtech.morpheus.filter.Predicate;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.groupby.Aggregate;
+import com.zavtech.morpheus.groupby.GroupBy;
+import com.zavtech.morpheus.join.Join;
+import com.zavtech.morpheus.join.JoinType;
+import com.zavtech.morpheus.profile.OperatorProfile;
+import com.zavtech.morpheus.profile.Profiler;
+import com.zavtech.morpheus.sort.Sort;
+import com.zavtech.morpheus.sort.SortKey;
+
+/**
+ * A node in a logical query plan, which describes one operation over the rows produced by its children.
+ *
+ * Nodes are immutable, so the optimizer rewrites a plan by building new nodes rather than modifying existing ones.
+ */
+abstract class PlanNode {
+
+    /**
+     * Returns the names of the columns this node produces
+     * @return  the output column names, in order
+     */
+    abstract List<String> schema();
+
+    /**
+     * Returns the inputs of this node
+     * @return  the child nodes
+     */
+    abstract List<PlanNode> children();
+
+    /**
+     * Executes this node, running its children with run()
+     * @return  the frame produced by this node
+     */
+    abstract DataFrame execute();
+
+    /**
+     * Executes this node and its children, profiling each node while the Profiler is active
+     * @return  the frame produced by this node
+     */
+    final DataFrame run() {
+        if (!Profiler.isActive()) {
+            return execute();
+        }
+        final OperatorProfile profile = Profiler.enter(toString());
+        long rows = -1L;
+        try {
+            final DataFrame result = execute();
+            rows = result.rowCount();
+            return result;
+        } finally {
+            Profiler.exit(profile, rows);
+        }
+    }
+
+    /**
+     * Appends a description of this node and its children, one node per line
+     * @param text  the text to append to
+     * @param depth the depth of this node in the plan
+     */
+    void explain(StringBuilder text, int depth) {
+        for (int i = 0; i < depth; ++i) {
+            text.append("  ");
+        }
+        text.append(this).append("\n");
+        for (PlanNode child : children()) {
+            child.explain(text, depth + 1);
+        }
+    }
+
+
+    /**
+     * Reads columns from a source, applying any predicate pushed down into the scan
+     */
+    static final class ScanNode extends PlanNode {
+
+        private final Source source;
+        private final List<String> projection;
+        private final Predicate predicate;
+
+        ScanNode(Source source, List<String> projection, Predicate predicate) {
+            this.source = source;
+            this.projection = Collections.unmodifiableList(new ArrayList<>(projection));
+            this.predicate = predicate;
+        }
+
+        Source source() {
+            return source;
+        }
+
+        Predicate predicate() {
+            return predicate;
+        }
+
+        @Override
+        List<String> schema() {
+            return projection;
+        }
+
+        @Override
+        List<PlanNode> children() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        DataFrame execute() {
+            return source.read(projection, predicate);
+        }
+
+        @Override
+        public String toString() {
+            return "Scan " + source + " columns=" + projection + (predicate != null ? " predicate=" + predicate : "");
+        }
+    }
+
+
+    /**
+     * Retains the rows of its child that satisfy a predicate
+     */
+    static final class FilterNode extends PlanNode {
+
+        private final PlanNode child;
+        private final Predicate predicate;
+
+        FilterNode(PlanNode child, Predicate predicate) {
+            this.child = child;
+            this.predicate = predicate;
+        }
+
+        PlanNode child() {
+            return child;
+        }
+
+        Predicate predicate() {
+            return predicate;
+        }
+
+        @Override
+        List<String> schema() {
+            return child.schema();
+        }
+
+        @Override
+        List<PlanNode> children() {
+            return Collections.singletonList(child);
+        }
+
+        @Override
+        DataFrame execute() {
+            return child.run().filter(predicate);
+        }
+
+        @Override
+        public String toString() {
+            return "Filter " + predicate;
+        }
+    }
+
+
+    /**
+     * Selects and reorders the columns of its child
+     */
+    static final class ProjectNode extends PlanNode {
+
+        private final PlanNode child;
+        private final List<String> columns;
+
+        ProjectNode(PlanNode child, List<String> columns) {
+            this.child = child;
+            this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+        }
+
+        PlanNode child() {
+            return child;
+        }
+
+        @Override
+        List<String> schema() {
+            return columns;
+        }
+
+        @Override
+        List<PlanNode> children() {
+            return Collections.singletonList(child);
+        }
+
+        @Override
+        DataFrame execute() {
+            return child.run().select(columns);
+        }
+
+        @Override
+        public String toString() {
+            return "Project " + columns;
+        }
+    }
+
+
+    /**
+     * Adds a column computed from an expression to its child, or replaces the child column of the same name
+     */
+    static final class DeriveNode extends PlanNode {
+
+        private final PlanNode child;
+        private final String name;
+        private final Expression expression;
+
+        DeriveNode(PlanNode child, String name, Expression expression) {
+            this.child = child;
+            this.name = name;
+            this.expression = expression;
+        }
+
+        PlanNode child() {
+            return child;
+        }
+
+        String name() {
+            return name;
+        }
+
+        Expression expression() {
+            return expression;
+        }
+
+        @Override
+        List<String> schema() {
+            final List<String> schema = new ArrayList<>(child.schema());
+            if (!schema.contains(name)) {
+                schema.add(name);
+            }
+            return schema;
+        }
+
+        @Override
+        List<PlanNode> children() {
+            return Collections.singletonList(child);
+        }
+
+        @Override
+        DataFrame execute() {
+            return child.run().withColumn(name, expression);
+        }
+
+        @Override
+        public String toString() {
+            return "Derive " + name + "=" + expression;
+        }
+    }
+
+
+    /**
+     * Groups the rows of its child by key columns and computes aggregates per group
+     */
+    static final class GroupNode extends PlanNode {
+
+        private final PlanNode child;
+        private final List<String> keys;
+        private final List<Aggregate> aggregates;
+
+        GroupNode(PlanNode child, List<String> keys, List<Aggregate> aggregates) {
+            this.child = child;
+            this.keys = Collections.unmodifiableList(new ArrayList<>(keys));
+            this.aggregates = Collections.unmodifiableList(new ArrayList<>(aggregates));
+        }
+
+        PlanNode child() {
+            return child;
+        }
+
+        List<String> keys() {
+            return keys;
+        }
+
+        List<Aggregate> aggregates() {
+            return aggregates;
+        }
+
+        @Override
+        List<String> schema() {
+            final List<String> schema = new ArrayList<>(keys);
+            aggregates.forEach(a -> schema.add(a.name()));
+            return schema;
+        }
+
+        @Override
+        List<PlanNode> children() {
+            return Collections.singletonList(child);
+        }
+
+        @Override
+        DataFrame execute() {
+            return GroupBy.of(child.run(), keys.toArray(new String[0])).aggregate(aggregates);
+        }
+
+        @Override
+        public String toString() {
+            return "Aggregate keys=" + keys + " aggregates=" + aggregates;
+        }
+    }
+
+
+    /**
+     * Joins the rows of two children on equally named key columns.
+     *
+     * Right columns that share a name with a left column are suffixed, where the clash is decided
+     * against the unpruned left schema so that output names do not change when the optimizer
+     * removes columns from the left input.
+     */
+    static final class JoinNode extends PlanNode {
+
+        private final PlanNode left;
+        private final PlanNode right;
+        private final JoinType type;
+        private final List<String> keys;
+        private final String suffix;
+        private final Set<String> leftNames;
+
+        JoinNode(PlanNode left, PlanNode right, JoinType type, List<String> keys, String suffix, Set<String> leftNames) {
+            this.left = left;
+            this.right = right;
+            this.type = type;
+            this.keys = Collections.unmodifiableList(new ArrayList<>(keys));
+            this.suffix = suffix;
+            this.leftNames = leftNames;
+        }
+
+        PlanNode left() {
+            return left;
+        }
+
+        PlanNode right() {
+            return right;
+        }
+
+        JoinType type() {
+            return type;
+        }
+
+        List<String> keys() {
+            return keys;
+        }
+
+        String suffix() {
+            return suffix;
+        }
+
+        Set<String> leftNames() {
+            return leftNames;
+        }
+
+        /**
+         * Returns the output name of a right column that is not a key
+         * @param name  the right column name
+         * @return      the output column name
+         */
+        String outputName(String name) {
+            return leftNames.contains(name) ? name + suffix : name;
+        }
+
+        @Override
+        List<String> schema() {
+            final List<String> schema = new ArrayList<>(left.schema());
+            for (String name : right.schema()) {
+                if (!keys.contains(name)) {
+                    schema.add(outputName(name));
+                }
+            }
+            return schema;
+        }
+
+        @Override
+        List<PlanNode> children() {
+            return Arrays.asList(left, right);
+        }
+
+        @Override
+        DataFrame execute() {
+            final DataFrame leftFrame = left.run();
+            final DataFrame rightFrame = right.run();
+            final String[] on = keys.toArray(new String[0]);
+            final DataFrame joined = Join.of(leftFrame, rightFrame).on(on).setType(type).setSuffix(suffix).execute();
+            final List<Column> columns = new ArrayList<>(joined.columns());
+            int index = leftFrame.columnCount();
+            for (String name : rightFrame.columnNames()) {
+                if (!keys.contains(name)) {
+                    columns.set(index, columns.get(index).rename(outputName(name)));
+                    index++;
+                }
+            }
+            return DataFrame.of(columns);
+        }
+
+        @Override
+        public String toString() {
+            return "Join " + type + " on=" + keys;
+        }
+    }
+
+
+    /**
+     * Retains at most the first n rows of its child
+     */
+    static final class LimitNode extends PlanNode {
+
+        private final PlanNode child;
+        private final int count;
+
+        LimitNode(PlanNode child, int count) {
+            this.child = child;
+            this.count = count;
+        }
+
+        PlanNode child() {
+            return child;
+        }
+
+        int count() {
+            return count;
+        }
+
+        @Override
+        List<String> schema() {
+            return child.schema();
+        }
+
+        @Override
+        List<PlanNode> children() {
+            return Collections.singletonList(child);
+        }
+
+        @Override
+        DataFrame execute() {
+            return child.run().head(count);
+        }
+
+        @Override
+        public String toString() {
+            return "Limit " + count;
+        }
+    }
+
+
+    /**
+     * Orders the rows of its child by sort keys
+     */
+    static final class SortNode extends PlanNode {
+
+        private final PlanNode child;
+        private final List<SortKey> keys;
+
+        SortNode(PlanNode child, List<SortKey> keys) {
+            this.child = child;
+            this.keys = Collections.unmodifiableList(new ArrayList<>(keys));
+        }
+
+        PlanNode child() {
+            return child;
+        }
+
+        List<SortKey> keys() {
+            return keys;
+        }
+
+        @Override
+        List<String> schema() {
+            return child.schema();
+        }
+
+        @Override
+        List<PlanNode> children() {
+            return Collections.singletonList(child);
+        }
+
+        @Override
+        DataFrame execute() {
+            return Sort.of(child.run(), keys).execute();
+        }
+
+        @Override
+        public String toString() {
+            return "Sort " + keys;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.zavtech.morpheus.query;
+
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.profile.OperatorProfile;
+
+/**
+ * The result of a query run by LazyFrame.profile(), together with the profile of each operator of its optimized plan.
+ *
+ * The text of a profile lists the operators of the plan, one per line and indented below the
+ * operator that consumed their rows, each with its rows in and out, exclusive wall and CPU time,
+ * allocated and spilled bytes and the number of threads that ran it.
+ */
+public final class QueryProfile {
+
+    private final DataFrame result;
+    private final OperatorProfile profile;
+
+    /**
+     * Constructor
+     * @param result    the frame produced by the query
+     * @param profile   the profile of the query, whose only child is the root of the plan
+     */
+    QueryProfile(DataFrame result, OperatorProfile profile) {
+        this.result = result;
+        this.profile = profile;
+    }
+
+    /**
+     * Returns the frame produced by the query
+     * @return  the query result
+     */
+    public DataFrame result() {
+        return result;
+    }
+
+    /**
+     * Returns the profile of the root operator of the plan, below which are those of the other operators
+     * @return  the root operator profile
+     */
+    public OperatorProfile root() {
+        return profile.children().get(0);
+    }
+
+    /**
+     * Returns the wall time of the whole query
+     * @return  the wall time in nanoseconds
+     */
+    public long wallNanos() {
+        return profile.totalWallNanos();
+    }
+
+    /**
+     * Returns the CPU time of all operators of the query over all threads
+     * @return  the CPU time in nanoseconds
+     */
+    public long cpuNanos() {
+        return total(profile, true);
+    }
+
+    /**
+     * Returns the bytes allocated by all operators of the query over all threads
+     * @return  the allocated bytes
+     */
+    public long allocatedBytes() {
+        return total(profile, false);
+    }
+
+    /**
+     * Returns the CPU time or allocated bytes of a profile and all those below it
+     */
+    private static long total(OperatorProfile profile, boolean cpu) {
+        long total = cpu ? profile.cpuNanos() : profile.allocatedBytes();
+        for (OperatorProfile child : profile.children()) {
+            total += total(child, cpu);
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "== Profile ==\n" + root();
+    }
+}
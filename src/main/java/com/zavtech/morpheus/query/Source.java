@@ -0,0 +1,237 @@
+package com.zavtech.morpheus.query;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.zavtech.morpheus.filter.Predicate;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.io.ColumnFile;
+import com.zavtech.morpheus.io.CsvOptions;
+import com.zavtech.morpheus.io.CsvReader;
+import com.zavtech.morpheus.io.ParquetReader;
+import com.zavtech.morpheus.profile.Profiler;
+
+/**
+ * The origin of the rows of a scan, which reads only the columns requested and applies a pushed down predicate
+ * as close to the data as its format allows.
+ */
+abstract class Source {
+
+    /**
+     * Returns the names of all columns available from this source
+     * @return  the column names in source order
+     */
+    abstract List<String> columnNames();
+
+    /**
+     * Reads the columns specified for the rows that satisfy the predicate
+     * @param columns   the names of the columns to return, in source order
+     * @param predicate the predicate rows must satisfy, null for all rows
+     * @return          the frame holding exactly the columns requested
+     */
+    abstract DataFrame read(List<String> columns, Predicate predicate);
+
+    /**
+     * Returns the columns that must be read to produce the columns specified and evaluate the predicate
+     * @param columns   the names of the columns to return
+     * @param predicate the predicate rows must satisfy, null for all rows
+     * @return          the column names to read, in source order
+     */
+    List<String> needed(List<String> columns, Predicate predicate) {
+        final List<String> needed = new ArrayList<>();
+        for (String name : columnNames()) {
+            if (columns.contains(name) || (predicate != null && predicate.columns().contains(name))) {
+                needed.add(name);
+            }
+        }
+        return needed;
+    }
+
+
+    /**
+     * A source backed by a frame already in memory
+     */
+    static final class FrameSource extends Source {
+
+        private final DataFrame frame;
+
+        FrameSource(DataFrame frame) {
+            this.frame = frame;
+        }
+
+        @Override
+        List<String> columnNames() {
+            return frame.columnNames();
+        }
+
+        @Override
+        DataFrame read(List<String> columns, Predicate predicate) {
+            Profiler.rowsIn(frame.rowCount());
+            final DataFrame selected = frame.select(needed(columns, predicate));
+            return predicate == null ? selected.select(columns) : selected.filter(predicate).select(columns);
+        }
+
+        @Override
+        public String toString() {
+            return "frame[" + frame.rowCount() + "x" + frame.columnCount() + "]";
+        }
+    }
+
+
+    /**
+     * A source backed by a delimited text file, which skips unread columns without parsing them and
+     * applies predicates batch by batch so that only surviving rows are retained
+     */
+    static final class CsvSource extends Source {
+
+        private final Path path;
+        private final CsvOptions options;
+        private List<String> columnNames;
+
+        CsvSource(Path path, CsvOptions options) {
+            this.path = path;
+            this.options = options.copy();
+        }
+
+        @Override
+        synchronized List<String> columnNames() {
+            if (columnNames == null) {
+                final List<String> names = new CsvReader(options).columnNames(path);
+                if (options.getColumns() != null) {
+                    names.retainAll(options.getColumns());
+                }
+                this.columnNames = names;
+            }
+            return columnNames;
+        }
+
+        @Override
+        DataFrame read(List<String> columns, Predicate predicate) {
+            final List<String> needed = needed(columns, predicate);
+            if (needed.isEmpty()) {
+                needed.add(columnNames().get(0));
+            }
+            final CsvReader reader = new CsvReader(options.copy().setColumns(needed.toArray(new String[0])));
+            if (predicate == null) {
+                return reader.read(path).select(columns);
+            } else {
+                final List<DataFrame> batches = new ArrayList<>();
+                reader.stream(path, batch -> {
+                    try (DataFrame input = batch) {
+                        Profiler.rowsIn(input.rowCount());
+                        batches.add(input.filter(predicate).select(columns));
+                    }
+                });
+                if (batches.isEmpty()) {
+                    return reader.read(path).select(columns);
+                } else if (!sameTypes(batches)) {
+                    batches.forEach(DataFrame::close);
+                    return reader.read(path).filter(predicate).select(columns);
+                } else if (batches.size() == 1) {
+                    return batches.get(0);
+                } else {
+                    final DataFrame result = DataFrame.concat(batches);
+                    batches.forEach(DataFrame::close);
+                    return result;
+                }
+            }
+        }
+
+        /**
+         * Returns true if every batch has the column types of the last, which is not so once the reader widens a column
+         */
+        private static boolean sameTypes(List<DataFrame> batches) {
+            final DataFrame last = batches.get(batches.size() - 1);
+            for (DataFrame batch : batches) {
+                for (int j = 0; j < last.columnCount(); ++j) {
+                    if (batch.column(j).type() != last.column(j).type()) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "csv[" + path + "]";
+        }
+    }
+
+
+    /**
+     * A source backed by a column file, which maps only the columns needed and copies out the surviving
+     * rows when a predicate is present, otherwise returns the mapped columns without reading any values
+     */
+    static final class ColumnFileSource extends Source {
+
+        private final Path path;
+        private List<String> columnNames;
+
+        ColumnFileSource(Path path) {
+            this.path = path;
+        }
+
+        @Override
+        synchronized List<String> columnNames() {
+            if (columnNames == null) {
+                try (DataFrame frame = ColumnFile.open(path)) {
+                    this.columnNames = frame.columnNames();
+                }
+            }
+            return columnNames;
+        }
+
+        @Override
+        DataFrame read(List<String> columns, Predicate predicate) {
+            final DataFrame mapped = ColumnFile.open(path, needed(columns, predicate).toArray(new String[0]));
+            Profiler.rowsIn(mapped.rowCount());
+            if (predicate == null) {
+                return mapped.select(columns);
+            } else {
+                try (DataFrame frame = mapped) {
+                    return frame.select(columns).take(predicate.select(frame));
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "column-file[" + path + "]";
+        }
+    }
+
+
+    /**
+     * A source backed by a Parquet file, which decodes only the column chunks needed and skips row groups
+     * whose statistics rule out the predicate before applying it to the rows of the remaining groups
+     */
+    static final class ParquetSource extends Source {
+
+        private final Path path;
+        private List<String> columnNames;
+
+        ParquetSource(Path path) {
+            this.path = path;
+        }
+
+        @Override
+        synchronized List<String> columnNames() {
+            if (columnNames == null) {
+                this.columnNames = ParquetReader.of(path).columnNames();
+            }
+            return columnNames;
+        }
+
+        @Override
+        DataFrame read(List<String> columns, Predicate predicate) {
+            return ParquetReader.of(path).setColumns(columns.toArray(new String[0])).setPredicate(predicate).read();
+        }
+
+        @Override
+        public String toString() {
+            return "parquet[" + path + "]";
+        }
+    }
+}
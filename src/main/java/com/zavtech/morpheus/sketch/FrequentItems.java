@@ -0,0 +1,333 @@
+package com.zavtech.morpheus.sketch;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A Misra-Gries sketch that finds the most frequent values of a stream and estimates their counts.
+ *
+ * The sketch keeps at most a fixed number of counters in an open addressing table. A value that
+ * has a counter increments it, and one that does not takes a free counter if there is one, and
+ * otherwise the smallest count is subtracted from all counters and those that fall to zero are
+ * freed. Each count is therefore a lower bound that undercounts by at most the total subtracted,
+ * which is at most n / (capacity + 1) for n values, so every value more frequent than that is
+ * guaranteed to hold a counter. Subtractions remove at least capacity + 1 from the total each time,
+ * so updates take constant amortized time.
+ *
+ * Merging adds the counters of the other sketch as weighted updates, which keeps the same bound
+ * for the combined stream. Values are compared as doubles, with both zeros equal.
+ */
+public final class FrequentItems implements Sketch<FrequentItems> {
+
+    /** The default number of counters */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private static final int MAX_CAPACITY = 1 << 20;
+    private static final long EMPTY = 0L;
+
+    private final int capacity;
+    private long count;
+    private long error;
+    private int size;
+    private double[] items;
+    private long[] counts;
+
+    /**
+     * Constructor
+     * @param capacity  the max number of counters
+     */
+    private FrequentItems(int capacity) {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("The capacity must be between 1 and " + MAX_CAPACITY + ", not " + capacity);
+        }
+        this.capacity = capacity;
+        this.items = new double[8];
+        this.counts = new long[items.length];
+    }
+
+    /**
+     * Returns an empty sketch with the default number of counters
+     * @return  the sketch
+     */
+    public static FrequentItems create() {
+        return new FrequentItems(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Returns an empty sketch with the number of counters specified
+     * @param capacity  the max number of counters, where values more frequent than one in capacity + 1 are always found
+     * @return          the sketch
+     */
+    public static FrequentItems create(int capacity) {
+        return new FrequentItems(capacity);
+    }
+
+    /**
+     * Returns the max number of counters of this sketch
+     * @return  the capacity
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public void add(double value) {
+        if (value == value) {
+            add(value, 1L);
+        }
+    }
+
+    /**
+     * Adds a value with a weight, as if it were added that many times
+     * @param value     the value
+     * @param weight    the positive weight
+     */
+    private void add(double value, long weight) {
+        final double item = value == 0d ? 0d : value;
+        final int slot = find(item);
+        if (counts[slot] != EMPTY) {
+            this.counts[slot] += weight;
+        } else if (size < capacity) {
+            insert(slot, item, weight);
+        } else {
+            long least = weight;
+            for (long current : counts) {
+                if (current != EMPTY && current < least) {
+                    least = current;
+                }
+            }
+            this.error += least;
+            final double[] oldItems = items;
+            final long[] oldCounts = counts;
+            this.items = new double[oldItems.length];
+            this.counts = new long[oldCounts.length];
+            this.size = 0;
+            for (int i = 0; i < oldCounts.length; ++i) {
+                if (oldCounts[i] > least) {
+                    insert(find(oldItems[i]), oldItems[i], oldCounts[i] - least);
+                }
+            }
+            if (weight > least) {
+                insert(find(item), item, weight - least);
+            }
+        }
+        this.count += weight;
+    }
+
+    /**
+     * Returns the slot that holds the item specified, or the empty slot where it would be inserted
+     */
+    private int find(double item) {
+        final int mask = counts.length - 1;
+        final long bits = Double.doubleToLongBits(item);
+        int slot = (int)((bits * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+        while (counts[slot] != EMPTY && Double.doubleToLongBits(items[slot]) != bits) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Inserts an item into an empty slot, growing the table first if it would be more than half full
+     */
+    private void insert(int slot, double item, long count) {
+        if ((size + 1) * 2 > counts.length) {
+            final double[] oldItems = items;
+            final long[] oldCounts = counts;
+            this.items = new double[oldItems.length * 2];
+            this.counts = new long[oldCounts.length * 2];
+            for (int i = 0; i < oldCounts.length; ++i) {
+                if (oldCounts[i] != EMPTY) {
+                    final int target = find(oldItems[i]);
+                    this.items[target] = oldItems[i];
+                    this.counts[target] = oldCounts[i];
+                }
+            }
+            slot = find(item);
+        }
+        this.items[slot] = item;
+        this.counts[slot] = count;
+        this.size++;
+    }
+
+    @Override
+    public void merge(FrequentItems other) {
+        if (other.capacity != capacity) {
+            throw new IllegalArgumentException("Cannot merge sketches with capacities " + capacity + " and " + other.capacity);
+        }
+        final long count = this.count + other.count;
+        for (int i = 0; i < other.counts.length; ++i) {
+            if (other.counts[i] != EMPTY) {
+                add(other.items[i], other.counts[i]);
+            }
+        }
+        this.count = count;
+        this.error += other.error;
+    }
+
+    @Override
+    public FrequentItems copy() {
+        final FrequentItems copy = new FrequentItems(capacity);
+        copy.count = count;
+        copy.error = error;
+        copy.size = size;
+        copy.items = items.clone();
+        copy.counts = counts.clone();
+        return copy;
+    }
+
+    @Override
+    public long count() {
+        return count;
+    }
+
+    @Override
+    public int bytes() {
+        return 48 + items.length * 16;
+    }
+
+    /**
+     * Returns the max amount by which any estimate of this sketch undercounts
+     * @return  the max error of estimates
+     */
+    public long maxError() {
+        return error;
+    }
+
+    /**
+     * Returns the estimated number of times a value was added
+     * @param value the value
+     * @return      a lower bound of the count, which is zero for a value without a counter
+     */
+    public long estimate(double value) {
+        final int slot = find(value == 0d ? 0d : value);
+        return counts[slot];
+    }
+
+    /**
+     * Returns the values with counters, in descending order of estimated count
+     * @param limit the max number of values to return
+     * @return      the most frequent values
+     */
+    public double[] top(int limit) {
+        final int[] order = order();
+        final double[] result = new double[Math.min(limit, order.length)];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = items[order[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the estimated counts of the values returned by top(), in the same order
+     * @param limit the max number of counts to return
+     * @return      the estimated counts, in descending order
+     */
+    public long[] topCounts(int limit) {
+        final int[] order = order();
+        final long[] result = new long[Math.min(limit, order.length)];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = counts[order[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the most frequent value, breaking ties in favour of the least value so that results are repeatable
+     * @return  the most frequent value, or NaN if empty
+     */
+    public double mostFrequent() {
+        int best = -1;
+        for (int i = 0; i < counts.length; ++i) {
+            if (counts[i] != EMPTY && (best < 0 || counts[i] > counts[best] || (counts[i] == counts[best] && items[i] < items[best]))) {
+                best = i;
+            }
+        }
+        return best >= 0 ? items[best] : Double.NaN;
+    }
+
+    /**
+     * Returns the occupied slots in descending order of count, then ascending order of value
+     */
+    private int[] order() {
+        final Integer[] slots = new Integer[size];
+        int n = 0;
+        for (int i = 0; i < counts.length; ++i) {
+            if (counts[i] != EMPTY) {
+                slots[n++] = i;
+            }
+        }
+        Arrays.sort(slots, (a, b) -> counts[a] != counts[b] ? Long.compare(counts[b], counts[a]) : Double.compare(items[a], items[b]));
+        final int[] result = new int[size];
+        for (int i = 0; i < size; ++i) {
+            result[i] = slots[i];
+        }
+        return result;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(capacity);
+        out.writeLong(count);
+        out.writeLong(error);
+        out.writeInt(size);
+        for (int i = 0; i < counts.length; ++i) {
+            if (counts[i] != EMPTY) {
+                out.writeDouble(items[i]);
+                out.writeLong(counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Reads a sketch written by write()
+     * @param in    the input to read from
+     * @return      the sketch
+     */
+    public static FrequentItems read(DataInput in) throws IOException {
+        final int capacity = in.readInt();
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IOException("Invalid frequent items capacity: " + capacity);
+        }
+        final FrequentItems sketch = new FrequentItems(capacity);
+        final long count = in.readLong();
+        final long error = in.readLong();
+        final int size = in.readInt();
+        if (size < 0 || size > capacity) {
+            throw new IOException("Invalid frequent items counter count: " + size);
+        }
+        for (int i = 0; i < size; ++i) {
+            final double item = in.readDouble();
+            final long weight = in.readLong();
+            if (weight <= 0L) {
+                throw new IOException("Invalid frequent items count: " + weight);
+            }
+            sketch.insert(sketch.find(item), item, weight);
+        }
+        sketch.count = count;
+        sketch.error = error;
+        return sketch;
+    }
+
+    /**
+     * Returns a sketch from the bytes produced by toBytes()
+     * @param bytes the serialized sketch
+     * @return      the sketch
+     */
+    public static FrequentItems fromBytes(byte[] bytes) {
+        try {
+            return read(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Malformed frequent items sketch", ex);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FrequentItems(capacity=" + capacity + ", count=" + count + ", counters=" + size + ", maxError=" + error + ")";
+    }
+}
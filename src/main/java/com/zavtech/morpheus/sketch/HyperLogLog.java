@@ -0,0 +1,363 @@
+package com.zavtech.morpheus.sketch;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A HyperLogLog sketch that estimates the number of distinct values in a stream.
+ *
+ * Each value is hashed to 64 bits, of which the first p select one of 2^p registers and the rest
+ * give a rank, the position of their leftmost one bit, and each register keeps the highest rank it
+ * has seen. The estimate is computed from the histogram of register values with the improved
+ * estimator of Ertl, which needs no empirical bias tables and is accurate across the whole range
+ * from a handful of values to billions, with a relative standard error of about 1.04 / sqrt(2^p).
+ *
+ * A sketch starts in a sparse form that holds a sorted list of the registers set so far, so that
+ * the many small sketches of a group-by with many groups stay small, and converts to the dense form
+ * of one byte per register once the list would be larger than an eighth of it. Merging takes the
+ * max of each register, so it is exact with respect to the sketches merged.
+ */
+public final class HyperLogLog implements Sketch<HyperLogLog> {
+
+    /** The default precision, for 4096 registers and a relative standard error of about 1.6% */
+    public static final int DEFAULT_PRECISION = 12;
+
+    /** The least precision supported */
+    public static final int MIN_PRECISION = 4;
+
+    /** The greatest precision supported */
+    public static final int MAX_PRECISION = 18;
+
+    private static final int RANK_BITS = 6;
+    private static final int RANK_MASK = (1 << RANK_BITS) - 1;
+    private static final double ALPHA = 0.5d / Math.log(2d);
+
+    private final int precision;
+    private final int registerCount;
+    private long count;
+    private byte[] registers;
+    private int[] entries;
+    private int size;
+
+    /**
+     * Constructor
+     * @param precision the number of bits of each hash that select a register
+     */
+    private HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("The precision must be between " + MIN_PRECISION + " and " + MAX_PRECISION + ", not " + precision);
+        }
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+        this.entries = new int[4];
+    }
+
+    /**
+     * Returns an empty sketch with the default precision
+     * @return  the sketch
+     */
+    public static HyperLogLog create() {
+        return new HyperLogLog(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Returns an empty sketch with the precision specified
+     * @param precision the precision between 4 and 18, where each increment halves the variance of the estimate and doubles the dense size
+     * @return          the sketch
+     */
+    public static HyperLogLog create(int precision) {
+        return new HyperLogLog(precision);
+    }
+
+    /**
+     * Returns the 64-bit hash of a double value, under which equal values including both zeros hash alike
+     * @param value the value
+     * @return      the hash
+     */
+    public static long hash(double value) {
+        return mix(Double.doubleToLongBits(value == 0d ? 0d : value) ^ 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * Returns the 64-bit hash of a string value
+     * @param value the value
+     * @return      the hash
+     */
+    public static long hash(CharSequence value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); ++i) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Applies the 64-bit finalizer of MurmurHash3
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    /**
+     * Returns the precision of this sketch
+     * @return  the number of bits that select a register
+     */
+    public int precision() {
+        return precision;
+    }
+
+    @Override
+    public void add(double value) {
+        if (value == value) {
+            addHash(hash(value));
+        }
+    }
+
+    /**
+     * Adds a string value to this sketch
+     * @param value the value, which is ignored if null
+     */
+    public void add(CharSequence value) {
+        if (value != null) {
+            addHash(hash(value));
+        }
+    }
+
+    /**
+     * Adds a value by its 64-bit hash, for values of other types, where the hash must be well mixed in all bits
+     * @param hash  the hash of the value
+     */
+    public void addHash(long hash) {
+        final int index = (int)(hash >>> (64 - precision));
+        final int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        update(index, rank);
+        this.count++;
+    }
+
+    /**
+     * Raises a register to the rank specified if it is lower
+     */
+    private void update(int index, int rank) {
+        if (registers != null) {
+            if (registers[index] < rank) {
+                this.registers[index] = (byte)rank;
+            }
+        } else {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                final int current = entries[mid] >>> RANK_BITS;
+                if (current < index) {
+                    low = mid + 1;
+                } else if (current > index) {
+                    high = mid - 1;
+                } else {
+                    if ((entries[mid] & RANK_MASK) < rank) {
+                        this.entries[mid] = (index << RANK_BITS) | rank;
+                    }
+                    return;
+                }
+            }
+            if (size == entries.length) {
+                if (size >= registerCount >>> 3) {
+                    densify();
+                    this.registers[index] = (byte)rank;
+                    return;
+                }
+                this.entries = Arrays.copyOf(entries, Math.min(size * 2, registerCount >>> 3));
+            }
+            System.arraycopy(entries, low, entries, low + 1, size - low);
+            this.entries[low] = (index << RANK_BITS) | rank;
+            this.size++;
+        }
+    }
+
+    /**
+     * Converts this sketch from the sparse to the dense form
+     */
+    private void densify() {
+        final byte[] dense = new byte[registerCount];
+        for (int i = 0; i < size; ++i) {
+            dense[entries[i] >>> RANK_BITS] = (byte)(entries[i] & RANK_MASK);
+        }
+        this.registers = dense;
+        this.entries = null;
+        this.size = 0;
+    }
+
+    @Override
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of precision " + precision + " and " + other.precision);
+        }
+        if (other.registers == null) {
+            for (int i = 0; i < other.size; ++i) {
+                update(other.entries[i] >>> RANK_BITS, other.entries[i] & RANK_MASK);
+            }
+        } else {
+            if (registers == null) {
+                densify();
+            }
+            for (int i = 0; i < registerCount; ++i) {
+                if (registers[i] < other.registers[i]) {
+                    this.registers[i] = other.registers[i];
+                }
+            }
+        }
+        this.count += other.count;
+    }
+
+    @Override
+    public HyperLogLog copy() {
+        final HyperLogLog copy = new HyperLogLog(precision);
+        copy.count = count;
+        copy.registers = registers != null ? registers.clone() : null;
+        copy.entries = entries != null ? entries.clone() : null;
+        copy.size = size;
+        return copy;
+    }
+
+    @Override
+    public long count() {
+        return count;
+    }
+
+    @Override
+    public int bytes() {
+        return 32 + (registers != null ? registers.length : entries.length * 4);
+    }
+
+    /**
+     * Returns the estimated number of distinct values added to this sketch
+     * @return  the estimate, which is zero for an empty sketch
+     */
+    public long estimate() {
+        final int q = 64 - precision;
+        final int[] histogram = new int[q + 2];
+        if (registers != null) {
+            for (byte register : registers) {
+                histogram[register]++;
+            }
+        } else {
+            histogram[0] = registerCount - size;
+            for (int i = 0; i < size; ++i) {
+                histogram[entries[i] & RANK_MASK]++;
+            }
+        }
+        final double m = registerCount;
+        double z = m * tau(1d - histogram[q + 1] / m);
+        for (int k = q; k >= 1; --k) {
+            z = 0.5d * (z + histogram[k]);
+        }
+        z += m * sigma(histogram[0] / m);
+        return Math.round(ALPHA * m * m / z);
+    }
+
+    /**
+     * The sigma function of the improved estimator, which corrects for registers that are still zero
+     */
+    private static double sigma(double x) {
+        if (x == 1d) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double y = 1d;
+        double z = x;
+        double previous;
+        do {
+            x *= x;
+            previous = z;
+            z += x * y;
+            y += y;
+        } while (z != previous);
+        return z;
+    }
+
+    /**
+     * The tau function of the improved estimator, which corrects for registers at the max rank
+     */
+    private static double tau(double x) {
+        if (x == 0d || x == 1d) {
+            return 0d;
+        }
+        double y = 1d;
+        double z = 1d - x;
+        double previous;
+        do {
+            x = Math.sqrt(x);
+            previous = z;
+            y *= 0.5d;
+            z -= (1d - x) * (1d - x) * y;
+        } while (z != previous);
+        return z / 3d;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(precision);
+        out.writeLong(count);
+        if (registers != null) {
+            out.writeInt(-1);
+            out.write(registers);
+        } else {
+            out.writeInt(size);
+            for (int i = 0; i < size; ++i) {
+                out.writeInt(entries[i]);
+            }
+        }
+    }
+
+    /**
+     * Reads a sketch written by write()
+     * @param in    the input to read from
+     * @return      the sketch
+     */
+    public static HyperLogLog read(DataInput in) throws IOException {
+        final int precision = in.readByte();
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IOException("Invalid HyperLogLog precision: " + precision);
+        }
+        final HyperLogLog sketch = new HyperLogLog(precision);
+        sketch.count = in.readLong();
+        final int size = in.readInt();
+        if (size < 0) {
+            sketch.registers = new byte[sketch.registerCount];
+            in.readFully(sketch.registers);
+        } else if (size > sketch.registerCount >>> 3) {
+            throw new IOException("Invalid HyperLogLog entry count: " + size);
+        } else {
+            sketch.entries = new int[Math.max(4, size)];
+            for (int i = 0; i < size; ++i) {
+                sketch.entries[i] = in.readInt();
+            }
+            sketch.size = size;
+        }
+        return sketch;
+    }
+
+    /**
+     * Returns a sketch from the bytes produced by toBytes()
+     * @param bytes the serialized sketch
+     * @return      the sketch
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        try {
+            return read(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Malformed HyperLogLog sketch", ex);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HyperLogLog(precision=" + precision + ", count=" + count + ", estimate=" + estimate() + ")";
+    }
+}
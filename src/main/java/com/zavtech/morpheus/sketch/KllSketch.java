@@ -0,0 +1,419 @@
+package com.zavtech.morpheus.sketch;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A KLL sketch that estimates quantiles and ranks of a stream of values.
+ *
+ * Values are kept in a stack of compactors, where an item at level h stands for 2^h values. When
+ * the sketch outgrows its budget, the lowest level over capacity is sorted and every other item is
+ * promoted to the next level, starting at a random one of the first two, so that the rank of any
+ * value is preserved in expectation. Capacities shrink geometrically by 2/3 below the top level,
+ * so with k = 200 the sketch holds some hundreds of items however long the stream, and ranks are
+ * accurate to within about 1.3% of the count with high probability.
+ *
+ * Merging appends the compactors of the other sketch level by level and compacts again, which
+ * gives the same guarantee as a single pass. The coin flips come from a generator seeded the same
+ * way for every sketch, so results are repeatable for the same sequence of updates. The exact min
+ * and max are also kept, and are returned for quantiles 0 and 1.
+ */
+public final class KllSketch implements Sketch<KllSketch> {
+
+    /** The default value of k, which bounds the rank error to about 1.3% of the count */
+    public static final int DEFAULT_K = 200;
+
+    /** The least value of k supported */
+    public static final int MIN_K = 8;
+
+    private static final int MAX_K = 1 << 16;
+    private static final int MAX_LEVELS = 61;
+
+    private final int k;
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    private double[][] levels;
+    private int[] sizes;
+    private int retained;
+    private int budget;
+    private long seed;
+
+    /**
+     * Constructor
+     * @param k the size of the top compactor, which sets the accuracy of the sketch
+     */
+    private KllSketch(int k) {
+        if (k < MIN_K || k > MAX_K) {
+            throw new IllegalArgumentException("The k of a KLL sketch must be between " + MIN_K + " and " + MAX_K + ", not " + k);
+        }
+        this.k = k;
+        this.levels = new double[][] {new double[8]};
+        this.sizes = new int[1];
+        this.budget = capacity(0);
+    }
+
+    /**
+     * Returns an empty sketch with the default k
+     * @return  the sketch
+     */
+    public static KllSketch create() {
+        return new KllSketch(DEFAULT_K);
+    }
+
+    /**
+     * Returns an empty sketch with the k specified
+     * @param k the size of the top compactor, where the rank error falls roughly in proportion to 1 / k
+     * @return  the sketch
+     */
+    public static KllSketch create(int k) {
+        return new KllSketch(k);
+    }
+
+    /**
+     * Returns the k of this sketch
+     * @return  the size of the top compactor
+     */
+    public int k() {
+        return k;
+    }
+
+    /**
+     * Returns the capacity of a level given the current number of levels
+     */
+    private int capacity(int level) {
+        final int depth = levels.length - level - 1;
+        return (int)Math.ceil(k * Math.pow(2d / 3d, depth)) + 1;
+    }
+
+    @Override
+    public void add(double value) {
+        if (value == value) {
+            if (count == 0L) {
+                this.min = value;
+                this.max = value;
+            } else if (value < min) {
+                this.min = value;
+            } else if (value > max) {
+                this.max = value;
+            }
+            append(0, value);
+            this.count++;
+            if (retained >= budget) {
+                compress();
+            }
+        }
+    }
+
+    /**
+     * Appends an item to a level
+     */
+    private void append(int level, double value) {
+        final int size = sizes[level];
+        if (size == levels[level].length) {
+            this.levels[level] = Arrays.copyOf(levels[level], size * 2);
+        }
+        this.levels[level][size] = value;
+        this.sizes[level] = size + 1;
+        this.retained++;
+    }
+
+    /**
+     * Adds a level on top of the stack, which lowers the capacity of the levels below
+     */
+    private void grow() {
+        if (levels.length == MAX_LEVELS) {
+            throw new IllegalStateException("KLL sketch exceeded " + MAX_LEVELS + " levels");
+        }
+        final int height = levels.length + 1;
+        this.levels = Arrays.copyOf(levels, height);
+        this.levels[height - 1] = new double[8];
+        this.sizes = Arrays.copyOf(sizes, height);
+        int budget = 0;
+        for (int level = 0; level < height; ++level) {
+            budget += capacity(level);
+        }
+        this.budget = budget;
+    }
+
+    /**
+     * Compacts the lowest level that is at or over capacity into the level above
+     */
+    private void compress() {
+        for (int level = 0; level < levels.length; ++level) {
+            if (sizes[level] >= capacity(level)) {
+                if (level + 1 == levels.length) {
+                    grow();
+                }
+                final double[] items = levels[level];
+                final int size = sizes[level];
+                Arrays.sort(items, 0, size);
+                final int start = size & 1;
+                for (int i = start + (flip() ? 1 : 0); i < size; i += 2) {
+                    append(level + 1, items[i]);
+                }
+                this.sizes[level] = start;
+                this.retained -= size - start;
+                if (items.length > 2 * capacity(level)) {
+                    this.levels[level] = Arrays.copyOf(items, Math.max(8, capacity(level)));
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the next coin flip of the deterministic generator of this sketch
+     */
+    private boolean flip() {
+        this.seed += 0x9E3779B97F4A7C15L;
+        long z = seed;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return ((z ^ (z >>> 31)) & 1L) != 0L;
+    }
+
+    @Override
+    public void merge(KllSketch other) {
+        if (other.k != k) {
+            throw new IllegalArgumentException("Cannot merge KLL sketches with k of " + k + " and " + other.k);
+        }
+        if (other.count == 0L) {
+            return;
+        }
+        while (levels.length < other.levels.length) {
+            grow();
+        }
+        for (int level = 0; level < other.levels.length; ++level) {
+            final double[] items = other.levels[level];
+            for (int i = 0; i < other.sizes[level]; ++i) {
+                append(level, items[i]);
+            }
+        }
+        this.min = count == 0L ? other.min : Math.min(min, other.min);
+        this.max = count == 0L ? other.max : Math.max(max, other.max);
+        this.count += other.count;
+        while (retained >= budget) {
+            compress();
+        }
+    }
+
+    @Override
+    public KllSketch copy() {
+        final KllSketch copy = new KllSketch(k);
+        copy.count = count;
+        copy.min = min;
+        copy.max = max;
+        copy.levels = new double[levels.length][];
+        for (int level = 0; level < levels.length; ++level) {
+            copy.levels[level] = levels[level].clone();
+        }
+        copy.sizes = sizes.clone();
+        copy.retained = retained;
+        copy.budget = budget;
+        copy.seed = seed;
+        return copy;
+    }
+
+    @Override
+    public long count() {
+        return count;
+    }
+
+    @Override
+    public int bytes() {
+        int bytes = 64 + sizes.length * 4;
+        for (double[] items : levels) {
+            bytes += 16 + items.length * 8;
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the least value added to this sketch
+     * @return  the exact min, or NaN if empty
+     */
+    public double min() {
+        return min;
+    }
+
+    /**
+     * Returns the greatest value added to this sketch
+     * @return  the exact max, or NaN if empty
+     */
+    public double max() {
+        return max;
+    }
+
+    /**
+     * Returns the estimated value at the quantile specified
+     * @param quantile  the quantile between 0 and 1, such as 0.5 for the median
+     * @return          the estimate, which is one of the values added, or NaN if empty
+     */
+    public double quantile(double quantile) {
+        return quantiles(quantile)[0];
+    }
+
+    /**
+     * Returns the estimated values at the quantiles specified, sorting the items of the sketch only once
+     * @param quantiles the quantiles between 0 and 1
+     * @return          the estimates, in the order of the quantiles, which are NaN if empty
+     */
+    public double[] quantiles(double... quantiles) {
+        final double[] result = new double[quantiles.length];
+        for (double quantile : quantiles) {
+            if (!(quantile >= 0d && quantile <= 1d)) {
+                throw new IllegalArgumentException("A quantile must be between 0 and 1, not " + quantile);
+            }
+        }
+        if (count == 0L) {
+            Arrays.fill(result, Double.NaN);
+            return result;
+        }
+        final double[] values = new double[retained];
+        final long[] weights = new long[retained];
+        final int size = sorted(values, weights);
+        for (int q = 0; q < quantiles.length; ++q) {
+            if (quantiles[q] == 0d) {
+                result[q] = min;
+            } else if (quantiles[q] == 1d) {
+                result[q] = max;
+            } else {
+                final double target = quantiles[q] * count;
+                long cumulative = 0L;
+                int i = 0;
+                while (i < size - 1 && cumulative + weights[i] < target) {
+                    cumulative += weights[i++];
+                }
+                result[q] = values[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the estimated fraction of the values added that are less than or equal to the value specified
+     * @param value the value
+     * @return      the normalized rank between 0 and 1, or NaN if empty
+     */
+    public double rank(double value) {
+        if (count == 0L) {
+            return Double.NaN;
+        }
+        long weight = 0L;
+        for (int level = 0; level < levels.length; ++level) {
+            final double[] items = levels[level];
+            for (int i = 0; i < sizes[level]; ++i) {
+                if (items[i] <= value) {
+                    weight += 1L << level;
+                }
+            }
+        }
+        return (double)weight / count;
+    }
+
+    /**
+     * Fills arrays with the retained items in ascending order and their weights
+     * @return  the number of items
+     */
+    private int sorted(double[] values, long[] weights) {
+        final double[] scratch = new double[retained];
+        final long[] scratchWeights = new long[retained];
+        int size = 0;
+        for (int level = 0; level < levels.length; ++level) {
+            final int length = sizes[level];
+            if (length > 0) {
+                final double[] items = Arrays.copyOf(levels[level], length);
+                Arrays.sort(items);
+                final long weight = 1L << level;
+                int i = 0, j = 0, n = 0;
+                while (i < size || j < length) {
+                    if (j == length || (i < size && values[i] <= items[j])) {
+                        scratch[n] = values[i];
+                        scratchWeights[n++] = weights[i++];
+                    } else {
+                        scratch[n] = items[j++];
+                        scratchWeights[n++] = weight;
+                    }
+                }
+                System.arraycopy(scratch, 0, values, 0, n);
+                System.arraycopy(scratchWeights, 0, weights, 0, n);
+                size = n;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(k);
+        out.writeLong(count);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeByte(levels.length);
+        for (int level = 0; level < levels.length; ++level) {
+            out.writeInt(sizes[level]);
+            for (int i = 0; i < sizes[level]; ++i) {
+                out.writeDouble(levels[level][i]);
+            }
+        }
+    }
+
+    /**
+     * Reads a sketch written by write()
+     * @param in    the input to read from
+     * @return      the sketch
+     */
+    public static KllSketch read(DataInput in) throws IOException {
+        final int k = in.readInt();
+        if (k < MIN_K || k > MAX_K) {
+            throw new IOException("Invalid KLL sketch k: " + k);
+        }
+        final KllSketch sketch = new KllSketch(k);
+        sketch.count = in.readLong();
+        sketch.min = in.readDouble();
+        sketch.max = in.readDouble();
+        final int height = in.readByte();
+        if (height < 1 || height > MAX_LEVELS) {
+            throw new IOException("Invalid KLL sketch level count: " + height);
+        }
+        while (sketch.levels.length < height) {
+            sketch.grow();
+        }
+        for (int level = 0; level < height; ++level) {
+            final int size = in.readInt();
+            if (size < 0 || size > MAX_K * 4) {
+                throw new IOException("Invalid KLL sketch level size: " + size);
+            }
+            sketch.levels[level] = new double[Math.max(8, size)];
+            for (int i = 0; i < size; ++i) {
+                sketch.levels[level][i] = in.readDouble();
+            }
+            sketch.sizes[level] = size;
+            sketch.retained += size;
+        }
+        return sketch;
+    }
+
+    /**
+     * Returns a sketch from the bytes produced by toBytes()
+     * @param bytes the serialized sketch
+     * @return      the sketch
+     */
+    public static KllSketch fromBytes(byte[] bytes) {
+        try {
+            return read(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Malformed KLL sketch", ex);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "KllSketch(k=" + k + ", count=" + count + ", retained=" + retained + ", levels=" + levels.length + ")";
+    }
+}
@@ -0,0 +1,74 @@
+package com.zavtech.morpheus.sketch;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A fixed-size summary of a stream of values that answers a question about them approximately.
+ *
+ * Sketches built over disjoint parts of a stream, such as morsels of rows on different threads or
+ * partitions of a frame on different hosts, merge into a sketch of the whole stream with the same
+ * error bounds as one built in a single pass, and serialize to a compact binary form so that they
+ * can be shipped or spilled and merged later. NaN values are ignored.
+ *
+ * Sketches are not safe for concurrent use, so each thread should build its own and merge them.
+ *
+ * @param <S>   the type of the sketch
+ */
+public interface Sketch<S extends Sketch<S>> {
+
+    /**
+     * Adds a value to this sketch
+     * @param value the value, which is ignored if NaN
+     */
+    void add(double value);
+
+    /**
+     * Merges another sketch into this one, leaving the other unchanged
+     * @param other the sketch to merge, which must have the same parameters
+     */
+    void merge(S other);
+
+    /**
+     * Returns a deep copy of this sketch
+     * @return  the copy
+     */
+    S copy();
+
+    /**
+     * Returns the number of values added to this sketch, including those of merged sketches
+     * @return  the value count
+     */
+    long count();
+
+    /**
+     * Returns the approximate number of bytes held by this sketch
+     * @return  the footprint in bytes
+     */
+    int bytes();
+
+    /**
+     * Writes this sketch in the form read by the static read() method of its class
+     * @param out   the output to write to
+     */
+    void write(DataOutput out) throws IOException;
+
+    /**
+     * Returns this sketch serialized to bytes, in the form read by the static fromBytes() method of its class
+     * @return  the serialized sketch
+     */
+    default byte[] toBytes() {
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream(bytes());
+            final DataOutputStream out = new DataOutputStream(bytes);
+            write(out);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.zavtech.morpheus.sketch;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.NumericColumn;
+import com.zavtech.morpheus.parallel.Morsels;
+
+/**
+ * Builds sketches of numeric columns in parallel, one sketch per worker merged into one at the end.
+ *
+ * Null rows widen to NaN, which sketches ignore, so columns are read a batch of rows at a time
+ * without consulting their validity.
+ */
+public final class Sketches {
+
+    private Sketches() {
+        super();
+    }
+
+    /**
+     * Returns a HyperLogLog sketch of the distinct values of a column, with the default precision
+     * @param column    the column
+     * @return          the sketch
+     */
+    public static HyperLogLog distinct(NumericColumn column) {
+        return of(column, HyperLogLog::create, Morsels.getDefaultParallelism());
+    }
+
+    /**
+     * Returns a KLL sketch of the quantiles of a column, with the default k
+     * @param column    the column
+     * @return          the sketch
+     */
+    public static KllSketch quantiles(NumericColumn column) {
+        return of(column, KllSketch::create, Morsels.getDefaultParallelism());
+    }
+
+    /**
+     * Returns a sketch of the most frequent values of a column, with the default capacity
+     * @param column    the column
+     * @return          the sketch
+     */
+    public static FrequentItems frequentItems(NumericColumn column) {
+        return of(column, FrequentItems::create, Morsels.getDefaultParallelism());
+    }
+
+    /**
+     * Returns a sketch of the values of a column
+     * @param column        the column
+     * @param supplier      the supplier of empty sketches, all with the same parameters
+     * @param parallelism   the max number of threads, where 1 builds on the calling thread
+     * @param <S>           the sketch type
+     * @return              the sketch of all values of the column
+     */
+    public static <S extends Sketch<S>> S of(NumericColumn column, Supplier<S> supplier, int parallelism) {
+        final int length = column.length();
+        final List<S> sketches = Morsels.create().setParallelism(parallelism).collect(length, supplier, (sketch, morsel, from, to) -> {
+            final double[] values = new double[Math.min(Columns.BATCH_SIZE, to - from)];
+            for (int start = from; start < to; start += values.length) {
+                final int count = Math.min(values.length, to - start);
+                column.getDoubles(start, values, 0, count);
+                for (int i = 0; i < count; ++i) {
+                    sketch.add(values[i]);
+                }
+            }
+        });
+        final S result = supplier.get();
+        for (S sketch : sketches) {
+            result.merge(sketch);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,521 @@
+package com.zavtech.morpheus.sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.ColumnType;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.Dictionary;
+import com.zavtech.morpheus.column.StringColumn;
+import com.zavtech.morpheus.column.Validity;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.hash.KeyColumn;
+import com.zavtech.morpheus.parallel.Morsels;
+
+/**
+ * A stable sort of the rows of a DataFrame by one or more key columns, which produces a permutation of row indexes.
+ *
+ * Each key is read as order preserving 64-bit words, as for hashing, with strings ranked by
+ * value through their dictionary and descending keys bitwise inverted, and is then rebased
+ * on its minimum so that it occupies only as many bits as its range of values requires. Nulls
+ * take the word below or above that range, or a flag bit of their own if the range is full.
+ * Consecutive keys are packed into as few unsigned 64-bit words as fit, so a timestamp and a
+ * symbol usually sort as a single word, and rows are ordered by an LSD radix sort of those
+ * words from the least to the most significant. Each radix pass counts digits over morsels of
+ * rows concurrently and then scatters each morsel into its own slice of every bucket, which
+ * keeps the sort stable, and passes whose digit is the same for every row are skipped, as are
+ * words that are already in order. Rows are never boxed or compared through objects.
+ */
+public final class Sort {
+
+    private static final int MAX_DIGIT_BITS = 11;
+
+    private final DataFrame frame;
+    private final List<SortKey> keys;
+    private final Morsels morsels = Morsels.create();
+
+    /**
+     * Constructor
+     * @param frame the frame to sort
+     * @param keys  the sort keys, from the most to the least significant
+     */
+    private Sort(DataFrame frame, List<SortKey> keys) {
+        this.frame = Objects.requireNonNull(frame, "The frame cannot be null");
+        this.keys = new ArrayList<>(keys);
+        if (keys.isEmpty()) {
+            throw new DataFrameException("At least one sort key is required");
+        }
+        for (SortKey key : keys) {
+            frame.column(key.column());
+        }
+    }
+
+    /**
+     * Returns a sort of the frame by the keys specified
+     * @param frame the frame to sort
+     * @param keys  the sort keys, from the most to the least significant
+     * @return      the sort
+     */
+    public static Sort of(DataFrame frame, SortKey... keys) {
+        return new Sort(frame, Arrays.asList(keys));
+    }
+
+    /**
+     * Returns a sort of the frame by the keys specified
+     * @param frame the frame to sort
+     * @param keys  the sort keys, from the most to the least significant
+     * @return      the sort
+     */
+    public static Sort of(DataFrame frame, List<SortKey> keys) {
+        return new Sort(frame, keys);
+    }
+
+    /**
+     * Sets the max number of threads used to sort
+     * @param parallelism   the parallelism, where 1 sorts on the calling thread
+     * @return              this sort
+     */
+    public Sort setParallelism(int parallelism) {
+        this.morsels.setParallelism(parallelism);
+        return this;
+    }
+
+    /**
+     * Returns a new frame holding the rows of the frame in sorted order
+     * @return  the sorted frame
+     */
+    public DataFrame execute() {
+        return frame.take(permutation());
+    }
+
+    /**
+     * Returns the row indexes of the frame in sorted order, where rows with equal keys keep their original order
+     * @return  the permutation of row indexes
+     */
+    public int[] permutation() {
+        final int rowCount = frame.rowCount();
+        final List<Encoder> encoders = new ArrayList<>(keys.size());
+        for (SortKey key : keys) {
+            encoders.add(new Encoder(frame.column(key.column()), key));
+        }
+        scan(encoders, rowCount, morsels);
+        final List<List<Field>> packs = pack(encoders);
+        final Radix radix = new Radix(rowCount, morsels);
+        for (int p = packs.size() - 1; p >= 0; --p) {
+            final List<Field> pack = packs.get(p);
+            if (p == packs.size() - 1) {
+                encode(pack, radix.keys, rowCount, morsels);
+                radix.identity();
+            } else {
+                encode(pack, radix.keyBuffer, rowCount, morsels);
+                radix.gather();
+            }
+            radix.sort(bits(pack));
+        }
+        return radix.rows;
+    }
+
+    /**
+     * Computes the range of the encoded words of every key, and whether each key has nulls
+     */
+    private static void scan(List<Encoder> encoders, int rowCount, Morsels morsels) {
+        final List<long[][]> results = morsels.map(rowCount, (from, to) -> {
+            final long[][] ranges = new long[encoders.size()][];
+            final long[] words = new long[Columns.BATCH_SIZE];
+            final boolean[] nulls = new boolean[Columns.BATCH_SIZE];
+            for (int k = 0; k < ranges.length; ++k) {
+                final Encoder encoder = encoders.get(k);
+                final KeyColumn reader = encoder.reader();
+                long min = Long.MAX_VALUE;
+                long max = Long.MIN_VALUE;
+                long nullCount = 0L;
+                for (int row = from; row < to; row += Columns.BATCH_SIZE) {
+                    final int count = Math.min(Columns.BATCH_SIZE, to - row);
+                    encoder.read(reader, row, words, nulls, count);
+                    for (int i = 0; i < count; ++i) {
+                        if (nulls[i]) {
+                            nullCount++;
+                        } else {
+                            min = Math.min(min, words[i]);
+                            max = Math.max(max, words[i]);
+                        }
+                    }
+                }
+                ranges[k] = new long[] {min, max, nullCount};
+            }
+            return ranges;
+        });
+        for (int k = 0; k < encoders.size(); ++k) {
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            boolean nulls = false;
+            for (long[][] ranges : results) {
+                min = Math.min(min, ranges[k][0]);
+                max = Math.max(max, ranges[k][1]);
+                nulls |= ranges[k][2] > 0L;
+            }
+            encoders.get(k).bind(min, max, nulls);
+        }
+    }
+
+    /**
+     * Groups the fields of the keys, in order of significance, into packs of at most 64 bits
+     */
+    private static List<List<Field>> pack(List<Encoder> encoders) {
+        final List<List<Field>> packs = new ArrayList<>();
+        List<Field> pack = new ArrayList<>();
+        int bits = 0;
+        for (Encoder encoder : encoders) {
+            for (Field field : encoder.fields()) {
+                if (bits + field.bits > 64) {
+                    packs.add(pack);
+                    pack = new ArrayList<>();
+                    bits = 0;
+                }
+                pack.add(field);
+                bits += field.bits;
+            }
+        }
+        if (!pack.isEmpty() || packs.isEmpty()) {
+            packs.add(pack);
+        }
+        return packs;
+    }
+
+    /**
+     * Returns the total number of bits of the fields in a pack
+     */
+    private static int bits(List<Field> pack) {
+        int bits = 0;
+        for (Field field : pack) {
+            bits += field.bits;
+        }
+        return bits;
+    }
+
+    /**
+     * Writes the packed word of every row into the array specified, indexed by row
+     */
+    private static void encode(List<Field> pack, long[] target, int rowCount, Morsels morsels) {
+        morsels.forEach(rowCount, (morsel, from, to) -> {
+            final long[] words = new long[Columns.BATCH_SIZE];
+            final boolean[] nulls = new boolean[Columns.BATCH_SIZE];
+            final KeyColumn[] readers = new KeyColumn[pack.size()];
+            for (int f = 0; f < readers.length; ++f) {
+                readers[f] = pack.get(f).encoder.reader();
+            }
+            Arrays.fill(target, from, to, 0L);
+            for (int row = from; row < to; row += Columns.BATCH_SIZE) {
+                final int count = Math.min(Columns.BATCH_SIZE, to - row);
+                for (int f = 0; f < readers.length; ++f) {
+                    final Field field = pack.get(f);
+                    if (f == 0 || field.encoder != pack.get(f - 1).encoder) {
+                        field.encoder.read(readers[f], row, words, nulls, count);
+                    }
+                    field.append(words, nulls, target, row, count);
+                }
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        return "Sort" + keys;
+    }
+
+
+    /**
+     * Reads a sort key as signed words whose order is the key order, and rebases them into unsigned fields
+     */
+    private static final class Encoder {
+
+        private final Column column;
+        private final boolean ascending;
+        private final boolean nullsFirst;
+        private final Validity validity;
+        private final int[] ranks;
+        private long min;
+        private long span;
+        private boolean nulls;
+        private boolean flag;
+
+        /**
+         * Constructor
+         * @param column    the key column
+         * @param key       the sort key
+         */
+        Encoder(Column column, SortKey key) {
+            this.column = column;
+            this.ascending = key.isAscending();
+            this.nullsFirst = key.isNullsFirst();
+            this.validity = column.type() == ColumnType.STRING ? null : column.validity();
+            this.ranks = column.type() == ColumnType.STRING ? ranks(((StringColumn)column).dictionary()) : null;
+        }
+
+        /**
+         * Returns the rank of each code of a dictionary in value order, where null code 0 has rank 0
+         */
+        private static int[] ranks(Dictionary dictionary) {
+            final int size = dictionary.size();
+            final String[] values = new String[size];
+            for (int code = 1; code <= size; ++code) {
+                values[code - 1] = dictionary.value(code);
+            }
+            Arrays.parallelSort(values);
+            final int[] ranks = new int[size + 1];
+            for (int code = 1; code <= size; ++code) {
+                ranks[code] = Arrays.binarySearch(values, dictionary.value(code)) + 1;
+            }
+            return ranks;
+        }
+
+        /**
+         * Returns a reader for the key column, which may only be used by one thread
+         */
+        KeyColumn reader() {
+            return new KeyColumn(column, Columns.BATCH_SIZE);
+        }
+
+        /**
+         * Reads a batch of keys as signed words in key order, flagging the null rows
+         * @param reader    the reader for the key column
+         * @param from      the first row
+         * @param words     the destination for the words, whose values for null rows are undefined
+         * @param nulls     the destination for the null flags
+         * @param count     the number of rows
+         */
+        void read(KeyColumn reader, int from, long[] words, boolean[] nulls, int count) {
+            reader.read(from, words, count);
+            if (ranks != null) {
+                for (int i = 0; i < count; ++i) {
+                    nulls[i] = words[i] == 0L;
+                    words[i] = ranks[(int)words[i]];
+                }
+            } else if (validity.hasNulls()) {
+                for (int i = 0; i < count; ++i) {
+                    nulls[i] = validity.isNull(from + i);
+                }
+            } else {
+                Arrays.fill(nulls, 0, count, false);
+            }
+            if (!ascending) {
+                for (int i = 0; i < count; ++i) {
+                    words[i] = ~words[i];
+                }
+            }
+        }
+
+        /**
+         * Binds this encoder to the range of words of its column
+         * @param min   the min word of a non-null row, or Long.MAX_VALUE if there is none
+         * @param max   the max word of a non-null row, or Long.MIN_VALUE if there is none
+         * @param nulls true if any row is null
+         */
+        void bind(long min, long max, boolean nulls) {
+            this.min = min <= max ? min : 0L;
+            this.span = min <= max ? max - min : 0L;
+            this.nulls = nulls;
+            this.flag = nulls && span == -1L;
+            if (nulls && !flag) {
+                this.span++;
+            }
+        }
+
+        /**
+         * Returns the fields that this key is encoded as, from the most to the least significant
+         */
+        List<Field> fields() {
+            final List<Field> fields = new ArrayList<>(2);
+            if (flag) {
+                fields.add(new Field(this, true, 1));
+            }
+            final int bits = 64 - Long.numberOfLeadingZeros(span);
+            if (bits > 0) {
+                fields.add(new Field(this, false, bits));
+            }
+            return fields;
+        }
+
+        /**
+         * Returns the unsigned value of a row in the value field of this key
+         */
+        long value(long word, boolean isNull) {
+            if (!nulls || flag) {
+                return isNull ? 0L : word - min;
+            } else if (nullsFirst) {
+                return isNull ? 0L : word - min + 1L;
+            } else {
+                return isNull ? span : word - min;
+            }
+        }
+
+        /**
+         * Returns the value of a row in the null flag field of this key
+         */
+        long flag(boolean isNull) {
+            return isNull != nullsFirst ? 1L : 0L;
+        }
+    }
+
+
+    /**
+     * A contiguous bit range of a packed word that holds either the value or the null flag of a key
+     */
+    private static final class Field {
+
+        private final Encoder encoder;
+        private final boolean flag;
+        private final int bits;
+
+        /**
+         * Constructor
+         * @param encoder   the encoder of the key
+         * @param flag      true for the null flag of the key, false for its value
+         * @param bits      the width of the field in bits
+         */
+        Field(Encoder encoder, boolean flag, int bits) {
+            this.encoder = encoder;
+            this.flag = flag;
+            this.bits = bits;
+        }
+
+        /**
+         * Shifts the packed words of a batch of rows left by the width of this field and appends its values
+         * @param words     the words of the key, as produced by Encoder.read()
+         * @param nulls     the null flags of the key
+         * @param target    the packed words, indexed by row
+         * @param from      the first row of the batch
+         * @param count     the number of rows
+         */
+        void append(long[] words, boolean[] nulls, long[] target, int from, int count) {
+            for (int i = 0; i < count; ++i) {
+                final long value = flag ? encoder.flag(nulls[i]) : encoder.value(words[i], nulls[i]);
+                target[from + i] = (bits == 64 ? 0L : target[from + i] << bits) | value;
+            }
+        }
+    }
+
+
+    /**
+     * A stable LSD radix sort of row indexes by unsigned words, with parallel counting and scattering
+     */
+    private static final class Radix {
+
+        private final int length;
+        private final Morsels morsels;
+        private long[] keys;
+        private int[] rows;
+        private long[] keyBuffer;
+        private int[] rowBuffer;
+
+        /**
+         * Constructor
+         * @param length    the number of rows to sort
+         * @param morsels   the executor that runs each pass over morsels of rows
+         */
+        Radix(int length, Morsels morsels) {
+            this.length = length;
+            this.morsels = morsels;
+            this.keys = new long[length];
+            this.rows = new int[length];
+            this.keyBuffer = new long[length];
+            this.rowBuffer = new int[length];
+        }
+
+        /**
+         * Initializes the rows to the identity permutation, to pair with keys written in row order
+         */
+        void identity() {
+            morsels.forEach(length, (morsel, from, to) -> {
+                for (int i = from; i < to; ++i) {
+                    rows[i] = i;
+                }
+            });
+        }
+
+        /**
+         * Moves keys written in row order into the key buffer into the current order of the rows
+         */
+        void gather() {
+            morsels.forEach(length, (morsel, from, to) -> {
+                for (int i = from; i < to; ++i) {
+                    keys[i] = keyBuffer[rows[i]];
+                }
+            });
+        }
+
+        /**
+         * Stably sorts the keys, along with their rows, by their low order bits
+         * @param bits  the number of significant bits of the keys
+         */
+        void sort(int bits) {
+            if (bits == 0 || isSorted()) {
+                return;
+            }
+            final int passes = (bits + MAX_DIGIT_BITS - 1) / MAX_DIGIT_BITS;
+            final int digitBits = (bits + passes - 1) / passes;
+            for (int shift = 0; shift < bits; shift += digitBits) {
+                pass(shift, Math.min(digitBits, bits - shift));
+            }
+        }
+
+        /**
+         * Returns true if the keys are already in ascending unsigned order
+         */
+        private boolean isSorted() {
+            for (int i = 1; i < length; ++i) {
+                if (Long.compareUnsigned(keys[i - 1], keys[i]) > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Performs one counting pass over the digit at the shift specified, unless every key has the same digit
+         */
+        private void pass(int shift, int digitBits) {
+            final int buckets = 1 << digitBits;
+            final int mask = buckets - 1;
+            final int[][] counts = new int[morsels.morselCount(length)][buckets];
+            morsels.forEach(length, (morsel, from, to) -> {
+                final int[] count = counts[morsel];
+                for (int i = from; i < to; ++i) {
+                    count[(int)(keys[i] >>> shift) & mask]++;
+                }
+            });
+            int offset = 0;
+            for (int d = 0; d < buckets; ++d) {
+                int total = 0;
+                for (int m = 0; m < counts.length; ++m) {
+                    final int count = counts[m][d];
+                    counts[m][d] = offset + total;
+                    total += count;
+                }
+                if (total == length) {
+                    return;
+                }
+                offset += total;
+            }
+            morsels.forEach(length, (morsel, from, to) -> {
+                final int[] next = counts[morsel];
+                for (int i = from; i < to; ++i) {
+                    final long key = keys[i];
+                    final int index = next[(int)(key >>> shift) & mask]++;
+                    keyBuffer[index] = key;
+                    rowBuffer[index] = rows[i];
+                }
+            });
+            final long[] swapKeys = keys;
+            final int[] swapRows = rows;
+            this.keys = keyBuffer;
+            this.rows = rowBuffer;
+            this.keyBuffer = swapKeys;
+            this.rowBuffer = swapRows;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.zavtech.morpheus.sort;
+
+import java.util.Objects;
+
+/**
+ * A column to sort a DataFrame by, together with its direction and the placement of its nulls.
+ *
+ * Keys are immutable, so nullsFirst() and nullsLast() return new keys. Nulls are placed
+ * after all values by default, whatever the direction of the key.
+ */
+public final class SortKey {
+
+    private final String column;
+    private final boolean ascending;
+    private final boolean nullsFirst;
+
+    /**
+     * Constructor
+     * @param column        the column name
+     * @param ascending     true to sort in ascending order
+     * @param nullsFirst    true to place nulls before all values
+     */
+    private SortKey(String column, boolean ascending, boolean nullsFirst) {
+        this.column = Objects.requireNonNull(column, "The sort column cannot be null");
+        this.ascending = ascending;
+        this.nullsFirst = nullsFirst;
+    }
+
+    /**
+     * Returns a key that sorts by a column in ascending order, with nulls last
+     * @param column    the column name
+     * @return          the sort key
+     */
+    public static SortKey asc(String column) {
+        return new SortKey(column, true, false);
+    }
+
+    /**
+     * Returns a key that sorts by a column in descending order, with nulls last
+     * @param column    the column name
+     * @return          the sort key
+     */
+    public static SortKey desc(String column) {
+        return new SortKey(column, false, false);
+    }
+
+    /**
+     * Returns a copy of this key that places nulls before all values
+     * @return  the new sort key
+     */
+    public SortKey nullsFirst() {
+        return new SortKey(column, ascending, true);
+    }
+
+    /**
+     * Returns a copy of this key that places nulls after all values
+     * @return  the new sort key
+     */
+    public SortKey nullsLast() {
+        return new SortKey(column, ascending, false);
+    }
+
+    /**
+     * Returns the name of the column to sort by
+     * @return  the column name
+     */
+    public String column() {
+        return column;
+    }
+
+    /**
+     * Returns true if this key sorts in ascending order
+     * @return  true for ascending, false for descending
+     */
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    /**
+     * Returns true if this key places nulls before all values
+     * @return  true for nulls first, false for nulls last
+     */
+    public boolean isNullsFirst() {
+        return nullsFirst;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other instanceof SortKey) {
+            final SortKey that = (SortKey)other;
+            return column.equals(that.column) && ascending == that.ascending && nullsFirst == that.nullsFirst;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(column, ascending, nullsFirst);
+    }
+
+    @Override
+    public String toString() {
+        return column + (ascending ? " ASC" : " DESC") + (nullsFirst ? " NULLS FIRST" : " NULLS LAST");
+    }
+}
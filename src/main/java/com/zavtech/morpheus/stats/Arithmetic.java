@@ -0,0 +1,182 @@
+package com.zavtech.morpheus.stats;
+
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleArrayColumn;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.NumericColumn;
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.column.Validity;
+import com.zavtech.morpheus.frame.DataFrameException;
+
+/**
+ * Element-wise arithmetic between numeric columns, computed by SIMD or scalar kernels, see Kernels.
+ *
+ * The variants that take an output column allocate nothing when all columns are array
+ * backed doubles, and otherwise stage blocks through per-thread scratch buffers. A row of
+ * the output is null wherever a row of either operand is null.
+ */
+public final class Arithmetic {
+
+    private Arithmetic() {
+        super();
+    }
+
+    /**
+     * Returns a new double column with the sum of two columns
+     * @param left  the left operand
+     * @param right the right operand
+     * @param name  the name of the result column
+     * @return      the result column
+     */
+    public static DoubleColumn add(NumericColumn left, NumericColumn right, String name) {
+        return apply(BinaryOp.ADD, left, right, name);
+    }
+
+    /**
+     * Returns a new double column with the difference of two columns
+     * @param left  the left operand
+     * @param right the right operand
+     * @param name  the name of the result column
+     * @return      the result column
+     */
+    public static DoubleColumn subtract(NumericColumn left, NumericColumn right, String name) {
+        return apply(BinaryOp.SUBTRACT, left, right, name);
+    }
+
+    /**
+     * Returns a new double column with the product of two columns
+     * @param left  the left operand
+     * @param right the right operand
+     * @param name  the name of the result column
+     * @return      the result column
+     */
+    public static DoubleColumn multiply(NumericColumn left, NumericColumn right, String name) {
+        return apply(BinaryOp.MULTIPLY, left, right, name);
+    }
+
+    /**
+     * Returns a new double column with the quotient of two columns
+     * @param left  the left operand
+     * @param right the right operand
+     * @param name  the name of the result column
+     * @return      the result column
+     */
+    public static DoubleColumn divide(NumericColumn left, NumericColumn right, String name) {
+        return apply(BinaryOp.DIVIDE, left, right, name);
+    }
+
+    /**
+     * Returns a new double column, in the storage of the left operand, with the result of an element-wise operation
+     * @param op    the operation
+     * @param left  the left operand
+     * @param right the right operand
+     * @param name  the name of the result column
+     * @return      the result column
+     */
+    public static DoubleColumn apply(BinaryOp op, NumericColumn left, NumericColumn right, String name) {
+        final DoubleColumn out = Columns.doubles(name, left.length(), storageFor(left));
+        apply(op, left, right, out);
+        return out;
+    }
+
+    /**
+     * Returns a new double column, in the storage of the left operand, with the result of an element-wise operation with a scalar
+     * @param op    the operation
+     * @param left  the left operand
+     * @param right the scalar right operand
+     * @param name  the name of the result column
+     * @return      the result column
+     */
+    public static DoubleColumn apply(BinaryOp op, NumericColumn left, double right, String name) {
+        final DoubleColumn out = Columns.doubles(name, left.length(), storageFor(left));
+        apply(op, left, right, out);
+        return out;
+    }
+
+    /**
+     * Writes the result of an element-wise operation between two columns into an output column
+     * @param op    the operation
+     * @param left  the left operand
+     * @param right the right operand
+     * @param out   the output column, which may be one of the operands
+     */
+    public static void apply(BinaryOp op, NumericColumn left, NumericColumn right, DoubleColumn out) {
+        final int length = left.length();
+        if (right.length() != length || out.length() != length) {
+            throw new DataFrameException("Column lengths do not match: " + length + ", " + right.length() + ", " + out.length());
+        }
+        final DoubleKernels kernels = Kernels.INSTANCE;
+        final Validity leftNulls = nulls(left);
+        final Validity rightNulls = nulls(right);
+        if (left instanceof DoubleArrayColumn && right instanceof DoubleArrayColumn && out instanceof DoubleArrayColumn) {
+            final double[] a = ((DoubleArrayColumn)left).values();
+            final double[] b = ((DoubleArrayColumn)right).values();
+            kernels.apply(op, a, 0, b, 0, ((DoubleArrayColumn)out).values(), 0, length);
+        } else {
+            final double[][] scratch = Kernels.scratch();
+            for (int i = 0; i < length; i += Kernels.BLOCK_SIZE) {
+                final int count = Math.min(Kernels.BLOCK_SIZE, length - i);
+                left.getDoubles(i, scratch[0], 0, count);
+                right.getDoubles(i, scratch[1], 0, count);
+                kernels.apply(op, scratch[0], 0, scratch[1], 0, scratch[2], 0, count);
+                out.setDoubles(i, scratch[2], 0, count);
+            }
+        }
+        out.validity().setValid(0, length);
+        setNulls(out, leftNulls);
+        setNulls(out, rightNulls);
+    }
+
+    /**
+     * Writes the result of an element-wise operation between a column and a scalar into an output column
+     * @param op    the operation
+     * @param left  the left operand
+     * @param right the scalar right operand
+     * @param out   the output column, which may be the left operand
+     */
+    public static void apply(BinaryOp op, NumericColumn left, double right, DoubleColumn out) {
+        final int length = left.length();
+        if (out.length() != length) {
+            throw new DataFrameException("Column lengths do not match: " + length + " != " + out.length());
+        }
+        final DoubleKernels kernels = Kernels.INSTANCE;
+        final Validity leftNulls = nulls(left);
+        if (left instanceof DoubleArrayColumn && out instanceof DoubleArrayColumn) {
+            kernels.apply(op, ((DoubleArrayColumn)left).values(), 0, right, ((DoubleArrayColumn)out).values(), 0, length);
+        } else {
+            final double[][] scratch = Kernels.scratch();
+            for (int i = 0; i < length; i += Kernels.BLOCK_SIZE) {
+                final int count = Math.min(Kernels.BLOCK_SIZE, length - i);
+                left.getDoubles(i, scratch[0], 0, count);
+                kernels.apply(op, scratch[0], 0, right, scratch[1], 0, count);
+                out.setDoubles(i, scratch[1], 0, count);
+            }
+        }
+        out.validity().setValid(0, length);
+        setNulls(out, leftNulls);
+    }
+
+    /**
+     * Returns a copy of the validity of an operand taken before the output is written, which may overwrite it, or null if it has no nulls
+     */
+    private static Validity nulls(NumericColumn column) {
+        final Validity validity = column.validity();
+        return validity.hasNulls() ? validity.copy() : null;
+    }
+
+    /**
+     * Marks the rows of the output that are null in an operand as null, where the kernels have already written NaN to them
+     */
+    private static void setNulls(DoubleColumn out, Validity nulls) {
+        if (nulls != null) {
+            out.validity().setNulls(nulls, 0);
+        }
+    }
+
+    /**
+     * Returns the storage for a result derived from the column specified, where mapped inputs yield off-heap results
+     */
+    private static Storage storageFor(NumericColumn column) {
+        return column.storage() == Storage.HEAP ? Storage.HEAP : Storage.OFF_HEAP;
+    }
+}
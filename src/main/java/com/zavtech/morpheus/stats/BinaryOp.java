@@ -0,0 +1,28 @@
+package com.zavtech.morpheus.stats;
+
+/**
+ * Enumerates the element-wise binary arithmetic operations supported by kernels.
+ */
+public enum BinaryOp {
+
+    ADD,
+    SUBTRACT,
+    MULTIPLY,
+    DIVIDE;
+
+    /**
+     * Applies this operation to the operands specified
+     * @param left  the left operand
+     * @param right the right operand
+     * @return      the result
+     */
+    public double apply(double left, double right) {
+        switch (this) {
+            case ADD:       return left + right;
+            case SUBTRACT:  return left - right;
+            case MULTIPLY:  return left * right;
+            case DIVIDE:    return left / right;
+            default:        throw new IllegalStateException("Unsupported operation: " + this);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.zavtech.morpheus.stats;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.zavtech.morpheus.column.NumericColumn;
+import com.zavtech.morpheus.filter.Bitsets;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.parallel.Morsels;
+
+/**
+ * The means and centered cross products of a set of numeric columns, the sufficient statistics of covariance and correlation.
+ *
+ * Columns are read in place, a block of rows at a time, and each block is staged into per-thread
+ * buffers sized so that the block of every column stays in cache while the kernels compute the
+ * dot product of each pair of columns over it, two columns against four at a time. Morsels of rows
+ * are processed in parallel with a partial matrix per worker, so no dense copy of the columns is
+ * ever made. The means are computed in a first pass and subtracted while staging in the second,
+ * which avoids the cancellation of the one pass formula when means are large relative to spreads.
+ *
+ * Rows that are null in any of the columns are excluded from every statistic, so all cross products
+ * are over the same set of complete rows.
+ */
+public final class CrossProducts {
+
+    /** The approximate number of bytes of each staged block of rows across all columns */
+    private static final int BLOCK_BYTES = 1 << 19;
+
+    private final int size;
+    private final long count;
+    private final double[] means;
+    private final double[] products;
+
+    /**
+     * Constructor
+     * @param count     the number of complete rows
+     * @param means     the mean of each column
+     * @param products  the centered cross products as a row-major matrix
+     */
+    private CrossProducts(long count, double[] means, double[] products) {
+        this.size = means.length;
+        this.count = count;
+        this.means = means;
+        this.products = products;
+    }
+
+    /**
+     * Returns the cross products of the columns specified, using the default parallelism
+     * @param columns   the columns, of equal length
+     * @return          the cross products
+     */
+    public static CrossProducts of(List<? extends NumericColumn> columns) {
+        return of(columns, Morsels.getDefaultParallelism());
+    }
+
+    /**
+     * Returns the cross products of the columns specified
+     * @param columns       the columns, of equal length
+     * @param parallelism   the max number of threads, where 1 computes on the calling thread
+     * @return              the cross products
+     */
+    public static CrossProducts of(List<? extends NumericColumn> columns, int parallelism) {
+        final NumericColumn[] array = columns.toArray(new NumericColumn[0]);
+        if (array.length == 0) {
+            throw new DataFrameException("At least one column is required for cross products");
+        }
+        for (NumericColumn column : array) {
+            if (column.length() != array[0].length()) {
+                throw new DataFrameException("Column lengths do not match: " + column.length() + " != " + array[0].length());
+            }
+        }
+        final int size = array.length;
+        final int rowCount = array[0].length();
+        final Morsels morsels = Morsels.create().setParallelism(parallelism);
+        final List<Block> sums = morsels.collect(rowCount, () -> new Block(array, null), (block, morsel, from, to) -> block.sum(from, to));
+        long count = 0L;
+        final double[] means = new double[size];
+        for (Block block : sums) {
+            count += block.count;
+            for (int i = 0; i < size; ++i) {
+                means[i] += block.result[i];
+            }
+        }
+        for (int i = 0; i < size; ++i) {
+            means[i] = count > 0 ? means[i] / count : Double.NaN;
+        }
+        final List<Block> partials = morsels.collect(rowCount, () -> new Block(array, means), (block, morsel, from, to) -> block.multiply(from, to));
+        final double[] products = new double[size * size];
+        for (Block block : partials) {
+            for (int i = 0; i < products.length; ++i) {
+                products[i] += block.result[i];
+            }
+        }
+        for (int i = 0; i < size; ++i) {
+            for (int j = 0; j < i; ++j) {
+                products[i * size + j] = products[j * size + i];
+            }
+        }
+        return new CrossProducts(count, means, products);
+    }
+
+    /**
+     * Returns the number of columns
+     * @return  the column count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of rows without nulls in any column, over which the statistics are computed
+     * @return  the row count
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the mean of a column over the complete rows
+     * @param index the column index
+     * @return      the mean, NaN if there are no complete rows
+     */
+    public double mean(int index) {
+        return means[index];
+    }
+
+    /**
+     * Returns the sum over the complete rows of the products of the deviations of two columns from their means
+     * @param i the index of the first column
+     * @param j the index of the second column
+     * @return  the centered cross product
+     */
+    public double get(int i, int j) {
+        return products[i * size + j];
+    }
+
+    /**
+     * Returns the sample covariance of two columns
+     * @param i the index of the first column
+     * @param j the index of the second column
+     * @return  the covariance, NaN if there are fewer than two complete rows
+     */
+    public double covariance(int i, int j) {
+        return count > 1 ? products[i * size + j] / (count - 1) : Double.NaN;
+    }
+
+    /**
+     * Returns the correlation of two columns
+     * @param i the index of the first column
+     * @param j the index of the second column
+     * @return  the correlation, NaN if either column is constant
+     */
+    public double correlation(int i, int j) {
+        final double scale = Math.sqrt(products[i * size + i] * products[j * size + j]);
+        return i == j && scale > 0d ? 1d : products[i * size + j] / scale;
+    }
+
+    @Override
+    public String toString() {
+        return "CrossProducts(columns=" + size + ", rows=" + count + ")";
+    }
+
+
+    /**
+     * The per-worker state of a pass over the columns, with staging buffers for one block of rows of every column
+     */
+    private static final class Block {
+
+        private final NumericColumn[] columns;
+        private final double[] means;
+        private final double[][] staged;
+        private final double[] buffer;
+        private final long[] mask;
+        private final double[] result;
+        private long count;
+
+        /**
+         * Constructor
+         * @param columns   the columns
+         * @param means     the means to subtract while staging, or null to sum the columns
+         */
+        Block(NumericColumn[] columns, double[] means) {
+            final int rows = Math.max(64, Math.min(Kernels.BLOCK_SIZE, BLOCK_BYTES / (8 * columns.length)) & ~63);
+            this.columns = columns;
+            this.means = means;
+            this.staged = new double[columns.length][rows];
+            this.buffer = new double[rows];
+            this.mask = new long[rows >>> 6];
+            this.result = new double[means != null ? columns.length * columns.length : columns.length];
+        }
+
+        /**
+         * Adds the sums of the complete rows of a morsel to the result
+         */
+        void sum(int from, int to) {
+            final DoubleKernels kernels = Kernels.INSTANCE;
+            for (int i = from; i < to; i += buffer.length) {
+                final int count = stage(i, Math.min(buffer.length, to - i));
+                for (int j = 0; j < columns.length; ++j) {
+                    this.result[j] += kernels.sum(staged[j], 0, count);
+                }
+                this.count += count;
+            }
+        }
+
+        /**
+         * Adds the centered cross products of the complete rows of a morsel to the result
+         */
+        void multiply(int from, int to) {
+            final DoubleKernels kernels = Kernels.INSTANCE;
+            for (int i = from; i < to; i += buffer.length) {
+                final int count = stage(i, Math.min(buffer.length, to - i));
+                kernels.crossProducts(staged, columns.length, count, result);
+                this.count += count;
+            }
+        }
+
+        /**
+         * Stages the complete rows of a block of every column, centered on the means if any
+         * @param from      the first row of the block, a multiple of 64
+         * @param length    the number of rows in the block
+         * @return          the number of complete rows staged
+         */
+        private int stage(int from, int length) {
+            Arrays.fill(mask, -1L);
+            boolean nulls = false;
+            for (NumericColumn column : columns) {
+                final long[] valid = column.validity().words();
+                if (valid != null) {
+                    for (int w = 0; w < (length + 63) >>> 6; ++w) {
+                        this.mask[w] &= valid[(from >>> 6) + w];
+                    }
+                    nulls = true;
+                }
+            }
+            int count = length;
+            for (int j = 0; j < columns.length; ++j) {
+                if (nulls) {
+                    columns[j].getDoubles(from, buffer, 0, length);
+                    count = Bitsets.compact(mask, 0, buffer, 0, length, staged[j]);
+                } else {
+                    columns[j].getDoubles(from, staged[j], 0, length);
+                }
+                if (means != null) {
+                    final double mean = means[j];
+                    final double[] values = staged[j];
+                    for (int r = 0; r < count; ++r) {
+                        values[r] -= mean;
+                    }
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.zavtech.morpheus.stats;
+
+/**
+ * The primitive array kernels that underpin column statistics and arithmetic.
+ *
+ * Every method operates on a range of one or more arrays described by an offset and
+ * a length, and none of them allocate, so they can be applied to blocks of a column
+ * or to reusable scratch buffers on the hot path.
+ */
+interface DoubleKernels {
+
+    /**
+     * Returns the sum of values in the range
+     */
+    double sum(double[] values, int offset, int length);
+
+    /**
+     * Returns the sum of values in the range
+     */
+    long sum(long[] values, int offset, int length);
+
+    /**
+     * Returns the min value in the range, or positive infinity if the range is empty
+     */
+    double min(double[] values, int offset, int length);
+
+    /**
+     * Returns the max value in the range, or negative infinity if the range is empty
+     */
+    double max(double[] values, int offset, int length);
+
+    /**
+     * Returns the sum of squared deviations from the mean specified for values in the range
+     */
+    double sumSquaredDeviations(double[] values, int offset, int length, double mean);
+
+    /**
+     * Returns the dot product of two ranges of equal length
+     */
+    double dot(double[] left, int leftOffset, double[] right, int rightOffset, int length);
+
+    /**
+     * Adds the dot product of each pair of columns, over the first length values of each, to the upper triangle of a row-major matrix
+     */
+    void crossProducts(double[][] columns, int size, int length, double[] out);
+
+    /**
+     * Applies an operation element-wise to two ranges, writing results into the output range
+     */
+    void apply(BinaryOp op, double[] left, int leftOffset, double[] right, int rightOffset, double[] out, int outOffset, int length);
+
+    /**
+     * Applies an operation element-wise to a range and a scalar, writing results into the output range
+     */
+    void apply(BinaryOp op, double[] left, int leftOffset, double right, double[] out, int outOffset, int length);
+}
@@ -0,0 +1,53 @@
+package com.zavtech.morpheus.stats;
+
+/**
+ * Selects the DoubleKernels implementation used by this library.
+ *
+ * SIMD kernels are used when the jdk.incubator.vector module is present in the boot layer,
+ * which requires the JVM to be started with --add-modules jdk.incubator.vector. Otherwise,
+ * or if the system property morpheus.kernels is set to "scalar", portable scalar kernels are used.
+ */
+public final class Kernels {
+
+    /** The number of values processed per block, sized so that a few blocks fit in the L1 cache */
+    static final int BLOCK_SIZE = 2048;
+
+    static final DoubleKernels INSTANCE = select();
+
+    private static final ThreadLocal<double[][]> scratch = ThreadLocal.withInitial(() -> new double[3][BLOCK_SIZE]);
+
+    private Kernels() {
+        super();
+    }
+
+    /**
+     * Returns true if SIMD kernels from the Vector API are in use
+     * @return  true if kernels are vectorized
+     */
+    public static boolean isVectorized() {
+        return !(INSTANCE instanceof ScalarKernels);
+    }
+
+    /**
+     * Returns three per-thread scratch buffers of BLOCK_SIZE values, used to stage blocks of non-array columns
+     */
+    static double[][] scratch() {
+        return scratch.get();
+    }
+
+    /**
+     * Returns the best kernel implementation available in this runtime
+     */
+    private static DoubleKernels select() {
+        final boolean scalar = "scalar".equalsIgnoreCase(System.getProperty("morpheus.kernels"));
+        if (!scalar && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                final Class<?> type = Class.forName("com.zavtech.morpheus.stats.VectorKernels");
+                return (DoubleKernels)type.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError ex) {
+                return new ScalarKernels();
+            }
+        }
+        return new ScalarKernels();
+    }
+}
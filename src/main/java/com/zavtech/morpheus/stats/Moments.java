@@ -0,0 +1,133 @@
+package com.zavtech.morpheus.stats;
+
+/**
+ * A mergeable accumulator of the count, sum, mean, second central moment, min and max of a set of values.
+ *
+ * Values can be added one at a time using Welford's algorithm, or whole blocks can be
+ * merged using the pairwise update of Chan et al, which lets partial results computed
+ * over separate ranges or threads be combined without loss of precision.
+ */
+public final class Moments {
+
+    private long count;
+    private double sum;
+    private double mean;
+    private double m2;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Adds a single value to this accumulator
+     * @param value the value to add
+     * @return      this accumulator
+     */
+    public Moments add(double value) {
+        this.count++;
+        final double delta = value - mean;
+        this.mean += delta / count;
+        this.m2 += delta * (value - mean);
+        this.sum += value;
+        this.min = Math.min(min, value);
+        this.max = Math.max(max, value);
+        return this;
+    }
+
+    /**
+     * Merges the moments of another set of values into this accumulator
+     * @param count the number of values in the other set
+     * @param sum   the sum of the other set
+     * @param m2    the sum of squared deviations from the mean of the other set
+     * @param min   the min of the other set
+     * @param max   the max of the other set
+     * @return      this accumulator
+     */
+    public Moments merge(long count, double sum, double m2, double min, double max) {
+        if (count > 0) {
+            final double otherMean = sum / count;
+            if (this.count == 0) {
+                this.mean = otherMean;
+                this.m2 = m2;
+            } else {
+                final long total = this.count + count;
+                final double delta = otherMean - mean;
+                this.mean += delta * count / total;
+                this.m2 += m2 + delta * delta * ((double)this.count * count / total);
+            }
+            this.count += count;
+            this.sum += sum;
+            this.min = Math.min(this.min, min);
+            this.max = Math.max(this.max, max);
+        }
+        return this;
+    }
+
+    /**
+     * Merges another accumulator into this one
+     * @param other the accumulator to merge
+     * @return      this accumulator
+     */
+    public Moments merge(Moments other) {
+        return merge(other.count, other.sum, other.m2, other.min, other.max);
+    }
+
+    /**
+     * Returns the number of values
+     * @return  the count
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the sum of values
+     * @return  the sum
+     */
+    public double sum() {
+        return sum;
+    }
+
+    /**
+     * Returns the mean of values, or NaN if there are none
+     * @return  the mean
+     */
+    public double mean() {
+        return count > 0 ? mean : Double.NaN;
+    }
+
+    /**
+     * Returns the unbiased sample variance, or NaN if there are fewer than two values
+     * @return  the sample variance
+     */
+    public double variance() {
+        return count > 1 ? m2 / (count - 1) : Double.NaN;
+    }
+
+    /**
+     * Returns the sample standard deviation, or NaN if there are fewer than two values
+     * @return  the sample standard deviation
+     */
+    public double std() {
+        return Math.sqrt(variance());
+    }
+
+    /**
+     * Returns the min value, or NaN if there are none
+     * @return  the min value
+     */
+    public double min() {
+        return count > 0 ? min : Double.NaN;
+    }
+
+    /**
+     * Returns the max value, or NaN if there are none
+     * @return  the max value
+     */
+    public double max() {
+        return count > 0 ? max : Double.NaN;
+    }
+
+    @Override
+    public String toString() {
+        return "Moments(count=" + count + ", mean=" + mean() + ", std=" + std() + ", min=" + min() + ", max=" + max() + ")";
+    }
+}
@@ -0,0 +1,195 @@
+package com.zavtech.morpheus.stats;
+
+/**
+ * The portable implementation of DoubleKernels, written as simple counted loops with
+ * several independent accumulators so that the JIT compiler can unroll and pipeline them.
+ */
+final class ScalarKernels implements DoubleKernels {
+
+    @Override
+    public double sum(double[] values, int offset, int length) {
+        double s0 = 0d, s1 = 0d, s2 = 0d, s3 = 0d;
+        final int end = offset + length;
+        final int bound = offset + (length & ~3);
+        int i = offset;
+        for (; i < bound; i += 4) {
+            s0 += values[i];
+            s1 += values[i + 1];
+            s2 += values[i + 2];
+            s3 += values[i + 3];
+        }
+        for (; i < end; ++i) {
+            s0 += values[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    @Override
+    public long sum(long[] values, int offset, int length) {
+        long sum = 0L;
+        final int end = offset + length;
+        for (int i = offset; i < end; ++i) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public double min(double[] values, int offset, int length) {
+        double m0 = Double.POSITIVE_INFINITY, m1 = Double.POSITIVE_INFINITY;
+        final int end = offset + length;
+        final int bound = offset + (length & ~1);
+        int i = offset;
+        for (; i < bound; i += 2) {
+            m0 = Math.min(m0, values[i]);
+            m1 = Math.min(m1, values[i + 1]);
+        }
+        for (; i < end; ++i) {
+            m0 = Math.min(m0, values[i]);
+        }
+        return Math.min(m0, m1);
+    }
+
+    @Override
+    public double max(double[] values, int offset, int length) {
+        double m0 = Double.NEGATIVE_INFINITY, m1 = Double.NEGATIVE_INFINITY;
+        final int end = offset + length;
+        final int bound = offset + (length & ~1);
+        int i = offset;
+        for (; i < bound; i += 2) {
+            m0 = Math.max(m0, values[i]);
+            m1 = Math.max(m1, values[i + 1]);
+        }
+        for (; i < end; ++i) {
+            m0 = Math.max(m0, values[i]);
+        }
+        return Math.max(m0, m1);
+    }
+
+    @Override
+    public double sumSquaredDeviations(double[] values, int offset, int length, double mean) {
+        double s0 = 0d, s1 = 0d;
+        final int end = offset + length;
+        final int bound = offset + (length & ~1);
+        int i = offset;
+        for (; i < bound; i += 2) {
+            final double d0 = values[i] - mean;
+            final double d1 = values[i + 1] - mean;
+            s0 += d0 * d0;
+            s1 += d1 * d1;
+        }
+        for (; i < end; ++i) {
+            final double d0 = values[i] - mean;
+            s0 += d0 * d0;
+        }
+        return s0 + s1;
+    }
+
+    @Override
+    public double dot(double[] left, int leftOffset, double[] right, int rightOffset, int length) {
+        double s0 = 0d, s1 = 0d, s2 = 0d, s3 = 0d;
+        final int bound = length & ~3;
+        int i = 0;
+        for (; i < bound; i += 4) {
+            s0 += left[leftOffset + i] * right[rightOffset + i];
+            s1 += left[leftOffset + i + 1] * right[rightOffset + i + 1];
+            s2 += left[leftOffset + i + 2] * right[rightOffset + i + 2];
+            s3 += left[leftOffset + i + 3] * right[rightOffset + i + 3];
+        }
+        for (; i < length; ++i) {
+            s0 += left[leftOffset + i] * right[rightOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    @Override
+    public void crossProducts(double[][] columns, int size, int length, double[] out) {
+        int i = 0;
+        for (; i + 1 < size; i += 2) {
+            final double[] a0 = columns[i];
+            final double[] a1 = columns[i + 1];
+            int j = i;
+            for (; j + 3 < size; j += 4) {
+                final double[] b0 = columns[j];
+                final double[] b1 = columns[j + 1];
+                final double[] b2 = columns[j + 2];
+                final double[] b3 = columns[j + 3];
+                double s00 = 0d, s01 = 0d, s02 = 0d, s03 = 0d;
+                double s10 = 0d, s11 = 0d, s12 = 0d, s13 = 0d;
+                for (int r = 0; r < length; ++r) {
+                    final double x0 = a0[r];
+                    final double x1 = a1[r];
+                    s00 += x0 * b0[r];
+                    s01 += x0 * b1[r];
+                    s02 += x0 * b2[r];
+                    s03 += x0 * b3[r];
+                    s10 += x1 * b0[r];
+                    s11 += x1 * b1[r];
+                    s12 += x1 * b2[r];
+                    s13 += x1 * b3[r];
+                }
+                add(out, i * size + j, s00, s01, s02, s03);
+                add(out, (i + 1) * size + j, s10, s11, s12, s13);
+            }
+            for (; j < size; ++j) {
+                out[i * size + j] += dot(a0, 0, columns[j], 0, length);
+                out[(i + 1) * size + j] += dot(a1, 0, columns[j], 0, length);
+            }
+        }
+        for (; i < size; ++i) {
+            for (int j = i; j < size; ++j) {
+                out[i * size + j] += dot(columns[i], 0, columns[j], 0, length);
+            }
+        }
+    }
+
+    /**
+     * Adds four sums to consecutive elements of an array
+     */
+    private static void add(double[] out, int offset, double s0, double s1, double s2, double s3) {
+        out[offset] += s0;
+        out[offset + 1] += s1;
+        out[offset + 2] += s2;
+        out[offset + 3] += s3;
+    }
+
+    @Override
+    public void apply(BinaryOp op, double[] left, int leftOffset, double[] right, int rightOffset, double[] out, int outOffset, int length) {
+        switch (op) {
+            case ADD:
+                for (int i = 0; i < length; ++i) out[outOffset + i] = left[leftOffset + i] + right[rightOffset + i];
+                break;
+            case SUBTRACT:
+                for (int i = 0; i < length; ++i) out[outOffset + i] = left[leftOffset + i] - right[rightOffset + i];
+                break;
+            case MULTIPLY:
+                for (int i = 0; i < length; ++i) out[outOffset + i] = left[leftOffset + i] * right[rightOffset + i];
+                break;
+            case DIVIDE:
+                for (int i = 0; i < length; ++i) out[outOffset + i] = left[leftOffset + i] / right[rightOffset + i];
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported operation: " + op);
+        }
+    }
+
+    @Override
+    public void apply(BinaryOp op, double[] left, int leftOffset, double right, double[] out, int outOffset, int length) {
+        switch (op) {
+            case ADD:
+                for (int i = 0; i < length; ++i) out[outOffset + i] = left[leftOffset + i] + right;
+                break;
+            case SUBTRACT:
+                for (int i = 0; i < length; ++i) out[outOffset + i] = left[leftOffset + i] - right;
+                break;
+            case MULTIPLY:
+                for (int i = 0; i < length; ++i) out[outOffset + i] = left[leftOffset + i] * right;
+                break;
+            case DIVIDE:
+                for (int i = 0; i < length; ++i) out[outOffset + i] = left[leftOffset + i] / right;
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported operation: " + op);
+        }
+    }
+}
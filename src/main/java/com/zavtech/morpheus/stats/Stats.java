@@ -0,0 +1,395 @@
+package com.zavtech.morpheus.stats;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.DoubleArrayColumn;
+import com.zavtech.morpheus.column.EncodedColumn;
+import com.zavtech.morpheus.column.LongArrayColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.NumericColumn;
+import com.zavtech.morpheus.column.Validity;
+import com.zavtech.morpheus.filter.Bitsets;
+import com.zavtech.morpheus.filter.Selection;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.parallel.Morsels;
+
+/**
+ * Column-wise statistics computed by SIMD or scalar kernels, see Kernels.
+ *
+ * Array backed double columns are processed in place, while other numeric columns are
+ * staged block by block through per-thread scratch buffers, so none of these methods
+ * allocate in proportion to the column length.
+ *
+ * Null rows are ignored. Array backed columns with sparse nulls are reduced by running the
+ * dense kernels over the runs of valid rows between nulls, while blocks of other columns
+ * with nulls are packed into a scratch buffer by walking the validity bitmap a word at a
+ * time, so the same dense kernels reduce them. Encoded columns are summed from their runs or
+ * blocks, and without nulls their min and max are read from the bounds of their blocks.
+ */
+public final class Stats {
+
+    /** The number of rows in each morsel when computing moments in parallel */
+    private static final int PARALLEL_CHUNK = 1 << 20;
+
+    /** The min mean number of rows per null for which an array is reduced over its runs of valid rows */
+    private static final int MIN_RUN_LENGTH = 64;
+
+    private Stats() {
+        super();
+    }
+
+    /**
+     * Returns the sum of a numeric column
+     * @param column    the column
+     * @return          the sum of values
+     */
+    public static double sum(NumericColumn column) {
+        final DoubleKernels kernels = Kernels.INSTANCE;
+        final int length = column.length();
+        final Validity validity = column.validity();
+        double sum = 0d;
+        if (column instanceof DoubleArrayColumn && !validity.hasNulls()) {
+            sum = kernels.sum(((DoubleArrayColumn)column).values(), 0, length);
+        } else if (column instanceof EncodedColumn && !overflows((EncodedColumn)column)) {
+            sum = ((EncodedColumn)column).sumLong();
+        } else if (column instanceof DoubleArrayColumn && isSparse(validity)) {
+            final double[] values = ((DoubleArrayColumn)column).values();
+            for (int from = validity.nextValid(0), to; from < length; from = validity.nextValid(to)) {
+                to = validity.nextNull(from);
+                sum += kernels.sum(values, from, to - from);
+            }
+        } else {
+            final double[][] scratch = Kernels.scratch();
+            for (int i = 0; i < length; i += Kernels.BLOCK_SIZE) {
+                final int count = stage(column, validity, i, Math.min(Kernels.BLOCK_SIZE, length - i), scratch);
+                sum += kernels.sum(scratch[1], 0, count);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the exact sum of a long column, which wraps on overflow.
+     * Null rows hold zero, so they need no masking.
+     * @param column    the column
+     * @return          the sum of values
+     */
+    public static long sumLong(LongColumn column) {
+        final DoubleKernels kernels = Kernels.INSTANCE;
+        final int length = column.length();
+        if (column instanceof LongArrayColumn) {
+            return kernels.sum(((LongArrayColumn)column).values(), 0, length);
+        } else if (column instanceof EncodedColumn) {
+            return ((EncodedColumn)column).sumLong();
+        } else {
+            long sum = 0L;
+            final long[] buffer = new long[Math.min(length, Kernels.BLOCK_SIZE)];
+            for (int i = 0; i < length; i += buffer.length) {
+                final int count = Math.min(buffer.length, length - i);
+                column.getLongs(i, buffer, 0, count);
+                sum += kernels.sum(buffer, 0, count);
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * Returns the mean of a numeric column
+     * @param column    the column
+     * @return          the mean, or NaN if the column has no values
+     */
+    public static double mean(NumericColumn column) {
+        return moments(column).mean();
+    }
+
+    /**
+     * Returns the unbiased sample variance of a numeric column
+     * @param column    the column
+     * @return          the sample variance
+     */
+    public static double variance(NumericColumn column) {
+        return moments(column).variance();
+    }
+
+    /**
+     * Returns the sample standard deviation of a numeric column
+     * @param column    the column
+     * @return          the sample standard deviation
+     */
+    public static double std(NumericColumn column) {
+        return moments(column).std();
+    }
+
+    /**
+     * Returns the min of a numeric column
+     * @param column    the column
+     * @return          the min value, or NaN if the column has no values
+     */
+    public static double min(NumericColumn column) {
+        final DoubleKernels kernels = Kernels.INSTANCE;
+        final int length = column.length();
+        final Validity validity = column.validity();
+        if (length == validity.nullCount()) {
+            return Double.NaN;
+        } else if (column instanceof DoubleArrayColumn && !validity.hasNulls()) {
+            return kernels.min(((DoubleArrayColumn)column).values(), 0, length);
+        } else if (column instanceof EncodedColumn && !validity.hasNulls()) {
+            return ((EncodedColumn)column).lowerBound(0, length);
+        } else if (column instanceof DoubleArrayColumn && isSparse(validity)) {
+            final double[] values = ((DoubleArrayColumn)column).values();
+            double min = kernels.min(values, 0, 0);
+            for (int from = validity.nextValid(0), to; from < length; from = validity.nextValid(to)) {
+                to = validity.nextNull(from);
+                min = Math.min(min, kernels.min(values, from, to - from));
+            }
+            return min;
+        } else {
+            double min = Double.POSITIVE_INFINITY;
+            final double[][] scratch = Kernels.scratch();
+            for (int i = 0; i < length; i += Kernels.BLOCK_SIZE) {
+                final int count = stage(column, validity, i, Math.min(Kernels.BLOCK_SIZE, length - i), scratch);
+                min = Math.min(min, kernels.min(scratch[1], 0, count));
+            }
+            return min;
+        }
+    }
+
+    /**
+     * Returns the max of a numeric column
+     * @param column    the column
+     * @return          the max value, or NaN if the column has no values
+     */
+    public static double max(NumericColumn column) {
+        final DoubleKernels kernels = Kernels.INSTANCE;
+        final int length = column.length();
+        final Validity validity = column.validity();
+        if (length == validity.nullCount()) {
+            return Double.NaN;
+        } else if (column instanceof DoubleArrayColumn && !validity.hasNulls()) {
+            return kernels.max(((DoubleArrayColumn)column).values(), 0, length);
+        } else if (column instanceof EncodedColumn && !validity.hasNulls()) {
+            return ((EncodedColumn)column).upperBound(0, length);
+        } else if (column instanceof DoubleArrayColumn && isSparse(validity)) {
+            final double[] values = ((DoubleArrayColumn)column).values();
+            double max = kernels.max(values, 0, 0);
+            for (int from = validity.nextValid(0), to; from < length; from = validity.nextValid(to)) {
+                to = validity.nextNull(from);
+                max = Math.max(max, kernels.max(values, from, to - from));
+            }
+            return max;
+        } else {
+            double max = Double.NEGATIVE_INFINITY;
+            final double[][] scratch = Kernels.scratch();
+            for (int i = 0; i < length; i += Kernels.BLOCK_SIZE) {
+                final int count = stage(column, validity, i, Math.min(Kernels.BLOCK_SIZE, length - i), scratch);
+                max = Math.max(max, kernels.max(scratch[1], 0, count));
+            }
+            return max;
+        }
+    }
+
+    /**
+     * Returns the dot product of two numeric columns of equal length, ignoring rows that are null in either
+     * @param left  the left column
+     * @param right the right column
+     * @return      the dot product
+     */
+    public static double dot(NumericColumn left, NumericColumn right) {
+        if (left.length() != right.length()) {
+            throw new DataFrameException("Column lengths do not match: " + left.length() + " != " + right.length());
+        }
+        final DoubleKernels kernels = Kernels.INSTANCE;
+        final int length = left.length();
+        final Validity leftValidity = left.validity();
+        final Validity rightValidity = right.validity();
+        final boolean nulls = leftValidity.hasNulls() || rightValidity.hasNulls();
+        if (left instanceof DoubleArrayColumn && right instanceof DoubleArrayColumn && !nulls) {
+            return kernels.dot(((DoubleArrayColumn)left).values(), 0, ((DoubleArrayColumn)right).values(), 0, length);
+        } else {
+            double sum = 0d;
+            final double[][] scratch = Kernels.scratch();
+            for (int i = 0; i < length; i += Kernels.BLOCK_SIZE) {
+                final int count = Math.min(Kernels.BLOCK_SIZE, length - i);
+                left.getDoubles(i, scratch[0], 0, count);
+                right.getDoubles(i, scratch[1], 0, count);
+                if (nulls) {
+                    leftValidity.fill(i, scratch[0], 0, count, 0d);
+                    leftValidity.fill(i, scratch[1], 0, count, 0d);
+                    rightValidity.fill(i, scratch[0], 0, count, 0d);
+                    rightValidity.fill(i, scratch[1], 0, count, 0d);
+                }
+                sum += kernels.dot(scratch[0], 0, scratch[1], 0, count);
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * Returns the moments of a numeric column, computed in parallel over large ranges of rows
+     * @param column    the column
+     * @return          the moments of the column
+     */
+    public static Moments moments(NumericColumn column) {
+        final Morsels morsels = Morsels.create().setMorselRows(PARALLEL_CHUNK);
+        final List<Moments> partials = morsels.map(column.length(), (from, to) -> moments(column, from, to));
+        final Moments result = partials.get(0);
+        for (int i = 1; i < partials.size(); ++i) {
+            result.merge(partials.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the moments of a range of rows in a numeric column, computed on the calling thread.
+     * Each block of values is reduced in cache with one pass for sum, min and max and another
+     * for squared deviations, so the column itself is read from memory only once. Null rows are ignored.
+     * @param column    the column
+     * @param from      the first row, inclusive
+     * @param to        the last row, exclusive
+     * @return          the moments of the range
+     */
+    public static Moments moments(NumericColumn column, int from, int to) {
+        final DoubleKernels kernels = Kernels.INSTANCE;
+        final Moments moments = new Moments();
+        final Validity validity = column.validity();
+        final double[] array = column instanceof DoubleArrayColumn && !validity.hasNulls() ? ((DoubleArrayColumn)column).values() : null;
+        final double[][] scratch = array != null ? null : Kernels.scratch();
+        final double[] buffer = array != null ? array : scratch[1];
+        for (int i = from; i < to; i += Kernels.BLOCK_SIZE) {
+            final int offset = array != null ? i : 0;
+            final int count = array != null ? Math.min(Kernels.BLOCK_SIZE, to - i) : stage(column, validity, i, Math.min(Kernels.BLOCK_SIZE, to - i), scratch);
+            if (count > 0) {
+                final double sum = kernels.sum(buffer, offset, count);
+                final double m2 = kernels.sumSquaredDeviations(buffer, offset, count, sum / count);
+                final double min = kernels.min(buffer, offset, count);
+                final double max = kernels.max(buffer, offset, count);
+                moments.merge(count, sum, m2, min, max);
+            }
+        }
+        return moments;
+    }
+
+    /**
+     * Returns the moments of the selected rows of a numeric column, computed in parallel over large ranges of rows.
+     * Blocks without selected rows are skipped, and the selected values of other blocks are packed into a
+     * scratch buffer, so the rows are reduced where they are without gathering a filtered frame. Null rows are ignored.
+     * @param column    the column, which must belong to the frame of the selection
+     * @param selection the selection of rows to reduce
+     * @return          the moments of the selected rows
+     */
+    public static Moments moments(NumericColumn column, Selection selection) {
+        if (column.length() != selection.frame().rowCount()) {
+            throw new IllegalArgumentException("Column length " + column.length() + " does not match the " + selection.frame().rowCount() + " rows of the selection");
+        }
+        final long[] mask = selection.words();
+        final long[] valid = column.validity().words();
+        if (valid != null) {
+            Bitsets.and(mask, valid);
+        }
+        final Morsels morsels = Morsels.create().setMorselRows(PARALLEL_CHUNK);
+        final List<Moments> partials = morsels.map(column.length(), (from, to) -> moments(column, mask, from, to));
+        final Moments result = partials.get(0);
+        for (int i = 1; i < partials.size(); ++i) {
+            result.merge(partials.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the moments of the rows of a column in a range whose bits are set in a mask, computed on the calling thread
+     * @param column    the column
+     * @param mask      the bitset of rows to reduce
+     * @param from      the first row, inclusive, which must be a multiple of 64
+     * @param to        the last row, exclusive
+     * @return          the moments of the masked rows in the range
+     */
+    private static Moments moments(NumericColumn column, long[] mask, int from, int to) {
+        final DoubleKernels kernels = Kernels.INSTANCE;
+        final Moments moments = new Moments();
+        final double[] array = column instanceof DoubleArrayColumn ? ((DoubleArrayColumn)column).values() : null;
+        final double[][] scratch = Kernels.scratch();
+        for (int i = from; i < to; i += Kernels.BLOCK_SIZE) {
+            final int length = Math.min(Kernels.BLOCK_SIZE, to - i);
+            if (Bitsets.cardinality(mask, i >>> 6, (i + length + 63) >>> 6) > 0) {
+                if (array == null) {
+                    column.getDoubles(i, scratch[0], 0, length);
+                }
+                final int count = array != null
+                    ? Bitsets.compact(mask, i, array, i, length, scratch[1])
+                    : Bitsets.compact(mask, i, scratch[0], 0, length, scratch[1]);
+                final double sum = kernels.sum(scratch[1], 0, count);
+                final double m2 = kernels.sumSquaredDeviations(scratch[1], 0, count, sum / count);
+                final double min = kernels.min(scratch[1], 0, count);
+                final double max = kernels.max(scratch[1], 0, count);
+                moments.merge(count, sum, m2, min, max);
+            }
+        }
+        return moments;
+    }
+
+    /**
+     * Returns the number of non-null values in a column
+     * @param column    the column
+     * @return          the count of values
+     */
+    public static int count(Column column) {
+        return column.length() - column.validity().nullCount();
+    }
+
+    /**
+     * Returns true if the sum of an encoded column could overflow a long, judging by the bounds of its values
+     */
+    private static boolean overflows(EncodedColumn column) {
+        final int length = column.length();
+        final long lower = column.lowerBound(0, length);
+        final long upper = column.upperBound(0, length);
+        return lower == Long.MIN_VALUE || length > 0 && Math.max(-lower, upper) > Long.MAX_VALUE / length;
+    }
+
+    /**
+     * Returns true if nulls are rare enough that the runs of valid rows between them are long
+     */
+    private static boolean isSparse(Validity validity) {
+        return (long)validity.nullCount() * MIN_RUN_LENGTH < validity.length();
+    }
+
+    /**
+     * Stages a block of a column into the second scratch buffer with null rows removed, using the first as a staging area
+     * @param column    the column
+     * @param validity  the validity of the column
+     * @param from      the first row of the block
+     * @param count     the number of rows in the block
+     * @param scratch   the per-thread scratch buffers
+     * @return          the number of values staged
+     */
+    private static int stage(NumericColumn column, Validity validity, int from, int count, double[][] scratch) {
+        if (!validity.hasNulls()) {
+            column.getDoubles(from, scratch[1], 0, count);
+            return count;
+        } else if (column instanceof DoubleArrayColumn) {
+            return validity.compact(from, ((DoubleArrayColumn)column).values(), from, count, scratch[1]);
+        } else {
+            column.getDoubles(from, scratch[0], 0, count);
+            return validity.compact(from, scratch[0], 0, count, scratch[1]);
+        }
+    }
+
+    /**
+     * Returns the moments of every numeric column in a frame, keyed by column name in frame order
+     * @param frame the frame to describe
+     * @return      the moments of each numeric column
+     */
+    public static Map<String,Moments> describe(DataFrame frame) {
+        final Map<String,Moments> result = new LinkedHashMap<>();
+        for (Column column : frame.columns()) {
+            if (column instanceof NumericColumn) {
+                result.put(column.name(), moments((NumericColumn)column));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,221 @@
+package com.zavtech.morpheus.stats;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * An implementation of DoubleKernels using SIMD instructions through the jdk.incubator.vector API.
+ *
+ * This class is only loaded when the incubator module is present in the boot layer, and
+ * each method processes full vectors of the preferred species before finishing the tail
+ * of the range with scalar code.
+ */
+final class VectorKernels implements DoubleKernels {
+
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public double sum(double[] values, int offset, int length) {
+        final int bound = offset + DOUBLES.loopBound(length);
+        final int end = offset + length;
+        DoubleVector acc = DoubleVector.zero(DOUBLES);
+        int i = offset;
+        for (; i < bound; i += DOUBLES.length()) {
+            acc = acc.add(DoubleVector.fromArray(DOUBLES, values, i));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < end; ++i) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public long sum(long[] values, int offset, int length) {
+        final int bound = offset + LONGS.loopBound(length);
+        final int end = offset + length;
+        LongVector acc = LongVector.zero(LONGS);
+        int i = offset;
+        for (; i < bound; i += LONGS.length()) {
+            acc = acc.add(LongVector.fromArray(LONGS, values, i));
+        }
+        long sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < end; ++i) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public double min(double[] values, int offset, int length) {
+        final int bound = offset + DOUBLES.loopBound(length);
+        final int end = offset + length;
+        DoubleVector acc = DoubleVector.broadcast(DOUBLES, Double.POSITIVE_INFINITY);
+        int i = offset;
+        for (; i < bound; i += DOUBLES.length()) {
+            acc = acc.min(DoubleVector.fromArray(DOUBLES, values, i));
+        }
+        double min = acc.reduceLanes(VectorOperators.MIN);
+        for (; i < end; ++i) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    @Override
+    public double max(double[] values, int offset, int length) {
+        final int bound = offset + DOUBLES.loopBound(length);
+        final int end = offset + length;
+        DoubleVector acc = DoubleVector.broadcast(DOUBLES, Double.NEGATIVE_INFINITY);
+        int i = offset;
+        for (; i < bound; i += DOUBLES.length()) {
+            acc = acc.max(DoubleVector.fromArray(DOUBLES, values, i));
+        }
+        double max = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < end; ++i) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    @Override
+    public double sumSquaredDeviations(double[] values, int offset, int length, double mean) {
+        final int bound = offset + DOUBLES.loopBound(length);
+        final int end = offset + length;
+        final DoubleVector center = DoubleVector.broadcast(DOUBLES, mean);
+        DoubleVector acc = DoubleVector.zero(DOUBLES);
+        int i = offset;
+        for (; i < bound; i += DOUBLES.length()) {
+            final DoubleVector delta = DoubleVector.fromArray(DOUBLES, values, i).sub(center);
+            acc = acc.add(delta.mul(delta));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < end; ++i) {
+            final double delta = values[i] - mean;
+            sum += delta * delta;
+        }
+        return sum;
+    }
+
+    @Override
+    public double dot(double[] left, int leftOffset, double[] right, int rightOffset, int length) {
+        final int bound = DOUBLES.loopBound(length);
+        DoubleVector acc = DoubleVector.zero(DOUBLES);
+        int i = 0;
+        for (; i < bound; i += DOUBLES.length()) {
+            final DoubleVector a = DoubleVector.fromArray(DOUBLES, left, leftOffset + i);
+            final DoubleVector b = DoubleVector.fromArray(DOUBLES, right, rightOffset + i);
+            acc = acc.add(a.mul(b));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; ++i) {
+            sum += left[leftOffset + i] * right[rightOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public void crossProducts(double[][] columns, int size, int length, double[] out) {
+        final int bound = DOUBLES.loopBound(length);
+        int i = 0;
+        for (; i + 1 < size; i += 2) {
+            final double[] a0 = columns[i];
+            final double[] a1 = columns[i + 1];
+            int j = i;
+            for (; j + 3 < size; j += 4) {
+                final double[] b0 = columns[j];
+                final double[] b1 = columns[j + 1];
+                final double[] b2 = columns[j + 2];
+                final double[] b3 = columns[j + 3];
+                DoubleVector s00 = DoubleVector.zero(DOUBLES), s01 = s00, s02 = s00, s03 = s00;
+                DoubleVector s10 = s00, s11 = s00, s12 = s00, s13 = s00;
+                int r = 0;
+                for (; r < bound; r += DOUBLES.length()) {
+                    final DoubleVector x0 = DoubleVector.fromArray(DOUBLES, a0, r);
+                    final DoubleVector x1 = DoubleVector.fromArray(DOUBLES, a1, r);
+                    final DoubleVector y0 = DoubleVector.fromArray(DOUBLES, b0, r);
+                    final DoubleVector y1 = DoubleVector.fromArray(DOUBLES, b1, r);
+                    final DoubleVector y2 = DoubleVector.fromArray(DOUBLES, b2, r);
+                    final DoubleVector y3 = DoubleVector.fromArray(DOUBLES, b3, r);
+                    s00 = s00.add(x0.mul(y0));
+                    s01 = s01.add(x0.mul(y1));
+                    s02 = s02.add(x0.mul(y2));
+                    s03 = s03.add(x0.mul(y3));
+                    s10 = s10.add(x1.mul(y0));
+                    s11 = s11.add(x1.mul(y1));
+                    s12 = s12.add(x1.mul(y2));
+                    s13 = s13.add(x1.mul(y3));
+                }
+                final int row0 = i * size + j;
+                final int row1 = row0 + size;
+                out[row0] += s00.reduceLanes(VectorOperators.ADD);
+                out[row0 + 1] += s01.reduceLanes(VectorOperators.ADD);
+                out[row0 + 2] += s02.reduceLanes(VectorOperators.ADD);
+                out[row0 + 3] += s03.reduceLanes(VectorOperators.ADD);
+                out[row1] += s10.reduceLanes(VectorOperators.ADD);
+                out[row1 + 1] += s11.reduceLanes(VectorOperators.ADD);
+                out[row1 + 2] += s12.reduceLanes(VectorOperators.ADD);
+                out[row1 + 3] += s13.reduceLanes(VectorOperators.ADD);
+                for (; r < length; ++r) {
+                    for (int b = 0; b < 4; ++b) {
+                        out[row0 + b] += a0[r] * columns[j + b][r];
+                        out[row1 + b] += a1[r] * columns[j + b][r];
+                    }
+                }
+            }
+            for (; j < size; ++j) {
+                out[i * size + j] += dot(a0, 0, columns[j], 0, length);
+                out[(i + 1) * size + j] += dot(a1, 0, columns[j], 0, length);
+            }
+        }
+        for (; i < size; ++i) {
+            for (int j = i; j < size; ++j) {
+                out[i * size + j] += dot(columns[i], 0, columns[j], 0, length);
+            }
+        }
+    }
+
+    @Override
+    public void apply(BinaryOp op, double[] left, int leftOffset, double[] right, int rightOffset, double[] out, int outOffset, int length) {
+        final VectorOperators.Binary operator = operator(op);
+        final int bound = DOUBLES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += DOUBLES.length()) {
+            final DoubleVector a = DoubleVector.fromArray(DOUBLES, left, leftOffset + i);
+            final DoubleVector b = DoubleVector.fromArray(DOUBLES, right, rightOffset + i);
+            a.lanewise(operator, b).intoArray(out, outOffset + i);
+        }
+        for (; i < length; ++i) {
+            out[outOffset + i] = op.apply(left[leftOffset + i], right[rightOffset + i]);
+        }
+    }
+
+    @Override
+    public void apply(BinaryOp op, double[] left, int leftOffset, double right, double[] out, int outOffset, int length) {
+        final VectorOperators.Binary operator = operator(op);
+        final int bound = DOUBLES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += DOUBLES.length()) {
+            DoubleVector.fromArray(DOUBLES, left, leftOffset + i).lanewise(operator, right).intoArray(out, outOffset + i);
+        }
+        for (; i < length; ++i) {
+            out[outOffset + i] = op.apply(left[leftOffset + i], right);
+        }
+    }
+
+    /**
+     * Returns the vector operator for the binary operation specified
+     */
+    private static VectorOperators.Binary operator(BinaryOp op) {
+        switch (op) {
+            case ADD:       return VectorOperators.ADD;
+            case SUBTRACT:  return VectorOperators.SUB;
+            case MULTIPLY:  return VectorOperators.MUL;
+            case DIVIDE:    return VectorOperators.DIV;
+            default:        throw new IllegalArgumentException("Unsupported operation: " + op);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.zavtech.morpheus.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.groupby.Aggregate;
+import com.zavtech.morpheus.groupby.IncrementalGroupBy;
+import com.zavtech.morpheus.window.IncrementalRolling;
+
+/**
+ * A frame that grows by appending batches of rows, for data that arrives continuously.
+ *
+ * Each column holds its values in fixed size chunks that are allocated as rows arrive and never
+ * copied or moved, so appending costs in proportion to the batch however long the history. Readers
+ * take snapshots, which are ordinary frames over the rows appended so far that share the chunks and
+ * are unaffected by later appends, so a writer thread may keep appending while other threads read.
+ *
+ * Aggregates and rolling windows can be maintained incrementally, in which case each is brought up
+ * to date with the rows already appended and then updated with every batch as it is appended, at a
+ * cost in proportion to the batch. Appends, snapshots and the results of incremental aggregates are
+ * serialized on the frame, and the updates run in the appending thread.
+ */
+public final class AppendableFrame {
+
+    /** The default number of rows per chunk */
+    public static final int DEFAULT_CHUNK_ROWS = 1 << 16;
+
+    private final DataFrame schema;
+    private final ColumnBuffer[] buffers;
+    private final int chunkRows;
+    private final List<Consumer<DataFrame>> listeners = new ArrayList<>();
+    private volatile int rowCount;
+
+    /**
+     * Constructor
+     * @param schema    a frame with the column names and types of this frame
+     * @param chunkRows the number of rows per chunk, a power of two
+     */
+    private AppendableFrame(DataFrame schema, int chunkRows) {
+        final int shift = Integer.numberOfTrailingZeros(chunkRows);
+        this.schema = schema.head(0);
+        this.chunkRows = chunkRows;
+        this.buffers = new ColumnBuffer[schema.columnCount()];
+        for (int i = 0; i < buffers.length; ++i) {
+            this.buffers[i] = ColumnBuffer.create(schema.column(i), shift);
+        }
+    }
+
+    /**
+     * Returns an empty appendable frame with the default chunk size
+     * @param schema    a frame with the column names and types of the batches to come, of any length
+     * @return          the appendable frame
+     */
+    public static AppendableFrame create(DataFrame schema) {
+        return create(schema, DEFAULT_CHUNK_ROWS);
+    }
+
+    /**
+     * Returns an empty appendable frame
+     * @param schema    a frame with the column names and types of the batches to come, of any length
+     * @param chunkRows the number of rows per chunk, a power of two of at least 64
+     * @return          the appendable frame
+     */
+    public static AppendableFrame create(DataFrame schema, int chunkRows) {
+        Objects.requireNonNull(schema, "The schema cannot be null");
+        if (chunkRows < 64 || Integer.bitCount(chunkRows) != 1) {
+            throw new IllegalArgumentException("The chunk rows must be a power of two >= 64, not " + chunkRows);
+        }
+        return new AppendableFrame(schema, chunkRows);
+    }
+
+    /**
+     * Returns the number of rows appended so far, which may be read without locking
+     * @return  the row count
+     */
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the number of rows per chunk
+     * @return  the chunk rows
+     */
+    public int chunkRows() {
+        return chunkRows;
+    }
+
+    /**
+     * Returns the column names of this frame
+     * @return  the column names in order
+     */
+    public List<String> columnNames() {
+        return schema.columnNames();
+    }
+
+    /**
+     * Appends a batch of rows, then updates the incremental aggregates and rolling windows of this frame
+     * @param batch the batch, which must have the columns of this frame with the same types, in any order
+     * @return      this frame
+     * @throws DataFrameException   if the columns of the batch do not match those of this frame
+     */
+    public synchronized AppendableFrame append(DataFrame batch) {
+        final Column[] columns = new Column[buffers.length];
+        if (batch.columnCount() != buffers.length) {
+            throw new DataFrameException("Batch has columns " + batch.columnNames() + ", expected " + schema.columnNames());
+        }
+        for (int i = 0; i < buffers.length; ++i) {
+            final Column expected = schema.column(i);
+            if (!batch.hasColumn(expected.name())) {
+                throw new DataFrameException("Batch has columns " + batch.columnNames() + ", expected " + schema.columnNames());
+            }
+            columns[i] = batch.column(expected.name());
+            if (columns[i].type() != expected.type()) {
+                throw new DataFrameException("Column " + expected.name() + " has type " + columns[i].type() + ", expected " + expected.type());
+            }
+        }
+        if ((long)rowCount + batch.rowCount() > Integer.MAX_VALUE) {
+            throw new DataFrameException("An appendable frame cannot exceed " + Integer.MAX_VALUE + " rows");
+        }
+        for (int i = 0; i < buffers.length; ++i) {
+            this.buffers[i].append(columns[i], rowCount);
+        }
+        this.rowCount += batch.rowCount();
+        for (Consumer<DataFrame> listener : listeners) {
+            listener.accept(batch);
+        }
+        return this;
+    }
+
+    /**
+     * Returns a read only frame over the rows appended so far, which later appends do not affect
+     * @return  the snapshot frame, which shares the chunks of this frame
+     */
+    public synchronized DataFrame snapshot() {
+        final List<Column> columns = new ArrayList<>(buffers.length);
+        for (ColumnBuffer buffer : buffers) {
+            columns.add(buffer.view(rowCount));
+        }
+        return DataFrame.of(columns);
+    }
+
+    /**
+     * Returns a group-by aggregation of this frame that is updated with every batch appended from now on
+     * @param keys          the names of the key columns
+     * @param aggregates    the aggregates to maintain
+     * @return              the aggregation, which already covers the rows appended so far
+     */
+    public synchronized StreamAggregate aggregate(List<String> keys, Aggregate... aggregates) {
+        final IncrementalGroupBy groupBy = IncrementalGroupBy.of(schema, keys, aggregates);
+        if (rowCount > 0) {
+            groupBy.update(snapshot());
+        }
+        this.listeners.add(groupBy::update);
+        return new StreamAggregate(this, groupBy);
+    }
+
+    /**
+     * Returns a frame of the results of a row based rolling window over a column, appended to with every batch
+     * @param column    the name of the numeric input column
+     * @param rolling   the rolling window, which must not have processed any rows
+     * @return          the frame of results, which already holds those of the rows appended so far
+     */
+    public synchronized AppendableFrame rolling(String column, IncrementalRolling rolling) {
+        if (rolling.isTimeBased()) {
+            throw new DataFrameException("A time based rolling window requires a timestamp column");
+        }
+        schema.numeric(column);
+        return rolling(rolling, batch -> rolling.update(batch.numeric(column)));
+    }
+
+    /**
+     * Returns a frame of the results of a time based rolling window over a column, appended to with every batch
+     * @param column        the name of the numeric input column
+     * @param timeColumn    the name of the LONG timestamp column, which must not decrease
+     * @param rolling       the rolling window, which must not have processed any rows
+     * @return              the frame of results, which already holds those of the rows appended so far
+     */
+    public synchronized AppendableFrame rolling(String column, String timeColumn, IncrementalRolling rolling) {
+        schema.numeric(column);
+        schema.longs(timeColumn);
+        return rolling(rolling, batch -> rolling.update(batch.numeric(column), batch.longs(timeColumn)));
+    }
+
+    /**
+     * Returns a frame of the results of a rolling window, seeded with the rows so far and appended to with every batch
+     * @param rolling   the rolling window
+     * @param update    the function that updates the window with a batch and returns the results for its rows
+     * @return          the frame of results
+     */
+    private AppendableFrame rolling(IncrementalRolling rolling, Function<DataFrame, DataFrame> update) {
+        if (rolling.rowCount() > 0) {
+            throw new IllegalArgumentException("The rolling window has already processed " + rolling.rowCount() + " rows");
+        }
+        final DataFrame initial = update.apply(snapshot());
+        final AppendableFrame results = new AppendableFrame(initial, chunkRows).append(initial);
+        this.listeners.add(batch -> results.append(update.apply(batch)));
+        return results;
+    }
+
+    @Override
+    public String toString() {
+        return "AppendableFrame(columns=" + schema.columnNames() + ", rows=" + rowCount + ")";
+    }
+}
@@ -0,0 +1,361 @@
+package com.zavtech.morpheus.stream;
+
+import java.util.Arrays;
+
+import com.zavtech.morpheus.column.BooleanColumn;
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.Dictionary;
+import com.zavtech.morpheus.column.DictionaryColumn;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.IntColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.StringColumn;
+import com.zavtech.morpheus.frame.DataFrameException;
+
+/**
+ * The values of one column of an AppendableFrame, held in fixed size chunks that are allocated as rows arrive.
+ *
+ * Rows are only ever written beyond the current length, and chunks never move once allocated,
+ * so a view of the first rows remains valid while more are appended. Null rows are recorded in
+ * a validity bitmap per chunk, allocated with the first null of the chunk. Views share the bitmaps
+ * of full chunks, which no longer change, and copy the bitmap of the chunk still being filled.
+ *
+ * Buffers are written by a single thread, and views must be taken under the same lock as writes.
+ */
+abstract class ColumnBuffer {
+
+    final String name;
+    final int shift;
+    final int mask;
+    long[][] nulls = new long[0][];
+    int chunkCount;
+
+    /**
+     * Constructor
+     * @param name  the column name
+     * @param shift the log2 of the number of rows per chunk, at least 6
+     */
+    ColumnBuffer(String name, int shift) {
+        this.name = name;
+        this.shift = shift;
+        this.mask = (1 << shift) - 1;
+    }
+
+    /**
+     * Returns an empty buffer for a column of the type of the column specified
+     * @param column    the column whose name and type to adopt
+     * @param shift     the log2 of the number of rows per chunk
+     * @return          the new buffer
+     */
+    static ColumnBuffer create(Column column, int shift) {
+        switch (column.type()) {
+            case DOUBLE:    return new Doubles(column.name(), shift);
+            case LONG:      return new Longs(column.name(), shift);
+            case INT:       return new Ints(column.name(), shift);
+            case BOOLEAN:   return new Booleans(column.name(), shift);
+            case STRING:    return new Strings(column.name(), shift);
+            default:        throw new DataFrameException("Unsupported column type for an appendable frame: " + column.type());
+        }
+    }
+
+    /**
+     * Appends all rows of a column after the rows already held
+     * @param source    the column to append, of the type of this buffer
+     * @param row       the number of rows already held
+     */
+    void append(Column source, int row) {
+        final int length = source.length();
+        for (int i = 0; i < length; ) {
+            final int target = row + i;
+            final int chunk = target >>> shift;
+            final int offset = target & mask;
+            final int span = Math.min(length - i, mask + 1 - offset);
+            if (chunk == chunkCount) {
+                if (chunkCount == nulls.length) {
+                    grow(Math.max(8, chunkCount * 2));
+                }
+                allocate(chunk);
+                this.chunkCount++;
+            }
+            write(source, i, chunk, offset, span);
+            i += span;
+        }
+        final long[] valid = source instanceof StringColumn ? null : source.validity().words();
+        if (valid != null) {
+            for (int w = 0; w < (length + 63) >>> 6; ++w) {
+                long bits = ~valid[w];
+                while (bits != 0L) {
+                    final int index = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    if (index < length) {
+                        setNull(row + index);
+                    }
+                    bits &= bits - 1L;
+                }
+            }
+        }
+    }
+
+    /**
+     * Records a row as null in the bitmap of its chunk
+     */
+    private void setNull(int row) {
+        final int chunk = row >>> shift;
+        if (nulls[chunk] == null) {
+            this.nulls[chunk] = new long[(mask + 1) >>> 6];
+            Arrays.fill(nulls[chunk], -1L);
+        }
+        this.nulls[chunk][(row & mask) >>> 6] &= ~(1L << row);
+    }
+
+    /**
+     * Returns the null bitmaps of the chunks that hold the first rows, copying that of a partly filled chunk
+     * @param length    the number of rows
+     * @return          the bitmap of each chunk, null where a chunk has no nulls
+     */
+    long[][] nulls(int length) {
+        final long[][] result = Arrays.copyOf(nulls, chunks(length));
+        if ((length & mask) != 0 && result[length >>> shift] != null) {
+            result[length >>> shift] = result[length >>> shift].clone();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of chunks that hold the number of rows specified
+     * @param length    the number of rows
+     * @return          the chunk count
+     */
+    int chunks(int length) {
+        return (length + mask) >>> shift;
+    }
+
+    /**
+     * Grows the arrays of chunks to the capacity specified
+     * @param capacity  the new number of chunks that can be held
+     */
+    void grow(int capacity) {
+        this.nulls = Arrays.copyOf(nulls, capacity);
+    }
+
+    /**
+     * Allocates the values of a new chunk
+     * @param chunk the chunk index
+     */
+    abstract void allocate(int chunk);
+
+    /**
+     * Copies a range of values from a column into a chunk
+     * @param source    the source column
+     * @param from      the first row of the source to copy
+     * @param chunk     the chunk index
+     * @param offset    the offset in the chunk of the first value
+     * @param count     the number of values to copy
+     */
+    abstract void write(Column source, int from, int chunk, int offset, int count);
+
+    /**
+     * Returns a read only view of the first rows of this buffer, unaffected by rows appended later
+     * @param length    the number of rows to view
+     * @return          the view
+     */
+    abstract Column view(int length);
+
+
+    /**
+     * The buffer of a DOUBLE column
+     */
+    private static final class Doubles extends ColumnBuffer {
+
+        private double[][] chunks = new double[0][];
+
+        Doubles(String name, int shift) {
+            super(name, shift);
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            this.chunks = Arrays.copyOf(chunks, capacity);
+        }
+
+        @Override
+        void allocate(int chunk) {
+            this.chunks[chunk] = new double[mask + 1];
+        }
+
+        @Override
+        void write(Column source, int from, int chunk, int offset, int count) {
+            ((DoubleColumn)source).getDoubles(from, chunks[chunk], offset, count);
+        }
+
+        @Override
+        Column view(int length) {
+            return new SnapshotColumn.Doubles(name, length, shift, nulls(length), Arrays.copyOf(chunks, chunks(length)));
+        }
+    }
+
+
+    /**
+     * The buffer of a LONG column
+     */
+    private static final class Longs extends ColumnBuffer {
+
+        private long[][] chunks = new long[0][];
+
+        Longs(String name, int shift) {
+            super(name, shift);
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            this.chunks = Arrays.copyOf(chunks, capacity);
+        }
+
+        @Override
+        void allocate(int chunk) {
+            this.chunks[chunk] = new long[mask + 1];
+        }
+
+        @Override
+        void write(Column source, int from, int chunk, int offset, int count) {
+            ((LongColumn)source).getLongs(from, chunks[chunk], offset, count);
+        }
+
+        @Override
+        Column view(int length) {
+            return new SnapshotColumn.Longs(name, length, shift, nulls(length), Arrays.copyOf(chunks, chunks(length)));
+        }
+    }
+
+
+    /**
+     * The buffer of an INT column
+     */
+    private static final class Ints extends ColumnBuffer {
+
+        private int[][] chunks = new int[0][];
+
+        Ints(String name, int shift) {
+            super(name, shift);
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            this.chunks = Arrays.copyOf(chunks, capacity);
+        }
+
+        @Override
+        void allocate(int chunk) {
+            this.chunks[chunk] = new int[mask + 1];
+        }
+
+        @Override
+        void write(Column source, int from, int chunk, int offset, int count) {
+            ((IntColumn)source).getInts(from, chunks[chunk], offset, count);
+        }
+
+        @Override
+        Column view(int length) {
+            return new SnapshotColumn.Ints(name, length, shift, nulls(length), Arrays.copyOf(chunks, chunks(length)));
+        }
+    }
+
+
+    /**
+     * The buffer of a BOOLEAN column, which packs values into bitset words
+     */
+    private static final class Booleans extends ColumnBuffer {
+
+        private long[][] chunks = new long[0][];
+
+        Booleans(String name, int shift) {
+            super(name, shift);
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            this.chunks = Arrays.copyOf(chunks, capacity);
+        }
+
+        @Override
+        void allocate(int chunk) {
+            this.chunks[chunk] = new long[(mask + 1) >>> 6];
+        }
+
+        @Override
+        void write(Column source, int from, int chunk, int offset, int count) {
+            final BooleanColumn booleans = (BooleanColumn)source;
+            final long[] words = chunks[chunk];
+            for (int i = 0; i < count; ++i) {
+                if (booleans.getBoolean(from + i)) {
+                    words[(offset + i) >>> 6] |= 1L << (offset + i);
+                }
+            }
+        }
+
+        @Override
+        Column view(int length) {
+            return new SnapshotColumn.Booleans(name, length, shift, nulls(length), Arrays.copyOf(chunks, chunks(length)));
+        }
+    }
+
+
+    /**
+     * The buffer of a STRING column, which holds codes against a dictionary owned by the buffer.
+     * Nulls are code 0, so no bitmaps are kept, and views share a copy of the dictionary that
+     * is only taken again once new values have been added.
+     */
+    private static final class Strings extends ColumnBuffer {
+
+        private final Dictionary dictionary = new Dictionary();
+        private int[][] chunks = new int[0][];
+        private Dictionary snapshot;
+        private int[] translation;
+
+        Strings(String name, int shift) {
+            super(name, shift);
+        }
+
+        @Override
+        void append(Column source, int row) {
+            this.translation = Columns.translation(((StringColumn)source).dictionary(), dictionary);
+            super.append(source, row);
+            this.translation = null;
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            this.chunks = Arrays.copyOf(chunks, capacity);
+        }
+
+        @Override
+        void allocate(int chunk) {
+            this.chunks[chunk] = new int[mask + 1];
+        }
+
+        @Override
+        void write(Column source, int from, int chunk, int offset, int count) {
+            final int[] codes = chunks[chunk];
+            ((StringColumn)source).getCodes(from, codes, offset, count);
+            if (translation != null) {
+                for (int i = offset; i < offset + count; ++i) {
+                    codes[i] = translation[codes[i]];
+                }
+            }
+        }
+
+        @Override
+        Column view(int length) {
+            if (snapshot == null || snapshot.size() != dictionary.size()) {
+                this.snapshot = dictionary.copy();
+            }
+            final IntColumn codes = new SnapshotColumn.Ints(name, length, shift, new long[chunks(length)][], Arrays.copyOf(chunks, chunks(length)));
+            return new DictionaryColumn(codes, snapshot);
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package com.zavtech.morpheus.stream;
+
+import java.util.Arrays;
+
+import com.zavtech.morpheus.column.BooleanBitColumn;
+import com.zavtech.morpheus.column.BooleanColumn;
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.DoubleArrayColumn;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.IntArrayColumn;
+import com.zavtech.morpheus.column.IntColumn;
+import com.zavtech.morpheus.column.LongArrayColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.column.Validity;
+
+/**
+ * A read only column over the first rows of the chunks of a ColumnBuffer, as captured by a snapshot.
+ *
+ * The chunks are shared with the buffer, which only writes beyond the length of the snapshot, so
+ * a snapshot is never affected by later appends. Nulls are read from the bitmaps of each chunk, and
+ * a Validity spanning all rows is only assembled if asked for. Operations that take rows produce
+ * new heap columns, which are writable as usual.
+ */
+abstract class SnapshotColumn implements Column {
+
+    final String name;
+    final int length;
+    final int shift;
+    final int mask;
+    final long[][] nulls;
+    private volatile Validity validity;
+
+    /**
+     * Constructor
+     * @param name      the column name
+     * @param length    the number of rows
+     * @param shift     the log2 of the number of rows per chunk
+     * @param nulls     the null bitmap of each chunk, null where a chunk has no nulls
+     */
+    SnapshotColumn(String name, int length, int shift, long[][] nulls) {
+        this.name = name;
+        this.length = length;
+        this.shift = shift;
+        this.mask = (1 << shift) - 1;
+        this.nulls = nulls;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public Storage storage() {
+        return Storage.HEAP;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public boolean isNull(int row) {
+        final long[] words = nulls[row >>> shift];
+        return words != null && (words[(row & mask) >>> 6] & (1L << row)) == 0L;
+    }
+
+    @Override
+    public Validity validity() {
+        Validity result = validity;
+        if (result == null) {
+            synchronized (this) {
+                result = validity;
+                if (result == null) {
+                    this.validity = result = assemble();
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void setNull(int row) {
+        throw readOnly();
+    }
+
+    /**
+     * Returns a validity spanning all rows from the bitmaps of the chunks
+     */
+    private Validity assemble() {
+        final int chunkWords = (mask + 1) >>> 6;
+        final long[] words = new long[(length + 63) >>> 6];
+        boolean hasNulls = false;
+        for (int chunk = 0; chunk < nulls.length; ++chunk) {
+            final int from = chunk * chunkWords;
+            final int count = Math.min(chunkWords, words.length - from);
+            if (nulls[chunk] == null) {
+                Arrays.fill(words, from, from + count, -1L);
+            } else {
+                System.arraycopy(nulls[chunk], 0, words, from, count);
+                hasNulls = true;
+            }
+        }
+        return new Validity(hasNulls ? words : null, length);
+    }
+
+    /**
+     * Returns the exception thrown by attempts to modify a snapshot
+     */
+    static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Snapshot columns are read only");
+    }
+
+    /**
+     * Returns the number of values to copy from the chunk holding a row, up to a limit
+     * @param row   the row index
+     * @param limit the max number of values
+     * @return      the number of values up to the end of the chunk or the limit
+     */
+    final int span(int row, int limit) {
+        return Math.min(limit, mask + 1 - (row & mask));
+    }
+
+
+    /**
+     * A snapshot of a DOUBLE column
+     */
+    static final class Doubles extends SnapshotColumn implements DoubleColumn {
+
+        private final double[][] chunks;
+
+        Doubles(String name, int length, int shift, long[][] nulls, double[][] chunks) {
+            super(name, length, shift, nulls);
+            this.chunks = chunks;
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return chunks[row >>> shift][row & mask];
+        }
+
+        @Override
+        public void getDoubles(int from, double[] dst, int offset, int length) {
+            for (int i = 0; i < length; ) {
+                final int row = from + i;
+                final int span = span(row, length - i);
+                System.arraycopy(chunks[row >>> shift], row & mask, dst, offset + i, span);
+                i += span;
+            }
+        }
+
+        @Override
+        public void setDouble(int row, double value) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setDoubles(int from, double[] src, int offset, int length) {
+            throw readOnly();
+        }
+
+        @Override
+        public DoubleColumn rename(String name) {
+            return new Doubles(name, length, shift, nulls, chunks);
+        }
+
+        @Override
+        public DoubleColumn take(int[] rows) {
+            final double[] result = new double[rows.length];
+            for (int i = 0; i < rows.length; ++i) {
+                result[i] = rows[i] < 0 ? Double.NaN : getDouble(rows[i]);
+            }
+            return new DoubleArrayColumn(name, result, validity().take(rows));
+        }
+
+        @Override
+        public String toString() {
+            return "DoubleColumn(" + name + ", length=" + length + ", snapshot)";
+        }
+    }
+
+
+    /**
+     * A snapshot of a LONG column
+     */
+    static final class Longs extends SnapshotColumn implements LongColumn {
+
+        private final long[][] chunks;
+
+        Longs(String name, int length, int shift, long[][] nulls, long[][] chunks) {
+            super(name, length, shift, nulls);
+            this.chunks = chunks;
+        }
+
+        @Override
+        public long getLong(int row) {
+            return chunks[row >>> shift][row & mask];
+        }
+
+        @Override
+        public void getLongs(int from, long[] dst, int offset, int length) {
+            for (int i = 0; i < length; ) {
+                final int row = from + i;
+                final int span = span(row, length - i);
+                System.arraycopy(chunks[row >>> shift], row & mask, dst, offset + i, span);
+                i += span;
+            }
+        }
+
+        @Override
+        public void getDoubles(int from, double[] dst, int offset, int length) {
+            for (int i = 0; i < length; ++i) {
+                dst[offset + i] = getDouble(from + i);
+            }
+        }
+
+        @Override
+        public void setLong(int row, long value) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setLongs(int from, long[] src, int offset, int length) {
+            throw readOnly();
+        }
+
+        @Override
+        public LongColumn rename(String name) {
+            return new Longs(name, length, shift, nulls, chunks);
+        }
+
+        @Override
+        public LongColumn take(int[] rows) {
+            final long[] result = new long[rows.length];
+            for (int i = 0; i < rows.length; ++i) {
+                result[i] = rows[i] < 0 ? 0L : getLong(rows[i]);
+            }
+            return new LongArrayColumn(name, result, validity().take(rows));
+        }
+
+        @Override
+        public String toString() {
+            return "LongColumn(" + name + ", length=" + length + ", snapshot)";
+        }
+    }
+
+
+    /**
+     * A snapshot of an INT column, also used for the codes of a STRING column
+     */
+    static final class Ints extends SnapshotColumn implements IntColumn {
+
+        private final int[][] chunks;
+
+        Ints(String name, int length, int shift, long[][] nulls, int[][] chunks) {
+            super(name, length, shift, nulls);
+            this.chunks = chunks;
+        }
+
+        @Override
+        public int getInt(int row) {
+            return chunks[row >>> shift][row & mask];
+        }
+
+        @Override
+        public void getInts(int from, int[] dst, int offset, int length) {
+            for (int i = 0; i < length; ) {
+                final int row = from + i;
+                final int span = span(row, length - i);
+                System.arraycopy(chunks[row >>> shift], row & mask, dst, offset + i, span);
+                i += span;
+            }
+        }
+
+        @Override
+        public void getDoubles(int from, double[] dst, int offset, int length) {
+            for (int i = 0; i < length; ++i) {
+                dst[offset + i] = getDouble(from + i);
+            }
+        }
+
+        @Override
+        public void setInt(int row, int value) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setInts(int from, int[] src, int offset, int length) {
+            throw readOnly();
+        }
+
+        @Override
+        public IntColumn rename(String name) {
+            return new Ints(name, length, shift, nulls, chunks);
+        }
+
+        @Override
+        public IntColumn take(int[] rows) {
+            final int[] result = new int[rows.length];
+            for (int i = 0; i < rows.length; ++i) {
+                result[i] = rows[i] < 0 ? 0 : getInt(rows[i]);
+            }
+            return new IntArrayColumn(name, result, validity().take(rows));
+        }
+
+        @Override
+        public String toString() {
+            return "IntColumn(" + name + ", length=" + length + ", snapshot)";
+        }
+    }
+
+
+    /**
+     * A snapshot of a BOOLEAN column, whose chunks are bitset words
+     */
+    static final class Booleans extends SnapshotColumn implements BooleanColumn {
+
+        private final long[][] chunks;
+
+        Booleans(String name, int length, int shift, long[][] nulls, long[][] chunks) {
+            super(name, length, shift, nulls);
+            this.chunks = chunks;
+        }
+
+        @Override
+        public boolean getBoolean(int row) {
+            return (chunks[row >>> shift][(row & mask) >>> 6] & (1L << row)) != 0L;
+        }
+
+        @Override
+        public void setBoolean(int row, boolean value) {
+            throw readOnly();
+        }
+
+        @Override
+        public int cardinality() {
+            int count = 0;
+            for (int chunk = 0; chunk < chunks.length; ++chunk) {
+                final int rows = Math.min(mask + 1, length - (chunk << shift));
+                final long[] words = chunks[chunk];
+                for (int w = 0; w < (rows + 63) >>> 6; ++w) {
+                    final long tail = (w + 1) << 6 > rows ? (1L << rows) - 1L : -1L;
+                    count += Long.bitCount(words[w] & tail);
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public BooleanColumn rename(String name) {
+            return new Booleans(name, length, shift, nulls, chunks);
+        }
+
+        @Override
+        public BooleanColumn take(int[] rows) {
+            final long[] words = new long[BooleanBitColumn.wordCount(rows.length)];
+            for (int i = 0; i < rows.length; ++i) {
+                if (rows[i] >= 0 && getBoolean(rows[i])) {
+                    words[i >>> 6] |= 1L << i;
+                }
+            }
+            return new BooleanBitColumn(name, words, rows.length, validity().take(rows));
+        }
+
+        @Override
+        public String toString() {
+            return "BooleanColumn(" + name + ", length=" + length + ", snapshot)";
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.zavtech.morpheus.stream;
+
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.groupby.IncrementalGroupBy;
+
+/**
+ * A group-by aggregation of an AppendableFrame, updated with each batch as it is appended.
+ *
+ * Results are taken under the lock of the frame, so a result always covers a whole number of batches,
+ * and is unaffected by batches appended after it was taken.
+ */
+public final class StreamAggregate {
+
+    private final AppendableFrame frame;
+    private final IncrementalGroupBy groupBy;
+
+    /**
+     * Constructor
+     * @param frame     the frame whose batches update the aggregation
+     * @param groupBy   the incremental aggregation, guarded by the lock of the frame
+     */
+    StreamAggregate(AppendableFrame frame, IncrementalGroupBy groupBy) {
+        this.frame = frame;
+        this.groupBy = groupBy;
+    }
+
+    /**
+     * Returns the number of rows aggregated so far
+     * @return  the row count
+     */
+    public long rowCount() {
+        synchronized (frame) {
+            return groupBy.rowCount();
+        }
+    }
+
+    /**
+     * Returns a frame with the key columns followed by one column per aggregate, over all rows appended so far
+     * @return  the aggregated frame
+     */
+    public DataFrame result() {
+        synchronized (frame) {
+            return groupBy.result();
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (frame) {
+            return "StreamAggregate(" + groupBy + ")";
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.zavtech.morpheus.window;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.NumericColumn;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+
+/**
+ * Computes functions over sliding windows for a stream of batches of rows, carrying the window across batches.
+ *
+ * The window state of Rolling is kept between batches together with the values still in the window,
+ * so each batch produces the results for its own rows at a cost in proportion to its size, however long
+ * the history, and the results are the same as Rolling over all rows at once. Windows span either a
+ * fixed number of rows or a duration of time, where timestamps must not decrease across batches.
+ *
+ * NaN values are ignored, and rows whose window holds fewer than the min periods of non-NaN values
+ * produce NaN for every function other than COUNT. An incremental rolling window is not safe for
+ * concurrent use.
+ */
+public final class IncrementalRolling {
+
+    private final int size;
+    private final long duration;
+    private final WindowFunction[] functions;
+    private final WindowState state;
+    private int minPeriods;
+    private double[] values;
+    private long[] times;
+    private int head;
+    private int count;
+    private int rowCount;
+    private long previous = Long.MIN_VALUE;
+
+    /**
+     * Constructor
+     * @param size      the window size in rows, or zero for a time based window
+     * @param duration  the window duration in units of the timestamps
+     * @param functions the window functions to compute
+     */
+    private IncrementalRolling(int size, long duration, WindowFunction[] functions) {
+        if (functions.length == 0) {
+            throw new IllegalArgumentException("At least one window function is required");
+        }
+        final EnumSet<WindowFunction> set = EnumSet.copyOf(Arrays.asList(functions));
+        final int capacity = size > 0 ? size + 1 : 1024;
+        final boolean moments = set.contains(WindowFunction.VARIANCE) || set.contains(WindowFunction.STD);
+        this.size = size;
+        this.duration = duration;
+        this.functions = functions.clone();
+        this.state = new WindowState(moments, set.contains(WindowFunction.MIN), set.contains(WindowFunction.MAX), capacity);
+        this.minPeriods = size > 0 ? size : 1;
+        this.values = new double[capacity];
+        this.times = size > 0 ? null : new long[capacity];
+    }
+
+    /**
+     * Returns an incremental rolling window over a fixed number of rows, requiring a full window by default
+     * @param size      the window size in rows
+     * @param functions the window functions to compute
+     * @return          the rolling window
+     */
+    public static IncrementalRolling rows(int size, WindowFunction... functions) {
+        if (size < 1) {
+            throw new IllegalArgumentException("The window size must be > 0");
+        }
+        return new IncrementalRolling(size, 0L, functions);
+    }
+
+    /**
+     * Returns an incremental rolling window over a duration of time, requiring one value by default
+     * @param duration  the window duration, in the units of the timestamps
+     * @param functions the window functions to compute
+     * @return          the rolling window
+     */
+    public static IncrementalRolling time(long duration, WindowFunction... functions) {
+        if (duration < 1) {
+            throw new IllegalArgumentException("The window duration must be > 0");
+        }
+        return new IncrementalRolling(0, duration, functions);
+    }
+
+    /**
+     * Sets the min number of non-NaN values a window must hold to produce a result
+     * @param minPeriods    the min number of values
+     * @return              this rolling window
+     */
+    public IncrementalRolling setMinPeriods(int minPeriods) {
+        if (minPeriods < 0) {
+            throw new IllegalArgumentException("The min periods must be >= 0");
+        }
+        this.minPeriods = minPeriods;
+        return this;
+    }
+
+    /**
+     * Returns true if this window spans a duration of time rather than a number of rows
+     * @return  true for a time based window
+     */
+    public boolean isTimeBased() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of rows processed so far
+     * @return  the row count
+     */
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the value of a function over the window ending at the last row processed
+     * @param function  the window function, which must be one of those computed
+     * @return          the function value, NaN if the window holds too few values
+     */
+    public double value(WindowFunction function) {
+        if (!Arrays.asList(functions).contains(function)) {
+            throw new IllegalArgumentException("The window function " + function + " is not computed by " + this);
+        }
+        return state.count() >= minPeriods || function == WindowFunction.COUNT ? state.value(function) : Double.NaN;
+    }
+
+    /**
+     * Processes the next batch of rows of a row based window
+     * @param column    the input values of the batch
+     * @return          a frame with one column per function for the rows of the batch, each named column_function
+     */
+    public DataFrame update(NumericColumn column) {
+        if (isTimeBased()) {
+            throw new DataFrameException("Timestamps are required to update a time based window");
+        }
+        return update(column, null);
+    }
+
+    /**
+     * Processes the next batch of rows of a time based window
+     * @param column    the input values of the batch
+     * @param times     the timestamps of the rows of the batch, which must not decrease within or across batches
+     * @return          a frame with one column per function for the rows of the batch, each named column_function
+     */
+    public DataFrame update(NumericColumn column, LongColumn times) {
+        final int length = column.length();
+        if (times == null && isTimeBased()) {
+            throw new DataFrameException("Timestamps are required to update a time based window");
+        } else if (times != null && !isTimeBased()) {
+            throw new DataFrameException("Timestamps cannot be used to update a row based window");
+        } else if (times != null && times.length() != length) {
+            throw new DataFrameException("Timestamps have length " + times.length() + ", expected " + length);
+        } else if ((long)rowCount + length > Integer.MAX_VALUE) {
+            throw new DataFrameException("An incremental rolling window cannot exceed " + Integer.MAX_VALUE + " rows");
+        }
+        final List<DoubleColumn> results = new ArrayList<>(functions.length);
+        for (WindowFunction function : functions) {
+            results.add(Columns.doubles(column.name() + "_" + function.name().toLowerCase(Locale.ROOT), length));
+        }
+        final int batchSize = Math.max(1, Math.min(length, Columns.BATCH_SIZE));
+        final double[] input = new double[batchSize];
+        final long[] stamps = times != null ? new long[batchSize] : null;
+        final double[][] output = new double[functions.length][batchSize];
+        for (int from = 0; from < length; from += batchSize) {
+            final int batch = Math.min(batchSize, length - from);
+            column.getDoubles(from, input, 0, batch);
+            if (times != null) {
+                times.getLongs(from, stamps, 0, batch);
+            }
+            for (int i = 0; i < batch; ++i) {
+                if (times != null) {
+                    final long time = stamps[i];
+                    if (time < previous) {
+                        throw new DataFrameException("Timestamps are not in order at row " + (from + i) + " of " + times.name());
+                    }
+                    this.previous = time;
+                    while (count > 0 && this.times[head] <= time - duration) {
+                        evict();
+                    }
+                } else if (count == size) {
+                    evict();
+                }
+                push(input[i], times != null ? stamps[i] : 0L);
+                final boolean ready = state.count() >= minPeriods;
+                for (int f = 0; f < functions.length; ++f) {
+                    final WindowFunction function = functions[f];
+                    output[f][i] = ready || function == WindowFunction.COUNT ? state.value(function) : Double.NaN;
+                }
+            }
+            for (int f = 0; f < functions.length; ++f) {
+                results.get(f).setDoubles(from, output[f], 0, batch);
+            }
+        }
+        return DataFrame.of(new ArrayList<Column>(results));
+    }
+
+    /**
+     * Adds the next row to the window and to the ring of rows it holds, growing the ring if full
+     */
+    private void push(double value, long time) {
+        if (count == values.length) {
+            final double[] grownValues = new double[values.length * 2];
+            final long[] grownTimes = times != null ? new long[values.length * 2] : null;
+            for (int i = 0; i < count; ++i) {
+                grownValues[i] = values[(head + i) % values.length];
+                if (grownTimes != null) {
+                    grownTimes[i] = times[(head + i) % values.length];
+                }
+            }
+            this.values = grownValues;
+            this.times = grownTimes;
+            this.head = 0;
+        }
+        final int tail = (head + count) % values.length;
+        this.values[tail] = value;
+        if (times != null) {
+            this.times[tail] = time;
+        }
+        this.state.add(rowCount++, value);
+        this.count++;
+    }
+
+    /**
+     * Removes the oldest row from the window and from the ring of rows it holds
+     */
+    private void evict() {
+        this.state.remove(rowCount - count, values[head]);
+        this.head = (head + 1) % values.length;
+        this.count--;
+    }
+
+    @Override
+    public String toString() {
+        return isTimeBased() ? "IncrementalRolling[duration=" + duration + "]" : "IncrementalRolling[rows=" + size + "]";
+    }
+}
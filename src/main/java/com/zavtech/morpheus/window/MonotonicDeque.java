@@ -0,0 +1,91 @@
+package com.zavtech.morpheus.window;
+
+import java.util.Arrays;
+
+/**
+ * A double ended queue of (row, value) pairs whose values are kept monotonic, so that the min or max of a
+ * sliding window is always at the front.
+ *
+ * Each row is pushed and evicted at most once, so maintaining the extreme of a window costs amortized
+ * constant time per row regardless of the window size. Entries are held in parallel ring buffers that
+ * grow as needed, which keeps time based windows of unbounded row count supported.
+ */
+final class MonotonicDeque {
+
+    private final boolean max;
+    private int[] rows;
+    private double[] values;
+    private int head;
+    private int size;
+
+    /**
+     * Constructor
+     * @param max       true to track the max value, false for the min value
+     * @param capacity  the initial capacity
+     */
+    MonotonicDeque(boolean max, int capacity) {
+        final int length = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+        this.max = max;
+        this.rows = new int[length];
+        this.values = new double[length];
+    }
+
+    /**
+     * Appends a value, first discarding entries at the back that can no longer be the extreme of any window
+     * @param row   the row of the value
+     * @param value the value, which must not be NaN
+     */
+    void push(int row, double value) {
+        final int mask = rows.length - 1;
+        while (size > 0) {
+            final double last = values[(head + size - 1) & mask];
+            if (max ? last <= value : last >= value) {
+                size--;
+            } else {
+                break;
+            }
+        }
+        if (size == rows.length) {
+            grow();
+        }
+        final int tail = (head + size) & (rows.length - 1);
+        this.rows[tail] = row;
+        this.values[tail] = value;
+        this.size++;
+    }
+
+    /**
+     * Discards entries at the front whose rows precede the start of the window
+     * @param start the first row in the window
+     */
+    void evict(int start) {
+        while (size > 0 && rows[head] < start) {
+            this.head = (head + 1) & (rows.length - 1);
+            this.size--;
+        }
+    }
+
+    /**
+     * Returns the extreme value of the window
+     * @return  the min or max value, NaN if the window holds no values
+     */
+    double peek() {
+        return size > 0 ? values[head] : Double.NaN;
+    }
+
+    /**
+     * Doubles the capacity of the ring buffers, moving entries so that the front is at index zero
+     */
+    private void grow() {
+        final int length = rows.length;
+        final int[] newRows = Arrays.copyOf(rows, length * 2);
+        final double[] newValues = Arrays.copyOf(values, length * 2);
+        System.arraycopy(rows, head, newRows, 0, length - head);
+        System.arraycopy(rows, 0, newRows, length - head, head);
+        System.arraycopy(values, head, newValues, 0, length - head);
+        System.arraycopy(values, 0, newValues, length - head, head);
+        this.rows = newRows;
+        this.values = newValues;
+        this.head = 0;
+    }
+}
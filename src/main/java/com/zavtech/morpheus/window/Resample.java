@@ -0,0 +1,327 @@
+package com.zavtech.morpheus.window;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.NumericColumn;
+import com.zavtech.morpheus.column.Validity;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.groupby.Aggregate;
+import com.zavtech.morpheus.groupby.Aggregation;
+
+/**
+ * Converts a time series to a regular frequency by assigning rows to fixed intervals of a timestamp column.
+ *
+ * Intervals start at origin + k * interval for integer k, and each is labelled by its start time.
+ * Because the timestamps must be in non-decreasing order, the rows of an interval are contiguous,
+ * so downsampling reduces each column in a single sequential pass without hashing, and upsampling
+ * merges the rows with the regular grid of interval start times in a single pass.
+ */
+public final class Resample {
+
+    private final DataFrame frame;
+    private final String timeColumn;
+    private final long interval;
+    private long origin;
+
+    /**
+     * The ways of filling intervals that hold no row when upsampling
+     */
+    public enum Fill {
+
+        /** Intervals without a row at their start time hold nulls */
+        NONE,
+
+        /** Intervals without a row at their start time hold the last row at or before that time */
+        FORWARD
+    }
+
+    /**
+     * Constructor
+     * @param frame         the frame to resample
+     * @param timeColumn    the name of the timestamp column
+     * @param interval      the interval length in units of the timestamps
+     */
+    private Resample(DataFrame frame, String timeColumn, long interval) {
+        this.frame = frame;
+        this.timeColumn = timeColumn;
+        this.interval = interval;
+    }
+
+    /**
+     * Returns a resampling of the frame specified
+     * @param frame         the frame to resample
+     * @param timeColumn    the name of the LONG timestamp column, whose values must be in non-decreasing order
+     * @param interval      the interval length in units of the timestamps
+     * @return              the resampling
+     */
+    public static Resample of(DataFrame frame, String timeColumn, long interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("The resample interval must be > 0");
+        }
+        frame.longs(timeColumn);
+        return new Resample(frame, timeColumn, interval);
+    }
+
+    /**
+     * Sets the timestamp at which intervals are aligned, which defaults to zero
+     * @param origin    the alignment origin
+     * @return          this resampling
+     */
+    public Resample setOrigin(long origin) {
+        this.origin = origin;
+        return this;
+    }
+
+    /**
+     * Returns a frame with one row per non-empty interval, holding the interval start time and the aggregates specified.
+     * Aggregates follow the semantics of GroupBy, with COUNT as a long and all others as doubles: null rows
+     * are skipped, and intervals without any values yield null, except for SUM which yields zero.
+     * @param aggregates    the aggregates to compute for each interval
+     * @return              the downsampled frame
+     */
+    public DataFrame aggregate(Aggregate... aggregates) {
+        final int[] starts = starts();
+        final int buckets = starts.length - 1;
+        final List<Column> columns = new ArrayList<>(aggregates.length + 1);
+        columns.add(labels(starts));
+        for (Aggregate aggregate : aggregates) {
+            if (aggregate.column() == null) {
+                final long[] counts = new long[buckets];
+                for (int b = 0; b < buckets; ++b) {
+                    counts[b] = starts[b + 1] - starts[b];
+                }
+                columns.add(Columns.ofLongs(aggregate.name(), counts));
+            } else {
+                columns.add(reduce(frame.numeric(aggregate.column()), starts, aggregate));
+            }
+        }
+        return DataFrame.of(columns);
+    }
+
+    /**
+     * Returns a frame with one row per non-empty interval, holding the interval start time and the open,
+     * high, low and close of the column specified, named column_open, column_high and so on. Null rows
+     * are skipped, so the open and close are the first and last values of the interval, and intervals
+     * without any values yield nulls.
+     * @param column    the name of the price column
+     * @return          the downsampled frame
+     */
+    public DataFrame ohlc(String column) {
+        final int[] starts = starts();
+        final int buckets = starts.length - 1;
+        final NumericColumn source = frame.numeric(column);
+        final Validity validity = source.validity();
+        final boolean nulls = validity.hasNulls();
+        final double[] open = new double[buckets];
+        final double[] high = new double[buckets];
+        final double[] low = new double[buckets];
+        final double[] close = new double[buckets];
+        final int[] counts = new int[buckets];
+        final double[] batch = new double[Math.max(1, Math.min(source.length(), Columns.BATCH_SIZE))];
+        int bucket = -1;
+        for (int from = 0; from < source.length(); from += batch.length) {
+            final int count = Math.min(batch.length, source.length() - from);
+            source.getDoubles(from, batch, 0, count);
+            for (int i = 0; i < count; ++i) {
+                if (from + i == starts[bucket + 1]) {
+                    bucket++;
+                }
+                if (nulls && validity.isNull(from + i)) {
+                    continue;
+                }
+                final double value = batch[i];
+                if (counts[bucket]++ == 0) {
+                    open[bucket] = high[bucket] = low[bucket] = value;
+                } else {
+                    high[bucket] = Math.max(high[bucket], value);
+                    low[bucket] = Math.min(low[bucket], value);
+                }
+                close[bucket] = value;
+            }
+        }
+        final DoubleColumn[] bars = {
+            Columns.ofDoubles(column + "_open", open),
+            Columns.ofDoubles(column + "_high", high),
+            Columns.ofDoubles(column + "_low", low),
+            Columns.ofDoubles(column + "_close", close)
+        };
+        for (int b = 0; b < buckets; ++b) {
+            if (counts[b] == 0) {
+                for (DoubleColumn bar : bars) {
+                    bar.setNull(b);
+                }
+            }
+        }
+        return DataFrame.of(labels(starts), bars[0], bars[1], bars[2], bars[3]);
+    }
+
+    /**
+     * Returns a frame with one row for every interval from the first to the last timestamp, whose time
+     * column holds the interval start and whose other columns hold the row at that time, or as specified
+     * by the fill where there is none. Where several rows share a timestamp the last one is used.
+     * @param fill  the way of filling intervals without a row at their start time
+     * @return      the upsampled frame
+     */
+    public DataFrame upsample(Fill fill) {
+        final LongColumn times = frame.longs(timeColumn);
+        final int length = times.length();
+        if (length == 0) {
+            return frame.take(new int[0]);
+        }
+        final long first = bucket(times.getLong(0));
+        final long last = bucket(times.getLong(length - 1));
+        final long count = (last - first) / interval + 1;
+        if (count > Integer.MAX_VALUE - 8) {
+            throw new DataFrameException("Upsampling would produce " + count + " rows, which exceeds the max frame length");
+        }
+        final int[] rows = new int[(int)count];
+        final long[] grid = new long[rows.length];
+        final long[] batch = new long[Math.min(length, Columns.BATCH_SIZE)];
+        int row = 0;
+        int offset = -batch.length;
+        long previous = Long.MIN_VALUE;
+        for (int i = 0; i < rows.length; ++i) {
+            final long time = first + i * interval;
+            int match = -1;
+            while (row < length) {
+                if (row - offset == batch.length) {
+                    offset = row;
+                    times.getLongs(row, batch, 0, Math.min(batch.length, length - row));
+                }
+                final long value = batch[row - offset];
+                if (value < previous) {
+                    throw new DataFrameException("Timestamps are not in order at row " + row + " of " + timeColumn);
+                } else if (value > time) {
+                    break;
+                }
+                previous = value;
+                match = row++;
+            }
+            if (match >= 0 && (fill == Fill.FORWARD || previous == time)) {
+                rows[i] = match;
+            } else if (fill == Fill.FORWARD && i > 0) {
+                rows[i] = rows[i - 1];
+            } else {
+                rows[i] = -1;
+            }
+            grid[i] = time;
+        }
+        final DataFrame taken = frame.take(rows);
+        final List<Column> columns = new ArrayList<>(taken.columns());
+        columns.set(frame.ordinal(timeColumn), Columns.ofLongs(timeColumn, grid));
+        return DataFrame.of(columns);
+    }
+
+    /**
+     * Returns the start of the interval that holds the timestamp specified
+     */
+    private long bucket(long time) {
+        return origin + Math.floorDiv(time - origin, interval) * interval;
+    }
+
+    /**
+     * Returns the first row of each non-empty interval, followed by the row count
+     */
+    private int[] starts() {
+        final LongColumn times = frame.longs(timeColumn);
+        final int length = times.length();
+        final long[] batch = new long[Math.max(1, Math.min(length, Columns.BATCH_SIZE))];
+        int[] starts = new int[64];
+        int count = 0;
+        long current = 0L;
+        long previous = Long.MIN_VALUE;
+        for (int from = 0; from < length; from += batch.length) {
+            final int n = Math.min(batch.length, length - from);
+            times.getLongs(from, batch, 0, n);
+            for (int i = 0; i < n; ++i) {
+                final long time = batch[i];
+                if (time < previous) {
+                    throw new DataFrameException("Timestamps are not in order at row " + (from + i) + " of " + timeColumn);
+                }
+                final long bucket = bucket(time);
+                if (count == 0 || bucket != current) {
+                    if (count + 2 > starts.length) {
+                        starts = Arrays.copyOf(starts, starts.length * 2);
+                    }
+                    starts[count++] = from + i;
+                    current = bucket;
+                }
+                previous = time;
+            }
+        }
+        starts[count] = length;
+        return Arrays.copyOf(starts, count + 1);
+    }
+
+    /**
+     * Returns the start time of each non-empty interval as a column named after the time column
+     */
+    private LongColumn labels(int[] starts) {
+        final LongColumn times = frame.longs(timeColumn);
+        final long[] labels = new long[starts.length - 1];
+        for (int b = 0; b < labels.length; ++b) {
+            labels[b] = bucket(times.getLong(starts[b]));
+        }
+        return Columns.ofLongs(timeColumn, labels);
+    }
+
+    /**
+     * Reduces the valid values of a column over each interval in a single pass into the result column of the aggregate
+     */
+    private static Column reduce(NumericColumn source, int[] starts, Aggregate aggregate) {
+        final int buckets = starts.length - 1;
+        final Aggregation aggregation = aggregate.aggregation();
+        final Validity validity = source.validity();
+        final boolean nulls = validity.hasNulls();
+        final double[] result = new double[buckets];
+        final long[] counts = new long[buckets];
+        final double[] batch = new double[Math.max(1, Math.min(source.length(), Columns.BATCH_SIZE))];
+        int bucket = -1;
+        for (int from = 0; from < source.length(); from += batch.length) {
+            final int count = Math.min(batch.length, source.length() - from);
+            source.getDoubles(from, batch, 0, count);
+            for (int i = 0; i < count; ++i) {
+                if (from + i == starts[bucket + 1]) {
+                    bucket++;
+                }
+                if (nulls && validity.isNull(from + i)) {
+                    continue;
+                }
+                final double value = batch[i];
+                if (counts[bucket]++ == 0) {
+                    result[bucket] = value;
+                } else {
+                    switch (aggregation) {
+                        case SUM:
+                        case MEAN:  result[bucket] += value;                              break;
+                        case MIN:   result[bucket] = Math.min(result[bucket], value);     break;
+                        case MAX:   result[bucket] = Math.max(result[bucket], value);     break;
+                        case LAST:  result[bucket] = value;                               break;
+                        case COUNT:
+                        case FIRST:                                                       break;
+                        default:    throw new IllegalArgumentException("Unsupported aggregation: " + aggregation);
+                    }
+                }
+            }
+        }
+        if (aggregation == Aggregation.COUNT) {
+            return Columns.ofLongs(aggregate.name(), counts);
+        }
+        final DoubleColumn column = Columns.ofDoubles(aggregate.name(), result);
+        for (int b = 0; b < buckets; ++b) {
+            if (aggregation == Aggregation.MEAN && counts[b] > 0) {
+                column.setDouble(b, result[b] / counts[b]);
+            } else if (aggregation != Aggregation.SUM && counts[b] == 0) {
+                column.setNull(b);
+            }
+        }
+        return column;
+    }
+}
@@ -0,0 +1,228 @@
+package com.zavtech.morpheus.window;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.NumericColumn;
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+
+/**
+ * Computes functions over sliding windows that end at each row, in a single sequential pass.
+ *
+ * A window either spans a fixed number of rows up to and including the current row, or spans
+ * the rows whose timestamps fall in (t - duration, t] where t is the timestamp of the current
+ * row. Each row enters and leaves the window state exactly once, so the cost per row does not
+ * depend on the window size, and any number of functions of the same window share one pass.
+ * Values are read and results written in batches, so columns of any storage and length are
+ * processed in bounded memory.
+ *
+ * NaN values are ignored, and rows whose window holds fewer than the min periods of non-NaN
+ * values produce NaN for every function other than COUNT.
+ */
+public final class Rolling {
+
+    private final int size;
+    private final LongColumn times;
+    private final long duration;
+    private int minPeriods;
+
+    /**
+     * Constructor
+     * @param size      the window size in rows, or zero for a time based window
+     * @param times     the timestamps for a time based window, or null
+     * @param duration  the window duration in units of the timestamps
+     */
+    private Rolling(int size, LongColumn times, long duration) {
+        this.size = size;
+        this.times = times;
+        this.duration = duration;
+        this.minPeriods = times == null ? size : 1;
+    }
+
+    /**
+     * Returns a rolling window over a fixed number of rows, requiring a full window by default
+     * @param size  the window size in rows
+     * @return      the rolling window
+     */
+    public static Rolling rows(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("The window size must be > 0");
+        }
+        return new Rolling(size, null, 0L);
+    }
+
+    /**
+     * Returns a rolling window over a duration of time, requiring one value by default
+     * @param times     the timestamps of each row, which must be in non-decreasing order
+     * @param duration  the window duration, in the units of the timestamps
+     * @return          the rolling window
+     */
+    public static Rolling time(LongColumn times, long duration) {
+        if (duration < 1) {
+            throw new IllegalArgumentException("The window duration must be > 0");
+        }
+        return new Rolling(0, times, duration);
+    }
+
+    /**
+     * Sets the min number of non-NaN values a window must hold to produce a result
+     * @param minPeriods    the min number of values
+     * @return              this rolling window
+     */
+    public Rolling setMinPeriods(int minPeriods) {
+        if (minPeriods < 0) {
+            throw new IllegalArgumentException("The min periods must be >= 0");
+        }
+        this.minPeriods = minPeriods;
+        return this;
+    }
+
+    /**
+     * Returns a column with a function of the window ending at each row, named column_function
+     * @param function  the window function
+     * @param column    the input column
+     * @return          the result column
+     */
+    public DoubleColumn apply(WindowFunction function, NumericColumn column) {
+        return (DoubleColumn)apply(column, function).column(0);
+    }
+
+    /**
+     * Returns a frame with one column per function, each named column_function, computed in a single pass
+     * @param column    the input column
+     * @param functions the window functions
+     * @return          the frame of result columns
+     */
+    public DataFrame apply(NumericColumn column, WindowFunction... functions) {
+        final int length = column.length();
+        if (functions.length == 0) {
+            throw new IllegalArgumentException("At least one window function is required");
+        } else if (times != null && times.length() != length) {
+            throw new DataFrameException("Timestamps have length " + times.length() + ", expected " + length);
+        }
+        final EnumSet<WindowFunction> set = EnumSet.copyOf(Arrays.asList(functions));
+        final int capacity = times == null ? size + 1 : 1024;
+        final boolean moments = set.contains(WindowFunction.VARIANCE) || set.contains(WindowFunction.STD);
+        final WindowState state = new WindowState(moments, set.contains(WindowFunction.MIN), set.contains(WindowFunction.MAX), capacity);
+        final Storage storage = column.storage() == Storage.HEAP ? Storage.HEAP : Storage.OFF_HEAP;
+        final List<DoubleColumn> results = new ArrayList<>(functions.length);
+        for (WindowFunction function : functions) {
+            final String name = column.name() + "_" + function.name().toLowerCase(Locale.ROOT);
+            results.add(Columns.doubles(name, length, storage));
+        }
+        final int batchSize = Math.max(1, Math.min(length, Columns.BATCH_SIZE));
+        final double[][] output = new double[functions.length][batchSize];
+        final Cursor head = new Cursor(column, batchSize);
+        final Cursor tail = new Cursor(column, batchSize);
+        final TimeCursor headTimes = times != null ? new TimeCursor(times, batchSize) : null;
+        final TimeCursor tailTimes = times != null ? new TimeCursor(times, batchSize) : null;
+        int start = 0;
+        long previous = Long.MIN_VALUE;
+        for (int row = 0; row < length; ++row) {
+            state.add(row, head.next());
+            if (times == null) {
+                if (row >= size) {
+                    state.remove(start++, tail.next());
+                }
+            } else {
+                final long time = headTimes.next();
+                if (time < previous) {
+                    throw new DataFrameException("Timestamps are not in order at row " + row + " of " + times.name());
+                }
+                previous = time;
+                while (tailTimes.peek() <= time - duration) {
+                    tailTimes.next();
+                    state.remove(start++, tail.next());
+                }
+            }
+            final int index = row % batchSize;
+            final boolean ready = state.count() >= minPeriods;
+            for (int f = 0; f < functions.length; ++f) {
+                final WindowFunction function = functions[f];
+                output[f][index] = ready || function == WindowFunction.COUNT ? state.value(function) : Double.NaN;
+            }
+            if (index == batchSize - 1 || row == length - 1) {
+                for (int f = 0; f < functions.length; ++f) {
+                    results.get(f).setDoubles(row - index, output[f], 0, index + 1);
+                }
+            }
+        }
+        return DataFrame.of(new ArrayList<Column>(results));
+    }
+
+    @Override
+    public String toString() {
+        return times == null ? "Rolling[rows=" + size + "]" : "Rolling[" + times.name() + ", duration=" + duration + "]";
+    }
+
+
+    /**
+     * A sequential reader of the values of a numeric column, which reads ahead in batches
+     */
+    private static final class Cursor {
+
+        private final NumericColumn column;
+        private final double[] batch;
+        private int from;
+        private int index;
+        private int count;
+
+        Cursor(NumericColumn column, int batchSize) {
+            this.column = column;
+            this.batch = new double[batchSize];
+        }
+
+        double next() {
+            if (index == count) {
+                this.from += count;
+                this.count = Math.min(batch.length, column.length() - from);
+                this.index = 0;
+                column.getDoubles(from, batch, 0, count);
+            }
+            return batch[index++];
+        }
+    }
+
+
+    /**
+     * A sequential reader of timestamps, which reads ahead in batches
+     */
+    private static final class TimeCursor {
+
+        private final LongColumn column;
+        private final long[] batch;
+        private int from;
+        private int index;
+        private int count;
+
+        TimeCursor(LongColumn column, int batchSize) {
+            this.column = column;
+            this.batch = new long[batchSize];
+        }
+
+        long peek() {
+            if (index == count) {
+                this.from += count;
+                this.count = Math.min(batch.length, column.length() - from);
+                this.index = 0;
+                column.getLongs(from, batch, 0, count);
+            }
+            return batch[index];
+        }
+
+        long next() {
+            final long value = peek();
+            this.index++;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.zavtech.morpheus.window;
+
+/**
+ * Enumerates the functions computed over rolling windows, all of which ignore NaN values.
+ */
+public enum WindowFunction {
+
+    /** The number of non-NaN values in each window */
+    COUNT,
+
+    /** The sum of values in each window */
+    SUM,
+
+    /** The arithmetic mean of values in each window */
+    MEAN,
+
+    /** The sample variance of values in each window */
+    VARIANCE,
+
+    /** The sample standard deviation of values in each window */
+    STD,
+
+    /** The min value in each window */
+    MIN,
+
+    /** The max value in each window */
+    MAX
+}
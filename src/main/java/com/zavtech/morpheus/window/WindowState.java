@@ -0,0 +1,118 @@
+package com.zavtech.morpheus.window;
+
+/**
+ * The incremental state of one sliding window, updated as values enter and leave so that no window is
+ * ever recomputed from scratch.
+ *
+ * Sums use Neumaier compensated summation so that cancellation from removals does not accumulate error
+ * over long series, variance uses Welford's update and its inverse, and min and max use monotonic deques.
+ * Each of these is only maintained when a function that needs it is requested. NaN values are skipped.
+ */
+final class WindowState {
+
+    private final boolean moments;
+    private int count;
+    private double sum;
+    private double compensation;
+    private double mean;
+    private double m2;
+    private final MonotonicDeque min;
+    private final MonotonicDeque max;
+
+    /**
+     * Constructor
+     * @param moments   true to track the variance
+     * @param minimum   true to track the min value
+     * @param maximum   true to track the max value
+     * @param capacity  the expected max number of rows in a window
+     */
+    WindowState(boolean moments, boolean minimum, boolean maximum, int capacity) {
+        this.moments = moments;
+        this.min = minimum ? new MonotonicDeque(false, capacity) : null;
+        this.max = maximum ? new MonotonicDeque(true, capacity) : null;
+    }
+
+    /**
+     * Adds the value of a row entering the window
+     * @param row   the row index
+     * @param value the value
+     */
+    void add(int row, double value) {
+        if (!Double.isNaN(value)) {
+            this.count++;
+            accumulate(value);
+            if (moments) {
+                final double delta = value - mean;
+                this.mean += delta / count;
+                this.m2 += delta * (value - mean);
+            }
+            if (min != null) min.push(row, value);
+            if (max != null) max.push(row, value);
+        }
+    }
+
+    /**
+     * Removes the value of a row leaving the window, where rows must leave in the order they were added
+     * @param row   the row index
+     * @param value the value
+     */
+    void remove(int row, double value) {
+        if (!Double.isNaN(value)) {
+            this.count--;
+            if (count == 0) {
+                this.sum = 0d;
+                this.compensation = 0d;
+                this.mean = 0d;
+                this.m2 = 0d;
+            } else {
+                accumulate(-value);
+                if (moments) {
+                    final double delta = value - mean;
+                    this.mean -= delta / count;
+                    this.m2 = Math.max(0d, m2 - delta * (value - mean));
+                }
+            }
+        }
+        if (min != null) min.evict(row + 1);
+        if (max != null) max.evict(row + 1);
+    }
+
+    /**
+     * Adds a value to the compensated sum
+     */
+    private void accumulate(double value) {
+        final double total = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            this.compensation += (sum - total) + value;
+        } else {
+            this.compensation += (value - total) + sum;
+        }
+        this.sum = total;
+    }
+
+    /**
+     * Returns the number of non-NaN values in the window
+     * @return  the value count
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * Returns the value of a function over the current window
+     * @param function  the window function
+     * @return          the function value, NaN if the window holds too few values
+     */
+    double value(WindowFunction function) {
+        switch (function) {
+            case COUNT:     return count;
+            case SUM:       return sum + compensation;
+            case MEAN:      return count > 0 ? (sum + compensation) / count : Double.NaN;
+            case VARIANCE:  return count > 1 ? m2 / (count - 1) : Double.NaN;
+            case STD:       return count > 1 ? Math.sqrt(m2 / (count - 1)) : Double.NaN;
+            case MIN:       return min.peek();
+            case MAX:       return max.peek();
+            default:        throw new IllegalArgumentException("Unsupported window function: " + function);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.zavtech.morpheus.chunk;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.column.StringColumn;
+import com.zavtech.morpheus.expr.Expression;
+import com.zavtech.morpheus.filter.Predicate;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.groupby.Aggregate;
+import com.zavtech.morpheus.groupby.GroupBy;
+import com.zavtech.morpheus.io.CsvOptions;
+import com.zavtech.morpheus.sort.SortKey;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of chunked frames under a memory budget small enough to force chunks to spill, against the same operations on a frame
+ */
+public class ChunkedFrameTest {
+
+    @TempDir
+    Path folder;
+
+    /**
+     * Returns a frame with a string key with nulls, a long key, a double value with nulls and a long sequence
+     */
+    private static DataFrame frame(int rows, long seed) {
+        final Random random = new Random(seed);
+        final StringColumn sym = Columns.strings("sym", rows);
+        final LongColumn bucket = Columns.longs("bucket", rows);
+        final DoubleColumn px = Columns.doubles("px", rows);
+        final LongColumn seq = Columns.longs("seq", rows);
+        for (int i = 0; i < rows; ++i) {
+            sym.setString(i, "S" + random.nextInt(40));
+            bucket.setLong(i, random.nextInt(7) - 3);
+            px.setDouble(i, Math.round(random.nextGaussian() * 1000d) / 8d);
+            seq.setLong(i, i);
+            if (random.nextInt(25) == 0) {
+                sym.setNull(i);
+            }
+            if (random.nextInt(30) == 0) {
+                px.setNull(i);
+            }
+        }
+        return DataFrame.of(sym, bucket, px, seq);
+    }
+
+    /**
+     * Returns a cache that spills to the test folder with a budget of about two chunks of the test frame
+     */
+    private ChunkCache cache() {
+        return ChunkCache.create().setDirectory(folder).setMemoryBudget(40000L);
+    }
+
+    /**
+     * Returns the number of spill files in the test folder
+     */
+    private long spillFiles() throws IOException {
+        try (Stream<Path> files = Files.list(folder)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("morpheus-chunk-")).count();
+        }
+    }
+
+    /**
+     * Asserts two frames have the same column names and values in the same order
+     */
+    private static void assertFrameEquals(DataFrame expected, DataFrame actual) {
+        assertEquals(expected.columnNames(), actual.columnNames());
+        assertEquals(expected.rowCount(), actual.rowCount());
+        for (int j = 0; j < expected.columnCount(); ++j) {
+            final Column left = expected.column(j);
+            final Column right = actual.column(j);
+            for (int i = 0; i < expected.rowCount(); ++i) {
+                final Object a = left.getValue(i);
+                final Object b = right.getValue(i);
+                if (a instanceof Double && b instanceof Double) {
+                    assertEquals((Double)a, (Double)b, 1e-9 * Math.max(1d, Math.abs((Double)a)), left.name() + " row " + i);
+                } else {
+                    assertEquals(a, b, left.name() + " row " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void chunksSpillOnceAndReloadOnDemand() throws IOException {
+        final DataFrame frame = frame(20000, 1L);
+        try (ChunkCache cache = cache(); ChunkedFrame chunked = ChunkedFrame.of(frame, 1000, cache)) {
+            assertEquals(20, chunked.chunkCount());
+            assertEquals(20000L, chunked.rowCount());
+            assertEquals(frame.columnNames(), chunked.columnNames());
+            assertTrue(cache.residentBytes() <= cache.getMemoryBudget());
+            assertTrue(cache.spillCount() >= 18, cache.toString());
+            assertFrameEquals(frame, chunked.collect());
+            final long spills = cache.spillCount();
+            assertFrameEquals(frame, chunked.collect());
+            assertEquals(spills, cache.spillCount());
+            assertTrue(spills <= chunked.chunkCount(), cache.toString());
+            assertTrue(cache.loadCount() >= 36, cache.toString());
+            assertTrue(cache.evictionCount() > spills, cache.toString());
+            assertEquals(cache.spillCount(), spillFiles());
+        }
+        assertEquals(0L, spillFiles());
+    }
+
+    @Test
+    public void mapFilterAndSelectMatchFrame() {
+        final DataFrame frame = frame(12000, 2L);
+        final Predicate predicate = Predicate.gt("px", 10).and(Predicate.notNull("sym"));
+        try (ChunkCache cache = cache().setStorage(Storage.OFF_HEAP); ChunkedFrame chunked = ChunkedFrame.of(frame, 700, cache)) {
+            try (ChunkedFrame filtered = chunked.filter(predicate).select("seq", "px")) {
+                assertFrameEquals(frame.filter(predicate).select("seq", "px"), filtered.collect());
+            }
+            final Expression doubled = Expression.col("px").multiply(2d);
+            try (ChunkedFrame mapped = chunked.map(chunk -> chunk.withColumn("px2", doubled))) {
+                assertFrameEquals(frame.withColumn("px2", doubled), mapped.collect());
+            }
+            final List<Long> rows = new ArrayList<>();
+            chunked.forEach(chunk -> rows.add((long)chunk.rowCount()));
+            assertEquals(18, rows.size());
+            assertEquals(12000L, rows.stream().mapToLong(Long::longValue).sum());
+            assertThrows(DataFrameException.class, () -> chunked.map(chunk -> chunk.rowCount() == 700 ? chunk.select("seq") : chunk.select("px")));
+        }
+    }
+
+    @Test
+    public void aggregationMergesPartialResults() {
+        final DataFrame frame = frame(15000, 3L);
+        final List<Aggregate> aggregates = List.of(
+            Aggregate.sum("px"), Aggregate.mean("px"), Aggregate.min("px"), Aggregate.max("seq"),
+            Aggregate.count(), Aggregate.count("px"), Aggregate.first("seq"), Aggregate.last("seq")
+        );
+        try (ChunkCache cache = cache(); ChunkedFrame chunked = ChunkedFrame.of(frame, 900, cache)) {
+            assertFrameEquals(GroupBy.of(frame, "sym").aggregate(aggregates), chunked.groupBy("sym").aggregate(aggregates));
+            assertFrameEquals(GroupBy.of(frame, "bucket", "sym").aggregate(aggregates), chunked.groupBy("bucket", "sym").aggregate(aggregates));
+            final DataFrame distinct = chunked.groupBy("sym").aggregate(Aggregate.approxDistinct("bucket"));
+            for (int i = 0; i < distinct.rowCount(); ++i) {
+                final Set<Long> exact = new HashSet<>();
+                final String sym = distinct.strings("sym").getString(i);
+                for (int row = 0; row < frame.rowCount(); ++row) {
+                    if (Objects.equals(sym, frame.strings("sym").getString(row))) {
+                        exact.add(frame.longs("bucket").getLong(row));
+                    }
+                }
+                assertEquals(exact.size(), distinct.numeric(distinct.columnNames().get(1)).getDouble(i), 0.5d);
+            }
+            assertThrows(DataFrameException.class, () -> chunked.groupBy());
+        }
+    }
+
+    @Test
+    public void externalSortIsStableAcrossRuns() {
+        final DataFrame frame = frame(10000, 4L);
+        try (ChunkCache cache = cache(); ChunkedFrame chunked = ChunkedFrame.of(frame, 777, cache)) {
+            final SortKey[][] orders = {
+                {SortKey.asc("bucket")},
+                {SortKey.desc("px")},
+                {SortKey.asc("sym"), SortKey.desc("bucket")}
+            };
+            for (SortKey[] keys : orders) {
+                try (ChunkedFrame sorted = chunked.sort(keys)) {
+                    assertEquals(chunked.chunkCount(), sorted.chunkCount());
+                    assertFrameEquals(frame.sort(keys), sorted.collect());
+                }
+            }
+            assertThrows(DataFrameException.class, () -> chunked.sort());
+        }
+    }
+
+    @Test
+    public void readCsvInBatches() throws IOException {
+        final List<String> lines = new ArrayList<>();
+        lines.add("id,name,value");
+        for (int i = 0; i < 5000; ++i) {
+            lines.add(i + ",n" + (i % 17) + "," + (i * 0.5));
+        }
+        final Path path = folder.resolve("data.csv");
+        Files.write(path, lines, StandardCharsets.UTF_8);
+        try (ChunkCache cache = cache(); ChunkedFrame chunked = ChunkedFrame.readCsv(path, new CsvOptions().setBatchRows(600), cache)) {
+            assertEquals(9, chunked.chunkCount());
+            assertEquals(5000L, chunked.rowCount());
+            final DataFrame sums = chunked.groupBy("name").aggregate(Aggregate.sum("value"), Aggregate.count());
+            assertEquals(17, sums.rowCount());
+            assertEquals("n0", sums.strings("name").getString(0));
+            assertEquals(295d, sums.numeric("count").getDouble(0));
+        }
+    }
+
+    @Test
+    public void invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> ChunkCache.create().setMemoryBudget(0L));
+        assertThrows(IllegalArgumentException.class, () -> ChunkCache.create().setStorage(Storage.MAPPED));
+        try (ChunkCache cache = cache()) {
+            assertThrows(IllegalArgumentException.class, () -> ChunkedFrame.of(frame(10, 5L), 0, cache));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.zavtech.morpheus.column;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.zavtech.morpheus.filter.Predicate;
+import com.zavtech.morpheus.frame.DataFrame;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of dictionaries and the dictionary encoded string columns built on them
+ */
+public class DictionaryColumnTest {
+
+    /**
+     * Returns the values of a string column
+     */
+    private static String[] values(StringColumn column) {
+        final String[] values = new String[column.length()];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = column.getString(i);
+        }
+        return values;
+    }
+
+    @Test
+    public void dictionaryCodes() {
+        final Dictionary dictionary = new Dictionary();
+        assertEquals(0, dictionary.intern(null));
+        assertEquals(1, dictionary.intern("IBM"));
+        assertEquals(2, dictionary.intern("\u20acuro"));
+        assertEquals(1, dictionary.intern("IBM"));
+        final byte[] utf8 = "xx\u20acuroyy".getBytes(StandardCharsets.UTF_8);
+        assertEquals(2, dictionary.intern(utf8, 2, utf8.length - 2));
+        assertEquals(2, dictionary.size());
+        assertEquals(-1, dictionary.codeOf("MSFT"));
+        assertEquals(0, dictionary.codeOf(null));
+        assertNull(dictionary.value(0));
+        assertEquals("\u20acuro", dictionary.value(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> dictionary.value(3));
+        for (int i = 0; i < 10000; ++i) {
+            assertEquals(i + 3, dictionary.intern("v" + i));
+        }
+        assertEquals("v9999", dictionary.value(10002));
+        assertEquals(10002, dictionary.codeOf("v9999"));
+        final Dictionary copy = dictionary.copy();
+        copy.intern("only-in-copy");
+        assertEquals(-1, dictionary.codeOf("only-in-copy"));
+        assertEquals(10002, copy.codeOf("v9999"));
+    }
+
+    @Test
+    public void valuesAndNulls() {
+        for (Storage storage : Arrays.asList(Storage.HEAP, Storage.OFF_HEAP)) {
+            final StringColumn column = Columns.strings("symbol", 5, storage);
+            assertEquals(ColumnType.STRING, column.type());
+            assertEquals(storage, column.storage());
+            column.setString(0, "IBM");
+            column.setString(1, "AAPL");
+            column.setString(3, "IBM");
+            column.setString(4, "MSFT");
+            column.setNull(4);
+            assertArrayEquals(new String[] {"IBM", "AAPL", null, "IBM", null}, values(column));
+            assertEquals(column.getCode(0), column.getCode(3));
+            assertTrue(column.isNull(2));
+            assertEquals(2, column.validity().nullCount());
+            assertTrue(column.validity().isNull(4));
+            final StringColumn taken = column.take(new int[] {3, -1, 1});
+            assertArrayEquals(new String[] {"IBM", null, "AAPL"}, values(taken));
+            assertSame(column.dictionary(), taken.dictionary());
+            assertEquals("ticker", column.rename("ticker").name());
+            column.close();
+        }
+    }
+
+    @Test
+    public void concatTranslatesDictionaries() {
+        final StringColumn first = Columns.ofStrings("s", "a", "b", null);
+        final StringColumn second = Columns.ofStrings("s", "c", "a");
+        final StringColumn shared = (StringColumn)Columns.copy(first, Storage.OFF_HEAP);
+        final StringColumn joined = (StringColumn)Columns.concat(Arrays.asList(first, second));
+        assertArrayEquals(new String[] {"a", "b", null, "c", "a"}, values(joined));
+        assertNotSame(first.dictionary(), joined.dictionary());
+        assertEquals(joined.getCode(0), joined.getCode(4));
+        final StringColumn same = (StringColumn)Columns.concat(Arrays.asList(first, shared));
+        assertSame(first.dictionary(), same.dictionary());
+        assertArrayEquals(new String[] {"a", "b", null, "a", "b", null}, values(same));
+    }
+
+    @Test
+    public void encodeAndFill() {
+        final StringColumn column = Columns.strings("s", 5000);
+        for (int i = 0; i < column.length(); ++i) {
+            column.setString(i, i % 7 == 0 ? null : "k" + (i / 1000));
+        }
+        final Column encoded = Columns.encode(column);
+        assertTrue(encoded instanceof StringColumn);
+        assertArrayEquals(values(column), values((StringColumn)encoded));
+        final StringColumn filled = Columns.fillNulls(column, "none");
+        for (int i = 0; i < column.length(); ++i) {
+            assertEquals(i % 7 == 0 ? "none" : column.getString(i), filled.getString(i));
+        }
+        assertSame(column.dictionary(), filled.dictionary());
+    }
+
+    @Test
+    public void predicatesUseCodes() {
+        final DataFrame frame = DataFrame.of(Columns.ofStrings("s", "x", "y", null, "x", "z"));
+        assertArrayEquals(new int[] {0, 3}, Predicate.eq("s", "x").select(frame));
+        assertArrayEquals(new int[] {1, 4}, Predicate.in("s", "y", "z", "w").select(frame));
+        assertArrayEquals(new int[0], Predicate.eq("s", "w").select(frame));
+        assertArrayEquals(new int[] {2}, Predicate.isNull("s").select(frame));
+    }
+
+    @Test
+    public void validityIsMaintainedByWrites() {
+        for (Storage storage : Arrays.asList(Storage.HEAP, Storage.OFF_HEAP)) {
+            final StringColumn column = Columns.strings("s", 200, storage);
+            final Validity validity = column.validity();
+            assertEquals(200, validity.nullCount());
+            column.setString(3, "a");
+            column.setCodes(10, new int[] {1, 0, 1}, 0, 3);
+            assertSame(validity, column.validity());
+            assertEquals(197, validity.nullCount());
+            assertTrue(validity.isValid(3) && validity.isNull(11) && validity.isValid(12));
+            column.setNull(3);
+            column.setString(11, null);
+            assertEquals(198, column.validity().nullCount());
+            final StringColumn taken = column.take(new int[] {10, 3, -1, 12});
+            assertArrayEquals(new boolean[] {false, true, true, false}, new boolean[] {taken.isNull(0), taken.isNull(1), taken.validity().isNull(2), taken.validity().isNull(3)});
+        }
+        final StringColumn values = Columns.ofStrings("s", "x", null, "y");
+        assertEquals(1, values.validity().nullCount());
+        assertTrue(values.validity().isNull(1));
+        values.setString(1, "z");
+        assertTrue(!values.validity().hasNulls());
+        assertEquals(1, Columns.ofStrings("t", "x", null).rename("u").validity().nullCount());
+    }
+}
@@ -0,0 +1,208 @@
+package com.zavtech.morpheus.column;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.zavtech.morpheus.filter.Predicate;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.stats.Stats;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of run-length, delta and frame of reference encoded columns against the plain columns they encode
+ */
+public class EncodedColumnTest {
+
+    /**
+     * Returns long columns of shapes that favour each encoding, with partial last blocks and some nulls
+     */
+    private static List<LongColumn> shapes(int rows) {
+        final Random random = new Random(rows);
+        final LongColumn ids = Columns.longs("ids", rows);
+        final LongColumn times = Columns.longs("times", rows);
+        final LongColumn runs = Columns.longs("runs", rows);
+        final LongColumn levels = Columns.longs("levels", rows);
+        final LongColumn noise = Columns.longs("noise", rows);
+        final LongColumn extremes = Columns.longs("extremes", rows);
+        long time = 1600000000000L;
+        for (int i = 0; i < rows; ++i) {
+            time += random.nextInt(1000);
+            ids.setLong(i, 1000000L + i);
+            times.setLong(i, time);
+            runs.setLong(i, -7L + i / 700);
+            levels.setLong(i, 50L - random.nextInt(13));
+            noise.setLong(i, random.nextLong());
+            extremes.setLong(i, i % 3 == 0 ? Long.MIN_VALUE : i % 3 == 1 ? Long.MAX_VALUE : 0L);
+        }
+        for (int i = 5; i < rows; i += 333) {
+            noise.setNull(i);
+            levels.setNull(i);
+        }
+        return Arrays.asList(ids, times, runs, levels, noise, extremes);
+    }
+
+    /**
+     * Returns the values of a column with nulls as zero
+     */
+    private static long[] values(LongColumn column) {
+        final long[] values = new long[column.length()];
+        column.getLongs(0, values, 0, values.length);
+        return values;
+    }
+
+    /**
+     * Asserts that an encoded column decodes, bounds and sums to the same values as the plain column
+     */
+    private static void assertEncoded(LongColumn plain, EncodedLongColumn encoded) {
+        final String name = plain.name() + " " + encoded.encoding();
+        final long[] expected = values(plain);
+        final int length = expected.length;
+        assertEquals(length, encoded.length());
+        assertEquals(plain.validity().nullCount(), encoded.validity().nullCount(), name);
+        assertArrayEquals(expected, values(encoded), name);
+        for (int i = 0; i < length; i += 97) {
+            assertEquals(expected[i], encoded.getLong(i), name + " row " + i);
+            assertEquals(plain.isNull(i), encoded.isNull(i), name + " row " + i);
+        }
+        final double[] doubles = new double[700];
+        final double[] reference = new double[700];
+        for (int from = 0; from + 700 <= length; from += 611) {
+            encoded.getDoubles(from, doubles, 0, 700);
+            plain.getDoubles(from, reference, 0, 700);
+            assertArrayEquals(reference, doubles, name + " from " + from);
+        }
+        long sum = 0L;
+        for (long value : expected) {
+            sum += value;
+        }
+        assertEquals(sum, encoded.sumLong(), name);
+        final Random random = new Random(length);
+        for (int n = 0; n < 50; ++n) {
+            final int from = random.nextInt(length);
+            final int to = from + random.nextInt(length - from + 1);
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int i = from; i < to; ++i) {
+                min = Math.min(min, expected[i]);
+                max = Math.max(max, expected[i]);
+            }
+            assertTrue(encoded.lowerBound(from, to) <= min, name + " lower bound of " + from + ".." + to);
+            assertTrue(encoded.upperBound(from, to) >= max, name + " upper bound of " + from + ".." + to);
+        }
+        assertEquals(Arrays.stream(expected).min().getAsLong(), encoded.lowerBound(0, length), name);
+        assertEquals(Arrays.stream(expected).max().getAsLong(), encoded.upperBound(0, length), name);
+        final int[] rows = Arrays.stream(new int[] {length - 1, 0, length / 2, 1023, 1024}).filter(row -> row < length).toArray();
+        final LongColumn taken = encoded.take(rows);
+        for (int i = 0; i < rows.length; ++i) {
+            assertEquals(plain.getValue(rows[i]), taken.getValue(i), name + " take " + rows[i]);
+        }
+        final EncodedLongColumn copy = EncodedLongColumn.fromWords(plain.name(), encoded.toWords(), encoded.validity());
+        assertEquals(encoded.encoding(), copy.encoding());
+        assertArrayEquals(expected, values(copy), name);
+    }
+
+    @Test
+    public void everyEncodingRoundTripsEveryShape() {
+        for (int rows : new int[] {1, 1023, 1024, 5000}) {
+            for (LongColumn column : shapes(rows)) {
+                for (Encoding encoding : Encoding.values()) {
+                    assertEncoded(column, EncodedLongColumn.of(column, encoding));
+                }
+                assertEncoded(column, EncodedLongColumn.of(column));
+            }
+        }
+    }
+
+    @Test
+    public void smallestEncodingIsChosen() {
+        final List<LongColumn> shapes = shapes(100000);
+        final EncodedLongColumn ids = EncodedLongColumn.of(shapes.get(0));
+        final EncodedLongColumn times = EncodedLongColumn.of(shapes.get(1));
+        final EncodedLongColumn runs = EncodedLongColumn.of(shapes.get(2));
+        final EncodedLongColumn levels = EncodedLongColumn.of(shapes.get(3));
+        assertEquals(Encoding.DELTA, ids.encoding());
+        assertTrue(ids.encodedBytes() <= (100000 / 1024 + 1) * 40, "sequential ids take " + ids.encodedBytes());
+        assertEquals(Encoding.DELTA, times.encoding());
+        assertTrue(times.encodedBytes() * 4 < 100000 * 8L);
+        assertEquals(Encoding.RUN_LENGTH, runs.encoding());
+        assertEquals(Encoding.FRAME_OF_REFERENCE, levels.encoding());
+        for (Encoding encoding : Encoding.values()) {
+            assertTrue(EncodedLongColumn.of(shapes.get(3), encoding).encodedBytes() >= levels.encodedBytes(), encoding.name());
+        }
+        assertSame(shapes.get(4), Columns.encode(shapes.get(4)));
+        assertTrue(Columns.encode(shapes.get(1)) instanceof EncodedLongColumn);
+    }
+
+    @Test
+    public void intAndStringColumns() {
+        final IntColumn ints = Columns.ints("ints", 3000);
+        final StringColumn strings = Columns.strings("strings", 3000);
+        for (int i = 0; i < 3000; ++i) {
+            ints.setInt(i, i % 10 - 5);
+            strings.setString(i, i % 17 == 0 ? null : "s" + i / 1000);
+        }
+        ints.setNull(42);
+        final EncodedIntColumn encoded = EncodedIntColumn.of(ints);
+        assertEquals(Encoding.FRAME_OF_REFERENCE, encoded.encoding());
+        for (int i = 0; i < 3000; ++i) {
+            assertEquals(ints.getValue(i), encoded.getValue(i), "row " + i);
+        }
+        final EncodedIntColumn copy = EncodedIntColumn.fromWords("ints", encoded.toWords(), encoded.validity());
+        assertEquals(ints.getValue(2999), copy.getValue(2999));
+        final DataFrame frame = DataFrame.of(ints, strings).encode();
+        assertTrue(frame.column("ints") instanceof EncodedColumn);
+        for (int i = 0; i < 3000; ++i) {
+            assertEquals(strings.getValue(i), frame.column("strings").getValue(i), "row " + i);
+        }
+        assertThrows(UnsupportedOperationException.class, () -> encoded.setInt(0, 1));
+        assertThrows(UnsupportedOperationException.class, () -> encoded.setNull(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> encoded.getInt(3000));
+    }
+
+    @Test
+    public void statsAndFiltersMatchPlainColumns() {
+        for (LongColumn column : shapes(20000)) {
+            final EncodedLongColumn encoded = EncodedLongColumn.of(column);
+            if (!column.name().equals("noise") && !column.name().equals("extremes")) {
+                assertEquals(Stats.sum(column), Stats.sum(encoded), Math.abs(Stats.sum(column)) * 1e-12, column.name());
+            }
+            assertEquals(Stats.min(column), Stats.min(encoded), column.name());
+            assertEquals(Stats.max(column), Stats.max(encoded), column.name());
+            final DataFrame plain = DataFrame.of(column);
+            final DataFrame compressed = DataFrame.of(encoded);
+            final long pivot = column.getLong(12345);
+            for (Predicate predicate : Arrays.asList(
+                Predicate.lt(column.name(), pivot),
+                Predicate.ge(column.name(), pivot),
+                Predicate.eq(column.name(), pivot),
+                Predicate.gt(column.name(), 1e30),
+                Predicate.isNull(column.name()))) {
+                assertArrayEquals(predicate.select(plain), predicate.select(compressed), column.name() + " " + predicate);
+            }
+        }
+    }
+
+    @Test
+    public void corruptWordsAreRejected() {
+        final EncodedLongColumn encoded = EncodedLongColumn.of(shapes(3000).get(1), Encoding.DELTA);
+        final long[] words = encoded.toWords();
+        final Validity validity = encoded.validity();
+        assertThrows(IllegalArgumentException.class, () -> EncodedLongColumn.fromWords("x", new long[] {1, 2}, validity));
+        assertThrows(IllegalArgumentException.class, () -> EncodedLongColumn.fromWords("x", Arrays.copyOf(words, words.length - 1), validity));
+        final long[] blocks = words.clone();
+        blocks[2]++;
+        assertThrows(IllegalArgumentException.class, () -> EncodedLongColumn.fromWords("x", blocks, validity));
+        final long[] encoding = words.clone();
+        encoding[0] = 99;
+        assertThrows(IllegalArgumentException.class, () -> EncodedLongColumn.fromWords("x", encoding, validity));
+        assertThrows(IllegalArgumentException.class, () -> EncodedLongColumn.fromWords("x", words, new Validity(2999)));
+    }
+}
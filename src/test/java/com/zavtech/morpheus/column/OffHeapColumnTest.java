@@ -0,0 +1,94 @@
+package com.zavtech.morpheus.column;
+
+import org.junit.jupiter.api.Test;
+
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.memory.BufferMemory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that off-heap columns behave like their heap counterparts and release native memory on close
+ */
+public class OffHeapColumnTest {
+
+    /**
+     * Returns a heap frame with one column of each type and a null in every column
+     */
+    private static DataFrame frame(int rows) {
+        final IntColumn ints = Columns.ints("ints", rows);
+        final LongColumn longs = Columns.longs("longs", rows);
+        final DoubleColumn doubles = Columns.doubles("doubles", rows);
+        final BooleanColumn booleans = Columns.booleans("booleans", rows);
+        final StringColumn strings = Columns.strings("strings", rows);
+        for (int i = 0; i < rows; ++i) {
+            ints.setInt(i, i * 3);
+            longs.setLong(i, i * 10000000000L);
+            doubles.setDouble(i, i * 0.5d);
+            booleans.setBoolean(i, i % 3 == 0);
+            strings.setString(i, "s" + (i % 7));
+        }
+        ints.setNull(5);
+        longs.setNull(6);
+        doubles.setNull(7);
+        booleans.setNull(8);
+        strings.setNull(9);
+        return DataFrame.of(ints, longs, doubles, booleans, strings);
+    }
+
+    @Test
+    public void testCopyPreservesValuesAndNulls() {
+        final DataFrame heap = frame(1000);
+        try (DataFrame offHeap = heap.copy(Storage.OFF_HEAP)) {
+            for (Column column : offHeap.columns()) {
+                assertEquals(Storage.OFF_HEAP, column.storage());
+                assertEquals(1, column.validity().nullCount());
+            }
+            for (int j = 0; j < heap.columnCount(); ++j) {
+                for (int i = 0; i < heap.rowCount(); ++i) {
+                    assertEquals(heap.column(j).getValue(i), offHeap.column(j).getValue(i), "row " + i);
+                }
+            }
+            final DataFrame back = offHeap.copy(Storage.HEAP);
+            assertFalse(back.uses(Storage.OFF_HEAP));
+            assertEquals(heap.column("longs").getValue(999), back.column("longs").getValue(999));
+        }
+    }
+
+    @Test
+    public void testTypedAccessAndTake() {
+        try (DataFrame frame = frame(100).copy(Storage.OFF_HEAP)) {
+            final LongColumn longs = frame.longs("longs");
+            final long[] values = new long[10];
+            longs.getLongs(90, values, 0, 10);
+            assertEquals(99 * 10000000000L, values[9]);
+            longs.setLongs(0, values, 0, 10);
+            assertEquals(90 * 10000000000L, longs.getLong(0));
+            longs.setLong(6, 1L);
+            assertFalse(longs.isNull(6));
+            final IntColumn taken = frame.ints("ints").take(new int[] {4, 5, -1});
+            assertEquals(Storage.OFF_HEAP, taken.storage());
+            assertEquals(12, taken.getInt(0));
+            assertTrue(taken.isNull(1));
+            assertTrue(taken.isNull(2));
+            taken.close();
+        }
+    }
+
+    @Test
+    public void testCloseReleasesNativeMemory() {
+        final long before = BufferMemory.allocatedBytes();
+        final DataFrame frame = frame(10000).copy(Storage.OFF_HEAP);
+        assertTrue(BufferMemory.allocatedBytes() >= before + 10000L * (4 + 8 + 8 + 4));
+        frame.close();
+        assertEquals(before, BufferMemory.allocatedBytes());
+    }
+
+    @Test
+    public void testMappedColumnsCannotBeCreated() {
+        assertThrows(IllegalArgumentException.class, () -> Columns.create("x", ColumnType.LONG, 10, Storage.MAPPED));
+    }
+}
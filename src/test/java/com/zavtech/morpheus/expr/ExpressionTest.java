@@ -0,0 +1,253 @@
+package com.zavtech.morpheus.expr;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.IntColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.filter.Predicate;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of compiled expressions against a row by row reference, with generated loops and with block kernels
+ */
+public class ExpressionTest {
+
+    private static final int ROWS = 5000;
+    private static final DataFrame FRAME = frame();
+
+    /**
+     * An expression paired with a reference that computes its value at a row, null where the result is null
+     */
+    private static final class Case {
+
+        private final Expression expression;
+        private final IntFunction<Double> reference;
+
+        Case(Expression expression, IntFunction<Double> reference) {
+            this.expression = expression;
+            this.reference = reference;
+        }
+    }
+
+    /**
+     * Returns a frame with a double column with nulls, an int column, a long column and an off-heap double column with nulls
+     */
+    private static DataFrame frame() {
+        final Random random = new Random(11L);
+        final DoubleColumn a = Columns.doubles("a", ROWS);
+        final IntColumn b = Columns.ints("b", ROWS);
+        final LongColumn c = Columns.longs("c", ROWS);
+        final DoubleColumn d = Columns.doubles("d", ROWS, Storage.OFF_HEAP);
+        for (int i = 0; i < ROWS; ++i) {
+            a.setDouble(i, random.nextGaussian() * 10d);
+            b.setInt(i, random.nextInt(200) - 100);
+            c.setLong(i, random.nextInt(1000000));
+            d.setDouble(i, random.nextDouble() * 4d + 0.5d);
+            if (random.nextInt(10) == 0) {
+                a.setNull(i);
+            }
+            if (random.nextInt(15) == 0) {
+                d.setNull(i);
+            }
+        }
+        return DataFrame.of(a, b, c, d);
+    }
+
+    /**
+     * Returns the value of a column of the test frame at a row, or null
+     */
+    private static Double value(String name, int row) {
+        return FRAME.column(name).isNull(row) ? null : FRAME.numeric(name).getDouble(row);
+    }
+
+    /**
+     * Returns a random expression tree of the depth specified, paired with its reference
+     */
+    private static Case random(Random random, int depth) {
+        if (depth == 0 || random.nextInt(5) == 0) {
+            if (random.nextInt(4) == 0) {
+                final double constant = random.nextInt(9) - 4 + 0.5d;
+                return new Case(Expression.lit(constant), row -> constant);
+            }
+            final String name = "abcd".substring(random.nextInt(4)).substring(0, 1);
+            return new Case(Expression.col(name), row -> value(name, row));
+        }
+        final Case x = random(random, depth - 1);
+        final Case y = random(random, depth - 1);
+        switch (random.nextInt(16)) {
+            case 0:     return binary(x.expression.add(y.expression), x, y, Double::sum);
+            case 1:     return binary(x.expression.subtract(y.expression), x, y, (p, q) -> p - q);
+            case 2:     return binary(x.expression.multiply(y.expression), x, y, (p, q) -> p * q);
+            case 3:     return binary(x.expression.divide(y.expression), x, y, (p, q) -> p / q);
+            case 4:     return binary(x.expression.min(y.expression), x, y, Math::min);
+            case 5:     return binary(x.expression.max(y.expression), x, y, Math::max);
+            case 6:     return binary(x.expression.pow(2d), x, x, (p, q) -> Math.pow(p, 2d));
+            case 7:     return unary(x.expression.negate(), x, p -> -p);
+            case 8:     return unary(x.expression.abs(), x, Math::abs);
+            case 9:     return unary(x.expression.abs().sqrt(), x, p -> Math.sqrt(Math.abs(p)));
+            case 10:    return unary(x.expression.abs().add(1d).log(), x, p -> Math.log(Math.abs(p) + 1d));
+            case 11:    return unary(x.expression.divide(100d).exp(), x, p -> Math.exp(p / 100d));
+            case 12:    return unary(x.expression.floor(), x, Math::floor);
+            case 13:    return unary(x.expression.ceil(), x, Math::ceil);
+            case 14:    return new Case(x.expression.coalesce(y.expression), row -> {
+                final Double p = x.reference.apply(row);
+                return p != null ? p : y.reference.apply(row);
+            });
+            default:
+                final Case z = random(random, depth - 1);
+                return new Case(Expression.when(x.expression.gt(y.expression), y.expression, z.expression), row -> {
+                    final Double p = x.reference.apply(row);
+                    final Double q = y.reference.apply(row);
+                    return p != null && q != null && p > q ? q : z.reference.apply(row);
+                });
+        }
+    }
+
+    /**
+     * Returns a case for a binary operation that is null where either operand is null
+     */
+    private static Case binary(Expression expression, Case x, Case y, DoubleBinaryOperator operator) {
+        return new Case(expression, row -> {
+            final Double p = x.reference.apply(row);
+            final Double q = y.reference.apply(row);
+            return p == null || q == null ? null : operator.applyAsDouble(p, q);
+        });
+    }
+
+    /**
+     * Returns a case for a unary operation that is null where its operand is null
+     */
+    private static Case unary(Expression expression, Case x, DoubleUnaryOperator operator) {
+        return new Case(expression, row -> {
+            final Double p = x.reference.apply(row);
+            return p == null ? null : operator.applyAsDouble(p);
+        });
+    }
+
+    /**
+     * Asserts a result column holds the values and nulls of the reference
+     */
+    private static void assertMatches(Case expected, DoubleColumn actual) {
+        assertEquals(ROWS, actual.length());
+        for (int i = 0; i < ROWS; ++i) {
+            final Double value = expected.reference.apply(i);
+            final String message = expected.expression + " row " + i;
+            assertEquals(value == null, actual.isNull(i), message);
+            if (value != null && Double.isFinite(value)) {
+                assertEquals(value, actual.getDouble(i), 1e-9 * Math.max(1d, Math.abs(value)), message);
+            } else if (value != null) {
+                assertEquals(value, actual.getDouble(i), message);
+            }
+        }
+    }
+
+    /**
+     * Returns the rows of the test frame that satisfy the condition specified
+     */
+    private static int[] rows(IntPredicate condition) {
+        final List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < ROWS; ++i) {
+            if (condition.test(i)) {
+                rows.add(i);
+            }
+        }
+        return rows.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @AfterEach
+    public void restoreCodegen() {
+        LoopCompiler.setEnabled(true);
+    }
+
+    @Test
+    public void randomExpressionsMatchReference() {
+        final Random random = new Random(3L);
+        for (int n = 0; n < 150; ++n) {
+            final Case expected = random(random, 4);
+            for (boolean codegen : new boolean[] {true, false}) {
+                LoopCompiler.setEnabled(codegen);
+                final CompiledExpression compiled = expected.expression.compile(FRAME);
+                assertMatches(expected, compiled.setParallelism(1).evaluate("x"));
+                assertMatches(expected, compiled.setParallelism(4).evaluate("x", Storage.OFF_HEAP));
+                assertEquals(codegen, LoopCompiler.isEnabled());
+            }
+        }
+    }
+
+    @Test
+    public void sharedSubtreesAndConstantFolding() {
+        final Expression shared = Expression.col("a").multiply(Expression.col("b")).add(1d);
+        final Expression expression = shared.multiply(shared).subtract(shared.divide(Expression.lit(2d).add(Expression.lit(2d))));
+        final Case expected = new Case(expression, row -> {
+            final Double a = value("a", row);
+            final double s = a == null ? 0d : a * value("b", row) + 1d;
+            return a == null ? null : s * s - s / 4d;
+        });
+        assertMatches(expected, expression.evaluate(FRAME, "x"));
+        final DoubleColumn constant = Expression.lit(3d).multiply(Expression.lit(2d)).add(1d).evaluate(FRAME, "k");
+        assertEquals(ROWS, constant.length());
+        assertEquals(7d, constant.getDouble(ROWS - 1));
+        final DataFrame derived = FRAME.withColumn("x", expression);
+        assertEquals(5, derived.columnCount());
+        assertMatches(expected, derived.doubles("x"));
+    }
+
+    @Test
+    public void wideExpressionsFallBackToKernels() {
+        Expression wide = Expression.col("c");
+        for (int i = 0; i < 150; ++i) {
+            wide = wide.add(Expression.col(i % 2 == 0 ? "b" : "c").multiply(i));
+        }
+        final Expression expression = wide;
+        final Case expected = new Case(expression, row -> {
+            double sum = value("c", row);
+            for (int i = 0; i < 150; ++i) {
+                sum += value(i % 2 == 0 ? "b" : "c", row) * i;
+            }
+            return sum;
+        });
+        assertMatches(expected, expression.evaluate(FRAME, "w"));
+    }
+
+    @Test
+    public void conditionsFilterFrames() {
+        final Condition gt = Expression.col("a").add(Expression.col("b")).gt(Expression.col("d").multiply(2d));
+        final IntPredicate reference = row -> value("a", row) != null && value("d", row) != null && value("a", row) + value("b", row) > value("d", row) * 2d;
+        assertArrayEquals(rows(reference), gt.select(FRAME));
+        assertArrayEquals(rows(reference.negate()), gt.negate().select(FRAME));
+        assertArrayEquals(rows(row -> value("a", row) == null), Expression.col("a").isNull().select(FRAME));
+        assertArrayEquals(rows(row -> value("d", row) != null && value("d", row) <= 1d), Expression.col("d").le(1d).select(FRAME));
+        final Predicate combined = gt.and(Predicate.lt("c", 500000));
+        assertArrayEquals(rows(row -> reference.test(row) && value("c", row) < 500000), combined.select(FRAME));
+        final Expression when = Expression.when(Predicate.gt("b", 0), Expression.col("a"), Expression.lit(-1d));
+        assertMatches(new Case(when, row -> value("b", row) > 0 ? value("a", row) : Double.valueOf(-1d)), when.evaluate(FRAME, "w"));
+    }
+
+    @Test
+    public void invalidColumns() {
+        final DataFrame strings = DataFrame.of(Columns.strings("s", 3), Columns.ofDoubles("v", 1, 2, 3));
+        assertThrows(DataFrameException.class, () -> Expression.col("missing").evaluate(FRAME, "x"));
+        assertThrows(DataFrameException.class, () -> Expression.col("s").add(Expression.col("v")).compile(strings));
+        assertTrue(Expression.col("a").add(Expression.col("b")).columns().containsAll(List.of("a", "b")));
+        assertNotNull(Expression.col("a").compile(DataFrame.of(Columns.doubles("a", 0))).evaluate("x"));
+    }
+}
@@ -0,0 +1,137 @@
+package com.zavtech.morpheus.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+import org.junit.jupiter.api.Test;
+
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.IntColumn;
+import com.zavtech.morpheus.column.StringColumn;
+import com.zavtech.morpheus.frame.DataFrame;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests of predicate evaluation, combination and decomposition against row by row references
+ */
+public class PredicateTest {
+
+    private static final int ROWS = 1000;
+
+    private static final DataFrame FRAME = frame();
+
+    /**
+     * Returns a frame with an int column, a double column with nulls and a string column with nulls
+     */
+    private static DataFrame frame() {
+        final IntColumn ints = Columns.ints("i", ROWS);
+        final DoubleColumn doubles = Columns.doubles("d", ROWS);
+        final StringColumn strings = Columns.strings("s", ROWS);
+        for (int i = 0; i < ROWS; ++i) {
+            ints.setInt(i, (i * 31) % 100);
+            doubles.setDouble(i, ((i * 7919) % 200) / 10d);
+            strings.setString(i, "s" + (i % 5));
+            if (i % 9 == 0) {
+                doubles.setNull(i);
+            }
+            if (i % 11 == 0) {
+                strings.setNull(i);
+            }
+        }
+        return DataFrame.of(ints, doubles, strings);
+    }
+
+    /**
+     * Returns the ascending rows of the test frame that satisfy the condition specified
+     */
+    private static int[] rows(IntPredicate condition) {
+        final List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < ROWS; ++i) {
+            if (condition.test(i)) {
+                rows.add(i);
+            }
+        }
+        return rows.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Returns the double value at the row specified, or NaN when null
+     */
+    private static double d(int row) {
+        return FRAME.column("d").isNull(row) ? Double.NaN : FRAME.doubles("d").getDouble(row);
+    }
+
+    /**
+     * Returns the int value at the row specified
+     */
+    private static int i(int row) {
+        return FRAME.ints("i").getInt(row);
+    }
+
+    /**
+     * Returns the string value at the row specified, which may be null
+     */
+    private static String s(int row) {
+        return FRAME.strings("s").getString(row);
+    }
+
+    @Test
+    public void numericComparisonsExcludeNulls() {
+        assertArrayEquals(rows(r -> d(r) == 5d), Predicate.eq("d", 5).select(FRAME));
+        assertArrayEquals(rows(r -> !Double.isNaN(d(r)) && d(r) != 5d), Predicate.ne("d", 5).select(FRAME));
+        assertArrayEquals(rows(r -> d(r) < 7.5), Predicate.lt("d", 7.5).select(FRAME));
+        assertArrayEquals(rows(r -> d(r) <= 7.5), Predicate.le("d", 7.5).select(FRAME));
+        assertArrayEquals(rows(r -> d(r) > 12), Predicate.gt("d", 12).select(FRAME));
+        assertArrayEquals(rows(r -> d(r) >= 12), Predicate.ge("d", 12).select(FRAME));
+        assertArrayEquals(rows(r -> i(r) > 40), Predicate.gt("i", 40).select(FRAME));
+        assertArrayEquals(rows(r -> i(r) == 62), Predicate.eq("i", 62).select(FRAME));
+    }
+
+    @Test
+    public void stringAndNullPredicates() {
+        assertArrayEquals(rows(r -> "s2".equals(s(r))), Predicate.eq("s", "s2").select(FRAME));
+        assertArrayEquals(rows(r -> "s1".equals(s(r)) || "s3".equals(s(r))), Predicate.in("s", "s1", "s3", "absent").select(FRAME));
+        assertArrayEquals(rows(r -> s(r) == null), Predicate.isNull("s").select(FRAME));
+        assertArrayEquals(rows(r -> !Double.isNaN(d(r))), Predicate.notNull("d").select(FRAME));
+        assertArrayEquals(new int[0], Predicate.eq("s", "absent").select(FRAME));
+    }
+
+    @Test
+    public void combinators() {
+        final Predicate and = Predicate.gt("i", 20).and(Predicate.lt("d", 10));
+        final Predicate or = Predicate.eq("s", "s0").or(Predicate.isNull("d"));
+        assertArrayEquals(rows(r -> i(r) > 20 && d(r) < 10), and.select(FRAME));
+        assertArrayEquals(rows(r -> "s0".equals(s(r)) || Double.isNaN(d(r))), or.select(FRAME));
+        assertArrayEquals(rows(r -> !(i(r) > 20 && d(r) < 10)), and.negate().select(FRAME));
+        assertArrayEquals(rows(r -> (i(r) > 20 && d(r) < 10) && !("s0".equals(s(r)) || Double.isNaN(d(r)))), and.and(or.negate()).select(FRAME));
+    }
+
+    @Test
+    public void evaluateWithCandidates() {
+        final long[] candidates = Bitsets.fromRows(rows(r -> r % 3 == 0), ROWS);
+        final long[] copy = candidates.clone();
+        final long[] words = Predicate.gt("i", 50).evaluate(FRAME, candidates);
+        assertArrayEquals(rows(r -> r % 3 == 0 && i(r) > 50), Bitsets.toRows(words));
+        assertArrayEquals(copy, candidates);
+        assertEquals(rows(r -> i(r) > 50).length, Bitsets.cardinality(Predicate.gt("i", 50).evaluate(FRAME)));
+    }
+
+    @Test
+    public void conjunctsAndColumns() {
+        final Predicate a = Predicate.gt("d", 1);
+        final Predicate b = Predicate.lt("i", 4);
+        final Predicate c = Predicate.eq("s", "s1");
+        final Predicate chain = a.and(b).and(c);
+        assertEquals(Arrays.asList(a, b, c), chain.conjuncts());
+        assertEquals(Set.of("d", "i", "s"), chain.columns());
+        assertEquals(List.of(a), a.conjuncts());
+        assertEquals(1, a.or(b).conjuncts().size());
+        assertArrayEquals(chain.select(FRAME), Predicate.allOf(chain.conjuncts()).select(FRAME));
+    }
+}
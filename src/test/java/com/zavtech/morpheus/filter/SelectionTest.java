@@ -0,0 +1,203 @@
+package com.zavtech.morpheus.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.IntColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.column.StringColumn;
+import com.zavtech.morpheus.expr.Expression;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.stats.Moments;
+import com.zavtech.morpheus.stats.Stats;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that predicates evaluated over candidate rows agree with full evaluation, and of selections built from them
+ */
+public class SelectionTest {
+
+    private static final int ROWS = 20000;
+
+    /**
+     * Returns a frame with heap and off-heap numeric columns and a string column, with nulls
+     */
+    private static DataFrame frame(long seed) {
+        final Random random = new Random(seed);
+        final DoubleColumn d = Columns.doubles("d", ROWS);
+        final DoubleColumn o = Columns.doubles("o", ROWS, Storage.OFF_HEAP);
+        final LongColumn l = Columns.longs("l", ROWS);
+        final IntColumn i = Columns.ints("i", ROWS, Storage.OFF_HEAP);
+        final StringColumn s = Columns.strings("s", ROWS);
+        for (int row = 0; row < ROWS; ++row) {
+            d.setDouble(row, random.nextDouble() * 100d);
+            o.setDouble(row, random.nextGaussian());
+            l.setLong(row, random.nextInt(1000) - 500);
+            i.setInt(row, random.nextInt(10));
+            s.setString(row, "v" + random.nextInt(8));
+            if (random.nextInt(20) == 0) {
+                d.setNull(row);
+            }
+            if (random.nextInt(7) == 0) {
+                o.setNull(row);
+            }
+            if (random.nextInt(30) == 0) {
+                s.setNull(row);
+            }
+        }
+        return DataFrame.of(d, o, l, i, s);
+    }
+
+    /**
+     * Returns candidate bitsets of a range of densities, including empty and full, and runs of whole empty and full words
+     */
+    private static List<long[]> candidates(Random random) {
+        final List<long[]> result = new ArrayList<>();
+        for (double density : new double[] {0d, 0.001d, 0.02d, 0.3d, 0.9d, 1d}) {
+            final long[] words = Bitsets.create(ROWS);
+            for (int row = 0; row < ROWS; ++row) {
+                if (random.nextDouble() < density) {
+                    words[row >>> 6] |= 1L << row;
+                }
+            }
+            result.add(words);
+        }
+        final long[] blocks = Bitsets.create(ROWS);
+        for (int row = 0; row < ROWS; ++row) {
+            if ((row / 3000) % 2 == 1) {
+                blocks[row >>> 6] |= 1L << row;
+            }
+        }
+        result.add(blocks);
+        return result;
+    }
+
+    /**
+     * Returns the intersection of two bitsets as a new bitset
+     */
+    private static long[] and(long[] left, long[] right) {
+        final long[] result = left.clone();
+        Bitsets.and(result, right);
+        return result;
+    }
+
+    @Test
+    public void candidateEvaluationMatchesFullEvaluation() {
+        final DataFrame frame = frame(1L);
+        final Predicate[] predicates = {
+            Predicate.gt("d", 50),
+            Predicate.le("o", -0.5),
+            Predicate.ne("l", 0),
+            Predicate.eq("i", 3),
+            Predicate.in("s", "v1", "v5"),
+            Predicate.isNull("d"),
+            Predicate.notNull("s"),
+            Predicate.gt("d", 25).and(Predicate.lt("o", 0)).and(Predicate.in("s", "v2")),
+            Predicate.lt("l", -400).or(Predicate.gt("d", 99)).or(Predicate.isNull("o")),
+            Predicate.ge("i", 5).negate(),
+            Predicate.gt("d", 10).and(Predicate.eq("s", "v0").negate()).or(Predicate.lt("o", -2)),
+            Expression.col("d").add(Expression.col("o")).gt(Expression.col("l").divide(10d))
+        };
+        for (long[] candidates : candidates(new Random(2L))) {
+            final long[] copy = candidates.clone();
+            for (Predicate predicate : predicates) {
+                final long[] expected = and(predicate.evaluate(frame), candidates);
+                assertArrayEquals(expected, predicate.evaluate(frame, candidates), predicate + " density " + Bitsets.cardinality(candidates));
+            }
+            assertArrayEquals(copy, candidates);
+        }
+    }
+
+    @Test
+    public void selectionsCombineAsSets() {
+        final DataFrame frame = frame(3L);
+        final Selection a = frame.where(Predicate.gt("d", 40));
+        final Selection b = Selection.of(frame, Predicate.in("s", "v3", "v4"));
+        final Selection all = Selection.all(frame);
+        assertEquals(ROWS, all.count());
+        assertArrayEquals(Predicate.gt("d", 40).and(Predicate.in("s", "v3", "v4")).select(frame), a.and(b).rows());
+        assertArrayEquals(Predicate.gt("d", 40).or(Predicate.in("s", "v3", "v4")).select(frame), a.or(b).rows());
+        assertArrayEquals(Predicate.gt("d", 40).and(Predicate.in("s", "v3", "v4").negate()).select(frame), a.andNot(b).rows());
+        assertArrayEquals(Predicate.gt("d", 40).negate().select(frame), a.negate().rows());
+        assertEquals(ROWS, a.count() + a.negate().count());
+        assertArrayEquals(a.and(b).rows(), a.filter(Predicate.in("s", "v3", "v4")).rows());
+        final List<Integer> visited = new ArrayList<>();
+        b.forEach(visited::add);
+        assertArrayEquals(b.rows(), visited.stream().mapToInt(Integer::intValue).toArray());
+        for (int row : new int[] {0, 1, 777, ROWS - 1}) {
+            assertEquals(Arrays.binarySearch(a.rows(), row) >= 0, a.contains(row));
+        }
+        assertFalse(a.contains(-1));
+        assertFalse(a.contains(ROWS));
+        final int[] rows = {3, 64, 65, 19999};
+        final Selection explicit = Selection.of(frame, rows);
+        assertArrayEquals(rows, explicit.rows());
+        assertTrue(explicit.and(Selection.of(frame, new int[] {4})).isEmpty());
+        final DataFrame taken = explicit.toFrame();
+        assertEquals(4, taken.rowCount());
+        assertEquals(frame.longs("l").getLong(65), taken.longs("l").getLong(2));
+        assertThrows(IllegalArgumentException.class, () -> a.and(Selection.all(frame(3L))));
+    }
+
+    @Test
+    public void momentsOfSelectedRows() {
+        final DataFrame frame = frame(4L);
+        for (Selection selection : List.of(frame.where(Predicate.lt("l", 0)), frame.where(Predicate.eq("i", 9)), Selection.of(frame, new int[0]))) {
+            for (String name : List.of("d", "o", "l", "i")) {
+                final Moments expected = new Moments();
+                selection.forEach(row -> {
+                    if (!frame.column(name).isNull(row)) {
+                        expected.add(frame.numeric(name).getDouble(row));
+                    }
+                });
+                final Moments actual = Stats.moments(frame.numeric(name), selection);
+                assertEquals(expected.count(), actual.count(), name);
+                assertEquals(expected.sum(), actual.sum(), 1e-9 * Math.max(1d, Math.abs(expected.sum())), name);
+                if (expected.count() > 1) {
+                    assertEquals(expected.variance(), actual.variance(), 1e-9 * Math.max(1d, expected.variance()), name);
+                    assertEquals(expected.min(), actual.min(), name);
+                    assertEquals(expected.max(), actual.max(), name);
+                }
+            }
+        }
+        final Selection selection = frame.where(Predicate.gt("d", 50));
+        final int count = selection.count();
+        Stats.moments(frame.numeric("o"), selection);
+        assertEquals(count, selection.count());
+        assertThrows(IllegalArgumentException.class, () -> Stats.moments(Columns.ofDoubles("x", 1, 2), selection));
+    }
+
+    @Test
+    public void bitsetHelpers() {
+        final long[] words = Bitsets.full(130);
+        assertEquals(3, words.length);
+        assertEquals(130, Bitsets.cardinality(words));
+        assertEquals(66, Bitsets.cardinality(words, 1, 3));
+        final int[] rows = {0, 5, 63, 64, 127, 129};
+        final long[] sparse = Bitsets.fromRows(rows, 130);
+        assertArrayEquals(rows, Bitsets.toRows(sparse));
+        assertTrue(Bitsets.isEmpty(Bitsets.create(130)));
+        final double[] values = new double[130];
+        Arrays.setAll(values, i -> i);
+        final double[] out = new double[130];
+        assertEquals(6, Bitsets.compact(sparse, 0, values, 0, 130, out));
+        assertArrayEquals(new double[] {0, 5, 63, 64, 127, 129}, Arrays.copyOf(out, 6));
+        assertEquals(130, Bitsets.compact(words, 0, values, 0, 130, out));
+        assertArrayEquals(values, out);
+        final long[] tail = {-1L, -1L, -1L};
+        Bitsets.clearTail(tail, 130);
+        assertArrayEquals(words, tail);
+    }
+}
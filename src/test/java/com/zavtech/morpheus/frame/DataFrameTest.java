@@ -0,0 +1,113 @@
+package com.zavtech.morpheus.frame;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.zavtech.morpheus.column.BooleanColumn;
+import com.zavtech.morpheus.column.ColumnType;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.IntColumn;
+import com.zavtech.morpheus.column.LongColumn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the structure and typed column access of a DataFrame
+ */
+public class DataFrameTest {
+
+    /**
+     * Returns a small frame with one column of each primitive type
+     */
+    private static DataFrame frame() {
+        return DataFrame.of(
+            Columns.ofInts("id", 1, 2, 3, 4),
+            Columns.ofLongs("volume", 100L, 200L, 300L, 400L),
+            Columns.ofDoubles("price", 1.5d, 2.5d, 3.5d, 4.5d),
+            Columns.ofBooleans("flag", true, false, true, true)
+        );
+    }
+
+    @Test
+    public void testShapeAndLookup() {
+        final DataFrame frame = frame();
+        assertEquals(4, frame.rowCount());
+        assertEquals(4, frame.columnCount());
+        assertEquals(Arrays.asList("id", "volume", "price", "flag"), frame.columnNames());
+        assertEquals(2, frame.ordinal("price"));
+        assertTrue(frame.hasColumn("flag"));
+        assertFalse(frame.hasColumn("missing"));
+        assertEquals(ColumnType.LONG, frame.column("volume").type());
+        assertEquals(3.5d, frame.doubles("price").getDouble(2), 0d);
+        assertEquals(3, frame.booleans("flag").cardinality());
+    }
+
+    @Test
+    public void testTypedAccessorsCheckType() {
+        final DataFrame frame = frame();
+        assertThrows(DataFrameException.class, () -> frame.longs("id"));
+        assertThrows(DataFrameException.class, () -> frame.numeric("flag"));
+        assertThrows(DataFrameException.class, () -> frame.column("missing"));
+    }
+
+    @Test
+    public void testInvalidConstruction() {
+        assertThrows(DataFrameException.class, () -> DataFrame.of(Columns.ofInts("a", 1, 2), Columns.ofInts("b", 1)));
+        assertThrows(DataFrameException.class, () -> DataFrame.of(Columns.ofInts("a", 1), Columns.ofLongs("a", 1L)));
+    }
+
+    @Test
+    public void testSelectDropAndReplaceShareColumns() {
+        final DataFrame frame = frame();
+        final DataFrame selected = frame.select("price", "id");
+        assertEquals(Arrays.asList("price", "id"), selected.columnNames());
+        assertSame(frame.column("id"), selected.column("id"));
+        assertEquals(Arrays.asList("id", "flag"), frame.drop("volume", "price").columnNames());
+        final DataFrame replaced = frame.withColumn(Columns.ofInts("id", 9, 8, 7, 6));
+        assertEquals(0, replaced.ordinal("id"));
+        assertEquals(9, replaced.ints("id").getInt(0));
+        assertEquals(1, frame.ints("id").getInt(0));
+    }
+
+    @Test
+    public void testTakeAndHead() {
+        final DataFrame taken = frame().take(new int[] {3, 0, -1});
+        assertEquals(3, taken.rowCount());
+        final LongColumn volume = taken.longs("volume");
+        assertEquals(400L, volume.getLong(0));
+        assertEquals(100L, volume.getLong(1));
+        assertTrue(volume.isNull(2));
+        final BooleanColumn flag = taken.booleans("flag");
+        assertTrue(flag.getBoolean(0));
+        assertTrue(flag.isNull(2));
+        final IntColumn head = frame().head(2).ints("id");
+        assertEquals(2, head.length());
+        assertEquals(2, head.getInt(1));
+        assertEquals(4, frame().head(10).rowCount());
+    }
+
+    @Test
+    public void testConcat() {
+        final DataFrame frame = DataFrame.concat(Arrays.asList(frame(), frame().head(1)));
+        assertEquals(5, frame.rowCount());
+        assertEquals(1, frame.ints("id").getInt(4));
+        assertThrows(DataFrameException.class, () -> DataFrame.concat(Arrays.asList(frame(), frame().drop("id"))));
+    }
+
+    @Test
+    public void testBooleanBitsAcrossWords() {
+        final BooleanColumn column = Columns.booleans("bits", 200);
+        for (int i = 0; i < 200; i += 3) {
+            column.setBoolean(i, true);
+        }
+        column.setBoolean(63, false);
+        assertEquals(66, column.cardinality());
+        assertTrue(column.getBoolean(126));
+        assertFalse(column.getBoolean(127));
+    }
+}
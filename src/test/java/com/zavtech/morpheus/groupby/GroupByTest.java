@@ -0,0 +1,245 @@
+package com.zavtech.morpheus.groupby;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.IntColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.StringColumn;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.profile.OperatorProfile;
+import com.zavtech.morpheus.profile.Profiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of hash group-by aggregation against a map based reference, in parallel and with spilling
+ */
+public class GroupByTest {
+
+    @TempDir
+    Path folder;
+
+    /**
+     * Returns a frame with an int key, a string key with nulls and a double value with nulls
+     */
+    private static DataFrame frame(int rows) {
+        final IntColumn region = Columns.ints("region", rows);
+        final StringColumn symbol = Columns.strings("symbol", rows);
+        final DoubleColumn price = Columns.doubles("price", rows);
+        for (int i = 0; i < rows; ++i) {
+            region.setInt(i, (i * 31) % 7);
+            symbol.setString(i, i % 11 == 0 ? null : "S" + (i * 17) % 23);
+            price.setDouble(i, (i % 101) - 50.5d);
+            if (i % 13 == 0) {
+                price.setNull(i);
+            }
+        }
+        return DataFrame.of(region, symbol, price);
+    }
+
+    /**
+     * Returns the expected sum, count, min, max, first and last of price per region and symbol, in order of first appearance
+     */
+    private static Map<List<Object>,double[]> expected(DataFrame frame) {
+        final Map<List<Object>,double[]> result = new LinkedHashMap<>();
+        for (int i = 0; i < frame.rowCount(); ++i) {
+            final List<Object> key = Arrays.asList(frame.column("region").getValue(i), frame.column("symbol").getValue(i));
+            final double[] state = result.computeIfAbsent(key, k -> new double[] {0d, 0d, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN, Double.NaN, 0d});
+            state[6]++;
+            if (!frame.column("price").isNull(i)) {
+                final double value = frame.doubles("price").getDouble(i);
+                state[0] += value;
+                state[1]++;
+                state[2] = Math.min(state[2], value);
+                state[3] = Math.max(state[3], value);
+                state[4] = Double.isNaN(state[4]) ? value : state[4];
+                state[5] = value;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Asserts that a grouped frame matches the reference aggregation of the frame specified
+     */
+    private static void assertGroups(DataFrame frame, DataFrame result) {
+        final Map<List<Object>,double[]> expected = expected(frame);
+        assertEquals(expected.size(), result.rowCount());
+        int row = 0;
+        for (Map.Entry<List<Object>,double[]> entry : expected.entrySet()) {
+            final double[] state = entry.getValue();
+            assertEquals(entry.getKey(), Arrays.asList(result.column("region").getValue(row), result.column("symbol").getValue(row)));
+            assertEquals(state[0], result.numeric("sum").getDouble(row), 1e-9);
+            assertEquals(state[1], result.numeric("count").getDouble(row), 0d);
+            assertEquals(state[6], result.numeric("rows").getDouble(row), 0d);
+            if (state[1] > 0) {
+                assertEquals(state[0] / state[1], result.numeric("mean").getDouble(row), 1e-9);
+                assertEquals(state[2], result.numeric("min").getDouble(row), 0d);
+                assertEquals(state[3], result.numeric("max").getDouble(row), 0d);
+                assertEquals(state[4], result.numeric("first").getDouble(row), 0d);
+                assertEquals(state[5], result.numeric("last").getDouble(row), 0d);
+            }
+            row++;
+        }
+    }
+
+    /**
+     * Returns the aggregates checked by assertGroups()
+     */
+    private static Aggregate[] aggregates() {
+        return new Aggregate[] {
+            Aggregate.sum("price").as("sum"),
+            Aggregate.count("price").as("count"),
+            Aggregate.count().as("rows"),
+            Aggregate.mean("price").as("mean"),
+            Aggregate.min("price").as("min"),
+            Aggregate.max("price").as("max"),
+            Aggregate.first("price").as("first"),
+            Aggregate.last("price").as("last")
+        };
+    }
+
+    @Test
+    public void testSequentialAndParallel() {
+        final DataFrame frame = frame(200000);
+        assertGroups(frame, GroupBy.of(frame, "region", "symbol").setParallelism(1).aggregate(aggregates()));
+        assertGroups(frame, GroupBy.of(frame, "region", "symbol").setParallelism(8).aggregate(aggregates()));
+    }
+
+    @Test
+    public void testSpillToDisk() throws IOException {
+        final DataFrame frame = frame(100000);
+        final OperatorProfile profile = Profiler.enter("GroupBy");
+        final DataFrame result = GroupBy.of(frame, "region", "symbol")
+            .setParallelism(4)
+            .setMemoryBudget(1024)
+            .setSpillDirectory(folder)
+            .aggregate(aggregates());
+        Profiler.exit(profile, result.rowCount());
+        assertTrue(profile.spillBytes() > 0L);
+        assertGroups(frame, result);
+        try (Stream<Path> files = Files.list(folder)) {
+            assertEquals(0L, files.count(), "spill files are deleted");
+        }
+    }
+
+    @Test
+    public void testSingleKeyOrderOfFirstAppearance() {
+        final DataFrame frame = DataFrame.of(Columns.ofLongs("k", 5L, 3L, 5L, 9L, 3L), Columns.ofDoubles("v", 1d, 2d, 3d, 4d, 5d));
+        final DataFrame result = GroupBy.of(frame, "k").aggregate(Aggregate.sum("v"));
+        assertEquals(Arrays.asList(5L, 3L, 9L), Arrays.asList(result.column(0).getValue(0), result.column(0).getValue(1), result.column(0).getValue(2)));
+        assertEquals(Arrays.asList(4d, 7d, 4d), Arrays.asList(result.numeric(result.columnNames().get(1)).getDouble(0), result.numeric(result.columnNames().get(1)).getDouble(1), result.numeric(result.columnNames().get(1)).getDouble(2)));
+    }
+
+    @Test
+    public void testEmptyFrameAndErrors() {
+        final DataFrame frame = frame(0);
+        assertEquals(0, GroupBy.of(frame, "region").aggregate(Aggregate.sum("price")).rowCount());
+        assertThrows(DataFrameException.class, () -> GroupBy.of(frame));
+        assertThrows(DataFrameException.class, () -> GroupBy.of(frame, "missing").aggregate(Aggregate.count()));
+        assertThrows(IllegalArgumentException.class, () -> GroupBy.of(frame, "region").setMemoryBudget(0));
+        final List<String> names = new ArrayList<>(GroupBy.of(frame(10), "region").aggregate(Aggregate.count(), Aggregate.max("price")).columnNames());
+        assertEquals(3, names.size());
+        assertTrue(names.stream().allMatch(Objects::nonNull));
+    }
+
+    @Test
+    public void testNullKeysAreDistinctFromMinValue() throws IOException {
+        final LongColumn keys = Columns.longs("k", 30000);
+        final DoubleColumn values = Columns.doubles("v", 30000);
+        for (int i = 0; i < keys.length(); ++i) {
+            keys.setLong(i, i % 3 == 0 ? Long.MIN_VALUE : i % 100);
+            values.setDouble(i, 1d);
+            if (i % 3 == 1) {
+                keys.setNull(i);
+            }
+        }
+        final DataFrame frame = DataFrame.of(keys, values);
+        final List<DataFrame> results = Arrays.asList(
+            GroupBy.of(frame, "k").setParallelism(1).aggregate(Aggregate.sum("v")),
+            GroupBy.of(frame, "k").setParallelism(4).setMemoryBudget(1024).setSpillDirectory(folder).aggregate(Aggregate.sum("v")),
+            IncrementalGroupBy.of(frame, Arrays.asList("k"), Aggregate.sum("v")).update(frame.head(1000)).update(frame.take(range(1000, 30000))).result()
+        );
+        for (DataFrame result : results) {
+            assertEquals(Long.MIN_VALUE, result.column("k").getValue(0));
+            assertEquals(null, result.column("k").getValue(1));
+            assertEquals(10000d, result.numeric("v_sum").getDouble(0), 0d);
+            assertEquals(10000d, result.numeric("v_sum").getDouble(1), 0d);
+            assertEquals(2 + 100, result.rowCount());
+            for (int row = 2; row < result.rowCount(); ++row) {
+                assertTrue(!result.column("k").isNull(row) && result.longs("k").getLong(row) != Long.MIN_VALUE);
+            }
+        }
+    }
+
+    @Test
+    public void testApproximateAggregates() {
+        final LongColumn keys = Columns.longs("k", 120000);
+        final DoubleColumn values = Columns.doubles("v", 120000);
+        for (int i = 0; i < keys.length(); ++i) {
+            final int key = i % 6;
+            keys.setLong(i, key);
+            values.setDouble(i, (i / 6) % 3 == 0 ? key * 10d : (i * 7919L) % (1000 * (key + 1)));
+            if (i % 29 == 0) {
+                values.setNull(i);
+            }
+        }
+        final DataFrame frame = DataFrame.of(keys, values);
+        final Aggregate[] aggregates = {Aggregate.approxDistinct("v"), Aggregate.approxQuantile("v", 0.9d), Aggregate.approxTop("v")};
+        final List<DataFrame> results = Arrays.asList(
+            GroupBy.of(frame, "k").setParallelism(1).aggregate(aggregates),
+            GroupBy.of(frame, "k").setParallelism(4).setMemoryBudget(1024).setSpillDirectory(folder).aggregate(aggregates),
+            IncrementalGroupBy.of(frame, Arrays.asList("k"), aggregates).update(frame.head(50000)).update(frame.take(range(50000, 120000))).result()
+        );
+        for (DataFrame result : results) {
+            assertEquals(Arrays.asList("k", "v_approx_distinct", "v_p90", "v_approx_top"), result.columnNames());
+            assertEquals(6, result.rowCount());
+            for (int row = 0; row < 6; ++row) {
+                final long key = result.longs("k").getLong(row);
+                final List<Double> group = new ArrayList<>();
+                for (int i = (int)key; i < keys.length(); i += 6) {
+                    if (!values.isNull(i)) {
+                        group.add(values.getDouble(i));
+                    }
+                }
+                group.sort(null);
+                final long distinct = group.stream().distinct().count();
+                final double quantile = result.numeric("v_p90").getDouble(row);
+                final long below = group.stream().filter(v -> v <= quantile).count();
+                assertEquals(distinct, result.numeric("v_approx_distinct").getDouble(row), distinct * 0.05d, "key " + key);
+                assertEquals(0.9d, (double)below / group.size(), 0.02d, "key " + key);
+                assertEquals(key * 10d, result.numeric("v_approx_top").getDouble(row), 0d, "key " + key);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> Aggregate.approxQuantile("v", 1.5d));
+        assertEquals("v_p99.5", Aggregate.approxQuantile("v", 0.995d).name());
+    }
+
+    /**
+     * Returns the row indexes in [from, to)
+     */
+    private static int[] range(int from, int to) {
+        final int[] rows = new int[to - from];
+        for (int i = 0; i < rows.length; ++i) {
+            rows[i] = from + i;
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,155 @@
+package com.zavtech.morpheus.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.StringColumn;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of hash and sorted row indexes against a tree map of key to rows
+ */
+public class RowIndexTest {
+
+    /**
+     * Returns a long column of random keys with duplicates, including negative values
+     */
+    private static LongColumn keys(int rows, int range, long seed) {
+        final Random random = new Random(seed);
+        final LongColumn column = Columns.longs("key", rows);
+        for (int i = 0; i < rows; ++i) {
+            column.setLong(i, random.nextInt(range) - range / 2);
+        }
+        return column;
+    }
+
+    /**
+     * Returns the ascending rows of each key in the column specified
+     */
+    private static TreeMap<Long,List<Integer>> expected(LongColumn column) {
+        final TreeMap<Long,List<Integer>> result = new TreeMap<>();
+        for (int i = 0; i < column.length(); ++i) {
+            result.computeIfAbsent(column.getLong(i), k -> new ArrayList<>()).add(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a list as an int array
+     */
+    private static int[] array(List<Integer> rows) {
+        return rows == null ? new int[0] : rows.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Test
+    public void hashAndSortedLookups() {
+        final LongColumn column = keys(50000, 20000, 1L);
+        final TreeMap<Long,List<Integer>> expected = expected(column);
+        for (RowIndex index : Arrays.asList(RowIndex.hash(column), RowIndex.sorted(column))) {
+            assertEquals(expected.size(), index.distinct());
+            assertEquals(column.length(), index.length());
+            assertFalse(index.isUnique());
+            for (long key = -10005; key < 10005; ++key) {
+                final List<Integer> rows = expected.get(key);
+                assertEquals(rows != null, index.contains(key), "key " + key);
+                assertEquals(rows == null ? -1 : rows.get(0), index.rowOf(key), "key " + key);
+                assertArrayEquals(array(rows), index.allRowsOf(key), "key " + key);
+            }
+            final long[] probes = {-10000, 0, 5, 99999};
+            final int[] rows = index.rowsOf(probes);
+            for (int i = 0; i < probes.length; ++i) {
+                assertEquals(index.rowOf(probes[i]), rows[i]);
+            }
+            assertEquals(index.rowOf(5L), index.rowOf(5d));
+            assertEquals(-1, index.rowOf(5.5d));
+        }
+    }
+
+    @Test
+    public void sortedRangesFloorAndCeiling() {
+        final LongColumn column = keys(20000, 5000, 2L);
+        final TreeMap<Long,List<Integer>> expected = expected(column);
+        final SortedRowIndex index = RowIndex.sorted(column);
+        assertFalse(index.isPositional());
+        for (long from = -2600; from < 2600; from += 97) {
+            final long to = from + 131;
+            final List<Integer> rows = new ArrayList<>();
+            expected.subMap(from, to).values().forEach(rows::addAll);
+            assertArrayEquals(array(rows), index.range(from, to), "range " + from);
+            assertArrayEquals(array(rows), index.range(from - 0.5d, to - 0.5d), "range " + from);
+        }
+        for (long key = -2600; key < 2600; key += 7) {
+            final Long floor = expected.floorKey(key);
+            final Long ceiling = expected.ceilingKey(key);
+            assertEquals(floor == null ? -1 : expected.get(floor).get(expected.get(floor).size() - 1), index.floor(key));
+            assertEquals(ceiling == null ? -1 : expected.get(ceiling).get(0), index.ceiling(key));
+            assertEquals(index.floor(key), index.floor(key + 0.5d));
+            assertEquals(index.ceiling(key + 1), index.ceiling(key + 0.5d));
+        }
+    }
+
+    @Test
+    public void sortedColumnNeedsNoPermutation() {
+        final LongColumn column = Columns.longs("ts", 10000);
+        for (int i = 0; i < column.length(); ++i) {
+            column.setLong(i, 1000L + i * 10L);
+        }
+        final SortedRowIndex index = RowIndex.sorted(column);
+        assertTrue(index.isPositional());
+        assertTrue(index.isUnique());
+        assertEquals(500, index.rowOf(6000L));
+        assertEquals(-1, index.rowOf(6001L));
+        assertEquals(500, index.floor(6009L));
+        assertEquals(501, index.ceiling(6001L));
+        final DataFrame frame = DataFrame.of(column);
+        final DataFrame slice = index.slice(frame, 6000L, 6050L);
+        assertEquals(5, slice.rowCount());
+        assertEquals(6040L, slice.longs("ts").getLong(4));
+    }
+
+    @Test
+    public void doubleKeys() {
+        final DoubleColumn column = Columns.ofDoubles("price", 3.5, -1.25, 3.5, 0d, 10d);
+        final SortedRowIndex sorted = RowIndex.sorted(column);
+        final HashRowIndex hash = RowIndex.hash(column);
+        assertEquals(0, hash.rowOf(3.5d));
+        assertEquals(0, sorted.rowOf(3.5d));
+        assertArrayEquals(new int[] {1, 3}, sorted.range(-2d, 3.5d));
+        assertArrayEquals(new int[] {3, 0, 2}, sorted.range(0d, 4d));
+        assertEquals(3, sorted.floor(3.4d));
+        assertEquals(4, sorted.ceiling(3.6d));
+        assertArrayEquals(new int[] {4, -1}, hash.rowsOf(new double[] {10d, 11d}));
+    }
+
+    @Test
+    public void stringKeys() {
+        final StringColumn column = Columns.strings("symbol", 6);
+        final String[] values = {"IBM", "AAPL", null, "IBM", "MSFT", "AAPL"};
+        for (int i = 0; i < values.length; ++i) {
+            column.setString(i, values[i]);
+        }
+        for (RowIndex index : Arrays.asList(RowIndex.hash(column), RowIndex.sorted(column))) {
+            assertEquals(0, index.rowOf("IBM"));
+            assertArrayEquals(new int[] {1, 5}, index.allRowsOf("AAPL"));
+            assertArrayEquals(new int[] {4, -1, 0}, index.rowsOf(new String[] {"MSFT", "ORCL", "IBM"}));
+            assertEquals(-1, index.rowOf("ORCL"));
+        }
+        final LongColumn longs = Columns.ofLongs("id", 1L, 2L);
+        assertThrows(DataFrameException.class, () -> RowIndex.hash(longs).rowOf("1"));
+    }
+}
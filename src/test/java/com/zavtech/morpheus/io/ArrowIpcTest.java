@@ -0,0 +1,175 @@
+package com.zavtech.morpheus.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.column.StringColumn;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of writing frames in the Arrow IPC file and stream formats and reading them back
+ */
+public class ArrowIpcTest {
+
+    @TempDir
+    Path folder;
+
+    /**
+     * Returns a frame of strings and longs whose strings start at the offset specified, so later batches add new values
+     */
+    private static DataFrame batch(int rows, int offset) {
+        final StringColumn names = Columns.strings("name", rows);
+        final LongColumn ids = Columns.longs("id", rows);
+        for (int i = 0; i < rows; ++i) {
+            names.setString(i, "n" + ((offset + i) / 3));
+            ids.setLong(i, offset + i);
+        }
+        names.setNull(rows / 2);
+        return DataFrame.of(names, ids);
+    }
+
+    @Test
+    public void fileRoundTripWrapsMappedColumns() throws IOException {
+        final Path path = folder.resolve("frame.arrow");
+        final DataFrame frame = ColumnFileTest.frame(10000);
+        ArrowIpc.write(frame, path);
+        final byte[] bytes = Files.readAllBytes(path);
+        assertArrayEquals("ARROW1".getBytes(StandardCharsets.US_ASCII), Arrays.copyOf(bytes, 6));
+        assertArrayEquals("ARROW1".getBytes(StandardCharsets.US_ASCII), Arrays.copyOfRange(bytes, bytes.length - 6, bytes.length));
+        try (DataFrame arrow = ArrowIpc.open(path)) {
+            ColumnFileTest.assertFrameEquals(frame, arrow);
+            assertEquals(Storage.MAPPED, arrow.column("doubles").storage());
+            assertEquals(Storage.MAPPED, arrow.column("longs").storage());
+            assertEquals(Storage.MAPPED, arrow.column("ints").storage());
+            assertEquals(frame.column("doubles").validity().nullCount(), arrow.column("doubles").validity().nullCount());
+        }
+    }
+
+    @Test
+    public void fileRoundTripOfOffHeapColumns() {
+        final Path path = folder.resolve("offheap.arrow");
+        final DataFrame frame = ColumnFileTest.frame(3000);
+        try (DataFrame offHeap = frame.copy(Storage.OFF_HEAP)) {
+            assertEquals(Storage.OFF_HEAP, offHeap.column("doubles").storage());
+            ArrowIpc.write(offHeap, path);
+            try (DataFrame arrow = ArrowIpc.open(path)) {
+                ColumnFileTest.assertFrameEquals(frame, arrow);
+            }
+        }
+    }
+
+    @Test
+    public void openSubsetOfColumns() {
+        final Path path = folder.resolve("subset.arrow");
+        final DataFrame frame = ColumnFileTest.frame(500);
+        ArrowIpc.write(frame, path);
+        try (DataFrame arrow = ArrowIpc.open(path, "strings", "doubles")) {
+            assertEquals(Arrays.asList("doubles", "strings"), arrow.columnNames());
+            ColumnFileTest.assertFrameEquals(frame.select("doubles", "strings"), arrow);
+        }
+    }
+
+    @Test
+    public void streamOfBatchesWithGrowingDictionaries() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final List<DataFrame> written = List.of(batch(100, 0), batch(250, 100), batch(1, 350), batch(40, 0));
+        try (ArrowIpc.StreamWriter writer = ArrowIpc.writer(out, written.get(0))) {
+            written.forEach(writer::write);
+        }
+        final List<DataFrame> batches = new ArrayList<>();
+        ArrowIpc.read(new ByteArrayInputStream(out.toByteArray()), batches::add);
+        assertEquals(written.size(), batches.size());
+        for (int i = 0; i < batches.size(); ++i) {
+            try (DataFrame batch = batches.get(i)) {
+                ColumnFileTest.assertFrameEquals(written.get(i), batch);
+                assertEquals(Storage.OFF_HEAP, batch.column("id").storage());
+            }
+        }
+        try (DataFrame all = ArrowIpc.read(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(391, all.rowCount());
+            assertEquals("n116", all.strings("name").getString(349));
+            assertEquals(5L, all.longs("id").getLong(356));
+            assertNull(all.strings("name").getString(350));
+        }
+    }
+
+    @Test
+    public void streamFormatFileAndEmptyFrame() throws IOException {
+        final Path path = folder.resolve("stream.arrows");
+        final DataFrame frame = ColumnFileTest.frame(700);
+        try (OutputStream out = Files.newOutputStream(path)) {
+            ArrowIpc.write(frame, out);
+        }
+        try (DataFrame arrow = ArrowIpc.open(path, "ints", "strings")) {
+            ColumnFileTest.assertFrameEquals(frame.select("ints", "strings"), arrow);
+        }
+        final Path empty = folder.resolve("empty.arrow");
+        ArrowIpc.write(ColumnFileTest.frame(0), empty);
+        try (DataFrame arrow = ArrowIpc.open(empty)) {
+            assertEquals(0, arrow.rowCount());
+            assertEquals(5, arrow.columnCount());
+        }
+    }
+
+    @Test
+    public void rejectsMismatchedBatchesAndOtherFiles() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ArrowIpc.StreamWriter writer = ArrowIpc.writer(out, batch(10, 0));
+        assertThrows(DataFrameException.class, () -> writer.write(ColumnFileTest.frame(10)));
+        writer.close();
+        assertThrows(IllegalStateException.class, () -> writer.write(batch(10, 0)));
+        final Path path = folder.resolve("other.arrow");
+        Files.write(path, "NOTANARROWFILE..........".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(DataFrameException.class, () -> ArrowIpc.open(path));
+        assertThrows(DataFrameException.class, () -> ArrowIpc.open(folder.resolve("missing.arrow")));
+    }
+
+    @Test
+    public void rejectsCorruptLengths() throws IOException {
+        final byte[] huge = {-1, -1, -1, -1, (byte)0xF0, -1, -1, 0x7F, 1, 2, 3, 4};
+        final byte[] negative = {-1, -1, -1, -1, 0, 0, 0, (byte)0x80};
+        for (byte[] bytes : Arrays.asList(huge, negative)) {
+            assertThrows(DataFrameException.class, () -> ArrowIpc.read(new ByteArrayInputStream(bytes)));
+            final Path path = folder.resolve("corrupt.arrows");
+            Files.write(path, bytes);
+            assertThrows(DataFrameException.class, () -> ArrowIpc.open(path));
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ArrowIpc.write(batch(100, 0), out);
+        final byte[] stream = out.toByteArray();
+        assertThrows(DataFrameException.class, () -> ArrowIpc.read(new ByteArrayInputStream(Arrays.copyOf(stream, stream.length / 2))));
+        final Path path = folder.resolve("corrupt.arrow");
+        ArrowIpc.write(batch(100, 0), path);
+        final byte[] file = Files.readAllBytes(path);
+        for (int length : new int[] {-5, 0x7FFFFFF0, file.length - 17}) {
+            final byte[] corrupt = file.clone();
+            ByteBuffer.wrap(corrupt).order(ByteOrder.LITTLE_ENDIAN).putInt(file.length - 10, length);
+            Files.write(path, corrupt);
+            assertThrows(DataFrameException.class, () -> ArrowIpc.open(path), "footer length " + length);
+        }
+        Files.write(path, Arrays.copyOf(file, file.length - 100));
+        assertThrows(DataFrameException.class, () -> ArrowIpc.open(path));
+    }
+}
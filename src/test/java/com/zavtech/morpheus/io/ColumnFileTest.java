@@ -0,0 +1,144 @@
+package com.zavtech.morpheus.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.zavtech.morpheus.column.BooleanColumn;
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.EncodedColumn;
+import com.zavtech.morpheus.column.Encoding;
+import com.zavtech.morpheus.column.IntColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.column.StringColumn;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of writing frames to column files and mapping them back
+ */
+public class ColumnFileTest {
+
+    @TempDir
+    Path folder;
+
+    /**
+     * Returns a frame with one column of each type, each holding some nulls
+     */
+    static DataFrame frame(int rows) {
+        final IntColumn ints = Columns.ints("ints", rows);
+        final LongColumn longs = Columns.longs("longs", rows);
+        final DoubleColumn doubles = Columns.doubles("doubles", rows);
+        final BooleanColumn booleans = Columns.booleans("booleans", rows);
+        final StringColumn strings = Columns.strings("strings", rows);
+        for (int i = 0; i < rows; ++i) {
+            ints.setInt(i, i - 500);
+            longs.setLong(i, i * 7919L << 20);
+            doubles.setDouble(i, Math.sqrt(i));
+            booleans.setBoolean(i, (i & 1) == 0);
+            strings.setString(i, "k" + (i % 13));
+        }
+        for (int i = 0; i < rows; i += 97) {
+            ints.setNull(i);
+            longs.setNull(i + 1);
+            doubles.setNull(i + 2);
+            booleans.setNull(i + 3);
+            strings.setNull(i + 4);
+        }
+        return DataFrame.of(ints, longs, doubles, booleans, strings);
+    }
+
+    /**
+     * Asserts that two frames have the same column names, types, values and nulls
+     */
+    static void assertFrameEquals(DataFrame expected, DataFrame actual) {
+        assertEquals(expected.columnNames(), actual.columnNames());
+        assertEquals(expected.rowCount(), actual.rowCount());
+        for (int j = 0; j < expected.columnCount(); ++j) {
+            final Column left = expected.column(j);
+            final Column right = actual.column(j);
+            assertEquals(left.type(), right.type());
+            for (int i = 0; i < expected.rowCount(); ++i) {
+                assertEquals(left.getValue(i), right.getValue(i), left.name() + " row " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final Path path = folder.resolve("frame.col");
+        final DataFrame frame = frame(10000);
+        ColumnFile.write(frame, path);
+        try (DataFrame mapped = ColumnFile.open(path)) {
+            assertFrameEquals(frame, mapped);
+            for (Column column : mapped.columns()) {
+                assertEquals(Storage.MAPPED, column.storage());
+            }
+            assertEquals(frame.column("longs").validity().nullCount(), mapped.column("longs").validity().nullCount());
+        }
+    }
+
+    @Test
+    public void testOpenSubsetOfColumns() {
+        final Path path = folder.resolve("subset.col");
+        final DataFrame frame = frame(500);
+        ColumnFile.write(frame, path);
+        try (DataFrame mapped = ColumnFile.open(path, "strings", "doubles")) {
+            assertEquals(Arrays.asList("doubles", "strings"), mapped.columnNames());
+            assertFrameEquals(frame.select("doubles", "strings"), mapped);
+        }
+    }
+
+    @Test
+    public void testEncodedColumnsRoundTrip() {
+        final Path path = folder.resolve("encoded.col");
+        final LongColumn ids = Columns.longs("ids", 5000);
+        final LongColumn times = Columns.longs("times", 5000);
+        final IntColumn flags = Columns.ints("flags", 5000);
+        for (int i = 0; i < 5000; ++i) {
+            ids.setLong(i, 1000000L + i);
+            times.setLong(i, 1600000000000L + i * 60000L);
+            flags.setInt(i, 7);
+        }
+        final DataFrame frame = DataFrame.of(ids, times, flags, frame(5000).column("strings")).encode();
+        assertEquals(Encoding.DELTA, ((EncodedColumn)frame.column("ids")).encoding());
+        assertEquals(Encoding.DELTA, ((EncodedColumn)frame.column("times")).encoding());
+        ColumnFile.write(frame, path);
+        try (DataFrame mapped = ColumnFile.open(path)) {
+            assertFrameEquals(frame, mapped);
+            for (String name : Arrays.asList("ids", "times", "flags")) {
+                assertEquals(((EncodedColumn)frame.column(name)).encoding(), ((EncodedColumn)mapped.column(name)).encoding(), name);
+            }
+            assertEquals(1000000L + 4999, ((EncodedColumn)mapped.column("ids")).upperBound(0, 5000));
+        }
+    }
+
+    @Test
+    public void testEmptyFrame() {
+        final Path path = folder.resolve("empty.col");
+        ColumnFile.write(frame(0), path);
+        try (DataFrame mapped = ColumnFile.open(path)) {
+            assertEquals(0, mapped.rowCount());
+            assertEquals(5, mapped.columnCount());
+        }
+    }
+
+    @Test
+    public void testRejectsOtherFiles() throws IOException {
+        final Path path = folder.resolve("other.col");
+        Files.write(path, "NOTACOLUMNFILE..........".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(DataFrameException.class, () -> ColumnFile.open(path));
+        assertThrows(DataFrameException.class, () -> ColumnFile.open(folder.resolve("missing.col")));
+    }
+}
@@ -0,0 +1,163 @@
+package com.zavtech.morpheus.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.zavtech.morpheus.column.ColumnType;
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of CSV parsing, type inference and widening, over single and multiple byte ranges
+ */
+public class CsvReaderTest {
+
+    @TempDir
+    Path folder;
+
+    /**
+     * Writes the lines specified to a new file in the temporary folder
+     */
+    private Path write(String name, List<String> lines) throws IOException {
+        final Path path = folder.resolve(name);
+        Files.write(path, lines, StandardCharsets.UTF_8);
+        return path;
+    }
+
+    /**
+     * Returns options that split even small files into many byte ranges
+     */
+    private static CsvOptions parallel() {
+        return new CsvOptions().setParallelism(4).setMinRangeBytes(256);
+    }
+
+    @Test
+    public void testInference() throws IOException {
+        final Path path = write("types.csv", Arrays.asList(
+            "id,volume,price,flag,name",
+            "1,10000000000,1.5,true,alpha",
+            "2,,2.25,false,\"beta, gamma\"",
+            "3,30000000000,,true,",
+            "\r"
+        ));
+        final DataFrame frame = CsvReader.create().read(path);
+        assertEquals(Arrays.asList("id", "volume", "price", "flag", "name"), frame.columnNames());
+        assertEquals(ColumnType.INT, frame.column("id").type());
+        assertEquals(ColumnType.LONG, frame.column("volume").type());
+        assertEquals(ColumnType.DOUBLE, frame.column("price").type());
+        assertEquals(ColumnType.BOOLEAN, frame.column("flag").type());
+        assertEquals(ColumnType.STRING, frame.column("name").type());
+        assertEquals(3, frame.rowCount());
+        assertTrue(frame.longs("volume").isNull(1));
+        assertTrue(frame.doubles("price").isNull(2));
+        assertNull(frame.strings("name").getString(2));
+        assertEquals("beta, gamma", frame.strings("name").getString(1));
+        assertEquals(30000000000L, frame.longs("volume").getLong(2));
+    }
+
+    @Test
+    public void testLateValuesWidenInferredTypes() throws IOException {
+        final int rows = 5000;
+        final List<String> lines = new ArrayList<>();
+        lines.add("id,qty,flag,code");
+        for (int i = 0; i < rows; ++i) {
+            final String id = i == 3000 ? "5000000000" : String.valueOf(i);
+            final String qty = i == 4000 ? "2.5" : String.valueOf(i % 10);
+            final String flag = i == 4500 ? "unknown" : String.valueOf(i % 2 == 0);
+            final String code = i == 4999 ? "X1" : String.format("%03d", i % 100);
+            lines.add(id + "," + qty + "," + flag + "," + code);
+        }
+        final Path path = write("late.csv", lines);
+        for (CsvOptions options : Arrays.asList(new CsvOptions().setSampleRows(100), parallel().setSampleRows(100))) {
+            final DataFrame frame = new CsvReader(options).read(path);
+            assertEquals(rows, frame.rowCount());
+            assertEquals(ColumnType.LONG, frame.column("id").type());
+            assertEquals(5000000000L, frame.longs("id").getLong(3000));
+            assertEquals(2999L, frame.longs("id").getLong(2999));
+            assertEquals(ColumnType.DOUBLE, frame.column("qty").type());
+            assertEquals(2.5d, frame.doubles("qty").getDouble(4000), 0d);
+            assertEquals(9d, frame.doubles("qty").getDouble(9), 0d);
+            assertEquals(ColumnType.STRING, frame.column("flag").type());
+            assertEquals("true", frame.strings("flag").getString(0));
+            assertEquals("unknown", frame.strings("flag").getString(4500));
+            assertEquals(ColumnType.STRING, frame.column("code").type());
+            assertEquals("007", frame.strings("code").getString(7));
+            assertEquals("X1", frame.strings("code").getString(4999));
+        }
+    }
+
+    @Test
+    public void testDeclaredTypesAreNotWidened() throws IOException {
+        final Path path = write("declared.csv", Arrays.asList("id,value", "1,2", "2,5000000000"));
+        final CsvReader reader = new CsvReader(new CsvOptions().setType("value", ColumnType.INT));
+        final DataFrameException ex = assertThrows(DataFrameException.class, () -> reader.read(path));
+        assertTrue(ex.getMessage().startsWith("Cannot parse INT for column value"), ex.getMessage());
+    }
+
+    @Test
+    public void testParallelReadMatchesSequentialRead() throws IOException {
+        final List<String> lines = new ArrayList<>();
+        lines.add("key,value,weight");
+        for (int i = 0; i < 20000; ++i) {
+            lines.add((i % 37) + "," + (i * 31L) + "," + (i % 5 == 0 ? "" : String.valueOf(i / 4d)));
+        }
+        final Path path = write("parallel.csv", lines);
+        final DataFrame sequential = new CsvReader(new CsvOptions().setParallelism(1)).read(path);
+        final DataFrame concurrent = new CsvReader(parallel().setStorage(Storage.OFF_HEAP)).read(path);
+        try {
+            ColumnFileTest.assertFrameEquals(sequential, concurrent);
+        } finally {
+            concurrent.close();
+        }
+    }
+
+    @Test
+    public void testStreamWidensLaterBatches() throws IOException {
+        final List<String> lines = new ArrayList<>();
+        lines.add("id,name");
+        for (int i = 0; i < 1000; ++i) {
+            lines.add((i == 650 ? "9000000000" : String.valueOf(i)) + ",n" + i);
+        }
+        final Path path = write("stream.csv", lines);
+        final List<DataFrame> frames = new ArrayList<>();
+        new CsvReader(new CsvOptions().setBatchRows(300).setSampleRows(10)).stream(path, frames::add);
+        assertEquals(4, frames.size());
+        assertEquals(ColumnType.INT, frames.get(1).column("id").type());
+        assertEquals(ColumnType.LONG, frames.get(2).column("id").type());
+        assertEquals(600L, frames.get(2).longs("id").getLong(0));
+        assertEquals(9000000000L, frames.get(2).longs("id").getLong(50));
+        assertEquals(ColumnType.LONG, frames.get(3).column("id").type());
+        int rows = 0;
+        for (DataFrame frame : frames) {
+            rows += frame.rowCount();
+        }
+        assertEquals(1000, rows);
+        assertEquals("n999", frames.get(3).strings("name").getString(99));
+    }
+
+    @Test
+    public void testColumnSelectionAndNoHeader() throws IOException {
+        final Path path = write("select.csv", Arrays.asList("a;b;c", "1;x;2.5", "2;y;3.5"));
+        final DataFrame selected = new CsvReader(new CsvOptions().setDelimiter(';').setColumns("c", "a")).read(path);
+        assertEquals(Arrays.asList("a", "c"), selected.columnNames());
+        assertEquals(3.5d, selected.doubles("c").getDouble(1), 0d);
+        final CsvReader headless = new CsvReader(new CsvOptions().setDelimiter(';').setHeader(false));
+        assertEquals(Arrays.asList("column0", "column1", "column2"), headless.columnNames(path));
+        assertEquals(3, headless.read(path).rowCount());
+        assertThrows(DataFrameException.class, () -> new CsvReader(new CsvOptions().setColumns("z")).read(path));
+    }
+}
@@ -0,0 +1,229 @@
+package com.zavtech.morpheus.io;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.zavtech.morpheus.column.ColumnType;
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.filter.Predicate;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of reading the Parquet files in src/test/resources/parquet.
+ *
+ * plain_uncompressed.parquet holds a single uncompressed row group of 12 rows with PLAIN encoded
+ * id (INT64), flag (BOOLEAN), qty (optional INT32), ratio (FLOAT), price (optional DOUBLE over two
+ * pages) and name (optional UTF8) columns, an RLE encoded optional boolean named active, and a
+ * FIXED_LEN_BYTE_ARRAY column named blob that the reader does not support.
+ *
+ * trades_snappy.parquet holds four Snappy compressed row groups of 300 rows with ts (INT64, two
+ * PLAIN pages), sym (optional UTF8, RLE_DICTIONARY over two pages), qty (INT32, PLAIN_DICTIONARY
+ * with legacy min and max statistics) and px (optional DOUBLE in v2 data pages, all null in the
+ * last group), with values given by the static methods below.
+ */
+public class ParquetReaderTest {
+
+    private static final long T0 = 1600000000000L;
+    private static final String[][] SETS = {{"AAPL", "IBM"}, {"IBM", "MSFT"}, {"MSFT", "ORCL"}, {"AAPL", "ORCL"}};
+
+    /**
+     * Returns the path of a fixture file
+     */
+    private static Path fixture(String name) {
+        try {
+            return Paths.get(ParquetReaderTest.class.getResource("/parquet/" + name).toURI());
+        } catch (URISyntaxException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Returns the expected ts of a row of the trades file
+     */
+    private static long ts(int row) {
+        return T0 + row * 1000L;
+    }
+
+    /**
+     * Returns the expected sym of a row of the trades file, which may be null
+     */
+    private static String sym(int row) {
+        final int i = row % 300;
+        final String[] set = SETS[row / 300];
+        return i % 37 == 0 ? null : i < 200 ? set[(i / 20) % 2] : set[i % 2];
+    }
+
+    /**
+     * Returns the expected qty of a row of the trades file
+     */
+    private static int qty(int row) {
+        return 100 * (1 + row % 5);
+    }
+
+    /**
+     * Returns the expected px of a row of the trades file, NaN where null
+     */
+    private static double px(int row) {
+        return row >= 900 || row % 50 == 0 ? Double.NaN : 10d + row * 0.25d;
+    }
+
+    /**
+     * Asserts a frame read from the trades file holds the expected values of the rows specified
+     */
+    private static void assertTrades(int[] rows, DataFrame frame) {
+        assertEquals(rows.length, frame.rowCount());
+        for (int i = 0; i < rows.length; ++i) {
+            final int row = rows[i];
+            assertEquals(ts(row), frame.longs("ts").getLong(i), "ts row " + row);
+            assertEquals(sym(row), frame.strings("sym").getString(i), "sym row " + row);
+            assertEquals(qty(row), frame.ints("qty").getInt(i), "qty row " + row);
+            assertEquals(Double.isNaN(px(row)), frame.column("px").isNull(i), "px row " + row);
+            if (!Double.isNaN(px(row))) {
+                assertEquals(px(row), frame.doubles("px").getDouble(i), "px row " + row);
+            }
+        }
+    }
+
+    /**
+     * Returns the rows of the trades file from the first to the last, exclusive
+     */
+    private static int[] range(int from, int to) {
+        final int[] rows = new int[to - from];
+        Arrays.setAll(rows, i -> from + i);
+        return rows;
+    }
+
+    @Test
+    public void plainEncodingsWithoutCompression() {
+        final ParquetReader reader = ParquetReader.of(fixture("plain_uncompressed.parquet"));
+        assertEquals(List.of("id", "flag", "active", "qty", "ratio", "price", "name", "blob"), reader.columnNames());
+        assertEquals(12L, reader.rowCount());
+        assertEquals(1, reader.rowGroupCount());
+        final DataFrame frame = reader.setColumns("id", "flag", "active", "qty", "ratio", "price", "name").read();
+        assertEquals(ColumnType.LONG, frame.column("id").type());
+        assertEquals(ColumnType.INT, frame.column("qty").type());
+        assertEquals(ColumnType.DOUBLE, frame.column("ratio").type());
+        assertEquals(ColumnType.STRING, frame.column("name").type());
+        final String[] names = {"alpha", "beta", "caf\u00e9", "", "delta", null, "echo", "alpha", "z\u00fcrich", "beta", "golf", "hotel"};
+        for (int i = 0; i < 12; ++i) {
+            assertEquals(i * 1000000007L - 5L, frame.longs("id").getLong(i));
+            assertEquals(i % 3 == 0, frame.booleans("flag").getBoolean(i));
+            assertEquals(i % 4 == 1, frame.column("active").isNull(i));
+            if (i % 4 != 1) {
+                assertEquals(i < 6, frame.booleans("active").getBoolean(i));
+            }
+            assertEquals(i == 3 || i == 7, frame.column("qty").isNull(i));
+            if (i != 3 && i != 7) {
+                assertEquals((i - 6) * 25, frame.ints("qty").getInt(i));
+            }
+            assertEquals(i * 0.5d - 1.25d, frame.doubles("ratio").getDouble(i));
+            assertEquals(i == 0 || i == 11, frame.column("price").isNull(i));
+            if (i != 0 && i != 11) {
+                assertEquals(100d + i * 1.125d, frame.doubles("price").getDouble(i));
+            }
+            assertEquals(names[i], frame.strings("name").getString(i));
+        }
+    }
+
+    @Test
+    public void unprojectedColumnsAreNeverDecoded() {
+        final Path path = fixture("plain_uncompressed.parquet");
+        assertThrows(DataFrameException.class, () -> ParquetReader.of(path).read());
+        assertThrows(DataFrameException.class, () -> ParquetReader.of(path).setColumns("id", "blob").read());
+        assertThrows(DataFrameException.class, () -> ParquetReader.of(path).setColumns("missing").read());
+        final DataFrame frame = ParquetReader.of(path).setColumns("name", "id").read();
+        assertEquals(List.of("name", "id"), frame.columnNames());
+        assertEquals("caf\u00e9", frame.strings("name").getString(2));
+        final DataFrame filtered = ParquetReader.of(path).setColumns("id").setPredicate(Predicate.gt("qty", 0)).read();
+        assertEquals(List.of("id"), filtered.columnNames());
+        assertEquals(4, filtered.rowCount());
+        assertEquals(8 * 1000000007L - 5L, filtered.longs("id").getLong(0));
+    }
+
+    @Test
+    public void dictionaryAndSnappyPagesAcrossRowGroups() {
+        final ParquetReader reader = ParquetReader.of(fixture("trades_snappy.parquet"));
+        assertEquals(List.of("ts", "sym", "qty", "px"), reader.columnNames());
+        assertEquals(1200L, reader.rowCount());
+        assertEquals(4, reader.rowGroupCount());
+        assertEquals(4, reader.selectedRowGroupCount());
+        assertTrades(range(0, 1200), reader.read());
+        final DataFrame offHeap = ParquetReader.of(fixture("trades_snappy.parquet")).setStorage(Storage.OFF_HEAP).setParallelism(1).read();
+        assertEquals(Storage.OFF_HEAP, offHeap.column("px").storage());
+        assertTrades(range(0, 1200), offHeap);
+    }
+
+    @Test
+    public void rowGroupsAreSkippedByStatistics() {
+        final Path path = fixture("trades_snappy.parquet");
+        final DataFrame all = ParquetReader.of(path).read();
+        final Predicate[] predicates = {
+            Predicate.ge("ts", ts(650)),
+            Predicate.lt("ts", ts(300)),
+            Predicate.in("sym", "AAPL"),
+            Predicate.eq("sym", "ORCL"),
+            Predicate.gt("px", 0),
+            Predicate.lt("qty", 100),
+            Predicate.ge("qty", 500),
+            Predicate.isNull("px"),
+            Predicate.lt("ts", ts(600)).and(Predicate.in("sym", "ORCL")),
+            Predicate.lt("ts", ts(10)).or(Predicate.gt("ts", ts(1190)))
+        };
+        final int[] groups = {2, 1, 2, 2, 3, 0, 4, 4, 0, 2};
+        for (int i = 0; i < predicates.length; ++i) {
+            final ParquetReader reader = ParquetReader.of(path).setPredicate(predicates[i]);
+            assertEquals(groups[i], reader.selectedRowGroupCount(), predicates[i].toString());
+            final int[] expected = predicates[i].select(all);
+            assertTrades(expected, reader.read());
+        }
+        final DataFrame later = ParquetReader.of(path).setPredicate(Predicate.ge("ts", ts(650))).read();
+        assertEquals(550, later.rowCount());
+        assertEquals(ts(650), later.longs("ts").getLong(0));
+        assertNull(later.strings("sym").getString(859 - 650));
+    }
+
+    @Test
+    public void invalidArguments() {
+        final Path path = fixture("trades_snappy.parquet");
+        assertThrows(IllegalArgumentException.class, () -> ParquetReader.of(path).setStorage(Storage.MAPPED));
+        assertThrows(IllegalArgumentException.class, () -> ParquetReader.of(path).setParallelism(0));
+        assertThrows(DataFrameException.class, () -> ParquetReader.of(path.resolveSibling("missing.parquet")).rowCount());
+    }
+
+    @Test
+    public void rejectsTruncatedFilesAndBadFooterLengths(@TempDir Path folder) throws IOException {
+        final Path path = folder.resolve("corrupt.parquet");
+        final byte[] magic = "PAR1".getBytes(StandardCharsets.US_ASCII);
+        for (byte[] bytes : Arrays.asList(new byte[0], new byte[] {'P', 'A', 'R'}, magic, Arrays.copyOf(magic, 11))) {
+            Files.write(path, bytes);
+            assertThrows(DataFrameException.class, () -> ParquetReader.of(path).rowCount(), bytes.length + " bytes");
+        }
+        for (int length : new int[] {-1, Integer.MIN_VALUE, 0x7FFFFFF0, 0x40000000, 1}) {
+            final ByteBuffer bytes = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+            bytes.put(magic).putInt(length).put(magic);
+            Files.write(path, bytes.array());
+            assertThrows(DataFrameException.class, () -> ParquetReader.of(path).rowCount(), "footer length " + length);
+        }
+        final byte[] valid = Files.readAllBytes(fixture("trades_snappy.parquet"));
+        Files.write(path, Arrays.copyOf(valid, valid.length - 1));
+        assertThrows(DataFrameException.class, () -> ParquetReader.of(path).rowCount());
+        Files.write(path, Arrays.copyOfRange(valid, valid.length - 200, valid.length));
+        assertThrows(DataFrameException.class, () -> ParquetReader.of(path).rowCount());
+    }
+}
@@ -0,0 +1,264 @@
+package com.zavtech.morpheus.join;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.ColumnType;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.IntColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.StringColumn;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of hash, sort-merge and as-of joins against a nested loop reference
+ */
+public class JoinTest {
+
+    /**
+     * Returns a frame with an int key, a string key and a double value, where keys repeat
+     */
+    private static DataFrame frame(int rows, int keys, int seed, boolean sorted) {
+        final IntColumn id = Columns.ints("id", rows);
+        final StringColumn code = Columns.strings("code", rows);
+        final DoubleColumn value = Columns.doubles("value", rows);
+        for (int i = 0; i < rows; ++i) {
+            final int key = sorted ? i * keys / rows : (i * seed + 7) % keys;
+            id.setInt(i, key);
+            code.setString(i, "c" + (key % 3));
+            value.setDouble(i, seed * 1000 + i);
+        }
+        return DataFrame.of(id, code, value);
+    }
+
+    /**
+     * Returns the rows of a joined frame as lists of values, in order
+     */
+    private static List<List<Object>> rows(DataFrame frame) {
+        final List<List<Object>> rows = new ArrayList<>();
+        for (int i = 0; i < frame.rowCount(); ++i) {
+            final List<Object> row = new ArrayList<>();
+            for (Column column : frame.columns()) {
+                row.add(column.getValue(i));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the expected rows of a join on id and code, matched by a nested loop, in no particular order
+     */
+    private static List<List<Object>> expected(DataFrame left, DataFrame right, JoinType type) {
+        final List<List<Object>> rows = new ArrayList<>();
+        final boolean[] rightMatched = new boolean[right.rowCount()];
+        for (int i = 0; i < left.rowCount(); ++i) {
+            boolean matched = false;
+            for (int j = 0; j < right.rowCount(); ++j) {
+                if (left.column("id").getValue(i).equals(right.column("id").getValue(j)) && left.column("code").getValue(i).equals(right.column("code").getValue(j))) {
+                    rows.add(Arrays.asList(left.column("id").getValue(i), left.column("code").getValue(i), left.column("value").getValue(i), right.column("value").getValue(j)));
+                    rightMatched[j] = matched = true;
+                }
+            }
+            if (!matched && (type == JoinType.LEFT || type == JoinType.OUTER)) {
+                rows.add(Arrays.asList(left.column("id").getValue(i), left.column("code").getValue(i), left.column("value").getValue(i), null));
+            }
+        }
+        for (int j = 0; j < right.rowCount(); ++j) {
+            if (!rightMatched[j] && (type == JoinType.RIGHT || type == JoinType.OUTER)) {
+                rows.add(Arrays.asList(right.column("id").getValue(j), right.column("code").getValue(j), null, right.column("value").getValue(j)));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Asserts that two lists of rows hold the same rows in any order
+     */
+    private static void assertSameRows(List<List<Object>> expected, List<List<Object>> actual) {
+        final List<String> left = new ArrayList<>();
+        final List<String> right = new ArrayList<>();
+        expected.forEach(row -> left.add(row.toString()));
+        actual.forEach(row -> right.add(row.toString()));
+        left.sort(null);
+        right.sort(null);
+        assertEquals(left, right);
+    }
+
+    @Test
+    public void testHashJoinTypes() {
+        final DataFrame left = frame(3000, 400, 3, false);
+        final DataFrame right = frame(2000, 600, 5, false);
+        for (JoinType type : JoinType.values()) {
+            final List<List<Object>> expected = expected(left, right, type);
+            for (int parallelism : new int[] {1, 4}) {
+                final DataFrame joined = Join.of(left, right).on("id", "code").setType(type).setStrategy(Join.Strategy.HASH).setParallelism(parallelism).execute();
+                assertEquals(Arrays.asList("id", "code", "value", "value_right"), joined.columnNames());
+                assertSameRows(expected, rows(joined));
+            }
+        }
+    }
+
+    @Test
+    public void testSortMergeJoinTypes() {
+        final DataFrame left = frame(1000, 300, 3, true);
+        final DataFrame right = frame(800, 500, 5, true);
+        for (JoinType type : JoinType.values()) {
+            final DataFrame merged = Join.of(left, right).on("id", "code").setType(type).setStrategy(Join.Strategy.SORT_MERGE).execute();
+            final DataFrame hashed = Join.of(left, right).on("id", "code").setType(type).setStrategy(Join.Strategy.HASH).execute();
+            assertSameRows(expected(left, right, type), rows(merged));
+            assertSameRows(rows(hashed), rows(merged));
+        }
+        assertThrows(DataFrameException.class, () -> Join.of(frame(10, 5, 3, false), right).on("id").setStrategy(Join.Strategy.SORT_MERGE).execute());
+    }
+
+    @Test
+    public void testIntKeyJoinedWithLongKeyIsWidened() {
+        final DataFrame left = DataFrame.of(Columns.ofInts("id", 1, 2), Columns.ofDoubles("a", 1d, 2d));
+        final DataFrame right = DataFrame.of(Columns.ofLongs("id", 2L, 5000000000L), Columns.ofDoubles("b", 20d, 50d));
+        for (Join.Strategy strategy : Join.Strategy.values()) {
+            final DataFrame outer = Join.of(left, right).on("id").setType(JoinType.OUTER).setStrategy(strategy).execute();
+            assertEquals(ColumnType.LONG, outer.column("id").type());
+            final LongColumn ids = outer.longs("id");
+            final List<Long> values = new ArrayList<>();
+            for (int i = 0; i < ids.length(); ++i) {
+                values.add(ids.getLong(i));
+            }
+            values.sort(null);
+            assertEquals(Arrays.asList(1L, 2L, 5000000000L), values);
+            final DataFrame rightJoin = Join.of(left, right).on("id").setType(JoinType.RIGHT).setStrategy(strategy).execute();
+            assertEquals(ColumnType.LONG, rightJoin.column("id").type());
+            assertEquals(2, rightJoin.rowCount());
+        }
+        final DataFrame inner = Join.of(left, right).on("id").execute();
+        assertEquals(ColumnType.INT, inner.column("id").type());
+        assertEquals(1, inner.rowCount());
+    }
+
+    @Test
+    public void testStringKeysWithDifferentDictionaries() {
+        final DataFrame left = DataFrame.of(Columns.ofStrings("sym", "A", "B", "C"), Columns.ofInts("x", 1, 2, 3));
+        final DataFrame right = DataFrame.of(Columns.ofStrings("ticker", "D", "C", "A"), Columns.ofInts("x", 40, 30, 10));
+        final DataFrame joined = Join.of(left, right).on(Arrays.asList("sym"), Arrays.asList("ticker")).setType(JoinType.OUTER).execute();
+        assertEquals(Arrays.asList("sym", "x", "x_right"), joined.columnNames());
+        assertSameRows(Arrays.asList(
+            Arrays.asList("A", 1, 10),
+            Arrays.asList("B", 2, null),
+            Arrays.asList("C", 3, 30),
+            Arrays.asList("D", null, 40)
+        ), rows(joined));
+    }
+
+    @Test
+    public void testIncompatibleKeys() {
+        final DataFrame left = DataFrame.of(Columns.ofDoubles("k", 1d));
+        final DataFrame right = DataFrame.of(Columns.ofStrings("k", "1"));
+        assertThrows(DataFrameException.class, () -> Join.of(left, right).on("k").execute());
+        assertThrows(DataFrameException.class, () -> Join.of(left, right).execute());
+        assertThrows(DataFrameException.class, () -> Join.of(left, right).on(Arrays.asList("k"), Arrays.asList("k", "k")));
+    }
+
+    @Test
+    public void testAsOfJoin() {
+        final DataFrame trades = DataFrame.of(
+            Columns.ofStrings("sym", "A", "B", "A", "B", "A"),
+            Columns.ofLongs("time", 5L, 6L, 10L, 2L, 1L)
+        );
+        final DataFrame quotes = DataFrame.of(
+            Columns.ofStrings("sym", "A", "B", "A", "B"),
+            Columns.ofLongs("time", 2L, 3L, 8L, 9L),
+            Columns.ofDoubles("bid", 1.0d, 2.0d, 1.5d, 2.5d)
+        );
+        final DataFrame joined = AsOfJoin.of(trades, quotes).on("time").by("sym").setParallelism(2).execute();
+        assertEquals(5, joined.rowCount());
+        assertEquals(Arrays.asList(1.0d, 2.0d, 1.5d, null, null), Arrays.asList(
+            joined.column("bid").getValue(0),
+            joined.column("bid").getValue(1),
+            joined.column("bid").getValue(2),
+            joined.column("bid").getValue(3),
+            joined.column("bid").getValue(4)
+        ));
+        assertTrue(joined.hasColumn("time"));
+        final DataFrame ungrouped = AsOfJoin.of(trades, quotes).on("time").execute();
+        assertEquals(2.0d, ungrouped.doubles("bid").getDouble(0), 0d);
+        assertNull(ungrouped.column("bid").getValue(4));
+    }
+
+    @Test
+    public void testNullKeysNeverMatch() {
+        final LongColumn leftIds = Columns.ofLongs("id", Long.MIN_VALUE, 0L, 1L, 2L);
+        final LongColumn rightIds = Columns.ofLongs("id", 0L, Long.MIN_VALUE, 2L, 3L);
+        leftIds.setNull(1);
+        rightIds.setNull(0);
+        final DataFrame left = DataFrame.of(leftIds, Columns.ofDoubles("a", 10d, 20d, 30d, 40d));
+        final DataFrame right = DataFrame.of(rightIds, Columns.ofDoubles("b", 100d, 200d, 300d, 400d));
+        final List<Object> inner1 = Arrays.asList(Long.MIN_VALUE, 10d, 200d);
+        final List<Object> inner2 = Arrays.asList(2L, 40d, 300d);
+        final List<Object> leftNull = Arrays.asList(null, 20d, null);
+        final List<Object> leftOnly = Arrays.asList(1L, 30d, null);
+        final List<Object> rightNull = Arrays.asList(null, null, 100d);
+        final List<Object> rightOnly = Arrays.asList(3L, null, 400d);
+        for (Join.Strategy strategy : Join.Strategy.values()) {
+            for (int parallelism : new int[] {1, 4}) {
+                final Join join = Join.of(left, right).on("id").setStrategy(strategy).setParallelism(parallelism);
+                assertSameRows(Arrays.asList(inner1, inner2), rows(join.setType(JoinType.INNER).execute()));
+                assertSameRows(Arrays.asList(inner1, inner2, leftNull, leftOnly), rows(join.setType(JoinType.LEFT).execute()));
+                assertSameRows(Arrays.asList(inner1, inner2, rightNull, rightOnly), rows(join.setType(JoinType.RIGHT).execute()));
+                assertSameRows(Arrays.asList(inner1, inner2, leftNull, leftOnly, rightNull, rightOnly), rows(join.setType(JoinType.OUTER).execute()));
+            }
+        }
+    }
+
+    @Test
+    public void testRightNullKeyCoalescedIntoLeftKeyWithoutNulls() {
+        final LongColumn rightIds = Columns.ofLongs("id", 0L, 1L);
+        rightIds.setNull(0);
+        final DataFrame left = DataFrame.of(Columns.ofLongs("id", 1L), Columns.ofDoubles("a", 1d));
+        final DataFrame right = DataFrame.of(rightIds, Columns.ofDoubles("b", 2d, 3d));
+        final DataFrame outer = Join.of(left, right).on("id").setType(JoinType.OUTER).execute();
+        assertSameRows(Arrays.asList(Arrays.asList(1L, 1d, 3d), Arrays.asList(null, null, 2d)), rows(outer));
+        final DataFrame widened = Join.of(DataFrame.of(Columns.ofInts("id", 1), Columns.ofDoubles("a", 1d)), right).on("id").setType(JoinType.RIGHT).execute();
+        assertEquals(ColumnType.LONG, widened.column("id").type());
+        assertSameRows(Arrays.asList(Arrays.asList(1L, 1d, 3d), Arrays.asList(null, null, 2d)), rows(widened));
+    }
+
+    @Test
+    public void testNullStringAndCompositeKeys() {
+        final StringColumn leftCodes = Columns.ofStrings("code", "A", null, "B");
+        final StringColumn rightCodes = Columns.ofStrings("code", null, "A", "B");
+        final IntColumn rightIds = Columns.ofInts("id", 1, 1, 2);
+        rightIds.setNull(2);
+        final DataFrame left = DataFrame.of(Columns.ofInts("id", 1, 1, 2), leftCodes, Columns.ofDoubles("value", 1d, 2d, 3d));
+        final DataFrame right = DataFrame.of(rightIds, rightCodes, Columns.ofDoubles("value", 10d, 20d, 30d));
+        final DataFrame joined = Join.of(left, right).on("id", "code").setType(JoinType.LEFT).execute();
+        assertSameRows(Arrays.asList(
+            Arrays.asList(1, "A", 1d, 20d),
+            Arrays.asList(1, null, 2d, null),
+            Arrays.asList(2, "B", 3d, null)
+        ), rows(joined));
+    }
+
+    @Test
+    public void testAsOfJoinWithNullKeys() {
+        final LongColumn tradeTimes = Columns.ofLongs("time", 5L, 6L, 7L);
+        final StringColumn tradeSyms = Columns.ofStrings("sym", "A", null, "A");
+        tradeTimes.setNull(2);
+        final LongColumn quoteTimes = Columns.ofLongs("time", 1L, 0L, 2L, 3L);
+        quoteTimes.setNull(1);
+        final DataFrame trades = DataFrame.of(tradeSyms, tradeTimes);
+        final DataFrame quotes = DataFrame.of(Columns.ofStrings("sym", "A", "A", null, "A"), quoteTimes, Columns.ofDoubles("bid", 1d, 9d, 2d, 3d));
+        final DataFrame joined = AsOfJoin.of(trades, quotes).on("time").by("sym").execute();
+        assertEquals(Arrays.asList(3d, null, null), Arrays.asList(joined.column("bid").getValue(0), joined.column("bid").getValue(1), joined.column("bid").getValue(2)));
+    }
+}
@@ -0,0 +1,354 @@
+package com.zavtech.morpheus.linalg;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.stats.CrossProducts;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the matrix decompositions, covariance, cross products and principal components against naive computations
+ */
+public class LinalgTest {
+
+    private static final double TOLERANCE = 1e-9;
+
+    /**
+     * Returns a matrix of standard normal values
+     */
+    private static Matrix random(int rows, int cols, long seed) {
+        final Random random = new Random(seed);
+        final Matrix matrix = new Matrix(rows, cols);
+        for (int i = 0; i < rows; ++i) {
+            for (int j = 0; j < cols; ++j) {
+                matrix.set(i, j, random.nextGaussian());
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Returns a symmetric positive definite matrix, as the gram matrix of a random matrix plus a ridge
+     */
+    private static Matrix positiveDefinite(int size, long seed) {
+        final Matrix a = random(size + 3, size, seed);
+        final Matrix gram = a.transpose().multiply(a);
+        for (int i = 0; i < size; ++i) {
+            gram.set(i, i, gram.get(i, i) + 0.5d);
+        }
+        return gram;
+    }
+
+    /**
+     * Asserts two matrices have the same shape and equal values within a tolerance
+     */
+    private static void assertMatrixEquals(Matrix expected, Matrix actual, double tolerance) {
+        assertEquals(expected.rows(), actual.rows());
+        assertEquals(expected.cols(), actual.cols());
+        for (int i = 0; i < expected.rows(); ++i) {
+            assertArrayEquals(expected.row(i), actual.row(i), tolerance, "row " + i);
+        }
+    }
+
+    /**
+     * Returns the matrix with the values specified on its diagonal
+     */
+    private static Matrix diagonal(double[] values, int rows, int cols) {
+        final Matrix matrix = new Matrix(rows, cols);
+        for (int i = 0; i < values.length; ++i) {
+            matrix.set(i, i, values[i]);
+        }
+        return matrix;
+    }
+
+    /**
+     * Returns correlated columns with a null in roughly one row in twenty of each column
+     */
+    private static List<DoubleColumn> columns(int rows, long seed) {
+        final Random random = new Random(seed);
+        final double[][] values = new double[4][rows];
+        for (int i = 0; i < rows; ++i) {
+            final double common = random.nextGaussian();
+            values[0][i] = 10d + common + random.nextGaussian() * 0.5d;
+            values[1][i] = -2d * common + random.nextGaussian();
+            values[2][i] = 1000d + random.nextGaussian() * 30d;
+            values[3][i] = values[0][i] * 0.25d + random.nextGaussian() * 0.1d;
+        }
+        final List<DoubleColumn> columns = new ArrayList<>();
+        for (int j = 0; j < 4; ++j) {
+            final DoubleColumn column = Columns.ofDoubles("x" + j, values[j]);
+            for (int i = 0; i < rows; ++i) {
+                if (random.nextInt(20) == 0) {
+                    column.setNull(i);
+                }
+            }
+            columns.add(column);
+        }
+        return columns;
+    }
+
+    /**
+     * Returns the sample covariance matrix of the rows with no NaN in any of the columns, computed in two passes
+     */
+    private static Matrix naiveCovariance(List<DoubleColumn> columns) {
+        final int size = columns.size();
+        final int length = columns.get(0).length();
+        final List<Integer> complete = new ArrayList<>();
+        for (int r = 0; r < length; ++r) {
+            boolean ok = true;
+            for (DoubleColumn column : columns) {
+                ok &= !Double.isNaN(column.getDouble(r));
+            }
+            if (ok) {
+                complete.add(r);
+            }
+        }
+        final double[] means = new double[size];
+        for (int j = 0; j < size; ++j) {
+            for (int r : complete) {
+                means[j] += columns.get(j).getDouble(r) / complete.size();
+            }
+        }
+        final Matrix result = new Matrix(size, size);
+        for (int i = 0; i < size; ++i) {
+            for (int j = 0; j < size; ++j) {
+                double sum = 0d;
+                for (int r : complete) {
+                    sum += (columns.get(i).getDouble(r) - means[i]) * (columns.get(j).getDouble(r) - means[j]);
+                }
+                result.set(i, j, sum / (complete.size() - 1));
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void matrixArithmetic() {
+        final Matrix a = Matrix.of(new double[][] {{1, 2, 3}, {4, 5, 6}});
+        final Matrix b = Matrix.of(new double[][] {{7, 8}, {9, 10}, {11, 12}});
+        assertMatrixEquals(Matrix.of(new double[][] {{58, 64}, {139, 154}}), a.multiply(b), 0d);
+        assertMatrixEquals(Matrix.of(new double[][] {{1, 4}, {2, 5}, {3, 6}}), a.transpose(), 0d);
+        assertArrayEquals(new double[] {14, 32}, a.multiply(new double[] {1, 2, 3}));
+        assertMatrixEquals(Matrix.of(new double[][] {{2, 4, 6}, {8, 10, 12}}), a.scale(2d), 0d);
+        assertMatrixEquals(a, a.multiply(Matrix.identity(3)), 0d);
+        assertArrayEquals(new double[] {3, 6}, a.column(2));
+        final Matrix copy = a.copy().set(0, 0, -1d);
+        assertEquals(1d, a.get(0, 0));
+        assertEquals(-1d, copy.get(0, 0));
+        final DataFrame frame = a.toFrame(List.of("p", "q", "r"));
+        assertEquals(List.of("p", "q", "r"), frame.columnNames());
+        assertEquals(6d, frame.doubles("r").getDouble(1));
+        assertThrows(DataFrameException.class, () -> a.multiply(a));
+        assertThrows(DataFrameException.class, () -> a.multiply(new double[2]));
+    }
+
+    @Test
+    public void qrReconstructsAndSolvesLeastSquares() {
+        final Matrix a = random(40, 5, 1L);
+        final QR qr = QR.of(a);
+        assertTrue(qr.isFullRank());
+        final Matrix q = qr.q();
+        final Matrix r = qr.r();
+        assertMatrixEquals(a, q.multiply(r), TOLERANCE);
+        assertMatrixEquals(Matrix.identity(5), q.transpose().multiply(q), TOLERANCE);
+        for (int i = 1; i < 5; ++i) {
+            for (int j = 0; j < i; ++j) {
+                assertEquals(0d, r.get(i, j));
+            }
+        }
+        final double[] b = random(40, 1, 2L).column(0);
+        final double[] x = qr.solve(b);
+        final double[] aty = a.transpose().multiply(b);
+        final double[] expected = Cholesky.of(a.transpose().multiply(a)).solve(aty);
+        assertArrayEquals(expected, x, TOLERANCE);
+        final double[] exact = {1.5, -2, 0.25, 3, -0.5};
+        assertArrayEquals(exact, qr.solve(a.multiply(exact)), TOLERANCE);
+        final Matrix deficient = Matrix.of(new double[][] {{1, 2}, {2, 4}, {3, 6}});
+        assertFalse(QR.of(deficient).isFullRank());
+        assertThrows(DataFrameException.class, () -> QR.of(deficient).solve(new double[] {1, 2, 3}));
+        assertThrows(DataFrameException.class, () -> qr.solve(new double[3]));
+    }
+
+    @Test
+    public void choleskySolvesInvertsAndGivesDeterminant() {
+        final Matrix a = positiveDefinite(6, 3L);
+        final Cholesky cholesky = Cholesky.of(a);
+        final Matrix lower = cholesky.lower();
+        assertMatrixEquals(a, lower.multiply(lower.transpose()), TOLERANCE * 100d);
+        final double[] x = {1, -1, 2, 0.5, -3, 0.125};
+        assertArrayEquals(x, cholesky.solve(a.multiply(x)), TOLERANCE);
+        assertMatrixEquals(Matrix.identity(6), a.multiply(cholesky.inverse()), TOLERANCE);
+        final Matrix b = random(6, 2, 4L);
+        assertMatrixEquals(b, a.multiply(cholesky.solve(b)), TOLERANCE);
+        final Matrix small = Matrix.of(new double[][] {{4, 2}, {2, 3}});
+        assertEquals(Math.log(8d), Cholesky.of(small).logDeterminant(), TOLERANCE);
+        double logDeterminant = 0d;
+        for (double value : SVD.of(a).singularValues()) {
+            logDeterminant += Math.log(value);
+        }
+        assertEquals(logDeterminant, cholesky.logDeterminant(), TOLERANCE);
+        assertThrows(DataFrameException.class, () -> Cholesky.of(Matrix.of(new double[][] {{1, 2}, {2, 1}})));
+        assertThrows(DataFrameException.class, () -> Cholesky.of(random(3, 2, 5L)));
+    }
+
+    @Test
+    public void svdReconstructsTallAndWideMatrices() {
+        for (Matrix a : List.of(random(30, 4, 6L), random(4, 9, 7L), random(5, 5, 8L))) {
+            final SVD svd = SVD.of(a);
+            final double[] values = svd.singularValues();
+            for (int i = 1; i < values.length; ++i) {
+                assertTrue(values[i - 1] >= values[i]);
+            }
+            final Matrix u = svd.u();
+            final Matrix v = svd.v();
+            final Matrix sigma = diagonal(values, u.cols(), v.cols());
+            assertMatrixEquals(a, u.multiply(sigma).multiply(v.transpose()), TOLERANCE);
+            assertMatrixEquals(Matrix.identity(v.cols()), v.transpose().multiply(v), TOLERANCE);
+            assertEquals(Math.min(a.rows(), a.cols()), svd.rank());
+            assertEquals(values[0] / values[values.length - 1], svd.conditionNumber(), TOLERANCE);
+        }
+        final Matrix diagonal = Matrix.of(new double[][] {{3, 0, 0}, {0, -5, 0}, {0, 0, 0}, {0, 0, 0}});
+        final SVD svd = SVD.of(diagonal);
+        assertArrayEquals(new double[] {5, 3, 0}, svd.singularValues(), TOLERANCE);
+        assertEquals(2, svd.rank());
+        assertEquals(Double.POSITIVE_INFINITY, svd.conditionNumber());
+    }
+
+    @Test
+    public void crossProductsExcludeIncompleteRows() {
+        final List<DoubleColumn> columns = columns(20000, 9L);
+        final Matrix expected = naiveCovariance(columns);
+        for (int parallelism : new int[] {1, 4}) {
+            final CrossProducts products = CrossProducts.of(columns, parallelism);
+            assertEquals(4, products.size());
+            for (int i = 0; i < 4; ++i) {
+                for (int j = 0; j < 4; ++j) {
+                    final double tolerance = TOLERANCE * Math.max(1d, Math.abs(expected.get(i, j)));
+                    assertEquals(expected.get(i, j), products.covariance(i, j), tolerance, "parallelism " + parallelism);
+                    assertEquals(products.get(i, j), products.covariance(i, j) * (products.count() - 1), tolerance * products.count());
+                    final double correlation = expected.get(i, j) / Math.sqrt(expected.get(i, i) * expected.get(j, j));
+                    assertEquals(correlation, products.correlation(i, j), TOLERANCE);
+                }
+            }
+        }
+        final CrossProducts products = CrossProducts.of(columns);
+        long count = 0L;
+        double sum = 0d;
+        for (int r = 0; r < 20000; ++r) {
+            boolean complete = true;
+            for (DoubleColumn column : columns) {
+                complete &= !Double.isNaN(column.getDouble(r));
+            }
+            if (complete) {
+                count++;
+                sum += columns.get(2).getDouble(r);
+            }
+        }
+        assertEquals(count, products.count());
+        assertEquals(sum / count, products.mean(2), TOLERANCE * 1000d);
+        final DoubleColumn partial = Columns.ofDoubles("x", 1d, 2d);
+        partial.setNull(1);
+        final CrossProducts single = CrossProducts.of(List.of(partial));
+        assertEquals(1L, single.count());
+        assertEquals(Double.NaN, single.covariance(0, 0));
+    }
+
+    @Test
+    public void covarianceAndCorrelationOfFrame() {
+        final List<DoubleColumn> columns = columns(5000, 10L);
+        final DataFrame frame = DataFrame.of(columns);
+        final Matrix expected = naiveCovariance(columns);
+        final Matrix covariance = Covariance.covariance(frame);
+        final Matrix correlation = Covariance.correlation(frame, "x0", "x1", "x2", "x3");
+        for (int i = 0; i < 4; ++i) {
+            assertEquals(1d, correlation.get(i, i), TOLERANCE);
+            for (int j = 0; j < 4; ++j) {
+                assertEquals(expected.get(i, j), covariance.get(i, j), TOLERANCE * Math.max(1d, Math.abs(expected.get(i, j))));
+                assertEquals(covariance.get(i, j), covariance.get(j, i), 0d);
+                assertEquals(expected.get(i, j) / Math.sqrt(expected.get(i, i) * expected.get(j, j)), correlation.get(i, j), TOLERANCE);
+            }
+        }
+        final Matrix pair = Covariance.covariance(frame, "x2", "x0");
+        assertEquals(2, pair.rows());
+        assertTrue(Math.abs(pair.get(0, 0) - pair.get(1, 1)) > 100d);
+    }
+
+    @Test
+    public void principalComponents() {
+        final List<DoubleColumn> columns = columns(8000, 11L);
+        final DataFrame frame = DataFrame.of(columns);
+        final Matrix covariance = Covariance.covariance(frame);
+        final Pca pca = Pca.covariance(frame);
+        assertEquals(List.of("x0", "x1", "x2", "x3"), pca.columnNames());
+        assertEquals(CrossProducts.of(columns).count(), pca.count());
+        final double[] eigenvalues = pca.eigenvalues();
+        final Matrix components = pca.components();
+        double total = 0d;
+        for (int c = 0; c < 4; ++c) {
+            total += eigenvalues[c];
+            final double[] vector = components.column(c);
+            final double[] product = covariance.multiply(vector);
+            for (int i = 0; i < 4; ++i) {
+                assertEquals(eigenvalues[c] * vector[i], product[i], 1e-7 * eigenvalues[0]);
+            }
+            int largest = 0;
+            for (int i = 1; i < 4; ++i) {
+                largest = Math.abs(vector[i]) > Math.abs(vector[largest]) ? i : largest;
+            }
+            assertTrue(vector[largest] > 0d);
+        }
+        double trace = 0d;
+        for (int i = 0; i < 4; ++i) {
+            trace += covariance.get(i, i);
+            assertEquals(eigenvalues[i] / total, pca.explainedVarianceRatio()[i], TOLERANCE);
+        }
+        assertEquals(trace, total, TOLERANCE * trace);
+        final DataFrame scores = pca.transform(frame, 2);
+        assertEquals(List.of("pc1", "pc2"), scores.columnNames());
+        assertEquals(frame.rowCount(), scores.rowCount());
+        for (int r = 0; r < 50; ++r) {
+            double expected = 0d;
+            boolean complete = true;
+            for (int i = 0; i < 4; ++i) {
+                final double value = columns.get(i).getDouble(r);
+                complete &= !Double.isNaN(value);
+                expected += (value - CrossProducts.of(columns).mean(i)) * components.get(i, 1);
+            }
+            final double actual = scores.doubles("pc2").getDouble(r);
+            if (complete) {
+                assertEquals(expected, actual, TOLERANCE * 1000d, "row " + r);
+            } else {
+                assertEquals(Double.NaN, actual, "row " + r);
+            }
+        }
+        final double[] ratios = Pca.correlation(frame).explainedVarianceRatio();
+        assertEquals(1d, ratios[0] + ratios[1] + ratios[2] + ratios[3], TOLERANCE);
+        assertEquals(4d, sum(Pca.correlation(frame).eigenvalues()), TOLERANCE);
+        assertThrows(IllegalArgumentException.class, () -> pca.transform(frame, 5));
+        final DataFrame constant = DataFrame.of(Columns.ofDoubles("a", 1, 2, 3), Columns.ofDoubles("b", 5, 5, 5));
+        assertThrows(DataFrameException.class, () -> Pca.correlation(constant));
+    }
+
+    /**
+     * Returns the sum of the values specified
+     */
+    private static double sum(double[] values) {
+        double sum = 0d;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,259 @@
+package com.zavtech.morpheus.linalg;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of ordinary, weighted and generalized least squares against a QR solve of an explicitly transformed design
+ */
+public class RegressionTest {
+
+    private static final double[] BETA = {2.5, -1.25, 0.75, 3};
+
+    /**
+     * Returns a frame with regressors x1 to x3, a weight column w and a response y = 2.5 - 1.25 x1 + 0.75 x2 + 3 x3 + e,
+     * where the errors follow an AR(1) process with the autocorrelation specified and some values are null
+     */
+    private static DataFrame frame(int rows, double rho, long seed) {
+        final Random random = new Random(seed);
+        final double[][] x = new double[3][rows];
+        final double[] w = new double[rows];
+        final double[] y = new double[rows];
+        double error = 0d;
+        for (int i = 0; i < rows; ++i) {
+            x[0][i] = random.nextGaussian() * 2d;
+            x[1][i] = 5d + random.nextGaussian();
+            x[2][i] = x[0][i] * 0.3d + random.nextGaussian();
+            w[i] = 0.5d + random.nextDouble() * 2d;
+            error = rho * error + random.nextGaussian() * 0.5d;
+            y[i] = BETA[0] + BETA[1] * x[0][i] + BETA[2] * x[1][i] + BETA[3] * x[2][i] + error;
+            if (i % 97 == 13) {
+                x[1][i] = Double.NaN;
+            } else if (i % 89 == 40) {
+                y[i] = Double.NaN;
+            }
+        }
+        return DataFrame.of(
+            Columns.ofDoubles("x1", x[0]),
+            Columns.ofDoubles("x2", x[1]),
+            Columns.ofDoubles("x3", x[2]),
+            Columns.ofDoubles("w", w),
+            Columns.ofDoubles("y", y)
+        );
+    }
+
+    /**
+     * Returns true if none of the regressors or the response of a row is NaN
+     */
+    private static boolean complete(DataFrame frame, int row) {
+        for (String name : List.of("x1", "x2", "x3", "y")) {
+            if (Double.isNaN(frame.doubles(name).getDouble(row))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the design row of the intercept and regressors followed by the response, scaled by the square root of the weight
+     */
+    private static double[] row(DataFrame frame, int row, boolean weighted) {
+        final double scale = weighted ? Math.sqrt(frame.doubles("w").getDouble(row)) : 1d;
+        return new double[] {
+            scale,
+            scale * frame.doubles("x1").getDouble(row),
+            scale * frame.doubles("x2").getDouble(row),
+            scale * frame.doubles("x3").getDouble(row),
+            scale * frame.doubles("y").getDouble(row)
+        };
+    }
+
+    /**
+     * Returns the transformed rows of the design and response, applying weights and the Prais-Winsten transform
+     */
+    private static List<double[]> transformed(DataFrame frame, boolean weighted, double rho) {
+        final List<double[]> rows = new ArrayList<>();
+        for (int i = 0; i < frame.rowCount(); ++i) {
+            if (!complete(frame, i)) {
+                continue;
+            }
+            final double[] current = row(frame, i, weighted);
+            if (rho == 0d) {
+                rows.add(current);
+            } else if (i == 0) {
+                final double head = Math.sqrt(1d - rho * rho);
+                for (int j = 0; j < current.length; ++j) {
+                    current[j] *= head;
+                }
+                rows.add(current);
+            } else if (complete(frame, i - 1)) {
+                final double[] previous = row(frame, i - 1, weighted);
+                for (int j = 0; j < current.length; ++j) {
+                    current[j] -= rho * previous[j];
+                }
+                rows.add(current);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the least squares coefficients, residual sum of squares and standard errors of transformed rows by a dense QR
+     */
+    private static double[][] reference(List<double[]> rows) {
+        final int n = rows.size();
+        final Matrix design = new Matrix(n, 4);
+        final double[] response = new double[n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < 4; ++j) {
+                design.set(i, j, rows.get(i)[j]);
+            }
+            response[i] = rows.get(i)[4];
+        }
+        final double[] beta = QR.of(design).solve(response);
+        final double[] fitted = design.multiply(beta);
+        double rss = 0d;
+        for (int i = 0; i < n; ++i) {
+            rss += (response[i] - fitted[i]) * (response[i] - fitted[i]);
+        }
+        final Matrix inverse = Cholesky.of(design.transpose().multiply(design)).inverse();
+        final double[] errors = new double[4];
+        for (int j = 0; j < 4; ++j) {
+            errors[j] = Math.sqrt(rss / (n - 4) * inverse.get(j, j));
+        }
+        return new double[][] {beta, {rss, n}, errors};
+    }
+
+    /**
+     * Asserts a fitted model matches the reference fit of the rows specified
+     */
+    private static void assertFit(List<double[]> rows, RegressionResult result) {
+        final double[][] expected = reference(rows);
+        assertEquals(List.of(RegressionResult.INTERCEPT, "x1", "x2", "x3"), result.terms());
+        assertEquals((long)expected[1][1], result.count());
+        assertEquals(result.count() - 4, result.degreesOfFreedom());
+        assertArrayEquals(expected[0], result.coefficients(), 1e-9);
+        assertEquals(expected[1][0], result.residualSumOfSquares(), 1e-9 * expected[1][0]);
+        assertArrayEquals(expected[2], result.standardErrors(), 1e-9);
+        for (int j = 0; j < 4; ++j) {
+            assertEquals(result.coefficients()[j] / result.standardErrors()[j], result.tStatistics()[j], 1e-9 * Math.abs(result.tStatistics()[j]));
+            assertEquals(result.standardErrors()[j] * result.standardErrors()[j], result.covariance().get(j, j), 1e-12);
+        }
+    }
+
+    @Test
+    public void ordinaryLeastSquaresRecoversCoefficients() {
+        final DataFrame frame = frame(20000, 0d, 1L);
+        for (int parallelism : new int[] {1, 4}) {
+            final RegressionResult result = Regression.of(frame, "y", "x1", "x2", "x3").setParallelism(parallelism).fit();
+            assertFit(transformed(frame, false, 0d), result);
+            for (int j = 0; j < 4; ++j) {
+                assertEquals(BETA[j], result.coefficients()[j], 5d * result.standardErrors()[j]);
+            }
+            assertEquals(-1.25d, result.coefficient("x1"), 0.05d);
+            assertEquals(0.25d, result.residualVariance(), 0.02d);
+        }
+        final RegressionResult result = Regression.of(frame, "y", "x1", "x2", "x3").fit();
+        double mean = 0d;
+        final List<Integer> complete = new ArrayList<>();
+        for (int i = 0; i < frame.rowCount(); ++i) {
+            if (complete(frame, i)) {
+                complete.add(i);
+                mean += frame.doubles("y").getDouble(i);
+            }
+        }
+        mean /= complete.size();
+        double total = 0d;
+        for (int i : complete) {
+            total += Math.pow(frame.doubles("y").getDouble(i) - mean, 2);
+        }
+        final double n = complete.size();
+        assertEquals(1d - result.residualSumOfSquares() / total, result.rSquared(), 1e-9);
+        assertEquals(1d - (1d - result.rSquared()) * (n - 1) / (n - 4), result.adjustedRSquared(), 1e-9);
+        assertTrue(result.rSquared() > 0.9d);
+    }
+
+    @Test
+    public void weightedLeastSquaresScalesRows() {
+        final DataFrame frame = frame(5000, 0d, 2L);
+        final RegressionResult result = Regression.of(frame, "y", "x1", "x2", "x3").setWeights("w").setParallelism(4).fit();
+        assertFit(transformed(frame, true, 0d), result);
+        final DataFrame negative = DataFrame.of(Columns.ofDoubles("x", 1, 2, 3, 4), Columns.ofDoubles("y", 1, 3, 2, 5), Columns.ofDoubles("w", 1, -1, 1, 1));
+        assertThrows(DataFrameException.class, () -> Regression.of(negative, "y", "x").setWeights("w").fit());
+    }
+
+    @Test
+    public void generalizedLeastSquaresWithAutocorrelatedErrors() {
+        final DataFrame frame = frame(12000, 0.8d, 3L);
+        for (int parallelism : new int[] {1, 3}) {
+            final RegressionResult gls = Regression.of(frame, "y", "x1", "x2", "x3").setAutocorrelation(0.8d).setParallelism(parallelism).fit();
+            assertFit(transformed(frame, false, 0.8d), gls);
+            final RegressionResult weighted = Regression.of(frame, "y", "x1", "x2", "x3").setWeights("w").setAutocorrelation(0.8d).setParallelism(parallelism).fit();
+            assertFit(transformed(frame, true, 0.8d), weighted);
+        }
+        final RegressionResult gls = Regression.of(frame, "y", "x1", "x2", "x3").setAutocorrelation(0.8d).fit();
+        final RegressionResult ols = Regression.of(frame, "y", "x1", "x2", "x3").fit();
+        assertTrue(gls.standardErrors()[1] < ols.standardErrors()[1]);
+        assertEquals(0.25d, gls.residualVariance(), 0.02d);
+    }
+
+    @Test
+    public void predictionAndCoefficientTable() {
+        final DataFrame frame = frame(1000, 0d, 4L);
+        final RegressionResult result = Regression.of(frame, "y", "x1", "x2", "x3").fit();
+        final DoubleColumn predicted = result.predict(frame);
+        assertEquals("y", predicted.name());
+        for (int i = 0; i < frame.rowCount(); ++i) {
+            final double[] row = row(frame, i, false);
+            double expected = 0d;
+            for (int j = 0; j < 4; ++j) {
+                expected += row[j] * result.coefficients()[j];
+            }
+            if (Double.isNaN(expected)) {
+                assertEquals(Double.NaN, predicted.getDouble(i), "row " + i);
+            } else {
+                assertEquals(expected, predicted.getDouble(i), 1e-9, "row " + i);
+            }
+        }
+        final DataFrame table = result.toFrame();
+        assertEquals(List.of("term", "coefficient", "std_error", "t_stat"), table.columnNames());
+        assertEquals("x2", table.strings("term").getString(2));
+        assertEquals(result.coefficient("x2"), table.doubles("coefficient").getDouble(2));
+        assertThrows(DataFrameException.class, () -> result.coefficient("x4"));
+    }
+
+    @Test
+    public void modelWithoutIntercept() {
+        final DataFrame frame = DataFrame.of(Columns.ofDoubles("x", 1, 2, 3, 4), Columns.ofDoubles("y", 2, 4.5, 5.5, 8));
+        final RegressionResult result = Regression.of(frame, "y", "x").setIntercept(false).fit();
+        assertEquals(List.of("x"), result.terms());
+        assertEquals(59.5d / 30d, result.coefficient("x"), 1e-12);
+        final double squares = 4d + 4.5d * 4.5d + 5.5d * 5.5d + 64d;
+        final double rss = squares - 59.5d * 59.5d / 30d;
+        assertEquals(rss, result.residualSumOfSquares(), 1e-9);
+        assertEquals(1d - rss / squares, result.rSquared(), 1e-9);
+    }
+
+    @Test
+    public void invalidModels() {
+        final DataFrame frame = DataFrame.of(Columns.ofDoubles("a", 1, 2, 3, 4), Columns.ofDoubles("b", 2, 4, 6, 8), Columns.ofDoubles("y", 1, 3, 2, 5));
+        assertThrows(DataFrameException.class, () -> Regression.of(frame, "y", "a", "b").fit());
+        assertThrows(DataFrameException.class, () -> Regression.of(frame.head(2), "y", "a").fit());
+        assertThrows(IllegalArgumentException.class, () -> Regression.of(frame, "y", "a").setAutocorrelation(1d));
+        assertThrows(IllegalArgumentException.class, () -> Regression.of(frame, "y", "a").setAutocorrelation(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> Regression.of(frame, "y", "a").setParallelism(0));
+    }
+}
@@ -0,0 +1,110 @@
+package com.zavtech.morpheus.memory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of off-heap memory regions, using small chunks so that bulk copies cross chunk boundaries
+ */
+public class BufferMemoryTest {
+
+    /**
+     * Returns a region of 64 byte chunks over direct buffers
+     */
+    private static BufferMemory chunked(int chunks) {
+        final ByteBuffer[] buffers = new ByteBuffer[chunks];
+        for (int i = 0; i < chunks; ++i) {
+            buffers[i] = ByteBuffer.allocateDirect(64);
+        }
+        return BufferMemory.wrap(6, true, buffers);
+    }
+
+    @Test
+    public void testScalarAccess() {
+        try (BufferMemory memory = BufferMemory.allocate(64)) {
+            memory.putLong(0, Long.MIN_VALUE);
+            memory.putDouble(8, Math.PI);
+            memory.putInt(16, -7);
+            memory.putByte(20, (byte)0x7f);
+            assertEquals(Long.MIN_VALUE, memory.getLong(0));
+            assertEquals(Math.PI, memory.getDouble(8), 0d);
+            assertEquals(-7, memory.getInt(16));
+            assertEquals(0x7f, memory.getByte(20));
+            assertEquals(0L, memory.getLong(24));
+        }
+    }
+
+    @Test
+    public void testBulkCopiesAcrossChunks() {
+        try (BufferMemory memory = chunked(4)) {
+            final long[] longs = new long[20];
+            final double[] doubles = new double[20];
+            final int[] ints = new int[40];
+            for (int i = 0; i < longs.length; ++i) {
+                longs[i] = i * 1000003L;
+                doubles[i] = i / 3d;
+            }
+            for (int i = 0; i < ints.length; ++i) {
+                ints[i] = -i;
+            }
+            memory.putLongs(24, longs, 0, 20);
+            final long[] longsOut = new long[20];
+            memory.getLongs(24, longsOut, 0, 20);
+            assertArrayEquals(longs, longsOut);
+            memory.putDoubles(24, doubles, 0, 20);
+            final double[] doublesOut = new double[20];
+            memory.getDoubles(24, doublesOut, 0, 20);
+            assertArrayEquals(doubles, doublesOut, 0d);
+            memory.putInts(32, ints, 0, 40);
+            final int[] intsOut = new int[40];
+            memory.getInts(32, intsOut, 0, 40);
+            assertArrayEquals(ints, intsOut);
+        }
+    }
+
+    @Test
+    public void testChannelRoundTrip() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (BufferMemory memory = chunked(3)) {
+            for (int i = 0; i < 24; ++i) {
+                memory.putLong(i * 8L, i);
+            }
+            memory.write(Channels.newChannel(bytes), 8, 176);
+        }
+        assertEquals(176, bytes.size());
+        try (BufferMemory memory = chunked(3)) {
+            memory.read(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())), 0, 176);
+            for (int i = 0; i < 22; ++i) {
+                assertEquals(i + 1, memory.getLong(i * 8L));
+            }
+        }
+    }
+
+    @Test
+    public void testCloseReleasesMemory() {
+        final long before = BufferMemory.allocatedBytes();
+        final BufferMemory memory = BufferMemory.allocate(4096);
+        assertEquals(before + 4096, BufferMemory.allocatedBytes());
+        memory.close();
+        memory.close();
+        assertTrue(memory.isClosed());
+        assertEquals(before, BufferMemory.allocatedBytes());
+        assertThrows(IndexOutOfBoundsException.class, () -> memory.getLong(0));
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> BufferMemory.allocate(-1));
+        assertThrows(IllegalArgumentException.class, () -> BufferMemory.wrap(6, false, ByteBuffer.allocate(32), ByteBuffer.allocate(64)));
+    }
+}
@@ -0,0 +1,143 @@
+package com.zavtech.morpheus.parallel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.Test;
+
+import com.zavtech.morpheus.frame.DataFrameException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the morsel executor, covering result order, per worker state, nesting and failures
+ */
+public class MorselsTest {
+
+    @Test
+    public void morselBoundariesAndResultOrder() throws Exception {
+        final Morsels morsels = Morsels.create().setParallelism(4).setMorselRows(1000);
+        assertEquals(1, morsels.morselCount(0));
+        assertEquals(1, morsels.morselCount(1000));
+        assertEquals(11, morsels.morselCount(10001));
+        assertEquals(Integer.MAX_VALUE / 1000 + 1, morsels.morselCount(Integer.MAX_VALUE));
+        final List<int[]> ranges = morsels.map(10001, (from, to) -> new int[] {from, to});
+        assertEquals(11, ranges.size());
+        for (int i = 0; i < ranges.size(); ++i) {
+            assertEquals(i * 1000, ranges.get(i)[0]);
+            assertEquals(Math.min(10001, i * 1000 + 1000), ranges.get(i)[1]);
+        }
+        final List<int[]> empty = morsels.map(0, (from, to) -> new int[] {from, to});
+        assertEquals(1, empty.size());
+        assertEquals(0, empty.get(0)[1]);
+    }
+
+    @Test
+    public void workerStateCoversEveryRowOnce() {
+        final int rows = 1_000_003;
+        final AtomicIntegerArray seen = new AtomicIntegerArray(rows);
+        final List<long[]> states = Morsels.create().setParallelism(6).setMorselRows(4096).collect(rows, () -> new long[1], (state, morsel, from, to) -> {
+            for (int i = from; i < to; ++i) {
+                seen.incrementAndGet(i);
+                state[0] += i;
+            }
+        });
+        assertTrue(states.size() <= 6 && !states.isEmpty());
+        long total = 0L;
+        for (long[] state : states) {
+            total += state[0];
+        }
+        assertEquals((long)rows * (rows - 1) / 2, total);
+        for (int i = 0; i < rows; ++i) {
+            assertEquals(1, seen.get(i), "row " + i);
+        }
+    }
+
+    @Test
+    public void invokeAllInOrderOnCallerAndPool() {
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        final List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            final int index = i;
+            tasks.add(() -> {
+                threads.add(Thread.currentThread());
+                Thread.sleep(1);
+                return index * index;
+            });
+        }
+        final List<Integer> results = Morsels.create().setParallelism(4).invokeAll(tasks);
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(i * i, results.get(i));
+        }
+        assertTrue(threads.contains(Thread.currentThread()));
+        threads.clear();
+        Morsels.create().setParallelism(1).invokeAll(tasks);
+        assertEquals(Set.of(Thread.currentThread()), threads);
+    }
+
+    @Test
+    public void nestedCallsInsideACustomPool() throws Exception {
+        final ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            final AtomicInteger count = new AtomicInteger();
+            final List<Integer> outer = pool.submit(() -> Morsels.create().setPool(pool).setParallelism(3).setMorselRows(1).map(8, (from, to) -> {
+                final List<Integer> inner = Morsels.create().setPool(pool).setParallelism(3).setMorselRows(10).map(100, (a, b) -> {
+                    count.addAndGet(b - a);
+                    return b - a;
+                });
+                return inner.stream().mapToInt(Integer::intValue).sum();
+            })).get();
+            assertEquals(List.of(100, 100, 100, 100, 100, 100, 100, 100), outer);
+            assertEquals(800, count.get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void failuresStopWorkAndAreRethrown() {
+        final Morsels morsels = Morsels.create().setParallelism(4).setMorselRows(10);
+        final IllegalStateException failure = new IllegalStateException("boom");
+        final AtomicInteger started = new AtomicInteger();
+        final IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> morsels.forEach(100000, (morsel, from, to) -> {
+            started.incrementAndGet();
+            if (morsel == 3) {
+                throw failure;
+            }
+        }));
+        assertSame(failure, thrown);
+        assertTrue(started.get() < 10000, "started " + started.get());
+        final UncheckedIOException io = assertThrows(UncheckedIOException.class, () -> morsels.map(100, (from, to) -> {
+            throw new IOException("disk");
+        }));
+        assertEquals("disk", io.getCause().getMessage());
+        final DataFrameException checked = assertThrows(DataFrameException.class, () -> morsels.map(100, (from, to) -> {
+            throw new Exception("checked");
+        }));
+        assertEquals("checked", checked.getCause().getMessage());
+        assertThrows(AssertionError.class, () -> morsels.forEach(100, (morsel, from, to) -> {
+            throw new AssertionError("error");
+        }));
+    }
+
+    @Test
+    public void invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> Morsels.create().setParallelism(0));
+        assertThrows(IllegalArgumentException.class, () -> Morsels.create().setMorselRows(0));
+        assertThrows(IllegalArgumentException.class, () -> Morsels.setDefaultParallelism(0));
+        assertThrows(NullPointerException.class, () -> Morsels.create().setPool(null));
+        assertEquals(Morsels.getDefaultParallelism(), Morsels.create().getParallelism());
+        assertEquals(Morsels.DEFAULT_MORSEL_ROWS, Morsels.create().getMorselRows());
+    }
+}
@@ -0,0 +1,143 @@
+package com.zavtech.morpheus.profile;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.Attribute;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.zavtech.morpheus.parallel.Morsels;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of operator profiles, the attachment of parallel workers to them and the totals published through JMX
+ */
+public class ProfilerTest {
+
+    @AfterEach
+    public void disable() {
+        Profiler.setEnabled(false);
+    }
+
+    /**
+     * Returns a value computed by a busy loop, so that workers use measurable CPU time
+     */
+    private static double work(int seed) {
+        double sum = 0d;
+        for (int i = 0; i < 200000; ++i) {
+            sum += Math.sqrt(i + seed);
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the current profile seen by each thread that runs a morsel of a parallel loop
+     */
+    private static Set<Object> currentOfWorkers() {
+        final Set<Object> seen = ConcurrentHashMap.newKeySet();
+        Morsels.create().setParallelism(4).forEach(32 * Morsels.DEFAULT_MORSEL_ROWS, (morsel, from, to) -> {
+            final OperatorProfile current = Profiler.current();
+            seen.add(current != null ? current : "none");
+            work(from);
+        });
+        return seen;
+    }
+
+    @Test
+    public void nestedOperatorsFormTree() {
+        assertNull(Profiler.current());
+        final OperatorProfile root = Profiler.enter("Query");
+        assertTrue(Profiler.isActive());
+        final OperatorProfile child = Profiler.enter("Filter v > 0");
+        Profiler.rowsIn(100L);
+        Profiler.spilled(4096L);
+        assertSame(child, Profiler.current());
+        Profiler.exit(child, 40L);
+        assertSame(root, Profiler.current());
+        Profiler.exit(root, 40L);
+        assertNull(Profiler.current());
+        assertEquals(List.of(child), root.children());
+        assertSame(root, child.parent());
+        assertTrue(root.isComplete() && child.isComplete());
+        assertEquals(100L, child.rowsIn());
+        assertEquals(40L, child.rowsOut());
+        assertEquals(4096L, child.spillBytes());
+        assertEquals(0L, root.spillBytes());
+        assertTrue(root.totalWallNanos() >= root.wallNanos() + child.wallNanos() - 1000000L);
+        assertEquals(1, child.threads());
+        final String text = root.toString();
+        assertTrue(text.startsWith("Query  (rows="), text);
+        assertTrue(text.contains("\n  Filter v > 0  (rows=100 -> 40"), text);
+        assertTrue(text.contains("spill=4.0KB"), text);
+    }
+
+    @Test
+    public void parallelWorkersAreChargedToOperator() {
+        final OperatorProfile profile = Profiler.enter("GroupBy");
+        final Set<Object> seen;
+        try {
+            seen = currentOfWorkers();
+        } finally {
+            Profiler.exit(profile, 0L);
+        }
+        assertEquals(Collections.singleton(profile), seen);
+        assertTrue(profile.threads() > 1, "threads " + profile.threads());
+        assertTrue(profile.cpuNanos() > 0L);
+        assertEquals(Collections.singleton("none"), currentOfWorkers());
+    }
+
+    @Test
+    public void workersDetachWhenTasksFail() {
+        final OperatorProfile profile = Profiler.enter("Sort");
+        try {
+            assertThrows(IllegalStateException.class, () -> Morsels.create().setParallelism(4).forEach(16 * Morsels.DEFAULT_MORSEL_ROWS, (morsel, from, to) -> {
+                if (morsel % 3 == 2) {
+                    throw new IllegalStateException("morsel " + morsel);
+                }
+                work(from);
+            }));
+            assertSame(profile, Profiler.current());
+        } finally {
+            Profiler.exit(profile, -1L);
+        }
+        assertEquals(-1L, profile.rowsOut());
+        assertEquals(Collections.singleton("none"), currentOfWorkers());
+    }
+
+    @Test
+    public void totalsArePublishedThroughJmx() throws Exception {
+        Profiler.setEnabled(true);
+        assertTrue(Profiler.isEnabled());
+        assertTrue(Profiler.isActive());
+        final ObjectName name = new ObjectName(Profiler.OBJECT_NAME);
+        ManagementFactory.getPlatformMBeanServer().invoke(name, "reset", null, null);
+        for (int i = 0; i < 3; ++i) {
+            final OperatorProfile root = Profiler.enter("Query");
+            Profiler.exit(Profiler.enter("Filter k > " + i), 10L);
+            Profiler.exit(root, 10L + i);
+        }
+        assertEquals(3L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "ProfileCount"));
+        final String last = (String)ManagementFactory.getPlatformMBeanServer().getAttribute(name, "LastProfile");
+        assertTrue(last.startsWith("Query  (rows=10 -> 12"), last);
+        final List<OperatorSummary> totals = Profiler.totals();
+        assertEquals(List.of("Filter", "Query"), totals.stream().map(OperatorSummary::getName).toList());
+        assertEquals(3L, totals.get(0).getInvocations());
+        assertEquals(30L, totals.get(0).getRowsOut());
+        assertEquals(33L, totals.get(1).getRowsOut());
+        ManagementFactory.getPlatformMBeanServer().setAttribute(name, new Attribute("Enabled", false));
+        assertFalse(Profiler.isEnabled());
+        ManagementFactory.getPlatformMBeanServer().invoke(name, "reset", null, null);
+        assertTrue(Profiler.totals().isEmpty());
+    }
+}
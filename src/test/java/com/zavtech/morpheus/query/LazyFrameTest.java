@@ -0,0 +1,225 @@
+package com.zavtech.morpheus.query;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.IntColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.expr.Expression;
+import com.zavtech.morpheus.filter.Predicate;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.groupby.Aggregate;
+import com.zavtech.morpheus.groupby.GroupBy;
+import com.zavtech.morpheus.io.ColumnFile;
+import com.zavtech.morpheus.io.CsvOptions;
+import com.zavtech.morpheus.join.Join;
+import com.zavtech.morpheus.join.JoinType;
+import com.zavtech.morpheus.profile.OperatorProfile;
+import com.zavtech.morpheus.profile.Profiler;
+import com.zavtech.morpheus.sort.SortKey;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that lazy query plans push predicates and projections into their scans and match eager results
+ */
+public class LazyFrameTest {
+
+    @TempDir
+    Path folder;
+
+    /**
+     * Returns a frame with an int key, two double values and a long value
+     */
+    private static DataFrame frame(int rows) {
+        final IntColumn k = Columns.ints("k", rows);
+        final DoubleColumn v = Columns.doubles("v", rows);
+        final LongColumn w = Columns.longs("w", rows);
+        final DoubleColumn x = Columns.doubles("x", rows);
+        for (int i = 0; i < rows; ++i) {
+            k.setInt(i, (i * 37) % 50);
+            v.setDouble(i, ((i * 7919) % 1000) / 1000d);
+            w.setLong(i, (i * 104729L) % 1000);
+            x.setDouble(i, Math.sqrt(i));
+        }
+        return DataFrame.of(k, v, w, x);
+    }
+
+    /**
+     * Writes the frame specified to a csv file
+     */
+    private Path csv(DataFrame frame) throws IOException {
+        final List<String> lines = new ArrayList<>();
+        lines.add(String.join(",", frame.columnNames()));
+        for (int i = 0; i < frame.rowCount(); ++i) {
+            final StringBuilder line = new StringBuilder();
+            for (int j = 0; j < frame.columnCount(); ++j) {
+                line.append(j == 0 ? "" : ",").append(frame.column(j).getValue(i));
+            }
+            lines.add(line.toString());
+        }
+        final Path path = folder.resolve("frame.csv");
+        Files.write(path, lines, StandardCharsets.UTF_8);
+        return path;
+    }
+
+    /**
+     * Asserts two frames have the same columns and numerically equal values in the same order
+     */
+    private static void assertFrameEquals(DataFrame expected, DataFrame actual) {
+        assertEquals(expected.columnNames(), actual.columnNames());
+        assertEquals(expected.rowCount(), actual.rowCount());
+        for (int j = 0; j < expected.columnCount(); ++j) {
+            final Column left = expected.column(j);
+            final Column right = actual.column(j);
+            for (int i = 0; i < expected.rowCount(); ++i) {
+                final Object a = left.getValue(i);
+                final Object b = right.getValue(i);
+                if (a instanceof Number && b instanceof Number) {
+                    assertEquals(((Number)a).doubleValue(), ((Number)b).doubleValue(), 1e-9, left.name() + " row " + i);
+                } else {
+                    assertEquals(a, b, left.name() + " row " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void filterAndGroupMatchEagerForEverySource() throws IOException {
+        final DataFrame frame = frame(20000);
+        final Path file = folder.resolve("frame.col");
+        ColumnFile.write(frame, file);
+        final DataFrame expected = GroupBy.of(frame.filter(Predicate.gt("v", 0.5).and(Predicate.lt("w", 500))), "k")
+            .aggregate(Aggregate.sum("x"), Aggregate.count())
+            .sort(SortKey.asc("k"));
+        final List<LazyFrame> sources = List.of(
+            LazyFrame.of(frame),
+            LazyFrame.scanCsv(csv(frame), new CsvOptions().setBatchRows(1000)),
+            LazyFrame.scanColumnFile(file)
+        );
+        for (LazyFrame source : sources) {
+            final DataFrame actual = source
+                .filter(Predicate.gt("v", 0.5))
+                .filter(Predicate.lt("w", 500))
+                .groupBy("k").aggregate(Aggregate.sum("x"), Aggregate.count(), Aggregate.mean("v"))
+                .select("k", "x_sum", "count")
+                .sort(SortKey.asc("k"))
+                .collect();
+            assertFrameEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void explainShowsPushdownIntoScan() throws IOException {
+        final DataFrame frame = frame(100);
+        final Path file = folder.resolve("pushdown.col");
+        ColumnFile.write(frame, file);
+        final LazyFrame query = LazyFrame.scanColumnFile(file).filter(Predicate.gt("v", 0.25)).select("k", "v");
+        final String plan = query.explain();
+        final String optimized = plan.substring(plan.indexOf("== Optimized Plan =="));
+        assertTrue(plan.contains("== Logical Plan =="), plan);
+        assertTrue(plan.contains("Filter v > 0.25"), plan);
+        assertTrue(optimized.contains("columns=[k, v]"), plan);
+        assertTrue(optimized.contains("predicate=v > 0.25"), plan);
+        assertTrue(!optimized.contains("Filter"), plan);
+        assertFrameEquals(frame.filter(Predicate.gt("v", 0.25)).select("k", "v"), query.collect());
+    }
+
+    @Test
+    public void predicateOnlyColumnsAreNotProjected() {
+        final DataFrame frame = frame(500);
+        final DataFrame actual = LazyFrame.of(frame).filter(Predicate.ge("w", 100)).select("k").collect();
+        assertEquals(List.of("k"), actual.columnNames());
+        assertFrameEquals(frame.filter(Predicate.ge("w", 100)).select("k"), actual);
+    }
+
+    @Test
+    public void joinPushesPredicatesToEachSide() {
+        final DataFrame frame = frame(2000);
+        final DataFrame dim = DataFrame.of(Columns.ofInts("k", 1, 2, 3), Columns.ofDoubles("v", 10, 20, 30), Columns.ofDoubles("z", 1, 2, 3));
+        final LazyFrame query = LazyFrame.of(frame).join(LazyFrame.of(dim), JoinType.INNER, "k")
+            .filter(Predicate.gt("z", 1))
+            .filter(Predicate.lt("w", 500))
+            .select("k", "v_right", "w");
+        final DataFrame expected = Join.of(frame, dim).on("k").execute()
+            .filter(Predicate.gt("z", 1).and(Predicate.lt("w", 500)))
+            .select("k", "v_right", "w")
+            .sort(SortKey.asc("k"), SortKey.asc("w"));
+        assertFrameEquals(expected, query.collect().sort(SortKey.asc("k"), SortKey.asc("w")));
+        final String plan = query.explain();
+        final String optimized = plan.substring(plan.indexOf("== Optimized Plan =="));
+        assertTrue(optimized.contains("predicate=z > 1"), plan);
+        assertTrue(optimized.contains("predicate=w < 500"), plan);
+    }
+
+    @Test
+    public void withColumnAndLimit() {
+        final DataFrame frame = frame(1000);
+        final DataFrame actual = LazyFrame.of(frame)
+            .withColumn("y", Expression.col("v").add(Expression.col("x")))
+            .filter(Predicate.gt("y", 10))
+            .limit(5)
+            .collect();
+        assertEquals(5, actual.rowCount());
+        for (int i = 0; i < actual.rowCount(); ++i) {
+            final double v = actual.doubles("v").getDouble(i);
+            final double x = actual.doubles("x").getDouble(i);
+            assertEquals(v + x, actual.numeric("y").getDouble(i), 1e-12);
+            assertTrue(v + x > 10);
+        }
+    }
+
+    @Test
+    public void profileRecordsEveryOperator() throws IOException {
+        final DataFrame frame = frame(50000);
+        final Path file = folder.resolve("profile.col");
+        ColumnFile.write(frame, file);
+        final LazyFrame query = LazyFrame.scanColumnFile(file)
+            .filter(Predicate.gt("v", 0.5))
+            .groupBy("k").aggregate(Aggregate.sum("x"))
+            .sort(SortKey.asc("k"));
+        final QueryProfile profile = query.profile();
+        assertFrameEquals(query.collect(), profile.result());
+        final List<OperatorProfile> chain = new ArrayList<>();
+        for (OperatorProfile node = profile.root(); node != null; node = node.children().isEmpty() ? null : node.children().get(0)) {
+            chain.add(node);
+        }
+        assertEquals(profile.result().rowCount(), chain.get(0).rowsOut());
+        assertEquals(3, chain.size(), profile.toString());
+        assertTrue(chain.get(0).operator().startsWith("Sort"), profile.toString());
+        assertTrue(chain.get(1).operator().startsWith("Aggregate"), profile.toString());
+        assertTrue(chain.get(2).operator().startsWith("Scan"), profile.toString());
+        final long matching = frame.filter(Predicate.gt("v", 0.5)).rowCount();
+        assertEquals(50000L, chain.get(2).rowsIn());
+        assertEquals(matching, chain.get(2).rowsOut());
+        assertEquals(matching, chain.get(1).rowsIn());
+        assertEquals(50L, chain.get(1).rowsOut());
+        for (OperatorProfile node : chain) {
+            assertTrue(node.isComplete() && node.wallNanos() > 0L, node.operator());
+        }
+        assertTrue(profile.cpuNanos() > 0L);
+        assertTrue(profile.wallNanos() >= chain.get(1).wallNanos());
+        assertTrue(profile.toString().startsWith("== Profile ==\nSort "), profile.toString());
+        assertEquals(null, Profiler.current());
+    }
+
+    @Test
+    public void unknownColumnsAreRejected() {
+        final DataFrame frame = frame(10);
+        assertThrows(DataFrameException.class, () -> LazyFrame.of(frame).select("missing"));
+        assertThrows(DataFrameException.class, () -> LazyFrame.of(frame).filter(Predicate.gt("missing", 1)).collect());
+    }
+}
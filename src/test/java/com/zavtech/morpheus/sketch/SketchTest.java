@@ -0,0 +1,248 @@
+package com.zavtech.morpheus.sketch;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the accuracy, merging and serialization of the HyperLogLog, KLL and frequent items sketches
+ */
+public class SketchTest {
+
+    /**
+     * Returns random values drawn from the number of distinct integers specified, scaled to be non-integral
+     */
+    private static double[] values(int length, int distinct, long seed) {
+        final Random random = new Random(seed);
+        final double[] values = new double[length];
+        for (int i = 0; i < length; ++i) {
+            values[i] = random.nextInt(distinct) * 0.75d - 1000d;
+        }
+        return values;
+    }
+
+    /**
+     * Returns a skewed sample where value v in [0, 1000) appears with probability proportional to 1 / (v + 1)
+     */
+    private static double[] skewed(int length, long seed) {
+        final Random random = new Random(seed);
+        final double[] cumulative = new double[1000];
+        double total = 0d;
+        for (int v = 0; v < cumulative.length; ++v) {
+            total += 1d / (v + 1);
+            cumulative[v] = total;
+        }
+        final double[] values = new double[length];
+        for (int i = 0; i < length; ++i) {
+            final int index = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            values[i] = index >= 0 ? index : -index - 1;
+        }
+        return values;
+    }
+
+    /**
+     * Returns the fraction of sorted values less than or equal to the value specified
+     */
+    private static double rank(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return (double)low / sorted.length;
+    }
+
+    @Test
+    public void hyperLogLogAccuracyAcrossRange() {
+        for (int distinct : new int[] {1, 10, 100, 1000, 10000, 300000}) {
+            final HyperLogLog sketch = HyperLogLog.create();
+            for (int i = 0; i < distinct; ++i) {
+                sketch.add(i * 1.5d);
+                sketch.add(i * 1.5d);
+            }
+            sketch.add(Double.NaN);
+            final double error = Math.abs(sketch.estimate() - distinct) / (double)distinct;
+            assertTrue(error < 0.05d, distinct + " distinct estimated as " + sketch.estimate());
+            assertEquals(2L * distinct, sketch.count());
+        }
+        final HyperLogLog small = HyperLogLog.create();
+        small.add(0d);
+        small.add(-0d);
+        small.add("IBM");
+        assertEquals(2L, small.estimate());
+        final HyperLogLog dense = HyperLogLog.create();
+        for (int i = 0; i < 10000; ++i) {
+            dense.add(i);
+        }
+        assertTrue(small.bytes() < 64, "sparse footprint " + small.bytes());
+        assertEquals(32 + (1 << HyperLogLog.DEFAULT_PRECISION), dense.bytes());
+    }
+
+    @Test
+    public void hyperLogLogMergeAndSerialization() {
+        final double[] values = values(200000, 50000, 1L);
+        final HyperLogLog whole = HyperLogLog.create(14);
+        final HyperLogLog[] parts = {HyperLogLog.create(14), HyperLogLog.create(14), HyperLogLog.create(14)};
+        for (int i = 0; i < values.length; ++i) {
+            whole.add(values[i]);
+            parts[i % 3].add(values[i]);
+        }
+        final HyperLogLog sparse = HyperLogLog.create(14);
+        sparse.add(42d);
+        final HyperLogLog merged = parts[0].copy();
+        merged.merge(parts[1]);
+        merged.merge(sparse);
+        merged.merge(parts[2]);
+        assertEquals(whole.estimate(), merged.estimate());
+        assertArrayEquals(whole.toBytes(), HyperLogLog.fromBytes(whole.toBytes()).toBytes());
+        assertEquals(whole.estimate(), HyperLogLog.fromBytes(whole.toBytes()).estimate());
+        assertEquals(1L, HyperLogLog.fromBytes(sparse.toBytes()).estimate());
+        assertTrue(sparse.toBytes().length < 64);
+        assertThrows(IllegalArgumentException.class, () -> merged.merge(HyperLogLog.create(12)));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.create(HyperLogLog.MAX_PRECISION + 1));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[] {99}));
+    }
+
+    @Test
+    public void kllQuantilesAndRanksWithinBound() {
+        final Random random = new Random(2L);
+        final double[] values = new double[500000];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = Math.exp(random.nextGaussian() * 2d);
+        }
+        final KllSketch sketch = KllSketch.create();
+        for (double value : values) {
+            sketch.add(value);
+        }
+        sketch.add(Double.NaN);
+        final double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        assertEquals(values.length, sketch.count());
+        assertEquals(sorted[0], sketch.min());
+        assertEquals(sorted[sorted.length - 1], sketch.max());
+        assertEquals(sorted[0], sketch.quantile(0d));
+        assertEquals(sorted[sorted.length - 1], sketch.quantile(1d));
+        assertTrue(sketch.bytes() < 64 * 1024, "footprint " + sketch.bytes());
+        final double[] quantiles = {0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99};
+        final double[] estimates = sketch.quantiles(quantiles);
+        for (int q = 0; q < quantiles.length; ++q) {
+            assertEquals(quantiles[q], rank(sorted, estimates[q]), 0.02d, "quantile " + quantiles[q]);
+            assertEquals(sketch.quantile(quantiles[q]), estimates[q]);
+            final double value = sorted[(int)(quantiles[q] * sorted.length)];
+            assertEquals(rank(sorted, value), sketch.rank(value), 0.02d, "rank at quantile " + quantiles[q]);
+        }
+        assertEquals(Double.NaN, KllSketch.create().quantile(0.5d));
+        assertEquals(Double.NaN, KllSketch.create().rank(1d));
+        assertThrows(IllegalArgumentException.class, () -> sketch.quantile(1.5d));
+    }
+
+    @Test
+    public void kllMergeAndSerialization() {
+        final double[] values = values(300000, 1000000, 3L);
+        final double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        final KllSketch[] parts = new KllSketch[8];
+        for (int p = 0; p < parts.length; ++p) {
+            parts[p] = KllSketch.create();
+        }
+        for (int i = 0; i < values.length; ++i) {
+            parts[i * parts.length / values.length].add(values[i]);
+        }
+        final KllSketch merged = KllSketch.create();
+        for (KllSketch part : parts) {
+            merged.merge(part);
+        }
+        assertEquals(values.length, merged.count());
+        assertEquals(sorted[0], merged.min());
+        assertEquals(sorted[sorted.length - 1], merged.max());
+        for (double q = 0.05d; q < 1d; q += 0.05d) {
+            assertEquals(q, rank(sorted, merged.quantile(q)), 0.02d, "quantile " + q);
+        }
+        final KllSketch copy = KllSketch.fromBytes(merged.toBytes());
+        assertEquals(merged.count(), copy.count());
+        assertArrayEquals(merged.quantiles(0.1, 0.5, 0.9), copy.quantiles(0.1, 0.5, 0.9));
+        assertEquals(merged.rank(0d), copy.rank(0d));
+        copy.add(1e9);
+        assertEquals(values.length, merged.count());
+        assertThrows(IllegalArgumentException.class, () -> merged.merge(KllSketch.create(100)));
+        assertThrows(IllegalArgumentException.class, () -> KllSketch.create(KllSketch.MIN_K - 1));
+        assertThrows(IllegalArgumentException.class, () -> KllSketch.fromBytes(new byte[] {1, 2, 3}));
+    }
+
+    @Test
+    public void frequentItemsCountsWithinBound() {
+        final double[] values = skewed(200000, 4L);
+        final Map<Double,Long> exact = new HashMap<>();
+        for (double value : values) {
+            exact.merge(value, 1L, Long::sum);
+        }
+        final FrequentItems whole = FrequentItems.create(32);
+        final FrequentItems left = FrequentItems.create(32);
+        final FrequentItems right = FrequentItems.create(32);
+        for (int i = 0; i < values.length; ++i) {
+            whole.add(values[i]);
+            (i % 2 == 0 ? left : right).add(values[i]);
+        }
+        final FrequentItems merged = left.copy();
+        merged.merge(right);
+        for (FrequentItems sketch : Arrays.asList(whole, merged, FrequentItems.fromBytes(merged.toBytes()))) {
+            assertEquals(values.length, sketch.count());
+            assertTrue(sketch.maxError() <= values.length / 33, "error " + sketch.maxError());
+            for (Map.Entry<Double,Long> entry : exact.entrySet()) {
+                final long estimate = sketch.estimate(entry.getKey());
+                assertTrue(estimate <= entry.getValue() && estimate >= entry.getValue() - sketch.maxError(), "value " + entry.getKey());
+            }
+            assertEquals(0d, sketch.mostFrequent());
+            assertArrayEquals(new double[] {0d, 1d, 2d}, sketch.top(3));
+            final long[] counts = sketch.topCounts(32);
+            for (int i = 1; i < counts.length; ++i) {
+                assertTrue(counts[i - 1] >= counts[i]);
+            }
+        }
+        final FrequentItems ties = FrequentItems.create();
+        for (double value : new double[] {5, 3, 5, 3, -0d, 0d, Double.NaN}) {
+            ties.add(value);
+        }
+        assertEquals(0d, ties.mostFrequent());
+        assertEquals(2L, ties.estimate(-0d));
+        assertEquals(0L, ties.estimate(7d));
+        assertEquals(Double.NaN, FrequentItems.create().mostFrequent());
+        assertThrows(IllegalArgumentException.class, () -> merged.merge(FrequentItems.create(16)));
+        assertThrows(IllegalArgumentException.class, () -> FrequentItems.create(0));
+    }
+
+    @Test
+    public void parallelSketchesOfColumnMatchSerial() {
+        final DoubleColumn column = Columns.ofDoubles("x", values(250000, 20000, 5L));
+        for (int i = 0; i < column.length(); i += 17) {
+            column.setNull(i);
+        }
+        final HyperLogLog serial = Sketches.of(column, HyperLogLog::create, 1);
+        final HyperLogLog parallel = Sketches.of(column, HyperLogLog::create, 4);
+        assertEquals(serial.estimate(), parallel.estimate());
+        assertEquals(serial.estimate(), Sketches.distinct(column).estimate());
+        assertEquals(20000d, serial.estimate(), 20000d * 0.05d);
+        final KllSketch quantiles = Sketches.quantiles(column);
+        assertEquals(column.length() - (column.length() + 16) / 17, quantiles.count());
+        assertEquals(-1000d, quantiles.min());
+        assertEquals(19999 * 0.75d - 1000d, quantiles.max());
+        assertEquals(0.5d * (19999 * 0.75d) - 1000d, quantiles.quantile(0.5d), 19999 * 0.75d * 0.02d);
+        assertEquals(quantiles.count(), Sketches.frequentItems(column).count());
+    }
+}
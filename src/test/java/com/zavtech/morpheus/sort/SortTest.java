@@ -0,0 +1,146 @@
+package com.zavtech.morpheus.sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.zavtech.morpheus.column.BooleanColumn;
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.IntColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.StringColumn;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of the radix sort against a stable comparison sort of boxed values
+ */
+public class SortTest {
+
+    /**
+     * Returns a frame of random keys of every type with nulls, where longs span the full range
+     */
+    private static DataFrame frame(int rows, long seed) {
+        final Random random = new Random(seed);
+        final IntColumn ints = Columns.ints("i", rows);
+        final LongColumn longs = Columns.longs("l", rows);
+        final DoubleColumn doubles = Columns.doubles("d", rows);
+        final StringColumn strings = Columns.strings("s", rows);
+        final BooleanColumn booleans = Columns.booleans("b", rows);
+        final long[] extremes = {Long.MIN_VALUE, Long.MAX_VALUE, 0L, -1L};
+        for (int i = 0; i < rows; ++i) {
+            ints.setInt(i, random.nextInt(50) - 25);
+            longs.setLong(i, random.nextInt(10) == 0 ? extremes[random.nextInt(4)] : random.nextLong());
+            doubles.setDouble(i, random.nextInt(10) == 0 ? -0d : random.nextInt(200) / 8d - 12d);
+            strings.setString(i, "s" + (char)('a' + random.nextInt(26)) + random.nextInt(3));
+            booleans.setBoolean(i, random.nextBoolean());
+            if (random.nextInt(17) == 0) {
+                ints.setNull(i);
+            }
+            if (random.nextInt(13) == 0) {
+                longs.setNull(i);
+            }
+            if (random.nextInt(11) == 0) {
+                doubles.setNull(i);
+            }
+            if (random.nextInt(19) == 0) {
+                strings.setNull(i);
+            }
+            if (random.nextInt(7) == 0) {
+                booleans.setNull(i);
+            }
+        }
+        return DataFrame.of(ints, longs, doubles, strings, booleans);
+    }
+
+    /**
+     * Returns a comparator of rows by the values of one sort key
+     */
+    @SuppressWarnings("unchecked")
+    private static Comparator<Integer> comparator(DataFrame frame, SortKey key) {
+        final Column column = frame.column(key.column());
+        return (x, y) -> {
+            Object a = column.getValue(x);
+            Object b = column.getValue(y);
+            if (a == null || b == null) {
+                final int result = a == null ? (b == null ? 0 : 1) : -1;
+                return key.isNullsFirst() ? -result : result;
+            } else if (a instanceof Double) {
+                a = (Double)a == 0d ? 0d : a;
+                b = (Double)b == 0d ? 0d : b;
+            }
+            final int result = ((Comparable<Object>)a).compareTo(b);
+            return key.isAscending() ? result : -result;
+        };
+    }
+
+    /**
+     * Returns the permutation that a stable comparison sort produces for the keys specified
+     */
+    private static int[] expected(DataFrame frame, SortKey... keys) {
+        Comparator<Integer> comparator = comparator(frame, keys[0]);
+        for (int k = 1; k < keys.length; ++k) {
+            comparator = comparator.thenComparing(comparator(frame, keys[k]));
+        }
+        final List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < frame.rowCount(); ++i) {
+            rows.add(i);
+        }
+        rows.sort(comparator);
+        return rows.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Test
+    public void singleKeysOfEveryType() {
+        final DataFrame frame = frame(20000, 1L);
+        for (String column : frame.columnNames()) {
+            for (SortKey key : Arrays.asList(SortKey.asc(column), SortKey.desc(column), SortKey.asc(column).nullsFirst(), SortKey.desc(column).nullsFirst())) {
+                assertArrayEquals(expected(frame, key), Sort.of(frame, key).permutation(), key.toString());
+            }
+        }
+    }
+
+    @Test
+    public void compositeKeysSequentialAndParallel() {
+        final DataFrame frame = frame(50000, 2L);
+        final List<SortKey[]> cases = Arrays.asList(
+            new SortKey[] {SortKey.asc("s"), SortKey.desc("i")},
+            new SortKey[] {SortKey.asc("b").nullsFirst(), SortKey.asc("d"), SortKey.desc("s")},
+            new SortKey[] {SortKey.desc("i"), SortKey.asc("l"), SortKey.asc("b")}
+        );
+        for (SortKey[] keys : cases) {
+            final int[] expected = expected(frame, keys);
+            for (int parallelism : new int[] {1, 4}) {
+                assertArrayEquals(expected, Sort.of(frame, keys).setParallelism(parallelism).permutation(), Arrays.toString(keys));
+            }
+        }
+    }
+
+    @Test
+    public void executeAndSortedInput() {
+        final DataFrame frame = DataFrame.of(Columns.ofLongs("t", 1L, 2L, 2L, 5L), Columns.ofStrings("s", "d", "c", "b", "a"));
+        assertArrayEquals(new int[] {0, 1, 2, 3}, Sort.of(frame, SortKey.asc("t")).permutation());
+        assertArrayEquals(new int[] {3, 1, 2, 0}, Sort.of(frame, SortKey.desc("t")).permutation());
+        final DataFrame sorted = frame.sort(SortKey.asc("s"));
+        assertEquals(Arrays.asList("a", "b", "c", "d"), Arrays.asList(sorted.column("s").getValue(0), sorted.column("s").getValue(1), sorted.column("s").getValue(2), sorted.column("s").getValue(3)));
+        assertEquals(5L, sorted.longs("t").getLong(0));
+        assertEquals(0, Sort.of(DataFrame.of(Columns.longs("t", 0)), SortKey.asc("t")).permutation().length);
+    }
+
+    @Test
+    public void invalidKeys() {
+        final DataFrame frame = frame(10, 3L);
+        assertThrows(DataFrameException.class, () -> Sort.of(frame));
+        assertThrows(DataFrameException.class, () -> Sort.of(frame, SortKey.asc("missing")));
+    }
+}
@@ -0,0 +1,84 @@
+package com.zavtech.morpheus.stats;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests that the vector and scalar kernels agree, over lengths and offsets that exercise the loop tails
+ */
+public class KernelsTest {
+
+    private static final int[] LENGTHS = {0, 1, 3, 7, 8, 9, 31, 64, 1001, 4099};
+
+    private final DoubleKernels scalar = new ScalarKernels();
+    private final DoubleKernels vector = new VectorKernels();
+
+    /**
+     * Returns random values in [-1000, 1000)
+     */
+    private static double[] random(int length, long seed) {
+        final Random random = new Random(seed);
+        final double[] values = new double[length];
+        for (int i = 0; i < length; ++i) {
+            values[i] = random.nextDouble() * 2000d - 1000d;
+        }
+        return values;
+    }
+
+    @Test
+    public void testReductions() {
+        for (int length : LENGTHS) {
+            final double[] values = random(length + 5, length);
+            final long[] longs = new long[length + 5];
+            for (int i = 0; i < longs.length; ++i) {
+                longs[i] = (long)(values[i] * 1e12);
+            }
+            final double tolerance = 1e-9 * Math.max(1, length) * 1000d;
+            assertEquals(scalar.sum(values, 3, length), vector.sum(values, 3, length), tolerance);
+            assertEquals(scalar.sum(longs, 3, length), vector.sum(longs, 3, length));
+            assertEquals(scalar.min(values, 3, length), vector.min(values, 3, length), 0d);
+            assertEquals(scalar.max(values, 3, length), vector.max(values, 3, length), 0d);
+            assertEquals(scalar.sumSquaredDeviations(values, 3, length, 1.5d), vector.sumSquaredDeviations(values, 3, length, 1.5d), tolerance * 1000d);
+            assertEquals(scalar.dot(values, 1, values, 3, length), vector.dot(values, 1, values, 3, length), tolerance * 1000d);
+        }
+        assertEquals(Double.POSITIVE_INFINITY, vector.min(new double[0], 0, 0), 0d);
+        assertEquals(Double.NEGATIVE_INFINITY, vector.max(new double[0], 0, 0), 0d);
+    }
+
+    @Test
+    public void testElementWise() {
+        for (int length : LENGTHS) {
+            final double[] left = random(length + 2, 7);
+            final double[] right = random(length + 2, 11);
+            for (BinaryOp op : BinaryOp.values()) {
+                final double[] expected = new double[length + 1];
+                final double[] actual = new double[length + 1];
+                scalar.apply(op, left, 2, right, 1, expected, 1, length);
+                vector.apply(op, left, 2, right, 1, actual, 1, length);
+                assertArrayEquals(expected, actual, 0d, op + " " + length);
+                scalar.apply(op, left, 0, 2.5d, expected, 0, length);
+                vector.apply(op, left, 0, 2.5d, actual, 0, length);
+                assertArrayEquals(expected, actual, 0d, op + " scalar " + length);
+            }
+        }
+    }
+
+    @Test
+    public void testCrossProducts() {
+        final double[][] columns = {random(1003, 1), random(1003, 2), random(1003, 3)};
+        final double[] expected = new double[9];
+        final double[] actual = new double[9];
+        scalar.crossProducts(columns, 3, 1003, expected);
+        vector.crossProducts(columns, 3, 1003, actual);
+        for (int i = 0; i < 3; ++i) {
+            for (int j = i; j < 3; ++j) {
+                assertEquals(scalar.dot(columns[i], 0, columns[j], 0, 1003), expected[i * 3 + j], 1e-6);
+                assertEquals(expected[i * 3 + j], actual[i * 3 + j], 1e-6);
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.zavtech.morpheus.stats;
+
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.IntColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.NumericColumn;
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of column statistics and arithmetic against straightforward loops, on heap and off-heap columns with and without nulls
+ */
+public class StatsTest {
+
+    /**
+     * Returns a double column of random values with every nullEvery-th row null, or no nulls if nullEvery is zero
+     */
+    private static DoubleColumn doubles(int length, int nullEvery, Storage storage) {
+        final Random random = new Random(length);
+        final DoubleColumn column = Columns.doubles("x", length, storage);
+        for (int i = 0; i < length; ++i) {
+            column.setDouble(i, random.nextGaussian() * 10d + 3d);
+        }
+        for (int i = 0; nullEvery > 0 && i < length; i += nullEvery) {
+            column.setNull(i);
+        }
+        return column;
+    }
+
+    /**
+     * Asserts that the statistics of a column match those computed by a plain loop over its non-null values
+     */
+    private static void assertStats(NumericColumn column) {
+        double sum = 0d, min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        int count = 0;
+        for (int i = 0; i < column.length(); ++i) {
+            if (!column.isNull(i)) {
+                final double value = column.getDouble(i);
+                sum += value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+                count++;
+            }
+        }
+        final double mean = sum / count;
+        double m2 = 0d;
+        for (int i = 0; i < column.length(); ++i) {
+            if (!column.isNull(i)) {
+                m2 += (column.getDouble(i) - mean) * (column.getDouble(i) - mean);
+            }
+        }
+        final double tolerance = 1e-9 * Math.max(1d, Math.abs(sum));
+        assertEquals(count, Stats.count(column));
+        assertEquals(sum, Stats.sum(column), tolerance);
+        assertEquals(min, Stats.min(column), 0d);
+        assertEquals(max, Stats.max(column), 0d);
+        assertEquals(mean, Stats.mean(column), 1e-9);
+        assertEquals(m2 / (count - 1), Stats.variance(column), 1e-6);
+        final Moments moments = Stats.moments(column);
+        assertEquals(count, moments.count());
+        assertEquals(Math.sqrt(m2 / (count - 1)), moments.std(), 1e-6);
+    }
+
+    @Test
+    public void testDoubleColumns() {
+        for (Storage storage : new Storage[] {Storage.HEAP, Storage.OFF_HEAP}) {
+            for (int nullEvery : new int[] {0, 3, 100}) {
+                final DoubleColumn column = doubles(10007, nullEvery, storage);
+                assertStats(column);
+                column.close();
+            }
+        }
+    }
+
+    @Test
+    public void testIntegerColumns() {
+        final LongColumn longs = Columns.longs("l", 5000);
+        final IntColumn ints = Columns.ints("i", 5000);
+        for (int i = 0; i < 5000; ++i) {
+            longs.setLong(i, (i * 7919L) % 10007 - 5000);
+            ints.setInt(i, i % 17 - 8);
+        }
+        ints.setNull(4);
+        assertStats(longs);
+        assertStats(ints);
+        long sum = 0L;
+        for (int i = 0; i < 5000; ++i) {
+            sum += longs.getLong(i);
+        }
+        assertEquals(sum, Stats.sumLong(longs));
+    }
+
+    @Test
+    public void testAllNullColumns() {
+        final DoubleColumn column = Columns.doubles("x", 10);
+        for (int i = 0; i < 10; ++i) {
+            column.setNull(i);
+        }
+        assertEquals(0, Stats.count(column));
+        assertEquals(0d, Stats.sum(column), 0d);
+        assertTrue(Double.isNaN(Stats.min(column)));
+        assertTrue(Double.isNaN(Stats.max(column)));
+        assertTrue(Double.isNaN(Stats.mean(column)));
+    }
+
+    @Test
+    public void testLargeColumnMomentsMergeAcrossMorsels() {
+        final DoubleColumn column = Columns.doubles("x", 3_000_000);
+        for (int i = 0; i < column.length(); ++i) {
+            column.setDouble(i, i % 1000);
+        }
+        final Moments moments = Stats.moments(column);
+        assertEquals(3_000_000, moments.count());
+        assertEquals(499.5d, moments.mean(), 1e-9);
+        assertEquals(0d, moments.min(), 0d);
+        assertEquals(999d, moments.max(), 0d);
+        assertEquals(83333.25d * 3_000_000 / 2_999_999, moments.variance(), 1e-3);
+    }
+
+    @Test
+    public void testDotIgnoresNullRows() {
+        final DoubleColumn left = Columns.ofDoubles("a", 1d, 2d, 3d, 4d);
+        final DoubleColumn right = Columns.ofDoubles("b", 5d, 6d, 7d, 8d);
+        right.setNull(2);
+        assertEquals(5d + 12d + 32d, Stats.dot(left, right), 0d);
+        assertThrows(DataFrameException.class, () -> Stats.dot(left, Columns.ofDoubles("c", 1d)));
+    }
+
+    @Test
+    public void testArithmetic() {
+        final DoubleColumn left = doubles(3000, 7, Storage.HEAP);
+        final LongColumn right = Columns.longs("y", 3000, Storage.OFF_HEAP);
+        for (int i = 0; i < 3000; ++i) {
+            right.setLong(i, i % 5 + 1);
+        }
+        right.setNull(1);
+        final DoubleColumn sum = Arithmetic.add(left, right, "sum");
+        final DoubleColumn quotient = Arithmetic.divide(left, right, "quotient");
+        final DoubleColumn scaled = Arithmetic.apply(BinaryOp.MULTIPLY, left, 2d, "scaled");
+        assertEquals(Storage.HEAP, sum.storage());
+        for (int i = 0; i < 3000; ++i) {
+            final boolean isNull = left.isNull(i) || right.isNull(i);
+            assertEquals(isNull, sum.isNull(i), "row " + i);
+            assertEquals(left.isNull(i), scaled.isNull(i));
+            if (!isNull) {
+                assertEquals(left.getDouble(i) + right.getLong(i), sum.getDouble(i), 0d);
+                assertEquals(left.getDouble(i) / right.getLong(i), quotient.getDouble(i), 0d);
+            }
+            if (!left.isNull(i)) {
+                assertEquals(left.getDouble(i) * 2d, scaled.getDouble(i), 0d);
+            }
+        }
+        right.close();
+    }
+
+    @Test
+    public void testDescribe() {
+        final DataFrame frame = DataFrame.of(Columns.ofDoubles("a", 1d, 2d, 3d), Columns.ofStrings("s", "x", "y", "z"), Columns.ofInts("b", 4, 5, 6));
+        final Map<String,Moments> describe = Stats.describe(frame);
+        assertEquals(2, describe.size());
+        assertEquals(2d, describe.get("a").mean(), 0d);
+        assertEquals(1d, describe.get("b").variance(), 0d);
+    }
+}
@@ -0,0 +1,194 @@
+package com.zavtech.morpheus.stream;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.zavtech.morpheus.column.BooleanColumn;
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.IntColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.column.StringColumn;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.groupby.Aggregate;
+import com.zavtech.morpheus.groupby.GroupBy;
+import com.zavtech.morpheus.window.IncrementalRolling;
+import com.zavtech.morpheus.window.Rolling;
+import com.zavtech.morpheus.window.WindowFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of appending batches to a frame across chunk boundaries, of snapshot isolation and of incremental aggregates and windows
+ */
+public class AppendableFrameTest {
+
+    /**
+     * Returns a batch of rows starting at the row specified, with every column type and some nulls
+     */
+    private static DataFrame batch(int start, int rows) {
+        final LongColumn time = Columns.longs("time", rows);
+        final StringColumn sym = Columns.strings("sym", rows);
+        final DoubleColumn px = Columns.doubles("px", rows);
+        final IntColumn qty = Columns.ints("qty", rows);
+        final BooleanColumn buy = Columns.booleans("buy", rows);
+        for (int i = 0; i < rows; ++i) {
+            final int row = start + i;
+            time.setLong(i, row * 3L + (row % 4));
+            sym.setString(i, "S" + (row % 11) + (row >= 500 ? "x" : ""));
+            px.setDouble(i, 100d + Math.sin(row) * 10d);
+            qty.setInt(i, row % 17);
+            buy.setBoolean(i, row % 3 == 0);
+            if (row % 13 == 0) {
+                px.setNull(i);
+            }
+            if (row % 29 == 0) {
+                sym.setNull(i);
+                qty.setNull(i);
+                buy.setNull(i);
+            }
+        }
+        return DataFrame.of(time, sym, px, qty, buy);
+    }
+
+    /**
+     * Asserts two frames have the same column names, types, values and nulls, with doubles to a tolerance
+     */
+    private static void assertFrameEquals(DataFrame expected, DataFrame actual) {
+        assertEquals(expected.columnNames(), actual.columnNames());
+        assertEquals(expected.rowCount(), actual.rowCount());
+        for (int j = 0; j < expected.columnCount(); ++j) {
+            final Column left = expected.column(j);
+            final Column right = actual.column(j);
+            assertEquals(left.type(), right.type());
+            for (int i = 0; i < expected.rowCount(); ++i) {
+                final Object a = left.getValue(i);
+                final Object b = right.getValue(i);
+                if (a instanceof Double && b instanceof Double && Double.isFinite((Double)a)) {
+                    assertEquals((Double)a, (Double)b, 1e-9 * Math.max(1d, Math.abs((Double)a)), left.name() + " row " + i);
+                } else {
+                    assertEquals(a, b, left.name() + " row " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void appendsAcrossChunksAndSnapshotsAreIsolated() {
+        final AppendableFrame frame = AppendableFrame.create(batch(0, 0), 64);
+        final Random random = new Random(7L);
+        int rows = 0;
+        DataFrame previous = frame.snapshot();
+        for (int n = 0; n < 40; ++n) {
+            final int size = n % 10 == 0 ? 0 : random.nextInt(n % 3 == 0 ? 200 : 20) + 1;
+            frame.append(batch(rows, size));
+            rows += size;
+            final DataFrame snapshot = frame.snapshot();
+            assertEquals(rows, frame.rowCount());
+            assertFrameEquals(batch(0, rows), snapshot);
+            assertFrameEquals(batch(0, previous.rowCount()), previous);
+            previous = snapshot;
+        }
+        assertEquals(64, frame.chunkRows());
+        assertEquals(List.of("time", "sym", "px", "qty", "buy"), frame.columnNames());
+    }
+
+    @Test
+    public void batchesMustMatchTheSchema() {
+        final AppendableFrame frame = AppendableFrame.create(batch(0, 5));
+        assertEquals(0, frame.rowCount());
+        frame.append(batch(0, 5).select("buy", "qty", "px", "sym", "time"));
+        assertFrameEquals(batch(0, 5), frame.snapshot());
+        assertThrows(DataFrameException.class, () -> frame.append(batch(0, 5).select("time", "sym")));
+        assertThrows(DataFrameException.class, () -> frame.append(DataFrame.of(Columns.ofDoubles("time", 1), Columns.strings("sym", 1), Columns.doubles("px", 1), Columns.ints("qty", 1), Columns.booleans("buy", 1))));
+        assertThrows(IllegalArgumentException.class, () -> AppendableFrame.create(batch(0, 0), 100));
+        assertThrows(IllegalArgumentException.class, () -> AppendableFrame.create(batch(0, 0), 32));
+        assertEquals(5, frame.rowCount());
+    }
+
+    @Test
+    public void incrementalAggregatesMatchGroupBy() {
+        final AppendableFrame frame = AppendableFrame.create(batch(0, 0), 128);
+        frame.append(batch(0, 150));
+        final Aggregate[] aggregates = {Aggregate.sum("px"), Aggregate.mean("px"), Aggregate.min("qty"), Aggregate.max("time"), Aggregate.count(), Aggregate.count("px")};
+        final StreamAggregate bySym = frame.aggregate(List.of("sym"), aggregates);
+        final StreamAggregate byBoth = frame.aggregate(List.of("buy", "qty"), Aggregate.sum("px"), Aggregate.count());
+        int rows = 150;
+        for (int size : new int[] {1, 77, 300, 0, 450, 12}) {
+            frame.append(batch(rows, size));
+            rows += size;
+            final DataFrame snapshot = frame.snapshot();
+            assertEquals(rows, bySym.rowCount());
+            assertFrameEquals(GroupBy.of(snapshot, "sym").aggregate(aggregates), bySym.result());
+            assertFrameEquals(GroupBy.of(snapshot, "buy", "qty").aggregate(Aggregate.sum("px"), Aggregate.count()), byBoth.result());
+        }
+    }
+
+    @Test
+    public void incrementalRollingMatchesRolling() {
+        final AppendableFrame frame = AppendableFrame.create(batch(0, 0), 64);
+        frame.append(batch(0, 30));
+        final WindowFunction[] functions = WindowFunction.values();
+        final AppendableFrame rows = frame.rolling("px", IncrementalRolling.rows(20, functions));
+        final AppendableFrame timed = frame.rolling("px", "time", IncrementalRolling.time(50L, functions).setMinPeriods(3));
+        int count = 30;
+        for (int size : new int[] {5, 1, 0, 200, 19, 64}) {
+            frame.append(batch(count, size));
+            count += size;
+        }
+        final DataFrame snapshot = frame.snapshot();
+        assertFrameEquals(Rolling.rows(20).apply(snapshot.numeric("px"), functions), rows.snapshot());
+        assertFrameEquals(Rolling.time(snapshot.longs("time"), 50L).setMinPeriods(3).apply(snapshot.numeric("px"), functions), timed.snapshot());
+        final IncrementalRolling used = IncrementalRolling.rows(5, WindowFunction.SUM);
+        used.update(Columns.ofDoubles("px", 1, 2, 3));
+        assertThrows(IllegalArgumentException.class, () -> frame.rolling("px", used));
+        assertThrows(DataFrameException.class, () -> frame.rolling("px", IncrementalRolling.time(5L, WindowFunction.SUM)));
+        assertThrows(DataFrameException.class, () -> IncrementalRolling.time(5L, WindowFunction.SUM).update(Columns.ofDoubles("px", 1)));
+    }
+
+    @Test
+    public void readersSnapshotWhileWriterAppends() throws Exception {
+        final AppendableFrame frame = AppendableFrame.create(batch(0, 0), 64);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<Integer> writer = executor.submit(() -> {
+                int rows = 0;
+                for (int n = 0; n < 300; ++n) {
+                    frame.append(batch(rows, 1 + n % 37));
+                    rows += 1 + n % 37;
+                }
+                return rows;
+            });
+            final Future<Integer> reader = executor.submit(() -> {
+                int checked = 0;
+                while (!writer.isDone() || checked == 0) {
+                    final DataFrame snapshot = frame.snapshot();
+                    final int last = snapshot.rowCount() - 1;
+                    if (last >= 0) {
+                        final DataFrame expected = batch(last, 1);
+                        assertEquals(expected.longs("time").getLong(0), snapshot.longs("time").getLong(last));
+                        assertEquals(expected.strings("sym").getString(0), snapshot.strings("sym").getString(last));
+                        assertEquals(expected.column("px").isNull(0), snapshot.column("px").isNull(last));
+                        checked++;
+                    }
+                }
+                return checked;
+            });
+            final int rows = writer.get(30, TimeUnit.SECONDS);
+            assertTrue(reader.get(30, TimeUnit.SECONDS) > 0);
+            assertFrameEquals(batch(0, rows), frame.snapshot());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
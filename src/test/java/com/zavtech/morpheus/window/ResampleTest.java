@@ -0,0 +1,138 @@
+package com.zavtech.morpheus.window;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.zavtech.morpheus.column.Column;
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.LongColumn;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.groupby.Aggregate;
+import com.zavtech.morpheus.groupby.GroupBy;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of downsampling to interval aggregates and bars, and of upsampling onto a regular grid
+ */
+public class ResampleTest {
+
+    /**
+     * Returns a small frame of irregular ticks with a gap between t=10 and t=25
+     */
+    private static DataFrame ticks() {
+        return DataFrame.of(
+            Columns.ofLongs("t", 0, 3, 4, 9, 10, 25, 26),
+            Columns.ofDoubles("px", 5, 7, 3, 6, 8, 2, 4),
+            Columns.ofDoubles("vol", 1, 1, 2, 2, 3, 3, 4)
+        );
+    }
+
+    /**
+     * Returns the ticks with nulls at the open and close of the first interval, at the close and high of the fourth,
+     * and throughout the third, along with a long quantity column and the interval start of each row
+     */
+    private static DataFrame ticksWithNulls() {
+        final DoubleColumn px = Columns.ofDoubles("px", 5, 7, 3, 6, 8, 2, 4, 9);
+        final LongColumn qty = Columns.ofLongs("qty", 10, 20, 30, 40, 50, 60, 70, 80);
+        for (int row : new int[] {0, 2, 4, 7}) {
+            px.setNull(row);
+            qty.setNull(row);
+        }
+        return DataFrame.of(
+            Columns.ofLongs("t", 0, 3, 4, 9, 10, 25, 26, 27),
+            Columns.ofLongs("bucket", 0, 0, 0, 5, 10, 25, 25, 25),
+            px,
+            qty
+        );
+    }
+
+    /**
+     * Returns the values of a column as objects
+     */
+    private static Object[] values(Column column) {
+        final Object[] values = new Object[column.length()];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = column.getValue(i);
+        }
+        return values;
+    }
+
+    @Test
+    public void aggregateNonEmptyIntervals() {
+        final DataFrame result = Resample.of(ticks(), "t", 5L).aggregate(Aggregate.sum("vol"), Aggregate.count(), Aggregate.mean("px"));
+        assertEquals(List.of("t", "vol_sum", "count", "px_mean"), result.columnNames());
+        assertArrayEquals(new Object[] {0L, 5L, 10L, 25L}, values(result.column("t")));
+        assertArrayEquals(new Object[] {4d, 2d, 3d, 7d}, values(result.column("vol_sum")));
+        assertArrayEquals(new Object[] {3L, 1L, 1L, 2L}, values(result.column("count")));
+        assertArrayEquals(new Object[] {5d, 6d, 8d, 3d}, values(result.column("px_mean")));
+    }
+
+    @Test
+    public void origin() {
+        final DataFrame result = Resample.of(ticks(), "t", 5L).setOrigin(2L).aggregate(Aggregate.sum("vol"));
+        assertArrayEquals(new Object[] {-3L, 2L, 7L, 22L}, values(result.column("t")));
+        assertArrayEquals(new Object[] {1d, 3d, 5d, 7d}, values(result.column("vol_sum")));
+    }
+
+    @Test
+    public void ohlc() {
+        final DataFrame result = Resample.of(ticks(), "t", 5L).ohlc("px");
+        assertArrayEquals(new Object[] {5d, 6d, 8d, 2d}, values(result.column("px_open")));
+        assertArrayEquals(new Object[] {7d, 6d, 8d, 4d}, values(result.column("px_high")));
+        assertArrayEquals(new Object[] {3d, 6d, 8d, 2d}, values(result.column("px_low")));
+        assertArrayEquals(new Object[] {3d, 6d, 8d, 4d}, values(result.column("px_close")));
+    }
+
+    @Test
+    public void aggregatesSkipNullsLikeGroupBy() {
+        final DataFrame frame = ticksWithNulls();
+        final Aggregate[] aggregates = {
+            Aggregate.sum("px"), Aggregate.mean("px"), Aggregate.min("px"), Aggregate.max("px"),
+            Aggregate.first("px"), Aggregate.last("px"), Aggregate.count("px"), Aggregate.sum("qty"), Aggregate.count()
+        };
+        final DataFrame result = Resample.of(frame, "t", 5L).aggregate(aggregates);
+        final DataFrame expected = GroupBy.of(frame, "bucket").aggregate(aggregates);
+        for (Aggregate aggregate : aggregates) {
+            assertArrayEquals(values(expected.column(aggregate.name())), values(result.column(aggregate.name())), aggregate.name());
+        }
+        assertArrayEquals(new Object[] {7d, 6d, 0d, 6d}, values(result.column("px_sum")));
+        assertArrayEquals(new Object[] {7d, 6d, null, 3d}, values(result.column("px_mean")));
+        assertArrayEquals(new Object[] {7d, 6d, null, 2d}, values(result.column("px_min")));
+        assertArrayEquals(new Object[] {1L, 1L, 0L, 2L}, values(result.column("px_count")));
+        assertArrayEquals(new Object[] {20d, 40d, 0d, 130d}, values(result.column("qty_sum")));
+        assertArrayEquals(new Object[] {3L, 1L, 1L, 3L}, values(result.column("count")));
+    }
+
+    @Test
+    public void ohlcSkipsNulls() {
+        final DataFrame result = Resample.of(ticksWithNulls(), "t", 5L).ohlc("px");
+        assertArrayEquals(new Object[] {0L, 5L, 10L, 25L}, values(result.column("t")));
+        assertArrayEquals(new Object[] {7d, 6d, null, 2d}, values(result.column("px_open")));
+        assertArrayEquals(new Object[] {7d, 6d, null, 4d}, values(result.column("px_high")));
+        assertArrayEquals(new Object[] {7d, 6d, null, 2d}, values(result.column("px_low")));
+        assertArrayEquals(new Object[] {7d, 6d, null, 4d}, values(result.column("px_close")));
+    }
+
+    @Test
+    public void upsample() {
+        final DataFrame filled = Resample.of(ticks(), "t", 5L).upsample(Resample.Fill.FORWARD);
+        final DataFrame empty = Resample.of(ticks(), "t", 5L).upsample(Resample.Fill.NONE);
+        assertArrayEquals(new Object[] {0L, 5L, 10L, 15L, 20L, 25L}, values(filled.column("t")));
+        assertArrayEquals(new Object[] {5d, 3d, 8d, 8d, 8d, 2d}, values(filled.column("px")));
+        assertArrayEquals(new Object[] {5d, null, 8d, null, null, 2d}, values(empty.column("px")));
+        assertArrayEquals(new Object[] {1d, null, 3d, null, null, 3d}, values(empty.column("vol")));
+    }
+
+    @Test
+    public void invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> Resample.of(ticks(), "t", 0L));
+        assertThrows(DataFrameException.class, () -> Resample.of(ticks(), "px", 5L));
+        assertThrows(DataFrameException.class, () -> Resample.of(ticks(), "missing", 5L));
+    }
+}
@@ -0,0 +1,118 @@
+package com.zavtech.morpheus.window;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.zavtech.morpheus.column.Columns;
+import com.zavtech.morpheus.column.DoubleColumn;
+import com.zavtech.morpheus.column.NumericColumn;
+import com.zavtech.morpheus.column.Storage;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of row and time based rolling windows against a naive recomputation of every window
+ */
+public class RollingTest {
+
+    /**
+     * Returns the function of the window ending at each row, recomputed from scratch for every row
+     */
+    private static double[] naive(double[] values, long[] times, int size, long duration, int minPeriods, WindowFunction function) {
+        final double[] result = new double[values.length];
+        for (int i = 0; i < values.length; ++i) {
+            final List<Double> window = new ArrayList<>();
+            for (int j = 0; j <= i; ++j) {
+                final boolean inside = times == null ? j > i - size : times[j] > times[i] - duration;
+                if (inside && !Double.isNaN(values[j])) {
+                    window.add(values[j]);
+                }
+            }
+            final int n = window.size();
+            final double sum = window.stream().mapToDouble(Double::doubleValue).sum();
+            final double mean = sum / n;
+            final double squares = window.stream().mapToDouble(v -> (v - mean) * (v - mean)).sum();
+            final double value;
+            switch (function) {
+                case COUNT: value = n; break;
+                case SUM: value = sum; break;
+                case MEAN: value = n > 0 ? mean : Double.NaN; break;
+                case VARIANCE: value = n > 1 ? squares / (n - 1) : Double.NaN; break;
+                case STD: value = n > 1 ? Math.sqrt(squares / (n - 1)) : Double.NaN; break;
+                case MIN: value = window.stream().mapToDouble(Double::doubleValue).min().orElse(Double.NaN); break;
+                default: value = window.stream().mapToDouble(Double::doubleValue).max().orElse(Double.NaN); break;
+            }
+            result[i] = n >= minPeriods || function == WindowFunction.COUNT ? value : Double.NaN;
+        }
+        return result;
+    }
+
+    /**
+     * Asserts a result column matches the expected values, to a tolerance relative to their magnitude
+     */
+    private static void assertValues(double[] expected, NumericColumn actual) {
+        assertEquals(expected.length, actual.length());
+        for (int i = 0; i < expected.length; ++i) {
+            final double tolerance = 1e-9 * Math.max(1d, Math.abs(expected[i]));
+            if (Double.isNaN(expected[i])) {
+                assertEquals(Double.NaN, actual.getDouble(i), actual.name() + " row " + i);
+            } else {
+                assertEquals(expected[i], actual.getDouble(i), tolerance, actual.name() + " row " + i);
+            }
+        }
+    }
+
+    @Test
+    public void rowAndTimeWindowsMatchNaive() {
+        final Random random = new Random(5L);
+        final int n = 3000;
+        final double[] values = new double[n];
+        final long[] times = new long[n];
+        long time = 0L;
+        for (int i = 0; i < n; ++i) {
+            values[i] = random.nextInt(20) == 0 ? Double.NaN : random.nextGaussian() * 100d + 1e6;
+            time += random.nextInt(5);
+            times[i] = time;
+        }
+        final DoubleColumn column = Columns.ofDoubles("px", values);
+        final DoubleColumn offHeap = Columns.doubles("px", n, Storage.OFF_HEAP);
+        offHeap.setDoubles(0, values, 0, n);
+        final WindowFunction[] functions = WindowFunction.values();
+        final DataFrame rows = Rolling.rows(17).apply(column, functions);
+        final DataFrame offHeapRows = Rolling.rows(17).apply(offHeap, functions);
+        final DataFrame timed = Rolling.time(Columns.ofLongs("t", times), 40L).setMinPeriods(3).apply(column, functions);
+        assertEquals(Storage.OFF_HEAP, offHeapRows.column(0).storage());
+        for (int f = 0; f < functions.length; ++f) {
+            final String name = "px_" + functions[f].name().toLowerCase();
+            assertValues(naive(values, null, 17, 0L, 17, functions[f]), rows.numeric(name));
+            assertValues(naive(values, null, 17, 0L, 17, functions[f]), offHeapRows.numeric(name));
+            assertValues(naive(values, times, 0, 40L, 3, functions[f]), timed.numeric(name));
+        }
+    }
+
+    @Test
+    public void minPeriods() {
+        final DoubleColumn column = Columns.ofDoubles("x", 1, 2, Double.NaN, 4, 5);
+        assertValues(new double[] {Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN}, Rolling.rows(3).apply(WindowFunction.SUM, column));
+        assertValues(new double[] {1, 3, 3, 6, 9}, Rolling.rows(3).setMinPeriods(1).apply(WindowFunction.SUM, column));
+        assertValues(new double[] {1, 2, 2, 2, 2}, Rolling.rows(3).apply(WindowFunction.COUNT, column));
+        assertValues(new double[] {1, 1, 1, 2, 4}, Rolling.rows(3).setMinPeriods(0).apply(WindowFunction.MIN, column));
+    }
+
+    @Test
+    public void invalidArguments() {
+        final DoubleColumn column = Columns.ofDoubles("x", 1, 2, 3);
+        assertThrows(IllegalArgumentException.class, () -> Rolling.rows(0));
+        assertThrows(IllegalArgumentException.class, () -> Rolling.time(Columns.ofLongs("t", 1, 2, 3), 0L));
+        assertThrows(IllegalArgumentException.class, () -> Rolling.rows(2).setMinPeriods(-1));
+        assertThrows(IllegalArgumentException.class, () -> Rolling.rows(2).apply(column));
+        assertThrows(DataFrameException.class, () -> Rolling.time(Columns.ofLongs("t", 1, 2), 5L).apply(WindowFunction.SUM, column));
+        assertThrows(DataFrameException.class, () -> Rolling.time(Columns.ofLongs("t", 1, 3, 2), 5L).apply(WindowFunction.SUM, column));
+    }
+}